@@ -18,13 +18,19 @@ import static com.google.common.base.Preconditions.checkNotNull;
 public class SyncConfig {
 
   public static final boolean DEFAULT_MULTI_PEER_SYNC_ENABLED = true;
+  public static final int DEFAULT_HISTORICAL_SYNC_CONCURRENT_REQUESTS = 1;
 
   private final boolean isEnabled;
   private final boolean isMultiPeerSyncEnabled;
+  private final int historicalSyncConcurrentRequests;
 
-  private SyncConfig(final boolean isEnabled, final boolean isMultiPeerSyncEnabled) {
+  private SyncConfig(
+      final boolean isEnabled,
+      final boolean isMultiPeerSyncEnabled,
+      final int historicalSyncConcurrentRequests) {
     this.isEnabled = isEnabled;
     this.isMultiPeerSyncEnabled = isMultiPeerSyncEnabled;
+    this.historicalSyncConcurrentRequests = historicalSyncConcurrentRequests;
   }
 
   public static Builder builder() {
@@ -39,15 +45,20 @@ public class SyncConfig {
     return isMultiPeerSyncEnabled;
   }
 
+  public int getHistoricalSyncConcurrentRequests() {
+    return historicalSyncConcurrentRequests;
+  }
+
   public static class Builder {
     private Boolean isEnabled;
     private Boolean isMultiPeerSyncEnabled = DEFAULT_MULTI_PEER_SYNC_ENABLED;
+    private Integer historicalSyncConcurrentRequests = DEFAULT_HISTORICAL_SYNC_CONCURRENT_REQUESTS;
 
     private Builder() {}
 
     public SyncConfig build() {
       initMissingDefaults();
-      return new SyncConfig(isEnabled, isMultiPeerSyncEnabled);
+      return new SyncConfig(isEnabled, isMultiPeerSyncEnabled, historicalSyncConcurrentRequests);
     }
 
     private void initMissingDefaults() {
@@ -74,5 +85,12 @@ public class SyncConfig {
       isMultiPeerSyncEnabled = multiPeerSyncEnabled;
       return this;
     }
+
+    public Builder historicalSyncConcurrentRequests(
+        final Integer historicalSyncConcurrentRequests) {
+      checkNotNull(historicalSyncConcurrentRequests);
+      this.historicalSyncConcurrentRequests = historicalSyncConcurrentRequests;
+      return this;
+    }
   }
 }
@@ -151,7 +151,8 @@ public class SyncServiceFactory {
         p2pNetwork,
         combinedChainDataClient,
         signatureVerifier,
-        syncStateProvider);
+        syncStateProvider,
+        syncConfig.getHistoricalSyncConcurrentRequests());
   }
 
   private SyncStateTracker createSyncStateTracker(final ForwardSync forwardSync) {
@@ -171,6 +172,7 @@ public class SyncServiceFactory {
               pendingBlocks,
               p2pNetwork,
               blockImporter,
+              metrics,
               spec);
     } else {
       forwardSync =
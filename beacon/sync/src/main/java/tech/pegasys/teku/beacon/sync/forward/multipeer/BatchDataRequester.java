@@ -15,27 +15,43 @@ package tech.pegasys.teku.beacon.sync.forward.multipeer;
 
 import static java.util.stream.Collectors.toList;
 
+import java.time.Duration;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.Consumer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import tech.pegasys.teku.beacon.sync.forward.multipeer.batches.Batch;
 import tech.pegasys.teku.beacon.sync.forward.multipeer.batches.BatchChain;
 import tech.pegasys.teku.beacon.sync.forward.multipeer.batches.BatchFactory;
+import tech.pegasys.teku.beacon.sync.forward.multipeer.chains.SyncSourcePerformanceTracker;
 import tech.pegasys.teku.beacon.sync.forward.multipeer.chains.TargetChain;
 import tech.pegasys.teku.infrastructure.async.eventthread.EventThread;
 import tech.pegasys.teku.infrastructure.unsigned.UInt64;
+import tech.pegasys.teku.networking.eth2.peers.SyncSource;
 
 /**
  * Attempts to create a {@link BatchChain} and download the blocks for each batch.
  *
  * <p>Applies limits to the number of batches awaiting import to avoid excessive memory usage.
+ *
+ * <p>When a performance tracker is supplied, the batch size and number of pending batches are
+ * adjusted to the measured download rate of peers, and the first incomplete batch is requested
+ * again from another peer if it takes much longer than expected and is holding up later batches.
  */
 public class BatchDataRequester {
+  private static final Logger LOG = LogManager.getLogger();
+
   private final EventThread eventThread;
   private final BatchChain activeBatches;
   private final BatchFactory batchFactory;
   private final UInt64 batchSize;
   private final int maxPendingBatches;
+  private final Optional<SyncSourcePerformanceTracker> performanceTracker;
+  private final Map<Batch, UInt64> requestStartTimes = new HashMap<>();
 
   public BatchDataRequester(
       final EventThread eventThread,
@@ -43,11 +59,22 @@ public class BatchDataRequester {
       final BatchFactory batchFactory,
       final UInt64 batchSize,
       final int maxPendingBatches) {
+    this(eventThread, activeBatches, batchFactory, batchSize, maxPendingBatches, Optional.empty());
+  }
+
+  public BatchDataRequester(
+      final EventThread eventThread,
+      final BatchChain activeBatches,
+      final BatchFactory batchFactory,
+      final UInt64 batchSize,
+      final int maxPendingBatches,
+      final Optional<SyncSourcePerformanceTracker> performanceTracker) {
     this.eventThread = eventThread;
     this.activeBatches = activeBatches;
     this.batchFactory = batchFactory;
     this.batchSize = batchSize;
     this.maxPendingBatches = maxPendingBatches;
+    this.performanceTracker = performanceTracker;
   }
 
   public void fillRetrievingQueue(
@@ -57,6 +84,15 @@ public class BatchDataRequester {
     eventThread.checkOnEventThread();
 
     replaceBatchesFromOldChainsWithNoSources(targetChain);
+    performanceTracker.ifPresent(this::replaceStragglingBatch);
+    final UInt64 currentBatchSize =
+        performanceTracker.map(SyncSourcePerformanceTracker::getBatchSize).orElse(batchSize);
+    final int currentMaxPendingBatches =
+        performanceTracker
+            .map(
+                tracker ->
+                    tracker.getMaxPendingBatches(targetChain.getPeerCount(), currentBatchSize))
+            .orElse(maxPendingBatches);
 
     final long pendingBatchesCount =
         activeBatches.stream().filter(batch -> !batch.isEmpty() || !batch.isComplete()).count();
@@ -70,10 +106,10 @@ public class BatchDataRequester {
     UInt64 nextBatchStart = getNextSlotToRequest(commonAncestorSlot);
     final UInt64 targetSlot = targetChain.getChainHead().getSlot();
     for (long i = pendingBatchesCount;
-        i < maxPendingBatches && nextBatchStart.isLessThanOrEqualTo(targetSlot);
+        i < currentMaxPendingBatches && nextBatchStart.isLessThanOrEqualTo(targetSlot);
         i++) {
       final UInt64 remainingSlots = targetSlot.minus(nextBatchStart).plus(1);
-      final UInt64 count = remainingSlots.min(batchSize);
+      final UInt64 count = remainingSlots.min(currentBatchSize);
       final Batch batch = batchFactory.createBatch(targetChain, nextBatchStart, count);
       activeBatches.add(batch);
       requestMoreBlocks(batch, requestCompleteCallback);
@@ -113,6 +149,76 @@ public class BatchDataRequester {
         });
   }
 
+  /**
+   * Only the first incomplete batch holds up importing, so if it has been waiting much longer than
+   * its peer's measured rate suggests, replace it with a new batch for the same slots which will be
+   * requested from the fastest available peer other than the straggling one. Any blocks the
+   * original request later returns are ignored as the batch is no longer active.
+   */
+  private void replaceStragglingBatch(final SyncSourcePerformanceTracker tracker) {
+    final Optional<Batch> firstIncompleteBatch = getFirstBatchAwaitingBlocks();
+    if (firstIncompleteBatch.isEmpty()) {
+      return;
+    }
+    final Batch batch = firstIncompleteBatch.get();
+    final UInt64 startTime = requestStartTimes.get(batch);
+    final Optional<SyncSource> source = batch.getSource();
+    if (startTime == null
+        || source.isEmpty()
+        || batch.getTargetChain().getPeerCount() < 2
+        || activeBatches.batchesAfterExclusive(batch).stream().noneMatch(Batch::isComplete)) {
+      return;
+    }
+    final long elapsedMillis = tracker.getCurrentTimeMillis().minusMinZero(startTime).longValue();
+    if (elapsedMillis <= tracker.getStragglerTimeoutMillis(source.get(), batch.getCount())) {
+      return;
+    }
+    LOG.debug(
+        "Requesting batch {} from another peer as {} has not responded after {}ms",
+        batch,
+        source.get(),
+        elapsedMillis);
+    tracker.onRequestStraggled();
+    requestStartTimes.remove(batch);
+    activeBatches.replace(
+        batch,
+        batchFactory.createBatch(
+            batch.getTargetChain(), batch.getFirstSlot(), batch.getCount(), Set.of(source.get())));
+  }
+
+  /**
+   * Returns how long until the first incomplete batch times out and should be checked again by
+   * {@link #fillRetrievingQueue(TargetChain, UInt64, Consumer)}, as no other event may trigger the
+   * check once the later batches have completed.
+   */
+  public Optional<Duration> getDelayUntilStragglerTimeout() {
+    eventThread.checkOnEventThread();
+    if (performanceTracker.isEmpty()) {
+      return Optional.empty();
+    }
+    final SyncSourcePerformanceTracker tracker = performanceTracker.get();
+    final UInt64 now = tracker.getCurrentTimeMillis();
+    return getFirstBatchAwaitingBlocks()
+        .filter(batch -> requestStartTimes.containsKey(batch) && batch.getSource().isPresent())
+        .map(
+            batch ->
+                requestStartTimes
+                    .get(batch)
+                    .plus(
+                        tracker.getStragglerTimeoutMillis(
+                            batch.getSource().get(), batch.getCount()))
+                    .plus(1))
+        .filter(timeoutMillis -> timeoutMillis.isGreaterThan(now))
+        .map(timeoutMillis -> Duration.ofMillis(timeoutMillis.minus(now).longValue()));
+  }
+
+  private Optional<Batch> getFirstBatchAwaitingBlocks() {
+    return activeBatches.stream()
+        .filter(batch -> !batch.isComplete())
+        .findFirst()
+        .filter(Batch::isAwaitingBlocks);
+  }
+
   private boolean incompleteBatchFromOldChainWithNoPeers(
       final TargetChain targetChain, final Batch batch) {
     return !batch.isComplete()
@@ -127,6 +233,14 @@ public class BatchDataRequester {
   }
 
   private void requestMoreBlocks(final Batch batch, final Consumer<Batch> requestCompleteCallback) {
-    batch.requestMoreBlocks(() -> eventThread.execute(() -> requestCompleteCallback.accept(batch)));
+    performanceTracker.ifPresent(
+        tracker -> requestStartTimes.put(batch, tracker.getCurrentTimeMillis()));
+    batch.requestMoreBlocks(
+        () ->
+            eventThread.execute(
+                () -> {
+                  requestStartTimes.remove(batch);
+                  requestCompleteCallback.accept(batch);
+                }));
   }
 }
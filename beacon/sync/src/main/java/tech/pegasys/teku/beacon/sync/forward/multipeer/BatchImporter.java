@@ -27,16 +27,31 @@ import tech.pegasys.teku.networking.eth2.peers.SyncSource;
 import tech.pegasys.teku.networking.p2p.peer.DisconnectReason;
 import tech.pegasys.teku.spec.datastructures.blocks.SignedBeaconBlock;
 import tech.pegasys.teku.spec.logic.common.statetransition.results.BlockImportResult;
+import tech.pegasys.teku.statetransition.block.BlockImportPipeline;
 import tech.pegasys.teku.statetransition.block.BlockImporter;
 
 public class BatchImporter {
   private static final Logger LOG = LogManager.getLogger();
 
   private final BlockImporter blockImporter;
+  private final Optional<BlockImportPipeline> importPipeline;
   private final AsyncRunner asyncRunner;
 
   public BatchImporter(final BlockImporter blockImporter, final AsyncRunner asyncRunner) {
+    this(blockImporter, Optional.empty(), asyncRunner);
+  }
+
+  /**
+   * Creates an importer which, when an import pipeline is supplied, imports blocks through it so
+   * that later blocks are processed while earlier blocks are still being stored and the signatures
+   * of consecutive blocks are verified together.
+   */
+  public BatchImporter(
+      final BlockImporter blockImporter,
+      final Optional<BlockImportPipeline> importPipeline,
+      final AsyncRunner asyncRunner) {
     this.blockImporter = blockImporter;
+    this.importPipeline = importPipeline;
     this.asyncRunner = asyncRunner;
   }
 
@@ -55,55 +70,66 @@ public class BatchImporter {
 
     checkState(!blocks.isEmpty(), "Batch has no blocks to import");
     return asyncRunner.runAsync(
-        () -> {
-          SafeFuture<BlockImportResult> importResult =
-              importBlock(blocks.get(0), source.orElseThrow());
-          for (int i = 1; i < blocks.size(); i++) {
-            final SignedBeaconBlock block = blocks.get(i);
-            importResult =
-                importResult.thenCompose(
-                    previousResult -> {
-                      if (previousResult.isSuccessful()) {
-                        return importBlock(block, source.orElseThrow());
-                      } else {
-                        return SafeFuture.completedFuture(previousResult);
+        () ->
+            importBlocks(blocks, source.orElseThrow())
+                .thenApply(
+                    lastBlockImportResult -> {
+                      if (lastBlockImportResult.isSuccessful()) {
+                        return BatchImportResult.IMPORTED_ALL_BLOCKS;
+                      } else if (lastBlockImportResult.getFailureReason()
+                          == BlockImportResult.FailureReason.FAILED_EXECUTION_PAYLOAD_EXECUTION) {
+                        return BatchImportResult.SERVICE_OFFLINE;
                       }
-                    });
-          }
-          return importResult.thenApply(
-              lastBlockImportResult -> {
-                if (lastBlockImportResult.isSuccessful()) {
-                  return BatchImportResult.IMPORTED_ALL_BLOCKS;
-                } else if (lastBlockImportResult.getFailureReason()
-                    == BlockImportResult.FailureReason.FAILED_EXECUTION_PAYLOAD_EXECUTION) {
-                  return BatchImportResult.SERVICE_OFFLINE;
+                      LOG.debug(
+                          "Failed to import batch {}: {}",
+                          batch,
+                          lastBlockImportResult.getFailureReason(),
+                          lastBlockImportResult.getFailureCause().orElse(null));
+                      return BatchImportResult.IMPORT_FAILED;
+                    }));
+  }
+
+  private SafeFuture<BlockImportResult> importBlocks(
+      final List<SignedBeaconBlock> blocks, final SyncSource source) {
+    if (importPipeline.isPresent()) {
+      return importPipeline
+          .get()
+          .importBlocks(blocks)
+          .thenPeek(result -> checkWeakSubjectivityFailure(result, source));
+    }
+    SafeFuture<BlockImportResult> importResult = importBlock(blocks.get(0), source);
+    for (int i = 1; i < blocks.size(); i++) {
+      final SignedBeaconBlock block = blocks.get(i);
+      importResult =
+          importResult.thenCompose(
+              previousResult -> {
+                if (previousResult.isSuccessful()) {
+                  return importBlock(block, source);
+                } else {
+                  return SafeFuture.completedFuture(previousResult);
                 }
-                LOG.debug(
-                    "Failed to import batch {}: {}",
-                    batch,
-                    lastBlockImportResult.getFailureReason(),
-                    lastBlockImportResult.getFailureCause().orElse(null));
-                return BatchImportResult.IMPORT_FAILED;
               });
-        });
+    }
+    return importResult;
   }
 
   private SafeFuture<BlockImportResult> importBlock(
       final SignedBeaconBlock block, final SyncSource source) {
     return blockImporter
         .importBlock(block)
-        .thenApply(
-            result -> {
-              if (result.getFailureReason()
-                  == BlockImportResult.FailureReason.FAILED_WEAK_SUBJECTIVITY_CHECKS) {
-                LOG.warn(
-                    "Disconnecting source ({}) for sending block that failed weak subjectivity checks: {}",
-                    source,
-                    result);
-                source.disconnectCleanly(DisconnectReason.REMOTE_FAULT).reportExceptions();
-              }
-              return result;
-            });
+        .thenPeek(result -> checkWeakSubjectivityFailure(result, source));
+  }
+
+  private void checkWeakSubjectivityFailure(
+      final BlockImportResult result, final SyncSource source) {
+    if (result.getFailureReason()
+        == BlockImportResult.FailureReason.FAILED_WEAK_SUBJECTIVITY_CHECKS) {
+      LOG.warn(
+          "Disconnecting source ({}) for sending block that failed weak subjectivity checks: {}",
+          source,
+          result);
+      source.disconnectCleanly(DisconnectReason.REMOTE_FAULT).reportExceptions();
+    }
   }
 
   public enum BatchImportResult {
@@ -29,6 +29,7 @@ import tech.pegasys.teku.beacon.sync.forward.multipeer.BatchImporter.BatchImport
 import tech.pegasys.teku.beacon.sync.forward.multipeer.batches.Batch;
 import tech.pegasys.teku.beacon.sync.forward.multipeer.batches.BatchChain;
 import tech.pegasys.teku.beacon.sync.forward.multipeer.batches.BatchFactory;
+import tech.pegasys.teku.beacon.sync.forward.multipeer.chains.SyncSourcePerformanceTracker;
 import tech.pegasys.teku.beacon.sync.forward.multipeer.chains.TargetChain;
 import tech.pegasys.teku.infrastructure.async.AsyncRunner;
 import tech.pegasys.teku.infrastructure.async.SafeFuture;
@@ -73,6 +74,7 @@ public class BatchSync implements Sync {
   private UInt64 lastImportTimerStartPointSeconds;
 
   private boolean scheduledProgressSync = false;
+  private boolean scheduledStragglerCheck = false;
 
   private BatchSync(
       final EventThread eventThread,
@@ -103,10 +105,37 @@ public class BatchSync implements Sync {
       final UInt64 batchSize,
       final MultipeerCommonAncestorFinder commonAncestorFinder,
       final TimeProvider timeProvider) {
+    return create(
+        eventThread,
+        asyncRunner,
+        recentChainData,
+        batchImporter,
+        batchFactory,
+        batchSize,
+        commonAncestorFinder,
+        timeProvider,
+        Optional.empty());
+  }
+
+  public static BatchSync create(
+      final EventThread eventThread,
+      final AsyncRunner asyncRunner,
+      final RecentChainData recentChainData,
+      final BatchImporter batchImporter,
+      final BatchFactory batchFactory,
+      final UInt64 batchSize,
+      final MultipeerCommonAncestorFinder commonAncestorFinder,
+      final TimeProvider timeProvider,
+      final Optional<SyncSourcePerformanceTracker> performanceTracker) {
     final BatchChain activeBatches = new BatchChain();
     final BatchDataRequester batchDataRequester =
         new BatchDataRequester(
-            eventThread, activeBatches, batchFactory, batchSize, MAX_PENDING_BATCHES);
+            eventThread,
+            activeBatches,
+            batchFactory,
+            batchSize,
+            MAX_PENDING_BATCHES,
+            performanceTracker);
     return new BatchSync(
         eventThread,
         asyncRunner,
@@ -481,7 +510,30 @@ public class BatchSync implements Sync {
           targetChain,
           commonAncestorSlot.join(),
           exceptionHandlingConsumer(this::onBatchReceivedBlocks, syncResult));
+      scheduleStragglerCheck();
+    }
+  }
+
+  private void scheduleStragglerCheck() {
+    if (scheduledStragglerCheck) {
+      return;
     }
+    batchDataRequester
+        .getDelayUntilStragglerTimeout()
+        .ifPresent(
+            delay -> {
+              asyncRunner
+                  .runAfterDelay(
+                      () ->
+                          eventThread.execute(
+                              () -> {
+                                scheduledStragglerCheck = false;
+                                progressSync();
+                              }),
+                      delay)
+                  .reportExceptions();
+              scheduledStragglerCheck = true;
+            });
   }
 
   @VisibleForTesting
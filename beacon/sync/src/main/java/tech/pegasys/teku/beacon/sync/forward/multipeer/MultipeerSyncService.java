@@ -13,14 +13,17 @@
 
 package tech.pegasys.teku.beacon.sync.forward.multipeer;
 
+import java.util.Optional;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.hyperledger.besu.plugin.services.MetricsSystem;
 import tech.pegasys.teku.beacon.sync.events.SyncingStatus;
 import tech.pegasys.teku.beacon.sync.forward.ForwardSyncService;
 import tech.pegasys.teku.beacon.sync.forward.multipeer.batches.BatchFactory;
 import tech.pegasys.teku.beacon.sync.forward.multipeer.batches.PeerScoringConflictResolutionStrategy;
 import tech.pegasys.teku.beacon.sync.forward.multipeer.chains.PeerChainTracker;
 import tech.pegasys.teku.beacon.sync.forward.multipeer.chains.SyncSourceFactory;
+import tech.pegasys.teku.beacon.sync.forward.multipeer.chains.SyncSourcePerformanceTracker;
 import tech.pegasys.teku.beacon.sync.forward.multipeer.chains.TargetChains;
 import tech.pegasys.teku.infrastructure.async.AsyncRunner;
 import tech.pegasys.teku.infrastructure.async.AsyncRunnerFactory;
@@ -36,6 +39,7 @@ import tech.pegasys.teku.service.serviceutils.Service;
 import tech.pegasys.teku.spec.Spec;
 import tech.pegasys.teku.spec.config.Constants;
 import tech.pegasys.teku.spec.datastructures.blocks.SignedBeaconBlock;
+import tech.pegasys.teku.statetransition.block.BlockImportPipeline;
 import tech.pegasys.teku.statetransition.block.BlockImporter;
 import tech.pegasys.teku.statetransition.util.PendingPool;
 import tech.pegasys.teku.storage.client.RecentChainData;
@@ -69,22 +73,37 @@ public class MultipeerSyncService extends Service implements ForwardSyncService
       final PendingPool<SignedBeaconBlock> pendingBlocks,
       final P2PNetwork<Eth2Peer> p2pNetwork,
       final BlockImporter blockImporter,
+      final MetricsSystem metricsSystem,
       final Spec spec) {
     LOG.info("Using multipeer sync");
     final EventThread eventThread = new AsyncRunnerEventThread("sync", asyncRunnerFactory);
 
     final TargetChains finalizedTargetChains = new TargetChains();
     final TargetChains nonfinalizedTargetChains = new TargetChains();
+    final Optional<SyncSourcePerformanceTracker> performanceTracker =
+        Optional.of(new SyncSourcePerformanceTracker(metricsSystem, timeProvider));
     final BatchSync batchSync =
         BatchSync.create(
             eventThread,
             asyncRunner,
             recentChainData,
-            new BatchImporter(blockImporter, asyncRunner),
-            new BatchFactory(eventThread, new PeerScoringConflictResolutionStrategy()),
+            new BatchImporter(
+                blockImporter,
+                Optional.of(
+                    new BlockImportPipeline(
+                        spec,
+                        recentChainData,
+                        blockImporter,
+                        asyncRunner,
+                        metricsSystem,
+                        SyncSourcePerformanceTracker.MAX_BATCH_SIZE.intValue())),
+                asyncRunner),
+            new BatchFactory(
+                eventThread, new PeerScoringConflictResolutionStrategy(), performanceTracker),
             Constants.SYNC_BATCH_SIZE,
             MultipeerCommonAncestorFinder.create(recentChainData, eventThread, spec),
-            timeProvider);
+            timeProvider,
+            performanceTracker);
     final SyncController syncController =
         new SyncController(
             eventThread,
@@ -102,7 +121,7 @@ public class MultipeerSyncService extends Service implements ForwardSyncService
             recentChainData.getSpec(),
             eventThread,
             p2pNetwork,
-            new SyncSourceFactory(asyncRunner, timeProvider),
+            new SyncSourceFactory(asyncRunner, timeProvider, performanceTracker),
             finalizedTargetChains,
             nonfinalizedTargetChains);
     peerChainTracker.subscribeToTargetChainUpdates(syncController::onTargetChainsUpdated);
@@ -13,23 +13,60 @@
 
 package tech.pegasys.teku.beacon.sync.forward.multipeer.batches;
 
+import java.util.Collections;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import tech.pegasys.teku.beacon.sync.forward.multipeer.chains.SyncSourcePerformanceTracker;
 import tech.pegasys.teku.beacon.sync.forward.multipeer.chains.TargetChain;
 import tech.pegasys.teku.infrastructure.async.eventthread.EventThread;
 import tech.pegasys.teku.infrastructure.unsigned.UInt64;
+import tech.pegasys.teku.networking.eth2.peers.SyncSource;
 
 public class BatchFactory {
   private final EventThread eventThread;
   private final ConflictResolutionStrategy conflictResolutionStrategy;
+  private final Optional<SyncSourcePerformanceTracker> performanceTracker;
 
   public BatchFactory(
       final EventThread eventThread, final ConflictResolutionStrategy conflictResolutionStrategy) {
+    this(eventThread, conflictResolutionStrategy, Optional.empty());
+  }
+
+  /**
+   * Creates a factory for batches which, when a performance tracker is supplied, request blocks
+   * from the peer expected to respond fastest rather than a random peer.
+   */
+  public BatchFactory(
+      final EventThread eventThread,
+      final ConflictResolutionStrategy conflictResolutionStrategy,
+      final Optional<SyncSourcePerformanceTracker> performanceTracker) {
     this.eventThread = eventThread;
     this.conflictResolutionStrategy = conflictResolutionStrategy;
+    this.performanceTracker = performanceTracker;
   }
 
   public Batch createBatch(final TargetChain chain, final UInt64 start, final UInt64 count) {
+    return createBatch(chain, start, count, Collections.emptySet());
+  }
+
+  /** Creates a batch which will never request blocks from any of the excluded sources. */
+  public Batch createBatch(
+      final TargetChain chain,
+      final UInt64 start,
+      final UInt64 count,
+      final Set<SyncSource> excludedSources) {
     eventThread.checkOnEventThread();
-    final SyncSourceSelector syncSourceProvider = chain::selectRandomPeer;
+    final SyncSourceSelector syncSourceProvider =
+        performanceTracker.isPresent()
+            ? () ->
+                performanceTracker
+                    .get()
+                    .selectSource(
+                        chain.getPeers().stream()
+                            .filter(peer -> !excludedSources.contains(peer))
+                            .collect(Collectors.toList()))
+            : () -> chain.selectRandomPeer(excludedSources.toArray(SyncSource[]::new));
     return new EventThreadOnlyBatch(
         eventThread,
         new SyncSourceBatch(
@@ -14,10 +14,10 @@
 package tech.pegasys.teku.beacon.sync.forward.multipeer.chains;
 
 import static tech.pegasys.teku.spec.config.Constants.MAX_BLOCKS_PER_MINUTE;
-import static tech.pegasys.teku.spec.config.Constants.SYNC_BATCH_SIZE;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 import tech.pegasys.teku.infrastructure.async.AsyncRunner;
 import tech.pegasys.teku.infrastructure.time.TimeProvider;
 import tech.pegasys.teku.networking.eth2.peers.Eth2Peer;
@@ -27,22 +27,37 @@ public class SyncSourceFactory {
 
   private final AsyncRunner asyncRunner;
   private final TimeProvider timeProvider;
+  private final Optional<SyncSourcePerformanceTracker> performanceTracker;
   private final Map<Eth2Peer, SyncSource> syncSourcesByPeer = new HashMap<>();
 
   public SyncSourceFactory(final AsyncRunner asyncRunner, final TimeProvider timeProvider) {
+    this(asyncRunner, timeProvider, Optional.empty());
+  }
+
+  public SyncSourceFactory(
+      final AsyncRunner asyncRunner,
+      final TimeProvider timeProvider,
+      final Optional<SyncSourcePerformanceTracker> performanceTracker) {
     this.asyncRunner = asyncRunner;
     this.timeProvider = timeProvider;
+    this.performanceTracker = performanceTracker;
   }
 
   public SyncSource getOrCreateSyncSource(final Eth2Peer peer) {
     // Limit request rate to just a little under what we'd accept
-    final int maxBlocksPerMinute = MAX_BLOCKS_PER_MINUTE - SYNC_BATCH_SIZE.intValue() - 1;
+    final int maxBlocksPerMinute =
+        MAX_BLOCKS_PER_MINUTE - SyncSourcePerformanceTracker.MAX_BATCH_SIZE.intValue() - 1;
     return syncSourcesByPeer.computeIfAbsent(
         peer,
-        source -> new ThrottlingSyncSource(asyncRunner, timeProvider, source, maxBlocksPerMinute));
+        source ->
+            new ThrottlingSyncSource(
+                asyncRunner, timeProvider, source, maxBlocksPerMinute, performanceTracker));
   }
 
   public void onPeerDisconnected(final Eth2Peer peer) {
-    syncSourcesByPeer.remove(peer);
+    final SyncSource syncSource = syncSourcesByPeer.remove(peer);
+    if (syncSource != null) {
+      performanceTracker.ifPresent(tracker -> tracker.onSourceDisconnected(syncSource));
+    }
   }
 }
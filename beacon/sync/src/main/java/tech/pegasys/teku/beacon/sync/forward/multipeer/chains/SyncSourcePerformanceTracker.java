@@ -0,0 +1,268 @@
+/*
+ * Copyright 2022 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package tech.pegasys.teku.beacon.sync.forward.multipeer.chains;
+
+import static tech.pegasys.teku.spec.config.Constants.SYNC_BATCH_SIZE;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import org.hyperledger.besu.plugin.services.MetricsSystem;
+import org.hyperledger.besu.plugin.services.metrics.Counter;
+import tech.pegasys.teku.infrastructure.metrics.MetricsHistogram;
+import tech.pegasys.teku.infrastructure.metrics.TekuMetricCategory;
+import tech.pegasys.teku.infrastructure.time.TimeProvider;
+import tech.pegasys.teku.infrastructure.unsigned.UInt64;
+import tech.pegasys.teku.networking.eth2.peers.SyncSource;
+
+/**
+ * Tracks the download rate and response latency of each sync source so that batches can be
+ * requested from the fastest peers and sized to the rate blocks are actually arriving.
+ *
+ * <p>Rates are exponentially weighted moving averages of completed requests. Peers which have not
+ * completed a request yet are preferred so that every peer gets measured.
+ */
+public class SyncSourcePerformanceTracker {
+  public static final UInt64 MIN_BATCH_SIZE = SYNC_BATCH_SIZE.dividedBy(2);
+  public static final UInt64 MAX_BATCH_SIZE = SYNC_BATCH_SIZE.times(2);
+  static final int MIN_PENDING_BATCHES = 5;
+  static final int MAX_PENDING_BLOCKS = 500;
+  static final long TARGET_REQUEST_DURATION_MILLIS = 5_000;
+  static final long MIN_STRAGGLER_TIMEOUT_MILLIS = 10_000;
+  static final int STRAGGLER_TIMEOUT_MULTIPLIER = 3;
+  private static final double SMOOTHING_FACTOR = 0.3;
+  private static final double MIN_SELECTION_RATE = 1;
+
+  private final TimeProvider timeProvider;
+  private final Map<SyncSource, SourceStats> statsBySource = new HashMap<>();
+
+  private final MetricsHistogram downloadRateHistogram;
+  private final MetricsHistogram latencyHistogram;
+  private final Counter straggledRequestCounter;
+
+  public SyncSourcePerformanceTracker(
+      final MetricsSystem metricsSystem, final TimeProvider timeProvider) {
+    this.timeProvider = timeProvider;
+    downloadRateHistogram =
+        MetricsHistogram.create(
+            TekuMetricCategory.BEACON,
+            metricsSystem,
+            "sync_peer_download_rate",
+            "Histogram of the blocks per second downloaded from a peer for each sync request",
+            3,
+            List.of());
+    latencyHistogram =
+        MetricsHistogram.create(
+            TekuMetricCategory.BEACON,
+            metricsSystem,
+            "sync_peer_request_latency",
+            "Histogram of milliseconds until a peer sent the first block of a sync request",
+            3,
+            List.of());
+    straggledRequestCounter =
+        metricsSystem.createCounter(
+            TekuMetricCategory.BEACON,
+            "sync_straggling_batches_total",
+            "Number of sync batches re-requested from another peer because the original was slow");
+    metricsSystem.createGauge(
+        TekuMetricCategory.BEACON,
+        "sync_batch_size",
+        "Number of slots currently requested in each sync batch",
+        () -> getBatchSize().longValue());
+    metricsSystem.createGauge(
+        TekuMetricCategory.BEACON,
+        "sync_peer_download_rate_total",
+        "Sum of the estimated blocks per second available from all measured sync peers",
+        this::getTotalDownloadRate);
+  }
+
+  /** Returns the current time, used to time requests tracked by this class. */
+  public UInt64 getCurrentTimeMillis() {
+    return timeProvider.getTimeInMillis();
+  }
+
+  public synchronized void onRequestStarted(final SyncSource source) {
+    getStats(source).outstandingRequests++;
+  }
+
+  public synchronized void onRequestCompleted(
+      final SyncSource source,
+      final UInt64 startTimeMillis,
+      final Optional<UInt64> firstBlockTimeMillis,
+      final int blockCount) {
+    final SourceStats stats = getStats(source);
+    stats.outstandingRequests = Math.max(0, stats.outstandingRequests - 1);
+    final UInt64 now = getCurrentTimeMillis();
+    final long latencyMillis =
+        firstBlockTimeMillis.orElse(now).minusMinZero(startTimeMillis).longValue();
+    final long durationMillis = Math.max(1, now.minusMinZero(startTimeMillis).longValue());
+    final double blocksPerSecond = blockCount * 1000d / durationMillis;
+    stats.update(blocksPerSecond, latencyMillis);
+    downloadRateHistogram.recordValue(Math.round(blocksPerSecond));
+    latencyHistogram.recordValue(latencyMillis);
+  }
+
+  /** Record a failed request, which counts as a request that returned no blocks. */
+  public synchronized void onRequestFailed(final SyncSource source, final UInt64 startTimeMillis) {
+    final SourceStats stats = getStats(source);
+    stats.outstandingRequests = Math.max(0, stats.outstandingRequests - 1);
+    stats.update(0, getCurrentTimeMillis().minusMinZero(startTimeMillis).longValue());
+  }
+
+  /**
+   * Record that a request to the source took so long that it was re-requested from another peer.
+   * The rate of the source is updated only when the original request completes or fails, so each
+   * request contributes exactly one sample.
+   */
+  public void onRequestStraggled() {
+    straggledRequestCounter.inc();
+  }
+
+  public synchronized void onSourceDisconnected(final SyncSource source) {
+    statsBySource.remove(source);
+  }
+
+  /**
+   * Select the source to request the next batch from. Sources which haven't been measured yet are
+   * preferred, otherwise the source with the highest download rate per outstanding request is
+   * chosen so that load is spread across fast peers rather than all sent to the fastest one.
+   */
+  public synchronized Optional<SyncSource> selectSource(final Collection<SyncSource> sources) {
+    final Optional<SyncSource> unmeasuredSource =
+        sources.stream()
+            .filter(source -> !getExistingStats(source).map(SourceStats::isMeasured).orElse(false))
+            .min(Comparator.comparingInt(this::getOutstandingRequests));
+    if (unmeasuredSource.isPresent()) {
+      return unmeasuredSource;
+    }
+    return sources.stream().max(Comparator.comparingDouble(this::getSelectionScore));
+  }
+
+  /**
+   * Returns the number of slots to include in each batch, chosen so that a request to a typical
+   * peer completes in about {@link #TARGET_REQUEST_DURATION_MILLIS}.
+   */
+  public synchronized UInt64 getBatchSize() {
+    final List<Double> rates = getMeasuredRates();
+    if (rates.isEmpty()) {
+      return SYNC_BATCH_SIZE;
+    }
+    final double medianRate = rates.get(rates.size() / 2);
+    final long batchSize = Math.round(medianRate * TARGET_REQUEST_DURATION_MILLIS / 1000d);
+    return UInt64.valueOf(batchSize).max(MIN_BATCH_SIZE).min(MAX_BATCH_SIZE);
+  }
+
+  /**
+   * Returns the number of batches to download concurrently. More peers allow more batches to be
+   * downloaded in parallel, while the total number of pending blocks is limited to bound memory
+   * use.
+   */
+  public synchronized int getMaxPendingBatches(final int peerCount, final UInt64 batchSize) {
+    final int memoryLimit = Math.max(1, MAX_PENDING_BLOCKS / batchSize.intValue());
+    return Math.min(Math.max(MIN_PENDING_BATCHES, peerCount * 2), memoryLimit);
+  }
+
+  /**
+   * Returns how long a request for the specified number of slots from the source can take before
+   * it is considered to be straggling.
+   */
+  public synchronized long getStragglerTimeoutMillis(
+      final SyncSource source, final UInt64 slotCount) {
+    final Optional<SourceStats> stats =
+        getExistingStats(source).filter(sourceStats -> sourceStats.blocksPerSecond > 0);
+    final double rate =
+        stats
+            .map(sourceStats -> sourceStats.blocksPerSecond)
+            .orElseGet(
+                () -> {
+                  final List<Double> rates = getMeasuredRates();
+                  return rates.isEmpty() ? 0 : rates.get(rates.size() / 2);
+                });
+    if (rate <= 0) {
+      return MIN_STRAGGLER_TIMEOUT_MILLIS;
+    }
+    final double latencyMillis = stats.map(sourceStats -> sourceStats.latencyMillis).orElse(0d);
+    final long expectedMillis = Math.round(latencyMillis + slotCount.longValue() * 1000d / rate);
+    return Math.max(MIN_STRAGGLER_TIMEOUT_MILLIS, expectedMillis * STRAGGLER_TIMEOUT_MULTIPLIER);
+  }
+
+  synchronized Optional<Double> getDownloadRate(final SyncSource source) {
+    return getExistingStats(source)
+        .filter(SourceStats::isMeasured)
+        .map(stats -> stats.blocksPerSecond);
+  }
+
+  private synchronized long getTotalDownloadRate() {
+    return Math.round(getMeasuredRates().stream().mapToDouble(Double::doubleValue).sum());
+  }
+
+  private List<Double> getMeasuredRates() {
+    return statsBySource.values().stream()
+        .filter(SourceStats::isMeasured)
+        .map(stats -> stats.blocksPerSecond)
+        .sorted()
+        .collect(Collectors.toList());
+  }
+
+  private double getSelectionScore(final SyncSource source) {
+    return getExistingStats(source)
+        // Use a minimum rate so slow sources can still be selected and measured again when the
+        // faster sources are busy
+        .map(
+            stats ->
+                Math.max(MIN_SELECTION_RATE, stats.blocksPerSecond)
+                    / (1 + stats.outstandingRequests))
+        .orElse(0d);
+  }
+
+  private int getOutstandingRequests(final SyncSource source) {
+    return getExistingStats(source).map(stats -> stats.outstandingRequests).orElse(0);
+  }
+
+  private Optional<SourceStats> getExistingStats(final SyncSource source) {
+    return Optional.ofNullable(statsBySource.get(source));
+  }
+
+  private SourceStats getStats(final SyncSource source) {
+    return statsBySource.computeIfAbsent(source, __ -> new SourceStats());
+  }
+
+  private static class SourceStats {
+    private boolean measured = false;
+    private double blocksPerSecond;
+    private double latencyMillis;
+    private int outstandingRequests;
+
+    private boolean isMeasured() {
+      return measured;
+    }
+
+    private void update(final double sampleBlocksPerSecond, final long sampleLatencyMillis) {
+      if (!measured) {
+        blocksPerSecond = sampleBlocksPerSecond;
+        latencyMillis = sampleLatencyMillis;
+        measured = true;
+      } else {
+        blocksPerSecond =
+            SMOOTHING_FACTOR * sampleBlocksPerSecond + (1 - SMOOTHING_FACTOR) * blocksPerSecond;
+        latencyMillis =
+            SMOOTHING_FACTOR * sampleLatencyMillis + (1 - SMOOTHING_FACTOR) * latencyMillis;
+      }
+    }
+  }
+}
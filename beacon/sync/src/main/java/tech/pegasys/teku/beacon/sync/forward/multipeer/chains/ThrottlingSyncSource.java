@@ -14,6 +14,9 @@
 package tech.pegasys.teku.beacon.sync.forward.multipeer.chains;
 
 import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import tech.pegasys.teku.infrastructure.async.AsyncRunner;
@@ -31,6 +34,7 @@ public class ThrottlingSyncSource implements SyncSource {
   private static final Logger LOG = LogManager.getLogger();
   private final AsyncRunner asyncRunner;
   private final SyncSource delegate;
+  private final Optional<SyncSourcePerformanceTracker> performanceTracker;
 
   private final RateTracker rateTracker;
 
@@ -39,8 +43,18 @@ public class ThrottlingSyncSource implements SyncSource {
       final TimeProvider timeProvider,
       final SyncSource delegate,
       final int maxBlocksPerMinute) {
+    this(asyncRunner, timeProvider, delegate, maxBlocksPerMinute, Optional.empty());
+  }
+
+  public ThrottlingSyncSource(
+      final AsyncRunner asyncRunner,
+      final TimeProvider timeProvider,
+      final SyncSource delegate,
+      final int maxBlocksPerMinute,
+      final Optional<SyncSourcePerformanceTracker> performanceTracker) {
     this.asyncRunner = asyncRunner;
     this.delegate = delegate;
+    this.performanceTracker = performanceTracker;
     rateTracker = new RateTracker(maxBlocksPerMinute, 60, timeProvider);
   }
 
@@ -51,13 +65,46 @@ public class ThrottlingSyncSource implements SyncSource {
       final RpcResponseListener<SignedBeaconBlock> listener) {
     if (rateTracker.wantToRequestObjects(count.longValue()) > 0) {
       LOG.debug("Sending request for {} blocks", count);
-      return delegate.requestBlocksByRange(startSlot, count, listener);
+      return performanceTracker
+          .map(tracker -> requestBlocksByRangeTracked(tracker, startSlot, count, listener))
+          .orElseGet(() -> delegate.requestBlocksByRange(startSlot, count, listener));
     } else {
       return asyncRunner.runAfterDelay(
           () -> requestBlocksByRange(startSlot, count, listener), Duration.ofSeconds(3));
     }
   }
 
+  private SafeFuture<Void> requestBlocksByRangeTracked(
+      final SyncSourcePerformanceTracker tracker,
+      final UInt64 startSlot,
+      final UInt64 count,
+      final RpcResponseListener<SignedBeaconBlock> listener) {
+    // Measured after any throttling delay so only time spent waiting for the peer is counted
+    final UInt64 startTime = tracker.getCurrentTimeMillis();
+    final AtomicInteger blockCount = new AtomicInteger();
+    final AtomicReference<UInt64> firstBlockTime = new AtomicReference<>();
+    tracker.onRequestStarted(this);
+    return delegate
+        .requestBlocksByRange(
+            startSlot,
+            count,
+            block -> {
+              if (blockCount.getAndIncrement() == 0) {
+                firstBlockTime.set(tracker.getCurrentTimeMillis());
+              }
+              return listener.onResponse(block);
+            })
+        .whenComplete(
+            (__, error) -> {
+              if (error != null) {
+                tracker.onRequestFailed(this, startTime);
+              } else {
+                tracker.onRequestCompleted(
+                    this, startTime, Optional.ofNullable(firstBlockTime.get()), blockCount.get());
+              }
+            });
+  }
+
   @Override
   public SafeFuture<Void> disconnectCleanly(final DisconnectReason reason) {
     return delegate.disconnectCleanly(reason);
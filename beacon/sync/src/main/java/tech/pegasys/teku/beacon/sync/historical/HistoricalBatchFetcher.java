@@ -15,10 +15,8 @@ package tech.pegasys.teku.beacon.sync.historical;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Throwables;
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Deque;
-import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -26,23 +24,15 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.apache.tuweni.bytes.Bytes;
 import org.apache.tuweni.bytes.Bytes32;
-import tech.pegasys.teku.bls.BLSPublicKey;
-import tech.pegasys.teku.bls.BLSSignature;
 import tech.pegasys.teku.infrastructure.async.SafeFuture;
 import tech.pegasys.teku.infrastructure.unsigned.UInt64;
 import tech.pegasys.teku.networking.eth2.peers.Eth2Peer;
 import tech.pegasys.teku.networking.eth2.rpc.core.InvalidResponseException;
 import tech.pegasys.teku.networking.p2p.peer.DisconnectReason;
 import tech.pegasys.teku.spec.Spec;
-import tech.pegasys.teku.spec.config.SpecConfig;
-import tech.pegasys.teku.spec.constants.Domain;
-import tech.pegasys.teku.spec.datastructures.blocks.BeaconBlock;
 import tech.pegasys.teku.spec.datastructures.blocks.BeaconBlockSummary;
 import tech.pegasys.teku.spec.datastructures.blocks.SignedBeaconBlock;
-import tech.pegasys.teku.spec.datastructures.state.Fork;
-import tech.pegasys.teku.spec.datastructures.state.beaconstate.BeaconState;
 import tech.pegasys.teku.spec.logic.common.util.AsyncBLSSignatureVerifier;
 import tech.pegasys.teku.storage.api.StorageUpdateChannel;
 import tech.pegasys.teku.storage.client.CombinedChainDataClient;
@@ -59,12 +49,10 @@ public class HistoricalBatchFetcher {
   private final UInt64 batchSize;
   private final int maxRequests;
 
-  private final Spec spec;
   private final SafeFuture<BeaconBlockSummary> future = new SafeFuture<>();
   private final Deque<SignedBeaconBlock> blocksToImport = new ConcurrentLinkedDeque<>();
   private final AtomicInteger requestCount = new AtomicInteger(0);
-  private final AsyncBLSSignatureVerifier signatureVerificationService;
-  private final CombinedChainDataClient chainDataClient;
+  private final HistoricalBlockSignatureVerifier signatureVerifier;
 
   /**
    * @param storageUpdateChannel The storage channel where finalized blocks will be imported
@@ -106,9 +94,8 @@ public class HistoricalBatchFetcher {
       final UInt64 batchSize,
       final int maxRequests) {
     this.storageUpdateChannel = storageUpdateChannel;
-    this.signatureVerificationService = signatureVerifier;
-    this.chainDataClient = chainDataClient;
-    this.spec = spec;
+    this.signatureVerifier =
+        new HistoricalBlockSignatureVerifier(spec, chainDataClient, signatureVerifier);
     this.peer = peer;
     this.maxSlot = maxSlot;
     this.lastBlockRoot = lastBlockRoot;
@@ -226,49 +213,7 @@ public class HistoricalBatchFetcher {
 
   SafeFuture<Void> batchVerifyHistoricalBlockSignatures(
       final Collection<SignedBeaconBlock> blocks) {
-
-    return chainDataClient
-        .getBestState()
-        .orElseThrow()
-        .thenCompose(bestState -> batchVerifyHistoricalBlockSignature(blocks, bestState));
-  }
-
-  private SafeFuture<Void> batchVerifyHistoricalBlockSignature(
-      final Collection<SignedBeaconBlock> blocks, final BeaconState bestState) {
-    List<BLSSignature> signatures = new ArrayList<>();
-    List<Bytes> signingRoots = new ArrayList<>();
-    List<List<BLSPublicKey>> proposerPublicKeys = new ArrayList<>();
-
-    final Bytes32 genesisValidatorsRoot = bestState.getForkInfo().getGenesisValidatorsRoot();
-
-    blocks.forEach(
-        signedBlock -> {
-          final BeaconBlock block = signedBlock.getMessage();
-          if (block.getSlot().isGreaterThan(SpecConfig.GENESIS_SLOT)) {
-            final UInt64 epoch = spec.computeEpochAtSlot(block.getSlot());
-            final Fork fork = spec.fork(epoch);
-            final Bytes32 domain =
-                spec.getDomain(Domain.BEACON_PROPOSER, epoch, fork, genesisValidatorsRoot);
-            signatures.add(signedBlock.getSignature());
-            signingRoots.add(spec.computeSigningRoot(block, domain));
-            BLSPublicKey proposerPublicKey =
-                spec.getValidatorPubKey(bestState, block.getProposerIndex())
-                    .orElseThrow(
-                        () ->
-                            new IllegalStateException(
-                                "Proposer has to be in the state since state is more recent than the block proposed"));
-            proposerPublicKeys.add(List.of(proposerPublicKey));
-          }
-        });
-
-    return signatureVerificationService
-        .verify(proposerPublicKeys, signingRoots, signatures)
-        .thenAccept(
-            signaturesValid -> {
-              if (!signaturesValid) {
-                throw new IllegalArgumentException("Batch signature verification failed");
-              }
-            });
+    return signatureVerifier.verify(blocks);
   }
 
   private RequestParameters calculateRequestParams() {
@@ -21,6 +21,7 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.tuweni.bytes.Bytes32;
@@ -37,6 +38,7 @@ import tech.pegasys.teku.networking.p2p.peer.NodeId;
 import tech.pegasys.teku.service.serviceutils.Service;
 import tech.pegasys.teku.spec.Spec;
 import tech.pegasys.teku.spec.datastructures.blocks.BeaconBlockSummary;
+import tech.pegasys.teku.spec.datastructures.blocks.SignedBeaconBlock;
 import tech.pegasys.teku.spec.logic.common.util.AsyncBLSSignatureVerifier;
 import tech.pegasys.teku.storage.api.StorageUpdateChannel;
 import tech.pegasys.teku.storage.client.CombinedChainDataClient;
@@ -44,6 +46,9 @@ import tech.pegasys.teku.storage.client.CombinedChainDataClient;
 /**
  * Service responsible for syncing missing historical blocks. Blocks are pulled in order from the
  * newest unknown block back to genesis.
+ *
+ * <p>When more than one concurrent request is allowed, ranges of blocks are requested from several
+ * peers at once using a {@link ParallelHistoricalBatchFetcher}.
  */
 public class HistoricalBlockSyncService extends Service {
   private static final Logger LOG = LogManager.getLogger();
@@ -52,6 +57,7 @@ public class HistoricalBlockSyncService extends Service {
   private static final UInt64 BATCH_SIZE = UInt64.valueOf(50);
 
   private final Spec spec;
+  private final MetricsSystem metricsSystem;
   private final SettableGauge historicSyncGauge;
   private final StorageUpdateChannel storageUpdateChannel;
   private final AsyncRunner asyncRunner;
@@ -59,9 +65,12 @@ public class HistoricalBlockSyncService extends Service {
   private final CombinedChainDataClient chainData;
   private final SyncStateProvider syncStateProvider;
   private final UInt64 batchSize;
+  private final int maxConcurrentRequests;
 
   private final AtomicLong syncStateSubscription = new AtomicLong(-1);
   private final AtomicBoolean requestInProgress = new AtomicBoolean(false);
+  private final AtomicBoolean retryScheduled = new AtomicBoolean(false);
+  private volatile Optional<ParallelHistoricalBatchFetcher> parallelFetcher = Optional.empty();
 
   private final AsyncBLSSignatureVerifier signatureVerifier;
   private volatile BeaconBlockSummary earliestBlock;
@@ -78,7 +87,33 @@ public class HistoricalBlockSyncService extends Service {
       final SyncStateProvider syncStateProvider,
       final AsyncBLSSignatureVerifier signatureVerifier,
       final UInt64 batchSize) {
+    this(
+        spec,
+        metricsSystem,
+        storageUpdateChannel,
+        asyncRunner,
+        network,
+        chainData,
+        syncStateProvider,
+        signatureVerifier,
+        batchSize,
+        1);
+  }
+
+  @VisibleForTesting
+  HistoricalBlockSyncService(
+      final Spec spec,
+      final MetricsSystem metricsSystem,
+      final StorageUpdateChannel storageUpdateChannel,
+      final AsyncRunner asyncRunner,
+      final P2PNetwork<Eth2Peer> network,
+      final CombinedChainDataClient chainData,
+      final SyncStateProvider syncStateProvider,
+      final AsyncBLSSignatureVerifier signatureVerifier,
+      final UInt64 batchSize,
+      final int maxConcurrentRequests) {
     this.spec = spec;
+    this.metricsSystem = metricsSystem;
     this.storageUpdateChannel = storageUpdateChannel;
 
     this.asyncRunner = asyncRunner;
@@ -86,6 +121,7 @@ public class HistoricalBlockSyncService extends Service {
     this.chainData = chainData;
     this.syncStateProvider = syncStateProvider;
     this.batchSize = batchSize;
+    this.maxConcurrentRequests = maxConcurrentRequests;
     this.signatureVerifier = signatureVerifier;
 
     this.badPeerCache =
@@ -113,7 +149,8 @@ public class HistoricalBlockSyncService extends Service {
       final P2PNetwork<Eth2Peer> network,
       final CombinedChainDataClient chainData,
       final AsyncBLSSignatureVerifier signatureVerifier,
-      final SyncStateProvider syncStateProvider) {
+      final SyncStateProvider syncStateProvider,
+      final int maxConcurrentRequests) {
     return new HistoricalBlockSyncService(
         spec,
         metricsSystem,
@@ -123,7 +160,8 @@ public class HistoricalBlockSyncService extends Service {
         chainData,
         syncStateProvider,
         signatureVerifier,
-        BATCH_SIZE);
+        BATCH_SIZE,
+        maxConcurrentRequests);
   }
 
   @Override
@@ -153,6 +191,9 @@ public class HistoricalBlockSyncService extends Service {
                     "Begin historical sync of blocks prior to slot {}", earliestBlock.getSlot());
                 updateSyncMetrics();
               }
+              if (maxConcurrentRequests > 1) {
+                parallelFetcher = getMaxMissingBlockParams().map(this::createParallelFetcher);
+              }
               syncStateSubscription.set(
                   syncStateProvider.subscribeToSyncStateChanges(__ -> fetchBlocks()));
             });
@@ -165,6 +206,10 @@ public class HistoricalBlockSyncService extends Service {
   }
 
   private void fetchBlocks() {
+    if (parallelFetcher.isPresent()) {
+      fetchBlocksInParallel(parallelFetcher.get());
+      return;
+    }
     SafeFuture.asyncDoWhile(this::findPeerAndRequestBlocks)
         .always(
             () -> {
@@ -187,6 +232,60 @@ public class HistoricalBlockSyncService extends Service {
     }
   }
 
+  private synchronized void fetchBlocksInParallel(final ParallelHistoricalBatchFetcher fetcher) {
+    while (isActive()) {
+      final Optional<Eth2Peer> peer =
+          streamAvailablePeers().filter(p -> !fetcher.hasRequestInProgressFrom(p)).findAny();
+      if (peer.isEmpty()) {
+        if (!fetcher.hasRequestsInProgress() && retryScheduled.compareAndSet(false, true)) {
+          waitToRetry()
+              .thenRun(
+                  () -> {
+                    retryScheduled.set(false);
+                    fetchBlocks();
+                  })
+              .reportExceptions();
+        }
+        return;
+      }
+      final Optional<SafeFuture<Void>> request = fetcher.requestNextRange(peer.get());
+      if (request.isEmpty()) {
+        return;
+      }
+      request
+          .get()
+          .finish(
+              this::fetchBlocks,
+              error -> {
+                handleRequestError(peer.get(), error);
+                fetchBlocks();
+              });
+    }
+  }
+
+  private void onEarliestBlockStored(final SignedBeaconBlock newEarliestBlock) {
+    LOG.trace("Synced historical blocks to slot {}", newEarliestBlock.getSlot());
+    earliestBlock = newEarliestBlock;
+    updateSyncMetrics();
+    if (isSyncDone()) {
+      LOG.info("Historical block sync is complete");
+      stop().reportExceptions();
+    }
+  }
+
+  private ParallelHistoricalBatchFetcher createParallelFetcher(final MaxMissingBlockParams params) {
+    return new ParallelHistoricalBatchFetcher(
+        storageUpdateChannel,
+        new HistoricalBlockSignatureVerifier(spec, chainData, signatureVerifier),
+        metricsSystem,
+        this::onEarliestBlockStored,
+        params.getBlockRoot(),
+        params.getMaxSlot(),
+        batchSize,
+        maxConcurrentRequests,
+        ParallelHistoricalBatchFetcher.DEFAULT_MAX_BLOCKS_PER_WRITE);
+  }
+
   private boolean isActive() {
     return isRunning() && syncStateProvider.getCurrentSyncState().isInSync();
   }
@@ -196,15 +295,7 @@ public class HistoricalBlockSyncService extends Service {
         .run()
         .exceptionally(
             (err) -> {
-              // We ran into trouble with this peer - ignore it for a while
-              LOG.debug(
-                  "Encountered a problem requesting historical blocks from peer: " + peer, err);
-              if (peer.isConnected()) {
-                // If we didn't disconnect the peer altogether, avoid making new requests for a
-                // while
-                badPeerCache.add(peer.getId());
-                logBadPeerCacheSize(true);
-              }
+              handleRequestError(peer, err);
               return null;
             })
         .thenAccept(
@@ -220,6 +311,16 @@ public class HistoricalBlockSyncService extends Service {
             });
   }
 
+  private void handleRequestError(final Eth2Peer peer, final Throwable err) {
+    // We ran into trouble with this peer - ignore it for a while
+    LOG.debug("Encountered a problem requesting historical blocks from peer: " + peer, err);
+    if (peer.isConnected()) {
+      // If we didn't disconnect the peer altogether, avoid making new requests for a while
+      badPeerCache.add(peer.getId());
+      logBadPeerCacheSize(true);
+    }
+  }
+
   private HistoricalBatchFetcher createFetcher(
       final Eth2Peer peer, final MaxMissingBlockParams params) {
     return new HistoricalBatchFetcher(
@@ -260,6 +361,10 @@ public class HistoricalBlockSyncService extends Service {
   }
 
   private Optional<Eth2Peer> findPeer() {
+    return streamAvailablePeers().findAny();
+  }
+
+  private Stream<Eth2Peer> streamAvailablePeers() {
     return network
         .streamPeers()
         .filter(p -> !badPeerCache.contains(p.getId()))
@@ -268,8 +373,7 @@ public class HistoricalBlockSyncService extends Service {
                 p.getStatus()
                     .getFinalizedCheckpoint()
                     .getEpochStartSlot(spec)
-                    .isGreaterThan(earliestBlock.getSlot()))
-        .findAny();
+                    .isGreaterThan(earliestBlock.getSlot()));
   }
 
   private void logBadPeerCacheSize(final boolean peerAdded) {
@@ -0,0 +1,389 @@
+/*
+ * Copyright 2022 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package tech.pegasys.teku.beacon.sync.historical;
+
+import com.google.common.base.Throwables;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.tuweni.bytes.Bytes32;
+import org.hyperledger.besu.plugin.services.MetricsSystem;
+import org.hyperledger.besu.plugin.services.metrics.Counter;
+import tech.pegasys.teku.infrastructure.async.SafeFuture;
+import tech.pegasys.teku.infrastructure.metrics.TekuMetricCategory;
+import tech.pegasys.teku.infrastructure.unsigned.UInt64;
+import tech.pegasys.teku.networking.eth2.peers.Eth2Peer;
+import tech.pegasys.teku.networking.eth2.rpc.core.InvalidResponseException;
+import tech.pegasys.teku.networking.p2p.peer.DisconnectReason;
+import tech.pegasys.teku.spec.datastructures.blocks.SignedBeaconBlock;
+import tech.pegasys.teku.storage.api.StorageUpdateChannel;
+
+/**
+ * Fetches historical blocks for several slot ranges concurrently, each from a different peer.
+ *
+ * <p>Each range is checked to be an internally linked chain as soon as it arrives. Ranges are then
+ * stitched together from the newest down, with each range required to end with the parent of the
+ * range above it. Stitched blocks are written to storage in large contiguous batches so storage
+ * always holds an unbroken chain back from the anchor and sync can resume from the earliest stored
+ * block after a restart.
+ *
+ * <p>A range containing no blocks can't be verified on its own, so it is only accepted once a
+ * lower range links to the expected parent root. If a range doesn't link, the expected block may be
+ * in slots that were left out of a range above it, so fetching restarts from the slot before the
+ * earliest stitched block and all pending ranges are discarded.
+ */
+public class ParallelHistoricalBatchFetcher {
+  private static final Logger LOG = LogManager.getLogger();
+  public static final int DEFAULT_MAX_BLOCKS_PER_WRITE = 512;
+  private static final int MAX_PENDING_RANGES_PER_REQUEST = 4;
+
+  private final StorageUpdateChannel storageUpdateChannel;
+  private final HistoricalBlockSignatureVerifier signatureVerifier;
+  private final Consumer<SignedBeaconBlock> earliestBlockStoredListener;
+  private final UInt64 batchSize;
+  private final int maxConcurrentRequests;
+  private final int maxBlocksPerWrite;
+
+  private final NavigableMap<UInt64, SlotRange> rangesByStartSlot = new TreeMap<>();
+  private final Set<SlotRange> discardedInFlightRanges = new HashSet<>();
+  private final Deque<SignedBeaconBlock> blocksToStore = new ArrayDeque<>();
+  private Bytes32 expectedRoot;
+  private UInt64 expectedMaxSlot;
+  private UInt64 nextRangeEndSlot;
+  private boolean allRangesCreated = false;
+  private boolean storeInProgress = false;
+  private Bytes32 storedRoot;
+  private UInt64 storedMaxMissingSlot;
+
+  private final Counter storedBlocksCounter;
+  private final Counter rangeRetriesCounter;
+
+  ParallelHistoricalBatchFetcher(
+      final StorageUpdateChannel storageUpdateChannel,
+      final HistoricalBlockSignatureVerifier signatureVerifier,
+      final MetricsSystem metricsSystem,
+      final Consumer<SignedBeaconBlock> earliestBlockStoredListener,
+      final Bytes32 lastBlockRoot,
+      final UInt64 maxSlot,
+      final UInt64 batchSize,
+      final int maxConcurrentRequests,
+      final int maxBlocksPerWrite) {
+    this.storageUpdateChannel = storageUpdateChannel;
+    this.signatureVerifier = signatureVerifier;
+    this.earliestBlockStoredListener = earliestBlockStoredListener;
+    this.batchSize = batchSize;
+    this.maxConcurrentRequests = maxConcurrentRequests;
+    this.maxBlocksPerWrite = maxBlocksPerWrite;
+    this.storedRoot = lastBlockRoot;
+    this.storedMaxMissingSlot = maxSlot;
+    restartFromStoredBlocks();
+
+    storedBlocksCounter =
+        metricsSystem.createCounter(
+            TekuMetricCategory.BEACON,
+            "historical_block_sync_blocks_stored_total",
+            "Number of historical blocks stored by the parallel historical block sync");
+    rangeRetriesCounter =
+        metricsSystem.createCounter(
+            TekuMetricCategory.BEACON,
+            "historical_block_sync_range_retries_total",
+            "Number of historical block ranges requested again because they didn't link up");
+    metricsSystem.createIntegerGauge(
+        TekuMetricCategory.BEACON,
+        "historical_block_sync_active_requests",
+        "Number of historical block ranges currently being requested from peers",
+        this::getActiveRequestCount);
+  }
+
+  /**
+   * Request the next range of blocks that needs to be fetched from the specified peer.
+   *
+   * @return the future for the request, which completes when the range has been received and
+   *     checked, or empty if no more ranges can be requested currently
+   */
+  public synchronized Optional<SafeFuture<Void>> requestNextRange(final Eth2Peer peer) {
+    if (getActiveRequestCount() >= maxConcurrentRequests) {
+      return Optional.empty();
+    }
+    final Optional<SlotRange> maybeRange = selectNextRange();
+    if (maybeRange.isEmpty()) {
+      return Optional.empty();
+    }
+    final SlotRange range = maybeRange.get();
+    range.peer = Optional.of(peer);
+    LOG.trace(
+        "Requesting historical blocks from slot {} to {} from {}",
+        range.startSlot,
+        range.getEndSlot(),
+        peer.getId());
+    return Optional.of(fetchRange(range, peer));
+  }
+
+  public synchronized boolean hasRequestInProgressFrom(final Eth2Peer peer) {
+    return Stream.concat(rangesByStartSlot.values().stream(), discardedInFlightRanges.stream())
+        .anyMatch(range -> range.isInFlight() && range.peer.equals(Optional.of(peer)));
+  }
+
+  public synchronized boolean hasRequestsInProgress() {
+    return getActiveRequestCount() > 0;
+  }
+
+  private synchronized int getActiveRequestCount() {
+    return (int) rangesByStartSlot.values().stream().filter(SlotRange::isInFlight).count()
+        + discardedInFlightRanges.size();
+  }
+
+  private Optional<SlotRange> selectNextRange() {
+    // Ranges that need to be requested again are higher so must be stitched first
+    final Optional<SlotRange> retryRange =
+        rangesByStartSlot.descendingMap().values().stream()
+            .filter(range -> range.peer.isEmpty())
+            .findFirst();
+    if (retryRange.isPresent()) {
+      return retryRange;
+    }
+    if (allRangesCreated
+        || rangesByStartSlot.size() >= maxConcurrentRequests * MAX_PENDING_RANGES_PER_REQUEST) {
+      return Optional.empty();
+    }
+    final UInt64 startSlot = nextRangeEndSlot.plus(1).safeMinus(batchSize).orElse(UInt64.ZERO);
+    final SlotRange range = new SlotRange(startSlot, nextRangeEndSlot.plus(1).minus(startSlot));
+    rangesByStartSlot.put(startSlot, range);
+    if (startSlot.isZero()) {
+      allRangesCreated = true;
+    } else {
+      nextRangeEndSlot = startSlot.minus(1);
+    }
+    return Optional.of(range);
+  }
+
+  private SafeFuture<Void> fetchRange(final SlotRange range, final Eth2Peer peer) {
+    final List<SignedBeaconBlock> blocks = new ArrayList<>();
+    return peer.requestBlocksByRange(
+            range.startSlot,
+            range.count,
+            block -> addBlockToRange(range, blocks, block))
+        .thenCompose(__ -> signatureVerifier.verify(blocks))
+        .thenAccept(__ -> onRangeReceived(range, blocks))
+        .catchAndRethrow(error -> onRangeFailed(range, peer, error))
+        .alwaysRun(() -> onRequestCompleted(range));
+  }
+
+  private SafeFuture<?> addBlockToRange(
+      final SlotRange range, final List<SignedBeaconBlock> blocks, final SignedBeaconBlock block) {
+    return SafeFuture.of(
+        () -> {
+          if (block.getSlot().isLessThan(range.startSlot)) {
+            throw new InvalidResponseException("Received block before the requested range");
+          }
+          if (block.getSlot().isGreaterThan(range.getEndSlot())) {
+            // Ignore any extra blocks
+            return SafeFuture.COMPLETE;
+          }
+          if (!blocks.isEmpty()) {
+            final SignedBeaconBlock previousBlock = blocks.get(blocks.size() - 1);
+            if (!block.getParentRoot().equals(previousBlock.getRoot())) {
+              throw new InvalidResponseException(
+                  "Expected block to descend from the previous block");
+            }
+          }
+          blocks.add(block);
+          return SafeFuture.COMPLETE;
+        });
+  }
+
+  private void onRangeReceived(final SlotRange range, final List<SignedBeaconBlock> blocks) {
+    synchronized (this) {
+      if (rangesByStartSlot.get(range.startSlot) != range) {
+        // Range was discarded while the request was in progress
+        return;
+      }
+      range.blocks = Optional.of(blocks);
+      stitchRanges();
+    }
+    storeBlocks();
+  }
+
+  private synchronized void onRequestCompleted(final SlotRange range) {
+    discardedInFlightRanges.remove(range);
+  }
+
+  private synchronized void onRangeFailed(
+      final SlotRange range, final Eth2Peer peer, final Throwable error) {
+    if (Throwables.getRootCause(error) instanceof InvalidResponseException) {
+      LOG.debug("Received invalid historical blocks from peer. Disconnecting: " + peer, error);
+      peer.disconnectCleanly(DisconnectReason.REMOTE_FAULT).reportExceptions();
+    }
+    if (rangesByStartSlot.get(range.startSlot) == range) {
+      range.reset();
+    }
+  }
+
+  private void stitchRanges() {
+    final List<SlotRange> emptyRanges = new ArrayList<>();
+    for (SlotRange range : new ArrayList<>(rangesByStartSlot.descendingMap().values())) {
+      if (range.blocks.isEmpty()) {
+        return;
+      }
+      final List<SignedBeaconBlock> blocks = range.blocks.get();
+      if (blocks.isEmpty()) {
+        emptyRanges.add(range);
+        continue;
+      }
+      final SignedBeaconBlock lastBlock = blocks.get(blocks.size() - 1);
+      if (!lastBlock.getRoot().equals(expectedRoot)) {
+        handleUnlinkedRange(range, lastBlock, emptyRanges);
+        return;
+      }
+      emptyRanges.forEach(emptyRange -> rangesByStartSlot.remove(emptyRange.startSlot));
+      emptyRanges.clear();
+      rangesByStartSlot.remove(range.startSlot);
+      expectedRoot = blocks.get(0).getParentRoot();
+      expectedMaxSlot = blocks.get(0).getSlot().minusMinZero(1);
+      // Stitched ranges are older than any blocks waiting to be stored so go at the front
+      for (int i = blocks.size() - 1; i >= 0; i--) {
+        blocksToStore.addFirst(blocks.get(i));
+      }
+    }
+    if (allRangesCreated && !emptyRanges.isEmpty()) {
+      // The genesis block must exist so the expected block was left out of a range above
+      rangeRetriesCounter.inc();
+      restartFromSlot(expectedMaxSlot);
+    }
+  }
+
+  private void handleUnlinkedRange(
+      final SlotRange range, final SignedBeaconBlock lastBlock, final List<SlotRange> emptyRanges) {
+    if (!emptyRanges.isEmpty() || !range.getEndSlot().equals(expectedMaxSlot)) {
+      // The expected block may be in slots left out of a range above, so go back to the earliest
+      // stitched block rather than blaming the peer that provided this range
+      LOG.debug(
+          "Historical blocks from slot {} don't link, restarting from slot {}",
+          range.startSlot,
+          expectedMaxSlot);
+      rangeRetriesCounter.inc();
+      restartFromSlot(expectedMaxSlot);
+      return;
+    }
+    if (lastBlock.getSlot().isGreaterThanOrEqualTo(expectedMaxSlot)) {
+      // The expected block can't be at a later slot so the peer is on a different chain
+      range.peer.ifPresent(
+          peer -> {
+            LOG.debug("Received historical blocks from a different chain from peer {}", peer);
+            peer.disconnectCleanly(DisconnectReason.IRRELEVANT_NETWORK).reportExceptions();
+          });
+    }
+    // Otherwise the peer may have just returned fewer blocks than requested
+    retryRanges(List.of(range));
+  }
+
+  private void restartFromSlot(final UInt64 maxSlot) {
+    rangesByStartSlot.values().stream()
+        .filter(SlotRange::isInFlight)
+        .forEach(discardedInFlightRanges::add);
+    rangesByStartSlot.clear();
+    nextRangeEndSlot = maxSlot;
+    allRangesCreated = false;
+  }
+
+  private void retryRanges(final List<SlotRange> ranges) {
+    ranges.forEach(SlotRange::reset);
+    rangeRetriesCounter.inc(ranges.size());
+  }
+
+  private void storeBlocks() {
+    final List<SignedBeaconBlock> blocks = new ArrayList<>();
+    synchronized (this) {
+      if (storeInProgress || blocksToStore.isEmpty()) {
+        return;
+      }
+      storeInProgress = true;
+      // Store the newest blocks first so they are contiguous with the blocks already stored
+      while (blocks.size() < maxBlocksPerWrite && !blocksToStore.isEmpty()) {
+        blocks.add(blocksToStore.removeLast());
+      }
+      Collections.reverse(blocks);
+    }
+    final SignedBeaconBlock newEarliestBlock = blocks.get(0);
+    LOG.trace("Storing {} historical blocks", blocks.size());
+    storageUpdateChannel
+        .onFinalizedBlocks(blocks)
+        .thenRun(
+            () -> {
+              synchronized (this) {
+                storedRoot = newEarliestBlock.getParentRoot();
+                storedMaxMissingSlot = newEarliestBlock.getSlot().minusMinZero(1);
+              }
+              storedBlocksCounter.inc(blocks.size());
+              earliestBlockStoredListener.accept(newEarliestBlock);
+            })
+        .exceptionally(
+            error -> {
+              LOG.error("Failed to store historical blocks, restarting from last stored", error);
+              restartFromStoredBlocks();
+              return null;
+            })
+        .alwaysRun(
+            () -> {
+              synchronized (this) {
+                storeInProgress = false;
+              }
+              storeBlocks();
+            })
+        .reportExceptions();
+  }
+
+  private synchronized void restartFromStoredBlocks() {
+    blocksToStore.clear();
+    expectedRoot = storedRoot;
+    expectedMaxSlot = storedMaxMissingSlot;
+    restartFromSlot(storedMaxMissingSlot);
+  }
+
+  private static class SlotRange {
+    private final UInt64 startSlot;
+    private final UInt64 count;
+    private Optional<Eth2Peer> peer = Optional.empty();
+    private Optional<List<SignedBeaconBlock>> blocks = Optional.empty();
+
+    private SlotRange(final UInt64 startSlot, final UInt64 count) {
+      this.startSlot = startSlot;
+      this.count = count;
+    }
+
+    private UInt64 getEndSlot() {
+      return startSlot.plus(count).minus(1);
+    }
+
+    private boolean isInFlight() {
+      return peer.isPresent() && blocks.isEmpty();
+    }
+
+    private void reset() {
+      peer = Optional.empty();
+      blocks = Optional.empty();
+    }
+  }
+}
@@ -20,15 +20,20 @@ import static tech.pegasys.teku.beacon.sync.forward.multipeer.batches.BatchAsser
 import static tech.pegasys.teku.infrastructure.unsigned.UInt64.ZERO;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.function.Consumer;
 import org.junit.jupiter.api.Test;
 import tech.pegasys.teku.beacon.sync.forward.multipeer.batches.Batch;
 import tech.pegasys.teku.beacon.sync.forward.multipeer.batches.BatchChain;
 import tech.pegasys.teku.beacon.sync.forward.multipeer.batches.StubBatchFactory;
+import tech.pegasys.teku.beacon.sync.forward.multipeer.chains.SyncSourcePerformanceTracker;
 import tech.pegasys.teku.beacon.sync.forward.multipeer.chains.TargetChain;
 import tech.pegasys.teku.beacon.sync.forward.multipeer.chains.TargetChainTestUtil;
 import tech.pegasys.teku.infrastructure.async.eventthread.InlineEventThread;
+import tech.pegasys.teku.infrastructure.metrics.StubMetricsSystem;
+import tech.pegasys.teku.infrastructure.time.StubTimeProvider;
 import tech.pegasys.teku.infrastructure.unsigned.UInt64;
+import tech.pegasys.teku.networking.eth2.peers.SyncSource;
 import tech.pegasys.teku.spec.TestSpecFactory;
 import tech.pegasys.teku.spec.datastructures.blocks.SlotAndBlockRoot;
 import tech.pegasys.teku.spec.util.DataStructureUtil;
@@ -53,6 +58,21 @@ class BatchDataRequesterTest {
       new BatchDataRequester(
           eventThread, batchChain, batchFactory, BATCH_SIZE, MAX_PENDING_BATCHES);
 
+  private final StubTimeProvider timeProvider = StubTimeProvider.withTimeInSeconds(1000);
+  private final TargetChain trackedTargetChain =
+      TargetChainTestUtil.chainWith(
+          new SlotAndBlockRoot(UInt64.valueOf(500), dataStructureUtil.randomBytes32()),
+          mock(SyncSource.class),
+          mock(SyncSource.class));
+  private final BatchDataRequester trackedBatchDataRequester =
+      new BatchDataRequester(
+          eventThread,
+          batchChain,
+          batchFactory,
+          BATCH_SIZE,
+          MAX_PENDING_BATCHES,
+          Optional.of(new SyncSourcePerformanceTracker(new StubMetricsSystem(), timeProvider)));
+
   @Test
   void shouldCreateNewBatchesWhenChainIsEmpty() {
     fillQueue(UInt64.valueOf(24));
@@ -155,6 +175,50 @@ class BatchDataRequesterTest {
                 targetChain, commonAncestorSlot, requestCompleteCallback));
   }
 
+  @Test
+  void shouldRequestStragglingBatchAgainExcludingOriginalSource() {
+    final Batch firstBatch = fillQueueWithCompleteSecondBatch();
+    final SyncSource originalSource = firstBatch.getSource().orElseThrow();
+
+    timeProvider.advanceTimeBySeconds(60);
+    fillQueueTracked();
+
+    assertThat(batchChain).doesNotContain(firstBatch);
+    final Batch replacement = batchChain.stream().findFirst().orElseThrow();
+    assertThatBatch(replacement)
+        .hasRange(firstBatch.getFirstSlot().longValue(), firstBatch.getLastSlot().longValue());
+    assertThatBatch(replacement).isAwaitingBlocks();
+    assertThat(batchFactory.getExcludedSources(replacement)).containsExactly(originalSource);
+  }
+
+  @Test
+  void shouldNotReplaceFirstBatchBeforeStragglerTimeout() {
+    final Batch firstBatch = fillQueueWithCompleteSecondBatch();
+
+    timeProvider.advanceTimeBySeconds(1);
+    fillQueueTracked();
+
+    assertThat(batchChain.stream().findFirst()).containsSame(firstBatch);
+  }
+
+  private Batch fillQueueWithCompleteSecondBatch() {
+    fillQueueTracked();
+    final Batch firstBatch = batchFactory.get(0);
+    final Batch secondBatch = batchFactory.get(1);
+    batchFactory.receiveBlocks(
+        secondBatch, dataStructureUtil.randomSignedBeaconBlock(secondBatch.getLastSlot()));
+    assertThatBatch(secondBatch).isComplete();
+    assertThatBatch(firstBatch).isAwaitingBlocks();
+    return firstBatch;
+  }
+
+  private void fillQueueTracked() {
+    eventThread.execute(
+        () ->
+            trackedBatchDataRequester.fillRetrievingQueue(
+                trackedTargetChain, ZERO, requestCompleteCallback));
+  }
+
   @Test
   void shouldReplaceBatchesFromOldChainsWithNoPeers() {
     final TargetChain oldTargetChain =
@@ -38,6 +38,7 @@ import tech.pegasys.teku.spec.TestSpecFactory;
 import tech.pegasys.teku.spec.datastructures.blocks.SignedBeaconBlock;
 import tech.pegasys.teku.spec.logic.common.statetransition.results.BlockImportResult;
 import tech.pegasys.teku.spec.util.DataStructureUtil;
+import tech.pegasys.teku.statetransition.block.BlockImportPipeline;
 import tech.pegasys.teku.statetransition.block.BlockImporter;
 
 class BatchImporterTest {
@@ -192,6 +193,25 @@ class BatchImporterTest {
     verifyNoMoreInteractions(blockImporter);
   }
 
+  @Test
+  void shouldImportBlocksThroughPipelineWhenAvailable() {
+    final BlockImportPipeline importPipeline = mock(BlockImportPipeline.class);
+    final BatchImporter pipelinedImporter =
+        new BatchImporter(blockImporter, Optional.of(importPipeline), asyncRunner);
+    final SignedBeaconBlock block1 = dataStructureUtil.randomSignedBeaconBlock(1);
+    final SignedBeaconBlock block2 = dataStructureUtil.randomSignedBeaconBlock(2);
+    final List<SignedBeaconBlock> blocks = List.of(block1, block2);
+    when(batch.getBlocks()).thenReturn(blocks);
+    when(importPipeline.importBlocks(blocks))
+        .thenReturn(SafeFuture.completedFuture(BlockImportResult.successful(block2)));
+
+    final SafeFuture<BatchImportResult> result = pipelinedImporter.importBatch(batch);
+    asyncRunner.executeQueuedActions();
+
+    assertThat(result).isCompletedWithValue(BatchImportResult.IMPORTED_ALL_BLOCKS);
+    verifyNoInteractions(blockImporter);
+  }
+
   private void blockImportedSuccessfully(
       final SignedBeaconBlock block, final SafeFuture<BlockImportResult> importResult1) {
     ignoreFuture(verify(blockImporter).importBlock(block));
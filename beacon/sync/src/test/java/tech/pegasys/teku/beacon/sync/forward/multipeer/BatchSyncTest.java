@@ -31,16 +31,19 @@ import static tech.pegasys.teku.infrastructure.unsigned.UInt64.ONE;
 import static tech.pegasys.teku.infrastructure.unsigned.UInt64.ZERO;
 
 import java.util.List;
+import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import tech.pegasys.teku.beacon.sync.forward.multipeer.batches.Batch;
 import tech.pegasys.teku.beacon.sync.forward.multipeer.batches.StubBatchFactory;
+import tech.pegasys.teku.beacon.sync.forward.multipeer.chains.SyncSourcePerformanceTracker;
 import tech.pegasys.teku.beacon.sync.forward.multipeer.chains.TargetChain;
 import tech.pegasys.teku.beacon.sync.forward.multipeer.chains.TargetChains;
 import tech.pegasys.teku.core.ChainBuilder;
 import tech.pegasys.teku.infrastructure.async.SafeFuture;
 import tech.pegasys.teku.infrastructure.async.StubAsyncRunner;
 import tech.pegasys.teku.infrastructure.async.eventthread.InlineEventThread;
+import tech.pegasys.teku.infrastructure.metrics.StubMetricsSystem;
 import tech.pegasys.teku.infrastructure.time.StubTimeProvider;
 import tech.pegasys.teku.infrastructure.unsigned.UInt64;
 import tech.pegasys.teku.networking.eth2.peers.SyncSource;
@@ -880,6 +883,49 @@ class BatchSyncTest {
     }
   }
 
+  @Test
+  void shouldReplaceStragglingBatchAfterTimeoutWhenLaterBatchesHaveCompleted() {
+    final BatchSync sync =
+        BatchSync.create(
+            eventThread,
+            asyncRunner,
+            recentChainData,
+            batchImporter,
+            batches,
+            BATCH_SIZE,
+            commonAncestor,
+            timeProvider,
+            Optional.of(new SyncSourcePerformanceTracker(new StubMetricsSystem(), timeProvider)));
+    final TargetChain targetChain =
+        chainWith(
+            new SlotAndBlockRoot(UInt64.valueOf(1000), dataStructureUtil.randomBytes32()),
+            syncSource,
+            mock(SyncSource.class));
+    assertThat(sync.syncToChain(targetChain)).isNotDone();
+    final int initialBatchCount = batches.size();
+    final Batch stragglingBatch = batches.get(0);
+
+    // All later batches complete so no further events trigger the straggler check
+    for (int i = 1; i < initialBatchCount; i++) {
+      final Batch batch = batches.get(i);
+      batches.receiveBlocks(
+          batch, chainBuilder.generateBlockAtSlot(batch.getLastSlot()).getBlock());
+    }
+    assertThat(batches).hasSize(initialBatchCount);
+    assertBatchActive(stragglingBatch);
+
+    timeProvider.advanceTimeBySeconds(60);
+    asyncRunner.executeDueActionsRepeatedly();
+
+    assertBatchNotActive(stragglingBatch);
+    final Batch replacement = batches.get(initialBatchCount);
+    assertThatBatch(replacement)
+        .hasRange(
+            stragglingBatch.getFirstSlot().longValue(), stragglingBatch.getLastSlot().longValue());
+    assertThat(batches.getExcludedSources(replacement))
+        .containsExactly(stragglingBatch.getSource().orElseThrow());
+  }
+
   @Test
   void shouldRecordTimeWhenFirstSyncStarts() {
     timeProvider.advanceTimeBySeconds(100);
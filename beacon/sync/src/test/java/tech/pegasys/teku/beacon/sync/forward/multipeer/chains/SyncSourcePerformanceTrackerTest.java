@@ -0,0 +1,138 @@
+/*
+ * Copyright 2022 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package tech.pegasys.teku.beacon.sync.forward.multipeer.chains;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static tech.pegasys.teku.beacon.sync.forward.multipeer.chains.SyncSourcePerformanceTracker.MAX_BATCH_SIZE;
+import static tech.pegasys.teku.beacon.sync.forward.multipeer.chains.SyncSourcePerformanceTracker.MIN_BATCH_SIZE;
+import static tech.pegasys.teku.beacon.sync.forward.multipeer.chains.SyncSourcePerformanceTracker.MIN_STRAGGLER_TIMEOUT_MILLIS;
+import static tech.pegasys.teku.spec.config.Constants.SYNC_BATCH_SIZE;
+
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+import tech.pegasys.teku.infrastructure.metrics.StubMetricsSystem;
+import tech.pegasys.teku.infrastructure.time.StubTimeProvider;
+import tech.pegasys.teku.infrastructure.unsigned.UInt64;
+import tech.pegasys.teku.networking.eth2.peers.SyncSource;
+
+class SyncSourcePerformanceTrackerTest {
+
+  private final StubTimeProvider timeProvider = StubTimeProvider.withTimeInSeconds(1000);
+  private final SyncSource source1 = mock(SyncSource.class);
+  private final SyncSource source2 = mock(SyncSource.class);
+  private final SyncSource source3 = mock(SyncSource.class);
+
+  private final SyncSourcePerformanceTracker tracker =
+      new SyncSourcePerformanceTracker(new StubMetricsSystem(), timeProvider);
+
+  @Test
+  void shouldPreferSourcesThatHaveNotBeenMeasured() {
+    completeRequest(source1, 1000, 50);
+
+    assertThat(tracker.selectSource(List.of(source1, source2))).contains(source2);
+  }
+
+  @Test
+  void shouldSelectFastestSourceOnceAllMeasured() {
+    completeRequest(source1, 5000, 50);
+    completeRequest(source2, 1000, 50);
+    completeRequest(source3, 2000, 50);
+
+    assertThat(tracker.selectSource(List.of(source1, source2, source3))).contains(source2);
+  }
+
+  @Test
+  void shouldSpreadRequestsAcrossSourcesWithOutstandingRequests() {
+    completeRequest(source1, 1000, 50);
+    completeRequest(source2, 1500, 50);
+
+    tracker.onRequestStarted(source1);
+    tracker.onRequestStarted(source1);
+
+    assertThat(tracker.selectSource(List.of(source1, source2))).contains(source2);
+  }
+
+  @Test
+  void shouldReduceRateOfSourcesWithFailedRequests() {
+    completeRequest(source1, 1000, 50);
+    completeRequest(source2, 1250, 50);
+
+    tracker.onRequestStarted(source1);
+    final UInt64 startTime = tracker.getCurrentTimeMillis();
+    timeProvider.advanceTimeByMillis(1000);
+    tracker.onRequestFailed(source1, startTime);
+
+    assertThat(tracker.getDownloadRate(source1)).contains(35d);
+    assertThat(tracker.selectSource(List.of(source1, source2))).contains(source2);
+  }
+
+  @Test
+  void shouldUseDefaultBatchSizeWhenNoSourcesMeasured() {
+    assertThat(tracker.getBatchSize()).isEqualTo(SYNC_BATCH_SIZE);
+  }
+
+  @Test
+  void shouldSizeBatchesFromMedianDownloadRate() {
+    completeRequest(source1, 1000, 10);
+    completeRequest(source2, 1000, 14);
+    completeRequest(source3, 1000, 16);
+
+    // Median of 14 blocks per second for 5 seconds
+    assertThat(tracker.getBatchSize()).isEqualTo(UInt64.valueOf(70));
+  }
+
+  @Test
+  void shouldClampBatchSize() {
+    completeRequest(source1, 1000, 1);
+    assertThat(tracker.getBatchSize()).isEqualTo(MIN_BATCH_SIZE);
+
+    tracker.onSourceDisconnected(source1);
+    completeRequest(source2, 1000, 200);
+    assertThat(tracker.getBatchSize()).isEqualTo(MAX_BATCH_SIZE);
+  }
+
+  @Test
+  void shouldLimitPendingBatchesByPeerCountAndMemory() {
+    assertThat(tracker.getMaxPendingBatches(1, UInt64.valueOf(50))).isEqualTo(5);
+    assertThat(tracker.getMaxPendingBatches(4, UInt64.valueOf(50))).isEqualTo(8);
+    assertThat(tracker.getMaxPendingBatches(20, UInt64.valueOf(50))).isEqualTo(10);
+    assertThat(tracker.getMaxPendingBatches(20, UInt64.valueOf(100))).isEqualTo(5);
+  }
+
+  @Test
+  void shouldUseMinimumStragglerTimeoutWhenNoRatesKnown() {
+    assertThat(tracker.getStragglerTimeoutMillis(source1, UInt64.valueOf(50)))
+        .isEqualTo(MIN_STRAGGLER_TIMEOUT_MILLIS);
+  }
+
+  @Test
+  void shouldScaleStragglerTimeoutWithExpectedDuration() {
+    // 5 blocks per second so 50 slots are expected to take 10 seconds
+    completeRequest(source1, 10_000, 50);
+
+    assertThat(tracker.getStragglerTimeoutMillis(source1, UInt64.valueOf(50))).isEqualTo(30_000);
+    // Unmeasured sources fall back to the median rate
+    assertThat(tracker.getStragglerTimeoutMillis(source2, UInt64.valueOf(50))).isEqualTo(30_000);
+  }
+
+  private void completeRequest(
+      final SyncSource source, final long durationMillis, final int blockCount) {
+    tracker.onRequestStarted(source);
+    final UInt64 startTime = tracker.getCurrentTimeMillis();
+    timeProvider.advanceTimeByMillis(durationMillis);
+    tracker.onRequestCompleted(source, startTime, Optional.of(startTime), blockCount);
+  }
+}
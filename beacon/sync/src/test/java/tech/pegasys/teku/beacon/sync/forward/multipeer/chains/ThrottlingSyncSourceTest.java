@@ -14,21 +14,27 @@
 package tech.pegasys.teku.beacon.sync.forward.multipeer.chains;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 import static tech.pegasys.teku.infrastructure.async.FutureUtil.ignoreFuture;
 
+import java.util.Optional;
 import org.junit.jupiter.api.Test;
 import tech.pegasys.teku.infrastructure.async.SafeFuture;
 import tech.pegasys.teku.infrastructure.async.StubAsyncRunner;
+import tech.pegasys.teku.infrastructure.metrics.StubMetricsSystem;
 import tech.pegasys.teku.infrastructure.time.StubTimeProvider;
 import tech.pegasys.teku.infrastructure.unsigned.UInt64;
+import tech.pegasys.teku.networking.eth2.peers.StubSyncSource;
 import tech.pegasys.teku.networking.eth2.peers.SyncSource;
 import tech.pegasys.teku.networking.p2p.peer.DisconnectReason;
 import tech.pegasys.teku.networking.p2p.rpc.RpcResponseListener;
+import tech.pegasys.teku.spec.TestSpecFactory;
 import tech.pegasys.teku.spec.datastructures.blocks.SignedBeaconBlock;
+import tech.pegasys.teku.spec.util.DataStructureUtil;
 
 class ThrottlingSyncSourceTest {
 
@@ -43,6 +49,15 @@ class ThrottlingSyncSourceTest {
   private final ThrottlingSyncSource source =
       new ThrottlingSyncSource(asyncRunner, timeProvider, delegate, MAX_BLOCKS_PER_MINUTE);
 
+  private final DataStructureUtil dataStructureUtil =
+      new DataStructureUtil(TestSpecFactory.createDefault());
+  private final StubSyncSource stubDelegate = new StubSyncSource();
+  private final SyncSourcePerformanceTracker tracker =
+      new SyncSourcePerformanceTracker(new StubMetricsSystem(), timeProvider);
+  private final ThrottlingSyncSource trackedSource =
+      new ThrottlingSyncSource(
+          asyncRunner, timeProvider, stubDelegate, MAX_BLOCKS_PER_MINUTE, Optional.of(tracker));
+
   @Test
   void shouldDelegateDisconnectImmediately() {
     final SafeFuture<Void> result = new SafeFuture<>();
@@ -100,4 +115,57 @@ class ThrottlingSyncSourceTest {
     asyncRunner.executeQueuedActions();
     ignoreFuture(verify(delegate).requestBlocksByRange(UInt64.valueOf(100), count, listener));
   }
+
+  @Test
+  void shouldRecordDownloadRateOfTrackedRequest() {
+    when(listener.onResponse(any())).thenReturn(SafeFuture.COMPLETE);
+    final SafeFuture<Void> result =
+        trackedSource.requestBlocksByRange(UInt64.ZERO, UInt64.valueOf(10), listener);
+
+    timeProvider.advanceTimeBySeconds(2);
+    stubDelegate.receiveBlocks(randomBlocks(10));
+
+    assertThat(result).isCompleted();
+    assertThat(tracker.getDownloadRate(trackedSource)).contains(5d);
+  }
+
+  @Test
+  void shouldRecordFailedTrackedRequestAsReturningNoBlocks() {
+    final SafeFuture<Void> result =
+        trackedSource.requestBlocksByRange(UInt64.ZERO, UInt64.valueOf(10), listener);
+
+    timeProvider.advanceTimeBySeconds(2);
+    stubDelegate.failRequest(new RuntimeException("Nope"));
+
+    assertThat(result).isCompletedExceptionally();
+    assertThat(tracker.getDownloadRate(trackedSource)).contains(0d);
+  }
+
+  @Test
+  void shouldNotIncludeThrottlingDelayInTrackedRequestDuration() {
+    when(listener.onResponse(any())).thenReturn(SafeFuture.COMPLETE);
+    ignoreFuture(
+        trackedSource.requestBlocksByRange(
+            UInt64.ZERO, UInt64.valueOf(MAX_BLOCKS_PER_MINUTE), listener));
+    ignoreFuture(
+        trackedSource.requestBlocksByRange(UInt64.valueOf(100), UInt64.valueOf(10), listener));
+
+    // Second request is only sent once the rate limit allows
+    timeProvider.advanceTimeBySeconds(61);
+    asyncRunner.executeQueuedActions();
+    stubDelegate.assertRequestedBlocks(100, 10);
+
+    timeProvider.advanceTimeBySeconds(2);
+    stubDelegate.receiveBlocks(randomBlocks(10));
+
+    assertThat(tracker.getDownloadRate(trackedSource)).contains(5d);
+  }
+
+  private SignedBeaconBlock[] randomBlocks(final int count) {
+    final SignedBeaconBlock[] blocks = new SignedBeaconBlock[count];
+    for (int i = 0; i < count; i++) {
+      blocks[i] = dataStructureUtil.randomSignedBeaconBlock(i);
+    }
+    return blocks;
+  }
 }
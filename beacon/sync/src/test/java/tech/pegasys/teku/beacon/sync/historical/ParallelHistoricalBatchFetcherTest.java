@@ -0,0 +1,247 @@
+/*
+ * Copyright 2022 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package tech.pegasys.teku.beacon.sync.historical;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+import static tech.pegasys.teku.infrastructure.async.SafeFutureAssert.assertThatSafeFuture;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tech.pegasys.teku.core.ChainBuilder;
+import tech.pegasys.teku.infrastructure.async.SafeFuture;
+import tech.pegasys.teku.infrastructure.metrics.StubMetricsSystem;
+import tech.pegasys.teku.infrastructure.unsigned.UInt64;
+import tech.pegasys.teku.networking.eth2.peers.RespondingEth2Peer;
+import tech.pegasys.teku.networking.eth2.rpc.core.InvalidResponseException;
+import tech.pegasys.teku.spec.Spec;
+import tech.pegasys.teku.spec.TestSpecFactory;
+import tech.pegasys.teku.spec.datastructures.blocks.SignedBeaconBlock;
+import tech.pegasys.teku.spec.datastructures.blocks.SignedBlockAndState;
+import tech.pegasys.teku.storage.api.StorageUpdateChannel;
+
+public class ParallelHistoricalBatchFetcherTest {
+  private final Spec spec = TestSpecFactory.createDefault();
+  private final ChainBuilder chainBuilder = ChainBuilder.create(spec);
+  private final StorageUpdateChannel storageUpdateChannel = mock(StorageUpdateChannel.class);
+  private final HistoricalBlockSignatureVerifier signatureVerifier =
+      mock(HistoricalBlockSignatureVerifier.class);
+  private final List<SignedBeaconBlock> storedEarliestBlocks = new ArrayList<>();
+
+  @BeforeEach
+  public void setup() {
+    when(storageUpdateChannel.onFinalizedBlocks(any())).thenReturn(SafeFuture.COMPLETE);
+    when(signatureVerifier.verify(any())).thenReturn(SafeFuture.COMPLETE);
+    chainBuilder.generateGenesis();
+  }
+
+  @Test
+  public void shouldRequestRangesConcurrentlyAndStoreOnceStitched() {
+    chainBuilder.generateBlocksUpToSlot(20);
+    final ParallelHistoricalBatchFetcher fetcher = createFetcher(chainBuilder);
+    final RespondingEth2Peer peer1 = RespondingEth2Peer.create(spec, chainBuilder);
+    final RespondingEth2Peer peer2 = RespondingEth2Peer.create(spec, chainBuilder);
+    final RespondingEth2Peer peer3 = RespondingEth2Peer.create(spec, chainBuilder);
+    final RespondingEth2Peer peer4 = RespondingEth2Peer.create(spec, chainBuilder);
+
+    final SafeFuture<Void> request1 = fetcher.requestNextRange(peer1).orElseThrow();
+    final SafeFuture<Void> request2 = fetcher.requestNextRange(peer2).orElseThrow();
+    final SafeFuture<Void> request3 = fetcher.requestNextRange(peer3).orElseThrow();
+    assertThat(fetcher.requestNextRange(peer4)).isEmpty();
+    assertThat(fetcher.hasRequestInProgressFrom(peer1)).isTrue();
+    assertThat(fetcher.hasRequestInProgressFrom(peer4)).isFalse();
+
+    // Lower range can't be stored until the ranges above it are stitched
+    peer3.completePendingRequests();
+    assertThat(request3).isCompleted();
+    verify(storageUpdateChannel, never()).onFinalizedBlocks(any());
+
+    peer1.completePendingRequests();
+    verify(storageUpdateChannel).onFinalizedBlocks(getBlocks(chainBuilder, 16, 20));
+
+    // Both remaining ranges are stored together
+    peer2.completePendingRequests();
+    assertThat(request1).isCompleted();
+    assertThat(request2).isCompleted();
+    verify(storageUpdateChannel).onFinalizedBlocks(getBlocks(chainBuilder, 6, 15));
+    verifyNoMoreInteractions(storageUpdateChannel);
+    assertThat(storedEarliestBlocks)
+        .containsExactly(chainBuilder.getBlockAtSlot(16), chainBuilder.getBlockAtSlot(6));
+  }
+
+  @Test
+  public void shouldStoreEmptyRangesOnceLowerRangeLinks() {
+    chainBuilder.generateBlocksUpToSlot(8);
+    chainBuilder.generateBlockAtSlot(17);
+    chainBuilder.generateBlocksUpToSlot(20);
+    final ParallelHistoricalBatchFetcher fetcher = createFetcher(chainBuilder);
+    final RespondingEth2Peer peer1 = RespondingEth2Peer.create(spec, chainBuilder);
+    final RespondingEth2Peer peer2 = RespondingEth2Peer.create(spec, chainBuilder);
+    final RespondingEth2Peer peer3 = RespondingEth2Peer.create(spec, chainBuilder);
+
+    fetcher.requestNextRange(peer1).orElseThrow();
+    fetcher.requestNextRange(peer2).orElseThrow();
+    fetcher.requestNextRange(peer3).orElseThrow();
+    peer1.completePendingRequests();
+    peer2.completePendingRequests();
+    verify(storageUpdateChannel).onFinalizedBlocks(getBlocks(chainBuilder, 16, 20));
+
+    peer3.completePendingRequests();
+    verify(storageUpdateChannel).onFinalizedBlocks(getBlocks(chainBuilder, 6, 10));
+  }
+
+  @Test
+  public void shouldRetryRangeFromDifferentChainAndDisconnectPeer() {
+    final ChainBuilder forkBuilder = chainBuilder.fork();
+    chainBuilder.generateBlocksUpToSlot(20);
+    forkBuilder.generateBlockAtSlot(2);
+    forkBuilder.generateBlocksUpToSlot(20);
+    final ParallelHistoricalBatchFetcher fetcher = createFetcher(chainBuilder);
+    final RespondingEth2Peer peer1 = RespondingEth2Peer.create(spec, chainBuilder);
+    final RespondingEth2Peer forkPeer = RespondingEth2Peer.create(spec, forkBuilder);
+    final RespondingEth2Peer peer3 = RespondingEth2Peer.create(spec, chainBuilder);
+
+    fetcher.requestNextRange(peer1).orElseThrow();
+    fetcher.requestNextRange(forkPeer).orElseThrow();
+    peer1.completePendingRequests();
+    forkPeer.completePendingRequests();
+
+    assertThat(forkPeer.isConnected()).isFalse();
+    verify(storageUpdateChannel).onFinalizedBlocks(getBlocks(chainBuilder, 16, 20));
+
+    // Range is requested again before any new range
+    fetcher.requestNextRange(peer3).orElseThrow();
+    peer3.completePendingRequests();
+    verify(storageUpdateChannel).onFinalizedBlocks(getBlocks(chainBuilder, 11, 15));
+  }
+
+  @Test
+  public void shouldRestartFromEarliestStitchedBlockWhenRangeLeavesOutLowestBlocks() {
+    chainBuilder.generateBlocksUpToSlot(20);
+    final ParallelHistoricalBatchFetcher fetcher = createFetcher(chainBuilder);
+    final RespondingEth2Peer peer1 = RespondingEth2Peer.create(spec, chainBuilder);
+    final RespondingEth2Peer peer2 = RespondingEth2Peer.create(spec, chainBuilder);
+    final RespondingEth2Peer peer3 = RespondingEth2Peer.create(spec, chainBuilder);
+    peer1.setBlockRequestFilter(
+        blocks ->
+            blocks.stream()
+                .filter(block -> !block.getSlot().equals(UInt64.valueOf(16)))
+                .collect(Collectors.toList()));
+
+    fetcher.requestNextRange(peer1).orElseThrow();
+    final SafeFuture<Void> request2 = fetcher.requestNextRange(peer2).orElseThrow();
+    peer1.completePendingRequests();
+    verify(storageUpdateChannel).onFinalizedBlocks(getBlocks(chainBuilder, 17, 20));
+
+    // Block 16 is missing so the honest range below can't link
+    peer2.completePendingRequests();
+    assertThat(request2).isCompleted();
+    assertThat(peer2.isConnected()).isTrue();
+
+    // Fetching restarts from the slot before the earliest stitched block
+    fetcher.requestNextRange(peer3).orElseThrow();
+    peer3.completePendingRequests();
+    verify(storageUpdateChannel).onFinalizedBlocks(getBlocks(chainBuilder, 12, 16));
+    verifyNoMoreInteractions(storageUpdateChannel);
+  }
+
+  @Test
+  public void shouldRetryRangeWithoutDisconnectingWhenPeerReturnsFewerBlocks() {
+    chainBuilder.generateBlocksUpToSlot(20);
+    final ParallelHistoricalBatchFetcher fetcher = createFetcher(chainBuilder);
+    final RespondingEth2Peer peer1 = RespondingEth2Peer.create(spec, chainBuilder);
+    final RespondingEth2Peer peer2 = RespondingEth2Peer.create(spec, chainBuilder);
+    peer1.setBlockRequestFilter(
+        blocks ->
+            blocks.stream()
+                .filter(block -> block.getSlot().isLessThanOrEqualTo(18))
+                .collect(Collectors.toList()));
+
+    final SafeFuture<Void> request1 = fetcher.requestNextRange(peer1).orElseThrow();
+    peer1.completePendingRequests();
+    assertThat(request1).isCompleted();
+    assertThat(peer1.isConnected()).isTrue();
+    verify(storageUpdateChannel, never()).onFinalizedBlocks(any());
+
+    // The same range is requested again
+    fetcher.requestNextRange(peer2).orElseThrow();
+    peer2.completePendingRequests();
+    verify(storageUpdateChannel).onFinalizedBlocks(getBlocks(chainBuilder, 16, 20));
+  }
+
+  @Test
+  public void shouldFailRequestWhenBlocksDoNotLink() {
+    chainBuilder.generateBlocksUpToSlot(20);
+    final ParallelHistoricalBatchFetcher fetcher = createFetcher(chainBuilder);
+    final RespondingEth2Peer peer = RespondingEth2Peer.create(spec, chainBuilder);
+    peer.setBlockRequestFilter(
+        blocks ->
+            blocks.stream()
+                .filter(block -> !block.getSlot().equals(UInt64.valueOf(18)))
+                .collect(Collectors.toList()));
+
+    final SafeFuture<Void> request = fetcher.requestNextRange(peer).orElseThrow();
+    peer.completePendingRequests();
+
+    assertThatSafeFuture(request).isCompletedExceptionallyWith(InvalidResponseException.class);
+    assertThat(peer.isConnected()).isFalse();
+    assertThat(fetcher.hasRequestsInProgress()).isFalse();
+    verify(storageUpdateChannel, never()).onFinalizedBlocks(any());
+  }
+
+  @Test
+  public void shouldFailRequestWhenSignaturesAreInvalid() {
+    chainBuilder.generateBlocksUpToSlot(20);
+    when(signatureVerifier.verify(any()))
+        .thenReturn(SafeFuture.failedFuture(new IllegalArgumentException("Invalid")));
+    final ParallelHistoricalBatchFetcher fetcher = createFetcher(chainBuilder);
+    final RespondingEth2Peer peer = RespondingEth2Peer.create(spec, chainBuilder);
+
+    final SafeFuture<Void> request = fetcher.requestNextRange(peer).orElseThrow();
+    peer.completePendingRequests();
+
+    assertThat(request).isCompletedExceptionally();
+    verify(storageUpdateChannel, never()).onFinalizedBlocks(any());
+  }
+
+  private ParallelHistoricalBatchFetcher createFetcher(final ChainBuilder chain) {
+    final SignedBeaconBlock latestBlock = chain.getLatestBlockAndState().getBlock();
+    return new ParallelHistoricalBatchFetcher(
+        storageUpdateChannel,
+        signatureVerifier,
+        new StubMetricsSystem(),
+        storedEarliestBlocks::add,
+        latestBlock.getRoot(),
+        latestBlock.getSlot(),
+        UInt64.valueOf(5),
+        3,
+        100);
+  }
+
+  private List<SignedBeaconBlock> getBlocks(
+      final ChainBuilder chain, final long fromSlot, final long toSlot) {
+    return chain
+        .streamBlocksAndStates(fromSlot, toSlot)
+        .map(SignedBlockAndState::getBlock)
+        .collect(Collectors.toList());
+  }
+}
@@ -16,11 +16,13 @@ package tech.pegasys.teku.beacon.sync.forward.multipeer.batches;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import tech.pegasys.teku.beacon.sync.forward.multipeer.BatchImporter.BatchImportResult;
 import tech.pegasys.teku.beacon.sync.forward.multipeer.chains.TargetChain;
 import tech.pegasys.teku.infrastructure.async.SafeFuture;
@@ -87,9 +89,23 @@ public class StubBatchFactory extends BatchFactory implements Iterable<Batch> {
         .isTrue();
   }
 
+  public Set<SyncSource> getExcludedSources(final Batch batch) {
+    return batchSupports.get(batch).excludedSources;
+  }
+
   @Override
   public Batch createBatch(final TargetChain chain, final UInt64 start, final UInt64 count) {
-    final BatchSupport support = new BatchSupport(eventThread, chain, start, count);
+    return createBatch(chain, start, count, Collections.emptySet());
+  }
+
+  @Override
+  public Batch createBatch(
+      final TargetChain chain,
+      final UInt64 start,
+      final UInt64 count,
+      final Set<SyncSource> excludedSources) {
+    final BatchSupport support =
+        new BatchSupport(eventThread, chain, start, count, excludedSources);
     batches.add(support.batch);
     // Can look up batch support by either the wrapped or unwrapped batch
     batchSupports.put(support.batch, support);
@@ -111,6 +127,7 @@ public class StubBatchFactory extends BatchFactory implements Iterable<Batch> {
 
     private SafeFuture<BatchImportResult> importResult = new SafeFuture<>();
     private final StubSyncSource syncSource = new StubSyncSource();
+    private final Set<SyncSource> excludedSources;
     private final Batch batch;
     private final Batch eventThreadOnlyBatch;
     private boolean markedInvalid = false;
@@ -120,7 +137,9 @@ public class StubBatchFactory extends BatchFactory implements Iterable<Batch> {
         final EventThread eventThread,
         final TargetChain chain,
         final UInt64 start,
-        final UInt64 count) {
+        final UInt64 count,
+        final Set<SyncSource> excludedSources) {
+      this.excludedSources = excludedSources;
       batch = new SyncSourceBatch(eventThread, this, this, chain, start, count);
       eventThreadOnlyBatch = new EventThreadOnlyBatch(eventThread, batch);
     }
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2022 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package tech.pegasys.teku.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import org.apache.tuweni.bytes.Bytes32;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import tech.pegasys.teku.infrastructure.unsigned.UInt64;
+import tech.pegasys.teku.spec.Spec;
+import tech.pegasys.teku.spec.TestSpecFactory;
+import tech.pegasys.teku.spec.datastructures.forkchoice.StubVoteUpdater;
+import tech.pegasys.teku.spec.datastructures.forkchoice.VoteTracker;
+import tech.pegasys.teku.spec.datastructures.state.Checkpoint;
+import tech.pegasys.teku.storage.protoarray.DeferredVotes;
+import tech.pegasys.teku.storage.protoarray.ForkChoiceStrategy;
+import tech.pegasys.teku.storage.protoarray.ProtoArray;
+
+/**
+ * Measures applying pending votes and finding the head, as done by every fork choice head update,
+ * with all validators having voted for one of the blocks in the proto array.
+ */
+@Fork(1)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 2000, timeUnit = TimeUnit.MILLISECONDS)
+public class ForkChoiceBenchmark {
+  private static final int BLOCK_COUNT = 64;
+  private static final UInt64 BALANCE = UInt64.valueOf(32_000_000_000L);
+
+  @Param({"1000000"})
+  int validatorsCount;
+
+  private final Spec spec = TestSpecFactory.createMainnetPhase0();
+  private final StubVoteUpdater voteUpdater = new StubVoteUpdater();
+  private final List<Bytes32> blockRoots = new ArrayList<>();
+  private ForkChoiceStrategy strategy;
+  private Checkpoint checkpoint;
+  private List<UInt64> balances;
+  private List<UInt64> otherBalances;
+  private int votesPerSlot;
+  private long slot = 0;
+
+  @Setup(Level.Trial)
+  public void init() {
+    final ProtoArray protoArray =
+        ProtoArray.builder()
+            .justifiedCheckpoint(new Checkpoint(UInt64.ZERO, Bytes32.ZERO))
+            .finalizedCheckpoint(new Checkpoint(UInt64.ZERO, Bytes32.ZERO))
+            .build();
+    Bytes32 parentRoot = Bytes32.ZERO;
+    for (int i = 0; i < BLOCK_COUNT; i++) {
+      final Bytes32 blockRoot = Bytes32.fromHexStringLenient(Integer.toHexString(i + 1));
+      protoArray.onBlock(
+          UInt64.valueOf(i),
+          blockRoot,
+          parentRoot,
+          Bytes32.ZERO,
+          UInt64.ZERO,
+          UInt64.ZERO,
+          Bytes32.ZERO,
+          false);
+      blockRoots.add(blockRoot);
+      parentRoot = blockRoot;
+    }
+    checkpoint = new Checkpoint(UInt64.ZERO, blockRoots.get(0));
+
+    final Map<UInt64, VoteTracker> votes = new HashMap<>();
+    for (int i = 0; i < validatorsCount; i++) {
+      final Bytes32 root = blockRoots.get(i % BLOCK_COUNT);
+      final VoteTracker vote = new VoteTracker(root, root, UInt64.ZERO);
+      votes.put(UInt64.valueOf(i), vote);
+      voteUpdater.putVote(UInt64.valueOf(i), vote);
+    }
+    strategy = ForkChoiceStrategy.initialize(spec, protoArray, votes);
+    balances = Collections.nCopies(validatorsCount, BALANCE);
+    otherBalances = Collections.nCopies(validatorsCount, BALANCE.minus(1));
+    votesPerSlot = validatorsCount / spec.getGenesisSpecConfig().getSlotsPerEpoch();
+    applyPendingVotes(balances);
+  }
+
+  @Benchmark
+  public void applyPendingVotesWithoutChanges(final Blackhole bh) {
+    bh.consume(applyPendingVotes(balances));
+  }
+
+  @Benchmark
+  public void applyPendingVotesWithNewBalances(final Blackhole bh) {
+    final List<UInt64> newBalances = (slot++ % 2 == 0) ? otherBalances : balances;
+    bh.consume(applyPendingVotes(newBalances));
+  }
+
+  @Benchmark
+  public void applyPendingVotesAfterSlotOfAttestations(final Blackhole bh) {
+    // Move a slot worth of validators to the next block, in a later epoch so votes are accepted
+    slot += spec.getGenesisSpecConfig().getSlotsPerEpoch();
+    final UInt64 voteSlot = UInt64.valueOf(slot);
+    final int firstValidator = (int) ((slot * votesPerSlot) % (validatorsCount - votesPerSlot));
+    final Bytes32 blockRoot = blockRoots.get((int) (slot % BLOCK_COUNT));
+    strategy.applyDeferredAttestations(
+        voteUpdater,
+        new DeferredVotes() {
+          @Override
+          public UInt64 getSlot() {
+            return voteSlot;
+          }
+
+          @Override
+          public void forEachDeferredVote(final BiConsumer<Bytes32, UInt64> consumer) {
+            for (int i = firstValidator; i < firstValidator + votesPerSlot; i++) {
+              consumer.accept(blockRoot, UInt64.valueOf(i));
+            }
+          }
+        });
+    bh.consume(applyPendingVotes(balances));
+  }
+
+  private Bytes32 applyPendingVotes(final List<UInt64> effectiveBalances) {
+    return strategy.applyPendingVotes(
+        voteUpdater, Optional.empty(), checkpoint, checkpoint, effectiveBalances, UInt64.ZERO);
+  }
+}
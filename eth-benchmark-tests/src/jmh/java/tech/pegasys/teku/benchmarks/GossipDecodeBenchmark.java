@@ -0,0 +1,94 @@
+/*
+ * Copyright 2022 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package tech.pegasys.teku.benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.apache.tuweni.bytes.Bytes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import tech.pegasys.teku.infrastructure.bytes.Bytes4;
+import tech.pegasys.teku.networking.eth2.gossip.encoding.DecodingException;
+import tech.pegasys.teku.networking.eth2.gossip.encoding.Eth2PreparedGossipMessageFactory;
+import tech.pegasys.teku.networking.eth2.gossip.encoding.GossipEncoding;
+import tech.pegasys.teku.networking.eth2.gossip.encoding.GossipEncoding.ForkDigestToMilestone;
+import tech.pegasys.teku.networking.eth2.gossip.topics.GossipTopics;
+import tech.pegasys.teku.networking.p2p.gossip.PreparedGossipMessage;
+import tech.pegasys.teku.spec.Spec;
+import tech.pegasys.teku.spec.SpecMilestone;
+import tech.pegasys.teku.spec.TestSpecFactory;
+import tech.pegasys.teku.spec.datastructures.blocks.SignedBeaconBlockSchema;
+import tech.pegasys.teku.spec.datastructures.operations.Attestation.AttestationSchema;
+import tech.pegasys.teku.spec.util.DataStructureUtil;
+
+/**
+ * Measures the gossip receive path: preparing a message, calculating its message id and decoding
+ * it. Reports messages per second, run with {@code -prof gc} to also report bytes allocated per
+ * message ({@code gc.alloc.rate.norm}).
+ */
+@State(Scope.Thread)
+@Fork(1)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class GossipDecodeBenchmark {
+  private static final Bytes4 FORK_DIGEST = Bytes4.fromHexString("0x01020304");
+
+  private final Spec spec = TestSpecFactory.createMainnetAltair();
+  private final DataStructureUtil dataStructureUtil = new DataStructureUtil(spec);
+  private final GossipEncoding gossipEncoding = GossipEncoding.SSZ_SNAPPY;
+  private final Eth2PreparedGossipMessageFactory messageFactory =
+      gossipEncoding.createPreparedGossipMessageFactory(
+          ForkDigestToMilestone.fromMap(Map.of(FORK_DIGEST, SpecMilestone.ALTAIR)));
+
+  private final AttestationSchema attestationSchema =
+      spec.getGenesisSchemaDefinitions().getAttestationSchema();
+  private final String attestationTopic =
+      GossipTopics.getTopic(FORK_DIGEST, "beacon_attestation_1", gossipEncoding);
+  private final Bytes attestationData =
+      gossipEncoding.encode(dataStructureUtil.randomAttestation());
+
+  private final SignedBeaconBlockSchema blockSchema =
+      spec.getGenesisSchemaDefinitions().getSignedBeaconBlockSchema();
+  private final String blockTopic =
+      GossipTopics.getTopic(FORK_DIGEST, "beacon_block", gossipEncoding);
+  private final Bytes blockData =
+      gossipEncoding.encode(dataStructureUtil.randomSignedBeaconBlock(1));
+
+  @Benchmark
+  @Warmup(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+  @Measurement(iterations = 10, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+  public void decodeAttestation(Blackhole bh) throws DecodingException {
+    final PreparedGossipMessage message =
+        messageFactory.create(attestationTopic, attestationData, attestationSchema);
+    bh.consume(message.getMessageId());
+    bh.consume(gossipEncoding.decodeMessage(message, attestationSchema));
+  }
+
+  @Benchmark
+  @Warmup(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+  @Measurement(iterations = 10, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+  public void decodeBlock(Blackhole bh) throws DecodingException {
+    final PreparedGossipMessage message = messageFactory.create(blockTopic, blockData, blockSchema);
+    bh.consume(message.getMessageId());
+    bh.consume(gossipEncoding.decodeMessage(message, blockSchema));
+  }
+}
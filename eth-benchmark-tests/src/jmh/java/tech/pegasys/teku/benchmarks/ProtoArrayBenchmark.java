@@ -0,0 +1,112 @@
+/*
+ * Copyright 2022 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package tech.pegasys.teku.benchmarks;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.apache.tuweni.bytes.Bytes32;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import tech.pegasys.teku.infrastructure.unsigned.UInt64;
+import tech.pegasys.teku.spec.datastructures.state.Checkpoint;
+import tech.pegasys.teku.storage.protoarray.ProtoArray;
+
+/**
+ * Measures applying score changes to and finding the head of a proto array which has grown without
+ * pruning through a period of non-finality. The default size matches two weeks of mainnet slots,
+ * with a short fork every few slots.
+ */
+@Fork(1)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 2000, timeUnit = TimeUnit.MILLISECONDS)
+public class ProtoArrayBenchmark {
+  private static final int FORK_INTERVAL = 8;
+  private static final long VOTE_WEIGHT = 32_000_000_000L;
+
+  @Param({"100800"})
+  int slotCount;
+
+  private ProtoArray protoArray;
+  private Bytes32 justifiedRoot;
+  private long[] deltas;
+  private int headIndex;
+  private boolean voteApplied = false;
+
+  @Setup(Level.Trial)
+  public void init() {
+    protoArray =
+        ProtoArray.builder()
+            .justifiedCheckpoint(new Checkpoint(UInt64.ZERO, Bytes32.ZERO))
+            .finalizedCheckpoint(new Checkpoint(UInt64.ZERO, Bytes32.ZERO))
+            .pruneThreshold(Integer.MAX_VALUE)
+            .build();
+    int nextRoot = 1;
+    Bytes32 parentRoot = Bytes32.ZERO;
+    for (int slot = 0; slot < slotCount; slot++) {
+      final Bytes32 blockRoot = Bytes32.fromHexStringLenient(Integer.toHexString(nextRoot++));
+      addBlock(slot, blockRoot, parentRoot);
+      if (slot % FORK_INTERVAL == FORK_INTERVAL - 1) {
+        // A competing block on the same parent which is never built on
+        addBlock(slot, Bytes32.fromHexStringLenient(Integer.toHexString(nextRoot++)), parentRoot);
+      }
+      if (justifiedRoot == null) {
+        justifiedRoot = blockRoot;
+      }
+      parentRoot = blockRoot;
+    }
+    headIndex = protoArray.getIndexByRoot(parentRoot).orElseThrow();
+    deltas = new long[protoArray.getTotalTrackedNodeCount()];
+  }
+
+  private void addBlock(final int slot, final Bytes32 blockRoot, final Bytes32 parentRoot) {
+    protoArray.onBlock(
+        UInt64.valueOf(slot),
+        blockRoot,
+        parentRoot,
+        Bytes32.ZERO,
+        UInt64.ZERO,
+        UInt64.ZERO,
+        Bytes32.ZERO,
+        false);
+  }
+
+  @Benchmark
+  public void applyScoreChanges() {
+    // Alternately add and remove a vote for the head so weights stay bounded
+    Arrays.fill(deltas, 0);
+    deltas[headIndex] = voteApplied ? -VOTE_WEIGHT : VOTE_WEIGHT;
+    voteApplied = !voteApplied;
+    protoArray.applyScoreChanges(LongArrayList.wrap(deltas), UInt64.ZERO, UInt64.ZERO);
+  }
+
+  @Benchmark
+  public void findHead(final Blackhole bh) {
+    bh.consume(protoArray.findOptimisticHead(justifiedRoot, UInt64.ZERO, UInt64.ZERO));
+  }
+}
@@ -32,6 +32,11 @@ public class Sha256Benchmark {
   private byte[] dataArray = new byte[33];
   private int cnt = 0;
 
+  private static final int PAIRS_COUNT = 1024;
+  private final Bytes32[] pairs = createRandomRoots(PAIRS_COUNT * 2);
+  private final byte[] pairsInput = new byte[PAIRS_COUNT * 64];
+  private final byte[] pairsOutput = new byte[PAIRS_COUNT * 32];
+
   @Benchmark
   @Warmup(iterations = 10, time = 100, timeUnit = TimeUnit.MILLISECONDS)
   @Measurement(iterations = 10, time = 100, timeUnit = TimeUnit.MILLISECONDS)
@@ -51,4 +56,33 @@ public class Sha256Benchmark {
     byte[] hash = Hash.sha256(dataArray).toArrayUnsafe();
     bh.consume(hash);
   }
+
+  @Benchmark
+  @Warmup(iterations = 10, time = 100, timeUnit = TimeUnit.MILLISECONDS)
+  @Measurement(iterations = 10, time = 100, timeUnit = TimeUnit.MILLISECONDS)
+  public void sha256of1024PairsMessageDigest(Blackhole bh) {
+    for (int i = 0; i < PAIRS_COUNT; i++) {
+      bh.consume(Hash.sha256(pairs[2 * i], pairs[2 * i + 1]));
+    }
+  }
+
+  @Benchmark
+  @Warmup(iterations = 10, time = 100, timeUnit = TimeUnit.MILLISECONDS)
+  @Measurement(iterations = 10, time = 100, timeUnit = TimeUnit.MILLISECONDS)
+  public void sha256of1024PairsBatch(Blackhole bh) {
+    final MutableBytes input = MutableBytes.wrap(pairsInput);
+    for (int i = 0; i < PAIRS_COUNT * 2; i++) {
+      pairs[i].copyTo(input, i * 32);
+    }
+    Hash.sha256Batch64(pairsInput, pairsOutput, PAIRS_COUNT);
+    bh.consume(pairsOutput);
+  }
+
+  private static Bytes32[] createRandomRoots(final int count) {
+    final Bytes32[] roots = new Bytes32[count];
+    for (int i = 0; i < count; i++) {
+      roots[i] = Bytes32.random();
+    }
+    return roots;
+  }
 }
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2022 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package tech.pegasys.teku.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import tech.pegasys.teku.bls.BLSPublicKey;
+import tech.pegasys.teku.bls.BLSTestUtil;
+import tech.pegasys.teku.infrastructure.ssz.SszList;
+import tech.pegasys.teku.infrastructure.unsigned.UInt64;
+import tech.pegasys.teku.spec.Spec;
+import tech.pegasys.teku.spec.TestSpecFactory;
+import tech.pegasys.teku.spec.datastructures.state.Validator;
+import tech.pegasys.teku.spec.datastructures.state.beaconstate.BeaconState;
+import tech.pegasys.teku.spec.logic.common.helpers.Predicates;
+import tech.pegasys.teku.spec.logic.common.statetransition.epoch.EpochProcessor;
+import tech.pegasys.teku.spec.logic.common.statetransition.epoch.status.ValidatorStatusFactory;
+import tech.pegasys.teku.spec.util.DataStructureUtil;
+
+/**
+ * Measures the epoch processing steps which go over the whole validator registry, on a state where
+ * a few validators were changed since the previous epoch (as blocks would do). The {@link
+ * #readValidatorsFromState} benchmark reads the registry from the state tree like these steps did
+ * before the columnar validator cache, for comparison.
+ */
+@Fork(1)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 2000, timeUnit = TimeUnit.MILLISECONDS)
+public class ValidatorRegistryColumnsBenchmark {
+
+  @Param({"500000", "1000000"})
+  int validatorsCount;
+
+  @Param({"64"})
+  int changedValidatorsCount;
+
+  private ValidatorStatusFactory validatorStatusFactory;
+  private EpochProcessor epochProcessor;
+  private Predicates predicates;
+  private BeaconState previousEpochState;
+  private BeaconState state;
+
+  @Setup(Level.Trial)
+  public void init() {
+    final Spec spec = TestSpecFactory.createMainnetAltair();
+    final BLSPublicKey publicKey = BLSTestUtil.randomPublicKey(0);
+    final DataStructureUtil dataStructureUtil =
+        new DataStructureUtil(spec).withPubKeyGenerator(() -> publicKey);
+    validatorStatusFactory = spec.getGenesisSpec().getValidatorStatusFactory();
+    epochProcessor = spec.getGenesisSpec().getEpochProcessor();
+    predicates = spec.getGenesisSpec().predicates();
+
+    previousEpochState = dataStructureUtil.randomBeaconState(validatorsCount);
+    // Caches the columns like the previous epoch transition would
+    validatorStatusFactory.createValidatorStatuses(previousEpochState);
+  }
+
+  @Setup(Level.Invocation)
+  public void changeValidators() {
+    final int step = validatorsCount / changedValidatorsCount;
+    state =
+        previousEpochState.updated(
+            mutableState -> {
+              for (int i = 0; i < changedValidatorsCount; i++) {
+                final UInt64 exitEpoch = UInt64.valueOf(1000 + i);
+                mutableState
+                    .getValidators()
+                    .update(i * step, validator -> validator.withExitEpoch(exitEpoch));
+              }
+            });
+  }
+
+  @Benchmark
+  public void createValidatorStatuses(Blackhole bh) {
+    bh.consume(validatorStatusFactory.createValidatorStatuses(state));
+  }
+
+  @Benchmark
+  public void processEffectiveBalanceUpdates(Blackhole bh) {
+    bh.consume(state.updated(epochProcessor::processEffectiveBalanceUpdates));
+  }
+
+  @Benchmark
+  public void processSlashings(Blackhole bh) {
+    bh.consume(
+        state.updated(mutableState -> epochProcessor.processSlashings(mutableState, UInt64.ONE)));
+  }
+
+  @Benchmark
+  public void readValidatorsFromState(Blackhole bh) {
+    final UInt64 epoch = UInt64.valueOf(1000);
+    final SszList<Validator> validators = state.getValidators();
+    for (int i = 0; i < validators.size(); i++) {
+      final Validator validator = validators.get(i);
+      bh.consume(validator.isSlashed());
+      bh.consume(validator.getEffectiveBalance());
+      bh.consume(validator.getWithdrawableEpoch());
+      bh.consume(predicates.isActiveValidator(validator, epoch));
+    }
+  }
+}
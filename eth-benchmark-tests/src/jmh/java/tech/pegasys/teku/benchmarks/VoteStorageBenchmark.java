@@ -0,0 +1,136 @@
+/*
+ * Copyright 2022 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package tech.pegasys.teku.benchmarks;
+
+import static tech.pegasys.teku.storage.server.kvstore.dataaccess.V4VoteSnapshotStorageLogic.VALIDATORS_PER_CHUNK;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tech.pegasys.teku.infrastructure.unsigned.UInt64;
+import tech.pegasys.teku.spec.Spec;
+import tech.pegasys.teku.spec.TestSpecFactory;
+import tech.pegasys.teku.spec.datastructures.forkchoice.VoteTracker;
+import tech.pegasys.teku.spec.util.DataStructureUtil;
+import tech.pegasys.teku.storage.server.kvstore.KvStoreAccessor.KvStoreTransaction;
+import tech.pegasys.teku.storage.server.kvstore.MockKvStoreInstance;
+import tech.pegasys.teku.storage.server.kvstore.dataaccess.V4VoteSnapshotStorageLogic;
+import tech.pegasys.teku.storage.server.kvstore.schema.SchemaHot;
+import tech.pegasys.teku.storage.server.kvstore.schema.V4SchemaHot;
+
+/**
+ * Compares loading and writing votes stored one key per validator against the snapshot chunks and
+ * delta log. Uses an in-memory store so it measures key count and serialization overhead rather
+ * than disk access.
+ */
+@Fork(1)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 2000, timeUnit = TimeUnit.MILLISECONDS)
+public class VoteStorageBenchmark {
+
+  @Param({"500000"})
+  int validatorsCount;
+
+  @Param({"20000"})
+  int changedVotesCount;
+
+  private SchemaHot schema;
+  private MockKvStoreInstance perValidatorDb;
+  private MockKvStoreInstance snapshotDb;
+  private V4VoteSnapshotStorageLogic voteStorageLogic;
+  private Map<UInt64, VoteTracker> changedVotes;
+
+  @Setup(Level.Trial)
+  public void init() {
+    final Spec spec = TestSpecFactory.createDefault();
+    final DataStructureUtil dataStructureUtil = new DataStructureUtil(spec);
+    schema = new V4SchemaHot(spec, false);
+    perValidatorDb =
+        MockKvStoreInstance.createEmpty(schema.getAllColumns(), schema.getAllVariables());
+    snapshotDb = MockKvStoreInstance.createEmpty(schema.getAllColumns(), schema.getAllVariables());
+    voteStorageLogic = new V4VoteSnapshotStorageLogic(schema);
+
+    final VoteTracker[] chunk = new VoteTracker[VALIDATORS_PER_CHUNK];
+    try (final KvStoreTransaction perValidator = perValidatorDb.startTransaction();
+        final KvStoreTransaction snapshot = snapshotDb.startTransaction()) {
+      for (int i = 0; i < validatorsCount; i++) {
+        final VoteTracker vote = dataStructureUtil.randomVoteTracker();
+        perValidator.put(schema.getColumnVotes(), UInt64.valueOf(i), vote);
+        chunk[i % VALIDATORS_PER_CHUNK] = vote;
+        if (i % VALIDATORS_PER_CHUNK == VALIDATORS_PER_CHUNK - 1 || i == validatorsCount - 1) {
+          final UInt64 chunkKey = UInt64.valueOf(i - (i % VALIDATORS_PER_CHUNK));
+          snapshot.put(schema.getColumnVoteSnapshotChunks(), chunkKey, chunk.clone());
+          Arrays.fill(chunk, null);
+        }
+      }
+      perValidator.commit();
+      snapshot.commit();
+    }
+
+    changedVotes = new HashMap<>();
+    for (int i = 0; i < changedVotesCount; i++) {
+      changedVotes.put(
+          UInt64.valueOf(i * (validatorsCount / changedVotesCount)),
+          dataStructureUtil.randomVoteTracker());
+    }
+    // A few epochs of changes waiting to be merged into the snapshot
+    for (int i = 0; i < 4; i++) {
+      writeDelta();
+    }
+  }
+
+  @Benchmark
+  public Map<UInt64, VoteTracker> loadPerValidatorVotes() {
+    return perValidatorDb.getAll(schema.getColumnVotes());
+  }
+
+  @Benchmark
+  public Map<UInt64, VoteTracker> loadSnapshotVotes() {
+    return voteStorageLogic.getVotes(snapshotDb);
+  }
+
+  @Benchmark
+  public void writePerValidatorVotes() {
+    try (final KvStoreTransaction transaction = perValidatorDb.startTransaction()) {
+      changedVotes.forEach(
+          (validatorIndex, vote) -> transaction.put(schema.getColumnVotes(), validatorIndex, vote));
+      transaction.commit();
+    }
+  }
+
+  @Benchmark
+  public void writeDelta() {
+    // Includes the cost of periodically merging deltas into the snapshot chunks
+    try (final KvStoreTransaction transaction = snapshotDb.startTransaction()) {
+      voteStorageLogic.addVotes(snapshotDb, transaction, changedVotes);
+      transaction.commit();
+    }
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2022 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package tech.pegasys.teku.core.signatures;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.apache.tuweni.bytes.Bytes32;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tech.pegasys.teku.bls.BLSPublicKey;
+import tech.pegasys.teku.bls.BLSTestUtil;
+import tech.pegasys.teku.infrastructure.io.SyncDataAccessor;
+import tech.pegasys.teku.infrastructure.unsigned.UInt64;
+
+/** Checks and records the attestations of all the validators attesting in a single slot */
+@Fork(1)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class LocalSlashingProtectorBenchmark {
+  private static final Bytes32 GENESIS_VALIDATORS_ROOT = Bytes32.fromHexString("0x1234");
+
+  @Param({"10000"})
+  int validatorCount;
+
+  private List<BLSPublicKey> validators;
+  private LocalSlashingProtector slashingProtector;
+  private UInt64 targetEpoch = UInt64.ONE;
+
+  @Setup
+  public void setup() throws IOException {
+    final Path dataDir = Files.createTempDirectory("slashing-protection");
+    dataDir.toFile().deleteOnExit();
+    slashingProtector = new LocalSlashingProtector(SyncDataAccessor.create(dataDir), dataDir);
+    validators =
+        IntStream.range(0, validatorCount)
+            .mapToObj(BLSTestUtil::randomPublicKey)
+            .collect(Collectors.toList());
+  }
+
+  @Benchmark
+  public void signAttestationsOneByOne() {
+    final UInt64 sourceEpoch = targetEpoch;
+    targetEpoch = targetEpoch.increment();
+    for (BLSPublicKey validator : validators) {
+      slashingProtector
+          .maySignAttestation(validator, GENESIS_VALIDATORS_ROOT, sourceEpoch, targetEpoch)
+          .join();
+    }
+  }
+
+  @Benchmark
+  public void signAttestationsInBatch() {
+    final UInt64 sourceEpoch = targetEpoch;
+    targetEpoch = targetEpoch.increment();
+    final List<AttestationSigningRequest> requests =
+        validators.stream()
+            .map(validator -> new AttestationSigningRequest(validator, sourceEpoch, targetEpoch))
+            .collect(Collectors.toList());
+    slashingProtector.maySignAttestations(GENESIS_VALIDATORS_ROOT, requests).join();
+  }
+}
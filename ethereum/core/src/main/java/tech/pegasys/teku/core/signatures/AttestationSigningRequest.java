@@ -0,0 +1,73 @@
+/*
+ * Copyright 2022 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package tech.pegasys.teku.core.signatures;
+
+import com.google.common.base.MoreObjects;
+import java.util.Objects;
+import tech.pegasys.teku.bls.BLSPublicKey;
+import tech.pegasys.teku.infrastructure.unsigned.UInt64;
+
+/** An attestation of a single validator to be checked by a {@link SlashingProtector} */
+public class AttestationSigningRequest {
+  private final BLSPublicKey validator;
+  private final UInt64 sourceEpoch;
+  private final UInt64 targetEpoch;
+
+  public AttestationSigningRequest(
+      final BLSPublicKey validator, final UInt64 sourceEpoch, final UInt64 targetEpoch) {
+    this.validator = validator;
+    this.sourceEpoch = sourceEpoch;
+    this.targetEpoch = targetEpoch;
+  }
+
+  public BLSPublicKey getValidator() {
+    return validator;
+  }
+
+  public UInt64 getSourceEpoch() {
+    return sourceEpoch;
+  }
+
+  public UInt64 getTargetEpoch() {
+    return targetEpoch;
+  }
+
+  @Override
+  public boolean equals(final Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    final AttestationSigningRequest that = (AttestationSigningRequest) o;
+    return Objects.equals(validator, that.validator)
+        && Objects.equals(sourceEpoch, that.sourceEpoch)
+        && Objects.equals(targetEpoch, that.targetEpoch);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(validator, sourceEpoch, targetEpoch);
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("validator", validator)
+        .add("sourceEpoch", sourceEpoch)
+        .add("targetEpoch", targetEpoch)
+        .toString();
+  }
+}
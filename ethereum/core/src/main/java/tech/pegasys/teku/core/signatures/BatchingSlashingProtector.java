@@ -0,0 +1,156 @@
+/*
+ * Copyright 2022 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package tech.pegasys.teku.core.signatures;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import org.apache.tuweni.bytes.Bytes32;
+import tech.pegasys.teku.bls.BLSPublicKey;
+import tech.pegasys.teku.ethereum.signingrecord.ValidatorSigningRecord;
+import tech.pegasys.teku.infrastructure.async.AsyncRunner;
+import tech.pegasys.teku.infrastructure.async.SafeFuture;
+import tech.pegasys.teku.infrastructure.unsigned.UInt64;
+
+/**
+ * Groups attestation checks requested by different signers into calls to {@link
+ * SlashingProtector#maySignAttestations(Bytes32, List)} of the delegate.
+ *
+ * <p>Attestation duties sign for all the validators of a slot at about the same time, each through
+ * its own {@link SlashingProtectedSigner}. Requests are queued and checked by a single task at a
+ * time, so all requests made while the previous batch was being written are checked and persisted
+ * together. Block checks are delegated directly.
+ */
+public class BatchingSlashingProtector implements SlashingProtector {
+  private final SlashingProtector delegate;
+  private final AsyncRunner asyncRunner;
+  private final Queue<PendingAttestation> pendingAttestations = new ConcurrentLinkedQueue<>();
+  private final AtomicBoolean processingScheduled = new AtomicBoolean(false);
+
+  public BatchingSlashingProtector(
+      final SlashingProtector delegate, final AsyncRunner asyncRunner) {
+    this.delegate = delegate;
+    this.asyncRunner = asyncRunner;
+  }
+
+  @Override
+  public SafeFuture<Boolean> maySignBlock(
+      final BLSPublicKey validator, final Bytes32 genesisValidatorsRoot, final UInt64 slot) {
+    return delegate.maySignBlock(validator, genesisValidatorsRoot, slot);
+  }
+
+  @Override
+  public SafeFuture<Boolean> maySignAttestation(
+      final BLSPublicKey validator,
+      final Bytes32 genesisValidatorsRoot,
+      final UInt64 sourceEpoch,
+      final UInt64 targetEpoch) {
+    final PendingAttestation pendingAttestation =
+        new PendingAttestation(
+            genesisValidatorsRoot,
+            new AttestationSigningRequest(validator, sourceEpoch, targetEpoch));
+    pendingAttestations.add(pendingAttestation);
+    scheduleProcessing();
+    return pendingAttestation.result;
+  }
+
+  @Override
+  public SafeFuture<List<Boolean>> maySignAttestations(
+      final Bytes32 genesisValidatorsRoot, final List<AttestationSigningRequest> requests) {
+    return delegate.maySignAttestations(genesisValidatorsRoot, requests);
+  }
+
+  @Override
+  public Optional<ValidatorSigningRecord> getSigningRecord(final BLSPublicKey validator)
+      throws IOException {
+    return delegate.getSigningRecord(validator);
+  }
+
+  private void scheduleProcessing() {
+    if (!processingScheduled.compareAndSet(false, true)) {
+      return;
+    }
+    asyncRunner
+        .runAsync(this::processPendingAttestations)
+        .finish(
+            error -> {
+              processingScheduled.set(false);
+              drainPendingAttestations()
+                  .values()
+                  .forEach(batch -> batch.forEach(pending -> pending.fail(error)));
+            });
+  }
+
+  private void processPendingAttestations() {
+    do {
+      drainPendingAttestations().forEach(this::checkBatch);
+      processingScheduled.set(false);
+      // Requests added after draining but before the flag was cleared would otherwise be stuck
+    } while (!pendingAttestations.isEmpty() && processingScheduled.compareAndSet(false, true));
+  }
+
+  private Map<Bytes32, List<PendingAttestation>> drainPendingAttestations() {
+    final Map<Bytes32, List<PendingAttestation>> batches = new LinkedHashMap<>();
+    PendingAttestation pendingAttestation;
+    while ((pendingAttestation = pendingAttestations.poll()) != null) {
+      batches
+          .computeIfAbsent(pendingAttestation.genesisValidatorsRoot, __ -> new ArrayList<>())
+          .add(pendingAttestation);
+    }
+    return batches;
+  }
+
+  private void checkBatch(
+      final Bytes32 genesisValidatorsRoot, final List<PendingAttestation> batch) {
+    final List<AttestationSigningRequest> requests =
+        batch.stream().map(pending -> pending.request).collect(Collectors.toList());
+    final SafeFuture<List<Boolean>> results;
+    try {
+      results = delegate.maySignAttestations(genesisValidatorsRoot, requests);
+    } catch (final RuntimeException e) {
+      batch.forEach(pending -> pending.fail(e));
+      return;
+    }
+    results.finish(
+        maySign -> {
+          for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).result.complete(maySign.get(i));
+          }
+        },
+        error -> batch.forEach(pending -> pending.fail(error)));
+  }
+
+  private static class PendingAttestation {
+    private final Bytes32 genesisValidatorsRoot;
+    private final AttestationSigningRequest request;
+    private final SafeFuture<Boolean> result = new SafeFuture<>();
+
+    private PendingAttestation(
+        final Bytes32 genesisValidatorsRoot, final AttestationSigningRequest request) {
+      this.genesisValidatorsRoot = genesisValidatorsRoot;
+      this.request = request;
+    }
+
+    private void fail(final Throwable error) {
+      result.completeExceptionally(error);
+    }
+  }
+}
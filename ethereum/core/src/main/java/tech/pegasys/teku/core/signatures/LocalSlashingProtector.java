@@ -13,11 +13,19 @@
 
 package tech.pegasys.teku.core.signatures;
 
+import com.google.common.util.concurrent.Striped;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.stream.Collectors;
+import org.apache.tuweni.bytes.Bytes;
 import org.apache.tuweni.bytes.Bytes32;
 import tech.pegasys.teku.bls.BLSPublicKey;
 import tech.pegasys.teku.ethereum.signingrecord.ValidatorSigningRecord;
@@ -25,9 +33,20 @@ import tech.pegasys.teku.infrastructure.async.SafeFuture;
 import tech.pegasys.teku.infrastructure.io.SyncDataAccessor;
 import tech.pegasys.teku.infrastructure.unsigned.UInt64;
 
+/**
+ * Slashing protection backed by a signing record file per validator.
+ *
+ * <p>Checks for different validators don't block each other: every validator is guarded by one of
+ * {@link #LOCK_STRIPES} locks which is held while its record is checked and durably written.
+ * {@link #maySignAttestations(Bytes32, List)} holds the locks of all the validators in the batch
+ * and writes all the new records with a single grouped durable write.
+ */
 public class LocalSlashingProtector implements SlashingProtector {
+  static final int LOCK_STRIPES = 1024;
 
-  private final Map<BLSPublicKey, ValidatorSigningRecord> signingRecords = new HashMap<>();
+  private final Map<BLSPublicKey, ValidatorSigningRecord> signingRecords =
+      new ConcurrentHashMap<>();
+  private final Striped<Lock> validatorLocks = Striped.lock(LOCK_STRIPES);
 
   private final SyncDataAccessor dataAccessor;
   private final Path slashingProtectionBaseDir;
@@ -39,30 +58,84 @@ public class LocalSlashingProtector implements SlashingProtector {
   }
 
   @Override
-  public synchronized SafeFuture<Boolean> maySignBlock(
+  public SafeFuture<Boolean> maySignBlock(
       final BLSPublicKey validator, final Bytes32 genesisValidatorsRoot, final UInt64 slot) {
-    return SafeFuture.of(
-        () -> {
-          final ValidatorSigningRecord signingRecord =
-              loadOrCreateSigningRecord(validator, genesisValidatorsRoot);
-          return handleResult(validator, signingRecord.maySignBlock(genesisValidatorsRoot, slot));
-        });
+    final Lock lock = validatorLocks.get(validator);
+    lock.lock();
+    try {
+      return SafeFuture.of(
+          () -> {
+            final ValidatorSigningRecord signingRecord =
+                loadOrCreateSigningRecord(validator, genesisValidatorsRoot);
+            return handleResult(
+                validator, signingRecord.maySignBlock(genesisValidatorsRoot, slot));
+          });
+    } finally {
+      lock.unlock();
+    }
   }
 
   @Override
-  public synchronized SafeFuture<Boolean> maySignAttestation(
+  public SafeFuture<Boolean> maySignAttestation(
       final BLSPublicKey validator,
       final Bytes32 genesisValidatorsRoot,
       final UInt64 sourceEpoch,
       final UInt64 targetEpoch) {
-    return SafeFuture.of(
-        () -> {
-          final ValidatorSigningRecord signingRecord =
-              loadOrCreateSigningRecord(validator, genesisValidatorsRoot);
-          return handleResult(
-              validator,
-              signingRecord.maySignAttestation(genesisValidatorsRoot, sourceEpoch, targetEpoch));
-        });
+    final Lock lock = validatorLocks.get(validator);
+    lock.lock();
+    try {
+      return SafeFuture.of(
+          () -> {
+            final ValidatorSigningRecord signingRecord =
+                loadOrCreateSigningRecord(validator, genesisValidatorsRoot);
+            return handleResult(
+                validator,
+                signingRecord.maySignAttestation(genesisValidatorsRoot, sourceEpoch, targetEpoch));
+          });
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public SafeFuture<List<Boolean>> maySignAttestations(
+      final Bytes32 genesisValidatorsRoot, final List<AttestationSigningRequest> requests) {
+    final List<BLSPublicKey> validators =
+        requests.stream().map(AttestationSigningRequest::getValidator).collect(Collectors.toList());
+    // bulkGet returns locks in a consistent order so concurrent batches can't deadlock
+    final Iterable<Lock> locks = validatorLocks.bulkGet(validators);
+    final List<Lock> acquiredLocks = new ArrayList<>();
+    try {
+      for (Lock lock : locks) {
+        lock.lock();
+        acquiredLocks.add(lock);
+      }
+      return SafeFuture.of(() -> checkAndRecordAttestations(genesisValidatorsRoot, requests));
+    } finally {
+      acquiredLocks.forEach(Lock::unlock);
+    }
+  }
+
+  private List<Boolean> checkAndRecordAttestations(
+      final Bytes32 genesisValidatorsRoot, final List<AttestationSigningRequest> requests)
+      throws IOException {
+    final List<Boolean> results = new ArrayList<>(requests.size());
+    // Records updated by the earlier requests of the batch, not yet written
+    final Map<BLSPublicKey, ValidatorSigningRecord> newRecords = new LinkedHashMap<>();
+    for (AttestationSigningRequest request : requests) {
+      final BLSPublicKey validator = request.getValidator();
+      final ValidatorSigningRecord signingRecord =
+          newRecords.containsKey(validator)
+              ? newRecords.get(validator)
+              : loadOrCreateSigningRecord(validator, genesisValidatorsRoot);
+      final Optional<ValidatorSigningRecord> newRecord =
+          signingRecord.maySignAttestation(
+              genesisValidatorsRoot, request.getSourceEpoch(), request.getTargetEpoch());
+      newRecord.ifPresent(record -> newRecords.put(validator, record));
+      results.add(newRecord.isPresent());
+    }
+    writeSigningRecords(newRecords);
+    return results;
   }
 
   private Boolean handleResult(
@@ -84,7 +157,7 @@ public class LocalSlashingProtector implements SlashingProtector {
     }
     Optional<ValidatorSigningRecord> loaded =
         dataAccessor.read(validatorRecordPath(validator)).map(ValidatorSigningRecord::fromBytes);
-    loaded.ifPresent(signingRecord -> signingRecords.put(validator, signingRecord));
+    loaded.ifPresent(signingRecord -> signingRecords.putIfAbsent(validator, signingRecord));
     return loaded;
   }
 
@@ -105,6 +178,18 @@ public class LocalSlashingProtector implements SlashingProtector {
     signingRecords.put(validator, record);
   }
 
+  private void writeSigningRecords(final Map<BLSPublicKey, ValidatorSigningRecord> records)
+      throws IOException {
+    if (records.isEmpty()) {
+      return;
+    }
+    final Map<Path, Bytes> data = new HashMap<>();
+    records.forEach(
+        (validator, record) -> data.put(validatorRecordPath(validator), record.toBytes()));
+    dataAccessor.syncedWriteAll(data);
+    signingRecords.putAll(records);
+  }
+
   private Path validatorRecordPath(final BLSPublicKey validator) {
     return slashingProtectionBaseDir.resolve(
         validator.toBytesCompressed().toUnprefixedHexString() + ".yml");
@@ -14,6 +14,7 @@
 package tech.pegasys.teku.core.signatures;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Optional;
 import org.apache.tuweni.bytes.Bytes32;
 import tech.pegasys.teku.bls.BLSPublicKey;
@@ -31,6 +32,26 @@ public interface SlashingProtector {
       final UInt64 sourceEpoch,
       final UInt64 targetEpoch);
 
+  /**
+   * Checks and records attestations of multiple validators at once. Implementations may persist
+   * all the new signing records together which is considerably faster than checking each
+   * attestation separately when many validators attest in the same slot.
+   *
+   * @return the results in the same order as the requests
+   */
+  default SafeFuture<List<Boolean>> maySignAttestations(
+      final Bytes32 genesisValidatorsRoot, final List<AttestationSigningRequest> requests) {
+    return SafeFuture.collectAll(
+        requests.stream()
+            .map(
+                request ->
+                    maySignAttestation(
+                        request.getValidator(),
+                        genesisValidatorsRoot,
+                        request.getSourceEpoch(),
+                        request.getTargetEpoch())));
+  }
+
   Optional<ValidatorSigningRecord> getSigningRecord(final BLSPublicKey validator)
       throws IOException;
 }
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2022 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package tech.pegasys.teku.core.signatures;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.List;
+import org.apache.tuweni.bytes.Bytes32;
+import org.junit.jupiter.api.Test;
+import tech.pegasys.teku.bls.BLSPublicKey;
+import tech.pegasys.teku.infrastructure.async.SafeFuture;
+import tech.pegasys.teku.infrastructure.async.StubAsyncRunner;
+import tech.pegasys.teku.infrastructure.unsigned.UInt64;
+import tech.pegasys.teku.spec.TestSpecFactory;
+import tech.pegasys.teku.spec.util.DataStructureUtil;
+
+class BatchingSlashingProtectorTest {
+  private static final Bytes32 GENESIS_VALIDATORS_ROOT = Bytes32.fromHexString("0x561234");
+  private static final UInt64 SOURCE_EPOCH = UInt64.valueOf(4);
+  private static final UInt64 TARGET_EPOCH = UInt64.valueOf(5);
+
+  private final DataStructureUtil dataStructureUtil =
+      new DataStructureUtil(TestSpecFactory.createDefault());
+  private final BLSPublicKey validator1 = dataStructureUtil.randomPublicKey();
+  private final BLSPublicKey validator2 = dataStructureUtil.randomPublicKey();
+  private final SlashingProtector delegate = mock(SlashingProtector.class);
+  private final StubAsyncRunner asyncRunner = new StubAsyncRunner();
+
+  private final BatchingSlashingProtector slashingProtector =
+      new BatchingSlashingProtector(delegate, asyncRunner);
+
+  @Test
+  void maySignAttestation_shouldCheckQueuedAttestationsInSingleBatch() {
+    final List<AttestationSigningRequest> requests =
+        List.of(
+            new AttestationSigningRequest(validator1, SOURCE_EPOCH, TARGET_EPOCH),
+            new AttestationSigningRequest(validator2, SOURCE_EPOCH, TARGET_EPOCH));
+    when(delegate.maySignAttestations(GENESIS_VALIDATORS_ROOT, requests))
+        .thenReturn(SafeFuture.completedFuture(List.of(true, false)));
+
+    final SafeFuture<Boolean> result1 = maySignAttestation(validator1);
+    final SafeFuture<Boolean> result2 = maySignAttestation(validator2);
+    assertThat(result1).isNotDone();
+    assertThat(result2).isNotDone();
+
+    asyncRunner.executeQueuedActions();
+
+    assertThat(result1).isCompletedWithValue(true);
+    assertThat(result2).isCompletedWithValue(false);
+    verify(delegate).maySignAttestations(GENESIS_VALIDATORS_ROOT, requests);
+    verify(delegate, never()).maySignAttestation(any(), any(), any(), any());
+    assertThat(asyncRunner.hasDelayedActions()).isFalse();
+  }
+
+  @Test
+  void maySignAttestation_shouldScheduleNewBatchForLaterAttestations() {
+    when(delegate.maySignAttestations(any(), any()))
+        .thenReturn(SafeFuture.completedFuture(List.of(true)));
+
+    final SafeFuture<Boolean> result1 = maySignAttestation(validator1);
+    asyncRunner.executeQueuedActions();
+    assertThat(result1).isCompletedWithValue(true);
+
+    final SafeFuture<Boolean> result2 = maySignAttestation(validator2);
+    asyncRunner.executeQueuedActions();
+    assertThat(result2).isCompletedWithValue(true);
+    verify(delegate)
+        .maySignAttestations(
+            GENESIS_VALIDATORS_ROOT,
+            List.of(new AttestationSigningRequest(validator2, SOURCE_EPOCH, TARGET_EPOCH)));
+  }
+
+  @Test
+  void maySignAttestation_shouldFailAllAttestationsInBatchWhenCheckFails() {
+    final IOException error = new IOException("Disk full");
+    when(delegate.maySignAttestations(any(), any())).thenReturn(SafeFuture.failedFuture(error));
+
+    final SafeFuture<Boolean> result1 = maySignAttestation(validator1);
+    final SafeFuture<Boolean> result2 = maySignAttestation(validator2);
+    asyncRunner.executeQueuedActions();
+
+    assertThat(result1).isCompletedExceptionally();
+    assertThat(result2).isCompletedExceptionally();
+  }
+
+  @Test
+  void maySignBlock_shouldDelegateDirectly() {
+    when(delegate.maySignBlock(validator1, GENESIS_VALIDATORS_ROOT, UInt64.ONE))
+        .thenReturn(SafeFuture.completedFuture(true));
+
+    assertThat(slashingProtector.maySignBlock(validator1, GENESIS_VALIDATORS_ROOT, UInt64.ONE))
+        .isCompletedWithValue(true);
+  }
+
+  private SafeFuture<Boolean> maySignAttestation(final BLSPublicKey validator) {
+    return slashingProtector.maySignAttestation(
+        validator, GENESIS_VALIDATORS_ROOT, SOURCE_EPOCH, TARGET_EPOCH);
+  }
+}
@@ -15,6 +15,7 @@ package tech.pegasys.teku.core.signatures;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
@@ -23,9 +24,11 @@ import static org.mockito.Mockito.when;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import org.apache.tuweni.bytes.Bytes;
 import org.apache.tuweni.bytes.Bytes32;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -131,6 +134,53 @@ class LocalSlashingProtectorTest {
         allowed);
   }
 
+  @Test
+  void maySignAttestations_shouldCheckAndWriteAllRecordsAtOnce() throws Exception {
+    final BLSPublicKey validator2 = dataStructureUtil.randomPublicKey();
+    final Path signingRecordPath2 =
+        baseDir.resolve(validator2.toBytesCompressed().toUnprefixedHexString() + ".yml");
+    final ValidatorSigningRecord existingRecord =
+        new ValidatorSigningRecord(
+            GENESIS_VALIDATORS_ROOT,
+            ATTESTATION_TEST_BLOCK_SLOT,
+            UInt64.valueOf(4),
+            UInt64.valueOf(6));
+    when(dataWriter.read(signingRecordPath)).thenReturn(Optional.of(existingRecord.toBytes()));
+    when(dataWriter.read(signingRecordPath2)).thenReturn(Optional.empty());
+
+    final List<AttestationSigningRequest> requests =
+        List.of(
+            new AttestationSigningRequest(validator, UInt64.valueOf(4), UInt64.valueOf(5)),
+            new AttestationSigningRequest(validator2, UInt64.valueOf(4), UInt64.valueOf(7)),
+            new AttestationSigningRequest(validator2, UInt64.valueOf(4), UInt64.valueOf(7)));
+
+    assertThat(slashingProtectionStorage.maySignAttestations(GENESIS_VALIDATORS_ROOT, requests))
+        .isCompletedWithValue(List.of(false, true, false));
+
+    final ValidatorSigningRecord newRecord2 =
+        new ValidatorSigningRecord(
+            GENESIS_VALIDATORS_ROOT, UInt64.ZERO, UInt64.valueOf(4), UInt64.valueOf(7));
+    verify(dataWriter).syncedWriteAll(Map.of(signingRecordPath2, newRecord2.toBytes()));
+    verify(dataWriter, never()).syncedWrite(any(), any());
+    assertThat(slashingProtectionStorage.getSigningRecord(validator2)).contains(newRecord2);
+  }
+
+  @Test
+  void maySignAttestations_shouldNotUpdateRecordsWhenWriteFails() throws Exception {
+    when(dataWriter.read(signingRecordPath)).thenReturn(Optional.empty());
+    doThrow(new IOException("Failed")).when(dataWriter).syncedWriteAll(any());
+
+    final List<AttestationSigningRequest> requests =
+        List.of(new AttestationSigningRequest(validator, UInt64.valueOf(4), UInt64.valueOf(5)));
+
+    assertThat(slashingProtectionStorage.maySignAttestations(GENESIS_VALIDATORS_ROOT, requests))
+        .isCompletedExceptionally();
+    assertThat(
+            slashingProtectionStorage.maySignAttestation(
+                validator, GENESIS_VALIDATORS_ROOT, UInt64.valueOf(4), UInt64.valueOf(5)))
+        .isCompletedWithValue(true);
+  }
+
   private void assertAttestationSigningAllowed(
       final Optional<ValidatorSigningRecord> lastSignedAttestation,
       final UInt64 sourceEpoch,
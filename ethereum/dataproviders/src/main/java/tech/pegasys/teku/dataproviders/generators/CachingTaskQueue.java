@@ -13,6 +13,14 @@
 
 package tech.pegasys.teku.dataproviders.generators;
 
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
+import com.google.common.collect.ForwardingMap;
+import com.google.common.collect.Maps;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
@@ -21,6 +29,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.function.IntSupplier;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
@@ -56,11 +65,25 @@ public class CachingTaskQueue<K, V> {
       final String metricsPrefix,
       final IntSupplier activeTaskLimit,
       final int maxCacheSize) {
+    this(
+        asyncRunner,
+        metricsSystem,
+        metricsPrefix,
+        activeTaskLimit,
+        LimitedMap.<K, V>createSoft(maxCacheSize));
+  }
+
+  private CachingTaskQueue(
+      final AsyncRunner asyncRunner,
+      final MetricsSystem metricsSystem,
+      final String metricsPrefix,
+      final IntSupplier activeTaskLimit,
+      final Map<K, V> cache) {
     this.asyncRunner = asyncRunner;
     this.metricsSystem = metricsSystem;
     this.metricsPrefix = metricsPrefix;
     this.activeTaskLimit = activeTaskLimit;
-    this.cache = LimitedMap.createSoft(maxCacheSize);
+    this.cache = cache;
 
     final LabelledMetric<Counter> labelledCounter =
         metricsSystem.createLabelledCounter(
@@ -87,6 +110,29 @@ public class CachingTaskQueue<K, V> {
         maxCacheSize);
   }
 
+  /**
+   * Creates a queue which limits the total weight of the cached values rather than their count.
+   *
+   * <p>Values are cached straight away with the weight of the value weighed last, and are weighed
+   * by a task on the async runner which then updates their weight, so expensive weighers don't run
+   * on the thread caching the value or while the cache holds its internal lock. The limit applies
+   * to the whole cache rather than being split between segments. Values are still held with soft
+   * references so they may be evicted earlier if the garbage collector needs to free up memory.
+   */
+  public static <K, V> CachingTaskQueue<K, V> createWeighted(
+      final AsyncRunner asyncRunner,
+      final MetricsSystem metricsSystem,
+      final String metricsPrefix,
+      final long maxCacheWeight,
+      final Weigher<K, V> weigher) {
+    return new CachingTaskQueue<>(
+        asyncRunner,
+        metricsSystem,
+        metricsPrefix,
+        () -> Math.max(2, Runtime.getRuntime().availableProcessors()),
+        new WeighedValueMap<>(asyncRunner, maxCacheWeight, weigher));
+  }
+
   public void startMetrics() {
     final LabelledGauge taskQueueMetrics =
         metricsSystem.createLabelledGauge(
@@ -151,6 +197,11 @@ public class CachingTaskQueue<K, V> {
     return Optional.ofNullable(cache.get(key));
   }
 
+  /** Returns a snapshot of all currently cached values */
+  public List<V> getCachedValues() {
+    return new ArrayList<>(cache.values());
+  }
+
   private void queueTask(final CacheableTask<K, V> task) {
     queuedTasks.add(task);
     tryProcessNext();
@@ -218,6 +269,106 @@ public class CachingTaskQueue<K, V> {
     cache.keySet().removeIf(removalCondition);
   }
 
+  /**
+   * Weighs the value cached for the key again, e.g. after a value it was weighed against was
+   * removed. Only applies to queues created by {@link #createWeighted}.
+   */
+  public void reweigh(final K key) {
+    if (cache instanceof WeighedValueMap) {
+      ((WeighedValueMap<K, V>) cache).scheduleWeighing(key);
+    }
+  }
+
+  /**
+   * Subscribes to the keys removed from the cache, other than when their value is replaced. Only
+   * applies to queues created by {@link #createWeighted}. The subscriber is notified on the async
+   * runner.
+   */
+  public void subscribeRemovals(final Consumer<K> subscriber) {
+    if (cache instanceof WeighedValueMap) {
+      ((WeighedValueMap<K, V>) cache).removalSubscribers.add(subscriber);
+    }
+  }
+
+  private static class WeighedValue<V> {
+    private final V value;
+    private final int weight;
+
+    private WeighedValue(final V value, final int weight) {
+      this.value = value;
+      this.weight = weight;
+    }
+  }
+
+  /** Computes the weight of values asynchronously, outside of the weighted cache's locks. */
+  private static class WeighedValueMap<K, V> extends ForwardingMap<K, V> {
+    private final AsyncRunner asyncRunner;
+    private final ConcurrentMap<K, WeighedValue<V>> weighedValues;
+    private final Map<K, V> values;
+    private final Weigher<K, V> weigher;
+    private final Queue<Consumer<K>> removalSubscribers = new ConcurrentLinkedQueue<>();
+    private volatile int lastWeight = 1;
+
+    private WeighedValueMap(
+        final AsyncRunner asyncRunner, final long maxCacheWeight, final Weigher<K, V> weigher) {
+      this.asyncRunner = asyncRunner;
+      this.weighedValues =
+          CacheBuilder.newBuilder()
+              .concurrencyLevel(1)
+              .maximumWeight(maxCacheWeight)
+              .weigher((K key, WeighedValue<V> value) -> value.weight)
+              .softValues()
+              .removalListener(this::onRemoval)
+              .<K, WeighedValue<V>>build()
+              .asMap();
+      this.values = Maps.transformValues(weighedValues, weighedValue -> weighedValue.value);
+      this.weigher = weigher;
+    }
+
+    @Override
+    protected Map<K, V> delegate() {
+      return values;
+    }
+
+    @Override
+    public V put(final K key, final V value) {
+      final WeighedValue<V> previous =
+          weighedValues.put(key, new WeighedValue<>(value, lastWeight));
+      scheduleWeighing(key);
+      return previous == null ? null : previous.value;
+    }
+
+    private void scheduleWeighing(final K key) {
+      asyncRunner.runAsync(() -> weigh(key)).reportExceptions();
+    }
+
+    private void weigh(final K key) {
+      final WeighedValue<V> current = weighedValues.get(key);
+      if (current == null) {
+        return;
+      }
+      final int weight = weigher.weigh(key, current.value);
+      lastWeight = weight;
+      // Only update the weight if the value hasn't been replaced or removed in the meantime
+      weighedValues.replace(key, current, new WeighedValue<>(current.value, weight));
+    }
+
+    private void onRemoval(final RemovalNotification<K, WeighedValue<V>> notification) {
+      if (notification.getCause() == RemovalCause.REPLACED || removalSubscribers.isEmpty()) {
+        return;
+      }
+      final K key = notification.getKey();
+      asyncRunner
+          .runAsync(() -> removalSubscribers.forEach(subscriber -> subscriber.accept(key)))
+          .reportExceptions();
+    }
+
+    @Override
+    public void putAll(final Map<? extends K, ? extends V> map) {
+      standardPutAll(map);
+    }
+  }
+
   public interface CacheableTask<K, V> {
     /**
      * The key that uniquely identifies this task. Two tasks with equal keys should also have
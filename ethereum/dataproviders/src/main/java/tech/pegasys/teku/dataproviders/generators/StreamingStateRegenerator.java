@@ -13,6 +13,7 @@
 
 package tech.pegasys.teku.dataproviders.generators;
 
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 import tech.pegasys.teku.spec.Spec;
 import tech.pegasys.teku.spec.datastructures.blocks.SignedBeaconBlock;
@@ -48,4 +49,22 @@ public class StreamingStateRegenerator {
     blocks.forEach(regenerator::processBlock);
     return regenerator.state;
   }
+
+  /**
+   * Same as {@link #regenerate(Spec, BeaconState, Stream)} but passes the state after each block to
+   * the supplied consumer, so intermediate states can be retained.
+   */
+  public static BeaconState regenerate(
+      final Spec spec,
+      final BeaconState initialState,
+      final Stream<SignedBeaconBlock> blocks,
+      final Consumer<BeaconState> postBlockStateConsumer) {
+    final StreamingStateRegenerator regenerator = new StreamingStateRegenerator(spec, initialState);
+    blocks.forEach(
+        block -> {
+          regenerator.processBlock(block);
+          postBlockStateConsumer.accept(regenerator.state);
+        });
+    return regenerator.state;
+  }
 }
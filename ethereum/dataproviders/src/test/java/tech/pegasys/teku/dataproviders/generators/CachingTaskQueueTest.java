@@ -17,14 +17,20 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static tech.pegasys.teku.infrastructure.async.SyncAsyncRunner.SYNC_RUNNER;
 
 import it.unimi.dsi.fastutil.ints.IntList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.OptionalDouble;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import tech.pegasys.teku.dataproviders.generators.CachingTaskQueue.CacheableTask;
 import tech.pegasys.teku.infrastructure.async.SafeFuture;
+import tech.pegasys.teku.infrastructure.async.StubAsyncRunner;
 import tech.pegasys.teku.infrastructure.metrics.StubMetricsSystem;
 import tech.pegasys.teku.infrastructure.metrics.TekuMetricCategory;
 
@@ -262,6 +268,69 @@ class CachingTaskQueueTest {
     assertThat(taskQueue.getIfAvailable(task.getKey())).isEqualTo(task.getExpectedValue());
   }
 
+  @Test
+  void getCachedValues_shouldReturnAllCachedValues() {
+    taskQueue.cacheAll(Map.of(1, "1", 2, "2", 3, "3"));
+    assertThat(taskQueue.getCachedValues()).containsExactlyInAnyOrder("1", "2", "3");
+  }
+
+  @Test
+  void createWeighted_shouldLimitTotalWeightOfCachedValues() {
+    final int maxWeight = 100;
+    final CachingTaskQueue<Integer, String> weightedQueue =
+        CachingTaskQueue.createWeighted(
+            SYNC_RUNNER, metricsSystem, "weighted", maxWeight, (key, value) -> value.length());
+
+    IntStream.range(100, 200).forEach(i -> weightedQueue.cache(i, Integer.toString(i)));
+
+    assertThat(weightedQueue.getCachedValues().stream().mapToInt(String::length).sum())
+        .isLessThanOrEqualTo(maxWeight);
+    assertThat(weightedQueue.getIfAvailable(199)).contains("199");
+  }
+
+  @Test
+  void createWeighted_shouldWeighValuesAsynchronously() {
+    final StubAsyncRunner asyncRunner = new StubAsyncRunner();
+    final AtomicInteger weighCount = new AtomicInteger();
+    final CachingTaskQueue<Integer, String> weightedQueue =
+        CachingTaskQueue.createWeighted(
+            asyncRunner,
+            metricsSystem,
+            "weighted",
+            100,
+            (key, value) -> {
+              weighCount.incrementAndGet();
+              return value.length();
+            });
+
+    weightedQueue.cache(1, "1");
+    assertThat(weightedQueue.getIfAvailable(1)).contains("1");
+    assertThat(weighCount).hasValue(0);
+
+    asyncRunner.executeQueuedActions();
+    assertThat(weighCount).hasValue(1);
+  }
+
+  @Test
+  void createWeighted_shouldNotifyRemovalsAndEvictValuesWhichBecomeTooHeavyWhenReweighed() {
+    final Map<Integer, Integer> weights = new HashMap<>(Map.of(1, 5, 2, 5));
+    final CachingTaskQueue<Integer, String> weightedQueue =
+        CachingTaskQueue.createWeighted(
+            SYNC_RUNNER, metricsSystem, "weighted", 10, (key, value) -> weights.get(key));
+    final List<Integer> removedKeys = new ArrayList<>();
+    weightedQueue.subscribeRemovals(removedKeys::add);
+
+    weightedQueue.cache(1, "1");
+    weightedQueue.cache(2, "2");
+    weightedQueue.remove(1);
+    assertThat(removedKeys).containsExactly(1);
+
+    weights.put(2, 20);
+    weightedQueue.reweigh(2);
+    assertThat(weightedQueue.getIfAvailable(2)).isEmpty();
+    assertThat(removedKeys).containsExactly(1, 2);
+  }
+
   private void assertCacheSizeMetric(final int expectedSize) {
     final double value =
         metricsSystem
@@ -68,6 +68,7 @@ import tech.pegasys.teku.spec.datastructures.state.CommitteeAssignment;
 import tech.pegasys.teku.spec.datastructures.state.Fork;
 import tech.pegasys.teku.spec.datastructures.state.beaconstate.BeaconState;
 import tech.pegasys.teku.spec.datastructures.state.beaconstate.common.BeaconStateInvariants;
+import tech.pegasys.teku.spec.datastructures.state.beaconstate.common.KnownValidatorPublicKeys;
 import tech.pegasys.teku.spec.datastructures.util.AttestationProcessingResult;
 import tech.pegasys.teku.spec.datastructures.util.ForkAndSpecMilestone;
 import tech.pegasys.teku.spec.genesis.GenesisGenerator;
@@ -90,12 +91,17 @@ public class Spec {
   private final Map<SpecMilestone, SpecVersion> specVersions;
   private final ForkSchedule forkSchedule;
   private final StateTransition stateTransition;
+  private final KnownValidatorPublicKeys knownValidatorPublicKeys;
 
-  private Spec(Map<SpecMilestone, SpecVersion> specVersions, final ForkSchedule forkSchedule) {
+  private Spec(
+      Map<SpecMilestone, SpecVersion> specVersions,
+      final ForkSchedule forkSchedule,
+      final KnownValidatorPublicKeys knownValidatorPublicKeys) {
     Preconditions.checkArgument(specVersions != null && specVersions.size() > 0);
     Preconditions.checkArgument(forkSchedule != null);
     this.specVersions = specVersions;
     this.forkSchedule = forkSchedule;
+    this.knownValidatorPublicKeys = knownValidatorPublicKeys;
 
     // Setup state transition
     this.stateTransition = new StateTransition(this::atSlot);
@@ -104,9 +110,11 @@ public class Spec {
   static Spec create(final SpecConfig config, final SpecMilestone highestMilestoneSupported) {
     final Map<SpecMilestone, SpecVersion> specVersions = new HashMap<>();
     final ForkSchedule.Builder forkScheduleBuilder = ForkSchedule.builder();
+    // Shared by all milestones as validator indices don't change across forks
+    final KnownValidatorPublicKeys knownValidatorPublicKeys = new KnownValidatorPublicKeys();
 
     for (SpecMilestone milestone : SpecMilestone.getMilestonesUpTo(highestMilestoneSupported)) {
-      SpecVersion.create(milestone, config)
+      SpecVersion.create(milestone, config, knownValidatorPublicKeys)
           .ifPresent(
               milestoneSpec -> {
                 forkScheduleBuilder.addNextMilestone(milestoneSpec);
@@ -116,7 +124,7 @@ public class Spec {
 
     final ForkSchedule forkSchedule = forkScheduleBuilder.build();
 
-    return new Spec(specVersions, forkSchedule);
+    return new Spec(specVersions, forkSchedule, knownValidatorPublicKeys);
   }
 
   public SpecVersion forMilestone(final SpecMilestone milestone) {
@@ -175,6 +183,13 @@ public class Spec {
     return forkSchedule;
   }
 
+  /**
+   * Returns the public keys of finalized validators shared by all states processed with this spec.
+   */
+  public KnownValidatorPublicKeys getKnownValidatorPublicKeys() {
+    return knownValidatorPublicKeys;
+  }
+
   public List<ForkAndSpecMilestone> getEnabledMilestones() {
     return forkSchedule.getActiveMilestones();
   }
@@ -17,6 +17,7 @@ import java.util.Optional;
 import tech.pegasys.teku.spec.config.SpecConfig;
 import tech.pegasys.teku.spec.config.SpecConfigAltair;
 import tech.pegasys.teku.spec.config.SpecConfigBellatrix;
+import tech.pegasys.teku.spec.datastructures.state.beaconstate.common.KnownValidatorPublicKeys;
 import tech.pegasys.teku.spec.logic.DelegatingSpecLogic;
 import tech.pegasys.teku.spec.logic.SpecLogic;
 import tech.pegasys.teku.spec.logic.versions.altair.SpecLogicAltair;
@@ -45,33 +46,63 @@ public class SpecVersion extends DelegatingSpecLogic {
 
   public static Optional<SpecVersion> create(
       final SpecMilestone milestone, final SpecConfig specConfig) {
+    return create(milestone, specConfig, new KnownValidatorPublicKeys());
+  }
+
+  public static Optional<SpecVersion> create(
+      final SpecMilestone milestone,
+      final SpecConfig specConfig,
+      final KnownValidatorPublicKeys knownValidatorPublicKeys) {
     switch (milestone) {
       case PHASE0:
-        return Optional.of(createPhase0(specConfig));
+        return Optional.of(createPhase0(specConfig, knownValidatorPublicKeys));
       case ALTAIR:
-        return specConfig.toVersionAltair().map(SpecVersion::createAltair);
+        return specConfig
+            .toVersionAltair()
+            .map(config -> createAltair(config, knownValidatorPublicKeys));
       case BELLATRIX:
-        return specConfig.toVersionBellatrix().map(SpecVersion::createBellatrix);
+        return specConfig
+            .toVersionBellatrix()
+            .map(config -> createBellatrix(config, knownValidatorPublicKeys));
       default:
         throw new UnsupportedOperationException("Unknown milestone requested: " + milestone);
     }
   }
 
   static SpecVersion createPhase0(final SpecConfig specConfig) {
+    return createPhase0(specConfig, new KnownValidatorPublicKeys());
+  }
+
+  static SpecVersion createPhase0(
+      final SpecConfig specConfig, final KnownValidatorPublicKeys knownValidatorPublicKeys) {
     final SchemaDefinitions schemaDefinitions = new SchemaDefinitionsPhase0(specConfig);
-    final SpecLogic specLogic = SpecLogicPhase0.create(specConfig, schemaDefinitions);
+    final SpecLogic specLogic =
+        SpecLogicPhase0.create(specConfig, schemaDefinitions, knownValidatorPublicKeys);
     return new SpecVersion(SpecMilestone.PHASE0, specConfig, schemaDefinitions, specLogic);
   }
 
   static SpecVersion createAltair(final SpecConfigAltair specConfig) {
+    return createAltair(specConfig, new KnownValidatorPublicKeys());
+  }
+
+  static SpecVersion createAltair(
+      final SpecConfigAltair specConfig, final KnownValidatorPublicKeys knownValidatorPublicKeys) {
     final SchemaDefinitionsAltair schemaDefinitions = new SchemaDefinitionsAltair(specConfig);
-    final SpecLogic specLogic = SpecLogicAltair.create(specConfig, schemaDefinitions);
+    final SpecLogic specLogic =
+        SpecLogicAltair.create(specConfig, schemaDefinitions, knownValidatorPublicKeys);
     return new SpecVersion(SpecMilestone.ALTAIR, specConfig, schemaDefinitions, specLogic);
   }
 
   static SpecVersion createBellatrix(final SpecConfigBellatrix specConfig) {
+    return createBellatrix(specConfig, new KnownValidatorPublicKeys());
+  }
+
+  static SpecVersion createBellatrix(
+      final SpecConfigBellatrix specConfig,
+      final KnownValidatorPublicKeys knownValidatorPublicKeys) {
     final SchemaDefinitionsBellatrix schemaDefinitions = new SchemaDefinitionsBellatrix(specConfig);
-    final SpecLogic specLogic = SpecLogicBellatrix.create(specConfig, schemaDefinitions);
+    final SpecLogic specLogic =
+        SpecLogicBellatrix.create(specConfig, schemaDefinitions, knownValidatorPublicKeys);
     return new SpecVersion(SpecMilestone.BELLATRIX, specConfig, schemaDefinitions, specLogic);
   }
 
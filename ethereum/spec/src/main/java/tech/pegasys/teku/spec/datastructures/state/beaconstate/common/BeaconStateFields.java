@@ -161,7 +161,9 @@ public enum BeaconStateFields implements SszFieldName {
             BeaconStateFields.BALANCES,
             () ->
                 SszListSchema.create(
-                    SszPrimitiveSchemas.UINT64_SCHEMA, specConfig.getValidatorRegistryLimit()));
+                    SszPrimitiveSchemas.UINT64_SCHEMA,
+                    specConfig.getValidatorRegistryLimit(),
+                    SszSchemaHints.packedChunks(4)));
     SszField randaoMixesField =
         new SszField(
             13,
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2022 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package tech.pegasys.teku.spec.datastructures.state.beaconstate.common;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.tuweni.bytes.Bytes48;
+import tech.pegasys.teku.bls.BLSPublicKey;
+import tech.pegasys.teku.infrastructure.ssz.SszList;
+import tech.pegasys.teku.spec.datastructures.state.Validator;
+
+/**
+ * Public keys of validators from the finalized chain which are shared by all states processed with
+ * the same {@link tech.pegasys.teku.spec.Spec}, in contrast to {@link TransitionCaches} which are
+ * rebuilt for every state loaded from disk.
+ *
+ * <p>Keys are typically loaded at startup with their uncompressed form (see {@link
+ * BLSPublicKey#fromBytesUncompressed}) so they don't need to be decompressed again and are appended
+ * as new validators are finalized. Lookups always check that the key matches the validator of the
+ * state being processed, so a stale or foreign set of keys can't produce wrong results.
+ */
+public class KnownValidatorPublicKeys {
+  private final Map<Bytes48, Integer> indicesByPublicKey = new ConcurrentHashMap<>();
+  private volatile BLSPublicKey[] publicKeys = new BLSPublicKey[0];
+  private volatile int size = 0;
+
+  /** Returns the number of known validators, which is also the index of the next one to add */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Adds the public key of the next validator.
+   *
+   * @param index the validator index which must be equal to {@link #size()}
+   * @param publicKey the validator public key
+   */
+  public synchronized void add(final int index, final BLSPublicKey publicKey) {
+    checkArgument(index == size, "Expected validator index %s but got %s", size, index);
+    if (index == publicKeys.length) {
+      publicKeys = Arrays.copyOf(publicKeys, Math.max(1024, publicKeys.length * 2));
+    }
+    publicKeys[index] = publicKey;
+    indicesByPublicKey.putIfAbsent(publicKey.toBytesCompressed(), index);
+    // Publish the key by updating size last
+    size = index + 1;
+  }
+
+  /**
+   * Returns the known public key of the validator if it matches the validator's public key.
+   *
+   * @param index the validator index
+   * @param validator the validator at the index in the state being processed
+   * @return the known key which may already be decoded, or empty if unknown or different
+   */
+  public Optional<BLSPublicKey> getMatchingPublicKey(final int index, final Validator validator) {
+    if (index < 0 || index >= size) {
+      return Optional.empty();
+    }
+    final BLSPublicKey publicKey = publicKeys[index];
+    return publicKey.toBytesCompressed().equals(validator.getPubkeyBytes())
+        ? Optional.of(publicKey)
+        : Optional.empty();
+  }
+
+  /**
+   * Returns the known index of the public key if the validator at that index in the supplied list
+   * has the same public key.
+   *
+   * @param validators the validators of the state being processed
+   * @param publicKey the public key to look up
+   * @return the validator index, or empty if unknown or different
+   */
+  public Optional<Integer> getMatchingIndex(
+      final SszList<Validator> validators, final BLSPublicKey publicKey) {
+    final Bytes48 publicKeyBytes = publicKey.toBytesCompressed();
+    final Integer index = indicesByPublicKey.get(publicKeyBytes);
+    if (index == null || index >= validators.size()) {
+      return Optional.empty();
+    }
+    return validators.get(index).getPubkeyBytes().equals(publicKeyBytes)
+        ? Optional.of(index)
+        : Optional.empty();
+  }
+}
@@ -14,6 +14,7 @@
 package tech.pegasys.teku.spec.datastructures.state.beaconstate.common;
 
 import it.unimi.dsi.fastutil.ints.IntList;
+import java.lang.ref.SoftReference;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -23,7 +24,9 @@ import tech.pegasys.teku.infrastructure.collections.TekuPair;
 import tech.pegasys.teku.infrastructure.collections.cache.Cache;
 import tech.pegasys.teku.infrastructure.collections.cache.LRUCache;
 import tech.pegasys.teku.infrastructure.collections.cache.NoOpCache;
+import tech.pegasys.teku.infrastructure.ssz.SszList;
 import tech.pegasys.teku.infrastructure.unsigned.UInt64;
+import tech.pegasys.teku.spec.datastructures.state.Validator;
 import tech.pegasys.teku.spec.datastructures.util.SyncSubcommitteeAssignments;
 import tech.pegasys.teku.spec.logic.common.statetransition.epoch.status.TotalBalances;
 
@@ -57,6 +60,12 @@ public class TransitionCaches {
         public TransitionCaches copy() {
           return this;
         }
+
+        @Override
+        public ValidatorRegistryColumns getValidatorRegistryColumns(
+            final SszList<Validator> validators) {
+          return ValidatorRegistryColumns.create(validators);
+        }
       };
 
   /** Creates new instance with clean caches */
@@ -83,6 +92,9 @@ public class TransitionCaches {
   private final Cache<UInt64, Map<UInt64, SyncSubcommitteeAssignments>> syncCommitteeCache;
 
   private volatile Optional<TotalBalances> latestTotalBalances = Optional.empty();
+  // Softly referenced as it's large and can always be recreated from the state
+  private volatile SoftReference<ValidatorRegistryColumns> validatorRegistryColumns =
+      new SoftReference<>(null);
 
   private TransitionCaches() {
     activeValidators = LRUCache.create(MAX_ACTIVE_VALIDATORS_CACHE);
@@ -196,22 +208,43 @@ public class TransitionCaches {
     return baseRewardPerIncrement;
   }
 
+  /**
+   * Returns the columnar copy of the supplied validators, incrementally updated from the latest
+   * columns returned by this instance (or the instance it was copied from)
+   *
+   * @param validators the validators of this state
+   */
+  public ValidatorRegistryColumns getValidatorRegistryColumns(
+      final SszList<Validator> validators) {
+    final ValidatorRegistryColumns cached = validatorRegistryColumns.get();
+    final ValidatorRegistryColumns columns =
+        cached == null ? ValidatorRegistryColumns.create(validators) : cached.updatedTo(validators);
+    if (columns != cached) {
+      validatorRegistryColumns = new SoftReference<>(columns);
+    }
+    return columns;
+  }
+
   /**
    * Makes an independent copy which contains all the data in this instance Modifications to
    * returned caches shouldn't affect caches from this instance
    */
   public TransitionCaches copy() {
-    return new TransitionCaches(
-        activeValidators.copy(),
-        beaconProposerIndex.copy(),
-        beaconCommittee.copy(),
-        attestersTotalBalance.copy(),
-        totalActiveBalance.copy(),
-        validatorsPubKeys,
-        validatorIndexCache,
-        committeeShuffle.copy(),
-        effectiveBalances.copy(),
-        syncCommitteeCache.copy(),
-        baseRewardPerIncrement.copy());
+    final TransitionCaches copy =
+        new TransitionCaches(
+            activeValidators.copy(),
+            beaconProposerIndex.copy(),
+            beaconCommittee.copy(),
+            attestersTotalBalance.copy(),
+            totalActiveBalance.copy(),
+            validatorsPubKeys,
+            validatorIndexCache,
+            committeeShuffle.copy(),
+            effectiveBalances.copy(),
+            syncCommitteeCache.copy(),
+            baseRewardPerIncrement.copy());
+    // Columns are immutable so can be shared
+    copy.validatorRegistryColumns = validatorRegistryColumns;
+    return copy;
   }
 }
@@ -39,12 +39,13 @@ public class ValidatorIndexCache {
   }
 
   public ValidatorIndexCache() {
-    this.validatorIndices = LRUCache.create(Integer.MAX_VALUE - 1);
-    this.lastIndex = new AtomicInteger(INDEX_NONE);
+    this(LRUCache.create(Integer.MAX_VALUE - 1), INDEX_NONE);
   }
 
   public Optional<Integer> getValidatorIndex(
-      final BeaconState state, final BLSPublicKey publicKey) {
+      final BeaconState state,
+      final BLSPublicKey publicKey,
+      final KnownValidatorPublicKeys knownPublicKeys) {
     // Store lastIndex here in case we need to scan keys from the state.
     // This ensures we're adding from a point that we're confident the cache is at
     // when we scan for more keys through the state later.
@@ -55,6 +56,13 @@ public class ValidatorIndexCache {
       return validatorIndex.filter(index -> index < state.getValidators().size());
     }
 
+    final Optional<Integer> knownIndex =
+        knownPublicKeys.getMatchingIndex(state.getValidators(), publicKey);
+    if (knownIndex.isPresent()) {
+      validatorIndices.invalidateWithNewValue(publicKey, knownIndex.get());
+      return knownIndex;
+    }
+
     return findIndexFromState(state.getValidators(), publicKey, lastIndexSnapshot);
   }
 
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2022 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package tech.pegasys.teku.spec.datastructures.state.beaconstate.common;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import tech.pegasys.teku.infrastructure.ssz.SszList;
+import tech.pegasys.teku.infrastructure.ssz.tree.BranchNode;
+import tech.pegasys.teku.infrastructure.ssz.tree.GIndexUtil;
+import tech.pegasys.teku.infrastructure.ssz.tree.TreeNode;
+import tech.pegasys.teku.infrastructure.unsigned.UInt64;
+import tech.pegasys.teku.spec.datastructures.state.Validator;
+
+/**
+ * Immutable columnar copy of the validator fields read by epoch processing, stored in primitive
+ * arrays so that processing the whole registry doesn't need to read every {@link Validator} from
+ * the state tree.
+ *
+ * <p>Epochs are stored as raw unsigned <code>long</code> values, so {@link
+ * tech.pegasys.teku.spec.config.SpecConfig#FAR_FUTURE_EPOCH} is <code>-1</code> and epochs must be
+ * compared with {@link Long#compareUnsigned(long, long)}.
+ *
+ * <p>Columns are updated incrementally with {@link #updatedTo(SszList)}: the backing tree of the
+ * validators list is compared by node identity with the tree the columns were created from and only
+ * validators in changed subtrees are read again. Since block processing only touches a few
+ * validators, bringing the columns of a previous epoch up to date is cheap.
+ */
+public class ValidatorRegistryColumns {
+  private final TreeNode validatorsDataNode;
+  private final int treeDepth;
+  private final int size;
+  private final long[] effectiveBalances;
+  private final long[] activationEligibilityEpochs;
+  private final long[] activationEpochs;
+  private final long[] exitEpochs;
+  private final long[] withdrawableEpochs;
+  private final boolean[] slashed;
+
+  private ValidatorRegistryColumns(
+      final TreeNode validatorsDataNode,
+      final int treeDepth,
+      final int size,
+      final long[] effectiveBalances,
+      final long[] activationEligibilityEpochs,
+      final long[] activationEpochs,
+      final long[] exitEpochs,
+      final long[] withdrawableEpochs,
+      final boolean[] slashed) {
+    this.validatorsDataNode = validatorsDataNode;
+    this.treeDepth = treeDepth;
+    this.size = size;
+    this.effectiveBalances = effectiveBalances;
+    this.activationEligibilityEpochs = activationEligibilityEpochs;
+    this.activationEpochs = activationEpochs;
+    this.exitEpochs = exitEpochs;
+    this.withdrawableEpochs = withdrawableEpochs;
+    this.slashed = slashed;
+  }
+
+  public static ValidatorRegistryColumns create(final SszList<Validator> validators) {
+    final int size = validators.size();
+    final ValidatorRegistryColumns columns =
+        new ValidatorRegistryColumns(
+            getDataNode(validators),
+            validators.getSchema().treeDepth(),
+            size,
+            new long[size],
+            new long[size],
+            new long[size],
+            new long[size],
+            new long[size],
+            new boolean[size]);
+    for (int i = 0; i < size; i++) {
+      columns.read(validators, i);
+    }
+    return columns;
+  }
+
+  /**
+   * Returns the columns for the supplied validators, reading only validators which were changed or
+   * added since these columns were created. This instance is left unchanged.
+   */
+  public ValidatorRegistryColumns updatedTo(final SszList<Validator> validators) {
+    final TreeNode newDataNode = getDataNode(validators);
+    final int newSize = validators.size();
+    if (newDataNode == validatorsDataNode && newSize == size) {
+      return this;
+    }
+    if (newSize < size || validators.getSchema().treeDepth() != treeDepth) {
+      // Validators are never removed so these can't be related states
+      return create(validators);
+    }
+    final ValidatorRegistryColumns updated =
+        new ValidatorRegistryColumns(
+            newDataNode,
+            treeDepth,
+            newSize,
+            Arrays.copyOf(effectiveBalances, newSize),
+            Arrays.copyOf(activationEligibilityEpochs, newSize),
+            Arrays.copyOf(activationEpochs, newSize),
+            Arrays.copyOf(exitEpochs, newSize),
+            Arrays.copyOf(withdrawableEpochs, newSize),
+            Arrays.copyOf(slashed, newSize));
+    collectChangedIndices(
+        validatorsDataNode, newDataNode, treeDepth, 0, newSize, i -> updated.read(validators, i));
+    return updated;
+  }
+
+  private static TreeNode getDataNode(final SszList<Validator> validators) {
+    // The list root node has the data subtree on the left and the length on the right
+    return validators.getBackingNode().get(GIndexUtil.LEFT_CHILD_G_INDEX);
+  }
+
+  private static void collectChangedIndices(
+      final TreeNode oldNode,
+      final TreeNode newNode,
+      final int depth,
+      final long firstIndex,
+      final int size,
+      final IntConsumer changedIndexConsumer) {
+    if (firstIndex >= size || oldNode == newNode) {
+      return;
+    }
+    if (depth > 0 && oldNode instanceof BranchNode && newNode instanceof BranchNode) {
+      final BranchNode oldBranch = (BranchNode) oldNode;
+      final BranchNode newBranch = (BranchNode) newNode;
+      collectChangedIndices(
+          oldBranch.left(), newBranch.left(), depth - 1, firstIndex, size, changedIndexConsumer);
+      collectChangedIndices(
+          oldBranch.right(),
+          newBranch.right(),
+          depth - 1,
+          firstIndex + (1L << (depth - 1)),
+          size,
+          changedIndexConsumer);
+    } else {
+      // Packed subtrees (e.g. super nodes) are not inspected further
+      final long endIndex = Math.min(size, firstIndex + (1L << depth));
+      for (long i = firstIndex; i < endIndex; i++) {
+        changedIndexConsumer.accept((int) i);
+      }
+    }
+  }
+
+  private void read(final SszList<Validator> validators, final int index) {
+    final Validator validator = validators.get(index);
+    effectiveBalances[index] = validator.getEffectiveBalance().longValue();
+    activationEligibilityEpochs[index] = validator.getActivationEligibilityEpoch().longValue();
+    activationEpochs[index] = validator.getActivationEpoch().longValue();
+    exitEpochs[index] = validator.getExitEpoch().longValue();
+    withdrawableEpochs[index] = validator.getWithdrawableEpoch().longValue();
+    slashed[index] = validator.isSlashed();
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public long getEffectiveBalance(final int index) {
+    return effectiveBalances[index];
+  }
+
+  public long getActivationEligibilityEpoch(final int index) {
+    return activationEligibilityEpochs[index];
+  }
+
+  public long getActivationEpoch(final int index) {
+    return activationEpochs[index];
+  }
+
+  public long getExitEpoch(final int index) {
+    return exitEpochs[index];
+  }
+
+  public long getWithdrawableEpoch(final int index) {
+    return withdrawableEpochs[index];
+  }
+
+  public boolean isSlashed(final int index) {
+    return slashed[index];
+  }
+
+  /** Same as {@link tech.pegasys.teku.spec.logic.common.helpers.Predicates#isActiveValidator} */
+  public boolean isActive(final int index, final UInt64 epoch) {
+    final long epochValue = epoch.longValue();
+    return Long.compareUnsigned(activationEpochs[index], epochValue) <= 0
+        && Long.compareUnsigned(epochValue, exitEpochs[index]) < 0;
+  }
+}
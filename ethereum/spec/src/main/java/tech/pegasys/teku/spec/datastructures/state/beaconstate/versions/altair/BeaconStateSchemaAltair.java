@@ -20,6 +20,7 @@ import java.util.List;
 import tech.pegasys.teku.infrastructure.ssz.primitive.SszByte;
 import tech.pegasys.teku.infrastructure.ssz.schema.SszListSchema;
 import tech.pegasys.teku.infrastructure.ssz.schema.SszPrimitiveSchemas;
+import tech.pegasys.teku.infrastructure.ssz.schema.SszSchemaHints;
 import tech.pegasys.teku.infrastructure.ssz.schema.collections.SszPrimitiveListSchema;
 import tech.pegasys.teku.infrastructure.ssz.schema.collections.SszUInt64ListSchema;
 import tech.pegasys.teku.infrastructure.ssz.sos.SszField;
@@ -56,20 +57,25 @@ public class BeaconStateSchemaAltair
             BeaconStateFields.PREVIOUS_EPOCH_PARTICIPATION,
             () ->
                 SszListSchema.create(
-                    SszPrimitiveSchemas.UINT8_SCHEMA, specConfig.getValidatorRegistryLimit()));
+                    SszPrimitiveSchemas.UINT8_SCHEMA,
+                    specConfig.getValidatorRegistryLimit(),
+                    SszSchemaHints.packedChunks(4)));
     final SszField currentEpochAttestationsField =
         new SszField(
             CURRENT_EPOCH_PARTICIPATION_FIELD_INDEX,
             BeaconStateFields.CURRENT_EPOCH_PARTICIPATION,
             () ->
                 SszListSchema.create(
-                    SszPrimitiveSchemas.UINT8_SCHEMA, specConfig.getValidatorRegistryLimit()));
+                    SszPrimitiveSchemas.UINT8_SCHEMA,
+                    specConfig.getValidatorRegistryLimit(),
+                    SszSchemaHints.packedChunks(4)));
 
     final SszField inactivityScores =
         new SszField(
             INACTIVITY_SCORES_FIELD_INDEX,
             BeaconStateFields.INACTIVITY_SCORES,
-            SszUInt64ListSchema.create(specConfig.getValidatorRegistryLimit()));
+            SszUInt64ListSchema.create(
+                specConfig.getValidatorRegistryLimit(), SszSchemaHints.packedChunks(4)));
     final SszField currentSyncCommitteeField =
         new SszField(
             CURRENT_SYNC_COMMITTEE_FIELD_INDEX,
@@ -36,17 +36,27 @@ import tech.pegasys.teku.spec.datastructures.state.ForkInfo;
 import tech.pegasys.teku.spec.datastructures.state.Validator;
 import tech.pegasys.teku.spec.datastructures.state.beaconstate.BeaconState;
 import tech.pegasys.teku.spec.datastructures.state.beaconstate.BeaconStateCache;
+import tech.pegasys.teku.spec.datastructures.state.beaconstate.common.KnownValidatorPublicKeys;
 
 public abstract class BeaconStateAccessors {
   protected final SpecConfig config;
   protected final Predicates predicates;
   protected final MiscHelpers miscHelpers;
+  protected final KnownValidatorPublicKeys knownValidatorPublicKeys;
 
   protected BeaconStateAccessors(
-      final SpecConfig config, final Predicates predicates, final MiscHelpers miscHelpers) {
+      final SpecConfig config,
+      final Predicates predicates,
+      final MiscHelpers miscHelpers,
+      final KnownValidatorPublicKeys knownValidatorPublicKeys) {
     this.config = config;
     this.predicates = predicates;
     this.miscHelpers = miscHelpers;
+    this.knownValidatorPublicKeys = knownValidatorPublicKeys;
+  }
+
+  public KnownValidatorPublicKeys getKnownValidatorPublicKeys() {
+    return knownValidatorPublicKeys;
   }
 
   public UInt64 getCurrentEpoch(BeaconState state) {
@@ -80,7 +90,12 @@ public abstract class BeaconStateAccessors {
             .get(
                 validatorIndex,
                 i -> {
-                  BLSPublicKey pubKey = state.getValidators().get(i.intValue()).getPublicKey();
+                  final Validator validator = state.getValidators().get(i.intValue());
+                  // prefer the shared key which may already be decoded
+                  BLSPublicKey pubKey =
+                      knownValidatorPublicKeys
+                          .getMatchingPublicKey(i.intValue(), validator)
+                          .orElseGet(validator::getPublicKey);
 
                   // eagerly pre-cache pubKey => validatorIndex mapping
                   BeaconStateCache.getTransitionCaches(state)
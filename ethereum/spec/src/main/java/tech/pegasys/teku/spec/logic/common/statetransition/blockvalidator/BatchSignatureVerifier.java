@@ -91,12 +91,37 @@ public class BatchSignatureVerifier implements BLSSignatureVerifier {
     if (complete) {
       throw new IllegalStateException("Reuse of disposable instance");
     }
+    complete = true;
+    return verifyJobs(toVerify);
+  }
+
+  /**
+   * Performs verification of the signatures collected by several instances as a single batch, for
+   * example the signatures of consecutive blocks imported during sync.
+   *
+   * <p>Unlike {@link #batchVerify()} the instances are not disposed, so if verification fails,
+   * subsets of them can be verified again to find the instance which collected an invalid
+   * signature.
+   */
+  public static boolean batchVerify(final List<BatchSignatureVerifier> verifiers) {
+    final List<Job> jobs = new ArrayList<>();
+    for (BatchSignatureVerifier verifier : verifiers) {
+      synchronized (verifier) {
+        if (verifier.complete) {
+          throw new IllegalStateException("Reuse of disposable instance");
+        }
+        jobs.addAll(verifier.toVerify);
+      }
+    }
+    return verifyJobs(jobs);
+  }
+
+  private static boolean verifyJobs(final List<Job> jobs) {
     List<BatchSemiAggregate> batchSemiAggregates =
-        toVerify.stream()
+        jobs.stream()
             .parallel()
             .map(job -> BLS.prepareBatchVerify(job.idx, job.publicKeys, job.message, job.signature))
             .collect(Collectors.toList());
-    complete = true;
     if (batchSemiAggregates.isEmpty()) {
       return true;
     }
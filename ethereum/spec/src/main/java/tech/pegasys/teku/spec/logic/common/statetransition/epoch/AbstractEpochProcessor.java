@@ -16,7 +16,6 @@ package tech.pegasys.teku.spec.logic.common.statetransition.epoch;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
-import tech.pegasys.teku.infrastructure.ssz.SszList;
 import tech.pegasys.teku.infrastructure.ssz.SszMutableList;
 import tech.pegasys.teku.infrastructure.ssz.collections.SszBitvector;
 import tech.pegasys.teku.infrastructure.ssz.collections.SszMutableUInt64List;
@@ -27,7 +26,9 @@ import tech.pegasys.teku.spec.datastructures.state.Checkpoint;
 import tech.pegasys.teku.spec.datastructures.state.HistoricalBatch;
 import tech.pegasys.teku.spec.datastructures.state.Validator;
 import tech.pegasys.teku.spec.datastructures.state.beaconstate.BeaconState;
+import tech.pegasys.teku.spec.datastructures.state.beaconstate.BeaconStateCache;
 import tech.pegasys.teku.spec.datastructures.state.beaconstate.MutableBeaconState;
+import tech.pegasys.teku.spec.datastructures.state.beaconstate.common.ValidatorRegistryColumns;
 import tech.pegasys.teku.spec.logic.common.helpers.BeaconStateAccessors;
 import tech.pegasys.teku.spec.logic.common.helpers.BeaconStateMutators;
 import tech.pegasys.teku.spec.logic.common.helpers.MiscHelpers;
@@ -78,9 +79,21 @@ public abstract class AbstractEpochProcessor implements EpochProcessor {
    */
   @Override
   public BeaconState processEpoch(final BeaconState preState) throws EpochProcessingException {
+    // Update the validator columns before the caches are copied to the mutable state
+    BeaconStateCache.getTransitionCaches(preState)
+        .getValidatorRegistryColumns(preState.getValidators());
     return preState.updated(mutableState -> processEpoch(preState, mutableState));
   }
 
+  /**
+   * Returns the columnar copy of the current validators of the state. Validators changed since the
+   * columns were last requested are read again, so this is cheap to call after a few changes.
+   */
+  protected ValidatorRegistryColumns getValidatorRegistryColumns(final MutableBeaconState state) {
+    return BeaconStateCache.getTransitionCaches(state)
+        .getValidatorRegistryColumns(state.getValidators().commitChanges());
+  }
+
   protected void processEpoch(final BeaconState preState, final MutableBeaconState state)
       throws EpochProcessingException {
     final ValidatorStatuses validatorStatuses =
@@ -249,25 +262,26 @@ public abstract class AbstractEpochProcessor implements EpochProcessor {
       }
 
       // Queue validators eligible for activation and not yet dequeued for activation
+      // Same as ValidatorsUtil.isEligibleForActivation but using the columns to avoid reading the
+      // validators from the state
+      final ValidatorRegistryColumns columns = getValidatorRegistryColumns(state);
+      final long finalizedEpoch = state.getFinalizedCheckpoint().getEpoch().longValue();
+      final long farFutureEpoch = SpecConfig.FAR_FUTURE_EPOCH.longValue();
       List<Integer> activationQueue =
-          IntStream.range(0, state.getValidators().size())
-              // Cheap filter first before accessing state
-              .filter(index -> !statuses.get(index).isActiveInCurrentEpoch())
+          IntStream.range(0, columns.size())
               .filter(
-                  index -> {
-                    Validator validator = state.getValidators().get(index);
-                    return validatorsUtil.isEligibleForActivation(state, validator);
-                  })
+                  index ->
+                      columns.getActivationEpoch(index) == farFutureEpoch
+                          && Long.compareUnsigned(
+                                  columns.getActivationEligibilityEpoch(index), finalizedEpoch)
+                              <= 0)
               .boxed()
               .sorted(
                   (index1, index2) -> {
                     int comparisonResult =
-                        state
-                            .getValidators()
-                            .get(index1)
-                            .getActivationEligibilityEpoch()
-                            .compareTo(
-                                state.getValidators().get(index2).getActivationEligibilityEpoch());
+                        Long.compareUnsigned(
+                            columns.getActivationEligibilityEpoch(index1),
+                            columns.getActivationEligibilityEpoch(index2));
                     if (comparisonResult == 0) {
                       return index1.compareTo(index2);
                     } else {
@@ -305,17 +319,14 @@ public abstract class AbstractEpochProcessor implements EpochProcessor {
             .times(getProportionalSlashingMultiplier())
             .min(totalBalance);
 
-    SszList<Validator> validators = state.getValidators();
-    for (int index = 0; index < validators.size(); index++) {
-      Validator validator = validators.get(index);
-      if (validator.isSlashed()
-          && epoch
-              .plus(specConfig.getEpochsPerSlashingsVector() / 2)
-              .equals(validator.getWithdrawableEpoch())) {
+    final ValidatorRegistryColumns columns = getValidatorRegistryColumns(state);
+    final long withdrawableEpoch =
+        epoch.plus(specConfig.getEpochsPerSlashingsVector() / 2).longValue();
+    for (int index = 0; index < columns.size(); index++) {
+      if (columns.isSlashed(index) && columns.getWithdrawableEpoch(index) == withdrawableEpoch) {
         UInt64 increment = specConfig.getEffectiveBalanceIncrement();
         UInt64 penaltyNumerator =
-            validator
-                .getEffectiveBalance()
+            UInt64.fromLongBits(columns.getEffectiveBalance(index))
                 .dividedBy(increment)
                 .times(adjustedTotalSlashingBalance);
         UInt64 penalty = penaltyNumerator.dividedBy(totalBalance).times(increment);
@@ -340,15 +351,16 @@ public abstract class AbstractEpochProcessor implements EpochProcessor {
   @Override
   public void processEffectiveBalanceUpdates(final MutableBeaconState state) {
     // Update effective balances with hysteresis
+    final ValidatorRegistryColumns columns = getValidatorRegistryColumns(state);
     SszMutableList<Validator> validators = state.getValidators();
     SszUInt64List balances = state.getBalances();
-    for (int index = 0; index < validators.size(); index++) {
-      Validator validator = validators.get(index);
+    final UInt64 hysteresisIncrement =
+        specConfig.getEffectiveBalanceIncrement().dividedBy(specConfig.getHysteresisQuotient());
+    for (int index = 0; index < columns.size(); index++) {
       UInt64 balance = balances.getElement(index);
 
-      final UInt64 hysteresisIncrement =
-          specConfig.getEffectiveBalanceIncrement().dividedBy(specConfig.getHysteresisQuotient());
-      final UInt64 currentEffectiveBalance = validator.getEffectiveBalance();
+      final UInt64 currentEffectiveBalance =
+          UInt64.fromLongBits(columns.getEffectiveBalance(index));
       if (shouldDecreaseEffectiveBalance(balance, hysteresisIncrement, currentEffectiveBalance)
           || shouldIncreaseEffectiveBalance(
               balance, hysteresisIncrement, currentEffectiveBalance)) {
@@ -356,7 +368,7 @@ public abstract class AbstractEpochProcessor implements EpochProcessor {
             balance
                 .minus(balance.mod(specConfig.getEffectiveBalanceIncrement()))
                 .min(specConfig.getMaxEffectiveBalance());
-        validators.set(index, validator.withEffectiveBalance(newEffectiveBalance));
+        validators.set(index, validators.get(index).withEffectiveBalance(newEffectiveBalance));
       }
     }
   }
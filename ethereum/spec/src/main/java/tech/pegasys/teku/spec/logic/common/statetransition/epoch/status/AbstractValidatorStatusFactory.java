@@ -15,7 +15,6 @@ package tech.pegasys.teku.spec.logic.common.statetransition.epoch.status;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 import org.apache.tuweni.bytes.Bytes32;
 import tech.pegasys.teku.infrastructure.ssz.SszList;
 import tech.pegasys.teku.infrastructure.unsigned.UInt64;
@@ -23,6 +22,7 @@ import tech.pegasys.teku.spec.config.SpecConfig;
 import tech.pegasys.teku.spec.datastructures.state.Validator;
 import tech.pegasys.teku.spec.datastructures.state.beaconstate.BeaconState;
 import tech.pegasys.teku.spec.datastructures.state.beaconstate.BeaconStateCache;
+import tech.pegasys.teku.spec.datastructures.state.beaconstate.common.ValidatorRegistryColumns;
 import tech.pegasys.teku.spec.logic.common.helpers.BeaconStateAccessors;
 import tech.pegasys.teku.spec.logic.common.helpers.Predicates;
 import tech.pegasys.teku.spec.logic.common.util.AttestationUtil;
@@ -61,10 +61,12 @@ public abstract class AbstractValidatorStatusFactory implements ValidatorStatusF
     final UInt64 currentEpoch = beaconStateAccessors.getCurrentEpoch(state);
     final UInt64 previousEpoch = beaconStateAccessors.getPreviousEpoch(state);
 
-    final List<ValidatorStatus> statuses =
-        validators.stream()
-            .map(validator -> createValidatorStatus(validator, previousEpoch, currentEpoch))
-            .collect(Collectors.toCollection(() -> new ArrayList<>(validators.size())));
+    final ValidatorRegistryColumns columns =
+        BeaconStateCache.getTransitionCaches(state).getValidatorRegistryColumns(validators);
+    final List<ValidatorStatus> statuses = new ArrayList<>(columns.size());
+    for (int index = 0; index < columns.size(); index++) {
+      statuses.add(createValidatorStatus(columns, index, previousEpoch, currentEpoch));
+    }
 
     processParticipation(statuses, state, previousEpoch, currentEpoch);
 
@@ -89,6 +91,19 @@ public abstract class AbstractValidatorStatusFactory implements ValidatorStatusF
         predicates.isActiveValidator(validator, previousEpoch));
   }
 
+  private ValidatorStatus createValidatorStatus(
+      final ValidatorRegistryColumns columns,
+      final int index,
+      final UInt64 previousEpoch,
+      final UInt64 currentEpoch) {
+    return new ValidatorStatus(
+        columns.isSlashed(index),
+        Long.compareUnsigned(columns.getWithdrawableEpoch(index), currentEpoch.longValue()) <= 0,
+        UInt64.fromLongBits(columns.getEffectiveBalance(index)),
+        columns.isActive(index, currentEpoch),
+        columns.isActive(index, previousEpoch));
+  }
+
   protected TotalBalances createTotalBalances(final List<ValidatorStatus> statuses) {
     UInt64 currentEpochActiveValidators = UInt64.ZERO;
     UInt64 previousEpochActiveValidators = UInt64.ZERO;
@@ -64,7 +64,7 @@ public class ValidatorsUtil {
   public Optional<Integer> getValidatorIndex(BeaconState state, BLSPublicKey publicKey) {
     return BeaconStateCache.getTransitionCaches(state)
         .getValidatorIndexCache()
-        .getValidatorIndex(state, publicKey);
+        .getValidatorIndex(state, publicKey, beaconStateAccessors.getKnownValidatorPublicKeys());
   }
 
   /**
@@ -18,6 +18,7 @@ import org.apache.tuweni.bytes.Bytes32;
 import tech.pegasys.teku.infrastructure.unsigned.UInt64;
 import tech.pegasys.teku.spec.config.SpecConfigAltair;
 import tech.pegasys.teku.spec.datastructures.state.beaconstate.BeaconState;
+import tech.pegasys.teku.spec.datastructures.state.beaconstate.common.KnownValidatorPublicKeys;
 import tech.pegasys.teku.spec.logic.common.AbstractSpecLogic;
 import tech.pegasys.teku.spec.logic.common.helpers.BeaconStateMutators;
 import tech.pegasys.teku.spec.logic.common.helpers.Predicates;
@@ -86,12 +87,14 @@ public class SpecLogicAltair extends AbstractSpecLogic {
   }
 
   public static SpecLogicAltair create(
-      final SpecConfigAltair config, final SchemaDefinitionsAltair schemaDefinitions) {
+      final SpecConfigAltair config,
+      final SchemaDefinitionsAltair schemaDefinitions,
+      final KnownValidatorPublicKeys knownValidatorPublicKeys) {
     // Helpers
     final Predicates predicates = new Predicates();
     final MiscHelpersAltair miscHelpers = new MiscHelpersAltair(config);
     final BeaconStateAccessorsAltair beaconStateAccessors =
-        new BeaconStateAccessorsAltair(config, predicates, miscHelpers);
+        new BeaconStateAccessorsAltair(config, predicates, miscHelpers, knownValidatorPublicKeys);
     final BeaconStateMutatorsAltair beaconStateMutators =
         new BeaconStateMutatorsAltair(config, miscHelpers, beaconStateAccessors);
 
@@ -14,8 +14,7 @@
 package tech.pegasys.teku.spec.logic.versions.altair.statetransition.epoch;
 
 import java.util.List;
-import tech.pegasys.teku.infrastructure.ssz.SszList;
-import tech.pegasys.teku.infrastructure.ssz.primitive.SszByte;
+import org.apache.tuweni.bytes.Bytes;
 import tech.pegasys.teku.infrastructure.unsigned.UInt64;
 import tech.pegasys.teku.spec.config.SpecConfig;
 import tech.pegasys.teku.spec.constants.ParticipationFlags;
@@ -51,13 +50,14 @@ public class ValidatorStatusFactoryAltair extends AbstractValidatorStatusFactory
       final UInt64 currentEpoch) {
     final BeaconStateAltair state = BeaconStateAltair.required(genericState);
 
-    final SszList<SszByte> previousParticipation = state.getPreviousEpochParticipation();
-    final SszList<SszByte> currentParticipation = state.getCurrentEpochParticipation();
+    // Serialized form of a byte list is a flat array of all participation flags
+    final Bytes previousParticipation = state.getPreviousEpochParticipation().sszSerialize();
+    final Bytes currentParticipation = state.getCurrentEpochParticipation().sszSerialize();
     for (int i = 0; i < statuses.size(); i++) {
       final ValidatorStatus status = statuses.get(i);
 
       if (status.isActiveInPreviousEpoch()) {
-        final byte previousParticipationFlags = previousParticipation.get(i).get();
+        final byte previousParticipationFlags = previousParticipation.get(i);
         if (miscHelpersAltair.hasFlag(
             previousParticipationFlags, ParticipationFlags.TIMELY_SOURCE_FLAG_INDEX)) {
           status.updatePreviousEpochSourceAttester(true);
@@ -73,7 +73,7 @@ public class ValidatorStatusFactoryAltair extends AbstractValidatorStatusFactory
       }
 
       if (status.isActiveInCurrentEpoch()) {
-        final byte currentParticipationFlags = currentParticipation.get(i).get();
+        final byte currentParticipationFlags = currentParticipation.get(i);
         if (miscHelpersAltair.hasFlag(
             currentParticipationFlags, ParticipationFlags.TIMELY_SOURCE_FLAG_INDEX)) {
           status.updateCurrentEpochSourceAttester(true);
@@ -18,6 +18,7 @@ import org.apache.tuweni.bytes.Bytes32;
 import tech.pegasys.teku.infrastructure.unsigned.UInt64;
 import tech.pegasys.teku.spec.config.SpecConfigBellatrix;
 import tech.pegasys.teku.spec.datastructures.state.beaconstate.BeaconState;
+import tech.pegasys.teku.spec.datastructures.state.beaconstate.common.KnownValidatorPublicKeys;
 import tech.pegasys.teku.spec.logic.common.AbstractSpecLogic;
 import tech.pegasys.teku.spec.logic.common.helpers.Predicates;
 import tech.pegasys.teku.spec.logic.common.operations.OperationSignatureVerifier;
@@ -92,12 +93,15 @@ public class SpecLogicBellatrix extends AbstractSpecLogic {
   }
 
   public static SpecLogicBellatrix create(
-      final SpecConfigBellatrix config, final SchemaDefinitionsBellatrix schemaDefinitions) {
+      final SpecConfigBellatrix config,
+      final SchemaDefinitionsBellatrix schemaDefinitions,
+      final KnownValidatorPublicKeys knownValidatorPublicKeys) {
     // Helpers
     final Predicates predicates = new Predicates();
     final MiscHelpersBellatrix miscHelpers = new MiscHelpersBellatrix(config);
     final BeaconStateAccessorsBellatrix beaconStateAccessors =
-        new BeaconStateAccessorsBellatrix(config, predicates, miscHelpers);
+        new BeaconStateAccessorsBellatrix(
+            config, predicates, miscHelpers, knownValidatorPublicKeys);
     final BeaconStateMutatorsBellatrix beaconStateMutators =
         new BeaconStateMutatorsBellatrix(config, miscHelpers, beaconStateAccessors);
 
@@ -14,6 +14,7 @@
 package tech.pegasys.teku.spec.logic.versions.bellatrix.helpers;
 
 import tech.pegasys.teku.spec.config.SpecConfigBellatrix;
+import tech.pegasys.teku.spec.datastructures.state.beaconstate.common.KnownValidatorPublicKeys;
 import tech.pegasys.teku.spec.logic.common.helpers.Predicates;
 import tech.pegasys.teku.spec.logic.versions.altair.helpers.BeaconStateAccessorsAltair;
 
@@ -21,7 +22,8 @@ public class BeaconStateAccessorsBellatrix extends BeaconStateAccessorsAltair {
   public BeaconStateAccessorsBellatrix(
       final SpecConfigBellatrix config,
       final Predicates predicates,
-      final MiscHelpersBellatrix miscHelpers) {
-    super(config, predicates, miscHelpers);
+      final MiscHelpersBellatrix miscHelpers,
+      final KnownValidatorPublicKeys knownValidatorPublicKeys) {
+    super(config, predicates, miscHelpers, knownValidatorPublicKeys);
   }
 }
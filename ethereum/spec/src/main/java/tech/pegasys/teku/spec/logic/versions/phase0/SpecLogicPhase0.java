@@ -16,6 +16,7 @@ package tech.pegasys.teku.spec.logic.versions.phase0;
 import java.util.Optional;
 import tech.pegasys.teku.spec.config.SpecConfig;
 import tech.pegasys.teku.spec.datastructures.state.beaconstate.BeaconState;
+import tech.pegasys.teku.spec.datastructures.state.beaconstate.common.KnownValidatorPublicKeys;
 import tech.pegasys.teku.spec.logic.common.AbstractSpecLogic;
 import tech.pegasys.teku.spec.logic.common.helpers.BeaconStateAccessors;
 import tech.pegasys.teku.spec.logic.common.helpers.BeaconStateMutators;
@@ -74,12 +75,14 @@ public class SpecLogicPhase0 extends AbstractSpecLogic {
   }
 
   public static SpecLogicPhase0 create(
-      final SpecConfig config, final SchemaDefinitions schemaDefinitions) {
+      final SpecConfig config,
+      final SchemaDefinitions schemaDefinitions,
+      final KnownValidatorPublicKeys knownValidatorPublicKeys) {
     // Helpers
     final Predicates predicates = new Predicates();
     final MiscHelpers miscHelpers = new MiscHelpers(config);
     final BeaconStateAccessors beaconStateAccessors =
-        new BeaconStateAccessorsPhase0(config, predicates, miscHelpers);
+        new BeaconStateAccessorsPhase0(config, predicates, miscHelpers, knownValidatorPublicKeys);
     final BeaconStateMutators beaconStateMutators =
         new BeaconStateMutators(config, miscHelpers, beaconStateAccessors);
 
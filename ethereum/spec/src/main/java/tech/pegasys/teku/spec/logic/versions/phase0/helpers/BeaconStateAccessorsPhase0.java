@@ -15,6 +15,7 @@ package tech.pegasys.teku.spec.logic.versions.phase0.helpers;
 
 import tech.pegasys.teku.spec.config.SpecConfig;
 import tech.pegasys.teku.spec.datastructures.state.beaconstate.BeaconState;
+import tech.pegasys.teku.spec.datastructures.state.beaconstate.common.KnownValidatorPublicKeys;
 import tech.pegasys.teku.spec.datastructures.state.beaconstate.versions.phase0.BeaconStatePhase0;
 import tech.pegasys.teku.spec.logic.common.helpers.BeaconStateAccessors;
 import tech.pegasys.teku.spec.logic.common.helpers.MiscHelpers;
@@ -22,8 +23,11 @@ import tech.pegasys.teku.spec.logic.common.helpers.Predicates;
 
 public class BeaconStateAccessorsPhase0 extends BeaconStateAccessors {
   public BeaconStateAccessorsPhase0(
-      final SpecConfig config, final Predicates predicates, final MiscHelpers miscHelpers) {
-    super(config, predicates, miscHelpers);
+      final SpecConfig config,
+      final Predicates predicates,
+      final MiscHelpers miscHelpers,
+      final KnownValidatorPublicKeys knownValidatorPublicKeys) {
+    super(config, predicates, miscHelpers, knownValidatorPublicKeys);
   }
 
   // Custom accessors
@@ -34,6 +34,7 @@ public class ValidatorIndexCacheTest {
       new DataStructureUtil(TestSpecFactory.createDefault());
   final BeaconState state = dataStructureUtil.randomBeaconState();
   final BLSPublicKey missingPublicKey = dataStructureUtil.randomPublicKey();
+  final KnownValidatorPublicKeys knownPublicKeys = new KnownValidatorPublicKeys();
 
   @SuppressWarnings("unchecked")
   final Cache<BLSPublicKey, Integer> cache = mock(Cache.class);
@@ -44,7 +45,8 @@ public class ValidatorIndexCacheTest {
         new ValidatorIndexCache(cache, state.getValidators().size());
 
     when(cache.getCached(missingPublicKey)).thenReturn(Optional.empty());
-    final Optional<Integer> index = validatorIndexCache.getValidatorIndex(state, missingPublicKey);
+    final Optional<Integer> index =
+        validatorIndexCache.getValidatorIndex(state, missingPublicKey, knownPublicKeys);
 
     verify(cache).getCached(missingPublicKey);
     verify(cache, never()).invalidateWithNewValue(any(), any());
@@ -57,16 +59,37 @@ public class ValidatorIndexCacheTest {
         new ValidatorIndexCache(cache, state.getValidators().size() - 5);
 
     when(cache.getCached(missingPublicKey)).thenReturn(Optional.empty());
-    final Optional<Integer> index = validatorIndexCache.getValidatorIndex(state, missingPublicKey);
+    final Optional<Integer> index =
+        validatorIndexCache.getValidatorIndex(state, missingPublicKey, knownPublicKeys);
     verify(cache).getCached(missingPublicKey);
     verify(cache, times(5)).invalidateWithNewValue(any(), any());
     assertThat(index).isEmpty();
   }
 
+  @Test
+  public void shouldUseKnownPublicKeysWithoutScanningState() {
+    for (int i = 0; i < state.getValidators().size(); i++) {
+      knownPublicKeys.add(i, state.getValidators().get(i).getPublicKey());
+    }
+    final ValidatorIndexCache validatorIndexCache =
+        new ValidatorIndexCache(cache, -1);
+    final BLSPublicKey foundKey =
+        BLSPublicKey.fromBytesCompressed(state.getValidators().get(10).getPubkeyBytes());
+
+    when(cache.getCached(foundKey)).thenReturn(Optional.empty());
+    final Optional<Integer> index =
+        validatorIndexCache.getValidatorIndex(state, foundKey, knownPublicKeys);
+
+    assertThat(index).contains(10);
+    verify(cache, times(1)).invalidateWithNewValue(any(), any());
+    assertThat(validatorIndexCache.getLastIndex()).isEqualTo(-1);
+  }
+
   @Test
   public void shouldGetAllValidatorKeysCachedIfMissingKeyPassed() {
     final ValidatorIndexCache validatorIndexCache = new ValidatorIndexCache();
-    final Optional<Integer> index = validatorIndexCache.getValidatorIndex(state, missingPublicKey);
+    final Optional<Integer> index =
+        validatorIndexCache.getValidatorIndex(state, missingPublicKey, knownPublicKeys);
     assertThat(index).isEmpty();
     assertThat(validatorIndexCache.getValidatorIndices().size())
         .isEqualTo(state.getValidators().size());
@@ -78,7 +101,8 @@ public class ValidatorIndexCacheTest {
     final BLSPublicKey foundKey =
         BLSPublicKey.fromBytesCompressed(state.getValidators().get(10).getPubkeyBytes());
 
-    final Optional<Integer> index = validatorIndexCache.getValidatorIndex(state, foundKey);
+    final Optional<Integer> index =
+        validatorIndexCache.getValidatorIndex(state, foundKey, knownPublicKeys);
     assertThat(index.get()).isEqualTo(10);
     assertThat(validatorIndexCache.getLastIndex()).isEqualTo(10);
     assertThat(validatorIndexCache.getValidatorIndices().size()).isEqualTo(11);
@@ -88,7 +112,8 @@ public class ValidatorIndexCacheTest {
   public void shouldFilterItemsBeyondStateIndex() {
     final ValidatorIndexCache validatorIndexCache = new ValidatorIndexCache();
     validatorIndexCache.invalidateWithNewValue(missingPublicKey, 100);
-    final Optional<Integer> index = validatorIndexCache.getValidatorIndex(state, missingPublicKey);
+    final Optional<Integer> index =
+        validatorIndexCache.getValidatorIndex(state, missingPublicKey, knownPublicKeys);
 
     assertThat(index).isEmpty();
     // state didn't get scanned, because we had the index but it was out of bounds
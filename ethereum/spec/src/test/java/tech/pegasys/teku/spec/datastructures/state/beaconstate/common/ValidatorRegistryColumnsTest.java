@@ -0,0 +1,103 @@
+/*
+ * Copyright 2022 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package tech.pegasys.teku.spec.datastructures.state.beaconstate.common;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import tech.pegasys.teku.infrastructure.unsigned.UInt64;
+import tech.pegasys.teku.spec.Spec;
+import tech.pegasys.teku.spec.TestSpecFactory;
+import tech.pegasys.teku.spec.datastructures.state.Validator;
+import tech.pegasys.teku.spec.datastructures.state.beaconstate.BeaconState;
+import tech.pegasys.teku.spec.util.DataStructureUtil;
+
+public class ValidatorRegistryColumnsTest {
+  private final Spec spec = TestSpecFactory.createMinimalAltair();
+  private final DataStructureUtil dataStructureUtil = new DataStructureUtil(spec);
+  private final BeaconState state = dataStructureUtil.randomBeaconState(1000);
+
+  @Test
+  void create_shouldCopyValidatorFields() {
+    final ValidatorRegistryColumns columns =
+        ValidatorRegistryColumns.create(state.getValidators());
+
+    assertMatchesState(columns, state);
+  }
+
+  @Test
+  void updatedTo_shouldReturnSameInstanceWhenValidatorsUnchanged() {
+    final ValidatorRegistryColumns columns =
+        ValidatorRegistryColumns.create(state.getValidators());
+    final BeaconState newState =
+        state.updated(mutableState -> mutableState.setSlot(UInt64.valueOf(100)));
+
+    assertThat(columns.updatedTo(newState.getValidators())).isSameAs(columns);
+  }
+
+  @Test
+  void updatedTo_shouldReadChangedAndAddedValidators() {
+    final ValidatorRegistryColumns columns =
+        ValidatorRegistryColumns.create(state.getValidators());
+    final BeaconState newState =
+        state.updated(
+            mutableState -> {
+              mutableState
+                  .getValidators()
+                  .update(
+                      3,
+                      validator ->
+                          validator.withSlashed(true).withWithdrawableEpoch(UInt64.valueOf(7)));
+              mutableState
+                  .getValidators()
+                  .update(
+                      700,
+                      validator ->
+                          validator
+                              .withActivationEpoch(UInt64.ZERO)
+                              .withExitEpoch(UInt64.valueOf(10))
+                              .withEffectiveBalance(UInt64.valueOf(1_000_000_000L)));
+              mutableState.getValidators().append(dataStructureUtil.randomValidator());
+            });
+
+    final ValidatorRegistryColumns updated = columns.updatedTo(newState.getValidators());
+
+    assertMatchesState(updated, newState);
+    assertThat(updated.isActive(700, UInt64.valueOf(9))).isTrue();
+    assertThat(updated.isActive(700, UInt64.valueOf(10))).isFalse();
+    // the original columns are not changed
+    assertMatchesState(columns, state);
+  }
+
+  private void assertMatchesState(final ValidatorRegistryColumns columns, final BeaconState state) {
+    assertThat(columns.size()).isEqualTo(state.getValidators().size());
+    for (int i = 0; i < columns.size(); i++) {
+      final Validator validator = state.getValidators().get(i);
+      assertThat(columns.getEffectiveBalance(i))
+          .isEqualTo(validator.getEffectiveBalance().longValue());
+      assertThat(columns.getActivationEligibilityEpoch(i))
+          .isEqualTo(validator.getActivationEligibilityEpoch().longValue());
+      assertThat(columns.getActivationEpoch(i))
+          .isEqualTo(validator.getActivationEpoch().longValue());
+      assertThat(columns.getExitEpoch(i)).isEqualTo(validator.getExitEpoch().longValue());
+      assertThat(columns.getWithdrawableEpoch(i))
+          .isEqualTo(validator.getWithdrawableEpoch().longValue());
+      assertThat(columns.isSlashed(i)).isEqualTo(validator.isSlashed());
+      assertThat(columns.isActive(i, UInt64.ONE))
+          .isEqualTo(
+              validator.getActivationEpoch().isLessThanOrEqualTo(UInt64.ONE)
+                  && UInt64.ONE.isLessThan(validator.getExitEpoch()));
+    }
+  }
+}
@@ -27,6 +27,8 @@ import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import org.apache.tuweni.bytes.Bytes;
 import org.junit.jupiter.api.Test;
+import tech.pegasys.teku.bls.BLS;
+import tech.pegasys.teku.bls.BLSKeyPair;
 import tech.pegasys.teku.bls.BLSPublicKey;
 import tech.pegasys.teku.bls.BLSSignature;
 import tech.pegasys.teku.bls.BLSTestUtil;
@@ -100,4 +102,22 @@ public class BatchSignatureVerifierTest {
     final BatchSignatureVerifier verifier = new BatchSignatureVerifier();
     assertThat(verifier.batchVerify()).isTrue();
   }
+
+  @Test
+  void shouldVerifySignaturesFromMultipleVerifiersTogether() {
+    final BLSKeyPair keyPair = BLSTestUtil.randomKeyPair(1);
+    final Bytes message = Bytes.wrap("Hello, world!".getBytes(UTF_8));
+    final BatchSignatureVerifier validVerifier = new BatchSignatureVerifier();
+    validVerifier.verify(
+        List.of(keyPair.getPublicKey()), message, BLS.sign(keyPair.getSecretKey(), message));
+    final BatchSignatureVerifier invalidVerifier = new BatchSignatureVerifier();
+    invalidVerifier.verify(
+        List.of(keyPair.getPublicKey()), message, BLSTestUtil.randomSignature(42));
+
+    assertThat(BatchSignatureVerifier.batchVerify(List.of(validVerifier, invalidVerifier)))
+        .isFalse();
+    // Instances are not disposed so subsets can be verified again
+    assertThat(BatchSignatureVerifier.batchVerify(List.of(validVerifier))).isTrue();
+    assertThat(BatchSignatureVerifier.batchVerify(List.of(invalidVerifier))).isFalse();
+  }
 }
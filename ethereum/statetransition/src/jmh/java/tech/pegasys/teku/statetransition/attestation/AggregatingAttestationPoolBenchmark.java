@@ -0,0 +1,156 @@
+/*
+ * Copyright 2022 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package tech.pegasys.teku.statetransition.attestation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.hyperledger.besu.metrics.noop.NoOpMetricsSystem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import tech.pegasys.teku.bls.BLSSignature;
+import tech.pegasys.teku.infrastructure.ssz.collections.SszBitlist;
+import tech.pegasys.teku.infrastructure.unsigned.UInt64;
+import tech.pegasys.teku.spec.Spec;
+import tech.pegasys.teku.spec.TestSpecFactory;
+import tech.pegasys.teku.spec.datastructures.attestation.ValidateableAttestation;
+import tech.pegasys.teku.spec.datastructures.operations.Attestation;
+import tech.pegasys.teku.spec.datastructures.operations.Attestation.AttestationSchema;
+import tech.pegasys.teku.spec.datastructures.operations.AttestationData;
+import tech.pegasys.teku.spec.datastructures.state.Checkpoint;
+import tech.pegasys.teku.spec.datastructures.state.beaconstate.BeaconState;
+import tech.pegasys.teku.spec.logic.common.statetransition.attestation.AttestationWorthinessChecker;
+import tech.pegasys.teku.spec.util.DataStructureUtil;
+
+/**
+ * Replays a MainNet sized stream of unaggregated gossip attestations (64 committees of 200
+ * validators per slot, 4 slots) into the pool from several threads while blocks are produced
+ * concurrently from the same pool.
+ */
+@Fork(1)
+@State(Scope.Group)
+@Warmup(iterations = 3, time = 2000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 2000, timeUnit = TimeUnit.MILLISECONDS)
+public class AggregatingAttestationPoolBenchmark {
+  private static final int SLOTS = 4;
+  private static final int COMMITTEES_PER_SLOT = 64;
+  private static final int COMMITTEE_SIZE = 200;
+
+  private final Spec spec = TestSpecFactory.createMainnetPhase0();
+  private final DataStructureUtil dataStructureUtil = new DataStructureUtil(spec);
+
+  private final List<ValidateableAttestation> attestationStream = new ArrayList<>();
+  private final AtomicInteger nextAttestation = new AtomicInteger();
+  private BeaconState stateAtBlockSlot;
+  private AttestationForkChecker forkChecker;
+  private AggregatingAttestationPool pool;
+
+  @Setup(Level.Trial)
+  public void setupStream() {
+    final UInt64 firstSlot = spec.computeStartSlotAtEpoch(UInt64.valueOf(10)).plus(1);
+    stateAtBlockSlot =
+        dataStructureUtil
+            .randomBeaconState(COMMITTEE_SIZE)
+            .updated(state -> state.setSlot(firstSlot.plus(SLOTS)));
+    forkChecker = new AttestationForkChecker(spec, stateAtBlockSlot);
+
+    final UInt64 epoch = spec.getCurrentEpoch(stateAtBlockSlot);
+    final Checkpoint source = stateAtBlockSlot.getCurrentJustifiedCheckpoint();
+    final Checkpoint target = new Checkpoint(epoch, dataStructureUtil.randomBytes32());
+    final int committeeCount = spec.getCommitteeCountPerSlot(stateAtBlockSlot, epoch).intValue();
+    final AttestationSchema attestationSchema =
+        spec.getGenesisSchemaDefinitions().getAttestationSchema();
+    // Signatures are only aggregated, never verified, so a single one can be shared
+    final BLSSignature signature = dataStructureUtil.randomSignature();
+
+    final List<List<ValidateableAttestation>> attestationsByData = new ArrayList<>();
+    for (int slot = 0; slot < SLOTS; slot++) {
+      for (int committee = 0; committee < COMMITTEES_PER_SLOT; committee++) {
+        // Use a distinct head per committee so that there are as many groups as on MainNet even
+        // if the random state has fewer committees
+        final AttestationData data =
+            new AttestationData(
+                firstSlot.plus(slot),
+                UInt64.valueOf(committee % committeeCount),
+                dataStructureUtil.randomBytes32(),
+                source,
+                target);
+        final List<ValidateableAttestation> attestations = new ArrayList<>();
+        for (int validator = 0; validator < COMMITTEE_SIZE; validator++) {
+          final SszBitlist bits =
+              attestationSchema.getAggregationBitsSchema().ofBits(COMMITTEE_SIZE, validator);
+          final ValidateableAttestation attestation =
+              ValidateableAttestation.from(spec, attestationSchema.create(bits, data, signature));
+          attestation.saveCommitteeShufflingSeed(stateAtBlockSlot);
+          attestations.add(attestation);
+        }
+        attestationsByData.add(attestations);
+      }
+    }
+    // Interleave committees like attestations arriving from all subnets at once
+    for (int validator = 0; validator < COMMITTEE_SIZE; validator++) {
+      for (List<ValidateableAttestation> attestations : attestationsByData) {
+        attestationStream.add(attestations.get(validator));
+      }
+    }
+  }
+
+  @Setup(Level.Iteration)
+  public void setupPool() {
+    pool =
+        new AggregatingAttestationPool(
+            spec,
+            new NoOpMetricsSystem(),
+            AggregatingAttestationPool.DEFAULT_MAXIMUM_ATTESTATION_COUNT);
+    nextAttestation.set(0);
+  }
+
+  @Benchmark
+  @Group("gossipAndBlockProduction")
+  @GroupThreads(4)
+  public void gossip() {
+    final int index = nextAttestation.getAndIncrement() % attestationStream.size();
+    pool.add(attestationStream.get(index));
+  }
+
+  @Benchmark
+  @Group("gossipAndBlockProduction")
+  @GroupThreads(1)
+  public void blockProduction(final Blackhole bh) {
+    bh.consume(
+        pool.getAttestationsForBlock(
+            stateAtBlockSlot, forkChecker, AttestationWorthinessChecker.NOOP));
+  }
+
+  @Benchmark
+  public void replayStream(final Blackhole bh) {
+    final AggregatingAttestationPool replayPool =
+        new AggregatingAttestationPool(
+            spec,
+            new NoOpMetricsSystem(),
+            AggregatingAttestationPool.DEFAULT_MAXIMUM_ATTESTATION_COUNT);
+    attestationStream.forEach(replayPool::add);
+    bh.consume(replayPool.getSize());
+  }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2022 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package tech.pegasys.teku.statetransition;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.tuweni.bytes.Bytes32;
+import org.hyperledger.besu.plugin.services.MetricsSystem;
+import org.hyperledger.besu.plugin.services.metrics.Counter;
+import org.hyperledger.besu.plugin.services.metrics.LabelledMetric;
+import tech.pegasys.teku.infrastructure.async.SafeFuture;
+import tech.pegasys.teku.infrastructure.metrics.MetricsHistogram;
+import tech.pegasys.teku.infrastructure.metrics.TekuMetricCategory;
+import tech.pegasys.teku.infrastructure.unsigned.UInt64;
+import tech.pegasys.teku.spec.Spec;
+import tech.pegasys.teku.spec.datastructures.blocks.SlotAndBlockRoot;
+import tech.pegasys.teku.spec.datastructures.forkchoice.ProtoNodeData;
+import tech.pegasys.teku.spec.datastructures.forkchoice.ReadOnlyForkChoiceStrategy;
+import tech.pegasys.teku.spec.datastructures.state.beaconstate.BeaconState;
+import tech.pegasys.teku.storage.client.RecentChainData;
+
+/**
+ * Computes the checkpoint states for the start of an upcoming epoch before any attestations
+ * targeting that epoch arrive, so gossip validation finds them in the store's checkpoint state
+ * cache rather than waiting for the epoch transition to be processed.
+ *
+ * <p>States are computed for the current head and the heaviest other chain heads from the previous
+ * epoch, as attestations may target any of them. Once the canonical chain for an epoch is known,
+ * each precomputed state is counted as a hit if it was for the canonical checkpoint and wasted
+ * otherwise.
+ */
+public class CheckpointStatePrecomputer {
+  private static final Logger LOG = LogManager.getLogger();
+  static final int MAX_FORK_HEADS = 2;
+
+  private final Spec spec;
+  private final RecentChainData recentChainData;
+  private final LabelledMetric<Counter> outcomeCounter;
+  private final MetricsHistogram precomputeTimeHistogram;
+
+  private final List<SlotAndBlockRoot> unresolvedCheckpoints = new ArrayList<>();
+
+  public CheckpointStatePrecomputer(
+      final Spec spec, final RecentChainData recentChainData, final MetricsSystem metricsSystem) {
+    this.spec = spec;
+    this.recentChainData = recentChainData;
+    this.outcomeCounter =
+        metricsSystem.createLabelledCounter(
+            TekuMetricCategory.BEACON,
+            "checkpoint_state_precompute_total",
+            "Total number of precomputed checkpoint states by whether they were for the canonical "
+                + "checkpoint (hit), another fork (wasted) or could not be computed (failed)",
+            "outcome");
+    this.precomputeTimeHistogram =
+        MetricsHistogram.create(
+            TekuMetricCategory.BEACON,
+            metricsSystem,
+            "checkpoint_state_precompute_time",
+            "Histogram of milliseconds taken to precompute each checkpoint state",
+            3,
+            List.of());
+  }
+
+  /**
+   * Computes and caches the checkpoint states for the start of the epoch.
+   *
+   * @param epoch the upcoming epoch
+   * @param headRoot the root of the current head block
+   * @return the checkpoint state for the current head
+   */
+  public synchronized SafeFuture<Optional<BeaconState>> precompute(
+      final UInt64 epoch, final Bytes32 headRoot) {
+    resolveOutcomes();
+
+    final UInt64 firstSlot = spec.computeStartSlotAtEpoch(epoch);
+    final List<SlotAndBlockRoot> checkpoints = new ArrayList<>();
+    checkpoints.add(new SlotAndBlockRoot(firstSlot, headRoot));
+    recentChainData
+        .getForkChoiceStrategy()
+        .ifPresent(
+            forkChoiceStrategy ->
+                selectForkHeads(forkChoiceStrategy, firstSlot, headRoot)
+                    .forEach(root -> checkpoints.add(new SlotAndBlockRoot(firstSlot, root))));
+    unresolvedCheckpoints.addAll(checkpoints);
+
+    final SafeFuture<Optional<BeaconState>> headState = computeState(checkpoints.get(0));
+    checkpoints.stream()
+        .skip(1)
+        .forEach(checkpoint -> computeState(checkpoint).ifExceptionGetsHereRaiseABug());
+    return headState;
+  }
+
+  private List<Bytes32> selectForkHeads(
+      final ReadOnlyForkChoiceStrategy forkChoiceStrategy,
+      final UInt64 firstSlot,
+      final Bytes32 headRoot) {
+    final UInt64 earliestSlot = firstSlot.minusMinZero(spec.getSlotsPerEpoch(firstSlot));
+    return forkChoiceStrategy.getChainHeads().stream()
+        .filter(
+            head ->
+                !head.getRoot().equals(headRoot)
+                    && head.getSlot().isGreaterThanOrEqualTo(earliestSlot)
+                    && head.getSlot().isLessThan(firstSlot))
+        .map(ProtoNodeData::getRoot)
+        .sorted(
+            Comparator.comparing(
+                    (Bytes32 root) -> forkChoiceStrategy.getWeight(root).orElse(UInt64.ZERO))
+                .reversed())
+        .limit(MAX_FORK_HEADS)
+        .collect(Collectors.toList());
+  }
+
+  private SafeFuture<Optional<BeaconState>> computeState(final SlotAndBlockRoot checkpoint) {
+    final long startTimeNanos = System.nanoTime();
+    return recentChainData
+        .retrieveStateAtSlot(checkpoint)
+        .thenPeek(
+            __ ->
+                precomputeTimeHistogram.recordValue(
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTimeNanos)))
+        .exceptionally(
+            error -> {
+              LOG.warn("Failed to precompute checkpoint state for {}", checkpoint, error);
+              outcomeCounter.labels("failed").inc();
+              removeUnresolvedCheckpoint(checkpoint);
+              return Optional.empty();
+            });
+  }
+
+  private synchronized void removeUnresolvedCheckpoint(final SlotAndBlockRoot checkpoint) {
+    unresolvedCheckpoints.remove(checkpoint);
+  }
+
+  private void resolveOutcomes() {
+    unresolvedCheckpoints.forEach(
+        checkpoint -> {
+          final boolean canonical =
+              recentChainData
+                  .getBlockRootBySlot(checkpoint.getSlot())
+                  .map(root -> root.equals(checkpoint.getBlockRoot()))
+                  .orElse(false);
+          outcomeCounter.labels(canonical ? "hit" : "wasted").inc();
+        });
+    unresolvedCheckpoints.clear();
+  }
+}
@@ -18,7 +18,6 @@ import org.apache.logging.log4j.Logger;
 import tech.pegasys.teku.infrastructure.unsigned.UInt64;
 import tech.pegasys.teku.spec.Spec;
 import tech.pegasys.teku.spec.datastructures.blocks.MinimalBeaconBlockSummary;
-import tech.pegasys.teku.spec.datastructures.blocks.SlotAndBlockRoot;
 import tech.pegasys.teku.spec.datastructures.state.beaconstate.BeaconState;
 import tech.pegasys.teku.spec.logic.common.util.BeaconStateUtil;
 import tech.pegasys.teku.storage.client.RecentChainData;
@@ -28,10 +27,15 @@ public class EpochCachePrimer {
 
   private final Spec spec;
   private final RecentChainData recentChainData;
+  private final CheckpointStatePrecomputer checkpointStatePrecomputer;
 
-  public EpochCachePrimer(final Spec spec, final RecentChainData recentChainData) {
+  public EpochCachePrimer(
+      final Spec spec,
+      final RecentChainData recentChainData,
+      final CheckpointStatePrecomputer checkpointStatePrecomputer) {
     this.spec = spec;
     this.recentChainData = recentChainData;
+    this.checkpointStatePrecomputer = checkpointStatePrecomputer;
   }
 
   public void primeCacheForEpoch(final UInt64 epoch) {
@@ -45,8 +49,8 @@ public class EpochCachePrimer {
                     && isAfterHeadBlockEpoch(epoch, headBlock))
         .ifPresent(
             headBlock ->
-                recentChainData
-                    .retrieveStateAtSlot(new SlotAndBlockRoot(firstSlot, headBlock.getRoot()))
+                checkpointStatePrecomputer
+                    .precompute(epoch, headBlock.getRoot())
                     .finish(
                         maybeState -> maybeState.ifPresent(this::primeEpochStateCaches),
                         error -> LOG.warn("Failed to precompute epoch transition", error)));
@@ -14,22 +14,27 @@
 package tech.pegasys.teku.statetransition.attestation;
 
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
-import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import org.apache.tuweni.bytes.Bytes;
 import org.apache.tuweni.bytes.Bytes32;
 import org.hyperledger.besu.plugin.services.MetricsSystem;
 import tech.pegasys.teku.ethereum.events.SlotEventsChannel;
+import tech.pegasys.teku.infrastructure.metrics.MetricsHistogram;
 import tech.pegasys.teku.infrastructure.metrics.SettableGauge;
 import tech.pegasys.teku.infrastructure.metrics.TekuMetricCategory;
 import tech.pegasys.teku.infrastructure.ssz.SszList;
@@ -47,6 +52,12 @@ import tech.pegasys.teku.spec.logic.common.statetransition.attestation.Attestati
  * or as an aggregate to publish as part of the naive attestation aggregation algorithm. In both
  * cases the returned attestations are aggregated to maximise the number of validators that can be
  * included.
+ *
+ * <p>Attestation groups are sharded by slot and by data hash in concurrent maps. Gossip threads add
+ * attestations and block production reads them while holding the shared read lock, so neither
+ * blocks the other and adding to a {@link MatchingDataAttestationGroup} doesn't lock. Only
+ * structural changes (pruning, block inclusion and reorgs) take the exclusive write lock, which
+ * ensures that a group is never removed while it's being created or read.
  */
 public class AggregatingAttestationPool implements SlotEventsChannel {
   /**
@@ -71,13 +82,21 @@ public class AggregatingAttestationPool implements SlotEventsChannel {
    */
   public static final int DEFAULT_MAXIMUM_ATTESTATION_COUNT = 40_000;
 
+  static final String ADD_OPERATION = "add";
+  static final String BLOCK_PRODUCTION_OPERATION = "get_attestations_for_block";
+
   private final Map<Bytes, MatchingDataAttestationGroup> attestationGroupByDataHash =
-      new HashMap<>();
-  private final NavigableMap<UInt64, Set<Bytes>> dataHashBySlot = new TreeMap<>();
+      new ConcurrentHashMap<>();
+  private final NavigableMap<UInt64, Set<Bytes>> dataHashBySlot = new ConcurrentSkipListMap<>();
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final Lock readLock = lock.readLock();
+  private final Lock writeLock = lock.writeLock();
 
   private final Spec spec;
   private final AtomicInteger size = new AtomicInteger(0);
   private final SettableGauge sizeGauge;
+  private final MetricsHistogram operationDurationHistogram;
   private final int maximumAttestationCount;
 
   public AggregatingAttestationPool(
@@ -89,15 +108,35 @@ public class AggregatingAttestationPool implements SlotEventsChannel {
             TekuMetricCategory.BEACON,
             "attestation_pool_size",
             "The number of attestations available to be included in proposed blocks");
+    this.operationDurationHistogram =
+        MetricsHistogram.create(
+            TekuMetricCategory.BEACON,
+            metricsSystem,
+            "attestation_pool_operation_duration",
+            "Histogram of attestation pool operation durations in microseconds",
+            3,
+            List.of("operation"));
     this.maximumAttestationCount = maximumAttestationCount;
   }
 
-  public synchronized void add(final ValidateableAttestation attestation) {
+  public void add(final ValidateableAttestation attestation) {
+    final long startTime = System.nanoTime();
     final AttestationData attestationData = attestation.getAttestation().getData();
-    final boolean add = getOrCreateAttestationGroup(attestationData).add(attestation);
-    if (add) {
-      updateSize(1);
+    runWithLock(
+        readLock,
+        () -> {
+          // Update size while still holding the lock so the group can't be pruned in between
+          if (getOrCreateAttestationGroup(attestationData).add(attestation)) {
+            updateSize(1);
+          }
+        });
+    if (size.get() > maximumAttestationCount) {
+      runWithLock(writeLock, this::pruneToMaximumAttestationCount);
     }
+    recordDuration(ADD_OPERATION, startTime);
+  }
+
+  private void pruneToMaximumAttestationCount() {
     // Always keep the latest slot attestations so we don't discard everything
     while (dataHashBySlot.size() > 1 && size.get() > maximumAttestationCount) {
       final UInt64 firstSlotToKeep = dataHashBySlot.firstKey().plus(1);
@@ -108,7 +147,7 @@ public class AggregatingAttestationPool implements SlotEventsChannel {
   private MatchingDataAttestationGroup getOrCreateAttestationGroup(
       final AttestationData attestationData) {
     dataHashBySlot
-        .computeIfAbsent(attestationData.getSlot(), slot -> new HashSet<>())
+        .computeIfAbsent(attestationData.getSlot(), slot -> ConcurrentHashMap.newKeySet())
         .add(attestationData.hashTreeRoot());
     return attestationGroupByDataHash.computeIfAbsent(
         attestationData.hashTreeRoot(),
@@ -116,12 +155,12 @@ public class AggregatingAttestationPool implements SlotEventsChannel {
   }
 
   @Override
-  public synchronized void onSlot(final UInt64 slot) {
+  public void onSlot(final UInt64 slot) {
     if (slot.compareTo(ATTESTATION_RETENTION_SLOTS) <= 0) {
       return;
     }
     final UInt64 firstValidAttestationSlot = slot.minus(ATTESTATION_RETENTION_SLOTS);
-    removeAttestationsPriorToSlot(firstValidAttestationSlot);
+    runWithLock(writeLock, () -> removeAttestationsPriorToSlot(firstValidAttestationSlot));
   }
 
   private void removeAttestationsPriorToSlot(final UInt64 firstValidAttestationSlot) {
@@ -138,9 +177,11 @@ public class AggregatingAttestationPool implements SlotEventsChannel {
     dataHashesToRemove.clear();
   }
 
-  public synchronized void onAttestationsIncludedInBlock(
+  public void onAttestationsIncludedInBlock(
       final UInt64 slot, final Iterable<Attestation> attestations) {
-    attestations.forEach(attestation -> onAttestationIncludedInBlock(slot, attestation));
+    runWithLock(
+        writeLock,
+        () -> attestations.forEach(attestation -> onAttestationIncludedInBlock(slot, attestation)));
   }
 
   private void onAttestationIncludedInBlock(final UInt64 slot, final Attestation attestation) {
@@ -155,11 +196,24 @@ public class AggregatingAttestationPool implements SlotEventsChannel {
     sizeGauge.set(currentSize);
   }
 
-  public synchronized int getSize() {
+  public int getSize() {
     return size.get();
   }
 
-  public synchronized SszList<Attestation> getAttestationsForBlock(
+  public SszList<Attestation> getAttestationsForBlock(
+      final BeaconState stateAtBlockSlot,
+      final AttestationForkChecker forkChecker,
+      final AttestationWorthinessChecker worthinessChecker) {
+    final long startTime = System.nanoTime();
+    final SszList<Attestation> attestations =
+        withLock(
+            readLock,
+            () -> selectAttestationsForBlock(stateAtBlockSlot, forkChecker, worthinessChecker));
+    recordDuration(BLOCK_PRODUCTION_OPERATION, startTime);
+    return attestations;
+  }
+
+  private SszList<Attestation> selectAttestationsForBlock(
       final BeaconState stateAtBlockSlot,
       final AttestationForkChecker forkChecker,
       final AttestationWorthinessChecker worthinessChecker) {
@@ -199,7 +253,12 @@ public class AggregatingAttestationPool implements SlotEventsChannel {
         .collect(attestationsSchema.collector());
   }
 
-  public synchronized List<Attestation> getAttestations(
+  public List<Attestation> getAttestations(
+      final Optional<UInt64> maybeSlot, final Optional<UInt64> maybeCommitteeIndex) {
+    return withLock(readLock, () -> selectAttestations(maybeSlot, maybeCommitteeIndex));
+  }
+
+  private List<Attestation> selectAttestations(
       final Optional<UInt64> maybeSlot, final Optional<UInt64> maybeCommitteeIndex) {
     final Predicate<Map.Entry<UInt64, Set<Bytes>>> filterForSlot =
         (entry) -> maybeSlot.map(slot -> entry.getKey().equals(slot)).orElse(true);
@@ -227,13 +286,44 @@ public class AggregatingAttestationPool implements SlotEventsChannel {
     return spec.validateAttestation(stateAtBlockSlot, attestationData).isEmpty();
   }
 
-  public synchronized Optional<ValidateableAttestation> createAggregateFor(
+  public Optional<ValidateableAttestation> createAggregateFor(
       final Bytes32 attestationHashTreeRoot) {
-    return Optional.ofNullable(attestationGroupByDataHash.get(attestationHashTreeRoot))
-        .flatMap(attestations -> attestations.stream().findFirst());
+    return withLock(
+        readLock,
+        () ->
+            Optional.ofNullable(attestationGroupByDataHash.get(attestationHashTreeRoot))
+                .flatMap(attestations -> attestations.stream().findFirst()));
   }
 
-  public synchronized void onReorg(final UInt64 commonAncestorSlot) {
-    attestationGroupByDataHash.values().forEach(group -> group.onReorg(commonAncestorSlot));
+  public void onReorg(final UInt64 commonAncestorSlot) {
+    runWithLock(
+        writeLock,
+        () ->
+            attestationGroupByDataHash
+                .values()
+                .forEach(group -> group.onReorg(commonAncestorSlot)));
+  }
+
+  private void recordDuration(final String operation, final long startTimeNanos) {
+    operationDurationHistogram.recordValue(
+        TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startTimeNanos), operation);
+  }
+
+  private static void runWithLock(final Lock lock, final Runnable action) {
+    lock.lock();
+    try {
+      action.run();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private static <T> T withLock(final Lock lock, final Supplier<T> action) {
+    lock.lock();
+    try {
+      return action.get();
+    } finally {
+      lock.unlock();
+    }
   }
 }
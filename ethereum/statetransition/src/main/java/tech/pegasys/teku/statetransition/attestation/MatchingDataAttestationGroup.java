@@ -13,14 +13,14 @@
 
 package tech.pegasys.teku.statetransition.attestation;
 
-import java.util.Collection;
 import java.util.Comparator;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.NavigableMap;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 import org.apache.tuweni.bytes.Bytes32;
@@ -42,14 +42,19 @@ import tech.pegasys.teku.spec.datastructures.operations.AttestationData;
  *
  * <p>Note that the resulting aggregate will be invalid if attestations with different
  * AttestationData are added.
+ *
+ * <p>{@link #add(ValidateableAttestation)} doesn't take any lock so attestations can be added
+ * concurrently from multiple gossip threads and while aggregates are being iterated. Updates of the
+ * included validators ({@link #onAttestationIncludedInBlock(UInt64, Attestation)} and {@link
+ * #onReorg(UInt64)}) are serialized with each other but never block additions.
  */
 class MatchingDataAttestationGroup implements Iterable<ValidateableAttestation> {
 
   private final NavigableMap<Integer, Set<ValidateableAttestation>> attestationsByValidatorCount =
-      new TreeMap<>(Comparator.reverseOrder()); // Most validators first
+      new ConcurrentSkipListMap<>(Comparator.reverseOrder()); // Most validators first
 
   private final Spec spec;
-  private Optional<Bytes32> committeeShufflingSeed = Optional.empty();
+  private volatile Optional<Bytes32> committeeShufflingSeed = Optional.empty();
   private final AttestationData attestationData;
 
   /**
@@ -67,7 +72,7 @@ class MatchingDataAttestationGroup implements Iterable<ValidateableAttestation>
   private final NavigableMap<UInt64, SszBitlist> includedValidatorsBySlot = new TreeMap<>();
 
   /** Precalculated combined list of included validators across all blocks. */
-  private SszBitlist includedValidators;
+  private volatile SszBitlist includedValidators;
 
   public MatchingDataAttestationGroup(final Spec spec, final AttestationData attestationData) {
     this.spec = spec;
@@ -104,7 +109,7 @@ class MatchingDataAttestationGroup implements Iterable<ValidateableAttestation>
     return attestationsByValidatorCount
         .computeIfAbsent(
             attestation.getAttestation().getAggregationBits().getBitCount(),
-            count -> new HashSet<>())
+            count -> ConcurrentHashMap.newKeySet())
         .add(attestation);
   }
 
@@ -133,7 +138,8 @@ class MatchingDataAttestationGroup implements Iterable<ValidateableAttestation>
    * @return true if this group is empty.
    */
   public boolean isEmpty() {
-    return attestationsByValidatorCount.isEmpty();
+    // Emptied sets are retained so that a concurrent add can't insert into a detached set
+    return attestationsByValidatorCount.values().stream().allMatch(Set::isEmpty);
   }
 
   public int size() {
@@ -148,7 +154,8 @@ class MatchingDataAttestationGroup implements Iterable<ValidateableAttestation>
    *
    * @param attestation the attestation to logically remove from the pool.
    */
-  public int onAttestationIncludedInBlock(final UInt64 slot, final Attestation attestation) {
+  public synchronized int onAttestationIncludedInBlock(
+      final UInt64 slot, final Attestation attestation) {
     // Record validators in attestation as seen in this slot
     // Important to do even if the attestation is redundant so we handle re-orgs correctly
     includedValidatorsBySlot.merge(slot, attestation.getAggregationBits(), SszBitlist::or);
@@ -159,11 +166,8 @@ class MatchingDataAttestationGroup implements Iterable<ValidateableAttestation>
     }
     includedValidators = includedValidators.or(attestation.getAggregationBits());
 
-    final Collection<Set<ValidateableAttestation>> attestationSets =
-        attestationsByValidatorCount.values();
     int numRemoved = 0;
-    for (Iterator<Set<ValidateableAttestation>> i = attestationSets.iterator(); i.hasNext(); ) {
-      final Set<ValidateableAttestation> candidates = i.next();
+    for (Set<ValidateableAttestation> candidates : attestationsByValidatorCount.values()) {
       for (Iterator<ValidateableAttestation> iterator = candidates.iterator();
           iterator.hasNext(); ) {
         ValidateableAttestation candidate = iterator.next();
@@ -172,14 +176,11 @@ class MatchingDataAttestationGroup implements Iterable<ValidateableAttestation>
           numRemoved++;
         }
       }
-      if (candidates.isEmpty()) {
-        i.remove();
-      }
     }
     return numRemoved;
   }
 
-  public void onReorg(final UInt64 commonAncestorSlot) {
+  public synchronized void onReorg(final UInt64 commonAncestorSlot) {
     final NavigableMap<UInt64, SszBitlist> removedSlots =
         includedValidatorsBySlot.tailMap(commonAncestorSlot, false);
     if (removedSlots.isEmpty()) {
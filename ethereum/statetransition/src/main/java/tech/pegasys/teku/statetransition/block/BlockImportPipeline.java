@@ -0,0 +1,322 @@
+/*
+ * Copyright 2022 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package tech.pegasys.teku.statetransition.block;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import org.hyperledger.besu.plugin.services.MetricsSystem;
+import tech.pegasys.teku.infrastructure.async.AsyncRunner;
+import tech.pegasys.teku.infrastructure.async.SafeFuture;
+import tech.pegasys.teku.infrastructure.metrics.MetricsHistogram;
+import tech.pegasys.teku.infrastructure.metrics.TekuMetricCategory;
+import tech.pegasys.teku.spec.Spec;
+import tech.pegasys.teku.spec.datastructures.blocks.SignedBeaconBlock;
+import tech.pegasys.teku.spec.datastructures.blocks.SlotAndBlockRoot;
+import tech.pegasys.teku.spec.datastructures.state.beaconstate.BeaconState;
+import tech.pegasys.teku.spec.logic.common.statetransition.blockvalidator.BatchSignatureVerifier;
+import tech.pegasys.teku.spec.logic.common.statetransition.results.BlockImportResult;
+import tech.pegasys.teku.statetransition.forkchoice.ForkChoice.ProcessedBlock;
+import tech.pegasys.teku.storage.client.RecentChainData;
+
+/**
+ * Imports a chain of blocks, running the state transition for later blocks while earlier blocks
+ * are still being applied to fork choice and written to storage.
+ *
+ * <p>Each block is processed on top of the post state of the block before it, rather than waiting
+ * for that block to be imported and loading its state back from the store. Blocks are still
+ * imported strictly in order and no block is imported unless all blocks before it imported
+ * successfully.
+ *
+ * <p>Signature checks are deferred while blocks are processed and the signatures of each group of
+ * up to {@code maxBlocksPerVerification} consecutive blocks are then verified in a single BLS
+ * batch, so a whole sync batch is normally verified at once. The blocks of a group are processed
+ * ahead of any of them being imported and the next group is only processed once the previous one
+ * is imported, which bounds the number of post states held in memory to two groups. If a group
+ * contains an invalid signature it is bisected to find the first invalid block, which is passed to
+ * the regular import so the failure is reported as usual.
+ */
+public class BlockImportPipeline {
+  private static final String STAGE_PRE_STATE = "pre_state";
+  private static final String STAGE_TRANSITION = "transition";
+  private static final String STAGE_SIGNATURES = "signatures";
+  private static final String STAGE_IMPORT = "import";
+
+  private final Spec spec;
+  private final RecentChainData recentChainData;
+  private final BlockImporter blockImporter;
+  private final AsyncRunner asyncRunner;
+  private final int maxBlocksPerVerification;
+  private final Predicate<List<BatchSignatureVerifier>> batchVerifier;
+  private final MetricsHistogram stageTimeHistogram;
+
+  public BlockImportPipeline(
+      final Spec spec,
+      final RecentChainData recentChainData,
+      final BlockImporter blockImporter,
+      final AsyncRunner asyncRunner,
+      final MetricsSystem metricsSystem,
+      final int maxBlocksPerVerification) {
+    this(
+        spec,
+        recentChainData,
+        blockImporter,
+        asyncRunner,
+        metricsSystem,
+        maxBlocksPerVerification,
+        BatchSignatureVerifier::batchVerify);
+  }
+
+  @VisibleForTesting
+  BlockImportPipeline(
+      final Spec spec,
+      final RecentChainData recentChainData,
+      final BlockImporter blockImporter,
+      final AsyncRunner asyncRunner,
+      final MetricsSystem metricsSystem,
+      final int maxBlocksPerVerification,
+      final Predicate<List<BatchSignatureVerifier>> batchVerifier) {
+    checkArgument(maxBlocksPerVerification > 0, "Max blocks per verification must be positive");
+    this.spec = spec;
+    this.recentChainData = recentChainData;
+    this.blockImporter = blockImporter;
+    this.asyncRunner = asyncRunner;
+    this.maxBlocksPerVerification = maxBlocksPerVerification;
+    this.batchVerifier = batchVerifier;
+    this.stageTimeHistogram =
+        MetricsHistogram.create(
+            TekuMetricCategory.BEACON,
+            metricsSystem,
+            "block_import_pipeline_stage_time",
+            "Histogram of milliseconds spent in each stage of the block import pipeline",
+            3,
+            List.of("stage"));
+  }
+
+  /**
+   * Import the specified blocks in order.
+   *
+   * @param blocks the blocks to import, each normally the parent of the next
+   * @return the result of importing the last block, or the first failed result
+   */
+  public SafeFuture<BlockImportResult> importBlocks(final List<SignedBeaconBlock> blocks) {
+    checkArgument(!blocks.isEmpty(), "No blocks to import");
+    final List<SafeFuture<BlockImportResult>> importResults = new ArrayList<>();
+    SafeFuture<Optional<ProcessedBlock>> previousProcessedBlock = null;
+    int groupStart = 0;
+    while (groupStart < blocks.size()) {
+      // Don't process blocks of this group until the previous group is imported and stop
+      // processing blocks once an import has failed. A block which doesn't build on the previous
+      // block waits for that block to be imported so starts a new group.
+      final SafeFuture<Boolean> continueProcessing =
+          groupStart > 0
+              ? importResults.get(groupStart - 1).thenApply(BlockImportResult::isSuccessful)
+              : SafeFuture.completedFuture(true);
+      final List<SafeFuture<Optional<ProcessedBlock>>> groupProcessedBlocks = new ArrayList<>();
+      final List<BatchSignatureVerifier> groupSignatureVerifiers = new ArrayList<>();
+      int groupEnd = groupStart;
+      do {
+        final BatchSignatureVerifier signatureVerifier = new BatchSignatureVerifier();
+        final SafeFuture<Optional<ProcessedBlock>> processedBlock =
+            processBlock(
+                blocks,
+                groupEnd,
+                importResults,
+                previousProcessedBlock,
+                continueProcessing,
+                signatureVerifier);
+        groupProcessedBlocks.add(processedBlock);
+        groupSignatureVerifiers.add(signatureVerifier);
+        previousProcessedBlock = processedBlock;
+        groupEnd++;
+      } while (groupEnd < blocks.size()
+          && groupEnd - groupStart < maxBlocksPerVerification
+          && isChildOfPreviousBlock(blocks, groupEnd));
+
+      final SafeFuture<Integer> verifiedBlockCount =
+          verifySignatures(groupProcessedBlocks, groupSignatureVerifiers);
+      for (int i = groupStart; i < groupEnd; i++) {
+        final SafeFuture<BlockImportResult> previousImport =
+            i > 0 ? importResults.get(i - 1) : null;
+        final int indexInGroup = i - groupStart;
+        importResults.add(
+            importBlock(
+                previousImport,
+                groupProcessedBlocks.get(indexInGroup),
+                verifiedBlockCount.thenApply(count -> indexInGroup < count)));
+      }
+      groupStart = groupEnd;
+    }
+    return importResults.get(importResults.size() - 1);
+  }
+
+  private boolean isChildOfPreviousBlock(final List<SignedBeaconBlock> blocks, final int index) {
+    return index > 0 && blocks.get(index).getParentRoot().equals(blocks.get(index - 1).getRoot());
+  }
+
+  private SafeFuture<Optional<ProcessedBlock>> processBlock(
+      final List<SignedBeaconBlock> blocks,
+      final int index,
+      final List<SafeFuture<BlockImportResult>> importResults,
+      final SafeFuture<Optional<ProcessedBlock>> previousProcessedBlock,
+      final SafeFuture<Boolean> continueProcessing,
+      final BatchSignatureVerifier signatureVerifier) {
+    final SignedBeaconBlock block = blocks.get(index);
+    final SafeFuture<Optional<BeaconState>> preState;
+    if (isChildOfPreviousBlock(blocks, index)) {
+      preState = previousProcessedBlock.thenApply(this::getPostState);
+    } else {
+      // The parent isn't the previous block in the list so load its state from the store once
+      // anything it may depend on has been imported.
+      preState =
+          (index > 0 ? importResults.get(index - 1).toVoid() : SafeFuture.COMPLETE)
+              .thenCompose(__ -> retrievePreState(block));
+    }
+    return preState
+        .thenCombine(
+            continueProcessing,
+            (state, shouldContinue) -> shouldContinue ? state : Optional.<BeaconState>empty())
+        .thenCompose(
+            state -> asyncRunner.runAsync(() -> processBlock(block, state, signatureVerifier)));
+  }
+
+  private Optional<BeaconState> getPostState(final Optional<ProcessedBlock> processedBlock) {
+    return processedBlock.flatMap(ProcessedBlock::getPostState);
+  }
+
+  private SafeFuture<Optional<BeaconState>> retrievePreState(final SignedBeaconBlock block) {
+    final long startTime = System.nanoTime();
+    return recentChainData
+        .retrieveStateAtSlot(new SlotAndBlockRoot(block.getSlot(), block.getParentRoot()))
+        .thenPeek(__ -> recordStageTime(STAGE_PRE_STATE, startTime));
+  }
+
+  private Optional<ProcessedBlock> processBlock(
+      final SignedBeaconBlock block,
+      final Optional<BeaconState> maybePreState,
+      final BatchSignatureVerifier signatureVerifier)
+      throws Exception {
+    if (maybePreState.isEmpty()) {
+      return Optional.empty();
+    }
+    final long startTime = System.nanoTime();
+    final BeaconState preState = maybePreState.get();
+    final BeaconState blockSlotState =
+        preState.getSlot().isLessThan(block.getSlot())
+            ? spec.processSlots(preState, block.getSlot())
+            : preState;
+    final ProcessedBlock processedBlock =
+        blockImporter.processBlock(block, blockSlotState, signatureVerifier);
+    recordStageTime(STAGE_TRANSITION, startTime);
+    return Optional.of(processedBlock);
+  }
+
+  /**
+   * Verifies the signatures collected while processing a group of blocks.
+   *
+   * @return a future containing the number of blocks, from the start of the group, which were
+   *     processed successfully and whose signatures are valid
+   */
+  private SafeFuture<Integer> verifySignatures(
+      final List<SafeFuture<Optional<ProcessedBlock>>> processedBlocks,
+      final List<BatchSignatureVerifier> signatureVerifiers) {
+    // A block which failed to process only stops the verification at that block, the blocks
+    // before it are still verified and imported
+    return SafeFuture.collectAll(
+            processedBlocks.stream()
+                .map(
+                    processedBlock ->
+                        processedBlock
+                            .thenApply(result -> getPostState(result).isPresent())
+                            .exceptionally(error -> false)))
+        .thenCompose(
+            processed ->
+                asyncRunner.runAsync(
+                    () -> {
+                      final int processedCount =
+                          processed.contains(false) ? processed.indexOf(false) : processed.size();
+                      final long startTime = System.nanoTime();
+                      final int verifiedCount =
+                          countValidSignatures(signatureVerifiers.subList(0, processedCount));
+                      recordStageTime(STAGE_SIGNATURES, startTime);
+                      return verifiedCount;
+                    }));
+  }
+
+  private int countValidSignatures(final List<BatchSignatureVerifier> signatureVerifiers) {
+    if (signatureVerifiers.isEmpty() || batchVerifier.test(signatureVerifiers)) {
+      return signatureVerifiers.size();
+    }
+    return findFirstInvalid(signatureVerifiers, 0, signatureVerifiers.size());
+  }
+
+  /** Bisects a range of verifiers known to contain an invalid signature to find the first one. */
+  private int findFirstInvalid(
+      final List<BatchSignatureVerifier> signatureVerifiers, final int from, final int to) {
+    if (to - from == 1) {
+      return from;
+    }
+    final int mid = (from + to) >>> 1;
+    if (!batchVerifier.test(signatureVerifiers.subList(from, mid))) {
+      return findFirstInvalid(signatureVerifiers, from, mid);
+    }
+    return findFirstInvalid(signatureVerifiers, mid, to);
+  }
+
+  private SafeFuture<BlockImportResult> importBlock(
+      final SafeFuture<BlockImportResult> previousImport,
+      final SafeFuture<Optional<ProcessedBlock>> processedBlock,
+      final SafeFuture<Boolean> signaturesVerified) {
+    final SafeFuture<BlockImportResult> readyToImport =
+        previousImport != null ? previousImport : SafeFuture.completedFuture(null);
+    return readyToImport.thenCompose(
+        previousResult -> {
+          if (previousResult != null && !previousResult.isSuccessful()) {
+            return SafeFuture.completedFuture(previousResult);
+          }
+          return processedBlock
+              .thenCombine(signaturesVerified, this::importProcessedBlock)
+              .thenCompose(result -> result)
+              .exceptionally(BlockImportResult::internalError);
+        });
+  }
+
+  private SafeFuture<BlockImportResult> importProcessedBlock(
+      final Optional<ProcessedBlock> maybeProcessedBlock, final boolean signaturesVerified) {
+    if (maybeProcessedBlock.isEmpty()) {
+      return SafeFuture.completedFuture(BlockImportResult.FAILED_UNKNOWN_PARENT);
+    }
+    final ProcessedBlock processedBlock = maybeProcessedBlock.get();
+    if (!signaturesVerified && processedBlock.getPostState().isPresent()) {
+      // The block has an invalid signature so import it through the regular path, which verifies
+      // its signatures again and reports the failure
+      return blockImporter.importBlock(processedBlock.getBlock());
+    }
+    // Blocks which failed processing are rejected with the original failure on import
+    final long startTime = System.nanoTime();
+    return blockImporter
+        .importProcessedBlock(processedBlock)
+        .thenPeek(__ -> recordStageTime(STAGE_IMPORT, startTime));
+  }
+
+  private void recordStageTime(final String stage, final long startTimeNanos) {
+    stageTimeHistogram.recordValue(
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTimeNanos), stage);
+  }
+}
@@ -17,9 +17,11 @@ import com.google.common.annotations.VisibleForTesting;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 import javax.annotation.CheckReturnValue;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import tech.pegasys.teku.bls.BLSSignatureVerifier;
 import tech.pegasys.teku.infrastructure.async.SafeFuture;
 import tech.pegasys.teku.infrastructure.logging.EventLogger;
 import tech.pegasys.teku.infrastructure.logging.LogFormatter;
@@ -34,9 +36,11 @@ import tech.pegasys.teku.spec.datastructures.operations.AttesterSlashing;
 import tech.pegasys.teku.spec.datastructures.operations.ProposerSlashing;
 import tech.pegasys.teku.spec.datastructures.operations.SignedVoluntaryExit;
 import tech.pegasys.teku.spec.datastructures.state.CheckpointState;
+import tech.pegasys.teku.spec.datastructures.state.beaconstate.BeaconState;
 import tech.pegasys.teku.spec.executionlayer.ExecutionLayerChannel;
 import tech.pegasys.teku.spec.logic.common.statetransition.results.BlockImportResult;
 import tech.pegasys.teku.statetransition.forkchoice.ForkChoice;
+import tech.pegasys.teku.statetransition.forkchoice.ForkChoice.ProcessedBlock;
 import tech.pegasys.teku.storage.client.RecentChainData;
 import tech.pegasys.teku.weaksubjectivity.WeakSubjectivityValidator;
 
@@ -85,6 +89,34 @@ public class BlockImporter {
   public SafeFuture<BlockImportResult> importBlock(
       final SignedBeaconBlock block,
       final Optional<BlockImportPerformance> blockImportPerformance) {
+    return importBlock(
+        block, () -> forkChoice.onBlock(block, blockImportPerformance, executionLayer));
+  }
+
+  /**
+   * Run the state transition for a block on top of the supplied pre-state without importing it, so
+   * that following blocks can be processed while this block is imported by {@link
+   * #importProcessedBlock(ProcessedBlock)}.
+   *
+   * <p>The block's signatures are passed to the supplied verifier rather than being verified, and
+   * must be verified by the caller before the processed block is imported.
+   */
+  public ProcessedBlock processBlock(
+      final SignedBeaconBlock block,
+      final BeaconState blockSlotState,
+      final BLSSignatureVerifier signatureVerifier) {
+    return forkChoice.processBlock(block, blockSlotState, executionLayer, signatureVerifier);
+  }
+
+  @CheckReturnValue
+  public SafeFuture<BlockImportResult> importProcessedBlock(final ProcessedBlock processedBlock) {
+    return importBlock(
+        processedBlock.getBlock(), () -> forkChoice.onProcessedBlock(processedBlock));
+  }
+
+  private SafeFuture<BlockImportResult> importBlock(
+      final SignedBeaconBlock block,
+      final Supplier<SafeFuture<BlockImportResult>> forkChoiceImport) {
     final Optional<Boolean> knownOptimistic = recentChainData.isBlockOptimistic(block.getRoot());
     if (knownOptimistic.isPresent()) {
       LOG.trace(
@@ -99,7 +131,7 @@ public class BlockImporter {
     }
 
     return validateWeakSubjectivityPeriod()
-        .thenCompose(__ -> forkChoice.onBlock(block, blockImportPerformance, executionLayer))
+        .thenCompose(__ -> forkChoiceImport.get())
         .thenApply(
             result -> {
               if (!result.isSuccessful()) {
@@ -26,6 +26,7 @@ import java.util.Optional;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.tuweni.bytes.Bytes32;
+import tech.pegasys.teku.bls.BLSSignatureVerifier;
 import tech.pegasys.teku.infrastructure.async.ExceptionThrowingRunnable;
 import tech.pegasys.teku.infrastructure.async.ExceptionThrowingSupplier;
 import tech.pegasys.teku.infrastructure.async.SafeFuture;
@@ -42,7 +43,6 @@ import tech.pegasys.teku.spec.datastructures.blocks.SignedBeaconBlock;
 import tech.pegasys.teku.spec.datastructures.blocks.SlotAndBlockRoot;
 import tech.pegasys.teku.spec.datastructures.forkchoice.InvalidCheckpointException;
 import tech.pegasys.teku.spec.datastructures.forkchoice.ReadOnlyForkChoiceStrategy;
-import tech.pegasys.teku.spec.datastructures.forkchoice.VoteTracker;
 import tech.pegasys.teku.spec.datastructures.forkchoice.VoteUpdater;
 import tech.pegasys.teku.spec.datastructures.operations.AttesterSlashing;
 import tech.pegasys.teku.spec.datastructures.operations.IndexedAttestation;
@@ -53,6 +53,7 @@ import tech.pegasys.teku.spec.datastructures.util.AttestationProcessingResult.St
 import tech.pegasys.teku.spec.executionlayer.ExecutionLayerChannel;
 import tech.pegasys.teku.spec.executionlayer.ForkChoiceState;
 import tech.pegasys.teku.spec.executionlayer.PayloadStatus;
+import tech.pegasys.teku.spec.logic.common.block.BlockProcessor;
 import tech.pegasys.teku.spec.logic.common.statetransition.exceptions.StateTransitionException;
 import tech.pegasys.teku.spec.logic.common.statetransition.results.BlockImportResult;
 import tech.pegasys.teku.spec.logic.common.statetransition.results.BlockImportResult.FailureReason;
@@ -243,47 +244,145 @@ public class ForkChoice implements ForkChoiceUpdatedResultSubscriber {
         block.getSlot(),
         blockSlotState.get().getSlot());
 
-    final ForkChoicePayloadExecutor payloadExecutor =
-        ForkChoicePayloadExecutor.create(spec, recentChainData, block, executionLayer);
-    final ForkChoiceUtil forkChoiceUtil = spec.atSlot(block.getSlot()).getForkChoiceUtil();
     final BlockImportResult preconditionCheckResult =
-        forkChoiceUtil.checkOnBlockConditions(
-            block, blockSlotState.get(), recentChainData.getStore());
+        checkOnBlockConditions(block, blockSlotState.get());
     if (!preconditionCheckResult.isSuccessful()) {
-      reportInvalidBlock(block, preconditionCheckResult);
       return SafeFuture.completedFuture(preconditionCheckResult);
     }
 
+    final ProcessedBlock processedBlock =
+        processBlock(block, blockSlotState.get(), executionLayer, Optional.empty());
+    if (processedBlock.failureResult.isPresent()) {
+      return SafeFuture.completedFuture(processedBlock.failureResult.get());
+    }
+    blockImportPerformance.ifPresent(BlockImportPerformance::postStateCreated);
+
+    return importProcessedBlock(processedBlock, blockImportPerformance);
+  }
+
+  /**
+   * Run the state transition for a block on top of a pre-state supplied by the caller, without
+   * importing the block. The supplied blockSlotState must already have empty slots processed to the
+   * same slot as the block.
+   *
+   * <p>Unlike {@link #onBlock(SignedBeaconBlock, Optional, ExecutionLayerChannel)} the parent block
+   * doesn't need to have been imported yet, so the post state of one block can be used to process
+   * the next block while the first is still being imported. Conditions which depend on the store,
+   * including the verification of the merge transition block, are checked by {@link
+   * #onProcessedBlock(ProcessedBlock)}.
+   */
+  public ProcessedBlock processBlock(
+      final SignedBeaconBlock block,
+      final BeaconState blockSlotState,
+      final ExecutionLayerChannel executionLayer) {
+    return processBlock(block, blockSlotState, executionLayer, Optional.empty());
+  }
+
+  /**
+   * Run the state transition for a block as {@link #processBlock(SignedBeaconBlock, BeaconState,
+   * ExecutionLayerChannel)} does, but pass the block's signatures to the supplied verifier instead
+   * of verifying them. The caller is responsible for verifying the collected signatures, for
+   * example together with those of following blocks, before importing the processed block.
+   */
+  public ProcessedBlock processBlock(
+      final SignedBeaconBlock block,
+      final BeaconState blockSlotState,
+      final ExecutionLayerChannel executionLayer,
+      final BLSSignatureVerifier signatureVerifier) {
+    return processBlock(block, blockSlotState, executionLayer, Optional.of(signatureVerifier));
+  }
+
+  private ProcessedBlock processBlock(
+      final SignedBeaconBlock block,
+      final BeaconState blockSlotState,
+      final ExecutionLayerChannel executionLayer,
+      final Optional<BLSSignatureVerifier> signatureVerifier) {
+    checkArgument(
+        block.getSlot().equals(blockSlotState.getSlot()),
+        "State must have processed slots up to the block slot. Block slot %s, state slot %s",
+        block.getSlot(),
+        blockSlotState.getSlot());
+    final ForkChoicePayloadExecutor payloadExecutor =
+        ForkChoicePayloadExecutor.create(spec, recentChainData, block, executionLayer);
     final CapturingIndexedAttestationCache indexedAttestationCache =
         IndexedAttestationCache.capturing();
 
-    final BeaconState postState;
+    final BlockProcessor blockProcessor = spec.getBlockProcessor(block.getSlot());
     try {
-      postState =
-          spec.getBlockProcessor(block.getSlot())
-              .processAndValidateBlock(
+      final BeaconState postState =
+          signatureVerifier.isPresent()
+              ? blockProcessor.processAndValidateBlock(
                   block,
-                  blockSlotState.get(),
+                  blockSlotState,
                   indexedAttestationCache,
-                  Optional.of(payloadExecutor));
+                  signatureVerifier.get(),
+                  Optional.of(payloadExecutor))
+              : blockProcessor.processAndValidateBlock(
+                  block, blockSlotState, indexedAttestationCache, Optional.of(payloadExecutor));
+      return new ProcessedBlock(
+          block,
+          blockSlotState,
+          Optional.of(postState),
+          indexedAttestationCache,
+          payloadExecutor,
+          Optional.empty());
     } catch (final StateTransitionException e) {
       final BlockImportResult result = BlockImportResult.failedStateTransition(e);
       reportInvalidBlock(block, result);
-      return SafeFuture.completedFuture(result);
+      return new ProcessedBlock(
+          block,
+          blockSlotState,
+          Optional.empty(),
+          indexedAttestationCache,
+          payloadExecutor,
+          Optional.of(result));
     }
-    blockImportPerformance.ifPresent(BlockImportPerformance::postStateCreated);
+  }
+
+  /**
+   * Import a block previously processed by {@link #processBlock(SignedBeaconBlock, BeaconState,
+   * ExecutionLayerChannel)}. The block's parent must already have been imported.
+   */
+  public SafeFuture<BlockImportResult> onProcessedBlock(final ProcessedBlock processedBlock) {
+    if (processedBlock.failureResult.isPresent()) {
+      return SafeFuture.completedFuture(processedBlock.failureResult.get());
+    }
+    final BlockImportResult preconditionCheckResult =
+        checkOnBlockConditions(processedBlock.block, processedBlock.blockSlotState);
+    if (!preconditionCheckResult.isSuccessful()) {
+      return SafeFuture.completedFuture(preconditionCheckResult);
+    }
+    return importProcessedBlock(processedBlock, Optional.empty());
+  }
 
-    return payloadExecutor
+  private BlockImportResult checkOnBlockConditions(
+      final SignedBeaconBlock block, final BeaconState blockSlotState) {
+    final BlockImportResult preconditionCheckResult =
+        spec.atSlot(block.getSlot())
+            .getForkChoiceUtil()
+            .checkOnBlockConditions(block, blockSlotState, recentChainData.getStore());
+    if (!preconditionCheckResult.isSuccessful()) {
+      reportInvalidBlock(block, preconditionCheckResult);
+    }
+    return preconditionCheckResult;
+  }
+
+  private SafeFuture<BlockImportResult> importProcessedBlock(
+      final ProcessedBlock processedBlock,
+      final Optional<BlockImportPerformance> blockImportPerformance) {
+    final SignedBeaconBlock block = processedBlock.block;
+    return processedBlock
+        .payloadExecutor
         .getExecutionResult()
         .thenApplyAsync(
             payloadResult ->
                 importBlockAndState(
                     block,
-                    blockSlotState.get(),
+                    processedBlock.blockSlotState,
                     blockImportPerformance,
-                    forkChoiceUtil,
-                    indexedAttestationCache,
-                    postState,
+                    spec.atSlot(block.getSlot()).getForkChoiceUtil(),
+                    processedBlock.indexedAttestationCache,
+                    processedBlock.postState.orElseThrow(),
                     payloadResult),
             forkChoiceExecutor);
   }
@@ -611,13 +710,8 @@ public class ForkChoice implements ForkChoiceUpdatedResultSubscriber {
 
   private void storeEquivocatingIndices(
       final AttesterSlashing attesterSlashing, final VoteUpdater transaction) {
-    attesterSlashing
-        .getIntersectingValidatorIndices()
-        .forEach(
-            validatorIndex -> {
-              final VoteTracker voteTracker = transaction.getVote(validatorIndex);
-              transaction.putVote(validatorIndex, voteTracker.createNextEquivocating());
-            });
+    getForkChoiceStrategy()
+        .applyEquivocatingIndices(transaction, attesterSlashing.getIntersectingValidatorIndices());
   }
 
   public void onTick(final UInt64 currentTimeMillis) {
@@ -701,4 +795,38 @@ public class ForkChoice implements ForkChoiceUpdatedResultSubscriber {
   public interface OptimisticHeadSubscriber {
     void onOptimisticHeadChanged(boolean isHeadOptimistic);
   }
+
+  /** A block which has been through the state transition but not yet imported. */
+  public static class ProcessedBlock {
+    private final SignedBeaconBlock block;
+    private final BeaconState blockSlotState;
+    private final Optional<BeaconState> postState;
+    private final CapturingIndexedAttestationCache indexedAttestationCache;
+    private final ForkChoicePayloadExecutor payloadExecutor;
+    private final Optional<BlockImportResult> failureResult;
+
+    private ProcessedBlock(
+        final SignedBeaconBlock block,
+        final BeaconState blockSlotState,
+        final Optional<BeaconState> postState,
+        final CapturingIndexedAttestationCache indexedAttestationCache,
+        final ForkChoicePayloadExecutor payloadExecutor,
+        final Optional<BlockImportResult> failureResult) {
+      this.block = block;
+      this.blockSlotState = blockSlotState;
+      this.postState = postState;
+      this.indexedAttestationCache = indexedAttestationCache;
+      this.payloadExecutor = payloadExecutor;
+      this.failureResult = failureResult;
+    }
+
+    public SignedBeaconBlock getBlock() {
+      return block;
+    }
+
+    /** Returns the post state, or empty if the block failed the state transition. */
+    public Optional<BeaconState> getPostState() {
+      return postState;
+    }
+  }
 }
@@ -32,7 +32,8 @@ class ForkChoicePayloadExecutor implements OptimisticExecutionPayloadExecutor {
   private final ExecutionLayerChannel executionLayer;
   private final SignedBeaconBlock block;
   private final MergeTransitionBlockValidator transitionBlockValidator;
-  private Optional<SafeFuture<PayloadValidationResult>> result = Optional.empty();
+  private Optional<SafeFuture<PayloadStatus>> result = Optional.empty();
+  private Optional<ExecutionPayloadHeader> latestExecutionPayloadHeader = Optional.empty();
 
   ForkChoicePayloadExecutor(
       final SignedBeaconBlock block,
@@ -54,9 +55,34 @@ class ForkChoicePayloadExecutor implements OptimisticExecutionPayloadExecutor {
         new MergeTransitionBlockValidator(spec, recentChainData, executionLayer));
   }
 
+  /**
+   * Returns the result of executing the payload, including the verification of the transition
+   * block once the payload is valid.
+   *
+   * <p>The transition block of a block which isn't itself the transition block is found from its
+   * parent in fork choice, so the verification only starts when this method is called. It must not
+   * be called before the parent block is imported, which may be after the block was processed.
+   */
   public SafeFuture<PayloadValidationResult> getExecutionResult() {
-    return result.orElse(
-        SafeFuture.completedFuture(new PayloadValidationResult(PayloadStatus.VALID)));
+    return result
+        .map(
+            payloadStatus ->
+                payloadStatus
+                    .thenCompose(
+                        status -> {
+                          if (status.hasValidStatus()) {
+                            return transitionBlockValidator.verifyTransitionBlock(
+                                latestExecutionPayloadHeader.orElseThrow(), block);
+                          } else {
+                            return SafeFuture.completedFuture(new PayloadValidationResult(status));
+                          }
+                        })
+                    .exceptionally(
+                        error -> {
+                          LOG.error("Error while validating payload", error);
+                          return new PayloadValidationResult(PayloadStatus.failedExecution(error));
+                        }))
+        .orElse(SafeFuture.completedFuture(new PayloadValidationResult(PayloadStatus.VALID)));
   }
 
   @Override
@@ -70,24 +96,8 @@ class ForkChoicePayloadExecutor implements OptimisticExecutionPayloadExecutor {
       return true;
     }
 
-    result =
-        Optional.of(
-            executionLayer
-                .engineNewPayload(executionPayload)
-                .thenCompose(
-                    result -> {
-                      if (result.hasValidStatus()) {
-                        return transitionBlockValidator.verifyTransitionBlock(
-                            latestExecutionPayloadHeader, block);
-                      } else {
-                        return SafeFuture.completedFuture(new PayloadValidationResult(result));
-                      }
-                    })
-                .exceptionally(
-                    error -> {
-                      LOG.error("Error while validating payload", error);
-                      return new PayloadValidationResult(PayloadStatus.failedExecution(error));
-                    }));
+    this.latestExecutionPayloadHeader = Optional.of(latestExecutionPayloadHeader);
+    result = Optional.of(executionLayer.engineNewPayload(executionPayload));
 
     return true;
   }
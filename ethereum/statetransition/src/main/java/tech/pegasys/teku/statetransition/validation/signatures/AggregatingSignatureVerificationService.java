@@ -18,15 +18,23 @@ import static java.util.Collections.singletonList;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Lists;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.List;
-import java.util.concurrent.ArrayBlockingQueue;
+import java.util.Locale;
+import java.util.Map;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.tuweni.bytes.Bytes;
 import org.hyperledger.besu.plugin.services.MetricsSystem;
 import org.hyperledger.besu.plugin.services.metrics.Counter;
+import org.hyperledger.besu.plugin.services.metrics.LabelledGauge;
+import org.hyperledger.besu.plugin.services.metrics.LabelledMetric;
 import tech.pegasys.teku.bls.BLS;
 import tech.pegasys.teku.bls.BLSPublicKey;
 import tech.pegasys.teku.bls.BLSSignature;
@@ -37,11 +45,32 @@ import tech.pegasys.teku.infrastructure.async.SafeFuture;
 import tech.pegasys.teku.infrastructure.metrics.MetricsHistogram;
 import tech.pegasys.teku.infrastructure.metrics.TekuMetricCategory;
 import tech.pegasys.teku.service.serviceutils.ServiceCapacityExceededException;
+import tech.pegasys.teku.spec.logic.common.util.AsyncBLSSignatureVerifier;
 
+/**
+ * Verifies signatures in batches on a fixed number of threads.
+ *
+ * <p>Tasks are queued in a lane per {@link Priority}, each with its own capacity, and batches are
+ * always filled with {@link Priority#HIGH} tasks first so that a flood of attestations can neither
+ * delay nor reject aggregates.
+ *
+ * <p>When a batch fails it is bisected until the invalid tasks are isolated, so finding {@code k}
+ * invalid signatures in a batch of {@code n} takes {@code O(k log n)} batch verifications. If one
+ * half of a failed batch is valid the other half is known to be invalid and is split without
+ * verifying it again.
+ *
+ * <p>The batch size adapts to the load: while the queue is deep batches are as large as allowed
+ * for throughput, otherwise they are limited so that a batch is expected to verify within {@link
+ * #TARGET_BATCH_DURATION_NANOS} based on the measured verification time per signature.
+ */
 public class AggregatingSignatureVerificationService extends SignatureVerificationService {
   private static final Logger LOG = LogManager.getLogger();
 
-  static final int DEFAULT_MIN_BATCH_SIZE_TO_SPLIT = 25;
+  /** Below this size verifying the tasks of a failed batch one by one is as cheap as bisecting */
+  static final int DEFAULT_MIN_BATCH_SIZE_TO_SPLIT = 4;
+
+  static final long TARGET_BATCH_DURATION_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+  private static final double VERIFICATION_TIME_SMOOTHING_FACTOR = 0.2;
 
   private final AsyncRunner completionRunner;
   private final int numThreads;
@@ -50,10 +79,16 @@ public class AggregatingSignatureVerificationService extends SignatureVerificati
   private final boolean strictThreadLimitEnabled;
 
   @VisibleForTesting final BlockingQueue<SignatureTask> batchSignatureTasks;
+  private final Map<Priority, Lane> lanes = new EnumMap<>(Priority.class);
+  private final AtomicLong taskSequence = new AtomicLong();
   private final AsyncRunner asyncRunner;
   private final Counter batchCounter;
   private final Counter taskCounter;
   private final MetricsHistogram batchSizeHistogram;
+  private final MetricsHistogram laneLatencyHistogram;
+
+  /** Exponential moving average of batch verification time per signature, 0 until measured */
+  private volatile double averageNanosPerSignature = 0;
 
   @VisibleForTesting
   AggregatingSignatureVerificationService(
@@ -70,7 +105,12 @@ public class AggregatingSignatureVerificationService extends SignatureVerificati
     this.completionRunner = completionRunner;
     this.maxBatchSize = maxBatchSize;
 
-    this.batchSignatureTasks = new ArrayBlockingQueue<>(queueCapacity);
+    // Most important lane first, then in submission order
+    this.batchSignatureTasks =
+        new PriorityBlockingQueue<>(
+            queueCapacity,
+            Comparator.<SignatureTask, Priority>comparing(task -> task.priority)
+                .thenComparingLong(task -> task.sequence));
     this.minBatchSizeToSplit = minBatchSizeToSplit;
     this.strictThreadLimitEnabled = strictThreadLimitEnabled;
     metricsSystem.createGauge(
@@ -78,6 +118,11 @@ public class AggregatingSignatureVerificationService extends SignatureVerificati
         "signature_verifications_queue_size",
         "Tracks number of signatures waiting to be batch verified",
         this::getQueueSize);
+    metricsSystem.createGauge(
+        TekuMetricCategory.EXECUTOR,
+        "signature_verifications_target_batch_size",
+        "Current maximum size of signature verification batches adapted to the load",
+        this::getTargetBatchSize);
     batchCounter =
         metricsSystem.createCounter(
             TekuMetricCategory.EXECUTOR,
@@ -96,6 +141,32 @@ public class AggregatingSignatureVerificationService extends SignatureVerificati
             "Histogram of signature verification batch sizes",
             3,
             List.of());
+
+    final LabelledGauge laneQueueSizeGauge =
+        metricsSystem.createLabelledGauge(
+            TekuMetricCategory.EXECUTOR,
+            "signature_verifications_lane_queue_size",
+            "Tracks number of signatures waiting to be batch verified in each priority lane",
+            "lane");
+    final LabelledMetric<Counter> laneTaskCounter =
+        metricsSystem.createLabelledCounter(
+            TekuMetricCategory.EXECUTOR,
+            "signature_verifications_lane_task_count",
+            "Reports the number of verification tasks processed in each priority lane",
+            "lane");
+    laneLatencyHistogram =
+        MetricsHistogram.create(
+            TekuMetricCategory.EXECUTOR,
+            metricsSystem,
+            "signature_verifications_lane_latency",
+            "Histogram of milliseconds from submission to verification in each priority lane",
+            3,
+            List.of("lane"));
+    for (Priority priority : Priority.values()) {
+      final Lane lane = new Lane(priority, queueCapacity, laneTaskCounter);
+      lanes.put(priority, lane);
+      laneQueueSizeGauge.labels(lane.size::get, lane.label);
+    }
   }
 
   public AggregatingSignatureVerificationService(
@@ -136,6 +207,25 @@ public class AggregatingSignatureVerificationService extends SignatureVerificati
     return SafeFuture.COMPLETE;
   }
 
+  @Override
+  public AsyncBLSSignatureVerifier withPriority(final Priority priority) {
+    return new AsyncBLSSignatureVerifier() {
+      @Override
+      public SafeFuture<Boolean> verify(
+          final List<BLSPublicKey> publicKeys, final Bytes message, final BLSSignature signature) {
+        return verify(singletonList(publicKeys), singletonList(message), singletonList(signature));
+      }
+
+      @Override
+      public SafeFuture<Boolean> verify(
+          final List<List<BLSPublicKey>> publicKeys,
+          final List<Bytes> messages,
+          final List<BLSSignature> signatures) {
+        return submit(priority, publicKeys, messages, signatures);
+      }
+    };
+  }
+
   @Override
   public SafeFuture<Boolean> verify(
       final List<BLSPublicKey> publicKeys, final Bytes message, final BLSSignature signature) {
@@ -147,14 +237,32 @@ public class AggregatingSignatureVerificationService extends SignatureVerificati
       final List<List<BLSPublicKey>> publicKeys,
       final List<Bytes> messages,
       final List<BLSSignature> signatures) {
+    return submit(Priority.NORMAL, publicKeys, messages, signatures);
+  }
+
+  private SafeFuture<Boolean> submit(
+      final Priority priority,
+      final List<List<BLSPublicKey>> publicKeys,
+      final List<Bytes> messages,
+      final List<BLSSignature> signatures) {
     assertIsRunning("verify");
     final SignatureTask task =
-        new SignatureTask(completionRunner, publicKeys, messages, signatures);
-    if (!batchSignatureTasks.offer(task)) {
-      // Queue is full
+        new SignatureTask(
+            completionRunner,
+            priority,
+            taskSequence.getAndIncrement(),
+            publicKeys,
+            messages,
+            signatures);
+    final Lane lane = lanes.get(priority);
+    if (lane.size.incrementAndGet() > lane.capacity) {
+      // Lane is full
+      lane.size.decrementAndGet();
       final Throwable error =
           new ServiceCapacityExceededException("Failed to process signature, queue is full.");
       task.result.completeExceptionally(error);
+    } else {
+      batchSignatureTasks.add(task);
     }
     return task.result;
   }
@@ -171,61 +279,127 @@ public class AggregatingSignatureVerificationService extends SignatureVerificati
   private List<SignatureTask> waitForBatch() {
     final List<SignatureTask> tasks = new ArrayList<>();
     try {
-      int batchSize = maxBatchSize;
       final SignatureTask firstTask = batchSignatureTasks.poll(30, TimeUnit.SECONDS);
       if (firstTask != null) {
         tasks.add(firstTask);
-        batchSize -= 1;
+        batchSignatureTasks.drainTo(tasks, getTargetBatchSize() - 1);
       }
-      batchSignatureTasks.drainTo(tasks, batchSize);
     } catch (InterruptedException e) {
       Thread.currentThread().interrupt();
     }
+    for (SignatureTask task : tasks) {
+      lanes.get(task.priority).size.decrementAndGet();
+    }
     return tasks;
   }
 
+  /**
+   * Returns the max number of tasks to verify in the next batch. Uses the max batch size while
+   * there's a backlog for every thread, otherwise limits the batch to what's expected to verify
+   * within the target duration.
+   */
+  @VisibleForTesting
+  int getTargetBatchSize() {
+    final double nanosPerSignature = averageNanosPerSignature;
+    if (nanosPerSignature == 0 || batchSignatureTasks.size() >= maxBatchSize * numThreads) {
+      return maxBatchSize;
+    }
+    final long latencyBoundSize = (long) (TARGET_BATCH_DURATION_NANOS / nanosPerSignature);
+    return (int) Math.max(1, Math.min(maxBatchSize, latencyBoundSize));
+  }
+
   @VisibleForTesting
   void batchVerifySignatures(final List<SignatureTask> tasks) {
     batchCounter.inc();
     taskCounter.inc(tasks.size());
     batchSizeHistogram.recordValue(tasks.size());
-    final List<List<BLSPublicKey>> allKeys = new ArrayList<>();
-    final List<Bytes> allMessages = new ArrayList<>();
-    final List<BLSSignature> allSignatures = new ArrayList<>();
-
     for (SignatureTask task : tasks) {
-      allKeys.addAll(task.publicKeys);
-      allMessages.addAll(task.messages);
-      allSignatures.addAll(task.signatures);
+      lanes.get(task.priority).taskCounter.inc();
     }
+    verifyBatch(tasks);
+  }
 
-    final boolean batchIsValid =
-        strictThreadLimitEnabled
-            ? BLS.batchVerify(allKeys, allMessages, allSignatures, allKeys.size() > 1, false)
-            : BLS.batchVerify(allKeys, allMessages, allSignatures);
-    if (batchIsValid) {
+  /**
+   * Verifies the tasks as a single batch and bisects it on failure.
+   *
+   * @return true if all tasks were valid
+   */
+  private boolean verifyBatch(final List<SignatureTask> tasks) {
+    if (tasks.isEmpty() || isBatchValid(tasks)) {
       for (SignatureTask task : tasks) {
-        task.completeAsync(true);
+        complete(task, true);
       }
-    } else if (tasks.size() == 1) {
+      return true;
+    }
+    verifyInvalidBatch(tasks);
+    return false;
+  }
+
+  /** Finds the invalid tasks of a batch which is known to contain at least one invalid task. */
+  private void verifyInvalidBatch(final List<SignatureTask> tasks) {
+    if (tasks.size() == 1) {
       // We only had 1 signature, so it must be invalid
-      tasks.get(0).completeAsync(false);
+      complete(tasks.get(0), false);
     } else if (tasks.size() >= minBatchSizeToSplit) {
       // Split up tasks and try to verify in smaller batches
       final List<List<SignatureTask>> splitTasks = splitTasks(tasks);
-      for (List<SignatureTask> splitTask : splitTasks) {
-        batchVerifySignatures(splitTask);
+      final boolean firstHalfValid = verifyBatch(splitTasks.get(0));
+      if (firstHalfValid) {
+        // The invalid signature must be in the second half, no need to verify it as a whole
+        verifyInvalidBatch(splitTasks.get(1));
+      } else {
+        verifyBatch(splitTasks.get(1));
       }
     } else {
       // Validate each signature individually
       for (SignatureTask task : tasks) {
         final boolean taskIsValid =
             BLSSignatureVerifier.SIMPLE.verify(task.publicKeys, task.messages, task.signatures);
-        task.completeAsync(taskIsValid);
+        complete(task, taskIsValid);
       }
     }
   }
 
+  private boolean isBatchValid(final List<SignatureTask> tasks) {
+    final List<List<BLSPublicKey>> allKeys = new ArrayList<>();
+    final List<Bytes> allMessages = new ArrayList<>();
+    final List<BLSSignature> allSignatures = new ArrayList<>();
+
+    for (SignatureTask task : tasks) {
+      allKeys.addAll(task.publicKeys);
+      allMessages.addAll(task.messages);
+      allSignatures.addAll(task.signatures);
+    }
+
+    final long startTime = System.nanoTime();
+    final boolean batchIsValid =
+        strictThreadLimitEnabled
+            ? BLS.batchVerify(allKeys, allMessages, allSignatures, allKeys.size() > 1, false)
+            : BLS.batchVerify(allKeys, allMessages, allSignatures);
+    if (!allSignatures.isEmpty()) {
+      recordVerificationTime(System.nanoTime() - startTime, allSignatures.size());
+    }
+    return batchIsValid;
+  }
+
+  private void recordVerificationTime(final long durationNanos, final int signatureCount) {
+    final double nanosPerSignature = (double) durationNanos / signatureCount;
+    final double previousAverage = averageNanosPerSignature;
+    // Concurrent updates may occasionally be lost which is fine for an estimate
+    averageNanosPerSignature =
+        previousAverage == 0
+            ? nanosPerSignature
+            : previousAverage
+                + VERIFICATION_TIME_SMOOTHING_FACTOR * (nanosPerSignature - previousAverage);
+  }
+
+  private void complete(final SignatureTask task, final boolean isValid) {
+    final Lane lane = lanes.get(task.priority);
+    laneLatencyHistogram.recordValue(
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - task.submittedTimeNanos), lane.label);
+    task.completeAsync(isValid);
+  }
+
   @VisibleForTesting
   List<List<SignatureTask>> splitTasks(final List<SignatureTask> tasks) {
     final int splitListSize = Math.toIntExact((long) Math.ceil(tasks.size() / 2.0));
@@ -236,20 +410,43 @@ public class AggregatingSignatureVerificationService extends SignatureVerificati
     return batchSignatureTasks.size();
   }
 
+  private static class Lane {
+    private final String label;
+    private final int capacity;
+    private final AtomicInteger size = new AtomicInteger();
+    private final Counter taskCounter;
+
+    private Lane(
+        final Priority priority,
+        final int capacity,
+        final LabelledMetric<Counter> laneTaskCounter) {
+      this.label = priority.name().toLowerCase(Locale.ROOT);
+      this.capacity = capacity;
+      this.taskCounter = laneTaskCounter.labels(label);
+    }
+  }
+
   @VisibleForTesting
   static class SignatureTask {
     final SafeFuture<Boolean> result = new SafeFuture<>();
     private final AsyncRunner asyncRunner;
+    final Priority priority;
+    private final long sequence;
+    private final long submittedTimeNanos = System.nanoTime();
     final List<List<BLSPublicKey>> publicKeys;
     final List<Bytes> messages;
     final List<BLSSignature> signatures;
 
     private SignatureTask(
         final AsyncRunner asyncRunner,
+        final Priority priority,
+        final long sequence,
         final List<List<BLSPublicKey>> publicKeys,
         final List<Bytes> messages,
         final List<BLSSignature> signatures) {
       this.asyncRunner = asyncRunner;
+      this.priority = priority;
+      this.sequence = sequence;
       this.publicKeys = publicKeys;
       this.messages = messages;
       this.signatures = signatures;
@@ -22,4 +22,22 @@ public abstract class SignatureVerificationService extends Service
   public static SignatureVerificationService createSimple() {
     return new SimpleSignatureVerificationService();
   }
+
+  /**
+   * Returns a verifier which submits verifications with the given priority. Implementations which
+   * don't queue verifications ignore the priority.
+   *
+   * @param priority the priority of the verifications
+   * @return a verifier using this service
+   */
+  public AsyncBLSSignatureVerifier withPriority(final Priority priority) {
+    return this;
+  }
+
+  public enum Priority {
+    /** Blocks, aggregates and sync committee contributions which are propagated by few peers */
+    HIGH,
+    /** Individual attestations and sync committee messages */
+    NORMAL
+  }
 }
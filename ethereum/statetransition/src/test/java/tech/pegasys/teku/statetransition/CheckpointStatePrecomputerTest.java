@@ -0,0 +1,97 @@
+/*
+ * Copyright 2022 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package tech.pegasys.teku.statetransition;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static tech.pegasys.teku.infrastructure.async.SafeFutureAssert.assertThatSafeFuture;
+
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tech.pegasys.teku.core.ChainBuilder;
+import tech.pegasys.teku.infrastructure.async.SafeFuture;
+import tech.pegasys.teku.infrastructure.metrics.StubCounter;
+import tech.pegasys.teku.infrastructure.metrics.StubMetricsSystem;
+import tech.pegasys.teku.infrastructure.metrics.TekuMetricCategory;
+import tech.pegasys.teku.infrastructure.unsigned.UInt64;
+import tech.pegasys.teku.spec.Spec;
+import tech.pegasys.teku.spec.TestSpecFactory;
+import tech.pegasys.teku.spec.datastructures.blocks.SignedBlockAndState;
+import tech.pegasys.teku.spec.datastructures.state.beaconstate.BeaconState;
+import tech.pegasys.teku.storage.client.RecentChainData;
+import tech.pegasys.teku.storage.storageSystem.InMemoryStorageSystemBuilder;
+import tech.pegasys.teku.storage.storageSystem.StorageSystem;
+
+class CheckpointStatePrecomputerTest {
+
+  private final Spec spec = TestSpecFactory.createMinimalPhase0();
+  private final StorageSystem storageSystem = InMemoryStorageSystemBuilder.buildDefault(spec);
+  private final RecentChainData recentChainData = storageSystem.recentChainData();
+  private final StubMetricsSystem metricsSystem = new StubMetricsSystem();
+
+  private final CheckpointStatePrecomputer precomputer =
+      new CheckpointStatePrecomputer(spec, recentChainData, metricsSystem);
+
+  private SignedBlockAndState head;
+
+  @BeforeEach
+  void setUp() {
+    storageSystem.chainUpdater().initializeGenesis();
+    storageSystem.chainUpdater().advanceChainUntil(5);
+    final ChainBuilder forkBuilder = storageSystem.chainBuilder().fork();
+
+    head = storageSystem.chainUpdater().advanceChain(6);
+    storageSystem.chainUpdater().updateBestBlock(head);
+    storageSystem.chainUpdater().saveBlock(forkBuilder.generateBlockAtSlot(7));
+  }
+
+  @Test
+  void shouldReturnCheckpointStateForHead() {
+    final SafeFuture<Optional<BeaconState>> result =
+        precomputer.precompute(UInt64.ONE, head.getRoot());
+
+    assertThatSafeFuture(result).isCompletedWithNonEmptyOptional();
+    final BeaconState state = result.join().orElseThrow();
+    assertThat(state.getSlot()).isEqualTo(spec.computeStartSlotAtEpoch(UInt64.ONE));
+    assertThat(state.getLatestBlockHeader().getSlot()).isEqualTo(head.getSlot());
+  }
+
+  @Test
+  void shouldCountCanonicalCheckpointAsHitAndForkAsWasted() {
+    precomputer.precompute(UInt64.ONE, head.getRoot());
+    assertThat(getOutcomeCount("hit")).isZero();
+
+    precomputer.precompute(UInt64.valueOf(2), head.getRoot());
+
+    assertThat(getOutcomeCount("hit")).isEqualTo(1);
+    assertThat(getOutcomeCount("wasted")).isEqualTo(1);
+    assertThat(getOutcomeCount("failed")).isZero();
+  }
+
+  @Test
+  void shouldNotPrecomputeForkHeadsFromEarlierEpochs() {
+    precomputer.precompute(UInt64.valueOf(2), head.getRoot());
+    precomputer.precompute(UInt64.valueOf(3), head.getRoot());
+
+    // Only the head checkpoint for epoch 2 was precomputed
+    assertThat(getOutcomeCount("hit")).isEqualTo(1);
+    assertThat(getOutcomeCount("wasted")).isZero();
+  }
+
+  private long getOutcomeCount(final String outcome) {
+    final StubCounter counter =
+        metricsSystem.getCounter(TekuMetricCategory.BEACON, "checkpoint_state_precompute_total");
+    return counter.getValue(outcome);
+  }
+}
@@ -27,6 +27,7 @@ import org.apache.tuweni.bytes.Bytes32;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import tech.pegasys.teku.infrastructure.async.SafeFuture;
+import tech.pegasys.teku.infrastructure.metrics.StubMetricsSystem;
 import tech.pegasys.teku.infrastructure.unsigned.UInt64;
 import tech.pegasys.teku.spec.Spec;
 import tech.pegasys.teku.spec.TestSpecFactory;
@@ -46,7 +47,11 @@ class EpochCachePrimerTest {
   private final BeaconStateUtil beaconStateUtil = mock(BeaconStateUtil.class);
   private final RecentChainData recentChainData = storageSystem.recentChainData();
 
-  private final EpochCachePrimer primer = new EpochCachePrimer(mockSpec, recentChainData);
+  private final EpochCachePrimer primer =
+      new EpochCachePrimer(
+          mockSpec,
+          recentChainData,
+          new CheckpointStatePrecomputer(mockSpec, recentChainData, new StubMetricsSystem()));
 
   @BeforeEach
   void setUp() {
@@ -26,6 +26,10 @@ import static tech.pegasys.teku.statetransition.attestation.AggregatorUtil.aggre
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.hyperledger.besu.metrics.noop.NoOpMetricsSystem;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -537,6 +541,38 @@ class AggregatingAttestationPoolTest {
         .containsExactly(attestation2);
   }
 
+  @Test
+  public void add_shouldAcceptAttestationsFromConcurrentThreads() throws Exception {
+    final List<ValidateableAttestation> attestations = new ArrayList<>();
+    for (int i = 0; i < 400; i++) {
+      final AttestationData attestationData =
+          dataStructureUtil.randomAttestationData(SLOT.plus(i % 4));
+      attestations.add(
+          ValidateableAttestation.from(spec, createAttestation(attestationData, i % 20)));
+    }
+
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      final List<Callable<Void>> tasks = new ArrayList<>();
+      for (ValidateableAttestation attestation : attestations) {
+        tasks.add(
+            () -> {
+              aggregatingPool.add(attestation);
+              return null;
+            });
+      }
+      for (Future<Void> result : executor.invokeAll(tasks)) {
+        result.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertThat(aggregatingPool.getSize()).isEqualTo(attestations.size());
+    assertThat(aggregatingPool.getAttestations(Optional.empty(), Optional.empty()))
+        .hasSize(attestations.size());
+  }
+
   private Attestation addAttestationFromValidators(final UInt64 slot, final int... validators) {
     return addAttestationFromValidators(dataStructureUtil.randomAttestationData(slot), validators);
   }
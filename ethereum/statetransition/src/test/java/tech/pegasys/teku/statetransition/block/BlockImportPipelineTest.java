@@ -0,0 +1,223 @@
+/*
+ * Copyright 2022 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package tech.pegasys.teku.statetransition.block;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+import static tech.pegasys.teku.infrastructure.async.SafeFutureAssert.safeJoin;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tech.pegasys.teku.core.ChainBuilder;
+import tech.pegasys.teku.infrastructure.async.SafeFuture;
+import tech.pegasys.teku.infrastructure.async.StubAsyncRunner;
+import tech.pegasys.teku.infrastructure.async.eventthread.InlineEventThread;
+import tech.pegasys.teku.infrastructure.metrics.StubMetricsSystem;
+import tech.pegasys.teku.infrastructure.unsigned.UInt64;
+import tech.pegasys.teku.spec.Spec;
+import tech.pegasys.teku.spec.TestSpecFactory;
+import tech.pegasys.teku.spec.datastructures.blocks.SignedBeaconBlock;
+import tech.pegasys.teku.spec.datastructures.blocks.SignedBlockAndState;
+import tech.pegasys.teku.spec.executionlayer.ExecutionLayerChannel;
+import tech.pegasys.teku.spec.logic.common.statetransition.blockvalidator.BatchSignatureVerifier;
+import tech.pegasys.teku.spec.logic.common.statetransition.results.BlockImportResult;
+import tech.pegasys.teku.spec.logic.common.statetransition.results.BlockImportResult.FailureReason;
+import tech.pegasys.teku.spec.util.DataStructureUtil;
+import tech.pegasys.teku.statetransition.forkchoice.ForkChoice;
+import tech.pegasys.teku.statetransition.forkchoice.MergeTransitionBlockValidator;
+import tech.pegasys.teku.statetransition.forkchoice.StubForkChoiceNotifier;
+import tech.pegasys.teku.storage.client.RecentChainData;
+import tech.pegasys.teku.storage.storageSystem.InMemoryStorageSystemBuilder;
+import tech.pegasys.teku.storage.storageSystem.StorageSystem;
+import tech.pegasys.teku.weaksubjectivity.WeakSubjectivityValidator;
+
+class BlockImportPipelineTest {
+  private final Spec spec = TestSpecFactory.createMinimalPhase0();
+  private final DataStructureUtil dataStructureUtil = new DataStructureUtil(spec);
+  private final StorageSystem storageSystem = InMemoryStorageSystemBuilder.buildDefault(spec);
+  private final ChainBuilder chainBuilder = storageSystem.chainBuilder();
+  private final RecentChainData recentChainData = storageSystem.recentChainData();
+  private final WeakSubjectivityValidator weakSubjectivityValidator =
+      mock(WeakSubjectivityValidator.class);
+  private final StubAsyncRunner asyncRunner = new StubAsyncRunner();
+  private final StubMetricsSystem metricsSystem = new StubMetricsSystem();
+
+  private final ForkChoice forkChoice =
+      new ForkChoice(
+          spec,
+          new InlineEventThread(),
+          recentChainData,
+          new StubForkChoiceNotifier(),
+          new MergeTransitionBlockValidator(spec, recentChainData, ExecutionLayerChannel.NOOP));
+  private final BlockImporter blockImporter =
+      new BlockImporter(
+          spec,
+          mock(BlockImportNotifications.class),
+          recentChainData,
+          forkChoice,
+          weakSubjectivityValidator,
+          ExecutionLayerChannel.NOOP);
+
+  private final BlockImportPipeline pipeline =
+      new BlockImportPipeline(spec, recentChainData, blockImporter, asyncRunner, metricsSystem, 2);
+
+  @BeforeEach
+  void setUp() {
+    storageSystem.chainUpdater().initializeGenesis();
+    when(weakSubjectivityValidator.isBlockValid(any(), any())).thenReturn(true);
+  }
+
+  @Test
+  void shouldImportChainOfBlocks() {
+    final List<SignedBeaconBlock> blocks = generateBlocks(6);
+
+    final BlockImportResult result = importBlocks(blocks);
+
+    assertThat(result.isSuccessful()).isTrue();
+    assertThat(result.getBlock()).isEqualTo(blocks.get(5));
+    blocks.forEach(block -> assertThat(recentChainData.containsBlock(block.getRoot())).isTrue());
+  }
+
+  @Test
+  void shouldImportBlocksBeforeInvalidSignatureInSameVerificationGroup() {
+    final List<SignedBeaconBlock> blocks = new ArrayList<>(generateBlocks(6));
+    final SignedBeaconBlock invalidBlock =
+        SignedBeaconBlock.create(
+            spec, blocks.get(3).getMessage(), dataStructureUtil.randomSignature());
+    blocks.set(3, invalidBlock);
+
+    final BlockImportResult result = importBlocks(blocks);
+
+    assertThat(result.getFailureReason()).isEqualTo(FailureReason.FAILED_STATE_TRANSITION);
+    for (int i = 0; i < 3; i++) {
+      assertThat(recentChainData.containsBlock(blocks.get(i).getRoot())).isTrue();
+    }
+    for (int i = 3; i < blocks.size(); i++) {
+      assertThat(recentChainData.containsBlock(blocks.get(i).getRoot())).isFalse();
+    }
+  }
+
+  @Test
+  void shouldStopImportingAtFirstInvalidBlock() {
+    final List<SignedBeaconBlock> blocks = new ArrayList<>(generateBlocks(6));
+    final SignedBeaconBlock invalidBlock =
+        SignedBeaconBlock.create(
+            spec, blocks.get(2).getMessage(), dataStructureUtil.randomSignature());
+    blocks.set(2, invalidBlock);
+
+    final BlockImportResult result = importBlocks(blocks);
+
+    assertThat(result.getFailureReason()).isEqualTo(FailureReason.FAILED_STATE_TRANSITION);
+    assertThat(recentChainData.containsBlock(blocks.get(0).getRoot())).isTrue();
+    assertThat(recentChainData.containsBlock(blocks.get(1).getRoot())).isTrue();
+    for (int i = 2; i < blocks.size(); i++) {
+      assertThat(recentChainData.containsBlock(blocks.get(i).getRoot())).isFalse();
+    }
+  }
+
+  @Test
+  void shouldVerifyWholeBatchWithSingleBatchVerification() {
+    final List<Integer> verifiedBatchSizes = new ArrayList<>();
+    final BlockImportPipeline pipeline =
+        new BlockImportPipeline(
+            spec,
+            recentChainData,
+            blockImporter,
+            asyncRunner,
+            metricsSystem,
+            10,
+            verifiers -> {
+              verifiedBatchSizes.add(verifiers.size());
+              return BatchSignatureVerifier.batchVerify(verifiers);
+            });
+    final List<SignedBeaconBlock> blocks = generateBlocks(10);
+
+    final SafeFuture<BlockImportResult> result = pipeline.importBlocks(blocks);
+    asyncRunner.executeUntilDone();
+
+    assertThat(safeJoin(result).isSuccessful()).isTrue();
+    assertThat(verifiedBatchSizes).containsExactly(10);
+  }
+
+  @Test
+  void shouldImportBlocksBeforeBlockWhichFailedToProcess() {
+    final BlockImporter failingBlockImporter = spy(blockImporter);
+    final List<SignedBeaconBlock> blocks = generateBlocks(6);
+    doThrow(new IllegalStateException("Processing failed"))
+        .when(failingBlockImporter)
+        .processBlock(eq(blocks.get(3)), any(), any());
+    final BlockImportPipeline pipeline =
+        new BlockImportPipeline(
+            spec, recentChainData, failingBlockImporter, asyncRunner, metricsSystem, 10);
+
+    final SafeFuture<BlockImportResult> result = pipeline.importBlocks(blocks);
+    asyncRunner.executeUntilDone();
+
+    assertThat(safeJoin(result).getFailureReason()).isEqualTo(FailureReason.INTERNAL_ERROR);
+    for (int i = 0; i < 3; i++) {
+      assertThat(recentChainData.containsBlock(blocks.get(i).getRoot())).isTrue();
+    }
+    for (int i = 3; i < blocks.size(); i++) {
+      assertThat(recentChainData.containsBlock(blocks.get(i).getRoot())).isFalse();
+    }
+  }
+
+  @Test
+  void shouldLoadPreStateFromStoreWhenBlockDoesNotExtendPreviousBlock() {
+    final SignedBeaconBlock block1 = chainBuilder.generateBlockAtSlot(1).getBlock();
+    final ChainBuilder fork = chainBuilder.fork();
+    final SignedBeaconBlock block2 = chainBuilder.generateBlockAtSlot(2).getBlock();
+    final SignedBeaconBlock forkBlock = fork.generateBlockAtSlot(3).getBlock();
+    storageSystem.chainUpdater().setCurrentSlot(UInt64.valueOf(3));
+
+    final BlockImportResult result = importBlocks(List.of(block1, block2, forkBlock));
+
+    assertThat(result.isSuccessful()).isTrue();
+    assertThat(recentChainData.containsBlock(block2.getRoot())).isTrue();
+    assertThat(recentChainData.containsBlock(forkBlock.getRoot())).isTrue();
+  }
+
+  @Test
+  void shouldReportUnknownParent() {
+    final List<SignedBeaconBlock> blocks = generateBlocks(3);
+
+    final BlockImportResult result = importBlocks(blocks.subList(1, 3));
+
+    assertThat(result.getFailureReason()).isEqualTo(FailureReason.FAILED_UNKNOWN_PARENT);
+  }
+
+  private BlockImportResult importBlocks(final List<SignedBeaconBlock> blocks) {
+    final SafeFuture<BlockImportResult> result = pipeline.importBlocks(blocks);
+    asyncRunner.executeUntilDone();
+    assertThat(result).isDone();
+    return safeJoin(result);
+  }
+
+  private List<SignedBeaconBlock> generateBlocks(final int count) {
+    final List<SignedBeaconBlock> blocks =
+        chainBuilder.generateBlocksUpToSlot(count).stream()
+            .map(SignedBlockAndState::getBlock)
+            .collect(Collectors.toList());
+    storageSystem.chainUpdater().setCurrentSlot(UInt64.valueOf(count));
+    return blocks;
+  }
+}
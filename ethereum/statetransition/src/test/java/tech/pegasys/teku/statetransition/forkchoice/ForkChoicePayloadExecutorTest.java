@@ -96,6 +96,7 @@ class ForkChoicePayloadExecutorTest {
     when(executionLayer.eth1GetPowBlock(payload.getParentHash())).thenReturn(new SafeFuture<>());
     final ForkChoicePayloadExecutor payloadExecutor = createPayloadExecutor();
     final boolean result = payloadExecutor.optimisticallyExecute(defaultPayloadHeader, payload);
+    payloadExecutor.getExecutionResult();
 
     // Should execute first and then begin validation of the transition block conditions.
     verify(executionLayer).engineNewPayload(payload);
@@ -103,6 +104,24 @@ class ForkChoicePayloadExecutorTest {
     assertThat(result).isTrue();
   }
 
+  @Test
+  void optimisticallyExecute_shouldDeferTransitionVerificationUntilResultIsRequested() {
+    // The parent may still be importing when a block is processed, so the optimistically synced
+    // transition block can't be looked up from fork choice until the result is requested
+    when(executionLayer.engineNewPayload(payload)).thenReturn(SafeFuture.completedFuture(VALID));
+    when(transitionValidator.verifyTransitionBlock(payloadHeader, block))
+        .thenReturn(SafeFuture.completedFuture(PayloadValidationResult.VALID));
+    final ForkChoicePayloadExecutor payloadExecutor = createPayloadExecutor();
+    payloadExecutor.optimisticallyExecute(payloadHeader, payload);
+
+    verify(executionLayer).engineNewPayload(payload);
+    verify(transitionValidator, never()).verifyTransitionBlock(any(), any());
+
+    assertThat(payloadExecutor.getExecutionResult())
+        .isCompletedWithValue(PayloadValidationResult.VALID);
+    verify(transitionValidator).verifyTransitionBlock(payloadHeader, block);
+  }
+
   @Test
   void optimisticallyExecute_shouldReturnFailedExecutionOnMergeBlockWhenELOfflineAtExecution() {
     when(executionLayer.engineNewPayload(payload)).thenReturn(SafeFuture.failedFuture(new Error()));
@@ -126,11 +145,11 @@ class ForkChoicePayloadExecutorTest {
     final ForkChoicePayloadExecutor payloadExecutor = createPayloadExecutor();
     final boolean execution = payloadExecutor.optimisticallyExecute(defaultPayloadHeader, payload);
 
+    assertThat(payloadExecutor.getExecutionResult())
+        .isCompletedWithValueMatching(result -> result.getStatus().hasFailedExecution());
     verify(transitionValidator).verifyTransitionBlock(defaultPayloadHeader, block);
     verify(executionLayer).engineNewPayload(payload);
     assertThat(execution).isTrue();
-    assertThat(payloadExecutor.getExecutionResult())
-        .isCompletedWithValueMatching(result -> result.getStatus().hasFailedExecution());
   }
 
   @Test
@@ -24,14 +24,17 @@ import static tech.pegasys.teku.infrastructure.unsigned.UInt64.ONE;
 import static tech.pegasys.teku.infrastructure.unsigned.UInt64.ZERO;
 import static tech.pegasys.teku.statetransition.validation.InternalValidationResult.reject;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.OptionalInt;
+import org.apache.tuweni.bytes.Bytes;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import tech.pegasys.teku.bls.BLSKeyPair;
+import tech.pegasys.teku.bls.BLSPublicKey;
 import tech.pegasys.teku.bls.BLSSignature;
 import tech.pegasys.teku.bls.BLSSignatureVerifier;
 import tech.pegasys.teku.core.AggregateGenerator;
@@ -156,6 +159,49 @@ class AggregateAttestationValidatorTest {
         .isCompletedWithValue(InternalValidationResult.ACCEPT);
   }
 
+  @Test
+  public void shouldVerifyAttestationSignatureInSameBatchAsAggregateSignatures() {
+    final SignedAggregateAndProof aggregate =
+        generator.validAggregateAndProof(storageSystem.getChainHead());
+    final ValidateableAttestation attestation =
+        ValidateableAttestation.aggregateFromValidator(spec, aggregate);
+    final BeaconState state = getStateFor(aggregate).orElseThrow();
+    when(attestationValidator.singleOrAggregateAttestationChecks(
+            any(), eq(attestation), eq(OptionalInt.empty())))
+        .thenAnswer(
+            invocation ->
+                spec.isValidIndexedAttestation(state, attestation, invocation.getArgument(0))
+                    .thenApply(__ -> InternalValidationResultWithState.accept(state)));
+    final List<Integer> verifiedBatchSizes = new ArrayList<>();
+    validator =
+        new AggregateAttestationValidator(
+            spec,
+            attestationValidator,
+            new AsyncBLSSignatureVerifier() {
+              @Override
+              public SafeFuture<Boolean> verify(
+                  final List<BLSPublicKey> publicKeys,
+                  final Bytes message,
+                  final BLSSignature signature) {
+                return verify(List.of(publicKeys), List.of(message), List.of(signature));
+              }
+
+              @Override
+              public SafeFuture<Boolean> verify(
+                  final List<List<BLSPublicKey>> publicKeys,
+                  final List<Bytes> messages,
+                  final List<BLSSignature> signatures) {
+                verifiedBatchSizes.add(signatures.size());
+                return signatureVerifier.verify(publicKeys, messages, signatures);
+              }
+            });
+
+    assertThat(validator.validate(attestation))
+        .isCompletedWithValue(InternalValidationResult.ACCEPT);
+    // selection proof, aggregate signature and attestation signature
+    assertThat(verifiedBatchSizes).containsExactly(3);
+  }
+
   @Test
   public void shouldRejectWhenAttestationValidatorRejects() {
     final SignedAggregateAndProof aggregate =
@@ -42,6 +42,7 @@ import tech.pegasys.teku.infrastructure.async.Waiter;
 import tech.pegasys.teku.infrastructure.metrics.StubMetricsSystem;
 import tech.pegasys.teku.service.serviceutils.ServiceCapacityExceededException;
 import tech.pegasys.teku.statetransition.validation.signatures.AggregatingSignatureVerificationService.SignatureTask;
+import tech.pegasys.teku.statetransition.validation.signatures.SignatureVerificationService.Priority;
 
 public class AggregatingSignatureVerificationServiceTest {
   private static List<BLSKeyPair> keys = BLSKeyGenerator.generateKeyPairs(50);
@@ -278,6 +279,72 @@ public class AggregatingSignatureVerificationServiceTest {
     }
   }
 
+  @Test
+  public void verify_mixedSignatures_singleInvalidInFullBatch() {
+    startService();
+
+    final List<SafeFuture<Boolean>> futures = new ArrayList<>();
+    for (int j = 0; j < queueCapacity; j++) {
+      futures.add(j == 17 ? executeInvalidVerify(j, j) : executeValidVerify(j, j));
+    }
+    runPendingTasks();
+
+    for (int j = 0; j < queueCapacity; j++) {
+      assertThat(futures.get(j)).isCompletedWithValue(j != 17);
+    }
+  }
+
+  @SuppressWarnings("FutureReturnValueIgnored")
+  @Test
+  public void verify_shouldQueueHighPriorityTasksFirst() {
+    startService();
+
+    executeValidVerify(0, 0);
+    executeValidVerify(1, 1);
+    final BLSKeyPair keypair = keys.get(2);
+    final Bytes message = Bytes.of(2);
+    service
+        .withPriority(Priority.HIGH)
+        .verify(keypair.getPublicKey(), message, BLS.sign(keypair.getSecretKey(), message));
+
+    final List<SignatureTask> tasks = getPendingTasks();
+    assertThat(tasks.stream().map(task -> task.priority))
+        .containsExactly(Priority.HIGH, Priority.NORMAL, Priority.NORMAL);
+    assertThat(tasks.get(1).messages).containsExactly(Bytes.of(0));
+    assertThat(tasks.get(2).messages).containsExactly(Bytes.of(1));
+  }
+
+  @Test
+  public void verify_shouldAcceptHighPriorityTasksWhenNormalLaneIsFull() {
+    startService();
+
+    fillQueue();
+    assertThat(executeInvalidVerify(0, 0)).isCompletedExceptionally();
+
+    final BLSKeyPair keypair = keys.get(0);
+    final Bytes message = Bytes.of(0);
+    final SafeFuture<Boolean> future =
+        service
+            .withPriority(Priority.HIGH)
+            .verify(keypair.getPublicKey(), message, BLS.sign(keypair.getSecretKey(), message));
+    assertThat(future).isNotDone();
+    runPendingTasks();
+
+    assertThat(future).isCompletedWithValue(true);
+  }
+
+  @Test
+  public void getTargetBatchSize_shouldUseMaxBatchSizeBeforeAnyVerification() {
+    assertThat(service.getTargetBatchSize()).isEqualTo(batchSize);
+  }
+
+  @Test
+  public void getTargetBatchSize_shouldNotExceedMaxBatchSizeAfterVerification() {
+    verifyValidSignatures(batchSize);
+
+    assertThat(service.getTargetBatchSize()).isBetween(1, batchSize);
+  }
+
   @SuppressWarnings("FutureReturnValueIgnored")
   @Test
   public void splitTasks_evenNumber() {
@@ -82,6 +82,23 @@ public final class BLSPublicKey {
     return new BLSPublicKey(bytes);
   }
 
+  /**
+   * Create a PublicKey from both of its encodings. The point is decoded lazily from the
+   * uncompressed form which avoids the expensive decompression while the compressed form is used
+   * for equality and serialization.
+   *
+   * @param bytesCompressed 48 bytes of the compressed public key
+   * @param bytesUncompressed 96 bytes of the same public key in uncompressed form
+   * @return a public key. The encodings are not checked to match, so they should only come from a
+   *     trusted source such as {@link #toBytesCompressed()} and {@link #toBytesUncompressed()}
+   */
+  public static BLSPublicKey fromBytesUncompressed(
+      final Bytes48 bytesCompressed, final Bytes bytesUncompressed) {
+    return new BLSPublicKey(
+        Suppliers.memoize(() -> BLS.getBlsImpl().publicKeyFromUncompressed(bytesUncompressed)),
+        () -> bytesCompressed);
+  }
+
   public static BLSPublicKey fromBytesCompressedValidate(Bytes48 bytes)
       throws IllegalArgumentException {
     BLSPublicKey ret = new BLSPublicKey(bytes);
@@ -138,6 +155,16 @@ public final class BLSPublicKey {
     return bytesCompressed.get();
   }
 
+  /**
+   * Returns the uncompressed form of the public key which is cheaper to decode. Note that this
+   * requires the public key to be decompressed if it wasn't yet.
+   *
+   * @return the 96 bytes of the uncompressed public key
+   */
+  public Bytes toBytesUncompressed() {
+    return publicKey.get().toBytesUncompressed();
+  }
+
   PublicKey getPublicKey() {
     return publicKey.get();
   }
@@ -69,6 +69,17 @@ public interface BLS12381 {
    */
   PublicKey publicKeyFromCompressed(Bytes48 compressedPublicKeyBytes) throws BlsException;
 
+  /**
+   * Create a PublicKey from its uncompressed form. Decoding is much cheaper than for the compressed
+   * form as the y coordinate doesn't need to be recovered.
+   *
+   * @param uncompressedPublicKeyBytes 96 bytes to read the public key from
+   * @return a public key. Note that implementation may lazily evaluate passed bytes so the method
+   *     may not immediately fail if the supplied bytes are invalid
+   * @throws BlsException If the supplied bytes are not a valid public key
+   */
+  PublicKey publicKeyFromUncompressed(Bytes uncompressedPublicKeyBytes) throws BlsException;
+
   /**
    * Decode a signature from its <em>compressed</em> form serialized representation.
    *
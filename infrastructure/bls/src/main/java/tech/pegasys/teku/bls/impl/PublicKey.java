@@ -26,6 +26,14 @@ public interface PublicKey {
    */
   Bytes48 toBytesCompressed();
 
+  /**
+   * Public key serialization in uncompressed form which can be deserialized without recovering the
+   * y coordinate of the point
+   *
+   * @return byte array of length 96 representation of the public key
+   */
+  Bytes toBytesUncompressed();
+
   /**
    * Verifies the given BLS signature against the message bytes using this public key.
    *
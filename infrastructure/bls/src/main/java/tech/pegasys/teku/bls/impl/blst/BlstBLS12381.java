@@ -84,6 +84,11 @@ public class BlstBLS12381 implements BLS12381 {
     return BlstPublicKey.fromBytes(compressedPublicKeyBytes);
   }
 
+  @Override
+  public BlstPublicKey publicKeyFromUncompressed(Bytes uncompressedPublicKeyBytes) {
+    return BlstPublicKey.fromUncompressedBytes(uncompressedPublicKeyBytes);
+  }
+
   @Override
   public BlstSignature signatureFromCompressed(Bytes compressedSignatureBytes) {
     return BlstSignature.fromBytes(compressedSignatureBytes);
@@ -19,9 +19,11 @@ import com.google.common.base.Suppliers;
 import java.util.List;
 import java.util.Objects;
 import java.util.function.Supplier;
+import org.apache.tuweni.bytes.Bytes;
 import org.apache.tuweni.bytes.Bytes48;
 import supranational.blst.P1;
 import supranational.blst.P1_Affine;
+import tech.pegasys.teku.bls.BLSConstants;
 import tech.pegasys.teku.bls.impl.BlsException;
 import tech.pegasys.teku.bls.impl.PublicKey;
 
@@ -44,6 +46,21 @@ class BlstPublicKey implements PublicKey {
     }
   }
 
+  public static BlstPublicKey fromUncompressedBytes(Bytes uncompressed) {
+    checkArgument(
+        uncompressed.size() == BLSConstants.BLS_PUBKEY_UNCOMPRESSED_SIZE,
+        "Expected %s bytes of uncompressed public key but received %s",
+        BLSConstants.BLS_PUBKEY_UNCOMPRESSED_SIZE,
+        uncompressed.size());
+    try {
+      P1_Affine ecPoint = new P1_Affine(uncompressed.toArrayUnsafe());
+      return new BlstPublicKey(ecPoint);
+    } catch (Exception e) {
+      throw new BlsException(
+          "Deserialization of uncompressed public key bytes failed: " + uncompressed, e);
+    }
+  }
+
   static BlstPublicKey fromPublicKey(PublicKey publicKey) {
     if (publicKey instanceof BlstPublicKey) {
       return (BlstPublicKey) publicKey;
@@ -112,6 +129,11 @@ class BlstPublicKey implements PublicKey {
     return Bytes48.wrap(ecPoint.compress());
   }
 
+  @Override
+  public Bytes toBytesUncompressed() {
+    return Bytes.wrap(ecPoint.serialize());
+  }
+
   @Override
   public int hashCode() {
     return toBytesCompressed().hashCode();
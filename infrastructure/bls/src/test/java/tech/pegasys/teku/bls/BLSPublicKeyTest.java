@@ -54,6 +54,23 @@ abstract class BLSPublicKeyTest {
         .isInstanceOf(IllegalArgumentException.class);
   }
 
+  @Test
+  void fromBytesUncompressed_shouldRoundTrip() {
+    final BLSKeyPair keyPair = BLSTestUtil.randomKeyPair(1);
+    final BLSPublicKey publicKey = keyPair.getPublicKey();
+    final Bytes uncompressed = publicKey.toBytesUncompressed();
+    assertThat(uncompressed.size()).isEqualTo(BLSConstants.BLS_PUBKEY_UNCOMPRESSED_SIZE);
+
+    final BLSPublicKey decoded =
+        BLSPublicKey.fromBytesUncompressed(publicKey.toBytesCompressed(), uncompressed);
+    assertThat(decoded).isEqualTo(publicKey);
+    assertThat(decoded.isValid()).isTrue();
+    assertThat(decoded.toBytesUncompressed()).isEqualTo(uncompressed);
+
+    final Bytes message = Bytes.wrap(new byte[] {1, 2, 3});
+    assertThat(BLS.verify(decoded, message, BLS.sign(keyPair.getSecretKey(), message))).isTrue();
+  }
+
   @Test
   void succeedsWhenEqualsReturnsTrueForTheSameEmptyPublicKey() {
     BLSPublicKey publicKey = BLSPublicKey.empty();
@@ -45,6 +45,17 @@ public class Hash {
     return Bytes32.wrap(digest.digest());
   }
 
+  /**
+   * Hashes {@code count} consecutive 64-byte chunks of {@code input} and writes the resulting
+   * 32-byte digests consecutively into {@code output}.
+   *
+   * <p>This is the batch counterpart of {@link #sha256(Bytes, Bytes)} for two 32-byte values and is
+   * intended for hashing many tree node pairs at once without allocating per hash.
+   */
+  public static void sha256Batch64(final byte[] input, final byte[] output, final int count) {
+    Sha256Compression.hash64Batch(input, 0, output, 0, count);
+  }
+
   public static Bytes32 keccak256(final Bytes input) {
     final MessageDigest digest = MessageDigestFactory.createKeccak256();
     input.update(digest);
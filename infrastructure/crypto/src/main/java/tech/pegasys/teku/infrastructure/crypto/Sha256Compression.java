@@ -0,0 +1,181 @@
+/*
+ * Copyright 2022 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package tech.pegasys.teku.infrastructure.crypto;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * SHA-256 specialized for the fixed 64-byte input which is the only input hashed when computing
+ * SSZ tree roots (a pair of 32-byte child roots).
+ *
+ * <p>A 64-byte message always consists of exactly one data block followed by the same padding
+ * block, so the message schedule of the padding block is precomputed once and no buffering or
+ * padding state is maintained. Digests are written directly into the caller supplied array.
+ */
+public final class Sha256Compression {
+
+  public static final int INPUT_SIZE = 64;
+  public static final int OUTPUT_SIZE = 32;
+
+  private static final int[] K = {
+    0x428a2f98, 0x71374491, 0xb5c0fbcf, 0xe9b5dba5, 0x3956c25b, 0x59f111f1, 0x923f82a4, 0xab1c5ed5,
+    0xd807aa98, 0x12835b01, 0x243185be, 0x550c7dc3, 0x72be5d74, 0x80deb1fe, 0x9bdc06a7, 0xc19bf174,
+    0xe49b69c1, 0xefbe4786, 0x0fc19dc6, 0x240ca1cc, 0x2de92c6f, 0x4a7484aa, 0x5cb0a9dc, 0x76f988da,
+    0x983e5152, 0xa831c66d, 0xb00327c8, 0xbf597fc7, 0xc6e00bf3, 0xd5a79147, 0x06ca6351, 0x14292967,
+    0x27b70a85, 0x2e1b2138, 0x4d2c6dfc, 0x53380d13, 0x650a7354, 0x766a0abb, 0x81c2c92e, 0x92722c85,
+    0xa2bfe8a1, 0xa81a664b, 0xc24b8b70, 0xc76c51a3, 0xd192e819, 0xd6990624, 0xf40e3585, 0x106aa070,
+    0x19a4c116, 0x1e376c08, 0x2748774c, 0x34b0bcb5, 0x391c0cb3, 0x4ed8aa4a, 0x5b9cca4f, 0x682e6ff3,
+    0x748f82ee, 0x78a5636f, 0x84c87814, 0x8cc70208, 0x90befffa, 0xa4506ceb, 0xbef9a3f7, 0xc67178f2
+  };
+
+  private static final int[] INITIAL_STATE = {
+    0x6a09e667, 0xbb67ae85, 0x3c6ef372, 0xa54ff53a, 0x510e527f, 0x9b05688c, 0x1f83d9ab, 0x5be0cd19
+  };
+
+  /** K[i] + W[i] for the constant padding block of a 64-byte (512-bit) message */
+  private static final int[] PADDING_BLOCK_KW = computePaddingBlockKw();
+
+  private Sha256Compression() {}
+
+  /**
+   * Computes SHA-256 digests of {@code count} consecutive 64-byte chunks of {@code input} starting
+   * at {@code inputOffset} and writes the 32-byte digests consecutively into {@code output}
+   * starting at {@code outputOffset}
+   */
+  public static void hash64Batch(
+      final byte[] input,
+      final int inputOffset,
+      final byte[] output,
+      final int outputOffset,
+      final int count) {
+    checkArgument(count >= 0, "Negative count: %s", count);
+    checkArgument(
+        inputOffset >= 0 && inputOffset + count * INPUT_SIZE <= input.length,
+        "Input array is too small for %s chunks",
+        count);
+    checkArgument(
+        outputOffset >= 0 && outputOffset + count * OUTPUT_SIZE <= output.length,
+        "Output array is too small for %s digests",
+        count);
+    final int[] w = new int[64];
+    final int[] state = new int[8];
+    for (int i = 0; i < count; i++) {
+      System.arraycopy(INITIAL_STATE, 0, state, 0, state.length);
+      compressDataBlock(state, w, input, inputOffset + i * INPUT_SIZE);
+      compressPaddingBlock(state);
+      writeState(state, output, outputOffset + i * OUTPUT_SIZE);
+    }
+  }
+
+  /** Computes the SHA-256 digest of the 64 bytes of {@code input} at {@code inputOffset} */
+  public static void hash64(
+      final byte[] input, final int inputOffset, final byte[] output, final int outputOffset) {
+    hash64Batch(input, inputOffset, output, outputOffset, 1);
+  }
+
+  private static void compressDataBlock(
+      final int[] state, final int[] w, final byte[] block, final int offset) {
+    for (int i = 0; i < 16; i++) {
+      final int p = offset + i * 4;
+      w[i] =
+          (block[p] << 24)
+              | ((block[p + 1] & 0xff) << 16)
+              | ((block[p + 2] & 0xff) << 8)
+              | (block[p + 3] & 0xff);
+    }
+    for (int i = 16; i < 64; i++) {
+      w[i] = sigma1(w[i - 2]) + w[i - 7] + sigma0(w[i - 15]) + w[i - 16];
+    }
+    for (int i = 0; i < 64; i++) {
+      w[i] += K[i];
+    }
+    compressRounds(state, w);
+  }
+
+  private static void compressPaddingBlock(final int[] state) {
+    compressRounds(state, PADDING_BLOCK_KW);
+  }
+
+  private static void compressRounds(final int[] state, final int[] kw) {
+    int a = state[0];
+    int b = state[1];
+    int c = state[2];
+    int d = state[3];
+    int e = state[4];
+    int f = state[5];
+    int g = state[6];
+    int h = state[7];
+    for (int i = 0; i < 64; i++) {
+      final int t1 = h + bigSigma1(e) + ((e & f) ^ (~e & g)) + kw[i];
+      final int t2 = bigSigma0(a) + ((a & b) ^ (a & c) ^ (b & c));
+      h = g;
+      g = f;
+      f = e;
+      e = d + t1;
+      d = c;
+      c = b;
+      b = a;
+      a = t1 + t2;
+    }
+    state[0] += a;
+    state[1] += b;
+    state[2] += c;
+    state[3] += d;
+    state[4] += e;
+    state[5] += f;
+    state[6] += g;
+    state[7] += h;
+  }
+
+  private static void writeState(final int[] state, final byte[] output, final int offset) {
+    for (int i = 0; i < state.length; i++) {
+      final int word = state[i];
+      final int p = offset + i * 4;
+      output[p] = (byte) (word >>> 24);
+      output[p + 1] = (byte) (word >>> 16);
+      output[p + 2] = (byte) (word >>> 8);
+      output[p + 3] = (byte) word;
+    }
+  }
+
+  private static int bigSigma0(final int x) {
+    return Integer.rotateRight(x, 2) ^ Integer.rotateRight(x, 13) ^ Integer.rotateRight(x, 22);
+  }
+
+  private static int bigSigma1(final int x) {
+    return Integer.rotateRight(x, 6) ^ Integer.rotateRight(x, 11) ^ Integer.rotateRight(x, 25);
+  }
+
+  private static int sigma0(final int x) {
+    return Integer.rotateRight(x, 7) ^ Integer.rotateRight(x, 18) ^ (x >>> 3);
+  }
+
+  private static int sigma1(final int x) {
+    return Integer.rotateRight(x, 17) ^ Integer.rotateRight(x, 19) ^ (x >>> 10);
+  }
+
+  private static int[] computePaddingBlockKw() {
+    final int[] w = new int[64];
+    // 0x80 terminator followed by zeros and the 64-bit big-endian message length in bits (512)
+    w[0] = 0x80000000;
+    w[15] = INPUT_SIZE * 8;
+    for (int i = 16; i < 64; i++) {
+      w[i] = sigma1(w[i - 2]) + w[i - 7] + sigma0(w[i - 15]) + w[i - 16];
+    }
+    for (int i = 0; i < 64; i++) {
+      w[i] += K[i];
+    }
+    return w;
+  }
+}
@@ -21,6 +21,8 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
 import org.apache.tuweni.bytes.Bytes;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
@@ -61,4 +63,22 @@ public class SyncDataAccessorTest {
     content = Files.readString(filePath);
     assertThat(content).isEqualTo("B");
   }
+
+  @ParameterizedTest
+  @ValueSource(booleans = {true, false})
+  public void shouldWriteAllFiles(final boolean useAtomicMove, @TempDir Path tempDir)
+      throws IOException {
+    final SyncDataAccessor syncDataAccessor = new SyncDataAccessor(useAtomicMove);
+    final Map<Path, Bytes> data = new HashMap<>();
+    for (int i = 0; i < 20; i++) {
+      data.put(tempDir.resolve("file" + i), Bytes.of(i));
+    }
+    syncDataAccessor.syncedWrite(tempDir.resolve("file0"), Bytes.fromHexString("0x42"));
+
+    syncDataAccessor.syncedWriteAll(data);
+
+    for (Map.Entry<Path, Bytes> entry : data.entrySet()) {
+      assertThat(Bytes.wrap(Files.readAllBytes(entry.getKey()))).isEqualTo(entry.getValue());
+    }
+  }
 }
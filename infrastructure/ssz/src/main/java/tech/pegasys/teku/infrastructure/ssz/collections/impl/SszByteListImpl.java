@@ -38,7 +38,8 @@ public class SszByteListImpl extends SszPrimitiveListImpl<Byte, SszByte> impleme
 
   @Override
   public Byte getElement(int index) {
-    return elementType.createFromPackedNodeUnboxed(getTreeNode(index), index % elementsPerChunk);
+    TreeNode node = getTreeNode(index);
+    return elementType.createFromPackedNodeUnboxed(node, getInternalIndex(node, index));
   }
 
   @Override
@@ -20,7 +20,10 @@ import tech.pegasys.teku.infrastructure.ssz.collections.SszPrimitiveList;
 import tech.pegasys.teku.infrastructure.ssz.impl.SszListImpl;
 import tech.pegasys.teku.infrastructure.ssz.schema.SszListSchema;
 import tech.pegasys.teku.infrastructure.ssz.schema.SszPrimitiveSchema;
+import tech.pegasys.teku.infrastructure.ssz.schema.impl.AbstractSszCollectionSchema;
 import tech.pegasys.teku.infrastructure.ssz.tree.CachingTreeAccessor;
+import tech.pegasys.teku.infrastructure.ssz.tree.GIndexUtil;
+import tech.pegasys.teku.infrastructure.ssz.tree.PackedChunksNode;
 import tech.pegasys.teku.infrastructure.ssz.tree.TreeNode;
 
 public class SszPrimitiveListImpl<ElementT, SszElementT extends SszPrimitive<ElementT, SszElementT>>
@@ -28,6 +31,8 @@ public class SszPrimitiveListImpl<ElementT, SszElementT extends SszPrimitive<Ele
 
   protected final int elementsPerChunk;
   protected final SszPrimitiveSchema<ElementT, SszElementT> elementType;
+  private final int packedChunksDepth;
+  private final int elementsPerNode;
   private final CachingTreeAccessor cachingTreeAccessor;
 
   @SuppressWarnings("unchecked")
@@ -35,8 +40,9 @@ public class SszPrimitiveListImpl<ElementT, SszElementT extends SszPrimitive<Ele
     super(schema, backingNode);
     this.elementsPerChunk = schema.getElementsPerChunk();
     this.elementType = (SszPrimitiveSchema<ElementT, SszElementT>) schema.getElementSchema();
-    this.cachingTreeAccessor =
-        new CachingTreeAccessor(backingNode, schema::getChildGeneralizedIndex);
+    this.packedChunksDepth = getPackedChunksDepth(schema);
+    this.elementsPerNode = elementsPerChunk << packedChunksDepth;
+    this.cachingTreeAccessor = createTreeAccessor(schema, backingNode, packedChunksDepth);
   }
 
   @SuppressWarnings("unchecked")
@@ -45,18 +51,51 @@ public class SszPrimitiveListImpl<ElementT, SszElementT extends SszPrimitive<Ele
     super(schema, backingNode, cache);
     this.elementsPerChunk = schema.getElementsPerChunk();
     this.elementType = (SszPrimitiveSchema<ElementT, SszElementT>) schema.getElementSchema();
-    this.cachingTreeAccessor =
-        new CachingTreeAccessor(backingNode, schema::getChildGeneralizedIndex);
+    this.packedChunksDepth = getPackedChunksDepth(schema);
+    this.elementsPerNode = elementsPerChunk << packedChunksDepth;
+    this.cachingTreeAccessor = createTreeAccessor(schema, backingNode, packedChunksDepth);
+  }
+
+  /**
+   * Elements are read directly from {@link PackedChunksNode}s by their offset in the node data to
+   * avoid creating a leaf node per access. This only works for element types which are read by
+   * their internal index, i.e. the ones packed several elements per chunk
+   */
+  private static int getPackedChunksDepth(SszListSchema<?, ?> schema) {
+    if (schema.getElementsPerChunk() == 1 || !(schema instanceof AbstractSszCollectionSchema)) {
+      return 0;
+    }
+    return ((AbstractSszCollectionSchema<?, ?>) schema).getPackedChunksDepth().orElse(0);
+  }
+
+  private static CachingTreeAccessor createTreeAccessor(
+      SszListSchema<?, ?> schema, TreeNode backingNode, int packedChunksDepth) {
+    return new CachingTreeAccessor(
+        backingNode,
+        nodeIndex ->
+            schema.getChildGeneralizedIndex(nodeIndex << packedChunksDepth)
+                >>> packedChunksDepth);
   }
 
   @Override
   protected SszElementT getImpl(int index) {
-    return elementType.createFromPackedNode(getTreeNode(index), index % elementsPerChunk);
+    TreeNode node = getTreeNode(index);
+    return elementType.createFromPackedNode(node, getInternalIndex(node, index));
   }
 
   protected TreeNode getTreeNode(int index) {
-    int nodeIndex = index / elementsPerChunk;
-    return cachingTreeAccessor.getNodeByVectorIndex(nodeIndex);
+    TreeNode node = cachingTreeAccessor.getNodeByVectorIndex(index / elementsPerNode);
+    if (packedChunksDepth == 0 || node instanceof PackedChunksNode) {
+      return node;
+    }
+    // the packed node was replaced with a regular subtree
+    int chunkIndex = (index % elementsPerNode) / elementsPerChunk;
+    return node.get(
+        GIndexUtil.gIdxChildGIndex(GIndexUtil.SELF_G_INDEX, chunkIndex, packedChunksDepth));
+  }
+
+  protected int getInternalIndex(TreeNode node, int index) {
+    return node instanceof PackedChunksNode ? index % elementsPerNode : index % elementsPerChunk;
   }
 
   @Override
@@ -17,6 +17,7 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import tech.pegasys.teku.infrastructure.ssz.tree.PackedChunksNode;
 import tech.pegasys.teku.infrastructure.ssz.tree.SszSuperNode;
 
 /**
@@ -54,6 +55,26 @@ public class SszSchemaHints {
     }
   }
 
+  /**
+   * Hint to use {@link PackedChunksNode} for lists/vectors of primitive elements to save the memory
+   * of per-chunk tree nodes when the collection is large (e.g. validator balances)
+   *
+   * <p>The <code>depth</code> parameter specifies the maximum number (<code>2 ^ depth</code>) of
+   * 32-byte chunks a single node can contain. Increasing this parameter saves memory but makes
+   * every element update copy and rehash more data
+   */
+  public static final class SszPackedChunksHint extends SszSchemaHint {
+    private final int depth;
+
+    public SszPackedChunksHint(int depth) {
+      this.depth = depth;
+    }
+
+    public int getDepth() {
+      return depth;
+    }
+  }
+
   public static SszSchemaHints of(SszSchemaHint... hints) {
     return new SszSchemaHints(Arrays.asList(hints));
   }
@@ -66,6 +87,10 @@ public class SszSchemaHints {
     return of(new SszSuperNodeHint(superNodeDepth));
   }
 
+  public static SszSchemaHints packedChunks(int packedNodeDepth) {
+    return of(new SszPackedChunksHint(packedNodeDepth));
+  }
+
   private final List<SszSchemaHint> hints;
 
   private SszSchemaHints(List<SszSchemaHint> hints) {
@@ -17,6 +17,7 @@ import org.apache.tuweni.bytes.Bytes;
 import tech.pegasys.teku.infrastructure.ssz.collections.SszByteList;
 import tech.pegasys.teku.infrastructure.ssz.primitive.SszByte;
 import tech.pegasys.teku.infrastructure.ssz.schema.SszPrimitiveSchemas;
+import tech.pegasys.teku.infrastructure.ssz.schema.SszSchemaHints;
 import tech.pegasys.teku.infrastructure.ssz.schema.collections.impl.SszByteListSchemaImpl;
 
 public interface SszByteListSchema<SszListT extends SszByteList>
@@ -31,4 +32,12 @@ public interface SszByteListSchema<SszListT extends SszByteList>
   static SszByteListSchema<SszByteList> createUInt8(long maxLength) {
     return new SszByteListSchemaImpl<>(SszPrimitiveSchemas.UINT8_SCHEMA, maxLength);
   }
+
+  static SszByteListSchema<SszByteList> create(long maxLength, SszSchemaHints hints) {
+    return new SszByteListSchemaImpl<>(SszPrimitiveSchemas.BYTE_SCHEMA, maxLength, hints);
+  }
+
+  static SszByteListSchema<SszByteList> createUInt8(long maxLength, SszSchemaHints hints) {
+    return new SszByteListSchemaImpl<>(SszPrimitiveSchemas.UINT8_SCHEMA, maxLength, hints);
+  }
 }
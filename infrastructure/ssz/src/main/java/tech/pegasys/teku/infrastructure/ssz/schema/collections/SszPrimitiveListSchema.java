@@ -41,13 +41,16 @@ public interface SszPrimitiveListSchema<
     if (elementSchema == SszPrimitiveSchemas.BIT_SCHEMA) {
       return (SszPrimitiveListSchema<PrimT, SszPrimT, ?>) SszBitlistSchema.create(maxLength);
     } else if (elementSchema == SszPrimitiveSchemas.UINT64_SCHEMA) {
-      return (SszPrimitiveListSchema<PrimT, SszPrimT, ?>) SszUInt64ListSchema.create(maxLength);
+      return (SszPrimitiveListSchema<PrimT, SszPrimT, ?>)
+          SszUInt64ListSchema.create(maxLength, hints);
     } else if (elementSchema == SszPrimitiveSchemas.BYTE_SCHEMA) {
-      return (SszPrimitiveListSchema<PrimT, SszPrimT, ?>) SszByteListSchema.create(maxLength);
+      return (SszPrimitiveListSchema<PrimT, SszPrimT, ?>)
+          SszByteListSchema.create(maxLength, hints);
     } else if (elementSchema == SszPrimitiveSchemas.UINT8_SCHEMA) {
-      return (SszPrimitiveListSchema<PrimT, SszPrimT, ?>) SszByteListSchema.createUInt8(maxLength);
+      return (SszPrimitiveListSchema<PrimT, SszPrimT, ?>)
+          SszByteListSchema.createUInt8(maxLength, hints);
     } else {
-      return new SszPrimitiveListSchemaImpl<>(elementSchema, maxLength);
+      return new SszPrimitiveListSchemaImpl<>(elementSchema, maxLength, hints);
     }
   }
 }
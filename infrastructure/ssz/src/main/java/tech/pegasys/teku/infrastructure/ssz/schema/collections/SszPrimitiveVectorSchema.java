@@ -50,7 +50,7 @@ public interface SszPrimitiveVectorSchema<
       return (SszPrimitiveVectorSchema<PrimT, SszPrimT, ?>)
           SszBytes32VectorSchema.create((int) length);
     } else {
-      return new SszPrimitiveVectorSchemaImpl<>(elementSchema, length);
+      return new SszPrimitiveVectorSchemaImpl<>(elementSchema, length, hints);
     }
   }
 }
@@ -17,6 +17,7 @@ import tech.pegasys.teku.infrastructure.ssz.SszPrimitive;
 import tech.pegasys.teku.infrastructure.ssz.collections.SszPrimitiveVector;
 import tech.pegasys.teku.infrastructure.ssz.collections.impl.SszPrimitiveVectorImpl;
 import tech.pegasys.teku.infrastructure.ssz.schema.SszPrimitiveSchema;
+import tech.pegasys.teku.infrastructure.ssz.schema.SszSchemaHints;
 import tech.pegasys.teku.infrastructure.ssz.schema.collections.SszPrimitiveVectorSchema;
 import tech.pegasys.teku.infrastructure.ssz.schema.impl.AbstractSszVectorSchema;
 import tech.pegasys.teku.infrastructure.ssz.tree.TreeNode;
@@ -33,6 +34,13 @@ public class SszPrimitiveVectorSchemaImpl<
     super(elementSchema, vectorLength);
   }
 
+  public SszPrimitiveVectorSchemaImpl(
+      SszPrimitiveSchema<ElementT, SszElementT> elementSchema,
+      long vectorLength,
+      SszSchemaHints hints) {
+    super(elementSchema, vectorLength, false, hints);
+  }
+
   @Override
   @SuppressWarnings("unchecked")
   public SszVectorT createFromBackingNode(TreeNode node) {
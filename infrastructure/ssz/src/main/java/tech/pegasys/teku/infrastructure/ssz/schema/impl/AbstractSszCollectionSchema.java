@@ -32,12 +32,14 @@ import tech.pegasys.teku.infrastructure.ssz.schema.SszCompositeSchema;
 import tech.pegasys.teku.infrastructure.ssz.schema.SszPrimitiveSchema;
 import tech.pegasys.teku.infrastructure.ssz.schema.SszSchema;
 import tech.pegasys.teku.infrastructure.ssz.schema.SszSchemaHints;
+import tech.pegasys.teku.infrastructure.ssz.schema.SszSchemaHints.SszPackedChunksHint;
 import tech.pegasys.teku.infrastructure.ssz.schema.SszSchemaHints.SszSuperNodeHint;
 import tech.pegasys.teku.infrastructure.ssz.schema.SszType;
 import tech.pegasys.teku.infrastructure.ssz.sos.SszDeserializeException;
 import tech.pegasys.teku.infrastructure.ssz.sos.SszReader;
 import tech.pegasys.teku.infrastructure.ssz.sos.SszWriter;
 import tech.pegasys.teku.infrastructure.ssz.tree.LeafNode;
+import tech.pegasys.teku.infrastructure.ssz.tree.PackedChunksNode;
 import tech.pegasys.teku.infrastructure.ssz.tree.SszNodeTemplate;
 import tech.pegasys.teku.infrastructure.ssz.tree.SszSuperNode;
 import tech.pegasys.teku.infrastructure.ssz.tree.TreeNode;
@@ -229,7 +231,10 @@ public abstract class AbstractSszCollectionSchema<
           (bytesSize - 1) * 8L / elementBitSize <= getMaxLength(),
           "SSZ sequence length exceeds max type length");
     }
-    if (getElementSchema() instanceof AbstractSszPrimitiveSchema) {
+    Optional<Integer> packedChunksDepth = getPackedChunksDepth();
+    if (getElementSchema() instanceof AbstractSszPrimitiveSchema && packedChunksDepth.isPresent()) {
+      return sszDeserializePackedChunks(reader, packedChunksDepth.get(), elementBitSize);
+    } else if (getElementSchema() instanceof AbstractSszPrimitiveSchema) {
       int bytesRemain = bytesSize;
       List<LeafNode> childNodes = new ArrayList<>(bytesRemain / LeafNode.MAX_BYTE_SIZE + 1);
       while (bytesRemain > 0) {
@@ -262,6 +267,44 @@ public abstract class AbstractSszCollectionSchema<
     }
   }
 
+  private DeserializedData sszDeserializePackedChunks(
+      SszReader reader, int packedNodeDepth, int elementBitSize) {
+    int bytesSize = reader.getAvailableBytes();
+    int nodeSize = (1 << packedNodeDepth) * LeafNode.MAX_BYTE_SIZE;
+    int bytesRemain = bytesSize;
+    List<PackedChunksNode> packedNodes = new ArrayList<>(bytesRemain / nodeSize + 1);
+    Bytes lastNodeData = Bytes.EMPTY;
+    while (bytesRemain > 0) {
+      int toRead = min(bytesRemain, nodeSize);
+      bytesRemain -= toRead;
+      lastNodeData = reader.read(toRead);
+      packedNodes.add(new PackedChunksNode(packedNodeDepth, lastNodeData));
+    }
+    Optional<Byte> lastByte =
+        lastNodeData.isEmpty()
+            ? Optional.empty()
+            : Optional.of(lastNodeData.get(lastNodeData.size() - 1));
+    TreeNode tree =
+        TreeUtil.createTree(
+            packedNodes,
+            PackedChunksNode.createEmpty(packedNodeDepth),
+            treeDepth() - packedNodeDepth);
+    return new DeserializedData(tree, bytesSize * 8 / elementBitSize, lastByte);
+  }
+
+  /**
+   * Returns the depth of {@link PackedChunksNode}s to use for this collection if the {@link
+   * SszPackedChunksHint} is specified and applicable
+   */
+  public Optional<Integer> getPackedChunksDepth() {
+    if (!getElementSchema().isPrimitive()) {
+      return Optional.empty();
+    }
+    return getHints()
+        .getHint(SszPackedChunksHint.class)
+        .map(hint -> min(hint.getDepth(), treeDepth()));
+  }
+
   private DeserializedData sszDeserializeVariable(SszReader reader) {
     final int endOffset = reader.getAvailableBytes();
     final List<TreeNode> childNodes = new ArrayList<>();
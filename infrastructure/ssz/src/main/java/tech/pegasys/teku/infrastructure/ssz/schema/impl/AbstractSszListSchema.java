@@ -242,35 +242,57 @@ public abstract class AbstractSszListSchema<
             .getInt(0, ByteOrder.LITTLE_ENDIAN);
 
     final int superNodeDepth = getSuperNodeDepth();
-    final ChildLoader childLoader =
-        superNodeDepth == 0
-            ? (childNodeSource, childHash, childGIndex) ->
-                LoadingUtil.loadCollectionChild(
-                    childNodeSource,
-                    childHash,
-                    childGIndex,
-                    length,
-                    compatibleVectorSchema.getElementsPerChunk(),
-                    compatibleVectorSchema.treeDepth(),
-                    compatibleVectorSchema.getElementSchema())
-            : (childNodeSource, childHash, childGIndex) -> {
-              final Bytes data;
-              if (TreeUtil.ZERO_TREES_BY_ROOT.containsKey(childHash)) {
-                data = Bytes.EMPTY;
-              } else {
-                data = nodeSource.loadLeafNode(childHash, childGIndex);
-              }
-              return new SszSuperNode(superNodeDepth, elementSszSupernodeTemplate.get(), data);
-            };
+    final int packedChunksDepth =
+        superNodeDepth == 0 ? compatibleVectorSchema.getPackedChunksDepth().orElse(0) : 0;
     final long vectorRootGIndex = GIndexUtil.gIdxLeftGIndex(rootGIndex);
+    final ChildLoader chunkLoader =
+        (childNodeSource, childHash, childGIndex) ->
+            LoadingUtil.loadCollectionChild(
+                childNodeSource,
+                childHash,
+                childGIndex,
+                length,
+                compatibleVectorSchema.getElementsPerChunk(),
+                compatibleVectorSchema.treeDepth(),
+                compatibleVectorSchema.getElementSchema());
+    final ChildLoader childLoader;
+    if (superNodeDepth != 0) {
+      childLoader =
+          (childNodeSource, childHash, childGIndex) -> {
+            final Bytes data;
+            if (TreeUtil.ZERO_TREES_BY_ROOT.containsKey(childHash)) {
+              data = Bytes.EMPTY;
+            } else {
+              data = nodeSource.loadLeafNode(childHash, childGIndex);
+            }
+            return new SszSuperNode(superNodeDepth, elementSszSupernodeTemplate.get(), data);
+          };
+    } else if (packedChunksDepth != 0) {
+      // Chunks are stored as regular leaves, pack them back to keep the in-memory layout
+      final long lastUsefulChunkGIndex = getVectorLastUsefulGIndex(vectorRootGIndex, length, 0);
+      childLoader =
+          (childNodeSource, childHash, childGIndex) ->
+              LoadingUtil.loadPackedChunksChild(
+                  childNodeSource,
+                  childHash,
+                  childGIndex,
+                  packedChunksDepth,
+                  lastUsefulChunkGIndex,
+                  chunkLoader);
+    } else {
+      childLoader = chunkLoader;
+    }
     final long lastUsefulGIndex =
-        getVectorLastUsefulGIndex(vectorRootGIndex, length, superNodeDepth);
+        length == 0
+            ? vectorRootGIndex
+            : getVectorLastUsefulGIndex(vectorRootGIndex, length, superNodeDepth)
+                >>> packedChunksDepth;
     final TreeNode vectorNode =
         LoadingUtil.loadNodesToDepth(
             nodeSource,
             vectorHash,
             vectorRootGIndex,
-            compatibleVectorSchema.treeDepth() - superNodeDepth,
+            compatibleVectorSchema.treeDepth() - superNodeDepth - packedChunksDepth,
             compatibleVectorSchema.getDefault().getBackingNode(),
             lastUsefulGIndex,
             childLoader);
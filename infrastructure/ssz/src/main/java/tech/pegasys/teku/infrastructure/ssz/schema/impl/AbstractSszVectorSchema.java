@@ -38,6 +38,7 @@ import tech.pegasys.teku.infrastructure.ssz.sos.SszReader;
 import tech.pegasys.teku.infrastructure.ssz.sos.SszWriter;
 import tech.pegasys.teku.infrastructure.ssz.tree.GIndexUtil;
 import tech.pegasys.teku.infrastructure.ssz.tree.LeafNode;
+import tech.pegasys.teku.infrastructure.ssz.tree.PackedChunksNode;
 import tech.pegasys.teku.infrastructure.ssz.tree.SszSuperNode;
 import tech.pegasys.teku.infrastructure.ssz.tree.TreeNode;
 import tech.pegasys.teku.infrastructure.ssz.tree.TreeNodeSource;
@@ -95,6 +96,14 @@ public abstract class AbstractSszVectorSchema<
             new SszSuperNode(superNodeDepth, elementSszSupernodeTemplate.get(), Bytes.EMPTY);
         int binaryDepth = treeDepth() - superNodeDepth;
         return TreeUtil.createTree(emptyList(), defaultSuperSszNode, binaryDepth);
+      }
+      Optional<Integer> packedChunksDepth = getPackedChunksDepth();
+      if (packedChunksDepth.isPresent()) {
+        int packedNodeDepth = packedChunksDepth.get();
+        return TreeUtil.createTree(
+            emptyList(),
+            PackedChunksNode.createEmpty(packedNodeDepth),
+            treeDepth() - packedNodeDepth);
       } else {
         return TreeUtil.createDefaultTree(maxChunks(), LeafNode.EMPTY_LEAF);
       }
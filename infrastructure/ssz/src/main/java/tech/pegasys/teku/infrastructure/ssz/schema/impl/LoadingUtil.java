@@ -27,6 +27,7 @@ import tech.pegasys.teku.infrastructure.ssz.tree.GIndexUtil;
 import tech.pegasys.teku.infrastructure.ssz.tree.GIndexUtil.NodeRelation;
 import tech.pegasys.teku.infrastructure.ssz.tree.LazyBranchNode;
 import tech.pegasys.teku.infrastructure.ssz.tree.LeafNode;
+import tech.pegasys.teku.infrastructure.ssz.tree.PackedChunksNode;
 import tech.pegasys.teku.infrastructure.ssz.tree.TreeNode;
 import tech.pegasys.teku.infrastructure.ssz.tree.TreeNodeSource;
 import tech.pegasys.teku.infrastructure.ssz.tree.TreeNodeSource.CompressedBranchInfo;
@@ -209,6 +210,25 @@ public class LoadingUtil {
     }
   }
 
+  static TreeNode loadPackedChunksChild(
+      final TreeNodeSource childNodeSource,
+      final Bytes32 childHash,
+      final long childGIndex,
+      final int packedNodeDepth,
+      final long lastUsefulChunkGIndex,
+      final ChildLoader chunkLoader) {
+    final TreeNode subtree =
+        loadNodesToDepth(
+            childNodeSource,
+            childHash,
+            childGIndex,
+            packedNodeDepth,
+            TreeUtil.ZERO_TREES[packedNodeDepth],
+            lastUsefulChunkGIndex,
+            chunkLoader);
+    return PackedChunksNode.fromSubtree(packedNodeDepth, subtree);
+  }
+
   static LeafNode createLeaf(final Bytes data) {
     if (data.size() < Bytes32.SIZE && data.isZero()) {
       return LeafNode.ZERO_LEAVES[data.size()];
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2022 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package tech.pegasys.teku.infrastructure.ssz.tree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import org.apache.tuweni.bytes.Bytes32;
+import org.apache.tuweni.bytes.MutableBytes;
+import tech.pegasys.teku.infrastructure.crypto.Hash;
+import tech.pegasys.teku.infrastructure.crypto.MessageDigestFactory;
+
+/**
+ * Computes hash tree roots level by level instead of depth-first.
+ *
+ * <p>All {@link SimpleBranchNode}s without a cached hash are first collected and grouped by their
+ * height above the nearest already hashed nodes. Then every group is hashed in a single batch
+ * starting from the lowest one, so that all child roots of a group are known by the time it is
+ * hashed. Nodes of other types are treated as opaque and hashed with their own {@link
+ * TreeNode#hashTreeRoot()} implementation.
+ *
+ * <p>Levels which are at least {@link #PARALLEL_HASHING_THRESHOLD} nodes wide (e.g. the lower
+ * levels of validators or balances trees after a mass update) are split into batches which are
+ * hashed concurrently on the common {@link java.util.concurrent.ForkJoinPool}. The result doesn't
+ * depend on the way levels are split since every node is hashed exactly once from its children's
+ * roots. The threshold can be tuned with the {@code teku.ssz.parallelHashingThreshold} system
+ * property.
+ *
+ * <p>Trees with fewer unhashed nodes than the threshold can't have a level wide enough to be hashed
+ * in parallel, so they are hashed depth-first without collecting the nodes.
+ */
+final class BatchTreeHasher {
+
+  /** Max number of node pairs hashed in one batch, bounds the size of the temporary buffers */
+  static final int MAX_BATCH_SIZE = 4096;
+
+  /** Min number of nodes in a level to hash the level batches in parallel */
+  static final int PARALLEL_HASHING_THRESHOLD =
+      Integer.getInteger("teku.ssz.parallelHashingThreshold", 4 * MAX_BATCH_SIZE);
+
+  private final List<List<SimpleBranchNode>> nodesByHeight = new ArrayList<>();
+  private final Map<SimpleBranchNode, Integer> nodeHeights;
+  private final int parallelHashingThreshold;
+
+  private BatchTreeHasher(final int parallelHashingThreshold) {
+    this.parallelHashingThreshold = parallelHashingThreshold;
+    this.nodeHeights = new IdentityHashMap<>(parallelHashingThreshold);
+  }
+
+  static Bytes32 hashTreeRoot(final SimpleBranchNode root) {
+    return hashTreeRoot(root, PARALLEL_HASHING_THRESHOLD);
+  }
+
+  static Bytes32 hashTreeRoot(final SimpleBranchNode root, final int parallelHashingThreshold) {
+    if (countUnhashed(root, 0, parallelHashingThreshold) < parallelHashingThreshold) {
+      return root.hashTreeRoot(MessageDigestFactory.createSha256());
+    }
+    final BatchTreeHasher hasher = new BatchTreeHasher(parallelHashingThreshold);
+    hasher.collectUnhashed(root);
+    hasher.hashCollected();
+    return root.getCachedHash();
+  }
+
+  /**
+   * Counts unhashed nodes of the subtree, stopping as soon as the count reaches the limit
+   *
+   * @return the number of unhashed nodes or any value not less than the limit
+   */
+  private static int countUnhashed(final TreeNode node, final int count, final int limit) {
+    if (count >= limit
+        || !(node instanceof SimpleBranchNode)
+        || ((SimpleBranchNode) node).getCachedHash() != null) {
+      return count;
+    }
+    final SimpleBranchNode branchNode = (SimpleBranchNode) node;
+    final int leftCount = countUnhashed(branchNode.left(), count + 1, limit);
+    return countUnhashed(branchNode.right(), leftCount, limit);
+  }
+
+  /**
+   * Collects unhashed nodes of the subtree grouped by height
+   *
+   * @return the height of the node or -1 if the node doesn't need to be hashed by this hasher
+   */
+  private int collectUnhashed(final TreeNode node) {
+    if (!(node instanceof SimpleBranchNode)) {
+      return -1;
+    }
+    final SimpleBranchNode branchNode = (SimpleBranchNode) node;
+    if (branchNode.getCachedHash() != null) {
+      return -1;
+    }
+    final Integer knownHeight = nodeHeights.get(branchNode);
+    if (knownHeight != null) {
+      // the same node instance may be shared within a tree (e.g. default subtrees)
+      return knownHeight;
+    }
+    final int leftHeight = collectUnhashed(branchNode.left());
+    final int rightHeight =
+        branchNode.right() == branchNode.left() ? leftHeight : collectUnhashed(branchNode.right());
+    final int height = Math.max(leftHeight, rightHeight) + 1;
+    nodeHeights.put(branchNode, height);
+    while (nodesByHeight.size() <= height) {
+      nodesByHeight.add(new ArrayList<>());
+    }
+    nodesByHeight.get(height).add(branchNode);
+    return height;
+  }
+
+  private void hashCollected() {
+    final int maxSequentialLevelSize =
+        nodesByHeight.stream()
+            .mapToInt(List::size)
+            .filter(size -> size < parallelHashingThreshold)
+            .max()
+            .orElse(0);
+    final int bufferSize = Math.min(maxSequentialLevelSize, MAX_BATCH_SIZE);
+    final byte[] input = new byte[bufferSize * 64];
+    final byte[] output = new byte[bufferSize * 32];
+    for (List<SimpleBranchNode> level : nodesByHeight) {
+      if (level.size() >= parallelHashingThreshold) {
+        hashLevelInParallel(level);
+      } else {
+        for (int batchStart = 0; batchStart < level.size(); batchStart += bufferSize) {
+          final int batchSize = Math.min(bufferSize, level.size() - batchStart);
+          hashBatch(level, batchStart, batchSize, input, output);
+        }
+      }
+    }
+  }
+
+  private static void hashLevelInParallel(final List<SimpleBranchNode> level) {
+    final int batchCount = (level.size() + MAX_BATCH_SIZE - 1) / MAX_BATCH_SIZE;
+    IntStream.range(0, batchCount)
+        .parallel()
+        .forEach(
+            batchIndex -> {
+              final int batchStart = batchIndex * MAX_BATCH_SIZE;
+              final int batchSize = Math.min(MAX_BATCH_SIZE, level.size() - batchStart);
+              hashBatch(
+                  level, batchStart, batchSize, new byte[batchSize * 64], new byte[batchSize * 32]);
+            });
+  }
+
+  private static void hashBatch(
+      final List<SimpleBranchNode> level,
+      final int batchStart,
+      final int batchSize,
+      final byte[] input,
+      final byte[] output) {
+    final MutableBytes inputBytes = MutableBytes.wrap(input);
+    for (int i = 0; i < batchSize; i++) {
+      final SimpleBranchNode node = level.get(batchStart + i);
+      node.left().hashTreeRoot().copyTo(inputBytes, i * 64);
+      node.right().hashTreeRoot().copyTo(inputBytes, i * 64 + 32);
+    }
+    Hash.sha256Batch64(input, output, batchSize);
+    for (int i = 0; i < batchSize; i++) {
+      level
+          .get(batchStart + i)
+          .setCachedHash(Bytes32.wrap(Arrays.copyOfRange(output, i * 32, (i + 1) * 32)));
+    }
+  }
+}
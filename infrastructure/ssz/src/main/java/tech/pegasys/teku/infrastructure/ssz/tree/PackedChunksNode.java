@@ -0,0 +1,232 @@
+/*
+ * Copyright 2022 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package tech.pegasys.teku.infrastructure.ssz.tree;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.security.MessageDigest;
+import java.util.Arrays;
+import org.apache.tuweni.bytes.Bytes;
+import org.apache.tuweni.bytes.Bytes32;
+import org.apache.tuweni.bytes.MutableBytes;
+import org.jetbrains.annotations.NotNull;
+import tech.pegasys.teku.infrastructure.crypto.Hash;
+import tech.pegasys.teku.infrastructure.ssz.tree.GIndexUtil.NodeRelation;
+
+/**
+ * Stores the leaves of a subtree of packed primitive values (e.g. <code>List[uint64, N]</code>) as
+ * a single contiguous byte array instead of a subtree of {@link BranchNode}s and {@link LeafNode}s.
+ *
+ * <p>This node represents a subtree of depth <code>depth</code> with up to <code>2 ^ depth</code>
+ * 32-byte leaf chunks. Only existing chunks are stored (the last one may be partial) so the node
+ * data exactly matches the SSZ representation of the packed elements. Absent chunks are considered
+ * to be zero leaves.
+ *
+ * <p>Inner nodes and leaves are created lazily on {@link #get(long)} calls, so proofs and other
+ * generic tree accessors keep working. Any update creates a new copy of the data (copy-on-write)
+ * while all the other nodes of the collection tree are shared between versions.
+ *
+ * <p>Compared to {@link SszSuperNode} which packs complex elements, this node is specialized for
+ * primitive collections which are updated often (e.g. balances) and hashes its chunks level by
+ * level with {@link Hash#sha256Batch64(byte[], byte[], int)}
+ */
+public class PackedChunksNode implements TreeNode, LeafDataNode {
+  private static final int CHUNK_SIZE = LeafNode.MAX_BYTE_SIZE;
+
+  private final int depth;
+  private final Bytes data;
+  private volatile Bytes32 cachedHash;
+
+  public PackedChunksNode(final int depth, final Bytes data) {
+    checkArgument(depth >= 0 && depth < 31, "Invalid depth: %s", depth);
+    checkArgument(
+        data.size() <= getMaxChunks(depth) * CHUNK_SIZE,
+        "Data doesn't fit a node of depth %s",
+        depth);
+    this.depth = depth;
+    this.data = data;
+  }
+
+  public static PackedChunksNode createEmpty(final int depth) {
+    return new PackedChunksNode(depth, Bytes.EMPTY);
+  }
+
+  /**
+   * Packs the leaves of a regular subtree of depth <code>depth</code>. Trailing empty leaves are
+   * omitted so the node data matches the one created from the SSZ representation.
+   */
+  public static PackedChunksNode fromSubtree(final int depth, final TreeNode subtree) {
+    if (subtree instanceof PackedChunksNode) {
+      return (PackedChunksNode) subtree;
+    }
+    final int maxChunks = getMaxChunks(depth);
+    final Bytes[] chunks = new Bytes[maxChunks];
+    int size = 0;
+    for (int i = 0; i < maxChunks; i++) {
+      final TreeNode chunk =
+          subtree.get(GIndexUtil.gIdxChildGIndex(GIndexUtil.SELF_G_INDEX, i, depth));
+      checkArgument(chunk instanceof LeafDataNode, "Not a leaf node at depth %s", depth);
+      chunks[i] = ((LeafDataNode) chunk).getData();
+      if (!chunks[i].isEmpty()) {
+        size = i * CHUNK_SIZE + chunks[i].size();
+      }
+    }
+    final MutableBytes data = MutableBytes.create(size);
+    for (int i = 0; i < maxChunks && i * CHUNK_SIZE < size; i++) {
+      chunks[i].copyTo(data, i * CHUNK_SIZE);
+    }
+    return new PackedChunksNode(depth, data);
+  }
+
+  private static int getMaxChunks(final int depth) {
+    return 1 << depth;
+  }
+
+  private int getChunksCount() {
+    return (data.size() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+  }
+
+  @Override
+  public Bytes32 hashTreeRoot() {
+    Bytes32 cachedHash = this.cachedHash;
+    if (cachedHash == null) {
+      cachedHash = calcHashTreeRoot();
+      this.cachedHash = cachedHash;
+    }
+    return cachedHash;
+  }
+
+  @Override
+  public Bytes32 hashTreeRoot(final MessageDigest messageDigest) {
+    return hashTreeRoot();
+  }
+
+  private Bytes32 calcHashTreeRoot() {
+    int count = getChunksCount();
+    if (count == 0) {
+      return TreeUtil.ZERO_TREES[depth].hashTreeRoot();
+    }
+    if (depth == 0) {
+      return Bytes32.rightPad(data);
+    }
+    // Leave room for a zero sibling of the last node on every level
+    final byte[] buffer = new byte[(count + (count & 1)) * CHUNK_SIZE];
+    data.copyTo(MutableBytes.wrap(buffer), 0);
+    for (int level = 0; level < depth; level++) {
+      if ((count & 1) == 1) {
+        TreeUtil.ZERO_TREES[level]
+            .hashTreeRoot()
+            .copyTo(MutableBytes.wrap(buffer), count * CHUNK_SIZE);
+        count++;
+      }
+      count /= 2;
+      // Safe to hash in place: a pair is always read before its hash is written
+      Hash.sha256Batch64(buffer, buffer, count);
+    }
+    return Bytes32.wrap(Arrays.copyOf(buffer, CHUNK_SIZE));
+  }
+
+  /**
+   * Note that this method creates a new node on every call, collections should read elements
+   * directly from {@link #getData()} by their offset instead
+   */
+  @NotNull
+  @Override
+  public TreeNode get(final long generalizedIndex) {
+    if (GIndexUtil.gIdxIsSelf(generalizedIndex)) {
+      return this;
+    }
+    final int targetDepth = GIndexUtil.gIdxGetDepth(generalizedIndex);
+    checkArgument(targetDepth <= depth, "Invalid index: %s", generalizedIndex);
+    final int childIndex = GIndexUtil.gIdxGetChildIndex(generalizedIndex, targetDepth);
+    final int childDepth = depth - targetDepth;
+    final int childSize = getMaxChunks(childDepth) * CHUNK_SIZE;
+    final int childOffset = childIndex * childSize;
+    final Bytes childData =
+        childOffset < data.size()
+            ? data.slice(childOffset, Math.min(childSize, data.size() - childOffset))
+            : Bytes.EMPTY;
+    if (childData.isEmpty()) {
+      return TreeUtil.ZERO_TREES[childDepth];
+    } else if (childDepth == 0) {
+      return LeafNode.create(childData);
+    } else {
+      return new PackedChunksNode(childDepth, childData);
+    }
+  }
+
+  @Override
+  public boolean iterate(
+      final long thisGeneralizedIndex,
+      final long startGeneralizedIndex,
+      final TreeVisitor visitor) {
+    if (GIndexUtil.gIdxCompare(thisGeneralizedIndex, startGeneralizedIndex) == NodeRelation.LEFT) {
+      return true;
+    } else {
+      return visitor.visit(this, thisGeneralizedIndex);
+    }
+  }
+
+  @Override
+  public TreeNode updated(final TreeUpdates newNodes) {
+    if (newNodes.isEmpty()) {
+      return this;
+    } else if (newNodes.isFinal()) {
+      return newNodes.getNode(0);
+    }
+    int newSize = data.size();
+    for (int i = 0; i < newNodes.size(); i++) {
+      final long gIndex = newNodes.getRelativeGIndex(i);
+      final TreeNode node = newNodes.getNode(i);
+      if (GIndexUtil.gIdxGetDepth(gIndex) != depth || !(node instanceof LeafNode)) {
+        // not a chunk update: fallback to the regular tree representation
+        return toBranchNode().updated(newNodes);
+      }
+      final int chunkIndex = GIndexUtil.gIdxGetChildIndex(gIndex, depth);
+      final int chunkDataSize = ((LeafNode) node).getData().size();
+      if (chunkDataSize > 0) {
+        newSize = Math.max(newSize, chunkIndex * CHUNK_SIZE + chunkDataSize);
+      }
+    }
+
+    final MutableBytes newData = MutableBytes.create(newSize);
+    data.copyTo(newData, 0);
+    for (int i = 0; i < newNodes.size(); i++) {
+      final int chunkIndex = GIndexUtil.gIdxGetChildIndex(newNodes.getRelativeGIndex(i), depth);
+      final int chunkOffset = chunkIndex * CHUNK_SIZE;
+      final Bytes chunkData = ((LeafNode) newNodes.getNode(i)).getData();
+      final int chunkEnd = Math.min(chunkOffset + CHUNK_SIZE, newSize);
+      if (chunkOffset < chunkEnd) {
+        newData.mutableSlice(chunkOffset, chunkEnd - chunkOffset).fill((byte) 0);
+        chunkData.copyTo(newData, chunkOffset);
+      }
+    }
+    return new PackedChunksNode(depth, newData);
+  }
+
+  private TreeNode toBranchNode() {
+    return BranchNode.create(
+        get(GIndexUtil.LEFT_CHILD_G_INDEX), get(GIndexUtil.RIGHT_CHILD_G_INDEX));
+  }
+
+  @Override
+  public Bytes getData() {
+    return data;
+  }
+
+  @Override
+  public String toString() {
+    return "PackedChunksNode{depth=" + depth + ", data=" + data + "}";
+  }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2022 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package tech.pegasys.teku.infrastructure.ssz.tree;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Estimates the heap retained by backing trees taking structural sharing into account.
+ *
+ * <p>Every node instance is counted only once no matter how many trees (or how many positions
+ * within a single tree) reference it. Trees added to the same estimator are accumulated, so the
+ * estimator can be used to measure the memory retained by a whole set of values (e.g. all states
+ * held by a cache) and how much each value adds on top of the others.
+ *
+ * <p>Sizes are approximations for a 64-bit JVM with compressed oops. Only {@link SimpleBranchNode}s
+ * are descended: other branch implementations (e.g. {@link LazyBranchNode}) may load their
+ * children on access and are counted as opaque nodes.
+ */
+public class TreeMemoryEstimator {
+
+  static final long BRANCH_NODE_SIZE = 24;
+  static final long CACHED_HASH_SIZE = 72;
+  static final long LEAF_NODE_SIZE = 24;
+  static final long BYTES_WRAPPER_SIZE = 24;
+  static final long ARRAY_HEADER_SIZE = 16;
+  static final long OPAQUE_NODE_SIZE = 32;
+
+  private final Set<TreeNode> countedNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+  private long retainedBytes;
+
+  /**
+   * Adds the tree to the estimate
+   *
+   * @return the number of bytes retained by the tree which are not shared with any of the trees
+   *     added before
+   */
+  public long add(final TreeNode root) {
+    return add(root, Long.MAX_VALUE);
+  }
+
+  private long add(final TreeNode root, final long limit) {
+    final long retainedBefore = retainedBytes;
+    visitNodes(
+        root,
+        node -> {
+          if (retainedBytes > limit || !countedNodes.add(node)) {
+            // all the subtree of a counted node is counted as well
+            return false;
+          }
+          retainedBytes += estimateNodeSize(node);
+          return true;
+        });
+    return retainedBytes - retainedBefore;
+  }
+
+  /**
+   * Walks the nodes of the tree which are taken into account by the estimates, depth first.
+   *
+   * @param root the root of the tree
+   * @param visitor called for every node, returns false to skip the subtree of the node
+   */
+  public static void visitNodes(final TreeNode root, final Predicate<TreeNode> visitor) {
+    final Deque<TreeNode> stack = new ArrayDeque<>();
+    stack.push(root);
+    while (!stack.isEmpty()) {
+      final TreeNode node = stack.pop();
+      if (visitor.test(node) && node instanceof SimpleBranchNode) {
+        final SimpleBranchNode branchNode = (SimpleBranchNode) node;
+        stack.push(branchNode.right());
+        stack.push(branchNode.left());
+      }
+    }
+  }
+
+  /** Returns the total number of bytes retained by all the trees added so far */
+  public long getRetainedBytes() {
+    return retainedBytes;
+  }
+
+  /** Returns the number of distinct node instances added so far */
+  public int getNodeCount() {
+    return countedNodes.size();
+  }
+
+  /** Estimates the number of bytes retained by a single tree */
+  public static long estimateRetainedSize(final TreeNode root) {
+    return estimateRetainedSize(root, Long.MAX_VALUE);
+  }
+
+  /**
+   * Same as {@link #estimateRetainedSize(TreeNode)} but stops walking the tree as soon as the
+   * estimate exceeds {@code limit}, so the cost of finding out that a tree is too large is bounded.
+   *
+   * @return the estimated size, or a value greater than {@code limit} if the tree is larger
+   */
+  public static long estimateRetainedSize(final TreeNode root, final long limit) {
+    return new TreeMemoryEstimator().add(root, limit);
+  }
+
+  /**
+   * Estimates the number of bytes retained by the tree {@code root} which are not shared with the
+   * tree {@code reference}.
+   *
+   * <p>Trees are compared position by position, so this is only accurate when {@code root} is
+   * derived from {@code reference} (e.g. a state and its parent state) which is the common case
+   * for values held by the in-memory caches. The walk only descends the modified paths, so it is
+   * cheap for trees which differ in a few nodes only.
+   */
+  public static long estimateRetainedSize(final TreeNode root, final TreeNode reference) {
+    return estimateRetainedSize(root, reference, Long.MAX_VALUE);
+  }
+
+  /**
+   * Same as {@link #estimateRetainedSize(TreeNode, TreeNode)} but stops walking the trees as soon
+   * as the estimate exceeds {@code limit}.
+   *
+   * @return the estimated size, or a value greater than {@code limit} if the difference is larger
+   */
+  public static long estimateRetainedSize(
+      final TreeNode root, final TreeNode reference, final long limit) {
+    final TreeMemoryEstimator estimator = new TreeMemoryEstimator();
+    final Deque<TreeNode> stack = new ArrayDeque<>();
+    final Deque<TreeNode> referenceStack = new ArrayDeque<>();
+    stack.push(root);
+    referenceStack.push(reference);
+    while (!stack.isEmpty() && estimator.retainedBytes <= limit) {
+      final TreeNode node = stack.pop();
+      final TreeNode referenceNode = referenceStack.pop();
+      if (node == referenceNode) {
+        continue;
+      }
+      if (node instanceof SimpleBranchNode && referenceNode instanceof SimpleBranchNode) {
+        if (estimator.countedNodes.add(node)) {
+          estimator.retainedBytes += estimateNodeSize(node);
+          final SimpleBranchNode branchNode = (SimpleBranchNode) node;
+          final SimpleBranchNode referenceBranchNode = (SimpleBranchNode) referenceNode;
+          stack.push(branchNode.right());
+          referenceStack.push(referenceBranchNode.right());
+          stack.push(branchNode.left());
+          referenceStack.push(referenceBranchNode.left());
+        }
+      } else {
+        estimator.add(node, limit);
+      }
+    }
+    return estimator.getRetainedBytes();
+  }
+
+  /** Estimates the shallow size of the node, i.e. excluding its child nodes */
+  public static long estimateNodeSize(final TreeNode node) {
+    if (node instanceof SimpleBranchNode) {
+      return BRANCH_NODE_SIZE
+          + (((SimpleBranchNode) node).getCachedHash() != null ? CACHED_HASH_SIZE : 0);
+    } else if (node instanceof LeafDataNode) {
+      final long dataSize = ((LeafDataNode) node).getData().size();
+      return LEAF_NODE_SIZE + BYTES_WRAPPER_SIZE + ARRAY_HEADER_SIZE + align(dataSize);
+    } else {
+      return OPAQUE_NODE_SIZE;
+    }
+  }
+
+  private static long align(final long size) {
+    return (size + 7) & ~7L;
+  }
+}
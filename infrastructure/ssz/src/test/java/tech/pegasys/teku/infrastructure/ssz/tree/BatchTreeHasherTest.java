@@ -0,0 +1,111 @@
+/*
+ * Copyright 2022 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package tech.pegasys.teku.infrastructure.ssz.tree;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.apache.tuweni.bytes.Bytes32;
+import org.junit.jupiter.api.Test;
+import tech.pegasys.teku.infrastructure.crypto.Hash;
+import tech.pegasys.teku.infrastructure.crypto.MessageDigestFactory;
+
+public class BatchTreeHasherTest {
+
+  @Test
+  void hashTreeRoot_shouldMatchDepthFirstHashing() {
+    final List<TreeNode> leaves =
+        IntStream.range(0, 1000).mapToObj(TreeTest::newTestLeaf).collect(Collectors.toList());
+
+    final TreeNode batchHashed = TreeUtil.createTree(leaves, 12);
+    final TreeNode digestHashed = TreeUtil.createTree(leaves, 12);
+
+    assertThat(batchHashed.hashTreeRoot())
+        .isEqualTo(digestHashed.hashTreeRoot(MessageDigestFactory.createSha256()));
+  }
+
+  @Test
+  void hashTreeRoot_shouldHandleLevelsLargerThanBatchSize() {
+    final int leafCount = BatchTreeHasher.MAX_BATCH_SIZE * 4 + 17;
+    final List<TreeNode> leaves =
+        IntStream.range(0, leafCount).mapToObj(TreeTest::newTestLeaf).collect(Collectors.toList());
+
+    final TreeNode batchHashed = TreeUtil.createTree(leaves);
+    final TreeNode digestHashed = TreeUtil.createTree(leaves);
+
+    // only the lowest level is wide enough to be hashed in parallel
+    final int parallelHashingThreshold = BatchTreeHasher.MAX_BATCH_SIZE * 2 + 1;
+    assertThat(
+            BatchTreeHasher.hashTreeRoot((SimpleBranchNode) batchHashed, parallelHashingThreshold))
+        .isEqualTo(digestHashed.hashTreeRoot(MessageDigestFactory.createSha256()));
+  }
+
+  @Test
+  void hashTreeRoot_shouldHashWideLevelsInParallel() {
+    final int leafCount = BatchTreeHasher.MAX_BATCH_SIZE * 8 + 3;
+    final List<TreeNode> leaves =
+        IntStream.range(0, leafCount).mapToObj(TreeTest::newTestLeaf).collect(Collectors.toList());
+
+    final TreeNode parallelHashed = TreeUtil.createTree(leaves);
+    final TreeNode digestHashed = TreeUtil.createTree(leaves);
+
+    assertThat(BatchTreeHasher.hashTreeRoot((SimpleBranchNode) parallelHashed, 1))
+        .isEqualTo(digestHashed.hashTreeRoot(MessageDigestFactory.createSha256()));
+  }
+
+  @Test
+  void hashTreeRoot_shouldOnlyRehashUpdatedBranches() {
+    final TreeNode tree =
+        TreeUtil.createTree(
+            IntStream.range(0, 64).mapToObj(TreeTest::newTestLeaf).collect(Collectors.toList()));
+    tree.hashTreeRoot();
+
+    final TreeNode updated = tree.updated(64 + 5, TreeTest.newTestLeaf(555));
+    final TreeNode expected =
+        TreeUtil.createTree(
+            IntStream.range(0, 64)
+                .mapToObj(i -> TreeTest.newTestLeaf(i == 5 ? 555 : i))
+                .collect(Collectors.toList()));
+
+    assertThat(updated.hashTreeRoot())
+        .isEqualTo(expected.hashTreeRoot(MessageDigestFactory.createSha256()));
+  }
+
+  @Test
+  void hashTreeRoot_shouldHandleSharedSubtrees() {
+    final List<TreeNode> leaves =
+        IntStream.range(0, 8).mapToObj(TreeTest::newTestLeaf).collect(Collectors.toList());
+    final TreeNode shared = TreeUtil.createTree(leaves);
+    final TreeNode deepShared = BranchNode.create(shared, BranchNode.create(shared, shared));
+    final TreeNode root = BranchNode.create(deepShared, shared);
+
+    final Bytes32 sharedRoot =
+        TreeUtil.createTree(leaves).hashTreeRoot(MessageDigestFactory.createSha256());
+    final Bytes32 expected =
+        Hash.sha256(Hash.sha256(sharedRoot, Hash.sha256(sharedRoot, sharedRoot)), sharedRoot);
+
+    assertThat(root.hashTreeRoot()).isEqualTo(expected);
+  }
+
+  @Test
+  void hashTreeRoot_shouldHashLargeDefaultTree() {
+    final TreeNode tree = TreeUtil.createDefaultTree(1L << 40, TreeTest.newTestLeaf(111));
+    final TreeNode sameTree = TreeUtil.createDefaultTree(1L << 40, TreeTest.newTestLeaf(111));
+
+    assertThat(tree.hashTreeRoot())
+        .isEqualTo(sameTree.hashTreeRoot(MessageDigestFactory.createSha256()));
+  }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2022 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package tech.pegasys.teku.infrastructure.ssz.tree;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.apache.tuweni.bytes.Bytes;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import tech.pegasys.teku.infrastructure.crypto.MessageDigestFactory;
+import tech.pegasys.teku.infrastructure.ssz.collections.SszMutableUInt64List;
+import tech.pegasys.teku.infrastructure.ssz.collections.SszUInt64List;
+import tech.pegasys.teku.infrastructure.ssz.schema.InMemoryStoringTreeNodeStore;
+import tech.pegasys.teku.infrastructure.ssz.schema.SszSchemaHints;
+import tech.pegasys.teku.infrastructure.ssz.schema.collections.SszUInt64ListSchema;
+import tech.pegasys.teku.infrastructure.ssz.sos.SszReader;
+import tech.pegasys.teku.infrastructure.unsigned.UInt64;
+
+public class PackedChunksNodeTest {
+
+  private static final int DEPTH = 3;
+
+  private static Bytes createData(final int size) {
+    final byte[] bytes = new byte[size];
+    for (int i = 0; i < size; i++) {
+      bytes[i] = (byte) (i + 1);
+    }
+    return Bytes.wrap(bytes);
+  }
+
+  private static TreeNode createRegularTree(final Bytes data, final int depth) {
+    final List<TreeNode> leaves =
+        IntStream.range(0, (data.size() + 31) / 32)
+            .mapToObj(i -> LeafNode.create(data.slice(i * 32, Math.min(32, data.size() - i * 32))))
+            .collect(Collectors.toList());
+    return TreeUtil.createTree(leaves, depth);
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 1, 31, 32, 33, 100, 255, 256})
+  void hashTreeRoot_shouldMatchRegularTree(final int dataSize) {
+    final Bytes data = createData(dataSize);
+    final TreeNode packed = new PackedChunksNode(DEPTH, data);
+
+    assertThat(packed.hashTreeRoot())
+        .isEqualTo(
+            createRegularTree(data, DEPTH).hashTreeRoot(MessageDigestFactory.createSha256()));
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 40, 256})
+  void get_shouldReturnSameNodesAsRegularTree(final int dataSize) {
+    final Bytes data = createData(dataSize);
+    final TreeNode packed = new PackedChunksNode(DEPTH, data);
+    final TreeNode regular = createRegularTree(data, DEPTH);
+
+    for (long gIndex = 2; gIndex < (2L << DEPTH); gIndex++) {
+      assertThat(packed.get(gIndex).hashTreeRoot())
+          .describedAs("Node at gIndex %s", gIndex)
+          .isEqualTo(regular.get(gIndex).hashTreeRoot());
+    }
+    final long firstLeafGIndex = 1L << DEPTH;
+    assertThat(packed.get(firstLeafGIndex)).isInstanceOf(LeafNode.class);
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 3, 5, 7})
+  void updated_shouldMatchRegularTreeUpdate(final int chunkIndex) {
+    final Bytes data = createData(100);
+    final long leafGIndex = (1L << DEPTH) + chunkIndex;
+    final TreeNode newLeaf = TreeTest.newTestLeaf(777);
+
+    final TreeNode packed = new PackedChunksNode(DEPTH, data).updated(leafGIndex, newLeaf);
+    final TreeNode regular = createRegularTree(data, DEPTH).updated(leafGIndex, newLeaf);
+
+    assertThat(packed).isInstanceOf(PackedChunksNode.class);
+    assertThat(packed.hashTreeRoot()).isEqualTo(regular.hashTreeRoot());
+    assertThat(packed.get(leafGIndex)).isEqualTo(newLeaf);
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 33, 256})
+  void updated_shouldFallbackToBranchNodeForNonLeafUpdates(final int dataSize) {
+    final Bytes data = createData(dataSize);
+    final TreeNode subtree = createRegularTree(createData(64), 1);
+
+    final TreeNode packed = new PackedChunksNode(DEPTH, data).updated(5, subtree);
+    final TreeNode regular = createRegularTree(data, DEPTH).updated(5, subtree);
+
+    assertThat(packed).isNotInstanceOf(PackedChunksNode.class);
+    assertThat(packed.hashTreeRoot()).isEqualTo(regular.hashTreeRoot());
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 1, 40, 256})
+  void fromSubtree_shouldPackRegularTree(final int dataSize) {
+    final Bytes data = createData(dataSize);
+
+    final PackedChunksNode packed =
+        PackedChunksNode.fromSubtree(DEPTH, createRegularTree(data, DEPTH));
+
+    assertThat(packed.getData()).isEqualTo(data);
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 5, 100})
+  void packedList_shouldKeepPackingWhenLoadedFromStoredNodes(final int size) {
+    final SszUInt64ListSchema<SszUInt64List> schema =
+        SszUInt64ListSchema.create(1024, SszSchemaHints.packedChunks(2));
+    final SszUInt64List list =
+        schema.of(IntStream.range(0, size).mapToObj(UInt64::valueOf).collect(Collectors.toList()));
+    final InMemoryStoringTreeNodeStore nodeStore = new InMemoryStoringTreeNodeStore();
+    final long rootGIndex = 34;
+    schema.storeBackingNodes(nodeStore, 5, rootGIndex, list.getBackingNode());
+
+    final TreeNode loaded = schema.loadBackingNodes(nodeStore, list.hashTreeRoot(), rootGIndex);
+    final SszUInt64List loadedList = schema.createFromBackingNode(loaded);
+
+    assertThat(loaded.get(schema.getChildGeneralizedIndex(0) >>> 2))
+        .isInstanceOf(PackedChunksNode.class);
+    assertThat(loadedList.hashTreeRoot()).isEqualTo(list.hashTreeRoot());
+    assertThat(loadedList.asListUnboxed()).isEqualTo(list.asListUnboxed());
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 1, 5, 100})
+  void packedList_shouldMatchRegularList(final int size) {
+    final SszUInt64ListSchema<SszUInt64List> regularSchema = SszUInt64ListSchema.create(1024);
+    final SszUInt64ListSchema<SszUInt64List> packedSchema =
+        SszUInt64ListSchema.create(1024, SszSchemaHints.packedChunks(2));
+    final SszUInt64List regularList =
+        regularSchema.of(
+            IntStream.range(0, size).mapToObj(UInt64::valueOf).collect(Collectors.toList()));
+    final SszUInt64List packedList =
+        packedSchema.sszDeserialize(SszReader.fromBytes(regularList.sszSerialize()));
+
+    assertThat(packedList.hashTreeRoot()).isEqualTo(regularList.hashTreeRoot());
+
+    final SszMutableUInt64List regularWritable = regularList.createWritableCopy();
+    final SszMutableUInt64List packedWritable = packedList.createWritableCopy();
+    for (int i = 0; i < size; i += 3) {
+      regularWritable.setElement(i, UInt64.valueOf(1000 + i));
+      packedWritable.setElement(i, UInt64.valueOf(1000 + i));
+    }
+    regularWritable.appendElement(UInt64.valueOf(42));
+    packedWritable.appendElement(UInt64.valueOf(42));
+    final SszUInt64List updatedRegular = regularWritable.commitChanges();
+    final SszUInt64List updatedPacked = packedWritable.commitChanges();
+
+    assertThat(updatedPacked.hashTreeRoot()).isEqualTo(updatedRegular.hashTreeRoot());
+    assertThat(updatedPacked.sszSerialize()).isEqualTo(updatedRegular.sszSerialize());
+    assertThat(updatedPacked.asListUnboxed()).isEqualTo(updatedRegular.asListUnboxed());
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2022 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package tech.pegasys.teku.infrastructure.ssz.tree;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+public class TreeMemoryEstimatorTest {
+
+  private static TreeNode createTree(final int leafCount) {
+    final List<TreeNode> leaves =
+        IntStream.range(0, leafCount).mapToObj(TreeTest::newTestLeaf).collect(Collectors.toList());
+    return TreeUtil.createTree(leaves, 10);
+  }
+
+  @Test
+  void add_shouldCountSharedNodesOnce() {
+    final TreeNode tree = createTree(100);
+    final long treeSize = TreeMemoryEstimator.estimateRetainedSize(tree);
+
+    final TreeMemoryEstimator estimator = new TreeMemoryEstimator();
+    assertThat(estimator.add(tree)).isEqualTo(treeSize);
+    assertThat(estimator.add(tree)).isZero();
+    assertThat(estimator.getRetainedBytes()).isEqualTo(treeSize);
+  }
+
+  @Test
+  void add_shouldCountOnlyModifiedPathOfUpdatedTree() {
+    final TreeNode tree = createTree(100);
+    final TreeNode updatedTree = tree.updated((1L << 10) + 5, TreeTest.newTestLeaf(555));
+
+    final TreeMemoryEstimator estimator = new TreeMemoryEstimator();
+    estimator.add(tree);
+    final long addedBytes = estimator.add(updatedTree);
+
+    // the new leaf and one new branch node per level
+    final long expectedBytes =
+        TreeMemoryEstimator.estimateNodeSize(TreeTest.newTestLeaf(555))
+            + 10 * TreeMemoryEstimator.BRANCH_NODE_SIZE;
+    assertThat(addedBytes).isEqualTo(expectedBytes);
+  }
+
+  @Test
+  void estimateRetainedSize_shouldMatchAccumulatedEstimateForDerivedTree() {
+    final TreeNode tree = createTree(100);
+    final TreeNode updatedTree =
+        tree.updated((1L << 10) + 5, TreeTest.newTestLeaf(555))
+            .updated((1L << 10) + 700, TreeTest.newTestLeaf(777));
+
+    final TreeMemoryEstimator estimator = new TreeMemoryEstimator();
+    estimator.add(tree);
+
+    assertThat(TreeMemoryEstimator.estimateRetainedSize(updatedTree, tree))
+        .isEqualTo(estimator.add(updatedTree));
+  }
+
+  @Test
+  void estimateRetainedSize_shouldStopOnceLimitIsExceeded() {
+    final TreeNode tree = createTree(100);
+    final long treeSize = TreeMemoryEstimator.estimateRetainedSize(tree);
+
+    assertThat(TreeMemoryEstimator.estimateRetainedSize(tree, treeSize)).isEqualTo(treeSize);
+    assertThat(TreeMemoryEstimator.estimateRetainedSize(tree, treeSize / 2))
+        .isGreaterThan(treeSize / 2)
+        .isLessThan(treeSize);
+    assertThat(TreeMemoryEstimator.estimateRetainedSize(tree, LeafNode.EMPTY_LEAF, treeSize / 2))
+        .isGreaterThan(treeSize / 2)
+        .isLessThan(treeSize);
+  }
+
+  @Test
+  void estimateRetainedSize_shouldCountDefaultSubtreesOnce() {
+    final TreeNode zeroTree = TreeUtil.ZERO_TREES[40];
+    final long expectedSize =
+        TreeMemoryEstimator.estimateNodeSize(LeafNode.EMPTY_LEAF)
+            + IntStream.rangeClosed(1, 40)
+                .mapToLong(i -> TreeMemoryEstimator.estimateNodeSize(TreeUtil.ZERO_TREES[i]))
+                .sum();
+
+    assertThat(TreeMemoryEstimator.estimateRetainedSize(zeroTree)).isEqualTo(expectedSize);
+  }
+}
@@ -28,14 +28,19 @@ public class SnappyBlockCompressor {
       throws DecodingException {
 
     try {
-      final int actualLength = Snappy.uncompressedLength(compressedData.toArrayUnsafe());
+      final byte[] input = compressedData.toArrayUnsafe();
+      final int actualLength = Snappy.uncompressedLength(input);
       if (!lengthBounds.isWithinBounds(actualLength)) {
         throw new DecodingException(
             String.format(
                 "Uncompressed length %d is not within expected bounds %s",
                 actualLength, lengthBounds.toString()));
       }
-      return Bytes.wrap(Snappy.uncompress(compressedData.toArrayUnsafe()));
+      // Uncompress straight into an array of the already validated length rather than having
+      // Snappy parse the length header again and allocate the output itself
+      final byte[] output = new byte[actualLength];
+      Snappy.uncompress(input, 0, input.length, output, 0);
+      return Bytes.wrap(output);
     } catch (IOException e) {
       throw new DecodingException("Failed to uncompress", e);
     }
@@ -15,7 +15,6 @@ package tech.pegasys.teku.networking.eth2.gossip.encoding;
 
 import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
-import java.util.Optional;
 import org.apache.tuweni.bytes.Bytes;
 import tech.pegasys.teku.infrastructure.bytes.Bytes4;
 import tech.pegasys.teku.infrastructure.ssz.schema.SszSchema;
@@ -31,6 +30,9 @@ import tech.pegasys.teku.spec.SpecMilestone;
  *   SHA256(MESSAGE_DOMAIN_VALID_SNAPPY + snappy_decompress(message.data))[:20]
  * </code> The message payload is uncompressed lazily and cached for the final message handling:
  * {@link tech.pegasys.teku.networking.p2p.gossip.TopicHandler#handleMessage(PreparedGossipMessage)}
+ *
+ * <p>The same uncompressed payload is used to calculate the message id and to deserialize the
+ * message so each payload is only uncompressed once.
  */
 class SnappyPreparedGossipMessage implements PreparedGossipMessage {
   private final Bytes compressedData;
@@ -39,7 +41,7 @@ class SnappyPreparedGossipMessage implements PreparedGossipMessage {
   private final MessageIdCalculator messageIdCalculator;
 
   private final Supplier<DecodedMessageResult> decodedResult =
-      Suppliers.memoize(this::getDecodedMessage);
+      Suppliers.memoize(this::decodeMessage);
 
   static SnappyPreparedGossipMessage createUnknown(
       final String topic,
@@ -97,6 +99,10 @@ class SnappyPreparedGossipMessage implements PreparedGossipMessage {
 
   @Override
   public DecodedMessageResult getDecodedMessage() {
+    return decodedResult.get();
+  }
+
+  private DecodedMessageResult decodeMessage() {
     try {
       if (valueType == null) {
         return DecodedMessageResult.failed();
@@ -114,17 +120,14 @@ class SnappyPreparedGossipMessage implements PreparedGossipMessage {
     return compressedData;
   }
 
-  private Optional<Bytes> getUncompressed() {
-    return decodedResult.get().getDecodedMessage();
-  }
-
   private Bytes uncompressPayload() throws DecodingException {
     return snappyCompressor.uncompress(compressedData, valueType.getSszLengthBounds());
   }
 
   @Override
   public Bytes getMessageId() {
-    return getUncompressed()
+    return getDecodedMessage()
+        .getDecodedMessage()
         .map(messageIdCalculator::getValidMessageId)
         .orElseGet(messageIdCalculator::getInvalidMessageId);
   }
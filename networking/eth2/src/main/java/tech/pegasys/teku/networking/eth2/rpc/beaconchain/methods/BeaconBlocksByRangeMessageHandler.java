@@ -26,6 +26,7 @@ import java.util.Optional;
 import java.util.TreeMap;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.apache.tuweni.bytes.Bytes;
 import org.apache.tuweni.bytes.Bytes32;
 import tech.pegasys.teku.infrastructure.async.SafeFuture;
 import tech.pegasys.teku.infrastructure.unsigned.UInt64;
@@ -192,19 +193,11 @@ public class BeaconBlocksByRangeMessageHandler
         complete -> complete ? completedFuture(requestState) : sendNextBlock(requestState));
   }
 
+  /** Sends the next block, if any, and returns true if the request is now complete. */
   private SafeFuture<Boolean> processNextBlock(final RequestState requestState) {
     // Ensure blocks are loaded off of the event thread
     return requestState
-        .loadNextBlock()
-        .thenCompose(block -> handleLoadedBlock(requestState, block));
-  }
-
-  /** Sends the block and returns true if the request is now complete. */
-  private SafeFuture<Boolean> handleLoadedBlock(
-      final RequestState requestState, final Optional<SignedBeaconBlock> block) {
-    return block
-        .map(requestState::sendBlock)
-        .orElse(SafeFuture.COMPLETE)
+        .loadAndSendNextBlock()
         .thenApply(
             __ -> {
               if (requestState.isComplete()) {
@@ -253,13 +246,25 @@ public class BeaconBlocksByRangeMessageHandler
       return !needsMoreBlocks() || hasReachedHeadSlot();
     }
 
-    SafeFuture<Void> sendBlock(final SignedBeaconBlock block) {
+    private SafeFuture<Void> sendBlock(final Optional<SignedBeaconBlock> block) {
+      if (block.isEmpty()) {
+        return SafeFuture.COMPLETE;
+      }
+      onBlockSent();
+      return callback.respond(block.get());
+    }
+
+    private SafeFuture<Void> sendSerializedBlock(final UInt64 slot, final Bytes blockSsz) {
+      onBlockSent();
+      return callback.respondSerialized(slot, blockSsz);
+    }
+
+    private void onBlockSent() {
       // request step is deprecated, if a step greater than 1 is requested, only return the first
       // block
       if (step.isGreaterThan(1L)) {
         remainingBlocks = ZERO;
       }
-      return callback.respond(block);
     }
 
     void incrementCurrentSlot() {
@@ -267,22 +272,34 @@ public class BeaconBlocksByRangeMessageHandler
       currentSlot = currentSlot.plus(step);
     }
 
-    SafeFuture<Optional<SignedBeaconBlock>> loadNextBlock() {
+    SafeFuture<Void> loadAndSendNextBlock() {
       final UInt64 slot = this.currentSlot;
       final Bytes32 knownBlockRoot = knownBlockRoots.get(slot);
       if (knownBlockRoot != null) {
         // Known root so lookup by root
         return combinedChainDataClient
             .getBlockByBlockRoot(knownBlockRoot)
-            .thenApply(maybeBlock -> maybeBlock.filter(block -> block.getSlot().equals(slot)));
+            .thenApply(maybeBlock -> maybeBlock.filter(block -> block.getSlot().equals(slot)))
+            .thenCompose(this::sendBlock);
       } else if ((!knownBlockRoots.isEmpty() && slot.compareTo(knownBlockRoots.firstKey()) >= 0)
           || slot.compareTo(headSlot) > 0) {
         // Unknown root but not finalized means this is an empty slot
         // Could also be because the first block requested is above our head slot
-        return SafeFuture.completedFuture(Optional.empty());
+        return SafeFuture.COMPLETE;
       } else {
-        // Must be a finalized block so lookup by slot
-        return combinedChainDataClient.getBlockAtSlotExact(slot);
+        // Must be a finalized block so send the stored SSZ directly, avoiding deserializing it
+        // only to reserialize it. Fall back to looking up by slot if it isn't stored yet.
+        return combinedChainDataClient
+            .getFinalizedBlockBytesAtSlot(slot)
+            .thenCompose(
+                maybeBlockSsz ->
+                    maybeBlockSsz
+                        .map(blockSsz -> sendSerializedBlock(slot, blockSsz))
+                        .orElseGet(
+                            () ->
+                                combinedChainDataClient
+                                    .getBlockAtSlotExact(slot)
+                                    .thenCompose(this::sendBlock)));
       }
     }
   }
@@ -13,11 +13,22 @@
 
 package tech.pegasys.teku.networking.eth2.rpc.core;
 
+import org.apache.tuweni.bytes.Bytes;
 import tech.pegasys.teku.infrastructure.async.SafeFuture;
+import tech.pegasys.teku.infrastructure.unsigned.UInt64;
 
 public interface ResponseCallback<T> {
   SafeFuture<Void> respond(T data);
 
+  /**
+   * Sends a response which has already been SSZ serialized, avoiding deserializing and
+   * reserializing data which is stored in serialized form.
+   *
+   * @param slot the slot of the response, used to select the fork context
+   * @param sszData the SSZ serialized response
+   */
+  SafeFuture<Void> respondSerialized(UInt64 slot, Bytes sszData);
+
   void respondAndCompleteSuccessfully(T data);
 
   void completeSuccessfully();
@@ -19,6 +19,7 @@ import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.tuweni.bytes.Bytes;
 import org.junit.jupiter.api.Test;
 import tech.pegasys.teku.infrastructure.bytes.Bytes4;
@@ -155,6 +156,24 @@ public class SnappyPreparedGossipMessageTest {
     assertThat(messageIds).hasSize(preparedMessages.size());
   }
 
+  @Test
+  public void getDecodedMessage_shouldOnlyUncompressOnce() {
+    final String topic = GossipTopics.getTopic(altairForkDigest, "test", gossipEncoding);
+    final AtomicInteger uncompressCount = new AtomicInteger();
+    final Uncompressor countingUncompressor =
+        (bytes, __) -> {
+          uncompressCount.incrementAndGet();
+          return bytes;
+        };
+    final SnappyPreparedGossipMessage message =
+        getAltairMessage(messageBytes, topic, countingUncompressor);
+
+    message.getMessageId();
+    assertThat(message.getDecodedMessage().getDecodedMessage()).contains(messageBytes);
+    assertThat(message.getDecodedMessage().getDecodedMessage()).contains(messageBytes);
+    assertThat(uncompressCount).hasValue(1);
+  }
+
   private SnappyPreparedGossipMessage getPhase0Message(
       final Bytes rawMessage, final String topic, final Uncompressor uncompressor) {
     return SnappyPreparedGossipMessage.create(
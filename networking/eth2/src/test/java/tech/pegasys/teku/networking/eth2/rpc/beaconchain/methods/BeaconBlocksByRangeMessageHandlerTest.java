@@ -96,6 +96,10 @@ class BeaconBlocksByRangeMessageHandlerTest {
     when(peer.wantToReceiveObjects(any(), anyLong())).thenReturn(true);
     when(combinedChainDataClient.getEarliestAvailableBlockSlot())
         .thenReturn(completedFuture(Optional.of(ZERO)));
+    when(combinedChainDataClient.getFinalizedBlockBytesAtSlot(any()))
+        .thenReturn(completedFuture(Optional.empty()));
+    when(listener.respond(any())).thenReturn(SafeFuture.COMPLETE);
+    when(listener.respondSerialized(any(), any())).thenReturn(SafeFuture.COMPLETE);
   }
 
   @Test
@@ -414,6 +418,23 @@ class BeaconBlocksByRangeMessageHandlerTest {
     verifyBlocksReturned(1, 2, 3, 4, 5);
   }
 
+  @Test
+  void shouldSendStoredSszForFinalizedBlocks() {
+    withCanonicalHeadBlock(blocksWStates.get(8));
+    withFinalizedBlocks(0, 1, 2, 3, 4, 5, 6, 7);
+    withSerializedFinalizedBlocks(1, 2);
+
+    requestBlocks(1, 3, 1);
+
+    final InOrder inOrder = Mockito.inOrder(listener);
+    inOrder.verify(listener).respondSerialized(ONE, blocks.get(1).sszSerialize());
+    inOrder.verify(listener).respondSerialized(UInt64.valueOf(2), blocks.get(2).sszSerialize());
+    // Not available in serialized form so loaded by slot instead
+    inOrder.verify(listener).respond(blocks.get(3));
+    inOrder.verify(listener).completeSuccessfully();
+    verifyNoMoreInteractions(listener);
+  }
+
   private void requestBlocks(final int startBlock, final long count, final int skip) {
 
     handler.onIncomingMessage(
@@ -477,6 +498,15 @@ class BeaconBlocksByRangeMessageHandlerTest {
             });
   }
 
+  private void withSerializedFinalizedBlocks(final int... slots) {
+    IntStream.of(slots)
+        .mapToObj(blocks::get)
+        .forEach(
+            block ->
+                when(combinedChainDataClient.getFinalizedBlockBytesAtSlot(block.getSlot()))
+                    .thenReturn(completedFuture(Optional.of(block.sszSerialize()))));
+  }
+
   private void withCanonicalHeadBlock(final StateAndBlockSummary chainHead) {
     when(combinedChainDataClient.getChainHead())
         .thenReturn(Optional.of(ChainHead.create(chainHead)));
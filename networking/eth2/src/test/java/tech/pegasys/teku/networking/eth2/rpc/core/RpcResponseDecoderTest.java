@@ -24,6 +24,7 @@ import org.apache.tuweni.bytes.Bytes;
 import org.junit.jupiter.api.Test;
 import tech.pegasys.teku.infrastructure.bytes.Bytes4;
 import tech.pegasys.teku.infrastructure.ssz.schema.SszSchema;
+import tech.pegasys.teku.infrastructure.unsigned.UInt64;
 import tech.pegasys.teku.networking.eth2.rpc.core.RpcException.DeserializationFailedException;
 import tech.pegasys.teku.networking.eth2.rpc.core.RpcException.LengthOutOfBoundsException;
 import tech.pegasys.teku.networking.eth2.rpc.core.RpcException.MessageTruncatedException;
@@ -312,6 +313,12 @@ class RpcResponseDecoderTest extends RpcDecoderTestBase {
       return Bytes.EMPTY;
     }
 
+    @Override
+    public Bytes encodeContextForSlot(final UInt64 slot) {
+      // Unused for these tests
+      return Bytes.EMPTY;
+    }
+
     @Override
     public Optional<SszSchema<BeaconState>> getSchemaFromContext(final Bytes4 forkDigest) {
       final SszSchema<BeaconState> phase0Schema =
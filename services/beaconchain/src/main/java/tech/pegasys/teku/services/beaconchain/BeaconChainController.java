@@ -83,7 +83,10 @@ import tech.pegasys.teku.spec.datastructures.operations.ProposerSlashing;
 import tech.pegasys.teku.spec.datastructures.operations.SignedVoluntaryExit;
 import tech.pegasys.teku.spec.datastructures.state.AnchorPoint;
 import tech.pegasys.teku.spec.datastructures.state.beaconstate.BeaconState;
+import tech.pegasys.teku.spec.datastructures.state.beaconstate.common.KnownValidatorPublicKeys;
 import tech.pegasys.teku.spec.executionlayer.ExecutionLayerChannel;
+import tech.pegasys.teku.spec.logic.common.util.AsyncBLSSignatureVerifier;
+import tech.pegasys.teku.statetransition.CheckpointStatePrecomputer;
 import tech.pegasys.teku.statetransition.EpochCachePrimer;
 import tech.pegasys.teku.statetransition.LocalOperationAcceptedFilter;
 import tech.pegasys.teku.statetransition.OperationPool;
@@ -122,6 +125,7 @@ import tech.pegasys.teku.statetransition.validation.ProposerSlashingValidator;
 import tech.pegasys.teku.statetransition.validation.VoluntaryExitValidator;
 import tech.pegasys.teku.statetransition.validation.signatures.AggregatingSignatureVerificationService;
 import tech.pegasys.teku.statetransition.validation.signatures.SignatureVerificationService;
+import tech.pegasys.teku.statetransition.validation.signatures.SignatureVerificationService.Priority;
 import tech.pegasys.teku.statetransition.validatorcache.ActiveValidatorCache;
 import tech.pegasys.teku.statetransition.validatorcache.ActiveValidatorChannel;
 import tech.pegasys.teku.storage.api.ChainHeadChannel;
@@ -132,6 +136,8 @@ import tech.pegasys.teku.storage.api.VoteUpdateChannel;
 import tech.pegasys.teku.storage.client.CombinedChainDataClient;
 import tech.pegasys.teku.storage.client.RecentChainData;
 import tech.pegasys.teku.storage.client.StorageBackedRecentChainData;
+import tech.pegasys.teku.storage.pubkeys.ValidatorPublicKeyFile;
+import tech.pegasys.teku.storage.pubkeys.ValidatorPublicKeyFileUpdater;
 import tech.pegasys.teku.storage.store.FileKeyValueStore;
 import tech.pegasys.teku.storage.store.KeyValueStore;
 import tech.pegasys.teku.storage.store.StoreConfig;
@@ -166,6 +172,7 @@ public class BeaconChainController extends Service implements BeaconChainControl
 
   private final SettableLabelledGauge futureItemsMetric;
   protected static final String KEY_VALUE_STORE_SUBDIRECTORY = "kvstore";
+  protected static final String VALIDATOR_PUBLIC_KEYS_FILE = "validator-pubkeys.dat";
 
   protected volatile BeaconChainConfiguration beaconConfig;
   protected volatile Spec spec;
@@ -213,6 +220,7 @@ public class BeaconChainController extends Service implements BeaconChainControl
   protected volatile Optional<MergeTransitionConfigCheck> mergeTransitionConfigCheck =
       Optional.empty();
   protected volatile ProposersDataManager proposersDataManager;
+  protected volatile Optional<ValidatorPublicKeyFile> validatorPublicKeyFile = Optional.empty();
 
   protected UInt64 genesisTimeTracker = ZERO;
   protected BlockManager blockManager;
@@ -309,7 +317,8 @@ public class BeaconChainController extends Service implements BeaconChainControl
             mergeTransitionConfigCheck
                 .map(MergeTransitionConfigCheck::stop)
                 .orElse(SafeFuture.completedFuture(null)))
-        .thenRun(forkChoiceExecutor::stop);
+        .thenRun(forkChoiceExecutor::stop)
+        .thenRun(this::closeValidatorPublicKeyFile);
   }
 
   protected SafeFuture<?> initialize() {
@@ -361,6 +370,7 @@ public class BeaconChainController extends Service implements BeaconChainControl
 
   public void initAll() {
     initExecutionLayer();
+    initValidatorPublicKeys();
     initForkChoiceNotifier();
     initMergeMonitors();
     initForkChoice();
@@ -413,6 +423,38 @@ public class BeaconChainController extends Service implements BeaconChainControl
     }
   }
 
+  protected void initValidatorPublicKeys() {
+    LOG.debug("BeaconChainController.initValidatorPublicKeys()");
+    final Path publicKeysFile = beaconDataDirectory.resolve(VALIDATOR_PUBLIC_KEYS_FILE);
+    try {
+      final ValidatorPublicKeyFile publicKeyFile = ValidatorPublicKeyFile.open(publicKeysFile);
+      validatorPublicKeyFile = Optional.of(publicKeyFile);
+      final KnownValidatorPublicKeys knownPublicKeys = spec.getKnownValidatorPublicKeys();
+      final int loadedCount = publicKeyFile.loadInto(knownPublicKeys);
+      LOG.debug("Loaded {} validator public keys from {}", loadedCount, publicKeysFile);
+      final ValidatorPublicKeyFileUpdater updater =
+          new ValidatorPublicKeyFileUpdater(
+              publicKeyFile, knownPublicKeys, recentChainData, beaconAsyncRunner);
+      eventChannels.subscribe(FinalizedCheckpointChannel.class, updater);
+      recentChainData.subscribeStoreInitialized(updater::requestUpdate);
+    } catch (final IOException | RuntimeException e) {
+      LOG.warn("Unable to use validator public keys file {}", publicKeysFile, e);
+      closeValidatorPublicKeyFile();
+    }
+  }
+
+  private void closeValidatorPublicKeyFile() {
+    validatorPublicKeyFile.ifPresent(
+        publicKeyFile -> {
+          try {
+            publicKeyFile.close();
+          } catch (final IOException e) {
+            LOG.warn("Failed to close validator public keys file", e);
+          }
+        });
+    validatorPublicKeyFile = Optional.empty();
+  }
+
   protected void initPendingBlocks() {
     LOG.debug("BeaconChainController.initPendingBlocks()");
     pendingBlocks = pendingPoolFactory.createForBlocks(spec);
@@ -671,8 +713,14 @@ public class BeaconChainController extends Service implements BeaconChainControl
             "attestations");
     AttestationValidator attestationValidator =
         new AttestationValidator(spec, recentChainData, signatureVerificationService);
+    // All the signatures of an aggregate, including the inner attestation one, use the HIGH lane
+    AsyncBLSSignatureVerifier aggregateSignatureVerifier =
+        signatureVerificationService.withPriority(Priority.HIGH);
     AggregateAttestationValidator aggregateValidator =
-        new AggregateAttestationValidator(spec, attestationValidator, signatureVerificationService);
+        new AggregateAttestationValidator(
+            spec,
+            new AttestationValidator(spec, recentChainData, aggregateSignatureVerifier),
+            aggregateSignatureVerifier);
     blockImporter.subscribeToVerifiedBlockAttestations(
         (slot, attestations) ->
             attestations.forEach(
@@ -707,7 +755,7 @@ public class BeaconChainController extends Service implements BeaconChainControl
                 recentChainData,
                 syncCommitteeStateUtils,
                 timeProvider,
-                signatureVerificationService));
+                signatureVerificationService.withPriority(Priority.HIGH)));
 
     syncCommitteeMessagePool =
         new SyncCommitteeMessagePool(
@@ -793,7 +841,10 @@ public class BeaconChainController extends Service implements BeaconChainControl
             forkChoiceNotifier,
             p2pNetwork,
             slotEventsChannelPublisher,
-            new EpochCachePrimer(spec, recentChainData));
+            new EpochCachePrimer(
+                spec,
+                recentChainData,
+                new CheckpointStatePrecomputer(spec, recentChainData, metricsSystem)));
   }
 
   public void initAttestationPool() {
@@ -25,6 +25,8 @@ public class StorageConfiguration {
 
   public static final boolean DEFAULT_STORE_NON_CANONICAL_BLOCKS_ENABLED = false;
   public static final int DEFAULT_MAX_KNOWN_NODE_CACHE_SIZE = 100_000;
+  public static final boolean DEFAULT_FINALIZED_BLOCK_SEGMENTS_ENABLED = false;
+  public static final boolean DEFAULT_STATE_TREE_GARBAGE_COLLECTION_ENABLED = false;
 
   private final Eth1Address eth1DepositContract;
 
@@ -35,6 +37,8 @@ public class StorageConfiguration {
   private final boolean storeNonCanonicalBlocks;
   private final int maxKnownNodeCacheSize;
   private final boolean storeVotesEquivocation;
+  private final boolean finalizedBlockSegmentsEnabled;
+  private final boolean stateTreeGarbageCollectionEnabled;
 
   private StorageConfiguration(
       final Eth1Address eth1DepositContract,
@@ -44,6 +48,8 @@ public class StorageConfiguration {
       final boolean storeNonCanonicalBlocks,
       final int maxKnownNodeCacheSize,
       final boolean storeVotesEquivocation,
+      final boolean finalizedBlockSegmentsEnabled,
+      final boolean stateTreeGarbageCollectionEnabled,
       final Spec spec) {
     this.eth1DepositContract = eth1DepositContract;
     this.dataStorageMode = dataStorageMode;
@@ -52,6 +58,8 @@ public class StorageConfiguration {
     this.storeNonCanonicalBlocks = storeNonCanonicalBlocks;
     this.maxKnownNodeCacheSize = maxKnownNodeCacheSize;
     this.storeVotesEquivocation = storeVotesEquivocation;
+    this.finalizedBlockSegmentsEnabled = finalizedBlockSegmentsEnabled;
+    this.stateTreeGarbageCollectionEnabled = stateTreeGarbageCollectionEnabled;
     this.spec = spec;
   }
 
@@ -87,6 +95,14 @@ public class StorageConfiguration {
     return storeVotesEquivocation;
   }
 
+  public boolean isFinalizedBlockSegmentsEnabled() {
+    return finalizedBlockSegmentsEnabled;
+  }
+
+  public boolean isStateTreeGarbageCollectionEnabled() {
+    return stateTreeGarbageCollectionEnabled;
+  }
+
   public Spec getSpec() {
     return spec;
   }
@@ -102,6 +118,9 @@ public class StorageConfiguration {
     private Spec spec;
     private boolean storeNonCanonicalBlocks = DEFAULT_STORE_NON_CANONICAL_BLOCKS_ENABLED;
     private int maxKnownNodeCacheSize = DEFAULT_MAX_KNOWN_NODE_CACHE_SIZE;
+    private boolean finalizedBlockSegmentsEnabled = DEFAULT_FINALIZED_BLOCK_SEGMENTS_ENABLED;
+    private boolean stateTreeGarbageCollectionEnabled =
+        DEFAULT_STATE_TREE_GARBAGE_COLLECTION_ENABLED;
 
     private Builder() {}
 
@@ -160,6 +179,17 @@ public class StorageConfiguration {
       return this;
     }
 
+    public Builder finalizedBlockSegmentsEnabled(final boolean finalizedBlockSegmentsEnabled) {
+      this.finalizedBlockSegmentsEnabled = finalizedBlockSegmentsEnabled;
+      return this;
+    }
+
+    public Builder stateTreeGarbageCollectionEnabled(
+        final boolean stateTreeGarbageCollectionEnabled) {
+      this.stateTreeGarbageCollectionEnabled = stateTreeGarbageCollectionEnabled;
+      return this;
+    }
+
     public StorageConfiguration build() {
       return new StorageConfiguration(
           eth1DepositContract,
@@ -169,6 +199,8 @@ public class StorageConfiguration {
           storeNonCanonicalBlocks,
           maxKnownNodeCacheSize,
           storeVotesEquivocation,
+          finalizedBlockSegmentsEnabled,
+          stateTreeGarbageCollectionEnabled,
           spec);
     }
   }
@@ -15,7 +15,13 @@ package tech.pegasys.teku.services.chainstorage;
 
 import static tech.pegasys.teku.spec.config.Constants.STORAGE_QUERY_CHANNEL_PARALLELISM;
 
+import java.time.Duration;
+import java.util.Optional;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import tech.pegasys.teku.ethereum.pow.api.Eth1EventsChannel;
+import tech.pegasys.teku.infrastructure.async.AsyncRunner;
+import tech.pegasys.teku.infrastructure.async.Cancellable;
 import tech.pegasys.teku.infrastructure.async.SafeFuture;
 import tech.pegasys.teku.service.serviceutils.Service;
 import tech.pegasys.teku.service.serviceutils.ServiceConfig;
@@ -29,10 +35,15 @@ import tech.pegasys.teku.storage.server.DepositStorage;
 import tech.pegasys.teku.storage.server.VersionedDatabaseFactory;
 
 public class StorageService extends Service implements StorageServiceFacade {
+  private static final Logger LOG = LogManager.getLogger();
+  private static final Duration GARBAGE_COLLECTION_INTERVAL = Duration.ofHours(6);
+  private static final Duration PENDING_UPDATES_FLUSH_TIMEOUT = Duration.ofSeconds(30);
+
   private final StorageConfiguration config;
   private volatile ChainStorage chainStorage;
   private final ServiceConfig serviceConfig;
   private volatile Database database;
+  private volatile Optional<Cancellable> garbageCollectionTask = Optional.empty();
 
   public StorageService(
       final ServiceConfig serviceConfig, final StorageConfiguration storageConfiguration) {
@@ -55,10 +66,16 @@ public class StorageService extends Service implements StorageServiceFacade {
                   config.isStoreNonCanonicalBlocksEnabled(),
                   config.getMaxKnownNodeCacheSize(),
                   config.isStoreVotesEquivocation(),
+                  config.isFinalizedBlockSegmentsEnabled(),
                   config.getSpec());
           database = dbFactory.createDatabase();
 
-          chainStorage = ChainStorage.create(database, config.getSpec());
+          chainStorage =
+              ChainStorage.createWithGroupCommit(
+                  database,
+                  config.getSpec(),
+                  serviceConfig.getMetricsSystem(),
+                  serviceConfig.createAsyncRunner("storageUpdates", 1));
           final DepositStorage depositStorage =
               DepositStorage.create(
                   serviceConfig.getEventChannels().getPublisher(Eth1EventsChannel.class), database);
@@ -71,15 +88,30 @@ public class StorageService extends Service implements StorageServiceFacade {
               .subscribe(VoteUpdateChannel.class, chainStorage)
               .subscribeMultithreaded(
                   StorageQueryChannel.class, chainStorage, STORAGE_QUERY_CHANNEL_PARALLELISM);
+
+          if (config.isStateTreeGarbageCollectionEnabled()) {
+            final AsyncRunner garbageCollectionRunner =
+                serviceConfig.createAsyncRunner("storageGarbageCollection", 1);
+            garbageCollectionTask =
+                Optional.of(
+                    garbageCollectionRunner.runWithFixedDelay(
+                        database::collectGarbage,
+                        GARBAGE_COLLECTION_INTERVAL,
+                        error -> LOG.error("Failed to remove unreferenced finalized data", error)));
+          }
         });
   }
 
   @Override
   protected SafeFuture<?> doStop() {
-    return SafeFuture.fromRunnable(
-        () -> {
-          database.close();
-        });
+    garbageCollectionTask.ifPresent(Cancellable::cancel);
+    // Commit any queued updates before closing the database so they aren't lost on shutdown
+    final SafeFuture<Void> pendingUpdatesFlushed =
+        chainStorage != null ? chainStorage.flush() : SafeFuture.COMPLETE;
+    return pendingUpdatesFlushed
+        .orTimeout(PENDING_UPDATES_FLUSH_TIMEOUT)
+        .handleException(error -> LOG.error("Failed to commit pending storage updates", error))
+        .thenCompose(__ -> SafeFuture.fromRunnable(database::close));
   }
 
   @Override
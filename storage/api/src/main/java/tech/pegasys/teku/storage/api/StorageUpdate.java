@@ -71,6 +71,16 @@ public class StorageUpdate {
         && stateRoots.isEmpty();
   }
 
+  /**
+   * Returns true if this update only adds hot data and checkpoints, without finalizing or deleting
+   * anything, so it can be committed together with other hot only updates.
+   */
+  public boolean isHotOnly() {
+    return finalizedChainData.isEmpty()
+        && deletedHotBlocks.isEmpty()
+        && !optimisticTransitionBlockRootSet;
+  }
+
   public Optional<UInt64> getGenesisTime() {
     return genesisTime;
   }
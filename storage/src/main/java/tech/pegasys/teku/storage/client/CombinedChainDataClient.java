@@ -26,6 +26,7 @@ import java.util.Optional;
 import java.util.stream.Collectors;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.apache.tuweni.bytes.Bytes;
 import org.apache.tuweni.bytes.Bytes32;
 import tech.pegasys.teku.infrastructure.async.SafeFuture;
 import tech.pegasys.teku.infrastructure.unsigned.UInt64;
@@ -140,6 +141,18 @@ public class CombinedChainDataClient {
     return historicalChainData.getLatestFinalizedBlockAtSlot(slot);
   }
 
+  /**
+   * Returns the SSZ serialized finalized block proposed at the requested slot from historical
+   * storage without deserializing it. Finalized blocks which are only available from recent chain
+   * data are not returned.
+   *
+   * @param slot the slot to get the block for
+   * @return the serialized block at the requested slot or empty if not available
+   */
+  public SafeFuture<Optional<Bytes>> getFinalizedBlockBytesAtSlot(final UInt64 slot) {
+    return historicalChainData.getFinalizedBlockBytesAtSlot(slot);
+  }
+
   public SafeFuture<Optional<BeaconBlockAndState>> getBlockAndStateInEffectAtSlot(
       final UInt64 slot) {
     return getSignedBlockAndStateInEffectAtSlot(slot)
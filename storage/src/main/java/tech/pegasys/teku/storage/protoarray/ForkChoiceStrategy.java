@@ -13,10 +13,14 @@
 
 package tech.pegasys.teku.storage.protoarray;
 
+import static java.lang.Math.toIntExact;
+import static tech.pegasys.teku.storage.protoarray.ProtoArrayNodes.NO_NODE;
+
 import com.google.common.annotations.VisibleForTesting;
 import it.unimi.dsi.fastutil.longs.LongList;
 import it.unimi.dsi.fastutil.objects.Object2IntMap;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
@@ -25,6 +29,7 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntFunction;
 import java.util.stream.Collectors;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -50,19 +55,31 @@ public class ForkChoiceStrategy implements BlockMetadataStore, ReadOnlyForkChoic
   private final ReadWriteLock balancesLock = new ReentrantReadWriteLock();
   private final Spec spec;
   private final ProtoArray protoArray;
+  private final ProtoArrayVotes votes = new ProtoArrayVotes();
 
-  private List<UInt64> balances;
+  private List<UInt64> balancesList = List.of();
+  private long[] balances = new long[0];
   private Optional<Bytes32> proposerBoostRoot = Optional.empty();
   private UInt64 proposerBoostAmount = UInt64.ZERO;
 
-  private ForkChoiceStrategy(Spec spec, ProtoArray protoArray, List<UInt64> balances) {
+  private ForkChoiceStrategy(Spec spec, ProtoArray protoArray) {
     this.spec = spec;
     this.protoArray = protoArray;
-    this.balances = balances;
   }
 
   public static ForkChoiceStrategy initialize(final Spec spec, final ProtoArray protoArray) {
-    return new ForkChoiceStrategy(spec, protoArray, new ArrayList<>());
+    return new ForkChoiceStrategy(spec, protoArray);
+  }
+
+  /**
+   * Creates a strategy with existing votes. Votes must then only be changed through the strategy,
+   * which keeps its own copy of them to compute score changes.
+   */
+  public static ForkChoiceStrategy initialize(
+      final Spec spec, final ProtoArray protoArray, final Map<UInt64, VoteTracker> votes) {
+    final ForkChoiceStrategy strategy = new ForkChoiceStrategy(spec, protoArray);
+    votes.forEach(strategy::setVote);
+    return strategy;
   }
 
   public SlotAndBlockRoot findHead(
@@ -108,13 +125,15 @@ public class ForkChoiceStrategy implements BlockMetadataStore, ReadOnlyForkChoic
     votesLock.writeLock().lock();
     balancesLock.writeLock().lock();
     try {
+      final long[] newBalances = toLongArray(justifiedStateEffectiveBalances);
       LongList deltas =
           ProtoArrayScoreCalculator.computeDeltas(
+              votes,
               voteUpdater,
               getTotalTrackedNodeCount(),
               protoArray::getIndexByRoot,
               balances,
-              justifiedStateEffectiveBalances,
+              newBalances,
               this.proposerBoostRoot,
               proposerBoostRoot,
               this.proposerBoostAmount,
@@ -122,7 +141,8 @@ public class ForkChoiceStrategy implements BlockMetadataStore, ReadOnlyForkChoic
 
       protoArray.applyScoreChanges(
           deltas, justifiedCheckpoint.getEpoch(), finalizedCheckpoint.getEpoch());
-      balances = justifiedStateEffectiveBalances;
+      balancesList = justifiedStateEffectiveBalances;
+      balances = newBalances;
       this.proposerBoostRoot = proposerBoostRoot;
       this.proposerBoostAmount = proposerBoostAmount;
 
@@ -134,7 +154,20 @@ public class ForkChoiceStrategy implements BlockMetadataStore, ReadOnlyForkChoic
     }
   }
 
+  private long[] toLongArray(final List<UInt64> effectiveBalances) {
+    // The same list is usually supplied until the justified checkpoint changes
+    if (effectiveBalances == balancesList) {
+      return balances;
+    }
+    final long[] result = new long[effectiveBalances.size()];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = effectiveBalances.get(i).longValue();
+    }
+    return result;
+  }
+
   public void onAttestation(final VoteUpdater voteUpdater, final IndexedAttestation attestation) {
+    protoArrayLock.readLock().lock();
     votesLock.writeLock().lock();
     try {
       attestation
@@ -148,18 +181,41 @@ public class ForkChoiceStrategy implements BlockMetadataStore, ReadOnlyForkChoic
                       attestation.getData().getBeaconBlockRoot(),
                       attestation.getData().getTarget().getEpoch()));
     } finally {
+      protoArrayLock.readLock().unlock();
       votesLock.writeLock().unlock();
     }
   }
 
   public void applyDeferredAttestations(final VoteUpdater voteUpdater, final DeferredVotes votes) {
     final UInt64 targetEpoch = spec.computeEpochAtSlot(votes.getSlot());
+    protoArrayLock.readLock().lock();
     votesLock.writeLock().lock();
     try {
       votes.forEachDeferredVote(
           (blockRoot, validatorIndex) ->
               processAttestation(voteUpdater, validatorIndex, blockRoot, targetEpoch));
     } finally {
+      protoArrayLock.readLock().unlock();
+      votesLock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Marks the next votes of the validators as equivocating, so their balance is removed from fork
+   * choice the next time votes are applied.
+   */
+  public void applyEquivocatingIndices(
+      final VoteUpdater voteUpdater, final Collection<UInt64> validatorIndices) {
+    protoArrayLock.readLock().lock();
+    votesLock.writeLock().lock();
+    try {
+      for (UInt64 validatorIndex : validatorIndices) {
+        final VoteTracker vote = voteUpdater.getVote(validatorIndex).createNextEquivocating();
+        voteUpdater.putVote(validatorIndex, vote);
+        setVote(validatorIndex, vote);
+      }
+    } finally {
+      protoArrayLock.readLock().unlock();
       votesLock.writeLock().unlock();
     }
   }
@@ -168,13 +224,14 @@ public class ForkChoiceStrategy implements BlockMetadataStore, ReadOnlyForkChoic
   public List<ProtoNodeData> getChainHeads() {
     protoArrayLock.readLock().lock();
     try {
-      return protoArray.getNodes().stream()
-          .filter(
-              protoNode ->
-                  protoNode.getBestChildIndex().isEmpty()
-                      && protoArray.nodeIsViableForHead(protoNode))
-          .map(ProtoNode::getBlockData)
-          .collect(Collectors.toList());
+      final List<ProtoNodeData> chainHeads = new ArrayList<>();
+      for (int nodeIndex = 0; nodeIndex < protoArray.getTotalTrackedNodeCount(); nodeIndex++) {
+        if (protoArray.getBestChildIndex(nodeIndex) == NO_NODE
+            && protoArray.nodeIsViableForHead(nodeIndex)) {
+          chainHeads.add(protoArray.getBlockData(nodeIndex));
+        }
+      }
+      return chainHeads;
     } finally {
       protoArrayLock.readLock().unlock();
     }
@@ -191,14 +248,10 @@ public class ForkChoiceStrategy implements BlockMetadataStore, ReadOnlyForkChoic
               finalizedCheckpoint.getEpoch());
       final Bytes32 headExecutionBlockHash = headNode.getExecutionBlockHash();
       final Bytes32 justifiedExecutionHash =
-          protoArray
-              .getProtoNode(justifiedCheckpoint.getRoot())
-              .map(ProtoNode::getExecutionBlockHash)
+          getNodeValue(justifiedCheckpoint.getRoot(), protoArray::getExecutionBlockHash)
               .orElse(Bytes32.ZERO);
       final Bytes32 finalizedExecutionHash =
-          protoArray
-              .getProtoNode(finalizedCheckpoint.getRoot())
-              .map(ProtoNode::getExecutionBlockHash)
+          getNodeValue(finalizedCheckpoint.getRoot(), protoArray::getExecutionBlockHash)
               .orElse(Bytes32.ZERO);
       return new ForkChoiceState(
           headNode.getBlockRoot(),
@@ -226,18 +279,29 @@ public class ForkChoiceStrategy implements BlockMetadataStore, ReadOnlyForkChoic
 
   void processAttestation(
       VoteUpdater voteUpdater, UInt64 validatorIndex, Bytes32 blockRoot, UInt64 targetEpoch) {
-    VoteTracker vote = voteUpdater.getVote(validatorIndex);
+    final int index = toIntExact(validatorIndex.longValue());
     // Not updating anything for equivocated validators
-    if (vote.isEquivocating()) {
+    if (votes.isEquivocating(index)) {
       return;
     }
 
-    if (targetEpoch.isGreaterThan(vote.getNextEpoch()) || vote.equals(VoteTracker.DEFAULT)) {
+    if (Long.compareUnsigned(targetEpoch.longValue(), votes.getNextEpoch(index)) > 0
+        || votes.isDefault(index)) {
+      VoteTracker vote = voteUpdater.getVote(validatorIndex);
       VoteTracker newVote = new VoteTracker(vote.getCurrentRoot(), blockRoot, targetEpoch);
       voteUpdater.putVote(validatorIndex, newVote);
+      votes.setVote(index, newVote, this::getNodeIndex);
     }
   }
 
+  private void setVote(final UInt64 validatorIndex, final VoteTracker vote) {
+    votes.setVote(toIntExact(validatorIndex.longValue()), vote, this::getNodeIndex);
+  }
+
+  private int getNodeIndex(final Bytes32 blockRoot) {
+    return protoArray.getNodeIndex(blockRoot);
+  }
+
   public void setPruneThreshold(int pruneThreshold) {
     protoArrayLock.writeLock().lock();
     try {
@@ -270,7 +334,7 @@ public class ForkChoiceStrategy implements BlockMetadataStore, ReadOnlyForkChoic
   public Optional<UInt64> blockSlot(Bytes32 blockRoot) {
     protoArrayLock.readLock().lock();
     try {
-      return getProtoNode(blockRoot).map(ProtoNode::getBlockSlot);
+      return getNodeValue(blockRoot, protoArray::getBlockSlot);
     } finally {
       protoArrayLock.readLock().unlock();
     }
@@ -280,7 +344,7 @@ public class ForkChoiceStrategy implements BlockMetadataStore, ReadOnlyForkChoic
   public Optional<Bytes32> executionBlockHash(final Bytes32 beaconBlockRoot) {
     protoArrayLock.readLock().lock();
     try {
-      return getProtoNode(beaconBlockRoot).map(ProtoNode::getExecutionBlockHash);
+      return getNodeValue(beaconBlockRoot, protoArray::getExecutionBlockHash);
     } finally {
       protoArrayLock.readLock().unlock();
     }
@@ -290,7 +354,7 @@ public class ForkChoiceStrategy implements BlockMetadataStore, ReadOnlyForkChoic
   public Optional<Bytes32> blockParentRoot(Bytes32 blockRoot) {
     protoArrayLock.readLock().lock();
     try {
-      return getProtoNode(blockRoot).map(ProtoNode::getParentRoot);
+      return getNodeValue(blockRoot, protoArray::getParentRoot);
     } finally {
       protoArrayLock.readLock().unlock();
     }
@@ -300,7 +364,7 @@ public class ForkChoiceStrategy implements BlockMetadataStore, ReadOnlyForkChoic
   public boolean isFullyValidated(final Bytes32 blockRoot) {
     protoArrayLock.readLock().lock();
     try {
-      return getProtoNode(blockRoot).map(ProtoNode::isFullyValidated).orElse(false);
+      return getNodeValue(blockRoot, protoArray::isFullyValidated).orElse(false);
     } finally {
       protoArrayLock.readLock().unlock();
     }
@@ -310,7 +374,7 @@ public class ForkChoiceStrategy implements BlockMetadataStore, ReadOnlyForkChoic
   public Optional<ProtoNodeData> getBlockData(final Bytes32 blockRoot) {
     protoArrayLock.readLock().lock();
     try {
-      return getProtoNode(blockRoot).map(ProtoNode::getBlockData);
+      return getNodeValue(blockRoot, protoArray::getBlockData);
     } finally {
       protoArrayLock.readLock().unlock();
     }
@@ -320,7 +384,7 @@ public class ForkChoiceStrategy implements BlockMetadataStore, ReadOnlyForkChoic
   public Optional<UInt64> getWeight(final Bytes32 blockRoot) {
     protoArrayLock.readLock().lock();
     try {
-      return getProtoNode(blockRoot).map(ProtoNode::getWeight);
+      return getNodeValue(blockRoot, protoArray::getWeight);
     } finally {
       protoArrayLock.readLock().unlock();
     }
@@ -330,7 +394,7 @@ public class ForkChoiceStrategy implements BlockMetadataStore, ReadOnlyForkChoic
   public Optional<Boolean> isOptimistic(final Bytes32 blockRoot) {
     protoArrayLock.readLock().lock();
     try {
-      return getProtoNode(blockRoot).map(ProtoNode::isOptimistic);
+      return getNodeValue(blockRoot, protoArray::isOptimistic);
     } finally {
       protoArrayLock.readLock().unlock();
     }
@@ -340,23 +404,17 @@ public class ForkChoiceStrategy implements BlockMetadataStore, ReadOnlyForkChoic
   public Optional<Bytes32> getAncestor(final Bytes32 blockRoot, final UInt64 slot) {
     protoArrayLock.readLock().lock();
     try {
-      // Note: This code could be more succinct if currentNode were an Optional and we used flatMap
-      // and map but during long periods of finality this becomes a massive hot spot in the code and
-      // our performance is dominated by the time taken to create Optional instances within the map
-      // calls.
-      final Optional<ProtoNode> startingNode = getProtoNode(blockRoot);
-      if (startingNode.isEmpty()) {
+      // Note: during long periods of non-finality this becomes a massive hot spot in the code so
+      // the chain is walked by node index without creating any intermediate objects.
+      final int nodeIndex = getNodeIndex(blockRoot);
+      if (nodeIndex == NO_NODE) {
         return Optional.empty();
       }
-      ProtoNode currentNode = startingNode.get();
-      while (currentNode.getBlockSlot().isGreaterThan(slot)) {
-        final Optional<Integer> parentIndex = currentNode.getParentIndex();
-        if (parentIndex.isEmpty()) {
-          return Optional.empty();
-        }
-        currentNode = protoArray.getNodes().get(parentIndex.get());
+      final int ancestorIndex = protoArray.findAncestorIndex(nodeIndex, slot);
+      if (ancestorIndex == NO_NODE) {
+        return Optional.empty();
       }
-      return Optional.of(currentNode.getBlockRoot());
+      return Optional.of(protoArray.getBlockRoot(ancestorIndex));
     } finally {
       protoArrayLock.readLock().unlock();
     }
@@ -366,10 +424,13 @@ public class ForkChoiceStrategy implements BlockMetadataStore, ReadOnlyForkChoic
   public List<Bytes32> getBlockRootsAtSlot(final UInt64 slot) {
     protoArrayLock.readLock().lock();
     try {
-      return protoArray.getNodes().stream()
-          .filter(protoNode -> protoNode.getBlockSlot().equals(slot))
-          .map(ProtoNode::getBlockRoot)
-          .collect(Collectors.toList());
+      final List<Bytes32> blockRoots = new ArrayList<>();
+      for (int nodeIndex = 0; nodeIndex < protoArray.getTotalTrackedNodeCount(); nodeIndex++) {
+        if (protoArray.getBlockSlot(nodeIndex).equals(slot)) {
+          blockRoots.add(protoArray.getBlockRoot(nodeIndex));
+        }
+      }
+      return blockRoots;
     } finally {
       protoArrayLock.readLock().unlock();
     }
@@ -398,23 +459,26 @@ public class ForkChoiceStrategy implements BlockMetadataStore, ReadOnlyForkChoic
   public void processHashesInChainWhile(final Bytes32 head, HaltableNodeProcessor nodeProcessor) {
     protoArrayLock.readLock().lock();
     try {
-      final Optional<ProtoNode> startingNode = getProtoNode(head);
-      if (startingNode.isEmpty()) {
+      int nodeIndex = getNodeIndex(head);
+      if (nodeIndex == NO_NODE) {
         throw new IllegalArgumentException("Unknown root supplied: " + head);
       }
-      ProtoNode currentNode = startingNode.orElseThrow();
 
-      while (protoArray.contains(currentNode.getBlockRoot())) {
+      while (nodeIndex != NO_NODE) {
+        final Bytes32 blockRoot = protoArray.getBlockRoot(nodeIndex);
+        if (!protoArray.contains(blockRoot)) {
+          break;
+        }
         final boolean shouldContinue =
             nodeProcessor.process(
-                currentNode.getBlockRoot(),
-                currentNode.getBlockSlot(),
-                currentNode.getParentRoot(),
-                currentNode.getExecutionBlockHash());
-        if (!shouldContinue || currentNode.getParentIndex().isEmpty()) {
+                blockRoot,
+                protoArray.getBlockSlot(nodeIndex),
+                protoArray.getParentRoot(nodeIndex),
+                protoArray.getExecutionBlockHash(nodeIndex));
+        if (!shouldContinue) {
           break;
         }
-        currentNode = protoArray.getNodes().get(currentNode.getParentIndex().get());
+        nodeIndex = protoArray.getParentIndex(nodeIndex);
       }
     } finally {
       protoArrayLock.readLock().unlock();
@@ -426,13 +490,14 @@ public class ForkChoiceStrategy implements BlockMetadataStore, ReadOnlyForkChoic
     protoArrayLock.readLock().lock();
     try {
       final Object2IntMap<Bytes32> indices = protoArray.getRootIndices();
-      protoArray.getNodes().stream()
-          // Filter out nodes that could be pruned but are still in the protoarray
-          .filter(node -> indices.containsKey(node.getBlockRoot()))
-          .forEach(
-              node ->
-                  nodeProcessor.process(
-                      node.getBlockRoot(), node.getBlockSlot(), node.getParentRoot()));
+      for (int nodeIndex = 0; nodeIndex < protoArray.getTotalTrackedNodeCount(); nodeIndex++) {
+        final Bytes32 blockRoot = protoArray.getBlockRoot(nodeIndex);
+        // Filter out nodes that could be pruned but are still in the protoarray
+        if (indices.containsKey(blockRoot)) {
+          nodeProcessor.process(
+              blockRoot, protoArray.getBlockSlot(nodeIndex), protoArray.getParentRoot(nodeIndex));
+        }
+      }
     } finally {
       protoArrayLock.readLock().unlock();
     }
@@ -467,8 +532,24 @@ public class ForkChoiceStrategy implements BlockMetadataStore, ReadOnlyForkChoic
                       block.getCheckpointEpochs().getJustifiedEpoch(),
                       block.getCheckpointEpochs().getFinalizedEpoch(),
                       block.getExecutionBlockHash().orElse(Bytes32.ZERO)));
-      removedBlockRoots.forEach(protoArray::removeBlockRoot);
+      final BitSet removedNodeIndices = new BitSet();
+      for (Bytes32 removedBlockRoot : removedBlockRoots) {
+        protoArray.getIndexByRoot(removedBlockRoot).ifPresent(removedNodeIndices::set);
+        protoArray.removeBlockRoot(removedBlockRoot);
+      }
+      final int nodeCount = protoArray.getTotalTrackedNodeCount();
       protoArray.maybePrune(finalizedCheckpoint.getRoot());
+      final int prunedNodeCount = nodeCount - protoArray.getTotalTrackedNodeCount();
+
+      // Roots removed when a node is marked invalid are not cleared from the votes, which is
+      // harmless as deltas for invalid nodes are ignored.
+      votesLock.writeLock().lock();
+      try {
+        votes.onNodesRemoved(removedNodeIndices);
+        votes.onNodesPruned(prunedNodeCount);
+      } finally {
+        votesLock.writeLock().unlock();
+      }
     } finally {
       protoArrayLock.writeLock().unlock();
     }
@@ -478,25 +559,26 @@ public class ForkChoiceStrategy implements BlockMetadataStore, ReadOnlyForkChoic
   public Optional<SlotAndBlockRoot> findCommonAncestor(final Bytes32 root1, final Bytes32 root2) {
     protoArrayLock.readLock().lock();
     try {
-      Optional<ProtoNode> chainHead1 = protoArray.getProtoNode(root1);
-      Optional<ProtoNode> chainHead2 = protoArray.getProtoNode(root2);
-      while (chainHead1.isPresent() && chainHead2.isPresent()) {
-        final ProtoNode node1 = chainHead1.get();
-        final ProtoNode node2 = chainHead2.get();
-        if (node1.getBlockSlot().isGreaterThan(node2.getBlockSlot())) {
+      int chainHead1 = getNodeIndex(root1);
+      int chainHead2 = getNodeIndex(root2);
+      while (chainHead1 != NO_NODE && chainHead2 != NO_NODE) {
+        final UInt64 slot1 = protoArray.getBlockSlot(chainHead1);
+        final UInt64 slot2 = protoArray.getBlockSlot(chainHead2);
+        if (slot1.isGreaterThan(slot2)) {
           // Chain 1 is longer than chain 2 so need to move further up chain 2
-          chainHead1 = node1.getParentIndex().map(protoArray::getNodeByIndex);
-        } else if (node2.getBlockSlot().isGreaterThan(node1.getBlockSlot())) {
+          chainHead1 = protoArray.getParentIndex(chainHead1);
+        } else if (slot2.isGreaterThan(slot1)) {
           // Chain 2 is longer than chain 1 so need to move further up chain 1
-          chainHead2 = node2.getParentIndex().map(protoArray::getNodeByIndex);
+          chainHead2 = protoArray.getParentIndex(chainHead2);
         } else {
           // At the same slot, check if this is the common ancestor
-          if (node1.getBlockRoot().equals(node2.getBlockRoot())) {
-            return Optional.of(new SlotAndBlockRoot(node1.getBlockSlot(), node1.getBlockRoot()));
+          final Bytes32 blockRoot1 = protoArray.getBlockRoot(chainHead1);
+          if (blockRoot1.equals(protoArray.getBlockRoot(chainHead2))) {
+            return Optional.of(new SlotAndBlockRoot(slot1, blockRoot1));
           }
           // Nope, need to move further up both chains
-          chainHead1 = node1.getParentIndex().map(protoArray::getNodeByIndex);
-          chainHead2 = node2.getParentIndex().map(protoArray::getNodeByIndex);
+          chainHead1 = protoArray.getParentIndex(chainHead1);
+          chainHead2 = protoArray.getParentIndex(chainHead2);
         }
       }
       // Reached the start of protoarray without finding a common ancestor
@@ -526,8 +608,12 @@ public class ForkChoiceStrategy implements BlockMetadataStore, ReadOnlyForkChoic
         spec.isBlockProcessorOptimistic(blockSlot));
   }
 
-  private Optional<ProtoNode> getProtoNode(Bytes32 blockRoot) {
-    return protoArray.getProtoNode(blockRoot);
+  private <T> Optional<T> getNodeValue(
+      final Bytes32 blockRoot, final IntFunction<T> valueForNodeIndex) {
+    final int nodeIndex = getNodeIndex(blockRoot);
+    return nodeIndex == NO_NODE
+        ? Optional.empty()
+        : Optional.of(valueForNodeIndex.apply(nodeIndex));
   }
 
   public void onExecutionPayloadResult(final Bytes32 blockRoot, final PayloadStatus result) {
@@ -14,9 +14,8 @@
 package tech.pegasys.teku.storage.protoarray;
 
 import static com.google.common.base.Preconditions.checkArgument;
-import static com.google.common.base.Preconditions.checkNotNull;
-import static com.google.common.base.Preconditions.checkState;
 import static tech.pegasys.teku.infrastructure.logging.StatusLogger.STATUS_LOG;
+import static tech.pegasys.teku.storage.protoarray.ProtoArrayNodes.NO_NODE;
 import static tech.pegasys.teku.storage.protoarray.ProtoNodeValidationStatus.INVALID;
 import static tech.pegasys.teku.storage.protoarray.ProtoNodeValidationStatus.OPTIMISTIC;
 import static tech.pegasys.teku.storage.protoarray.ProtoNodeValidationStatus.VALID;
@@ -27,15 +26,16 @@ import it.unimi.dsi.fastutil.longs.LongArrayList;
 import it.unimi.dsi.fastutil.longs.LongList;
 import it.unimi.dsi.fastutil.objects.Object2IntMap;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.IntConsumer;
 import java.util.function.Supplier;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.tuweni.bytes.Bytes32;
 import tech.pegasys.teku.infrastructure.exceptions.FatalServiceFailureException;
 import tech.pegasys.teku.infrastructure.unsigned.UInt64;
+import tech.pegasys.teku.spec.datastructures.forkchoice.ProtoNodeData;
 
 public class ProtoArray {
   private static final Logger LOG = LogManager.getLogger();
@@ -49,20 +49,20 @@ public class ProtoArray {
   private final UInt64 initialEpoch;
 
   /**
-   * Lists all the known nodes. It is guaranteed that a node will be after its parent in the list.
+   * Stores all the known nodes. It is guaranteed that a node will be after its parent.
    *
-   * <p>The list may contain nodes which have been removed from the indices collection either
+   * <p>The nodes may include nodes which have been removed from the indices collection either
    * because they are now before the finalized checkpoint but pruning has not yet occurred or
    * because they extended from a now-invalid chain and were removed. This avoids having to update
-   * the indices to entries in the list too often.
+   * the indices to entries in the nodes too often.
    */
-  private final List<ProtoNode> nodes = new ArrayList<>();
+  private final ProtoArrayNodes nodes = new ProtoArrayNodes();
 
   /**
    * protoArrayIndices allows root lookup to retrieve indices of protoNodes without looking through
-   * the nodes list
+   * the nodes
    *
-   * <p>Needs to be Maintained when nodes are added or removed from the nodes list.
+   * <p>Needs to be Maintained when nodes are added or removed from the nodes.
    */
   private final ProtoArrayIndices indices = new ProtoArrayIndices();
 
@@ -87,19 +87,17 @@ public class ProtoArray {
   }
 
   public Optional<ProtoNode> getProtoNode(final Bytes32 root) {
-    return indices
-        .get(root)
-        .flatMap(
-            blockIndex -> {
-              if (blockIndex < getTotalTrackedNodeCount()) {
-                return Optional.of(getNodeByIndex(blockIndex));
-              }
-              return Optional.empty();
-            });
+    final int nodeIndex = getNodeIndex(root);
+    return nodeIndex == NO_NODE ? Optional.empty() : Optional.of(getNodeByIndex(nodeIndex));
   }
 
+  /** Returns a snapshot of all the nodes, which does not change when the proto array is updated. */
   public List<ProtoNode> getNodes() {
-    return nodes;
+    final List<ProtoNode> result = new ArrayList<>(getTotalTrackedNodeCount());
+    for (int nodeIndex = 0; nodeIndex < getTotalTrackedNodeCount(); nodeIndex++) {
+      result.add(getNodeByIndex(nodeIndex));
+    }
+    return result;
   }
 
   public void setPruneThreshold(int pruneThreshold) {
@@ -123,27 +121,21 @@ public class ProtoArray {
       return;
     }
 
-    int nodeIndex = getTotalTrackedNodeCount();
-
-    ProtoNode node =
-        new ProtoNode(
+    int nodeIndex =
+        nodes.add(
             blockSlot,
             stateRoot,
             blockRoot,
             parentRoot,
-            indices.get(parentRoot),
+            indices.getRootIndices().getOrDefault(parentRoot, NO_NODE),
             justifiedEpoch,
             finalizedEpoch,
             executionBlockHash,
-            UInt64.ZERO,
-            Optional.empty(),
-            Optional.empty(),
             optimisticallyProcessed && !executionBlockHash.isZero() ? OPTIMISTIC : VALID);
 
     indices.add(blockRoot, nodeIndex);
-    nodes.add(node);
 
-    updateBestDescendantOfParent(node, nodeIndex);
+    updateBestDescendantOfParent(nodeIndex);
   }
 
   /**
@@ -155,30 +147,32 @@ public class ProtoArray {
    */
   public ProtoNode findOptimisticHead(
       Bytes32 justifiedRoot, UInt64 justifiedEpoch, UInt64 finalizedEpoch) {
-    return findHead(justifiedRoot, justifiedEpoch, finalizedEpoch)
-        .orElseThrow(fatalException("Finalized block was found to be invalid."));
+    final int headIndex = findHead(justifiedRoot, justifiedEpoch, finalizedEpoch);
+    if (headIndex == NO_NODE) {
+      throw fatalException("Finalized block was found to be invalid.").get();
+    }
+    return getNodeByIndex(headIndex);
   }
 
   public Optional<ProtoNode> findOptimisticallySyncedMergeTransitionBlock(final Bytes32 head) {
-    final Optional<ProtoNode> maybeStartingNode = getProtoNode(head);
-    if (maybeStartingNode.isEmpty()) {
+    int currentIndex = getNodeIndex(head);
+    if (currentIndex == NO_NODE) {
       return Optional.empty();
     }
-    ProtoNode currentNode = maybeStartingNode.get();
-    if (currentNode.getExecutionBlockHash().isZero()) {
+    if (nodes.hasZeroExecutionBlockHash(currentIndex)) {
       // Transition not yet reached so no transition block
       return Optional.empty();
     }
-    while (contains(currentNode.getBlockRoot())) {
-      if (currentNode.getParentIndex().isEmpty() || currentNode.isFullyValidated()) {
+    while (contains(nodes.getBlockRoot(currentIndex))) {
+      final int parentIndex = nodes.getParentIndex(currentIndex);
+      if (parentIndex == NO_NODE || nodes.isFullyValidated(currentIndex)) {
         // Stop searching when we reach fully validated nodes or a node we don't have the parent for
         return Optional.empty();
       }
-      final ProtoNode parentNode = getNodeByIndex(currentNode.getParentIndex().get());
-      if (parentNode.getExecutionBlockHash().isZero()) {
-        return Optional.of(currentNode);
+      if (nodes.hasZeroExecutionBlockHash(parentIndex)) {
+        return Optional.of(getNodeByIndex(currentIndex));
       }
-      currentNode = parentNode;
+      currentIndex = parentIndex;
     }
     return Optional.empty();
   }
@@ -187,7 +181,8 @@ public class ProtoArray {
     return () -> new FatalServiceFailureException("fork choice", message);
   }
 
-  private Optional<ProtoNode> findHead(
+  /** Returns the index of the head node or {@link ProtoArrayNodes#NO_NODE} if none is valid. */
+  private int findHead(
       final Bytes32 justifiedRoot, final UInt64 justifiedEpoch, final UInt64 finalizedEpoch) {
     if (!this.justifiedEpoch.equals(justifiedEpoch)
         || !this.finalizedEpoch.equals(finalizedEpoch)) {
@@ -201,59 +196,55 @@ public class ProtoArray {
             .get(justifiedRoot)
             .orElseThrow(fatalException("Invalid or unknown justified root: " + justifiedRoot));
 
-    ProtoNode justifiedNode = getNodeByIndex(justifiedIndex);
-
-    if (justifiedNode.isInvalid()) {
-      return Optional.empty();
+    if (nodes.isInvalid(justifiedIndex)) {
+      return NO_NODE;
     }
 
-    int bestDescendantIndex = justifiedNode.getBestDescendantIndex().orElse(justifiedIndex);
-    ProtoNode bestNode = getNodeByIndex(bestDescendantIndex);
+    int bestIndex = nodes.getBestDescendantIndex(justifiedIndex);
+    if (bestIndex == NO_NODE) {
+      bestIndex = justifiedIndex;
+    }
 
     // Normally the best descendant index would point straight to chain head, but onBlock only
     // updates the parent, not all the ancestors. When applyScoreChanges runs it propagates the
     // change back up and everything works, but we run findHead to determine if the new block should
     // become the best head so need to follow down the chain.
-    while (bestNode.getBestDescendantIndex().isPresent() && !bestNode.isInvalid()) {
-      bestDescendantIndex = bestNode.getBestDescendantIndex().get();
-      bestNode = getNodeByIndex(bestDescendantIndex);
+    while (nodes.getBestDescendantIndex(bestIndex) != NO_NODE && !nodes.isInvalid(bestIndex)) {
+      bestIndex = nodes.getBestDescendantIndex(bestIndex);
     }
 
     // Walk backwards to find the last valid node in the chain
-    while (bestNode.isInvalid()) {
-      final Optional<Integer> maybeParentIndex = bestNode.getParentIndex();
-      if (maybeParentIndex.isEmpty()) {
+    while (nodes.isInvalid(bestIndex)) {
+      final int parentIndex = nodes.getParentIndex(bestIndex);
+      if (parentIndex == NO_NODE) {
         // No node on this chain with sufficient validity.
-        return Optional.empty();
+        return NO_NODE;
       }
-      final int parentIndex = maybeParentIndex.get();
-      bestNode = getNodeByIndex(parentIndex);
+      bestIndex = parentIndex;
     }
 
     // Perform a sanity check that the node is indeed valid to be the head.
-    if (!nodeIsViableForHead(bestNode) && !bestNode.equals(justifiedNode)) {
+    if (!nodeIsViableForHead(bestIndex) && bestIndex != justifiedIndex) {
       throw new RuntimeException("ProtoArray: Best node is not viable for head");
     }
-    return Optional.of(bestNode);
+    return bestIndex;
   }
 
   public void markNodeValid(final Bytes32 blockRoot) {
-    final Optional<ProtoNode> maybeNode = getProtoNode(blockRoot);
-    if (maybeNode.isEmpty()) {
+    final int nodeIndex = getNodeIndex(blockRoot);
+    if (nodeIndex == NO_NODE) {
       // Most likely just pruned prior to the validation result being received.
       LOG.debug("Couldn't mark block {} valid because it was unknown", blockRoot);
       return;
     }
-    final ProtoNode node = maybeNode.get();
-    node.setValidationStatus(VALID);
-    Optional<Integer> parentIndex = node.getParentIndex();
-    while (parentIndex.isPresent()) {
-      final ProtoNode parentNode = getNodeByIndex(parentIndex.get());
-      if (parentNode.isFullyValidated()) {
+    nodes.setValidationStatus(nodeIndex, VALID);
+    int parentIndex = nodes.getParentIndex(nodeIndex);
+    while (parentIndex != NO_NODE) {
+      if (nodes.isFullyValidated(parentIndex)) {
         break;
       }
-      parentNode.setValidationStatus(VALID);
-      parentIndex = parentNode.getParentIndex();
+      nodes.setValidationStatus(parentIndex, VALID);
+      parentIndex = nodes.getParentIndex(parentIndex);
     }
   }
 
@@ -264,45 +255,40 @@ public class ProtoArray {
       return;
     }
     final int index;
-    final ProtoNode node;
     if (latestValidHash.isPresent()) {
-      final Optional<Integer> maybeFirstInvalidNodeIndex =
+      final int firstInvalidNodeIndex =
           findFirstInvalidNodeIndex(maybeIndex.get(), latestValidHash.get());
-      index = maybeFirstInvalidNodeIndex.orElse(maybeIndex.get());
-      node = getNodeByIndex(index);
+      index = firstInvalidNodeIndex != NO_NODE ? firstInvalidNodeIndex : maybeIndex.get();
       // We found the latestValidHash so mark it as valid
-      if (maybeFirstInvalidNodeIndex.isPresent()) {
-        markNodeValid(node.getParentRoot());
+      if (firstInvalidNodeIndex != NO_NODE) {
+        markNodeValid(nodes.getParentRoot(index));
       }
     } else {
       index = maybeIndex.get();
-      node = getNodeByIndex(index);
     }
 
-    node.setValidationStatus(INVALID);
-    removeBlockRoot(node.getBlockRoot());
+    nodes.setValidationStatus(index, INVALID);
+    removeBlockRoot(nodes.getBlockRoot(index));
     markDescendantsAsInvalid(index);
     // Applying zero deltas causes the newly marked INVALID nodes to have their weight set to 0
-    applyDeltas(new LongArrayList(Collections.nCopies(getTotalTrackedNodeCount(), 0L)));
+    applyDeltas(LongArrayList.wrap(new long[getTotalTrackedNodeCount()]));
   }
 
-  private Optional<Integer> findFirstInvalidNodeIndex(
-      final int invalidNodeIndex, final Bytes32 latestValidHash) {
+  private int findFirstInvalidNodeIndex(final int invalidNodeIndex, final Bytes32 latestValidHash) {
     int firstInvalidNodeIndex = invalidNodeIndex;
-    Optional<Integer> parentIndex = getNodeByIndex(invalidNodeIndex).getParentIndex();
-    while (parentIndex.isPresent()) {
-      final ProtoNode parentNode = getNodeByIndex(parentIndex.get());
-      if (parentNode.getExecutionBlockHash().equals(latestValidHash)) {
-        return Optional.of(firstInvalidNodeIndex);
+    int parentIndex = nodes.getParentIndex(invalidNodeIndex);
+    while (parentIndex != NO_NODE) {
+      if (nodes.hasExecutionBlockHash(parentIndex, latestValidHash)) {
+        return firstInvalidNodeIndex;
       }
-      firstInvalidNodeIndex = parentIndex.get();
-      parentIndex = parentNode.getParentIndex();
+      firstInvalidNodeIndex = parentIndex;
+      parentIndex = nodes.getParentIndex(parentIndex);
     }
     // Couldn't find the last valid hash - so can't take advantage of it.
     // Alert this user as it may indicate that invalid payloads have been finalized
     // (or the EL client is malfunctioning somehow).
     STATUS_LOG.unknownLatestValidHash(latestValidHash);
-    return Optional.empty();
+    return NO_NODE;
   }
 
   private void markDescendantsAsInvalid(final int index) {
@@ -311,13 +297,13 @@ public class ProtoArray {
     // Need to mark all nodes extending from this one as invalid
     // Descendant nodes must be later in the array so can start from next index
     for (int i = index + 1; i < nodes.size(); i++) {
-      final ProtoNode possibleDescendant = getNodeByIndex(i);
-      if (possibleDescendant.getParentIndex().isEmpty()) {
+      final int parentIndex = nodes.getParentIndex(i);
+      if (parentIndex == NO_NODE) {
         continue;
       }
-      if (invalidParents.contains((int) possibleDescendant.getParentIndex().get())) {
-        possibleDescendant.setValidationStatus(INVALID);
-        removeBlockRoot(possibleDescendant.getBlockRoot());
+      if (invalidParents.contains(parentIndex)) {
+        nodes.setValidationStatus(i, INVALID);
+        removeBlockRoot(nodes.getBlockRoot(i));
         invalidParents.add(i);
       }
     }
@@ -392,48 +378,14 @@ public class ProtoArray {
 
     // Remove the `indices` key/values for all the to-be-deleted nodes.
     for (int nodeIndex = 0; nodeIndex < finalizedIndex; nodeIndex++) {
-      Bytes32 root = getNodeByIndex(nodeIndex).getBlockRoot();
-      indices.remove(root);
+      indices.remove(nodes.getBlockRoot(nodeIndex));
     }
 
-    // Drop all the nodes prior to finalization.
-    nodes.subList(0, finalizedIndex).clear();
+    // Drop all the nodes prior to finalization and adjust the indices of the remaining nodes to
+    // match the new layout.
+    nodes.removeFirst(finalizedIndex);
 
     indices.offsetIndices(finalizedIndex);
-
-    // Iterate through all the existing nodes and adjust their indices to match the
-    // new layout of nodes.
-    for (ProtoNode node : nodes) {
-      node.getParentIndex()
-          .ifPresent(
-              parentIndex -> {
-                // If node.parentIndex is less than finalizedIndex, set is to None.
-                if (parentIndex < finalizedIndex) {
-                  node.setParentIndex(Optional.empty());
-                } else {
-                  node.setParentIndex(Optional.of(parentIndex - finalizedIndex));
-                }
-              });
-
-      node.getBestChildIndex()
-          .ifPresent(
-              bestChildIndex -> {
-                int newBestChildIndex = bestChildIndex - finalizedIndex;
-                checkState(
-                    newBestChildIndex >= 0, "ProtoArray: New best child index is less than 0");
-                node.setBestChildIndex(Optional.of(newBestChildIndex));
-              });
-
-      node.getBestDescendantIndex()
-          .ifPresent(
-              bestDescendantIndex -> {
-                int newBestDescendantIndex = bestDescendantIndex - finalizedIndex;
-                checkState(
-                    newBestDescendantIndex >= 0,
-                    "ProtoArray: New best descendant index is less than 0");
-                node.setBestDescendantIndex(Optional.of(newBestDescendantIndex));
-              });
-    }
   }
 
   /**
@@ -458,103 +410,89 @@ public class ProtoArray {
    */
   @SuppressWarnings("StatementWithEmptyBody")
   private void maybeUpdateBestChildAndDescendant(int parentIndex, int childIndex) {
-    ProtoNode child = getNodeByIndex(childIndex);
-    ProtoNode parent = getNodeByIndex(parentIndex);
-
-    boolean childLeadsToViableHead = nodeLeadsToViableHead(child);
-
-    parent
-        .getBestChildIndex()
-        .ifPresentOrElse(
-            bestChildIndex -> {
-              if (bestChildIndex.equals(childIndex) && !childLeadsToViableHead) {
-                // If the child is already the best-child of the parent but it's not viable for
-                // the head, remove it.
-                changeToNone(parent);
-              } else if (bestChildIndex.equals(childIndex)) {
-                // If the child is the best-child already, set it again to ensure that the
-                // best-descendant of the parent is updated.
-                changeToChild(parent, childIndex);
-              } else {
-                ProtoNode bestChild = getNodeByIndex(bestChildIndex);
-
-                boolean bestChildLeadsToViableHead = nodeLeadsToViableHead(bestChild);
-
-                if (childLeadsToViableHead && !bestChildLeadsToViableHead) {
-                  // The child leads to a viable head, but the current best-child doesn't.
-                  changeToChild(parent, childIndex);
-                } else if (!childLeadsToViableHead && bestChildLeadsToViableHead) {
-                  // The best child leads to a viable head, but the child doesn't.
-                  // No change.
-                } else if (child.getWeight().equals(bestChild.getWeight())) {
-                  // Tie-breaker of equal weights by root.
-                  if (child
-                          .getBlockRoot()
-                          .toHexString()
-                          .compareTo(bestChild.getBlockRoot().toHexString())
-                      >= 0) {
-                    changeToChild(parent, childIndex);
-                  } else {
-                    // No change.
-                  }
-                } else {
-                  // Choose the winner by weight.
-                  if (child.getWeight().compareTo(bestChild.getWeight()) >= 0) {
-                    changeToChild(parent, childIndex);
-                  } else {
-                    // No change.
-                  }
-                }
-              }
-            },
-            () -> {
-              if (childLeadsToViableHead) {
-                // There is no current best-child and the child is viable.
-                changeToChild(parent, childIndex);
-              } else {
-                // There is no current best-child but the child is not not viable.
-                // No change.
-              }
-            });
+    boolean childLeadsToViableHead = nodeLeadsToViableHead(childIndex);
+
+    final int bestChildIndex = nodes.getBestChildIndex(parentIndex);
+    if (bestChildIndex == NO_NODE) {
+      if (childLeadsToViableHead) {
+        // There is no current best-child and the child is viable.
+        changeToChild(parentIndex, childIndex);
+      } else {
+        // There is no current best-child but the child is not not viable.
+        // No change.
+      }
+    } else if (bestChildIndex == childIndex && !childLeadsToViableHead) {
+      // If the child is already the best-child of the parent but it's not viable for
+      // the head, remove it.
+      changeToNone(parentIndex);
+    } else if (bestChildIndex == childIndex) {
+      // If the child is the best-child already, set it again to ensure that the
+      // best-descendant of the parent is updated.
+      changeToChild(parentIndex, childIndex);
+    } else {
+      boolean bestChildLeadsToViableHead = nodeLeadsToViableHead(bestChildIndex);
+
+      if (childLeadsToViableHead && !bestChildLeadsToViableHead) {
+        // The child leads to a viable head, but the current best-child doesn't.
+        changeToChild(parentIndex, childIndex);
+      } else if (!childLeadsToViableHead && bestChildLeadsToViableHead) {
+        // The best child leads to a viable head, but the child doesn't.
+        // No change.
+      } else if (nodes.getWeight(childIndex) == nodes.getWeight(bestChildIndex)) {
+        // Tie-breaker of equal weights by root.
+        if (nodes.compareBlockRoots(childIndex, bestChildIndex) >= 0) {
+          changeToChild(parentIndex, childIndex);
+        } else {
+          // No change.
+        }
+      } else {
+        // Choose the winner by weight.
+        if (Long.compareUnsigned(nodes.getWeight(childIndex), nodes.getWeight(bestChildIndex))
+            >= 0) {
+          changeToChild(parentIndex, childIndex);
+        } else {
+          // No change.
+        }
+      }
+    }
   }
 
   /**
    * Helper for maybeUpdateBestChildAndDescendant
    *
-   * @param parent
+   * @param parentIndex
    * @param childIndex
    */
-  private void changeToChild(ProtoNode parent, int childIndex) {
-    ProtoNode child = getNodeByIndex(childIndex);
-    parent.setBestChildIndex(Optional.of(childIndex));
-    parent.setBestDescendantIndex(Optional.of(child.getBestDescendantIndex().orElse(childIndex)));
+  private void changeToChild(int parentIndex, int childIndex) {
+    final int childBestDescendantIndex = nodes.getBestDescendantIndex(childIndex);
+    nodes.setBestChildAndDescendant(
+        parentIndex,
+        childIndex,
+        childBestDescendantIndex != NO_NODE ? childBestDescendantIndex : childIndex);
   }
 
   /**
    * Helper for maybeUpdateBestChildAndDescendant
    *
-   * @param parent
+   * @param parentIndex
    */
-  private void changeToNone(ProtoNode parent) {
-    parent.setBestChildIndex(Optional.empty());
-    parent.setBestDescendantIndex(Optional.empty());
+  private void changeToNone(int parentIndex) {
+    nodes.setBestChildAndDescendant(parentIndex, NO_NODE, NO_NODE);
   }
 
   /**
    * Indicates if the node itself is viable for the head, or if it's best descendant is viable for
    * the head.
    *
-   * @param node
+   * @param nodeIndex
    * @return
    */
-  private boolean nodeLeadsToViableHead(ProtoNode node) {
+  private boolean nodeLeadsToViableHead(int nodeIndex) {
+    final int bestDescendantIndex = nodes.getBestDescendantIndex(nodeIndex);
     boolean bestDescendantIsViableForHead =
-        node.getBestDescendantIndex()
-            .map(this::getNodeByIndex)
-            .map(this::nodeIsViableForHead)
-            .orElse(false);
+        bestDescendantIndex != NO_NODE && nodeIsViableForHead(bestDescendantIndex);
 
-    return bestDescendantIsViableForHead || nodeIsViableForHead(node);
+    return bestDescendantIsViableForHead || nodeIsViableForHead(nodeIndex);
   }
 
   /**
@@ -574,6 +512,15 @@ public class ProtoArray {
         && (node.getFinalizedEpoch().equals(finalizedEpoch) || finalizedEpoch.equals(initialEpoch));
   }
 
+  /** Same as {@link #nodeIsViableForHead(ProtoNode)} for the node at {@code nodeIndex} */
+  boolean nodeIsViableForHead(int nodeIndex) {
+    return !nodes.isInvalid(nodeIndex)
+        && (nodes.getJustifiedEpoch(nodeIndex) == justifiedEpoch.longValue()
+            || justifiedEpoch.equals(initialEpoch))
+        && (nodes.getFinalizedEpoch(nodeIndex) == finalizedEpoch.longValue()
+            || finalizedEpoch.equals(initialEpoch));
+  }
+
   public UInt64 getJustifiedEpoch() {
     return justifiedEpoch;
   }
@@ -599,35 +546,36 @@ public class ProtoArray {
   }
 
   private void applyDeltas(final LongList deltas) {
-    applyToNodes((node, nodeIndex) -> applyDelta(deltas, node, nodeIndex));
+    applyToNodes(nodeIndex -> applyDelta(deltas, nodeIndex));
     applyToNodes(this::updateBestDescendantOfParent);
   }
 
-  private void updateBestDescendantOfParent(final ProtoNode node, final int nodeIndex) {
-    node.getParentIndex()
-        .ifPresent(parentIndex -> maybeUpdateBestChildAndDescendant(parentIndex, nodeIndex));
+  private void updateBestDescendantOfParent(final int nodeIndex) {
+    final int parentIndex = nodes.getParentIndex(nodeIndex);
+    if (parentIndex != NO_NODE) {
+      maybeUpdateBestChildAndDescendant(parentIndex, nodeIndex);
+    }
   }
 
-  private void applyDelta(final LongList deltas, final ProtoNode node, final int nodeIndex) {
+  private void applyDelta(final LongList deltas, final int nodeIndex) {
     // If the node is invalid, remove any existing weight.
-    long nodeDelta = node.isInvalid() ? -node.getWeight().longValue() : deltas.getLong(nodeIndex);
-    node.adjustWeight(nodeDelta);
+    long nodeDelta =
+        nodes.isInvalid(nodeIndex) ? -nodes.getWeight(nodeIndex) : deltas.getLong(nodeIndex);
+    nodes.adjustWeight(nodeIndex, nodeDelta);
 
-    if (node.getParentIndex().isPresent()) {
-      int parentIndex = node.getParentIndex().get();
+    final int parentIndex = nodes.getParentIndex(nodeIndex);
+    if (parentIndex != NO_NODE) {
       deltas.set(parentIndex, deltas.getLong(parentIndex) + nodeDelta);
     }
   }
 
-  private void applyToNodes(final NodeVisitor action) {
+  private void applyToNodes(final IntConsumer action) {
     for (int nodeIndex = getTotalTrackedNodeCount() - 1; nodeIndex >= 0; nodeIndex--) {
-      final ProtoNode node = getNodeByIndex(nodeIndex);
-
       // No point processing the genesis block.
-      if (node.getBlockRoot().equals(Bytes32.ZERO)) {
+      if (nodes.hasZeroBlockRoot(nodeIndex)) {
         continue;
       }
-      action.onNode(node, nodeIndex);
+      action.accept(nodeIndex);
     }
   }
 
@@ -635,11 +583,78 @@ public class ProtoArray {
     return indices.getRootIndices();
   }
 
-  ProtoNode getNodeByIndex(final int index) {
-    return checkNotNull(nodes.get(index), "Missing node %s", index);
+  /**
+   * Returns the index of the node with the given root or {@link ProtoArrayNodes#NO_NODE} if the
+   * root is unknown.
+   */
+  int getNodeIndex(final Bytes32 root) {
+    final int nodeIndex = indices.getRootIndices().getOrDefault(root, NO_NODE);
+    return nodeIndex < getTotalTrackedNodeCount() ? nodeIndex : NO_NODE;
   }
 
-  private interface NodeVisitor {
-    void onNode(ProtoNode node, int nodeIndex);
+  /**
+   * Returns the index of the closest ancestor of the node, or the node itself, at or before {@code
+   * slot}, or {@link ProtoArrayNodes#NO_NODE} if it is before the first node in the array.
+   */
+  int findAncestorIndex(final int nodeIndex, final UInt64 slot) {
+    final long maxSlot = slot.longValue();
+    int currentIndex = nodeIndex;
+    while (Long.compareUnsigned(nodes.getBlockSlot(currentIndex), maxSlot) > 0) {
+      currentIndex = nodes.getParentIndex(currentIndex);
+      if (currentIndex == NO_NODE) {
+        return NO_NODE;
+      }
+    }
+    return currentIndex;
+  }
+
+  int getParentIndex(final int nodeIndex) {
+    return nodes.getParentIndex(nodeIndex);
+  }
+
+  int getBestChildIndex(final int nodeIndex) {
+    return nodes.getBestChildIndex(nodeIndex);
+  }
+
+  UInt64 getBlockSlot(final int nodeIndex) {
+    return UInt64.fromLongBits(nodes.getBlockSlot(nodeIndex));
+  }
+
+  Bytes32 getBlockRoot(final int nodeIndex) {
+    return nodes.getBlockRoot(nodeIndex);
+  }
+
+  Bytes32 getParentRoot(final int nodeIndex) {
+    return nodes.getParentRoot(nodeIndex);
+  }
+
+  Bytes32 getExecutionBlockHash(final int nodeIndex) {
+    return nodes.getExecutionBlockHash(nodeIndex);
+  }
+
+  UInt64 getWeight(final int nodeIndex) {
+    return UInt64.fromLongBits(nodes.getWeight(nodeIndex));
+  }
+
+  boolean isFullyValidated(final int nodeIndex) {
+    return nodes.isFullyValidated(nodeIndex);
+  }
+
+  boolean isOptimistic(final int nodeIndex) {
+    return nodes.getValidationStatus(nodeIndex) == OPTIMISTIC;
+  }
+
+  ProtoNodeData getBlockData(final int nodeIndex) {
+    return new ProtoNodeData(
+        getBlockSlot(nodeIndex),
+        nodes.getBlockRoot(nodeIndex),
+        nodes.getParentRoot(nodeIndex),
+        nodes.getStateRoot(nodeIndex),
+        nodes.getExecutionBlockHash(nodeIndex),
+        isOptimistic(nodeIndex));
+  }
+
+  ProtoNode getNodeByIndex(final int index) {
+    return nodes.toProtoNode(index);
   }
 }
@@ -0,0 +1,305 @@
+/*
+ * Copyright 2022 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package tech.pegasys.teku.storage.protoarray;
+
+import static com.google.common.base.Preconditions.checkElementIndex;
+import static com.google.common.base.Preconditions.checkState;
+
+import java.util.Arrays;
+import java.util.Optional;
+import org.apache.tuweni.bytes.Bytes32;
+import tech.pegasys.teku.infrastructure.unsigned.UInt64;
+
+/**
+ * Stores the nodes of a {@link ProtoArray} as parallel primitive columns indexed by node index.
+ *
+ * <p>Links between nodes are stored as indices with {@link #NO_NODE} meaning there is no link, and
+ * roots are packed into byte arrays. Walking the tree and applying score changes therefore only
+ * reads arrays instead of following references to boxed values. Unsigned 64-bit values are stored
+ * as their long bits.
+ *
+ * <p>{@link ProtoNode} instances are only created as snapshots of a node when requested.
+ */
+class ProtoArrayNodes {
+  static final int NO_NODE = -1;
+
+  private static final int INITIAL_CAPACITY = 256;
+  private static final byte[] ZERO_ROOT = new byte[Bytes32.SIZE];
+  private static final ProtoNodeValidationStatus[] VALIDATION_STATUSES =
+      ProtoNodeValidationStatus.values();
+
+  private long[] blockSlots = new long[0];
+  private long[] justifiedEpochs = new long[0];
+  private long[] finalizedEpochs = new long[0];
+  private long[] weights = new long[0];
+  private int[] parentIndices = new int[0];
+  private int[] bestChildIndices = new int[0];
+  private int[] bestDescendantIndices = new int[0];
+  private byte[] validationStatuses = new byte[0];
+  private byte[] blockRoots = new byte[0];
+  private byte[] parentRoots = new byte[0];
+  private byte[] stateRoots = new byte[0];
+  private byte[] executionBlockHashes = new byte[0];
+  private int size = 0;
+
+  int size() {
+    return size;
+  }
+
+  /** Appends a node without best child or descendant and zero weight, returning its index */
+  int add(
+      final UInt64 blockSlot,
+      final Bytes32 stateRoot,
+      final Bytes32 blockRoot,
+      final Bytes32 parentRoot,
+      final int parentIndex,
+      final UInt64 justifiedEpoch,
+      final UInt64 finalizedEpoch,
+      final Bytes32 executionBlockHash,
+      final ProtoNodeValidationStatus validationStatus) {
+    ensureCapacity(size + 1);
+    final int index = size;
+    blockSlots[index] = blockSlot.longValue();
+    justifiedEpochs[index] = justifiedEpoch.longValue();
+    finalizedEpochs[index] = finalizedEpoch.longValue();
+    weights[index] = 0;
+    parentIndices[index] = parentIndex;
+    bestChildIndices[index] = NO_NODE;
+    bestDescendantIndices[index] = NO_NODE;
+    validationStatuses[index] = (byte) validationStatus.ordinal();
+    setRoot(blockRoots, index, blockRoot);
+    setRoot(parentRoots, index, parentRoot);
+    setRoot(stateRoots, index, stateRoot);
+    setRoot(executionBlockHashes, index, executionBlockHash);
+    size++;
+    return index;
+  }
+
+  long getBlockSlot(final int index) {
+    return blockSlots[checkIndex(index)];
+  }
+
+  long getJustifiedEpoch(final int index) {
+    return justifiedEpochs[checkIndex(index)];
+  }
+
+  long getFinalizedEpoch(final int index) {
+    return finalizedEpochs[checkIndex(index)];
+  }
+
+  long getWeight(final int index) {
+    return weights[checkIndex(index)];
+  }
+
+  void adjustWeight(final int index, final long delta) {
+    final long weight = weights[checkIndex(index)];
+    if (delta < 0 && Long.compareUnsigned(-delta, weight) > 0) {
+      throw new RuntimeException(
+          "ProtoNode: Delta to be subtracted is greater than node weight for block "
+              + getBlockRoot(index)
+              + " ("
+              + Long.toUnsignedString(blockSlots[index])
+              + "). Attempting to subtract "
+              + Long.toUnsignedString(-delta)
+              + " from "
+              + Long.toUnsignedString(weight));
+    }
+    weights[index] = weight + delta;
+  }
+
+  int getParentIndex(final int index) {
+    return parentIndices[checkIndex(index)];
+  }
+
+  int getBestChildIndex(final int index) {
+    return bestChildIndices[checkIndex(index)];
+  }
+
+  int getBestDescendantIndex(final int index) {
+    return bestDescendantIndices[checkIndex(index)];
+  }
+
+  void setBestChildAndDescendant(
+      final int index, final int bestChildIndex, final int bestDescendantIndex) {
+    bestChildIndices[checkIndex(index)] = bestChildIndex;
+    bestDescendantIndices[index] = bestDescendantIndex;
+  }
+
+  ProtoNodeValidationStatus getValidationStatus(final int index) {
+    return VALIDATION_STATUSES[validationStatuses[checkIndex(index)]];
+  }
+
+  boolean isInvalid(final int index) {
+    return getValidationStatus(index) == ProtoNodeValidationStatus.INVALID;
+  }
+
+  boolean isFullyValidated(final int index) {
+    return getValidationStatus(index) == ProtoNodeValidationStatus.VALID;
+  }
+
+  void setValidationStatus(final int index, final ProtoNodeValidationStatus validationStatus) {
+    final ProtoNodeValidationStatus currentStatus = getValidationStatus(index);
+    checkState(
+        currentStatus == ProtoNodeValidationStatus.OPTIMISTIC || currentStatus == validationStatus,
+        "Cannot change node validity from %s to %s",
+        currentStatus,
+        validationStatus);
+    validationStatuses[index] = (byte) validationStatus.ordinal();
+  }
+
+  Bytes32 getBlockRoot(final int index) {
+    return getRoot(blockRoots, checkIndex(index));
+  }
+
+  Bytes32 getParentRoot(final int index) {
+    return getRoot(parentRoots, checkIndex(index));
+  }
+
+  Bytes32 getStateRoot(final int index) {
+    return getRoot(stateRoots, checkIndex(index));
+  }
+
+  Bytes32 getExecutionBlockHash(final int index) {
+    return getRoot(executionBlockHashes, checkIndex(index));
+  }
+
+  boolean hasZeroBlockRoot(final int index) {
+    return rootEquals(blockRoots, checkIndex(index), ZERO_ROOT);
+  }
+
+  boolean hasZeroExecutionBlockHash(final int index) {
+    return rootEquals(executionBlockHashes, checkIndex(index), ZERO_ROOT);
+  }
+
+  boolean hasExecutionBlockHash(final int index, final Bytes32 executionBlockHash) {
+    return rootEquals(
+        executionBlockHashes, checkIndex(index), executionBlockHash.toArrayUnsafe());
+  }
+
+  /**
+   * Compares the block roots of two nodes as unsigned big-endian numbers, which is the same order
+   * as comparing their hex strings.
+   */
+  int compareBlockRoots(final int index1, final int index2) {
+    final int offset1 = checkIndex(index1) * Bytes32.SIZE;
+    final int offset2 = checkIndex(index2) * Bytes32.SIZE;
+    return Arrays.compareUnsigned(
+        blockRoots,
+        offset1,
+        offset1 + Bytes32.SIZE,
+        blockRoots,
+        offset2,
+        offset2 + Bytes32.SIZE);
+  }
+
+  /**
+   * Drops the first {@code count} nodes and adjusts the indices of the remaining nodes. Parent
+   * links to dropped nodes are cleared.
+   */
+  void removeFirst(final int count) {
+    if (count <= 0) {
+      return;
+    }
+    final int newSize = size - count;
+    System.arraycopy(blockSlots, count, blockSlots, 0, newSize);
+    System.arraycopy(justifiedEpochs, count, justifiedEpochs, 0, newSize);
+    System.arraycopy(finalizedEpochs, count, finalizedEpochs, 0, newSize);
+    System.arraycopy(weights, count, weights, 0, newSize);
+    System.arraycopy(parentIndices, count, parentIndices, 0, newSize);
+    System.arraycopy(bestChildIndices, count, bestChildIndices, 0, newSize);
+    System.arraycopy(bestDescendantIndices, count, bestDescendantIndices, 0, newSize);
+    System.arraycopy(validationStatuses, count, validationStatuses, 0, newSize);
+    final int rootsOffset = count * Bytes32.SIZE;
+    final int rootsLength = newSize * Bytes32.SIZE;
+    System.arraycopy(blockRoots, rootsOffset, blockRoots, 0, rootsLength);
+    System.arraycopy(parentRoots, rootsOffset, parentRoots, 0, rootsLength);
+    System.arraycopy(stateRoots, rootsOffset, stateRoots, 0, rootsLength);
+    System.arraycopy(executionBlockHashes, rootsOffset, executionBlockHashes, 0, rootsLength);
+    size = newSize;
+
+    for (int i = 0; i < size; i++) {
+      final int parentIndex = parentIndices[i];
+      if (parentIndex != NO_NODE) {
+        parentIndices[i] = parentIndex < count ? NO_NODE : parentIndex - count;
+      }
+      if (bestChildIndices[i] != NO_NODE) {
+        bestChildIndices[i] -= count;
+        checkState(bestChildIndices[i] >= 0, "ProtoArray: New best child index is less than 0");
+      }
+      if (bestDescendantIndices[i] != NO_NODE) {
+        bestDescendantIndices[i] -= count;
+        checkState(
+            bestDescendantIndices[i] >= 0,
+            "ProtoArray: New best descendant index is less than 0");
+      }
+    }
+  }
+
+  ProtoNode toProtoNode(final int index) {
+    return new ProtoNode(
+        UInt64.fromLongBits(getBlockSlot(index)),
+        getStateRoot(index),
+        getBlockRoot(index),
+        getParentRoot(index),
+        toOptional(parentIndices[index]),
+        UInt64.fromLongBits(justifiedEpochs[index]),
+        UInt64.fromLongBits(finalizedEpochs[index]),
+        getExecutionBlockHash(index),
+        UInt64.fromLongBits(weights[index]),
+        toOptional(bestChildIndices[index]),
+        toOptional(bestDescendantIndices[index]),
+        getValidationStatus(index));
+  }
+
+  private static Optional<Integer> toOptional(final int nodeIndex) {
+    return nodeIndex == NO_NODE ? Optional.empty() : Optional.of(nodeIndex);
+  }
+
+  private int checkIndex(final int index) {
+    return checkElementIndex(index, size);
+  }
+
+  private static Bytes32 getRoot(final byte[] roots, final int index) {
+    final int offset = index * Bytes32.SIZE;
+    return Bytes32.wrap(Arrays.copyOfRange(roots, offset, offset + Bytes32.SIZE));
+  }
+
+  private static void setRoot(final byte[] roots, final int index, final Bytes32 root) {
+    System.arraycopy(root.toArrayUnsafe(), 0, roots, index * Bytes32.SIZE, Bytes32.SIZE);
+  }
+
+  private static boolean rootEquals(final byte[] roots, final int index, final byte[] root) {
+    final int offset = index * Bytes32.SIZE;
+    return Arrays.equals(roots, offset, offset + Bytes32.SIZE, root, 0, Bytes32.SIZE);
+  }
+
+  private void ensureCapacity(final int requiredSize) {
+    if (requiredSize <= blockSlots.length) {
+      return;
+    }
+    final int capacity = Math.max(requiredSize + requiredSize / 2, INITIAL_CAPACITY);
+    blockSlots = Arrays.copyOf(blockSlots, capacity);
+    justifiedEpochs = Arrays.copyOf(justifiedEpochs, capacity);
+    finalizedEpochs = Arrays.copyOf(finalizedEpochs, capacity);
+    weights = Arrays.copyOf(weights, capacity);
+    parentIndices = Arrays.copyOf(parentIndices, capacity);
+    bestChildIndices = Arrays.copyOf(bestChildIndices, capacity);
+    bestDescendantIndices = Arrays.copyOf(bestDescendantIndices, capacity);
+    validationStatuses = Arrays.copyOf(validationStatuses, capacity);
+    blockRoots = Arrays.copyOf(blockRoots, capacity * Bytes32.SIZE);
+    parentRoots = Arrays.copyOf(parentRoots, capacity * Bytes32.SIZE);
+    stateRoots = Arrays.copyOf(stateRoots, capacity * Bytes32.SIZE);
+    executionBlockHashes = Arrays.copyOf(executionBlockHashes, capacity * Bytes32.SIZE);
+  }
+}
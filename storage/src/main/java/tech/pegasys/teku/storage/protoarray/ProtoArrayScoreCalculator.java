@@ -16,13 +16,25 @@ package tech.pegasys.teku.storage.protoarray;
 import static com.google.common.base.Preconditions.checkState;
 import static java.lang.Math.addExact;
 import static java.lang.Math.subtractExact;
-import static java.lang.Math.toIntExact;
+import static tech.pegasys.teku.storage.protoarray.ProtoArrayVotes.CURRENT_EQUIVOCATING;
+import static tech.pegasys.teku.storage.protoarray.ProtoArrayVotes.CURRENT_ROOT_SET;
+import static tech.pegasys.teku.storage.protoarray.ProtoArrayVotes.NEXT_EQUIVOCATING;
+import static tech.pegasys.teku.storage.protoarray.ProtoArrayVotes.NEXT_ROOT_SET;
+import static tech.pegasys.teku.storage.protoarray.ProtoArrayVotes.NO_NODE;
+import static tech.pegasys.teku.storage.protoarray.ProtoArrayVotes.ROOT_CHANGED;
 
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.longs.LongArrayList;
 import it.unimi.dsi.fastutil.longs.LongList;
-import java.util.Collections;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Function;
 import org.apache.tuweni.bytes.Bytes32;
 import tech.pegasys.teku.infrastructure.unsigned.UInt64;
@@ -30,40 +42,59 @@ import tech.pegasys.teku.spec.datastructures.forkchoice.VoteTracker;
 import tech.pegasys.teku.spec.datastructures.forkchoice.VoteUpdater;
 
 class ProtoArrayScoreCalculator {
+  /** Validators processed by each task when deltas are computed in parallel */
+  static final int PARALLEL_CHUNK_SIZE = 1 << 16;
+
+  /** Minimum number of validators with a vote for deltas to be computed in parallel */
+  static final int PARALLEL_THRESHOLD = 4 * PARALLEL_CHUNK_SIZE;
 
   /**
    * Returns a list of `deltas`, where there is one delta for each of the indices in
-   * `0..indices.size()`.
+   * `0..protoArraySize`.
    *
    * <p>The deltas are formed by a change between `oldBalances` and `newBalances`, and/or a change
-   * of vote in `votes`.
+   * of vote in `votes`. Votes which change are updated both in `votes` and in `store`.
    *
    * <p>## Errors
    *
    * <ul>
-   *   <li>If a value in `indices` is greater to or equal to `indices.size()`.
-   *   <li>If some `Bytes32` in `votes` is not a key in `indices` (except for `Bytes32.ZERO`, this
-   *       is always valid).
+   *   <li>If a node index in `votes` is greater to or equal to `protoArraySize`.
    * </ul>
    */
   static LongList computeDeltas(
+      ProtoArrayVotes votes,
       VoteUpdater store,
       int protoArraySize,
       Function<Bytes32, Optional<Integer>> getIndexByRoot,
-      List<UInt64> oldBalances,
-      List<UInt64> newBalances,
+      long[] oldBalances,
+      long[] newBalances,
       Optional<Bytes32> previousProposerBoostRoot,
       Optional<Bytes32> newProposerBoostRoot,
       UInt64 previousBoostAmount,
       UInt64 newBoostAmount) {
-    LongList deltas = new LongArrayList(Collections.nCopies(protoArraySize, 0L));
-
-    UInt64.rangeClosed(UInt64.ZERO, store.getHighestVotedValidatorIndex())
-        .forEach(
-            validatorIndex ->
-                computeDelta(
-                    store, getIndexByRoot, oldBalances, newBalances, deltas, validatorIndex));
+    final long[] deltaValues;
+    final IntArrayList votesToUpdate;
+    if (votes.size() < PARALLEL_THRESHOLD) {
+      deltaValues = new long[protoArraySize];
+      votesToUpdate = new IntArrayList();
+      computeDeltas(votes, 0, votes.size(), oldBalances, newBalances, deltaValues, votesToUpdate);
+    } else {
+      final List<DeltasChunk> chunks =
+          computeDeltasInParallel(votes, protoArraySize, oldBalances, newBalances);
+      deltaValues = new long[protoArraySize];
+      votesToUpdate = new IntArrayList();
+      for (DeltasChunk chunk : chunks) {
+        for (int i = 0; i < protoArraySize; i++) {
+          deltaValues[i] = addExact(deltaValues[i], chunk.deltas[i]);
+        }
+        votesToUpdate.addAll(chunk.votesToUpdate);
+      }
+    }
+    for (int i = 0; i < votesToUpdate.size(); i++) {
+      updateVote(store, votesToUpdate.getInt(i));
+    }
 
+    final LongList deltas = LongArrayList.wrap(deltaValues);
     previousProposerBoostRoot.ifPresent(
         root -> subtractBalance(getIndexByRoot, deltas, root, previousBoostAmount));
     newProposerBoostRoot.ifPresent(
@@ -71,54 +102,125 @@ class ProtoArrayScoreCalculator {
     return deltas;
   }
 
-  private static void computeDelta(
-      final VoteUpdater store,
-      final Function<Bytes32, Optional<Integer>> getIndexByRoot,
-      final List<UInt64> oldBalances,
-      final List<UInt64> newBalances,
-      final LongList deltas,
-      final UInt64 validatorIndex) {
-    VoteTracker vote = store.getVote(validatorIndex);
-
-    // There is no need to create a score change if the validator has never voted
-    // or both their votes are for the zero hash (alias to the genesis block).
-    if (vote.getCurrentRoot().equals(Bytes32.ZERO) && vote.getNextRoot().equals(Bytes32.ZERO)) {
-      return;
+  private static List<DeltasChunk> computeDeltasInParallel(
+      final ProtoArrayVotes votes,
+      final int protoArraySize,
+      final long[] oldBalances,
+      final long[] newBalances) {
+    final int chunkCount = (votes.size() + PARALLEL_CHUNK_SIZE - 1) / PARALLEL_CHUNK_SIZE;
+    final List<Future<DeltasChunk>> futures = new ArrayList<>(chunkCount);
+    for (int chunk = 0; chunk < chunkCount; chunk++) {
+      final int fromIndex = chunk * PARALLEL_CHUNK_SIZE;
+      final int toIndex = Math.min(votes.size(), fromIndex + PARALLEL_CHUNK_SIZE);
+      futures.add(
+          ExecutorHolder.EXECUTOR.submit(
+              () -> {
+                final DeltasChunk result = new DeltasChunk(protoArraySize);
+                computeDeltas(
+                    votes,
+                    fromIndex,
+                    toIndex,
+                    oldBalances,
+                    newBalances,
+                    result.deltas,
+                    result.votesToUpdate);
+                return result;
+              }));
     }
-    // If vote is already count as equivocated, we don't need to do anything more
-    if (vote.isCurrentEquivocating()) {
-      return;
+    final List<DeltasChunk> chunks = new ArrayList<>(chunkCount);
+    try {
+      for (Future<DeltasChunk> future : futures) {
+        chunks.add(future.get());
+      }
+    } catch (final InterruptedException e) {
+      futures.forEach(future -> future.cancel(true));
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while computing fork choice deltas", e);
+    } catch (final ExecutionException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new IllegalStateException("Failed to compute fork choice deltas", e.getCause());
     }
+    return chunks;
+  }
+
+  /**
+   * Adds the deltas for validators in the range `fromIndex..toIndex` to `deltas` and marks their
+   * next votes as applied. Validators whose vote tracker needs to be updated as a result are added
+   * to `votesToUpdate`. Only touches the columns of validators in the range so ranges can be
+   * processed concurrently.
+   */
+  private static void computeDeltas(
+      final ProtoArrayVotes votes,
+      final int fromIndex,
+      final int toIndex,
+      final long[] oldBalances,
+      final long[] newBalances,
+      final long[] deltas,
+      final IntArrayList votesToUpdate) {
+    for (int validatorIndex = fromIndex; validatorIndex < toIndex; validatorIndex++) {
+      final byte flags = votes.getFlags(validatorIndex);
+
+      // There is no need to create a score change if the validator has never voted
+      // or both their votes are for the zero hash (alias to the genesis block).
+      if ((flags & (CURRENT_ROOT_SET | NEXT_ROOT_SET)) == 0) {
+        continue;
+      }
+      // If vote is already count as equivocated, we don't need to do anything more
+      if ((flags & CURRENT_EQUIVOCATING) != 0) {
+        continue;
+      }
 
-    int validatorIndexInt = toIntExact(validatorIndex.longValue());
-    // If the validator was not included in the oldBalances (i.e. it did not exist yet)
-    // then say its balance was zero.
-    UInt64 oldBalance =
-        oldBalances.size() > validatorIndexInt ? oldBalances.get(validatorIndexInt) : UInt64.ZERO;
-
-    // If the validator vote is not known in the newBalances, then use a balance of zero.
-    // It is possible that there is a vote for an unknown validator if we change our
-    // justified state to a new state with a higher epoch that is on a different fork
-    // because that may have on-boarded less validators than the prior fork.
-    UInt64 newBalance =
-        newBalances.size() > validatorIndexInt && !vote.isNextEquivocating()
-            ? newBalances.get(validatorIndexInt)
-            : UInt64.ZERO;
-
-    if (!vote.getCurrentRoot().equals(vote.getNextRoot()) || !oldBalance.equals(newBalance)) {
-      subtractBalance(getIndexByRoot, deltas, vote.getCurrentRoot(), oldBalance);
-      addBalance(getIndexByRoot, deltas, vote.getNextRoot(), newBalance);
-      final VoteTracker newVote =
-          new VoteTracker(
-              vote.getNextRoot(),
-              vote.getNextRoot(),
-              vote.getNextEpoch(),
-              vote.isNextEquivocating(),
-              vote.isNextEquivocating());
-      store.putVote(validatorIndex, newVote);
+      // If the validator was not included in the oldBalances (i.e. it did not exist yet)
+      // then say its balance was zero.
+      final long oldBalance =
+          oldBalances.length > validatorIndex ? oldBalances[validatorIndex] : 0L;
+
+      // If the validator vote is not known in the newBalances, then use a balance of zero.
+      // It is possible that there is a vote for an unknown validator if we change our
+      // justified state to a new state with a higher epoch that is on a different fork
+      // because that may have on-boarded less validators than the prior fork.
+      final long newBalance =
+          newBalances.length > validatorIndex && (flags & NEXT_EQUIVOCATING) == 0
+              ? newBalances[validatorIndex]
+              : 0L;
+
+      if ((flags & ROOT_CHANGED) != 0 || oldBalance != newBalance) {
+        // We ignore votes for roots which are not in the proto array. We assume that they are
+        // outside of our tree (i.e. pre-finalization) and therefore not interesting.
+        final int currentNodeIndex = votes.getCurrentNodeIndex(validatorIndex);
+        if (currentNodeIndex != NO_NODE) {
+          checkState(
+              currentNodeIndex < deltas.length, "ProtoArrayForkChoice: Invalid node delta index");
+          deltas[currentNodeIndex] = subtractExact(deltas[currentNodeIndex], oldBalance);
+        }
+        final int nextNodeIndex = votes.getNextNodeIndex(validatorIndex);
+        if (nextNodeIndex != NO_NODE) {
+          checkState(
+              nextNodeIndex < deltas.length, "ProtoArrayForkChoice: Invalid node delta index");
+          deltas[nextNodeIndex] = addExact(deltas[nextNodeIndex], newBalance);
+        }
+        // The vote tracker is unchanged if only the balance changed
+        if ((flags & ROOT_CHANGED) != 0 || (flags & NEXT_EQUIVOCATING) != 0) {
+          votesToUpdate.add(validatorIndex);
+        }
+        votes.markNextVoteApplied(validatorIndex);
+      }
     }
   }
 
+  private static void updateVote(final VoteUpdater store, final int validatorIndex) {
+    final UInt64 index = UInt64.valueOf(validatorIndex);
+    final VoteTracker vote = store.getVote(index);
+    store.putVote(
+        index,
+        new VoteTracker(
+            vote.getNextRoot(),
+            vote.getNextRoot(),
+            vote.getNextEpoch(),
+            vote.isNextEquivocating(),
+            vote.isNextEquivocating()));
+  }
+
   private static void addBalance(
       final Function<Bytes32, Optional<Integer>> getIndexByRoot,
       final LongList deltas,
@@ -157,4 +259,27 @@ class ProtoArrayScoreCalculator {
               deltas.set(currentDeltaIndex.intValue(), delta);
             });
   }
+
+  /**
+   * Dedicated threads for computing deltas of large validator sets so fork choice doesn't compete
+   * with other users of the common pool. Created on first use.
+   */
+  private static class ExecutorHolder {
+    private static final ExecutorService EXECUTOR =
+        Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(),
+            new ThreadFactoryBuilder()
+                .setNameFormat("forkchoice-deltas-%d")
+                .setDaemon(true)
+                .build());
+  }
+
+  private static class DeltasChunk {
+    private final long[] deltas;
+    private final IntArrayList votesToUpdate = new IntArrayList();
+
+    private DeltasChunk(final int protoArraySize) {
+      this.deltas = new long[protoArraySize];
+    }
+  }
 }
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2022 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package tech.pegasys.teku.storage.protoarray;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.function.ToIntFunction;
+import org.apache.tuweni.bytes.Bytes32;
+import tech.pegasys.teku.spec.datastructures.forkchoice.VoteTracker;
+
+/**
+ * Columnar copy of the {@link VoteTracker} of every validator, keyed by validator index, with
+ * block roots resolved to indices in the {@link ProtoArray}.
+ *
+ * <p>The vote trackers remain the persisted record of votes but computing score changes only reads
+ * these primitive columns, so it neither allocates nor looks up roots. Node indices are resolved
+ * when a vote is set and must be kept in line with the proto array when it is pruned or roots are
+ * removed from it. Roots which are not in the proto array are stored as {@link #NO_NODE}.
+ */
+class ProtoArrayVotes {
+  static final int NO_NODE = ProtoArrayNodes.NO_NODE;
+
+  static final byte CURRENT_ROOT_SET = 1;
+  static final byte NEXT_ROOT_SET = 1 << 1;
+  static final byte CURRENT_EQUIVOCATING = 1 << 2;
+  static final byte NEXT_EQUIVOCATING = 1 << 3;
+  /** The next root differs from the current root */
+  static final byte ROOT_CHANGED = 1 << 4;
+
+  private static final int INITIAL_CAPACITY = 1024;
+
+  private int[] currentNodeIndices = new int[0];
+  private int[] nextNodeIndices = new int[0];
+  private long[] nextEpochs = new long[0];
+  private byte[] flags = new byte[0];
+  private int size = 0;
+
+  /** Number of validators with a vote, i.e. the highest voting validator index plus one */
+  int size() {
+    return size;
+  }
+
+  void setVote(
+      final int validatorIndex,
+      final VoteTracker vote,
+      final ToIntFunction<Bytes32> nodeIndexLookup) {
+    ensureCapacity(validatorIndex + 1);
+    currentNodeIndices[validatorIndex] = nodeIndexLookup.applyAsInt(vote.getCurrentRoot());
+    nextNodeIndices[validatorIndex] = nodeIndexLookup.applyAsInt(vote.getNextRoot());
+    nextEpochs[validatorIndex] = vote.getNextEpoch().longValue();
+    byte voteFlags = 0;
+    if (!vote.getCurrentRoot().isZero()) {
+      voteFlags |= CURRENT_ROOT_SET;
+    }
+    if (!vote.getNextRoot().isZero()) {
+      voteFlags |= NEXT_ROOT_SET;
+    }
+    if (vote.isCurrentEquivocating()) {
+      voteFlags |= CURRENT_EQUIVOCATING;
+    }
+    if (vote.isNextEquivocating()) {
+      voteFlags |= NEXT_EQUIVOCATING;
+    }
+    if (!vote.getCurrentRoot().equals(vote.getNextRoot())) {
+      voteFlags |= ROOT_CHANGED;
+    }
+    flags[validatorIndex] = voteFlags;
+  }
+
+  /** Same as {@link VoteTracker#isEquivocating()} */
+  boolean isEquivocating(final int validatorIndex) {
+    return validatorIndex < size
+        && (flags[validatorIndex] & (CURRENT_EQUIVOCATING | NEXT_EQUIVOCATING)) != 0;
+  }
+
+  /** Returns true if the vote of the validator is {@link VoteTracker#DEFAULT} */
+  boolean isDefault(final int validatorIndex) {
+    return validatorIndex >= size
+        || (flags[validatorIndex] == 0 && nextEpochs[validatorIndex] == 0);
+  }
+
+  long getNextEpoch(final int validatorIndex) {
+    return validatorIndex < size ? nextEpochs[validatorIndex] : 0;
+  }
+
+  int getCurrentNodeIndex(final int validatorIndex) {
+    return currentNodeIndices[validatorIndex];
+  }
+
+  int getNextNodeIndex(final int validatorIndex) {
+    return nextNodeIndices[validatorIndex];
+  }
+
+  byte getFlags(final int validatorIndex) {
+    return flags[validatorIndex];
+  }
+
+  /**
+   * Records that the balance of the validator was moved to its next vote, like replacing its vote
+   * tracker with one where the current root and equivocation status are the next ones.
+   */
+  void markNextVoteApplied(final int validatorIndex) {
+    currentNodeIndices[validatorIndex] = nextNodeIndices[validatorIndex];
+    final byte voteFlags = flags[validatorIndex];
+    byte newFlags = (byte) (voteFlags & (NEXT_ROOT_SET | NEXT_EQUIVOCATING));
+    if ((voteFlags & NEXT_ROOT_SET) != 0) {
+      newFlags |= CURRENT_ROOT_SET;
+    }
+    if ((voteFlags & NEXT_EQUIVOCATING) != 0) {
+      newFlags |= CURRENT_EQUIVOCATING;
+    }
+    flags[validatorIndex] = newFlags;
+  }
+
+  /** Updates node indices after the first {@code prunedNodeCount} nodes were pruned. */
+  void onNodesPruned(final int prunedNodeCount) {
+    if (prunedNodeCount <= 0) {
+      return;
+    }
+    offsetNodeIndices(currentNodeIndices, prunedNodeCount);
+    offsetNodeIndices(nextNodeIndices, prunedNodeCount);
+  }
+
+  /** Clears node indices of nodes which are no longer found by root in the proto array. */
+  void onNodesRemoved(final BitSet removedNodeIndices) {
+    if (removedNodeIndices.isEmpty()) {
+      return;
+    }
+    clearNodeIndices(currentNodeIndices, removedNodeIndices);
+    clearNodeIndices(nextNodeIndices, removedNodeIndices);
+  }
+
+  private void offsetNodeIndices(final int[] nodeIndices, final int prunedNodeCount) {
+    for (int i = 0; i < size; i++) {
+      final int nodeIndex = nodeIndices[i];
+      if (nodeIndex != NO_NODE) {
+        nodeIndices[i] = nodeIndex < prunedNodeCount ? NO_NODE : nodeIndex - prunedNodeCount;
+      }
+    }
+  }
+
+  private void clearNodeIndices(final int[] nodeIndices, final BitSet removedNodeIndices) {
+    for (int i = 0; i < size; i++) {
+      final int nodeIndex = nodeIndices[i];
+      if (nodeIndex != NO_NODE && removedNodeIndices.get(nodeIndex)) {
+        nodeIndices[i] = NO_NODE;
+      }
+    }
+  }
+
+  private void ensureCapacity(final int requiredSize) {
+    if (requiredSize <= size) {
+      return;
+    }
+    if (requiredSize > flags.length) {
+      final int capacity = Math.max(requiredSize + requiredSize / 2, INITIAL_CAPACITY);
+      currentNodeIndices = Arrays.copyOf(currentNodeIndices, capacity);
+      nextNodeIndices = Arrays.copyOf(nextNodeIndices, capacity);
+      nextEpochs = Arrays.copyOf(nextEpochs, capacity);
+      flags = Arrays.copyOf(flags, capacity);
+    }
+    // Validators without a vote have the default vote, which has zero roots
+    Arrays.fill(currentNodeIndices, size, requiredSize, NO_NODE);
+    Arrays.fill(nextNodeIndices, size, requiredSize, NO_NODE);
+    size = requiredSize;
+  }
+}
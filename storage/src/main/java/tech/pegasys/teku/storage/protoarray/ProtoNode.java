@@ -13,8 +13,6 @@
 
 package tech.pegasys.teku.storage.protoarray;
 
-import static com.google.common.base.Preconditions.checkState;
-
 import com.google.common.base.MoreObjects;
 import com.google.common.collect.ImmutableMap;
 import java.util.Map;
@@ -24,6 +22,10 @@ import org.apache.tuweni.bytes.Bytes32;
 import tech.pegasys.teku.infrastructure.unsigned.UInt64;
 import tech.pegasys.teku.spec.datastructures.forkchoice.ProtoNodeData;
 
+/**
+ * Snapshot of a node in the {@link ProtoArray}, which stores its nodes in {@link ProtoArrayNodes}.
+ * Changes to the proto array after the snapshot was taken are not reflected.
+ */
 public class ProtoNode {
 
   // The `slot` and `stateRoot` is not necessary for `ProtoArray`, it just exists so external
@@ -45,12 +47,12 @@ public class ProtoNode {
    */
   private final Bytes32 executionBlockHash;
 
-  private UInt64 weight;
-  private Optional<Integer> parentIndex;
-  private Optional<Integer> bestChildIndex;
-  private Optional<Integer> bestDescendantIndex;
+  private final UInt64 weight;
+  private final Optional<Integer> parentIndex;
+  private final Optional<Integer> bestChildIndex;
+  private final Optional<Integer> bestDescendantIndex;
 
-  private ProtoNodeValidationStatus validationStatus;
+  private final ProtoNodeValidationStatus validationStatus;
 
   ProtoNode(
       final UInt64 blockSlot,
@@ -79,26 +81,6 @@ public class ProtoNode {
     this.validationStatus = validationStatus;
   }
 
-  public void adjustWeight(long delta) {
-    if (delta < 0) {
-      UInt64 deltaAbsoluteValue = UInt64.valueOf(Math.abs(delta));
-      if (deltaAbsoluteValue.isGreaterThan(weight)) {
-        throw new RuntimeException(
-            "ProtoNode: Delta to be subtracted is greater than node weight for block "
-                + blockRoot
-                + " ("
-                + blockSlot
-                + "). Attempting to subtract "
-                + deltaAbsoluteValue
-                + " from "
-                + weight);
-      }
-      weight = weight.minus(deltaAbsoluteValue);
-    } else {
-      weight = weight.plus(delta);
-    }
-  }
-
   public Bytes32 getParentRoot() {
     return parentRoot;
   }
@@ -135,26 +117,14 @@ public class ProtoNode {
     return executionBlockHash;
   }
 
-  public void setParentIndex(Optional<Integer> parentIndex) {
-    this.parentIndex = parentIndex;
-  }
-
   public Optional<Integer> getBestChildIndex() {
     return bestChildIndex;
   }
 
-  public void setBestChildIndex(Optional<Integer> bestChildIndex) {
-    this.bestChildIndex = bestChildIndex;
-  }
-
   public Optional<Integer> getBestDescendantIndex() {
     return bestDescendantIndex;
   }
 
-  public void setBestDescendantIndex(Optional<Integer> bestDescendantIndex) {
-    this.bestDescendantIndex = bestDescendantIndex;
-  }
-
   public boolean isFullyValidated() {
     return validationStatus == ProtoNodeValidationStatus.VALID;
   }
@@ -167,16 +137,6 @@ public class ProtoNode {
     return validationStatus == ProtoNodeValidationStatus.OPTIMISTIC;
   }
 
-  public void setValidationStatus(final ProtoNodeValidationStatus validationStatus) {
-    checkState(
-        this.validationStatus == ProtoNodeValidationStatus.OPTIMISTIC
-            || this.validationStatus == validationStatus,
-        "Cannot change node validity from %s to %s",
-        this.validationStatus,
-        validationStatus);
-    this.validationStatus = validationStatus;
-  }
-
   public ProtoNodeData getBlockData() {
     return new ProtoNodeData(
         blockSlot,
@@ -0,0 +1,245 @@
+/*
+ * Copyright 2022 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package tech.pegasys.teku.storage.pubkeys;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.CRC32C;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.tuweni.bytes.Bytes;
+import org.apache.tuweni.bytes.Bytes48;
+import tech.pegasys.teku.bls.BLSConstants;
+import tech.pegasys.teku.bls.BLSPublicKey;
+import tech.pegasys.teku.spec.datastructures.state.beaconstate.common.KnownValidatorPublicKeys;
+
+/**
+ * Append-only file of validator public keys stored in both compressed and uncompressed form, so
+ * that keys can be loaded at startup without the expensive point decompression.
+ *
+ * <p>The file consists of an 8-byte header (magic and version) followed by fixed size records,
+ * each ending with a CRC32C checksum of its keys. The validator index is implied by the record
+ * position, so the file can only be appended with the keys of the validators following the last
+ * stored one. A partial record left by an interrupted write is discarded on open and the file is
+ * truncated at the first record with an invalid checksum when loaded, so the missing keys are
+ * stored again from the finalized state.
+ */
+public class ValidatorPublicKeyFile implements AutoCloseable {
+  private static final Logger LOG = LogManager.getLogger();
+
+  static final int MAGIC = 0x544b504b;
+  static final int VERSION = 2;
+  static final int HEADER_SIZE = 8;
+  static final int KEYS_SIZE =
+      BLSConstants.BLS_PUBKEY_SIZE + BLSConstants.BLS_PUBKEY_UNCOMPRESSED_SIZE;
+  static final int RECORD_SIZE = KEYS_SIZE + Integer.BYTES;
+  private static final int RECORDS_PER_READ = 1024;
+
+  private final Path path;
+  private final FileChannel channel;
+  private int recordCount;
+
+  private ValidatorPublicKeyFile(
+      final Path path, final FileChannel channel, final int recordCount) {
+    this.path = path;
+    this.channel = channel;
+    this.recordCount = recordCount;
+  }
+
+  public static ValidatorPublicKeyFile open(final Path path) throws IOException {
+    final FileChannel channel =
+        FileChannel.open(
+            path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    try {
+      if (channel.size() < HEADER_SIZE) {
+        writeHeader(channel);
+      } else {
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        readFully(channel, header, 0);
+        final int magic = header.getInt(0);
+        final int version = header.getInt(Integer.BYTES);
+        if (magic != MAGIC) {
+          throw new IOException("Unsupported validator public keys file " + path);
+        }
+        if (version != VERSION) {
+          LOG.info(
+              "Discarding validator public keys file {} with unsupported version {}",
+              path,
+              version);
+          writeHeader(channel);
+        }
+      }
+      final long recordCount = (channel.size() - HEADER_SIZE) / RECORD_SIZE;
+      checkArgument(recordCount <= Integer.MAX_VALUE / RECORD_SIZE, "File is too large: %s", path);
+      // Drop a partially written record if any
+      channel.truncate(recordPosition(recordCount));
+      return new ValidatorPublicKeyFile(path, channel, (int) recordCount);
+    } catch (final IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /** Returns the number of stored keys, which is also the index of the next key to append */
+  public synchronized int getRecordCount() {
+    return recordCount;
+  }
+
+  /**
+   * Returns the stored public key of the validator. The key is decoded from its uncompressed form
+   * when first used.
+   *
+   * @param index the validator index, must be less than {@link #getRecordCount()}
+   * @return the public key
+   * @throws IllegalStateException if the record checksum is invalid
+   */
+  public synchronized BLSPublicKey get(final int index) throws IOException {
+    checkArgument(index >= 0 && index < recordCount, "Invalid index %s", index);
+    final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+    readFully(channel, record, recordPosition(index));
+    return decode(record, 0)
+        .orElseThrow(
+            () ->
+                new IllegalStateException(
+                    "Invalid validator public key record " + index + " in " + path));
+  }
+
+  /**
+   * Adds all stored keys which are not yet known to the supplied known keys. Stops at the first
+   * record with an invalid checksum and discards it along with all following records.
+   *
+   * @return the number of added keys
+   */
+  public synchronized int loadInto(final KnownValidatorPublicKeys knownPublicKeys)
+      throws IOException {
+    final int startIndex = knownPublicKeys.size();
+    final ByteBuffer buffer = ByteBuffer.allocate(RECORDS_PER_READ * RECORD_SIZE);
+    int index = startIndex;
+    while (index < recordCount) {
+      final int count = Math.min(RECORDS_PER_READ, recordCount - index);
+      buffer.clear();
+      buffer.limit(count * RECORD_SIZE);
+      readFully(channel, buffer, recordPosition(index));
+      for (int i = 0; i < count; i++) {
+        final Optional<BLSPublicKey> publicKey = decode(buffer, i * RECORD_SIZE);
+        if (publicKey.isEmpty()) {
+          LOG.warn(
+              "Discarding validator public keys from index {} in {} due to an invalid checksum",
+              index,
+              path);
+          channel.truncate(recordPosition(index));
+          recordCount = index;
+          break;
+        }
+        knownPublicKeys.add(index, publicKey.get());
+        index++;
+      }
+    }
+    return Math.max(0, index - startIndex);
+  }
+
+  /**
+   * Appends the keys of the validators following the last stored one and syncs them to disk.
+   *
+   * @param startIndex the index of the first validator, must be equal to {@link
+   *     #getRecordCount()}
+   * @param publicKeys the public keys to append
+   */
+  public synchronized void append(final int startIndex, final List<BLSPublicKey> publicKeys)
+      throws IOException {
+    checkArgument(
+        startIndex == recordCount,
+        "Expected validator index %s but got %s",
+        recordCount,
+        startIndex);
+    if (publicKeys.isEmpty()) {
+      return;
+    }
+    final ByteBuffer buffer = ByteBuffer.allocate(publicKeys.size() * RECORD_SIZE);
+    for (BLSPublicKey publicKey : publicKeys) {
+      final int offset = buffer.position();
+      buffer.put(publicKey.toBytesCompressed().toArrayUnsafe());
+      buffer.put(publicKey.toBytesUncompressed().toArrayUnsafe());
+      buffer.putInt(checksum(buffer.array(), offset));
+    }
+    buffer.flip();
+    writeFully(channel, buffer, recordPosition(recordCount));
+    channel.force(false);
+    recordCount += publicKeys.size();
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    channel.close();
+  }
+
+  private static Optional<BLSPublicKey> decode(final ByteBuffer buffer, final int offset) {
+    final byte[] bytes = buffer.array();
+    if (checksum(bytes, offset) != buffer.getInt(offset + KEYS_SIZE)) {
+      return Optional.empty();
+    }
+    // Copy the keys as the buffer is reused and the uncompressed key is decoded lazily
+    final int uncompressedOffset = offset + BLSConstants.BLS_PUBKEY_SIZE;
+    return Optional.of(
+        BLSPublicKey.fromBytesUncompressed(
+            Bytes48.wrap(Arrays.copyOfRange(bytes, offset, uncompressedOffset)),
+            Bytes.wrap(Arrays.copyOfRange(bytes, uncompressedOffset, offset + KEYS_SIZE))));
+  }
+
+  private static int checksum(final byte[] bytes, final int offset) {
+    final CRC32C crc = new CRC32C();
+    crc.update(bytes, offset, KEYS_SIZE);
+    return (int) crc.getValue();
+  }
+
+  private static long recordPosition(final long index) {
+    return HEADER_SIZE + index * RECORD_SIZE;
+  }
+
+  private static void writeHeader(final FileChannel channel) throws IOException {
+    channel.truncate(0);
+    writeFully(channel, ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION), 0);
+    channel.force(true);
+  }
+
+  private static void readFully(
+      final FileChannel channel, final ByteBuffer buffer, final long startPosition)
+      throws IOException {
+    long position = startPosition;
+    while (buffer.hasRemaining()) {
+      final int read = channel.read(buffer, position);
+      if (read < 0) {
+        throw new EOFException("Unexpected end of validator public keys file");
+      }
+      position += read;
+    }
+  }
+
+  private static void writeFully(final FileChannel channel, final ByteBuffer buffer, long position)
+      throws IOException {
+    buffer.rewind();
+    while (buffer.hasRemaining()) {
+      position += channel.write(buffer, position);
+    }
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2022 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package tech.pegasys.teku.storage.pubkeys;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import tech.pegasys.teku.bls.BLSPublicKey;
+import tech.pegasys.teku.infrastructure.async.AsyncRunner;
+import tech.pegasys.teku.infrastructure.ssz.SszList;
+import tech.pegasys.teku.spec.datastructures.forkchoice.ReadOnlyStore;
+import tech.pegasys.teku.spec.datastructures.state.Checkpoint;
+import tech.pegasys.teku.spec.datastructures.state.Validator;
+import tech.pegasys.teku.spec.datastructures.state.beaconstate.common.KnownValidatorPublicKeys;
+import tech.pegasys.teku.storage.api.FinalizedCheckpointChannel;
+import tech.pegasys.teku.storage.client.RecentChainData;
+
+/**
+ * Appends the public keys of newly finalized validators to the {@link ValidatorPublicKeyFile} and
+ * the {@link KnownValidatorPublicKeys}. Only finalized validators are stored since their indices
+ * can't change anymore.
+ */
+public class ValidatorPublicKeyFileUpdater implements FinalizedCheckpointChannel {
+  private static final Logger LOG = LogManager.getLogger();
+
+  /** Max number of keys written at once, so progress is saved while catching up */
+  static final int MAX_KEYS_PER_WRITE = 10_000;
+
+  private final ValidatorPublicKeyFile publicKeyFile;
+  private final KnownValidatorPublicKeys knownPublicKeys;
+  private final RecentChainData recentChainData;
+  private final AsyncRunner asyncRunner;
+  private final AtomicBoolean updateInProgress = new AtomicBoolean(false);
+
+  public ValidatorPublicKeyFileUpdater(
+      final ValidatorPublicKeyFile publicKeyFile,
+      final KnownValidatorPublicKeys knownPublicKeys,
+      final RecentChainData recentChainData,
+      final AsyncRunner asyncRunner) {
+    this.publicKeyFile = publicKeyFile;
+    this.knownPublicKeys = knownPublicKeys;
+    this.recentChainData = recentChainData;
+    this.asyncRunner = asyncRunner;
+  }
+
+  @Override
+  public void onNewFinalizedCheckpoint(
+      final Checkpoint checkpoint, final boolean fromOptimisticBlock) {
+    requestUpdate();
+  }
+
+  /** Schedules an update unless one is already in progress */
+  public void requestUpdate() {
+    if (!updateInProgress.compareAndSet(false, true)) {
+      return;
+    }
+    asyncRunner
+        .runAsync(this::update)
+        .alwaysRun(() -> updateInProgress.set(false))
+        .finish(error -> LOG.warn("Failed to store validator public keys", error));
+  }
+
+  void update() throws IOException {
+    final ReadOnlyStore store = recentChainData.getStore();
+    if (store == null) {
+      return;
+    }
+    final SszList<Validator> validators = store.getLatestFinalized().getState().getValidators();
+    int nextIndex = publicKeyFile.getRecordCount();
+    if (nextIndex != knownPublicKeys.size()) {
+      LOG.debug(
+          "Not storing validator public keys as {} are known but {} are stored",
+          knownPublicKeys.size(),
+          nextIndex);
+      return;
+    }
+    while (nextIndex < validators.size()) {
+      final int endIndex = Math.min(validators.size(), nextIndex + MAX_KEYS_PER_WRITE);
+      final List<BLSPublicKey> publicKeys = new ArrayList<>(endIndex - nextIndex);
+      for (int i = nextIndex; i < endIndex; i++) {
+        publicKeys.add(validators.get(i).getPublicKey());
+      }
+      publicKeyFile.append(nextIndex, publicKeys);
+      for (int i = 0; i < publicKeys.size(); i++) {
+        knownPublicKeys.add(nextIndex + i, publicKeys.get(i));
+      }
+      nextIndex = endIndex;
+    }
+  }
+}
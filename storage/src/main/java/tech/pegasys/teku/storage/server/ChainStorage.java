@@ -18,7 +18,11 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import org.apache.tuweni.bytes.Bytes;
 import org.apache.tuweni.bytes.Bytes32;
+import org.hyperledger.besu.metrics.noop.NoOpMetricsSystem;
+import org.hyperledger.besu.plugin.services.MetricsSystem;
+import tech.pegasys.teku.infrastructure.async.AsyncRunner;
 import tech.pegasys.teku.infrastructure.async.SafeFuture;
 import tech.pegasys.teku.infrastructure.unsigned.UInt64;
 import tech.pegasys.teku.spec.Spec;
@@ -47,17 +51,74 @@ public class ChainStorage
 
   private final Database database;
   private final FinalizedStateCache finalizedStateCache;
+  private final Optional<StorageUpdateGroupCommitter> groupCommitter;
   private Optional<OnDiskStoreData> cachedStoreData = Optional.empty();
 
-  private ChainStorage(final Database database, final FinalizedStateCache finalizedStateCache) {
+  private ChainStorage(
+      final Database database,
+      final FinalizedStateCache finalizedStateCache,
+      final Optional<StorageUpdateGroupCommitter> groupCommitter) {
     this.database = database;
     this.finalizedStateCache = finalizedStateCache;
+    this.groupCommitter = groupCommitter;
   }
 
   public static ChainStorage create(final Database database, final Spec spec) {
+    return create(database, spec, new NoOpMetricsSystem());
+  }
+
+  public static ChainStorage create(
+      final Database database, final Spec spec, final MetricsSystem metricsSystem) {
+    return create(database, spec, metricsSystem, Optional.empty());
+  }
+
+  /**
+   * Creates a ChainStorage which commits storage updates and votes asynchronously using the
+   * supplied runner, coalescing updates which queue up behind each other into a single commit.
+   */
+  public static ChainStorage createWithGroupCommit(
+      final Database database,
+      final Spec spec,
+      final MetricsSystem metricsSystem,
+      final AsyncRunner updateRunner) {
+    return create(
+        database,
+        spec,
+        metricsSystem,
+        Optional.of(
+            new StorageUpdateGroupCommitter(
+                database,
+                updateRunner,
+                metricsSystem,
+                StorageUpdateGroupCommitter.DEFAULT_MAX_UPDATES_PER_COMMIT,
+                StorageUpdateGroupCommitter.DEFAULT_MAX_COMMIT_DELAY)));
+  }
+
+  private static ChainStorage create(
+      final Database database,
+      final Spec spec,
+      final MetricsSystem metricsSystem,
+      final Optional<StorageUpdateGroupCommitter> groupCommitter) {
     final int finalizedStateCacheSize = spec.getSlotsPerEpoch(SpecConfig.GENESIS_EPOCH) * 3;
     return new ChainStorage(
-        database, new FinalizedStateCache(spec, database, finalizedStateCacheSize, true));
+        database,
+        new FinalizedStateCache(
+            spec,
+            database,
+            metricsSystem,
+            finalizedStateCacheSize,
+            FinalizedStateCache.DEFAULT_MAXIMUM_ANCHOR_BYTES,
+            true),
+        groupCommitter);
+  }
+
+  /**
+   * Commits any storage updates and votes still queued by the group committer.
+   *
+   * @return a future which completes once everything received before the call has been committed
+   */
+  public SafeFuture<Void> flush() {
+    return groupCommitter.map(StorageUpdateGroupCommitter::flush).orElse(SafeFuture.COMPLETE);
   }
 
   private synchronized Optional<OnDiskStoreData> getStore() {
@@ -89,6 +150,9 @@ public class ChainStorage
 
   @Override
   public SafeFuture<UpdateResult> onStorageUpdate(final StorageUpdate event) {
+    if (groupCommitter.isPresent()) {
+      return groupCommitter.get().update(event).thenPeek(__ -> handleStoreUpdate());
+    }
     return SafeFuture.of(
         () -> {
           final UpdateResult updateResult = database.update(event);
@@ -128,6 +192,11 @@ public class ChainStorage
     return SafeFuture.of(() -> database.getFinalizedBlockAtSlot(slot));
   }
 
+  @Override
+  public SafeFuture<Optional<Bytes>> getFinalizedBlockBytesAtSlot(final UInt64 slot) {
+    return SafeFuture.of(() -> database.getFinalizedBlockBytesAtSlot(slot));
+  }
+
   @Override
   public SafeFuture<Optional<SignedBeaconBlock>> getLatestFinalizedBlockAtSlot(final UInt64 slot) {
     return SafeFuture.of(() -> database.getLatestFinalizedBlockAtSlot(slot));
@@ -209,6 +278,7 @@ public class ChainStorage
 
   @Override
   public void onVotesUpdated(final Map<UInt64, VoteTracker> votes) {
-    database.storeVotes(votes);
+    groupCommitter.ifPresentOrElse(
+        committer -> committer.storeVotes(votes), () -> database.storeVotes(votes));
   }
 }
@@ -20,6 +20,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Stream;
+import org.apache.tuweni.bytes.Bytes;
 import org.apache.tuweni.bytes.Bytes32;
 import tech.pegasys.teku.ethereum.pow.api.DepositsFromBlockEvent;
 import tech.pegasys.teku.ethereum.pow.api.MinGenesisTimeBlockEvent;
@@ -41,8 +42,28 @@ public interface Database extends AutoCloseable {
 
   UpdateResult update(StorageUpdate event);
 
+  /**
+   * Applies multiple updates which only modify hot data, along with updated votes, in a single
+   * commit.
+   *
+   * @param updates the updates to apply in order, each of which must be {@link
+   *     StorageUpdate#isHotOnly() hot only}
+   * @param votes the votes to store, may be empty
+   */
+  void updateHotData(List<StorageUpdate> updates, Map<UInt64, VoteTracker> votes);
+
   void storeFinalizedBlocks(Collection<SignedBeaconBlock> blocks);
 
+  /**
+   * Stores finalized states which have been regenerated from stored blocks in a single commit.
+   * Every state provided is stored, regardless of the configured state storage frequency, so the
+   * caller decides which states to keep. The state roots of the slots covered by the states are
+   * indexed in the same commit so the states can be found by state root.
+   *
+   * @param states the regenerated states, in slot order
+   */
+  void storeReconstructedFinalizedStates(List<BeaconState> states);
+
   void updateWeakSubjectivityState(WeakSubjectivityUpdate weakSubjectivityUpdate);
 
   Optional<OnDiskStoreData> createMemoryStore();
@@ -63,6 +84,15 @@ public interface Database extends AutoCloseable {
    */
   Optional<SignedBeaconBlock> getFinalizedBlockAtSlot(UInt64 slot);
 
+  /**
+   * Return the SSZ serialized finalized block at this slot if such a block exists, without
+   * deserializing it.
+   *
+   * @param slot The slot to query
+   * @return Returns the serialized finalized block proposed at this slot, if such a block exists
+   */
+  Optional<Bytes> getFinalizedBlockBytesAtSlot(UInt64 slot);
+
   /** @return The earliest available finalized block's slot */
   Optional<UInt64> getEarliestAvailableBlockSlot();
 
@@ -123,4 +153,10 @@ public interface Database extends AutoCloseable {
   void addDepositsFromBlockEvent(final DepositsFromBlockEvent event);
 
   void storeVotes(Map<UInt64, VoteTracker> votes);
+
+  /**
+   * Removes stored finalized state data which is no longer referenced by any finalized state. May
+   * take a long time to complete and should be called from a background thread.
+   */
+  void collectGarbage();
 }
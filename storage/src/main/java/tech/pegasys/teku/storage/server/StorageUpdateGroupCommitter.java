@@ -0,0 +1,282 @@
+/*
+ * Copyright 2022 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package tech.pegasys.teku.storage.server;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hyperledger.besu.plugin.services.MetricsSystem;
+import org.hyperledger.besu.plugin.services.metrics.Counter;
+import tech.pegasys.teku.infrastructure.async.AsyncRunner;
+import tech.pegasys.teku.infrastructure.async.SafeFuture;
+import tech.pegasys.teku.infrastructure.metrics.MetricsHistogram;
+import tech.pegasys.teku.infrastructure.metrics.TekuMetricCategory;
+import tech.pegasys.teku.infrastructure.unsigned.UInt64;
+import tech.pegasys.teku.spec.datastructures.forkchoice.VoteTracker;
+import tech.pegasys.teku.storage.api.StorageUpdate;
+import tech.pegasys.teku.storage.api.UpdateResult;
+
+/**
+ * Coalesces storage updates which arrive while a previous commit is in progress, or within a short
+ * delay of each other, into a single database commit.
+ *
+ * <p>Updates are always applied in the order they are received. Consecutive hot only updates are
+ * committed together with any pending votes, while updates which finalize data are committed on
+ * their own. The future for each update completes once the commit that contains it completes.
+ */
+public class StorageUpdateGroupCommitter {
+  private static final Logger LOG = LogManager.getLogger();
+
+  public static final int DEFAULT_MAX_UPDATES_PER_COMMIT = 64;
+  public static final Duration DEFAULT_MAX_COMMIT_DELAY = Duration.ZERO;
+
+  private final Database database;
+  private final AsyncRunner asyncRunner;
+  private final int maxUpdatesPerCommit;
+  private final Duration maxCommitDelay;
+
+  private final Queue<PendingUpdate> pendingUpdates = new ArrayDeque<>();
+  private final Map<UInt64, VoteTracker> pendingVotes = new HashMap<>();
+  private final List<SafeFuture<Void>> pendingFlushes = new ArrayList<>();
+  private boolean commitScheduled = false;
+
+  private final Counter commitCounter;
+  private final Counter updateCounter;
+  private final MetricsHistogram commitSizeHistogram;
+  private final MetricsHistogram commitLatencyHistogram;
+
+  public StorageUpdateGroupCommitter(
+      final Database database,
+      final AsyncRunner asyncRunner,
+      final MetricsSystem metricsSystem,
+      final int maxUpdatesPerCommit,
+      final Duration maxCommitDelay) {
+    checkArgument(maxUpdatesPerCommit > 0, "Max updates per commit must be positive");
+    this.database = database;
+    this.asyncRunner = asyncRunner;
+    this.maxUpdatesPerCommit = maxUpdatesPerCommit;
+    this.maxCommitDelay = maxCommitDelay;
+
+    metricsSystem.createGauge(
+        TekuMetricCategory.STORAGE,
+        "update_queue_size",
+        "Number of storage updates waiting to be committed",
+        this::getQueueSize);
+    commitCounter =
+        metricsSystem.createCounter(
+            TekuMetricCategory.STORAGE,
+            "update_commits_total",
+            "Number of database commits used to apply storage updates");
+    updateCounter =
+        metricsSystem.createCounter(
+            TekuMetricCategory.STORAGE,
+            "updates_total",
+            "Number of storage updates applied, divide by commits for the coalescing factor");
+    commitSizeHistogram =
+        MetricsHistogram.create(
+            TekuMetricCategory.STORAGE,
+            metricsSystem,
+            "update_commit_size",
+            "Histogram of the number of storage updates applied in each commit",
+            3,
+            List.of());
+    commitLatencyHistogram =
+        MetricsHistogram.create(
+            TekuMetricCategory.STORAGE,
+            metricsSystem,
+            "update_commit_latency",
+            "Histogram of milliseconds from receiving a storage update to committing it",
+            3,
+            List.of());
+  }
+
+  public SafeFuture<UpdateResult> update(final StorageUpdate update) {
+    final PendingUpdate pendingUpdate = new PendingUpdate(update, System.nanoTime());
+    synchronized (this) {
+      pendingUpdates.add(pendingUpdate);
+      scheduleCommit();
+    }
+    return pendingUpdate.result;
+  }
+
+  public synchronized void storeVotes(final Map<UInt64, VoteTracker> votes) {
+    // Later votes for the same validator replace earlier ones so only the latest is written
+    pendingVotes.putAll(votes);
+    scheduleCommit();
+  }
+
+  /**
+   * Commits any updates and votes which have been received but not yet committed without waiting
+   * for the commit delay.
+   *
+   * @return a future which completes once everything received before the call has been committed
+   */
+  public SafeFuture<Void> flush() {
+    final SafeFuture<Void> flushed = new SafeFuture<>();
+    synchronized (this) {
+      pendingFlushes.add(flushed);
+      scheduleCommit();
+    }
+    return flushed;
+  }
+
+  private synchronized int getQueueSize() {
+    return pendingUpdates.size();
+  }
+
+  private synchronized void scheduleCommit() {
+    if (commitScheduled) {
+      return;
+    }
+    commitScheduled = true;
+    if (maxCommitDelay.isZero()
+        || pendingUpdates.size() >= maxUpdatesPerCommit
+        || !pendingFlushes.isEmpty()) {
+      asyncRunner.runAsync(this::commitPending).ifExceptionGetsHereRaiseABug();
+    } else {
+      asyncRunner
+          .runAfterDelay(this::commitPending, maxCommitDelay)
+          .ifExceptionGetsHereRaiseABug();
+    }
+  }
+
+  private void commitPending() {
+    while (true) {
+      final Optional<List<SafeFuture<Void>>> completedFlushes = finishIfIdle();
+      if (completedFlushes.isPresent()) {
+        completedFlushes.get().forEach(flushed -> flushed.complete(null));
+        return;
+      }
+      final List<PendingUpdate> updates = new ArrayList<>();
+      final Map<UInt64, VoteTracker> votes;
+      synchronized (this) {
+        final PendingUpdate next = pendingUpdates.peek();
+        if (next != null && !next.update.isHotOnly()) {
+          // Finalizing updates read data written by earlier updates so can't share a commit
+          updates.add(pendingUpdates.remove());
+          votes = Collections.emptyMap();
+        } else {
+          while (updates.size() < maxUpdatesPerCommit
+              && !pendingUpdates.isEmpty()
+              && pendingUpdates.peek().update.isHotOnly()) {
+            updates.add(pendingUpdates.remove());
+          }
+          votes = new HashMap<>(pendingVotes);
+          pendingVotes.clear();
+        }
+      }
+
+      if (updates.size() == 1 && votes.isEmpty()) {
+        commitSingle(updates.get(0));
+      } else {
+        commitGroup(updates, votes);
+      }
+    }
+  }
+
+  /**
+   * Ends the scheduled commit if there is nothing left to commit.
+   *
+   * @return the flushes waiting for the commit to end, or empty if there is more to commit
+   */
+  private synchronized Optional<List<SafeFuture<Void>>> finishIfIdle() {
+    if (!pendingUpdates.isEmpty() || !pendingVotes.isEmpty()) {
+      return Optional.empty();
+    }
+    commitScheduled = false;
+    final List<SafeFuture<Void>> completedFlushes = new ArrayList<>(pendingFlushes);
+    pendingFlushes.clear();
+    return Optional.of(completedFlushes);
+  }
+
+  private void commitSingle(final PendingUpdate pendingUpdate) {
+    try {
+      final UpdateResult result = database.update(pendingUpdate.update);
+      recordCommit(List.of(pendingUpdate));
+      pendingUpdate.result.complete(result);
+    } catch (final Throwable t) {
+      pendingUpdate.result.completeExceptionally(t);
+    }
+  }
+
+  private void commitGroup(
+      final List<PendingUpdate> updates, final Map<UInt64, VoteTracker> votes) {
+    try {
+      database.updateHotData(
+          updates.stream().map(pendingUpdate -> pendingUpdate.update).collect(Collectors.toList()),
+          votes);
+      recordCommit(updates);
+      updates.forEach(pendingUpdate -> pendingUpdate.result.complete(UpdateResult.EMPTY));
+    } catch (final Throwable t) {
+      if (updates.size() + (votes.isEmpty() ? 0 : 1) == 1) {
+        failGroup(updates, votes, t);
+        return;
+      }
+      // Nothing from the failed commit was written so retry individually to isolate the failure
+      LOG.debug(
+          "Failed to commit {} storage updates together, retrying individually",
+          updates.size(),
+          t);
+      updates.forEach(pendingUpdate -> commitGroup(List.of(pendingUpdate), Map.of()));
+      if (!votes.isEmpty()) {
+        commitGroup(List.of(), votes);
+      }
+    }
+  }
+
+  private void failGroup(
+      final List<PendingUpdate> updates, final Map<UInt64, VoteTracker> votes, final Throwable t) {
+    updates.forEach(pendingUpdate -> pendingUpdate.result.completeExceptionally(t));
+    if (!votes.isEmpty()) {
+      LOG.error("Failed to store votes", t);
+    }
+  }
+
+  private void recordCommit(final List<PendingUpdate> updates) {
+    if (updates.isEmpty()) {
+      return;
+    }
+    commitCounter.inc();
+    updateCounter.inc(updates.size());
+    commitSizeHistogram.recordValue(updates.size());
+    final long now = System.nanoTime();
+    updates.forEach(
+        pendingUpdate ->
+            commitLatencyHistogram.recordValue(
+                TimeUnit.NANOSECONDS.toMillis(now - pendingUpdate.receivedTimeNanos)));
+  }
+
+  private static class PendingUpdate {
+    private final StorageUpdate update;
+    private final long receivedTimeNanos;
+    private final SafeFuture<UpdateResult> result = new SafeFuture<>();
+
+    private PendingUpdate(final StorageUpdate update, final long receivedTimeNanos) {
+      this.update = update;
+      this.receivedTimeNanos = receivedTimeNanos;
+    }
+  }
+}
@@ -19,6 +19,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.util.Optional;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.hyperledger.besu.plugin.services.MetricsSystem;
@@ -33,6 +34,7 @@ import tech.pegasys.teku.storage.server.metadata.V6DatabaseMetadata;
 import tech.pegasys.teku.storage.server.network.DatabaseNetwork;
 import tech.pegasys.teku.storage.server.noop.NoOpDatabase;
 import tech.pegasys.teku.storage.server.rocksdb.RocksDbDatabaseFactory;
+import tech.pegasys.teku.storage.server.segments.BlockSegmentStore;
 
 public class VersionedDatabaseFactory implements DatabaseFactory {
   private static final Logger LOG = LogManager.getLogger();
@@ -43,6 +45,7 @@ public class VersionedDatabaseFactory implements DatabaseFactory {
   @VisibleForTesting static final String DB_VERSION_PATH = "db.version";
   @VisibleForTesting static final String METADATA_FILENAME = "metadata.yml";
   @VisibleForTesting static final String NETWORK_FILENAME = "network.yml";
+  @VisibleForTesting static final String FINALIZED_BLOCKS_PATH = "finalized-blocks";
 
   private final MetricsSystem metricsSystem;
   private final File dataDirectory;
@@ -50,6 +53,7 @@ public class VersionedDatabaseFactory implements DatabaseFactory {
   private final File dbDirectory;
   private final File v5ArchiveDirectory;
   private final File dbVersionFile;
+  private final File finalizedBlocksDirectory;
   private final StateStorageMode stateStorageMode;
   private final DatabaseVersion createDatabaseVersion;
   private final long stateStorageFrequency;
@@ -57,6 +61,7 @@ public class VersionedDatabaseFactory implements DatabaseFactory {
   private final Spec spec;
   private final boolean storeNonCanonicalBlocks;
   private final boolean storeVotesEquivocation;
+  private final boolean finalizedBlockSegmentsEnabled;
 
   public VersionedDatabaseFactory(
       final MetricsSystem metricsSystem,
@@ -90,17 +95,46 @@ public class VersionedDatabaseFactory implements DatabaseFactory {
       final int maxKnownNodeCacheSize,
       final boolean storeVotesEquivocation,
       final Spec spec) {
+    this(
+        metricsSystem,
+        dataPath,
+        dataStorageMode,
+        createDatabaseVersion,
+        stateStorageFrequency,
+        eth1Address,
+        storeNonCanonicalBlocks,
+        maxKnownNodeCacheSize,
+        storeVotesEquivocation,
+        false,
+        spec);
+  }
+
+  public VersionedDatabaseFactory(
+      final MetricsSystem metricsSystem,
+      final Path dataPath,
+      final StateStorageMode dataStorageMode,
+      final DatabaseVersion createDatabaseVersion,
+      final long stateStorageFrequency,
+      final Eth1Address eth1Address,
+      final boolean storeNonCanonicalBlocks,
+      final int maxKnownNodeCacheSize,
+      final boolean storeVotesEquivocation,
+      final boolean finalizedBlockSegmentsEnabled,
+      final Spec spec) {
     this.metricsSystem = metricsSystem;
     this.dataDirectory = dataPath.toFile();
     this.maxKnownNodeCacheSize = maxKnownNodeCacheSize;
     this.dbDirectory = this.dataDirectory.toPath().resolve(DB_PATH).toFile();
     this.v5ArchiveDirectory = this.dataDirectory.toPath().resolve(ARCHIVE_PATH).toFile();
     this.dbVersionFile = this.dataDirectory.toPath().resolve(DB_VERSION_PATH).toFile();
+    this.finalizedBlocksDirectory =
+        this.dataDirectory.toPath().resolve(FINALIZED_BLOCKS_PATH).toFile();
     this.stateStorageMode = dataStorageMode;
     this.stateStorageFrequency = stateStorageFrequency;
     this.eth1Address = eth1Address;
     this.storeNonCanonicalBlocks = storeNonCanonicalBlocks;
     this.storeVotesEquivocation = storeVotesEquivocation;
+    this.finalizedBlockSegmentsEnabled = finalizedBlockSegmentsEnabled;
     this.spec = spec;
 
     this.createDatabaseVersion = createDatabaseVersion;
@@ -111,6 +145,7 @@ public class VersionedDatabaseFactory implements DatabaseFactory {
     LOG.info("Beacon data directory set to: {}", dataDirectory.getAbsolutePath());
     validateDataPaths();
     final DatabaseVersion dbVersion = getDatabaseVersion();
+    final boolean isNewDatabase = !dbVersionFile.exists();
     createDirectories(dbVersion);
     saveDatabaseVersion(dbVersion);
 
@@ -143,7 +178,7 @@ public class VersionedDatabaseFactory implements DatabaseFactory {
             v5ArchiveDirectory.getAbsolutePath());
         break;
       case V6:
-        database = createV6Database();
+        database = createV6Database(isNewDatabase);
         LOG.info(
             "Created V6 Hot and Finalized database ({}) at {}",
             dbVersion.getValue(),
@@ -161,14 +196,14 @@ public class VersionedDatabaseFactory implements DatabaseFactory {
             v5ArchiveDirectory.getAbsolutePath());
         break;
       case LEVELDB2:
-        database = createLevelDbV2Database();
+        database = createLevelDbV2Database(isNewDatabase);
         LOG.info(
             "Created leveldb2 Hot and Finalized database ({}) at {}",
             dbVersion.getValue(),
             dbDirectory.getAbsolutePath());
         break;
       case LEVELDB_TREE:
-        database = createLevelDbTreeDatabase();
+        database = createLevelDbTreeDatabase(isNewDatabase);
         LOG.info(
             "Created leveldb_tree Hot and Finalized database ({}) at {}",
             dbVersion.getValue(),
@@ -223,7 +258,7 @@ public class VersionedDatabaseFactory implements DatabaseFactory {
     }
   }
 
-  private Database createV6Database() {
+  private Database createV6Database(final boolean isNewDatabase) {
     try {
 
       final KvStoreConfiguration dbConfiguration = initV6Configuration();
@@ -236,6 +271,7 @@ public class VersionedDatabaseFactory implements DatabaseFactory {
           stateStorageMode,
           stateStorageFrequency,
           storeNonCanonicalBlocks,
+          openFinalizedBlockSegmentStore(isNewDatabase),
           spec);
     } catch (final IOException e) {
       throw DatabaseStorageException.unrecoverable("Failed to read metadata", e);
@@ -267,7 +303,7 @@ public class VersionedDatabaseFactory implements DatabaseFactory {
     }
   }
 
-  private Database createLevelDbV2Database() {
+  private Database createLevelDbV2Database(final boolean isNewDatabase) {
     try {
       final KvStoreConfiguration dbConfiguration = initV6Configuration();
 
@@ -278,13 +314,14 @@ public class VersionedDatabaseFactory implements DatabaseFactory {
           stateStorageFrequency,
           storeNonCanonicalBlocks,
           storeVotesEquivocation,
+          openFinalizedBlockSegmentStore(isNewDatabase),
           spec);
     } catch (final IOException e) {
       throw DatabaseStorageException.unrecoverable("Failed to read metadata", e);
     }
   }
 
-  private Database createLevelDbTreeDatabase() {
+  private Database createLevelDbTreeDatabase(final boolean isNewDatabase) {
     try {
       final KvStoreConfiguration dbConfiguration = initV6Configuration();
 
@@ -295,12 +332,36 @@ public class VersionedDatabaseFactory implements DatabaseFactory {
           storeNonCanonicalBlocks,
           maxKnownNodeCacheSize,
           storeVotesEquivocation,
+          openFinalizedBlockSegmentStore(isNewDatabase),
           spec);
     } catch (final IOException e) {
       throw DatabaseStorageException.unrecoverable("Failed to read metadata", e);
     }
   }
 
+  /**
+   * Finalized blocks are stored either in segment files or in the database for the life of the
+   * database, so segments are only used if they already exist or the database is being created.
+   */
+  private Optional<BlockSegmentStore> openFinalizedBlockSegmentStore(final boolean isNewDatabase) {
+    if (finalizedBlocksDirectory.isDirectory()) {
+      return Optional.of(BlockSegmentStore.open(finalizedBlocksDirectory.toPath()));
+    }
+    if (!finalizedBlockSegmentsEnabled) {
+      return Optional.empty();
+    }
+    if (!isNewDatabase) {
+      LOG.warn(
+          "Finalized block segments can only be enabled when creating a new database. "
+              + "Continuing to store finalized blocks in the existing database.");
+      return Optional.empty();
+    }
+    LOG.info(
+        "Storing finalized blocks in segment files at {}",
+        finalizedBlocksDirectory.getAbsolutePath());
+    return Optional.of(BlockSegmentStore.open(finalizedBlocksDirectory.toPath()));
+  }
+
   private KvStoreConfiguration initV6Configuration() throws IOException {
     final V6DatabaseMetadata metaData =
         V6DatabaseMetadata.init(getMetadataFile(), V6DatabaseMetadata.singleDBDefault());
@@ -14,6 +14,7 @@
 package tech.pegasys.teku.storage.server.kvstore;
 
 import com.google.errorprone.annotations.MustBeClosed;
+import java.util.Collection;
 import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Stream;
@@ -29,8 +30,29 @@ public interface KvStoreAccessor extends AutoCloseable {
 
   <K, V> Optional<V> get(KvStoreColumn<K, V> column, K key);
 
+  /**
+   * Get the serialized value stored for a key without deserializing it.
+   *
+   * @param column The column to read from
+   * @param key The key to look up
+   * @return The serialized value, if present
+   */
+  <K, V> Optional<Bytes> getRaw(KvStoreColumn<K, V> column, K key);
+
   <K, V> Map<K, V> getAll(KvStoreColumn<K, V> column);
 
+  /**
+   * Returns the values stored for the given keys, using a single batched read where the database
+   * supports it.
+   *
+   * @param column The column we want to query
+   * @param keys The requested keys
+   * @param <K> The key type of the column
+   * @param <V> The value type of the column
+   * @return A map of each requested key that has a stored value to that value
+   */
+  <K, V> Map<K, V> getAll(KvStoreColumn<K, V> column, Collection<K> keys);
+
   /**
    * Returns the last entry with a key less than or equal to the given key.
    *
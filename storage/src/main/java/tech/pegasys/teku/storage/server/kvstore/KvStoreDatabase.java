@@ -13,6 +13,7 @@
 
 package tech.pegasys.teku.storage.server.kvstore;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static tech.pegasys.teku.infrastructure.logging.StatusLogger.STATUS_LOG;
 
@@ -36,6 +37,7 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.apache.tuweni.bytes.Bytes;
 import org.apache.tuweni.bytes.Bytes32;
 import org.hyperledger.besu.plugin.services.MetricsSystem;
 import tech.pegasys.teku.dataproviders.lookup.BlockProvider;
@@ -72,6 +74,9 @@ import tech.pegasys.teku.storage.server.kvstore.dataaccess.KvStoreFinalizedDao;
 import tech.pegasys.teku.storage.server.kvstore.dataaccess.KvStoreFinalizedDao.FinalizedUpdater;
 import tech.pegasys.teku.storage.server.kvstore.dataaccess.KvStoreHotDao;
 import tech.pegasys.teku.storage.server.kvstore.dataaccess.KvStoreHotDao.HotUpdater;
+import tech.pegasys.teku.storage.server.kvstore.dataaccess.V4FinalizedBlockColumnStorageLogic;
+import tech.pegasys.teku.storage.server.kvstore.dataaccess.V4FinalizedBlockSegmentStorageLogic;
+import tech.pegasys.teku.storage.server.kvstore.dataaccess.V4FinalizedBlockStorageLogic;
 import tech.pegasys.teku.storage.server.kvstore.dataaccess.V4FinalizedKvStoreDao;
 import tech.pegasys.teku.storage.server.kvstore.dataaccess.V4FinalizedStateSnapshotStorageLogic;
 import tech.pegasys.teku.storage.server.kvstore.dataaccess.V4FinalizedStateStorageLogic;
@@ -83,6 +88,7 @@ import tech.pegasys.teku.storage.server.kvstore.schema.SchemaFinalizedTreeState;
 import tech.pegasys.teku.storage.server.kvstore.schema.SchemaHot;
 import tech.pegasys.teku.storage.server.kvstore.schema.V4SchemaFinalized;
 import tech.pegasys.teku.storage.server.kvstore.schema.V4SchemaHot;
+import tech.pegasys.teku.storage.server.segments.BlockSegmentStore;
 import tech.pegasys.teku.storage.server.state.StateRootRecorder;
 
 public class KvStoreDatabase implements Database {
@@ -116,6 +122,7 @@ public class KvStoreDatabase implements Database {
         stateStorageMode,
         stateStorageFrequency,
         storeNonCanonicalBlocks,
+        Optional.empty(),
         spec);
   }
 
@@ -127,6 +134,7 @@ public class KvStoreDatabase implements Database {
       final StateStorageMode stateStorageMode,
       final long stateStorageFrequency,
       final boolean storeNonCanonicalBlocks,
+      final Optional<BlockSegmentStore> finalizedBlockSegmentStore,
       final Spec spec) {
     final V4FinalizedStateSnapshotStorageLogic finalizedStateStorageLogic =
         new V4FinalizedStateSnapshotStorageLogic(stateStorageFrequency);
@@ -138,7 +146,8 @@ public class KvStoreDatabase implements Database {
         stateStorageMode,
         storeNonCanonicalBlocks,
         spec,
-        finalizedStateStorageLogic);
+        finalizedStateStorageLogic,
+        createFinalizedBlockStorageLogic(finalizedBlockSegmentStore));
   }
 
   public static Database createWithStateTree(
@@ -149,6 +158,7 @@ public class KvStoreDatabase implements Database {
       final StateStorageMode stateStorageMode,
       final boolean storeNonCanonicalBlocks,
       final int maxKnownNodeCacheSize,
+      final Optional<BlockSegmentStore> finalizedBlockSegmentStore,
       final Spec spec) {
     final V4FinalizedStateStorageLogic<SchemaFinalizedTreeState> finalizedStateStorageLogic =
         new V4FinalizedStateTreeStorageLogic(metricsSystem, spec, maxKnownNodeCacheSize);
@@ -160,7 +170,16 @@ public class KvStoreDatabase implements Database {
         stateStorageMode,
         storeNonCanonicalBlocks,
         spec,
-        finalizedStateStorageLogic);
+        finalizedStateStorageLogic,
+        createFinalizedBlockStorageLogic(finalizedBlockSegmentStore));
+  }
+
+  private static <S extends SchemaFinalized>
+      V4FinalizedBlockStorageLogic<S> createFinalizedBlockStorageLogic(
+          final Optional<BlockSegmentStore> finalizedBlockSegmentStore) {
+    return finalizedBlockSegmentStore
+        .<V4FinalizedBlockStorageLogic<S>>map(V4FinalizedBlockSegmentStorageLogic::new)
+        .orElseGet(V4FinalizedBlockColumnStorageLogic::new);
   }
 
   private static <S extends SchemaFinalized> KvStoreDatabase create(
@@ -171,10 +190,12 @@ public class KvStoreDatabase implements Database {
       final StateStorageMode stateStorageMode,
       final boolean storeNonCanonicalBlocks,
       final Spec spec,
-      final V4FinalizedStateStorageLogic<S> finalizedStateStorageLogic) {
+      final V4FinalizedStateStorageLogic<S> finalizedStateStorageLogic,
+      final V4FinalizedBlockStorageLogic<S> finalizedBlockStorageLogic) {
     final V4HotKvStoreDao dao = new V4HotKvStoreDao(hotDb, schemaHot);
     final KvStoreFinalizedDao finalizedDbDao =
-        new V4FinalizedKvStoreDao<>(finalizedDb, schemaFinalized, finalizedStateStorageLogic);
+        new V4FinalizedKvStoreDao<>(
+            finalizedDb, schemaFinalized, finalizedStateStorageLogic, finalizedBlockStorageLogic);
     return new KvStoreDatabase(
         dao, finalizedDbDao, dao, stateStorageMode, storeNonCanonicalBlocks, spec);
   }
@@ -280,6 +301,28 @@ public class KvStoreDatabase implements Database {
     }
   }
 
+  @Override
+  public void storeReconstructedFinalizedStates(final List<BeaconState> states) {
+    if (states.isEmpty()) {
+      return;
+    }
+    try (final FinalizedUpdater updater = finalizedDao.finalizedUpdater()) {
+      // Index the state roots for every slot covered by the regenerated states. The earlier
+      // stored state isn't known here, so start from the oldest root the first state records.
+      final UInt64 firstSlot = states.get(0).getSlot();
+      final StateRootRecorder recorder =
+          new StateRootRecorder(
+              firstSlot.minusMinZero(spec.getSlotsPerHistoricalRoot(firstSlot)),
+              updater::addFinalizedStateRoot,
+              spec);
+      for (BeaconState state : states) {
+        updater.addReconstructedFinalizedState(state);
+        recorder.acceptNextState(state);
+      }
+      updater.commit();
+    }
+  }
+
   @Override
   public void updateWeakSubjectivityState(WeakSubjectivityUpdate weakSubjectivityUpdate) {
     try (final HotUpdater updater = hotDao.hotUpdater()) {
@@ -402,6 +445,11 @@ public class KvStoreDatabase implements Database {
     return finalizedDao.getFinalizedBlockAtSlot(slot);
   }
 
+  @Override
+  public Optional<Bytes> getFinalizedBlockBytesAtSlot(final UInt64 slot) {
+    return finalizedDao.getFinalizedBlockBytesAtSlot(slot);
+  }
+
   @Override
   public Optional<UInt64> getEarliestAvailableBlockSlot() {
     return finalizedDao.getEarliestFinalizedBlockSlot();
@@ -518,6 +566,21 @@ public class KvStoreDatabase implements Database {
     }
   }
 
+  @Override
+  public void updateHotData(
+      final List<StorageUpdate> updates, final Map<UInt64, VoteTracker> votes) {
+    try (final HotUpdater updater = hotDao.hotUpdater()) {
+      for (StorageUpdate update : updates) {
+        checkArgument(update.isHotOnly(), "Only hot updates can be applied together");
+        applyHotUpdate(updater, update);
+      }
+      if (!votes.isEmpty()) {
+        updater.addVotes(votes);
+      }
+      updater.commit();
+    }
+  }
+
   @Override
   public void storeVotes(final Map<UInt64, VoteTracker> votes) {
     try (final KvStoreHotDao.HotUpdater hotUpdater = hotDao.hotUpdater()) {
@@ -526,6 +589,11 @@ public class KvStoreDatabase implements Database {
     }
   }
 
+  @Override
+  public void collectGarbage() {
+    finalizedDao.collectGarbage();
+  }
+
   @Override
   public void close() throws Exception {
     hotDao.close();
@@ -546,33 +614,7 @@ public class KvStoreDatabase implements Database {
             update.getOptimisticTransitionBlockRoot());
     LOG.trace("Applying hot updates");
     try (final HotUpdater updater = hotDao.hotUpdater()) {
-      // Store new hot data
-      update.getGenesisTime().ifPresent(updater::setGenesisTime);
-      update
-          .getFinalizedCheckpoint()
-          .ifPresent(
-              checkpoint -> {
-                updater.setFinalizedCheckpoint(checkpoint);
-                final int slotsPerEpoch = spec.slotsPerEpoch(checkpoint.getEpoch());
-                final UInt64 finalizedSlot = checkpoint.getEpochStartSlot(spec).plus(slotsPerEpoch);
-                updater.pruneHotStateRoots(hotDao.getStateRootsBeforeSlot(finalizedSlot));
-                updater.deleteHotState(checkpoint.getRoot());
-              });
-
-      update.getJustifiedCheckpoint().ifPresent(updater::setJustifiedCheckpoint);
-      update.getBestJustifiedCheckpoint().ifPresent(updater::setBestJustifiedCheckpoint);
-      update.getLatestFinalizedState().ifPresent(updater::setLatestFinalizedState);
-
-      updater.addHotBlocks(update.getHotBlocks());
-      updater.addHotStates(update.getHotStates());
-
-      if (update.getStateRoots().size() > 0) {
-        updater.addHotStateRoots(update.getStateRoots());
-      }
-
-      // Delete finalized data from hot db
-      update.getDeletedHotBlocks().forEach(updater::deleteHotBlock);
-
+      applyHotUpdate(updater, update);
       LOG.trace("Committing hot db changes");
       updater.commit();
     }
@@ -580,6 +622,35 @@ public class KvStoreDatabase implements Database {
     return new UpdateResult(finalizedOptimisticExecutionPayload);
   }
 
+  private void applyHotUpdate(final HotUpdater updater, final StorageUpdate update) {
+    // Store new hot data
+    update.getGenesisTime().ifPresent(updater::setGenesisTime);
+    update
+        .getFinalizedCheckpoint()
+        .ifPresent(
+            checkpoint -> {
+              updater.setFinalizedCheckpoint(checkpoint);
+              final int slotsPerEpoch = spec.slotsPerEpoch(checkpoint.getEpoch());
+              final UInt64 finalizedSlot = checkpoint.getEpochStartSlot(spec).plus(slotsPerEpoch);
+              updater.pruneHotStateRoots(hotDao.getStateRootsBeforeSlot(finalizedSlot));
+              updater.deleteHotState(checkpoint.getRoot());
+            });
+
+    update.getJustifiedCheckpoint().ifPresent(updater::setJustifiedCheckpoint);
+    update.getBestJustifiedCheckpoint().ifPresent(updater::setBestJustifiedCheckpoint);
+    update.getLatestFinalizedState().ifPresent(updater::setLatestFinalizedState);
+
+    updater.addHotBlocks(update.getHotBlocks());
+    updater.addHotStates(update.getHotStates());
+
+    if (update.getStateRoots().size() > 0) {
+      updater.addHotStateRoots(update.getStateRoots());
+    }
+
+    // Delete finalized data from hot db
+    update.getDeletedHotBlocks().forEach(updater::deleteHotBlock);
+  }
+
   private Optional<SlotAndExecutionPayload> updateFinalizedData(
       Map<Bytes32, Bytes32> finalizedChildToParentMap,
       final Map<Bytes32, SignedBeaconBlock> finalizedBlocks,
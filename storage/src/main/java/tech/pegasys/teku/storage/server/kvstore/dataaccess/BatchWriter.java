@@ -31,6 +31,7 @@ class BatchWriter implements AutoCloseable {
 
   private long transactionCounter = 0;
   private long entryCounter = 0;
+  private long deletedEntryCounter = 0;
   private long bytes = 0;
   private final Optional<UInt64> maybeExpectedCount;
 
@@ -75,9 +76,28 @@ class BatchWriter implements AutoCloseable {
   void add(final KvStoreColumn<?, ?> column, final ColumnEntry<Bytes, Bytes> entry) {
     startTransaction();
 
-    bytes += entry.getKey().size() + entry.getValue().size();
     getTransaction().putRaw(column, entry.getKey(), entry.getValue());
     entryCounter++;
+    onEntryWritten(entry.getKey().size() + entry.getValue().size());
+  }
+
+  /**
+   * Deletes an entry, counting {@code entrySize} bytes towards the batch size.
+   *
+   * @param column the column to delete the entry from
+   * @param key the key of the entry to delete
+   * @param entrySize the size of the deleted key and value
+   */
+  <K, V> void delete(final KvStoreColumn<K, V> column, final K key, final long entrySize) {
+    startTransaction();
+
+    getTransaction().delete(column, key);
+    deletedEntryCounter++;
+    onEntryWritten(entrySize);
+  }
+
+  private void onEntryWritten(final long entrySize) {
+    bytes += entrySize;
     if (bytes >= targetBatchSize) {
       commit();
       bytes = 0;
@@ -89,7 +109,7 @@ class BatchWriter implements AutoCloseable {
                     String.format(
                         " -- %,d (%d %%)...",
                         entryCounter, (entryCounter * 100) / expectedTotal.longValue())),
-            () -> logger.accept(String.format(" -- %,d...", entryCounter)));
+            () -> logger.accept(String.format(" -- %,d...", entryCounter + deletedEntryCounter)));
       }
     }
   }
@@ -101,6 +121,9 @@ class BatchWriter implements AutoCloseable {
       if (entryCounter > 0) {
         logger.accept(String.format(" => Inserted %,d entries...", entryCounter));
       }
+      if (deletedEntryCounter > 0) {
+        logger.accept(String.format(" => Deleted %,d entries...", deletedEntryCounter));
+      }
     } catch (Exception ex) {
       logger.accept("Failed to commit transaction on close: " + ex.getCause());
     }
@@ -0,0 +1,256 @@
+/*
+ * Copyright 2022 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package tech.pegasys.teku.storage.server.kvstore.dataaccess;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.tuweni.bytes.Bytes;
+import org.apache.tuweni.bytes.Bytes32;
+import org.hyperledger.besu.plugin.services.metrics.Counter;
+import org.hyperledger.besu.plugin.services.metrics.LabelledMetric;
+import tech.pegasys.teku.infrastructure.ssz.tree.TreeNodeSource.CompressedBranchInfo;
+import tech.pegasys.teku.infrastructure.unsigned.UInt64;
+import tech.pegasys.teku.storage.server.kvstore.ColumnEntry;
+import tech.pegasys.teku.storage.server.kvstore.KvStoreAccessor;
+import tech.pegasys.teku.storage.server.kvstore.KvStoreAccessor.KvStoreTransaction;
+import tech.pegasys.teku.storage.server.kvstore.schema.KvStoreColumn;
+import tech.pegasys.teku.storage.server.kvstore.schema.SchemaFinalizedTreeState;
+
+/**
+ * Removes finalized state tree branches and leaves which are no longer reachable from any stored
+ * finalized state root.
+ *
+ * <p>A collection cycle first marks every node reachable from the roots in the finalized state
+ * roots column, then sweeps the branch and leaf columns, deleting unmarked nodes in batches. Marks
+ * are written to the marked nodes column in batches rather than held in memory, so memory use
+ * doesn't grow with the size of the database, and the column is cleared at the start and end of
+ * each cycle. Each batch is deleted while holding the write side of {@code storeLock} and states
+ * are only stored while holding the read side, so block import is only paused for the duration of
+ * a single batch. Before deleting, any states stored since the last batch are marked so their
+ * nodes are retained and the known stored branches cache is restricted to marked nodes so that
+ * newly stored states can't skip storing a subtree containing a deleted node.
+ *
+ * <p>Instances are single use and not thread safe.
+ */
+class FinalizedStateTreeGarbageCollector {
+  private static final Logger LOG = LogManager.getLogger();
+  private static final int DELETE_BATCH_SIZE_MB = 64;
+
+  private final KvStoreAccessor db;
+  private final SchemaFinalizedTreeState schema;
+  private final Set<Bytes32> knownStoredBranchesCache;
+  private final ReadWriteLock storeLock;
+  private final LongSupplier stateStoreGeneration;
+  private final LabelledMetric<Counter> reclaimedBytesCounter;
+  private final LabelledMetric<Counter> removedNodesCounter;
+  private final int markBatchSize;
+  private final int sweepBatchSize;
+
+  private final Set<Bytes32> unwrittenMarks = new HashSet<>();
+  private long markedStateStoreGeneration;
+  private boolean knownStoredBranchesCacheChecked = false;
+  private long markedNodes = 0;
+  private long reclaimedBytes = 0;
+  private long removedNodes = 0;
+
+  FinalizedStateTreeGarbageCollector(
+      final KvStoreAccessor db,
+      final SchemaFinalizedTreeState schema,
+      final Set<Bytes32> knownStoredBranchesCache,
+      final ReadWriteLock storeLock,
+      final LongSupplier stateStoreGeneration,
+      final LabelledMetric<Counter> reclaimedBytesCounter,
+      final LabelledMetric<Counter> removedNodesCounter,
+      final int markBatchSize,
+      final int sweepBatchSize) {
+    this.db = db;
+    this.schema = schema;
+    this.knownStoredBranchesCache = knownStoredBranchesCache;
+    this.storeLock = storeLock;
+    this.stateStoreGeneration = stateStoreGeneration;
+    this.reclaimedBytesCounter = reclaimedBytesCounter;
+    this.removedNodesCounter = removedNodesCounter;
+    this.markBatchSize = markBatchSize;
+    this.sweepBatchSize = sweepBatchSize;
+  }
+
+  void collect() {
+    final long startTime = System.currentTimeMillis();
+    // Marks left by an interrupted cycle may refer to nodes which are no longer reachable
+    clearMarks();
+    try {
+      markedStateStoreGeneration = stateStoreGeneration.getAsLong();
+      markStates();
+      LOG.debug("Marked {} finalized state tree nodes", markedNodes);
+      sweep(schema.getColumnFinalizedStateMerkleTreeBranches(), "branches");
+      sweep(schema.getColumnFinalizedStateMerkleTreeLeaves(), "leaves");
+      LOG.info(
+          "Removed {} unreferenced finalized state tree nodes ({} bytes) in {} ms",
+          removedNodes,
+          reclaimedBytes,
+          System.currentTimeMillis() - startTime);
+    } finally {
+      clearMarks();
+    }
+  }
+
+  private void sweep(final KvStoreColumn<Bytes32, ?> column, final String columnName) {
+    try (final Stream<ColumnEntry<Bytes, Bytes>> stream = db.streamRaw(column)) {
+      final Iterator<ColumnEntry<Bytes, Bytes>> entries = stream.iterator();
+      final List<Bytes32> batchRoots = new ArrayList<>();
+      final List<Integer> batchSizes = new ArrayList<>();
+      while (entries.hasNext()) {
+        final ColumnEntry<Bytes, Bytes> entry = entries.next();
+        final Bytes32 root = Bytes32.wrap(entry.getKey());
+        if (isMarked(root)) {
+          continue;
+        }
+        batchRoots.add(root);
+        batchSizes.add(entry.getKey().size() + entry.getValue().size());
+        if (batchRoots.size() >= sweepBatchSize) {
+          deleteBatch(column, columnName, batchRoots, batchSizes);
+          batchRoots.clear();
+          batchSizes.clear();
+        }
+      }
+      deleteBatch(column, columnName, batchRoots, batchSizes);
+    }
+  }
+
+  private void deleteBatch(
+      final KvStoreColumn<Bytes32, ?> column,
+      final String columnName,
+      final List<Bytes32> roots,
+      final List<Integer> sizes) {
+    if (roots.isEmpty()) {
+      return;
+    }
+    storeLock.writeLock().lock();
+    try {
+      final long currentStateStoreGeneration = stateStoreGeneration.getAsLong();
+      if (currentStateStoreGeneration != markedStateStoreGeneration
+          || !knownStoredBranchesCacheChecked) {
+        markedStateStoreGeneration = currentStateStoreGeneration;
+        markStates();
+        // No states are being stored while the write lock is held so the cache can be iterated
+        knownStoredBranchesCache.removeIf(root -> !isMarked(root));
+        knownStoredBranchesCacheChecked = true;
+      }
+
+      long batchBytes = 0;
+      int batchNodes = 0;
+      try (final BatchWriter batchWriter = new BatchWriter(DELETE_BATCH_SIZE_MB, LOG::debug, db)) {
+        for (int i = 0; i < roots.size(); i++) {
+          final Bytes32 root = roots.get(i);
+          if (isMarked(root)) {
+            continue;
+          }
+          batchWriter.delete(column, root, sizes.get(i));
+          batchBytes += sizes.get(i);
+          batchNodes++;
+        }
+      }
+      reclaimedBytesCounter.labels(columnName).inc(batchBytes);
+      removedNodesCounter.labels(columnName).inc(batchNodes);
+      reclaimedBytes += batchBytes;
+      removedNodes += batchNodes;
+    } finally {
+      storeLock.writeLock().unlock();
+    }
+  }
+
+  /** Marks the nodes of all states which haven't already been marked. */
+  private void markStates() {
+    try (final Stream<ColumnEntry<UInt64, Bytes32>> stateRoots =
+        db.stream(schema.getColumnFinalizedStateRootsBySlot())) {
+      final Iterator<ColumnEntry<UInt64, Bytes32>> entries = stateRoots.iterator();
+      while (entries.hasNext()) {
+        // A marked state root means its whole tree has already been marked
+        markReachableNodes(entries.next().getValue());
+      }
+    }
+    writeMarks();
+  }
+
+  private void markReachableNodes(final Bytes32 root) {
+    final Deque<Bytes32> pending = new ArrayDeque<>();
+    pending.push(root);
+    while (!pending.isEmpty()) {
+      final Bytes32 nodeRoot = pending.pop();
+      if (isMarked(nodeRoot)) {
+        continue;
+      }
+      mark(nodeRoot);
+      // Anything which isn't a stored branch is a leaf, either stored or inlined in its parent
+      final Optional<CompressedBranchInfo> branch =
+          db.get(schema.getColumnFinalizedStateMerkleTreeBranches(), nodeRoot);
+      if (branch.isPresent()) {
+        for (Bytes32 child : branch.get().getChildren()) {
+          pending.push(child);
+        }
+      }
+    }
+  }
+
+  private boolean isMarked(final Bytes32 root) {
+    return unwrittenMarks.contains(root)
+        || db.get(schema.getColumnFinalizedStateMerkleTreeMarkedNodes(), root).isPresent();
+  }
+
+  private void mark(final Bytes32 root) {
+    unwrittenMarks.add(root);
+    markedNodes++;
+    if (unwrittenMarks.size() >= markBatchSize) {
+      writeMarks();
+    }
+  }
+
+  private void writeMarks() {
+    if (unwrittenMarks.isEmpty()) {
+      return;
+    }
+    try (final KvStoreTransaction transaction = db.startTransaction()) {
+      for (Bytes32 root : unwrittenMarks) {
+        transaction.put(schema.getColumnFinalizedStateMerkleTreeMarkedNodes(), root, Bytes.EMPTY);
+      }
+      transaction.commit();
+    }
+    unwrittenMarks.clear();
+  }
+
+  private void clearMarks() {
+    unwrittenMarks.clear();
+    final KvStoreColumn<Bytes32, Bytes> column =
+        schema.getColumnFinalizedStateMerkleTreeMarkedNodes();
+    try (final Stream<ColumnEntry<Bytes, Bytes>> marks = db.streamRaw(column);
+        final BatchWriter batchWriter = new BatchWriter(DELETE_BATCH_SIZE_MB, LOG::debug, db)) {
+      final Iterator<ColumnEntry<Bytes, Bytes>> entries = marks.iterator();
+      while (entries.hasNext()) {
+        final ColumnEntry<Bytes, Bytes> entry = entries.next();
+        batchWriter.delete(column, Bytes32.wrap(entry.getKey()), entry.getKey().size());
+      }
+    }
+  }
+}
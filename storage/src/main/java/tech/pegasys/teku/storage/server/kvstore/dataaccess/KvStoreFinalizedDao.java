@@ -19,6 +19,7 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
+import org.apache.tuweni.bytes.Bytes;
 import org.apache.tuweni.bytes.Bytes32;
 import tech.pegasys.teku.infrastructure.unsigned.UInt64;
 import tech.pegasys.teku.spec.datastructures.blocks.SignedBeaconBlock;
@@ -37,6 +38,8 @@ public interface KvStoreFinalizedDao extends AutoCloseable {
 
   Optional<SignedBeaconBlock> getFinalizedBlockAtSlot(UInt64 slot);
 
+  Optional<Bytes> getFinalizedBlockBytesAtSlot(UInt64 slot);
+
   Optional<UInt64> getEarliestFinalizedBlockSlot();
 
   Optional<SignedBeaconBlock> getEarliestFinalizedBlock();
@@ -62,6 +65,9 @@ public interface KvStoreFinalizedDao extends AutoCloseable {
 
   void ingest(KvStoreFinalizedDao finalizedDao, final int batchSize, final Consumer<String> logger);
 
+  /** Removes stored finalized state data which is no longer referenced by any finalized state. */
+  void collectGarbage();
+
   interface FinalizedUpdater extends AutoCloseable {
 
     void addFinalizedBlock(final SignedBeaconBlock block);
@@ -72,6 +78,8 @@ public interface KvStoreFinalizedDao extends AutoCloseable {
 
     void addFinalizedState(final Bytes32 blockRoot, final BeaconState state);
 
+    void addReconstructedFinalizedState(final BeaconState state);
+
     void addFinalizedStateRoot(final Bytes32 stateRoot, final UInt64 slot);
 
     void setOptimisticTransitionBlockSlot(final Optional<UInt64> transitionBlockSlot);
@@ -13,24 +13,138 @@
 
 package tech.pegasys.teku.storage.server.kvstore.dataaccess;
 
+import com.google.common.collect.Lists;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import org.apache.tuweni.bytes.Bytes;
 import org.apache.tuweni.bytes.Bytes32;
+import tech.pegasys.teku.infrastructure.ssz.tree.BranchNode;
+import tech.pegasys.teku.infrastructure.ssz.tree.TreeNode;
 import tech.pegasys.teku.infrastructure.ssz.tree.TreeNodeSource;
+import tech.pegasys.teku.infrastructure.ssz.tree.TreeUtil;
 import tech.pegasys.teku.storage.server.kvstore.KvStoreAccessor;
 import tech.pegasys.teku.storage.server.kvstore.schema.SchemaFinalizedTreeState;
 
 class KvStoreTreeNodeSource implements TreeNodeSource {
+  private static final int MAX_BATCH_SIZE = 4096;
 
   private final KvStoreAccessor db;
   private final SchemaFinalizedTreeState schema;
 
+  // Nodes are removed once loaded and anything left over is released by expandPrefetched
+  private final Map<Bytes32, CompressedBranchInfo> prefetchedBranches = new ConcurrentHashMap<>();
+  private final Map<Bytes32, Bytes> prefetchedLeaves = new ConcurrentHashMap<>();
+  // Every stored node above this depth has been prefetched
+  private int prefetchedDepth = 0;
+
   public KvStoreTreeNodeSource(final KvStoreAccessor db, final SchemaFinalizedTreeState schema) {
     this.db = db;
     this.schema = schema;
   }
 
+  /**
+   * Loads the nodes at the top of the tree under {@code rootHash} so expanding them doesn't need
+   * to access the database. The tree is walked one depth at a time, reading each depth with
+   * batched lookups, until at least {@code maxNodes} nodes have been read. Whole depths are always
+   * read so the last one may take the total over {@code maxNodes}.
+   *
+   * <p>{@link #expandPrefetched(TreeNode)} must be called once the tree is loaded to release the
+   * prefetched data.
+   *
+   * @param rootHash the root of the tree to load
+   * @param maxNodes the number of nodes after which no further depths are read
+   */
+  public void prefetch(final Bytes32 rootHash, final int maxNodes) {
+    final Set<Bytes32> visited = new HashSet<>();
+    visited.add(rootHash);
+    final NavigableMap<Integer, List<Bytes32>> pendingByDepth = new TreeMap<>();
+    pendingByDepth.put(0, List.of(rootHash));
+    int prefetchedNodes = 0;
+    while (!pendingByDepth.isEmpty()) {
+      if (prefetchedNodes >= maxNodes) {
+        prefetchedDepth = pendingByDepth.firstKey();
+        return;
+      }
+      final Map.Entry<Integer, List<Bytes32>> level = pendingByDepth.pollFirstEntry();
+      final int depth = level.getKey();
+      final List<Bytes32> leafRoots = new ArrayList<>();
+      for (List<Bytes32> batch : Lists.partition(level.getValue(), MAX_BATCH_SIZE)) {
+        final Map<Bytes32, CompressedBranchInfo> branches =
+            db.getAll(schema.getColumnFinalizedStateMerkleTreeBranches(), batch);
+        prefetchedBranches.putAll(branches);
+        for (Bytes32 root : batch) {
+          final CompressedBranchInfo branch = branches.get(root);
+          if (branch == null) {
+            leafRoots.add(root);
+            continue;
+          }
+          for (Bytes32 child : branch.getChildren()) {
+            if (!TreeUtil.ZERO_TREES_BY_ROOT.containsKey(child) && visited.add(child)) {
+              pendingByDepth
+                  .computeIfAbsent(depth + branch.getDepth(), __ -> new ArrayList<>())
+                  .add(child);
+            }
+          }
+        }
+      }
+      for (List<Bytes32> batch : Lists.partition(leafRoots, MAX_BATCH_SIZE)) {
+        final Map<Bytes32, Bytes> leaves =
+            db.getAll(schema.getColumnFinalizedStateMerkleTreeLeaves(), batch);
+        for (Bytes32 root : batch) {
+          // Leaves which fit in 32 bytes aren't stored as the root is the data
+          prefetchedLeaves.put(root, leaves.getOrDefault(root, root));
+        }
+      }
+      prefetchedNodes += level.getValue().size();
+    }
+    prefetchedDepth = Integer.MAX_VALUE;
+  }
+
+  /**
+   * Expands the prefetched nodes of {@code tree}, which must have been loaded from this source,
+   * then releases any prefetched data which wasn't used. Without this the prefetched data would
+   * stay reachable from the lazy nodes of the tree until every one of them had been loaded.
+   *
+   * @param tree the tree loaded from the root passed to {@link #prefetch(Bytes32, int)}
+   */
+  public void expandPrefetched(final TreeNode tree) {
+    List<TreeNode> level = List.of(tree);
+    int depth = 0;
+    // Only expand nodes whose children are above the prefetched depth to avoid database reads
+    while (!level.isEmpty() && depth + 1 < prefetchedDepth && hasPrefetchedNodes()) {
+      final List<TreeNode> nextLevel = new ArrayList<>();
+      for (TreeNode node : level) {
+        // Zero trees are shared default nodes which weren't loaded so there's nothing to expand
+        if (node instanceof BranchNode
+            && !TreeUtil.ZERO_TREES_BY_ROOT.containsKey(node.hashTreeRoot())) {
+          final BranchNode branch = (BranchNode) node;
+          nextLevel.add(branch.left());
+          nextLevel.add(branch.right());
+        }
+      }
+      level = nextLevel;
+      depth++;
+    }
+    prefetchedBranches.clear();
+    prefetchedLeaves.clear();
+  }
+
+  private boolean hasPrefetchedNodes() {
+    return !prefetchedBranches.isEmpty() || !prefetchedLeaves.isEmpty();
+  }
+
   @Override
   public CompressedBranchInfo loadBranchNode(final Bytes32 rootHash, final long gIndex) {
+    final CompressedBranchInfo prefetchedBranch = prefetchedBranches.remove(rootHash);
+    if (prefetchedBranch != null) {
+      return prefetchedBranch;
+    }
     return db.get(schema.getColumnFinalizedStateMerkleTreeBranches(), rootHash)
         .orElseThrow(
             () ->
@@ -39,6 +153,10 @@ class KvStoreTreeNodeSource implements TreeNodeSource {
 
   @Override
   public Bytes loadLeafNode(final Bytes32 rootHash, final long gIndex) {
+    final Bytes prefetchedLeaf = prefetchedLeaves.remove(rootHash);
+    if (prefetchedLeaf != null) {
+      return prefetchedLeaf;
+    }
     return db.get(schema.getColumnFinalizedStateMerkleTreeLeaves(), rootHash).orElse(rootHash);
   }
 }
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2022 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package tech.pegasys.teku.storage.server.kvstore.dataaccess;
+
+import com.google.errorprone.annotations.MustBeClosed;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.apache.tuweni.bytes.Bytes;
+import tech.pegasys.teku.infrastructure.unsigned.UInt64;
+import tech.pegasys.teku.spec.datastructures.blocks.SignedBeaconBlock;
+import tech.pegasys.teku.storage.server.kvstore.KvStoreAccessor;
+import tech.pegasys.teku.storage.server.kvstore.KvStoreAccessor.KvStoreTransaction;
+import tech.pegasys.teku.storage.server.kvstore.schema.SchemaFinalized;
+import tech.pegasys.teku.storage.server.kvstore.serialization.KvStoreSerializer;
+import tech.pegasys.teku.storage.server.segments.BlockSegmentStore;
+
+/**
+ * Stores finalized blocks as SSZ in append-only segment files outside the database.
+ *
+ * <p>Finalized blocks are never modified so storing them in the database only adds compaction
+ * overhead and evicts hot data from the block cache when old ranges are requested.
+ */
+public class V4FinalizedBlockSegmentStorageLogic<S extends SchemaFinalized>
+    implements V4FinalizedBlockStorageLogic<S> {
+
+  private final BlockSegmentStore segmentStore;
+
+  public V4FinalizedBlockSegmentStorageLogic(final BlockSegmentStore segmentStore) {
+    this.segmentStore = segmentStore;
+  }
+
+  @Override
+  public Optional<SignedBeaconBlock> getFinalizedBlockAtSlot(
+      final KvStoreAccessor db, final S schema, final UInt64 slot) {
+    return segmentStore.get(slot).map(data -> deserialize(schema, data));
+  }
+
+  @Override
+  public Optional<Bytes> getFinalizedBlockBytesAtSlot(
+      final KvStoreAccessor db, final S schema, final UInt64 slot) {
+    return segmentStore.get(slot);
+  }
+
+  @Override
+  public Optional<UInt64> getEarliestFinalizedBlockSlot(final KvStoreAccessor db, final S schema) {
+    return segmentStore.getFirstSlot();
+  }
+
+  @Override
+  public Optional<SignedBeaconBlock> getEarliestFinalizedBlock(
+      final KvStoreAccessor db, final S schema) {
+    return segmentStore.getFirstSlot().flatMap(slot -> getFinalizedBlockAtSlot(db, schema, slot));
+  }
+
+  @Override
+  public Optional<SignedBeaconBlock> getLatestFinalizedBlockAtSlot(
+      final KvStoreAccessor db, final S schema, final UInt64 slot) {
+    return segmentStore.getFloorSlot(slot).flatMap(s -> getFinalizedBlockAtSlot(db, schema, s));
+  }
+
+  @Override
+  @MustBeClosed
+  public Stream<SignedBeaconBlock> streamFinalizedBlocks(
+      final KvStoreAccessor db, final S schema, final UInt64 startSlot, final UInt64 endSlot) {
+    return segmentStore.stream(startSlot, endSlot).map(data -> deserialize(schema, data));
+  }
+
+  @Override
+  public FinalizedBlockUpdater<S> updater() {
+    return new FinalizedBlockSegmentUpdater<>(segmentStore);
+  }
+
+  @Override
+  public void close() throws Exception {
+    segmentStore.close();
+  }
+
+  private static SignedBeaconBlock deserialize(final SchemaFinalized schema, final Bytes data) {
+    return schema.getColumnFinalizedBlocksBySlot().getValueSerializer().deserialize(data.toArray());
+  }
+
+  private static class FinalizedBlockSegmentUpdater<S extends SchemaFinalized>
+      implements FinalizedBlockUpdater<S> {
+    private final BlockSegmentStore segmentStore;
+    private final Map<UInt64, Bytes> blocksBySlot = new HashMap<>();
+
+    private FinalizedBlockSegmentUpdater(final BlockSegmentStore segmentStore) {
+      this.segmentStore = segmentStore;
+    }
+
+    @Override
+    public void addFinalizedBlock(
+        final KvStoreTransaction transaction, final S schema, final SignedBeaconBlock block) {
+      final KvStoreSerializer<SignedBeaconBlock> serializer =
+          schema.getColumnFinalizedBlocksBySlot().getValueSerializer();
+      blocksBySlot.put(block.getSlot(), Bytes.wrap(serializer.serialize(block)));
+    }
+
+    @Override
+    public void commit() {
+      if (!blocksBySlot.isEmpty()) {
+        segmentStore.putAll(blocksBySlot);
+        blocksBySlot.clear();
+      }
+    }
+  }
+}
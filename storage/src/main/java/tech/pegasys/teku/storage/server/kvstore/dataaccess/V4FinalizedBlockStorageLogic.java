@@ -0,0 +1,55 @@
+/*
+ * Copyright 2022 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package tech.pegasys.teku.storage.server.kvstore.dataaccess;
+
+import com.google.errorprone.annotations.MustBeClosed;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.apache.tuweni.bytes.Bytes;
+import tech.pegasys.teku.infrastructure.unsigned.UInt64;
+import tech.pegasys.teku.spec.datastructures.blocks.SignedBeaconBlock;
+import tech.pegasys.teku.storage.server.kvstore.KvStoreAccessor;
+import tech.pegasys.teku.storage.server.kvstore.KvStoreAccessor.KvStoreTransaction;
+import tech.pegasys.teku.storage.server.kvstore.schema.SchemaFinalized;
+
+/** Stores finalized blocks by slot. The index from block root to slot is always kept in the db. */
+public interface V4FinalizedBlockStorageLogic<S extends SchemaFinalized> extends AutoCloseable {
+  Optional<SignedBeaconBlock> getFinalizedBlockAtSlot(KvStoreAccessor db, S schema, UInt64 slot);
+
+  /** Returns the block at the slot exactly as stored, which is its SSZ serialization. */
+  Optional<Bytes> getFinalizedBlockBytesAtSlot(KvStoreAccessor db, S schema, UInt64 slot);
+
+  Optional<UInt64> getEarliestFinalizedBlockSlot(KvStoreAccessor db, S schema);
+
+  Optional<SignedBeaconBlock> getEarliestFinalizedBlock(KvStoreAccessor db, S schema);
+
+  Optional<SignedBeaconBlock> getLatestFinalizedBlockAtSlot(
+      KvStoreAccessor db, S schema, UInt64 slot);
+
+  @MustBeClosed
+  Stream<SignedBeaconBlock> streamFinalizedBlocks(
+      KvStoreAccessor db, S schema, UInt64 startSlot, UInt64 endSlot);
+
+  FinalizedBlockUpdater<S> updater();
+
+  interface FinalizedBlockUpdater<S extends SchemaFinalized> {
+    void addFinalizedBlock(KvStoreTransaction transaction, S schema, SignedBeaconBlock block);
+
+    /**
+     * Called before the transaction used to store blocks is committed, so that blocks are
+     * available before anything in the transaction refers to them.
+     */
+    void commit();
+  }
+}
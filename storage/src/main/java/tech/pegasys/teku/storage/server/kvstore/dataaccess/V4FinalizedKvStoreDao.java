@@ -17,6 +17,7 @@ import com.google.common.base.Preconditions;
 import com.google.errorprone.annotations.MustBeClosed;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -38,43 +39,63 @@ import tech.pegasys.teku.storage.server.kvstore.schema.KvStoreVariable;
 import tech.pegasys.teku.storage.server.kvstore.schema.SchemaFinalized;
 
 public class V4FinalizedKvStoreDao<S extends SchemaFinalized> implements KvStoreFinalizedDao {
+  private static final String FINALIZED_BLOCKS_COLUMN = "FINALIZED_BLOCKS_BY_SLOT";
+
   private final KvStoreAccessor db;
   private final S schema;
   private final V4FinalizedStateStorageLogic<S> stateStorageLogic;
+  private final V4FinalizedBlockStorageLogic<S> blockStorageLogic;
 
   public V4FinalizedKvStoreDao(
       final KvStoreAccessor db,
       final S schema,
       final V4FinalizedStateStorageLogic<S> stateStorageLogic) {
+    this(db, schema, stateStorageLogic, new V4FinalizedBlockColumnStorageLogic<>());
+  }
+
+  public V4FinalizedKvStoreDao(
+      final KvStoreAccessor db,
+      final S schema,
+      final V4FinalizedStateStorageLogic<S> stateStorageLogic,
+      final V4FinalizedBlockStorageLogic<S> blockStorageLogic) {
     this.db = db;
     this.schema = schema;
     this.stateStorageLogic = stateStorageLogic;
+    this.blockStorageLogic = blockStorageLogic;
   }
 
   @Override
   public void close() throws Exception {
-    db.close();
+    try {
+      blockStorageLogic.close();
+    } finally {
+      db.close();
+    }
   }
 
   @Override
   public Optional<SignedBeaconBlock> getFinalizedBlockAtSlot(final UInt64 slot) {
-    return db.get(schema.getColumnFinalizedBlocksBySlot(), slot);
+    return blockStorageLogic.getFinalizedBlockAtSlot(db, schema, slot);
+  }
+
+  @Override
+  public Optional<Bytes> getFinalizedBlockBytesAtSlot(final UInt64 slot) {
+    return blockStorageLogic.getFinalizedBlockBytesAtSlot(db, schema, slot);
   }
 
   @Override
   public Optional<UInt64> getEarliestFinalizedBlockSlot() {
-    return db.getFirstEntry(schema.getColumnFinalizedBlocksBySlot()).map(ColumnEntry::getKey);
+    return blockStorageLogic.getEarliestFinalizedBlockSlot(db, schema);
   }
 
   @Override
   public Optional<SignedBeaconBlock> getEarliestFinalizedBlock() {
-    return db.getFirstEntry(schema.getColumnFinalizedBlocksBySlot()).map(ColumnEntry::getValue);
+    return blockStorageLogic.getEarliestFinalizedBlock(db, schema);
   }
 
   @Override
   public Optional<SignedBeaconBlock> getLatestFinalizedBlockAtSlot(final UInt64 slot) {
-    return db.getFloorEntry(schema.getColumnFinalizedBlocksBySlot(), slot)
-        .map(ColumnEntry::getValue);
+    return blockStorageLogic.getLatestFinalizedBlockAtSlot(db, schema, slot);
   }
 
   @Override
@@ -95,8 +116,7 @@ public class V4FinalizedKvStoreDao<S extends SchemaFinalized> implements KvStore
   @MustBeClosed
   public Stream<SignedBeaconBlock> streamFinalizedBlocks(
       final UInt64 startSlot, final UInt64 endSlot) {
-    return db.stream(schema.getColumnFinalizedBlocksBySlot(), startSlot, endSlot)
-        .map(ColumnEntry::getValue);
+    return blockStorageLogic.streamFinalizedBlocks(db, schema, startSlot, endSlot);
   }
 
   @Override
@@ -154,6 +174,12 @@ public class V4FinalizedKvStoreDao<S extends SchemaFinalized> implements KvStore
     if (newColumns.size() > 0) {
       final Map<String, KvStoreColumn<?, ?>> oldColumns = dao.schema.getColumnMap();
       for (String key : newColumns.keySet()) {
+        if (key.equals(FINALIZED_BLOCKS_COLUMN)
+            && !(storesBlocksInColumn() && dao.storesBlocksInColumn())) {
+          // Blocks kept in segment files aren't in the column, so copy them block by block
+          copyFinalizedBlocks(dao, batchSize, logger);
+          continue;
+        }
         final Optional<UInt64> maybeCount = displayCopyColumnMessage(key, oldColumns, dao, logger);
         try (final Stream<ColumnEntry<Bytes, Bytes>> oldEntryStream =
                 dao.streamRawColumn(oldColumns.get(key));
@@ -164,6 +190,35 @@ public class V4FinalizedKvStoreDao<S extends SchemaFinalized> implements KvStore
     }
   }
 
+  private boolean storesBlocksInColumn() {
+    return blockStorageLogic instanceof V4FinalizedBlockColumnStorageLogic;
+  }
+
+  private void copyFinalizedBlocks(
+      final V4FinalizedKvStoreDao<?> dao, final int batchSize, final Consumer<String> logger) {
+    logger.accept("Copy finalized blocks");
+    final long targetBatchBytes = batchSize * 1_000_000L;
+    long copiedBlocks = 0;
+    try (final Stream<SignedBeaconBlock> blocks =
+        dao.streamFinalizedBlocks(UInt64.ZERO, UInt64.MAX_VALUE)) {
+      final Iterator<SignedBeaconBlock> iterator = blocks.iterator();
+      while (iterator.hasNext()) {
+        long batchBytes = 0;
+        try (final FinalizedUpdater updater = finalizedUpdater()) {
+          while (iterator.hasNext() && batchBytes < targetBatchBytes) {
+            final SignedBeaconBlock block = iterator.next();
+            updater.addFinalizedBlock(block);
+            batchBytes += block.sszSerialize().size();
+            copiedBlocks++;
+          }
+          updater.commit();
+        }
+        logger.accept(String.format(" -- %,d...", copiedBlocks));
+      }
+    }
+    logger.accept(String.format(" => Inserted %,d blocks...", copiedBlocks));
+  }
+
   private Optional<UInt64> displayCopyColumnMessage(
       final String key,
       final Map<String, KvStoreColumn<?, ?>> oldColumns,
@@ -186,7 +241,7 @@ public class V4FinalizedKvStoreDao<S extends SchemaFinalized> implements KvStore
       case "SLOTS_BY_FINALIZED_STATE_ROOT":
       case "SLOTS_BY_FINALIZED_ROOT":
         return getEntityCountFromColumn(oldColumns.get(key), dao);
-      case "FINALIZED_BLOCKS_BY_SLOT":
+      case FINALIZED_BLOCKS_COLUMN:
         return getEntityCountFromColumn(oldColumns.get("SLOTS_BY_FINALIZED_ROOT"), dao);
       default:
         break;
@@ -217,10 +272,16 @@ public class V4FinalizedKvStoreDao<S extends SchemaFinalized> implements KvStore
         .flatMap(this::getFinalizedBlockAtSlot);
   }
 
+  @Override
+  public void collectGarbage() {
+    stateStorageLogic.collectGarbage(db, schema);
+  }
+
   @Override
   @MustBeClosed
   public FinalizedUpdater finalizedUpdater() {
-    return new V4FinalizedKvStoreDao.V4FinalizedUpdater<>(db, schema, stateStorageLogic.updater());
+    return new V4FinalizedKvStoreDao.V4FinalizedUpdater<>(
+        db, schema, stateStorageLogic.updater(), blockStorageLogic.updater());
   }
 
   static class V4FinalizedUpdater<S extends SchemaFinalized> implements FinalizedUpdater {
@@ -228,21 +289,24 @@ public class V4FinalizedKvStoreDao<S extends SchemaFinalized> implements KvStore
     private final KvStoreAccessor db;
     private final S schema;
     private final V4FinalizedStateStorageLogic.FinalizedStateUpdater<S> stateStorageUpdater;
+    private final V4FinalizedBlockStorageLogic.FinalizedBlockUpdater<S> blockStorageUpdater;
 
     V4FinalizedUpdater(
         final KvStoreAccessor db,
         final S schema,
-        final V4FinalizedStateStorageLogic.FinalizedStateUpdater<S> stateStorageUpdater) {
+        final V4FinalizedStateStorageLogic.FinalizedStateUpdater<S> stateStorageUpdater,
+        final V4FinalizedBlockStorageLogic.FinalizedBlockUpdater<S> blockStorageUpdater) {
       this.transaction = db.startTransaction();
       this.db = db;
       this.schema = schema;
       this.stateStorageUpdater = stateStorageUpdater;
+      this.blockStorageUpdater = blockStorageUpdater;
     }
 
     @Override
     public void addFinalizedBlock(final SignedBeaconBlock block) {
       transaction.put(schema.getColumnSlotsByFinalizedRoot(), block.getRoot(), block.getSlot());
-      transaction.put(schema.getColumnFinalizedBlocksBySlot(), block.getSlot(), block);
+      blockStorageUpdater.addFinalizedBlock(transaction, schema, block);
     }
 
     @Override
@@ -264,6 +328,11 @@ public class V4FinalizedKvStoreDao<S extends SchemaFinalized> implements KvStore
       stateStorageUpdater.addFinalizedState(db, transaction, schema, state);
     }
 
+    @Override
+    public void addReconstructedFinalizedState(final BeaconState state) {
+      stateStorageUpdater.addReconstructedFinalizedState(db, transaction, schema, state);
+    }
+
     @Override
     public void addFinalizedStateRoot(final Bytes32 stateRoot, final UInt64 slot) {
       transaction.put(schema.getColumnSlotsByFinalizedStateRoot(), stateRoot, slot);
@@ -280,6 +349,8 @@ public class V4FinalizedKvStoreDao<S extends SchemaFinalized> implements KvStore
 
     @Override
     public void commit() {
+      // Blocks must be stored before the root to slot mappings which refer to them
+      blockStorageUpdater.commit();
       // Commit db updates
       transaction.commit();
       stateStorageUpdater.commit();
@@ -295,6 +366,7 @@ public class V4FinalizedKvStoreDao<S extends SchemaFinalized> implements KvStore
     @Override
     public void close() {
       transaction.close();
+      stateStorageUpdater.close();
     }
   }
 }
@@ -42,6 +42,11 @@ public class V4FinalizedStateSnapshotStorageLogic
     return new FinalizedStateSnapshotUpdater(stateStorageFrequency);
   }
 
+  @Override
+  public void collectGarbage(final KvStoreAccessor db, final SchemaFinalizedSnapshotState schema) {
+    // States are stored as complete snapshots so there is nothing shared between them to remove
+  }
+
   private static class FinalizedStateSnapshotUpdater
       implements V4FinalizedStateStorageLogic.FinalizedStateUpdater<SchemaFinalizedSnapshotState> {
 
@@ -73,9 +78,21 @@ public class V4FinalizedStateSnapshotStorageLogic
       }
     }
 
+    @Override
+    public void addReconstructedFinalizedState(
+        final KvStoreAccessor db,
+        final KvStoreTransaction transaction,
+        final SchemaFinalizedSnapshotState schema,
+        final BeaconState state) {
+      addFinalizedState(transaction, schema, state);
+    }
+
     @Override
     public void commit() {}
 
+    @Override
+    public void close() {}
+
     private void addFinalizedState(
         final KvStoreTransaction transaction,
         final SchemaFinalizedSnapshotState schema,
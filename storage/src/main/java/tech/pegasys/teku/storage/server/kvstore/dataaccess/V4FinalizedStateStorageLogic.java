@@ -26,10 +26,30 @@ public interface V4FinalizedStateStorageLogic<S extends SchemaFinalized> {
 
   FinalizedStateUpdater<S> updater();
 
+  /**
+   * Removes stored data which is no longer required by any stored finalized state.
+   *
+   * @param db the database to remove data from
+   * @param schema the schema of the database
+   */
+  void collectGarbage(KvStoreAccessor db, S schema);
+
   interface FinalizedStateUpdater<S extends SchemaFinalized> {
     void addFinalizedState(
         KvStoreAccessor db, KvStoreTransaction transaction, S schema, BeaconState state);
 
+    /**
+     * Stores a state regenerated from stored blocks. Unlike {@link #addFinalizedState}, the state
+     * is stored even if it is within the storage frequency of a previously stored state.
+     */
+    default void addReconstructedFinalizedState(
+        KvStoreAccessor db, KvStoreTransaction transaction, S schema, BeaconState state) {
+      addFinalizedState(db, transaction, schema, state);
+    }
+
     void commit();
+
+    /** Called once the transaction used to store states has been committed or rolled back. */
+    void close();
   }
 }
@@ -15,6 +15,9 @@ package tech.pegasys.teku.storage.server.kvstore.dataaccess;
 
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import org.apache.tuweni.bytes.Bytes32;
 import org.hyperledger.besu.plugin.services.MetricsSystem;
 import org.hyperledger.besu.plugin.services.metrics.Counter;
@@ -33,11 +36,19 @@ import tech.pegasys.teku.storage.server.kvstore.schema.SchemaFinalizedTreeState;
 public class V4FinalizedStateTreeStorageLogic
     implements V4FinalizedStateStorageLogic<SchemaFinalizedTreeState> {
   private static final int MAX_BRANCH_LEVELS_SKIPPED = 5;
+  private static final int MAX_PREFETCHED_NODES = 100_000;
+  private static final int GARBAGE_COLLECTION_MARK_BATCH_SIZE = 100_000;
+  private static final int GARBAGE_COLLECTION_BATCH_SIZE = 10_000;
   private final LabelledMetric<Counter> branchNodeStoredCounter;
   private final Counter statesStoredCounter;
   private final Set<Bytes32> knownStoredBranchesCache;
   private final Spec spec;
   private final Counter leafNodeStoredCounter;
+  private final LabelledMetric<Counter> reclaimedBytesCounter;
+  private final LabelledMetric<Counter> removedNodesCounter;
+  // States are stored under the read lock and unreferenced nodes are deleted under the write lock
+  private final ReadWriteLock storeLock = new ReentrantReadWriteLock();
+  private final AtomicLong stateStoreGeneration = new AtomicLong();
 
   public V4FinalizedStateTreeStorageLogic(
       final MetricsSystem metricsSystem, final Spec spec, final int maxKnownNodeCacheSize) {
@@ -59,6 +70,18 @@ public class V4FinalizedStateTreeStorageLogic
             TekuMetricCategory.STORAGE_FINALIZED_DB,
             "states_stored",
             "Number of finalized states stored");
+    this.reclaimedBytesCounter =
+        metricsSystem.createLabelledCounter(
+            TekuMetricCategory.STORAGE_FINALIZED_DB,
+            "state_tree_reclaimed_bytes",
+            "Number of bytes reclaimed by removing unreferenced finalized state tree nodes",
+            "column");
+    this.removedNodesCounter =
+        metricsSystem.createLabelledCounter(
+            TekuMetricCategory.STORAGE_FINALIZED_DB,
+            "state_tree_removed_nodes",
+            "Number of unreferenced finalized state tree nodes removed",
+            "column");
   }
 
   @Override
@@ -66,28 +89,50 @@ public class V4FinalizedStateTreeStorageLogic
       final KvStoreAccessor db, final SchemaFinalizedTreeState dbSchema, final UInt64 maxSlot) {
     return db.getFloorEntry(dbSchema.getColumnFinalizedStateRootsBySlot(), maxSlot)
         .map(
-            entry ->
-                spec.atSlot(entry.getKey())
-                    .getSchemaDefinitions()
-                    .getBeaconStateSchema()
-                    .load(
-                        new KvStoreTreeNodeSource(db, dbSchema),
-                        entry.getValue(),
-                        GIndexUtil.SELF_G_INDEX));
+            entry -> {
+              final KvStoreTreeNodeSource nodeSource = new KvStoreTreeNodeSource(db, dbSchema);
+              nodeSource.prefetch(entry.getValue(), MAX_PREFETCHED_NODES);
+              final BeaconState state =
+                  spec.atSlot(entry.getKey())
+                      .getSchemaDefinitions()
+                      .getBeaconStateSchema()
+                      .load(nodeSource, entry.getValue(), GIndexUtil.SELF_G_INDEX);
+              nodeSource.expandPrefetched(state.getBackingNode());
+              return state;
+            });
   }
 
   @Override
   public FinalizedStateUpdater<SchemaFinalizedTreeState> updater() {
     return new StateTreeUpdater(
         knownStoredBranchesCache,
+        storeLock,
+        stateStoreGeneration,
         branchNodeStoredCounter,
         statesStoredCounter,
         leafNodeStoredCounter);
   }
 
+  @Override
+  public void collectGarbage(final KvStoreAccessor db, final SchemaFinalizedTreeState schema) {
+    new FinalizedStateTreeGarbageCollector(
+            db,
+            schema,
+            knownStoredBranchesCache,
+            storeLock,
+            stateStoreGeneration::get,
+            reclaimedBytesCounter,
+            removedNodesCounter,
+            GARBAGE_COLLECTION_MARK_BATCH_SIZE,
+            GARBAGE_COLLECTION_BATCH_SIZE)
+        .collect();
+  }
+
   private static class StateTreeUpdater implements FinalizedStateUpdater<SchemaFinalizedTreeState> {
 
     private final Set<Bytes32> knownStoredBranchesCache;
+    private final ReadWriteLock storeLock;
+    private final AtomicLong stateStoreGeneration;
     private final LabelledMetric<Counter> branchNodeStoredCounter;
     private final Counter statesStoredCounter;
     private final Counter leafNodeStoredCounter;
@@ -96,10 +141,14 @@ public class V4FinalizedStateTreeStorageLogic
 
     private StateTreeUpdater(
         final Set<Bytes32> knownStoredBranchesCache,
+        final ReadWriteLock storeLock,
+        final AtomicLong stateStoreGeneration,
         final LabelledMetric<Counter> branchNodeStoredCounter,
         final Counter statesStoredCounter,
         final Counter leafNodeStoredCounter) {
       this.knownStoredBranchesCache = knownStoredBranchesCache;
+      this.storeLock = storeLock;
+      this.stateStoreGeneration = stateStoreGeneration;
       this.branchNodeStoredCounter = branchNodeStoredCounter;
       this.statesStoredCounter = statesStoredCounter;
       this.leafNodeStoredCounter = leafNodeStoredCounter;
@@ -112,6 +161,8 @@ public class V4FinalizedStateTreeStorageLogic
         final SchemaFinalizedTreeState schema,
         final BeaconState state) {
       if (nodeStore == null) {
+        // Held until close so garbage collection can't remove nodes this state depends on
+        storeLock.readLock().lock();
         nodeStore = new KvStoreTreeNodeStore(knownStoredBranchesCache, transaction, schema);
       }
       transaction.put(
@@ -134,6 +185,15 @@ public class V4FinalizedStateTreeStorageLogic
         branchNodeStoredCounter.labels("skipped").inc(nodeStore.getSkippedBranchNodeCount());
         leafNodeStoredCounter.inc(nodeStore.getStoredLeafNodeCount());
         statesStoredCounter.inc(statesStored);
+        stateStoreGeneration.incrementAndGet();
+      }
+    }
+
+    @Override
+    public void close() {
+      if (nodeStore != null) {
+        nodeStore = null;
+        storeLock.readLock().unlock();
       }
     }
   }
@@ -15,6 +15,7 @@ package tech.pegasys.teku.storage.server.kvstore.dataaccess;
 
 import com.google.common.base.Preconditions;
 import com.google.errorprone.annotations.MustBeClosed;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -36,6 +37,7 @@ import tech.pegasys.teku.spec.datastructures.state.beaconstate.BeaconState;
 import tech.pegasys.teku.storage.server.kvstore.ColumnEntry;
 import tech.pegasys.teku.storage.server.kvstore.KvStoreAccessor;
 import tech.pegasys.teku.storage.server.kvstore.KvStoreAccessor.KvStoreTransaction;
+import tech.pegasys.teku.storage.server.kvstore.dataaccess.V4VoteSnapshotStorageLogic.PendingVoteUpdate;
 import tech.pegasys.teku.storage.server.kvstore.schema.KvStoreColumn;
 import tech.pegasys.teku.storage.server.kvstore.schema.KvStoreVariable;
 import tech.pegasys.teku.storage.server.kvstore.schema.SchemaHot;
@@ -44,10 +46,12 @@ public class V4HotKvStoreDao implements KvStoreHotDao, KvStoreEth1Dao {
   // Persistent data
   private final KvStoreAccessor db;
   private final SchemaHot schema;
+  private final V4VoteSnapshotStorageLogic voteStorageLogic;
 
   public V4HotKvStoreDao(final KvStoreAccessor db, final SchemaHot schema) {
     this.db = db;
     this.schema = schema;
+    this.voteStorageLogic = new V4VoteSnapshotStorageLogic(schema);
   }
 
   @Override
@@ -124,7 +128,7 @@ public class V4HotKvStoreDao implements KvStoreHotDao, KvStoreEth1Dao {
 
   @Override
   public Map<UInt64, VoteTracker> getVotes() {
-    return db.getAll(schema.getColumnVotes());
+    return voteStorageLogic.getVotes(db);
   }
 
   @Override
@@ -141,7 +145,7 @@ public class V4HotKvStoreDao implements KvStoreHotDao, KvStoreEth1Dao {
   @Override
   @MustBeClosed
   public HotUpdater hotUpdater() {
-    return new V4HotUpdater(db, schema);
+    return new V4HotUpdater(db, schema, voteStorageLogic);
   }
 
   @Override
@@ -195,7 +199,7 @@ public class V4HotKvStoreDao implements KvStoreHotDao, KvStoreEth1Dao {
   @Override
   @MustBeClosed
   public Eth1Updater eth1Updater() {
-    return new V4HotUpdater(db, schema);
+    return new V4HotUpdater(db, schema, voteStorageLogic);
   }
 
   @Override
@@ -205,16 +209,24 @@ public class V4HotKvStoreDao implements KvStoreHotDao, KvStoreEth1Dao {
 
   static class V4HotUpdater implements HotUpdater, Eth1Updater {
 
+    private final KvStoreAccessor db;
     private final KvStoreTransaction transaction;
     private final SchemaHot schema;
+    private final V4VoteSnapshotStorageLogic voteStorageLogic;
+    private final List<PendingVoteUpdate> pendingVoteUpdates = new ArrayList<>();
 
     KvStoreTransaction getTransaction() {
       return transaction;
     }
 
-    V4HotUpdater(final KvStoreAccessor db, final SchemaHot schema) {
+    V4HotUpdater(
+        final KvStoreAccessor db,
+        final SchemaHot schema,
+        final V4VoteSnapshotStorageLogic voteStorageLogic) {
+      this.db = db;
       this.transaction = db.startTransaction();
       this.schema = schema;
+      this.voteStorageLogic = voteStorageLogic;
     }
 
     @Override
@@ -293,8 +305,7 @@ public class V4HotKvStoreDao implements KvStoreHotDao, KvStoreEth1Dao {
 
     @Override
     public void addVotes(final Map<UInt64, VoteTracker> votes) {
-      votes.forEach(
-          (validatorIndex, vote) -> transaction.put(schema.getColumnVotes(), validatorIndex, vote));
+      pendingVoteUpdates.add(voteStorageLogic.addVotes(db, transaction, votes));
     }
 
     @Override
@@ -323,6 +334,8 @@ public class V4HotKvStoreDao implements KvStoreHotDao, KvStoreEth1Dao {
     public void commit() {
       // Commit db updates
       transaction.commit();
+      pendingVoteUpdates.forEach(voteStorageLogic::onCommitted);
+      pendingVoteUpdates.clear();
       close();
     }
 
@@ -334,6 +347,9 @@ public class V4HotKvStoreDao implements KvStoreHotDao, KvStoreEth1Dao {
 
     @Override
     public void close() {
+      // Vote updates which didn't commit must not be counted in the delta log
+      pendingVoteUpdates.forEach(voteStorageLogic::onRolledBack);
+      pendingVoteUpdates.clear();
       transaction.close();
     }
   }
@@ -0,0 +1,240 @@
+/*
+ * Copyright 2022 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package tech.pegasys.teku.storage.server.kvstore.dataaccess;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+import tech.pegasys.teku.infrastructure.unsigned.UInt64;
+import tech.pegasys.teku.spec.datastructures.forkchoice.VoteTracker;
+import tech.pegasys.teku.storage.server.kvstore.ColumnEntry;
+import tech.pegasys.teku.storage.server.kvstore.KvStoreAccessor;
+import tech.pegasys.teku.storage.server.kvstore.KvStoreAccessor.KvStoreTransaction;
+import tech.pegasys.teku.storage.server.kvstore.schema.SchemaHot;
+
+/**
+ * Stores votes as a snapshot of dense chunks indexed by validator plus a log of the votes changed
+ * by each update.
+ *
+ * <p>Each update appends a single delta entry rather than writing a key per validator. Once the log
+ * grows large enough it is merged into the chunks it touches within the same transaction. Loading
+ * all votes reads one key per chunk of validators and then replays the log.
+ *
+ * <p>Votes stored one key per validator by earlier versions are still read and are moved into the
+ * chunks by the first merge.
+ *
+ * <p>The size of the log is tracked in memory. Changes written to a transaction are only counted
+ * once {@link #onCommitted(PendingVoteUpdate)} reports that the transaction committed, and delta
+ * keys reserved by transactions which don't commit are released by {@link
+ * #onRolledBack(PendingVoteUpdate)}.
+ */
+public class V4VoteSnapshotStorageLogic {
+  public static final int VALIDATORS_PER_CHUNK = 8192;
+  private static final int MAX_DELTA_ENTRIES = 4096;
+  private static final long MAX_DELTA_VOTES = 1 << 20;
+
+  private final SchemaHot schema;
+  private final int maxDeltaEntries;
+  private final long maxDeltaVotes;
+
+  private boolean deltaStateLoaded = false;
+  private UInt64 nextDeltaKey = UInt64.ZERO;
+  private final NavigableSet<UInt64> reservedDeltaKeys = new TreeSet<>();
+  private int deltaEntries = 0;
+  private long deltaVotes = 0;
+
+  public V4VoteSnapshotStorageLogic(final SchemaHot schema) {
+    this(schema, MAX_DELTA_ENTRIES, MAX_DELTA_VOTES);
+  }
+
+  @VisibleForTesting
+  V4VoteSnapshotStorageLogic(
+      final SchemaHot schema, final int maxDeltaEntries, final long maxDeltaVotes) {
+    this.schema = schema;
+    this.maxDeltaEntries = maxDeltaEntries;
+    this.maxDeltaVotes = maxDeltaVotes;
+  }
+
+  public synchronized Map<UInt64, VoteTracker> getVotes(final KvStoreAccessor db) {
+    final Map<UInt64, VoteTracker> votes = new HashMap<>(db.getAll(schema.getColumnVotes()));
+    try (final Stream<ColumnEntry<UInt64, VoteTracker[]>> chunks =
+        db.stream(schema.getColumnVoteSnapshotChunks())) {
+      chunks.forEach(
+          chunk -> {
+            final VoteTracker[] chunkVotes = chunk.getValue();
+            for (int i = 0; i < chunkVotes.length; i++) {
+              if (chunkVotes[i] != null) {
+                votes.put(chunk.getKey().plus(i), chunkVotes[i]);
+              }
+            }
+          });
+    }
+    try (final Stream<ColumnEntry<UInt64, Map<UInt64, VoteTracker>>> deltas =
+        db.stream(schema.getColumnVoteDeltas())) {
+      deltas.forEach(delta -> votes.putAll(delta.getValue()));
+    }
+    return votes;
+  }
+
+  /**
+   * Writes the votes to the transaction, either as a new delta entry or by merging the log into the
+   * snapshot chunks.
+   *
+   * @return the pending change, which must be passed to {@link #onCommitted(PendingVoteUpdate)} or
+   *     {@link #onRolledBack(PendingVoteUpdate)} once the transaction completes
+   */
+  public synchronized PendingVoteUpdate addVotes(
+      final KvStoreAccessor db,
+      final KvStoreTransaction transaction,
+      final Map<UInt64, VoteTracker> votes) {
+    if (votes.isEmpty()) {
+      return PendingVoteUpdate.NONE;
+    }
+    loadDeltaState(db);
+    if (deltaEntries >= maxDeltaEntries || deltaVotes + votes.size() > maxDeltaVotes) {
+      mergeDeltas(db, transaction, votes);
+      return new PendingVoteUpdate(Optional.empty(), 0);
+    }
+    // Keys written by transactions which haven't committed yet can't be reused
+    final UInt64 deltaKey =
+        reservedDeltaKeys.isEmpty()
+            ? nextDeltaKey
+            : nextDeltaKey.max(reservedDeltaKeys.last().increment());
+    reservedDeltaKeys.add(deltaKey);
+    transaction.put(schema.getColumnVoteDeltas(), deltaKey, votes);
+    return new PendingVoteUpdate(Optional.of(deltaKey), votes.size());
+  }
+
+  public synchronized void onCommitted(final PendingVoteUpdate update) {
+    if (update == PendingVoteUpdate.NONE) {
+      return;
+    }
+    if (update.deltaKey.isEmpty()) {
+      // The log was merged into the snapshot chunks
+      deltaEntries = 0;
+      deltaVotes = 0;
+      return;
+    }
+    final UInt64 deltaKey = update.deltaKey.get();
+    reservedDeltaKeys.remove(deltaKey);
+    nextDeltaKey = nextDeltaKey.max(deltaKey.increment());
+    deltaEntries++;
+    deltaVotes += update.voteCount;
+  }
+
+  public synchronized void onRolledBack(final PendingVoteUpdate update) {
+    update.deltaKey.ifPresent(reservedDeltaKeys::remove);
+  }
+
+  private void loadDeltaState(final KvStoreAccessor db) {
+    if (deltaStateLoaded) {
+      return;
+    }
+    nextDeltaKey =
+        db.getLastKey(schema.getColumnVoteDeltas()).map(UInt64::increment).orElse(UInt64.ZERO);
+    try (final Stream<ColumnEntry<UInt64, Map<UInt64, VoteTracker>>> deltas =
+        db.stream(schema.getColumnVoteDeltas())) {
+      deltas.forEach(
+          delta -> {
+            deltaEntries++;
+            deltaVotes += delta.getValue().size();
+          });
+    }
+    deltaStateLoaded = true;
+  }
+
+  private void mergeDeltas(
+      final KvStoreAccessor db,
+      final KvStoreTransaction transaction,
+      final Map<UInt64, VoteTracker> newVotes) {
+    final Map<UInt64, VoteTracker> changedVotes = new HashMap<>();
+    try (final Stream<ColumnEntry<UInt64, Map<UInt64, VoteTracker>>> deltas =
+        db.stream(schema.getColumnVoteDeltas())) {
+      deltas.forEach(
+          delta -> {
+            changedVotes.putAll(delta.getValue());
+            transaction.delete(schema.getColumnVoteDeltas(), delta.getKey());
+          });
+    }
+    changedVotes.putAll(newVotes);
+
+    // Votes written by earlier versions are older than anything in the chunks
+    final Map<UInt64, VoteTracker> legacyVotes = new HashMap<>();
+    if (db.getFirstEntry(schema.getColumnVotes()).isPresent()) {
+      try (final Stream<ColumnEntry<UInt64, VoteTracker>> legacy =
+          db.stream(schema.getColumnVotes())) {
+        legacy.forEach(
+            entry -> {
+              legacyVotes.put(entry.getKey(), entry.getValue());
+              transaction.delete(schema.getColumnVotes(), entry.getKey());
+            });
+      }
+    }
+
+    final Map<UInt64, VoteTracker[]> updatedChunks = new TreeMap<>();
+    legacyVotes.forEach(
+        (validatorIndex, vote) -> {
+          final VoteTracker[] chunk = getChunk(db, updatedChunks, validatorIndex);
+          final int offset = getChunkOffset(validatorIndex);
+          if (chunk[offset] == null) {
+            chunk[offset] = vote;
+          }
+        });
+    changedVotes.forEach(
+        (validatorIndex, vote) ->
+            getChunk(db, updatedChunks, validatorIndex)[getChunkOffset(validatorIndex)] = vote);
+    updatedChunks.forEach(
+        (chunkKey, chunk) ->
+            transaction.put(schema.getColumnVoteSnapshotChunks(), chunkKey, chunk));
+  }
+
+  private VoteTracker[] getChunk(
+      final KvStoreAccessor db,
+      final Map<UInt64, VoteTracker[]> updatedChunks,
+      final UInt64 validatorIndex) {
+    final UInt64 chunkKey = validatorIndex.minus(getChunkOffset(validatorIndex));
+    return updatedChunks.computeIfAbsent(
+        chunkKey,
+        key -> {
+          final Optional<VoteTracker[]> existing =
+              db.get(schema.getColumnVoteSnapshotChunks(), key);
+          return existing
+              .map(chunk -> Arrays.copyOf(chunk, VALIDATORS_PER_CHUNK))
+              .orElseGet(() -> new VoteTracker[VALIDATORS_PER_CHUNK]);
+        });
+  }
+
+  private static int getChunkOffset(final UInt64 validatorIndex) {
+    return (int) (validatorIndex.longValue() % VALIDATORS_PER_CHUNK);
+  }
+
+  /** A change to the vote delta log written to a transaction which may not have committed yet. */
+  static class PendingVoteUpdate {
+    static final PendingVoteUpdate NONE = new PendingVoteUpdate(Optional.empty(), 0);
+
+    private final Optional<UInt64> deltaKey;
+    private final int voteCount;
+
+    private PendingVoteUpdate(final Optional<UInt64> deltaKey, final int voteCount) {
+      this.deltaKey = deltaKey;
+      this.voteCount = voteCount;
+    }
+  }
+}
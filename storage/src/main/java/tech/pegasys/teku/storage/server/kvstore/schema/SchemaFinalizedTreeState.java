@@ -13,6 +13,9 @@
 
 package tech.pegasys.teku.storage.server.kvstore.schema;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import org.apache.tuweni.bytes.Bytes;
 import org.apache.tuweni.bytes.Bytes32;
@@ -27,6 +30,20 @@ public interface SchemaFinalizedTreeState extends SchemaFinalized {
 
   KvStoreColumn<Bytes32, CompressedBranchInfo> getColumnFinalizedStateMerkleTreeBranches();
 
+  /**
+   * Roots of tree nodes marked as reachable during garbage collection. Only holds data while a
+   * collection is in progress.
+   */
+  KvStoreColumn<Bytes32, Bytes> getColumnFinalizedStateMerkleTreeMarkedNodes();
+
+  /** Includes columns which are excluded from {@link #getColumnMap()} as they aren't migrated. */
+  @Override
+  default Collection<KvStoreColumn<?, ?>> getAllColumns() {
+    final List<KvStoreColumn<?, ?>> columns = new ArrayList<>(getColumnMap().values());
+    columns.add(getColumnFinalizedStateMerkleTreeMarkedNodes());
+    return columns;
+  }
+
   @Override
   default Map<String, KvStoreColumn<?, ?>> getColumnMap() {
     return Map.of(
@@ -34,8 +34,15 @@ public interface SchemaHot extends Schema {
   // Checkpoint states are no longer stored, keeping only for backwards compatibility.
   KvStoreColumn<Checkpoint, BeaconState> getColumnCheckpointStates();
 
+  // Votes are now stored as snapshot chunks plus a delta log, keeping only for existing databases.
   KvStoreColumn<UInt64, VoteTracker> getColumnVotes();
 
+  /** Dense arrays of votes keyed by the index of the first validator in the chunk. */
+  KvStoreColumn<UInt64, VoteTracker[]> getColumnVoteSnapshotChunks();
+
+  /** Votes updated since the snapshot chunks were last written, keyed by sequence number. */
+  KvStoreColumn<UInt64, Map<UInt64, VoteTracker>> getColumnVoteDeltas();
+
   KvStoreColumn<UInt64, DepositsFromBlockEvent> getColumnDepositsFromBlockEvents();
 
   KvStoreColumn<Bytes32, SlotAndBlockRoot> getColumnStateRootToSlotAndBlockRoot();
@@ -55,7 +62,9 @@ public interface SchemaHot extends Schema {
         "DEPOSITS_FROM_BLOCK_EVENTS", getColumnDepositsFromBlockEvents(),
         "STATE_ROOT_TO_SLOT_AND_BLOCK_ROOT", getColumnStateRootToSlotAndBlockRoot(),
         "HOT_STATES_BY_ROOT", getColumnHotStatesByRoot(),
-        "HOT_BLOCK_CHECKPOINT_EPOCHS_BY_ROOT", getColumnHotBlockCheckpointEpochsByRoot());
+        "HOT_BLOCK_CHECKPOINT_EPOCHS_BY_ROOT", getColumnHotBlockCheckpointEpochsByRoot(),
+        "VOTE_SNAPSHOT_CHUNKS", getColumnVoteSnapshotChunks(),
+        "VOTE_DELTAS", getColumnVoteDeltas());
   }
 
   // Variables
@@ -21,6 +21,7 @@ import static tech.pegasys.teku.storage.server.kvstore.serialization.KvStoreSeri
 import static tech.pegasys.teku.storage.server.kvstore.serialization.KvStoreSerializer.SLOT_AND_BLOCK_ROOT_SERIALIZER;
 import static tech.pegasys.teku.storage.server.kvstore.serialization.KvStoreSerializer.UINT64_SERIALIZER;
 
+import java.util.Map;
 import org.apache.tuweni.bytes.Bytes32;
 import tech.pegasys.teku.ethereum.pow.api.DepositsFromBlockEvent;
 import tech.pegasys.teku.ethereum.pow.api.MinGenesisTimeBlockEvent;
@@ -39,6 +40,8 @@ public class V4SchemaHot implements SchemaHot {
   // Checkpoint states are no longer stored, keeping only for backwards compatibility.
   private final KvStoreColumn<Checkpoint, BeaconState> checkpointStates;
   private final KvStoreColumn<UInt64, VoteTracker> votes;
+  private final KvStoreColumn<UInt64, VoteTracker[]> voteSnapshotChunks;
+  private final KvStoreColumn<UInt64, Map<UInt64, VoteTracker>> voteDeltas;
   private static final KvStoreColumn<UInt64, DepositsFromBlockEvent> DEPOSITS_FROM_BLOCK_EVENTS =
       KvStoreColumn.create(4, UINT64_SERIALIZER, DEPOSITS_FROM_BLOCK_EVENT_SERIALIZER);
   private static final KvStoreColumn<Bytes32, SlotAndBlockRoot> STATE_ROOT_TO_SLOT_AND_BLOCK_ROOT =
@@ -79,6 +82,16 @@ public class V4SchemaHot implements SchemaHot {
     final KvStoreSerializer<VoteTracker> voteTrackerSerializer =
         KvStoreSerializer.createVoteTrackerSerializer(storeVotesEquivocation);
     votes = KvStoreColumn.create(3, UINT64_SERIALIZER, voteTrackerSerializer);
+    voteSnapshotChunks =
+        KvStoreColumn.create(
+            8,
+            UINT64_SERIALIZER,
+            KvStoreSerializer.createVoteTrackerChunkSerializer(storeVotesEquivocation));
+    voteDeltas =
+        KvStoreColumn.create(
+            9,
+            UINT64_SERIALIZER,
+            KvStoreSerializer.createVoteTrackerDeltaSerializer(storeVotesEquivocation));
   }
 
   @Override
@@ -101,6 +114,16 @@ public class V4SchemaHot implements SchemaHot {
     return votes;
   }
 
+  @Override
+  public KvStoreColumn<UInt64, VoteTracker[]> getColumnVoteSnapshotChunks() {
+    return voteSnapshotChunks;
+  }
+
+  @Override
+  public KvStoreColumn<UInt64, Map<UInt64, VoteTracker>> getColumnVoteDeltas() {
+    return voteDeltas;
+  }
+
   @Override
   public KvStoreColumn<UInt64, DepositsFromBlockEvent> getColumnDepositsFromBlockEvents() {
     return DEPOSITS_FROM_BLOCK_EVENTS;
@@ -51,6 +51,8 @@ public class V6TreeSchemaFinalized implements SchemaFinalizedTreeState {
       FINALIZED_STATE_TREE_BRANCHES_BY_ROOT =
           KvStoreColumn.create(
               ID_OFFSET + 6, BYTES32_SERIALIZER, COMPRESSED_BRANCH_INFO_KV_STORE_SERIALIZER);
+  private static final KvStoreColumn<Bytes32, Bytes> FINALIZED_STATE_TREE_MARKED_NODES_BY_ROOT =
+      KvStoreColumn.create(ID_OFFSET + 9, BYTES32_SERIALIZER, BYTES_SERIALIZER);
 
   private static final KvStoreVariable<UInt64> OPTIMISTIC_TRANSITION_BLOCK_SLOT =
       KvStoreVariable.create(ID_OFFSET + 1, UINT64_SERIALIZER);
@@ -111,4 +113,9 @@ public class V6TreeSchemaFinalized implements SchemaFinalizedTreeState {
   public KvStoreColumn<Bytes32, CompressedBranchInfo> getColumnFinalizedStateMerkleTreeBranches() {
     return FINALIZED_STATE_TREE_BRANCHES_BY_ROOT;
   }
+
+  @Override
+  public KvStoreColumn<Bytes32, Bytes> getColumnFinalizedStateMerkleTreeMarkedNodes() {
+    return FINALIZED_STATE_TREE_MARKED_NODES_BY_ROOT;
+  }
 }
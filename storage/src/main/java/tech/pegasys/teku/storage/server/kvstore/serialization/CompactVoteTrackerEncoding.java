@@ -0,0 +1,86 @@
+/*
+ * Copyright 2022 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package tech.pegasys.teku.storage.server.kvstore.serialization;
+
+import java.nio.ByteBuffer;
+import java.util.Optional;
+import org.apache.tuweni.bytes.Bytes32;
+import tech.pegasys.teku.infrastructure.unsigned.UInt64;
+import tech.pegasys.teku.spec.datastructures.forkchoice.VoteTracker;
+
+/**
+ * Fixed size binary encoding of a vote so votes can be stored in dense arrays indexed by validator.
+ * Each record is a flags byte followed by the current root, next root and little endian next epoch.
+ */
+class CompactVoteTrackerEncoding {
+  static final int RECORD_SIZE = 1 + Bytes32.SIZE + Bytes32.SIZE + Long.BYTES;
+
+  private static final byte PRESENT_FLAG = 1;
+  private static final byte NEXT_EQUIVOCATING_FLAG = 1 << 1;
+  private static final byte CURRENT_EQUIVOCATING_FLAG = 1 << 2;
+
+  private final boolean storeVotesEquivocation;
+
+  CompactVoteTrackerEncoding(final boolean storeVotesEquivocation) {
+    this.storeVotesEquivocation = storeVotesEquivocation;
+  }
+
+  void write(final ByteBuffer buffer, final VoteTracker vote) {
+    byte flags = PRESENT_FLAG;
+    if (storeVotesEquivocation) {
+      if (vote.isNextEquivocating()) {
+        flags |= NEXT_EQUIVOCATING_FLAG;
+      }
+      if (vote.isCurrentEquivocating()) {
+        flags |= CURRENT_EQUIVOCATING_FLAG;
+      }
+    }
+    buffer.put(flags);
+    buffer.put(vote.getCurrentRoot().toArrayUnsafe());
+    buffer.put(vote.getNextRoot().toArrayUnsafe());
+    buffer.putLong(vote.getNextEpoch().longValue());
+  }
+
+  void writeAbsent(final ByteBuffer buffer) {
+    buffer.position(buffer.position() + RECORD_SIZE);
+  }
+
+  Optional<VoteTracker> read(final ByteBuffer buffer) {
+    final byte flags = buffer.get();
+    if ((flags & PRESENT_FLAG) == 0) {
+      buffer.position(buffer.position() + RECORD_SIZE - 1);
+      return Optional.empty();
+    }
+    final Bytes32 currentRoot = readBytes32(buffer);
+    final Bytes32 nextRoot = readBytes32(buffer);
+    final UInt64 nextEpoch = UInt64.fromLongBits(buffer.getLong());
+    return Optional.of(
+        new VoteTracker(
+            currentRoot,
+            nextRoot,
+            nextEpoch,
+            storeVotesEquivocation && (flags & NEXT_EQUIVOCATING_FLAG) != 0,
+            storeVotesEquivocation && (flags & CURRENT_EQUIVOCATING_FLAG) != 0));
+  }
+
+  private static Bytes32 readBytes32(final ByteBuffer buffer) {
+    final byte[] bytes = new byte[Bytes32.SIZE];
+    buffer.get(bytes);
+    return Bytes32.wrap(bytes);
+  }
+
+  boolean isStoreVotesEquivocation() {
+    return storeVotesEquivocation;
+  }
+}
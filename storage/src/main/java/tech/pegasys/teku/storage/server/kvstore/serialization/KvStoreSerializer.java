@@ -13,6 +13,7 @@
 
 package tech.pegasys.teku.storage.server.kvstore.serialization;
 
+import java.util.Map;
 import java.util.Set;
 import org.apache.tuweni.bytes.Bytes;
 import org.apache.tuweni.bytes.Bytes32;
@@ -58,6 +59,16 @@ public interface KvStoreSerializer<T> {
     return new VoteTrackerSerializer(storeVotesEquivocation);
   }
 
+  static KvStoreSerializer<VoteTracker[]> createVoteTrackerChunkSerializer(
+      final boolean storeVotesEquivocation) {
+    return new VoteTrackerChunkSerializer(storeVotesEquivocation);
+  }
+
+  static KvStoreSerializer<Map<UInt64, VoteTracker>> createVoteTrackerDeltaSerializer(
+      final boolean storeVotesEquivocation) {
+    return new VoteTrackerDeltaSerializer(storeVotesEquivocation);
+  }
+
   T deserialize(final byte[] data);
 
   byte[] serialize(final T value);
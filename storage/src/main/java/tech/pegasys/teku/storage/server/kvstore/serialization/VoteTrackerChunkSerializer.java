@@ -0,0 +1,78 @@
+/*
+ * Copyright 2022 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package tech.pegasys.teku.storage.server.kvstore.serialization;
+
+import static tech.pegasys.teku.storage.server.kvstore.serialization.CompactVoteTrackerEncoding.RECORD_SIZE;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Objects;
+import tech.pegasys.teku.spec.datastructures.forkchoice.VoteTracker;
+
+/**
+ * Serializes a dense array of votes for a contiguous range of validators, with null entries for
+ * validators without a vote. Trailing validators without a vote are not written.
+ */
+class VoteTrackerChunkSerializer implements KvStoreSerializer<VoteTracker[]> {
+  private final CompactVoteTrackerEncoding encoding;
+
+  VoteTrackerChunkSerializer(final boolean storeVotesEquivocation) {
+    this.encoding = new CompactVoteTrackerEncoding(storeVotesEquivocation);
+  }
+
+  @Override
+  public VoteTracker[] deserialize(final byte[] data) {
+    final ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+    final VoteTracker[] votes = new VoteTracker[data.length / RECORD_SIZE];
+    for (int i = 0; i < votes.length; i++) {
+      votes[i] = encoding.read(buffer).orElse(null);
+    }
+    return votes;
+  }
+
+  @Override
+  public byte[] serialize(final VoteTracker[] value) {
+    int length = value.length;
+    while (length > 0 && value[length - 1] == null) {
+      length--;
+    }
+    final byte[] data = new byte[length * RECORD_SIZE];
+    final ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+    for (int i = 0; i < length; i++) {
+      if (value[i] == null) {
+        encoding.writeAbsent(buffer);
+      } else {
+        encoding.write(buffer, value[i]);
+      }
+    }
+    return data;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    VoteTrackerChunkSerializer that = (VoteTrackerChunkSerializer) o;
+    return encoding.isStoreVotesEquivocation() == that.encoding.isStoreVotesEquivocation();
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(encoding.isStoreVotesEquivocation());
+  }
+}
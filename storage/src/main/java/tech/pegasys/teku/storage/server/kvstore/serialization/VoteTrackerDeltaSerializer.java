@@ -0,0 +1,76 @@
+/*
+ * Copyright 2022 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package tech.pegasys.teku.storage.server.kvstore.serialization;
+
+import static tech.pegasys.teku.storage.server.kvstore.serialization.CompactVoteTrackerEncoding.RECORD_SIZE;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import tech.pegasys.teku.infrastructure.unsigned.UInt64;
+import tech.pegasys.teku.spec.datastructures.forkchoice.VoteTracker;
+
+/** Serializes a set of updated votes as a list of validator index and vote records. */
+class VoteTrackerDeltaSerializer implements KvStoreSerializer<Map<UInt64, VoteTracker>> {
+  private static final int ENTRY_SIZE = Long.BYTES + RECORD_SIZE;
+
+  private final CompactVoteTrackerEncoding encoding;
+
+  VoteTrackerDeltaSerializer(final boolean storeVotesEquivocation) {
+    this.encoding = new CompactVoteTrackerEncoding(storeVotesEquivocation);
+  }
+
+  @Override
+  public Map<UInt64, VoteTracker> deserialize(final byte[] data) {
+    final ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+    final int entryCount = data.length / ENTRY_SIZE;
+    final Map<UInt64, VoteTracker> votes = new HashMap<>(entryCount * 4 / 3 + 1);
+    for (int i = 0; i < entryCount; i++) {
+      final UInt64 validatorIndex = UInt64.fromLongBits(buffer.getLong());
+      encoding.read(buffer).ifPresent(vote -> votes.put(validatorIndex, vote));
+    }
+    return votes;
+  }
+
+  @Override
+  public byte[] serialize(final Map<UInt64, VoteTracker> value) {
+    final byte[] data = new byte[value.size() * ENTRY_SIZE];
+    final ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+    value.forEach(
+        (validatorIndex, vote) -> {
+          buffer.putLong(validatorIndex.longValue());
+          encoding.write(buffer, vote);
+        });
+    return data;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    VoteTrackerDeltaSerializer that = (VoteTrackerDeltaSerializer) o;
+    return encoding.isStoreVotesEquivocation() == that.encoding.isStoreVotesEquivocation();
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(encoding.isStoreVotesEquivocation());
+  }
+}
@@ -20,6 +20,7 @@ import static tech.pegasys.teku.infrastructure.metrics.TekuMetricCategory.STORAG
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import org.hyperledger.besu.plugin.services.MetricsSystem;
 import tech.pegasys.teku.spec.Spec;
 import tech.pegasys.teku.storage.server.Database;
@@ -32,6 +33,7 @@ import tech.pegasys.teku.storage.server.kvstore.schema.V4SchemaFinalized;
 import tech.pegasys.teku.storage.server.kvstore.schema.V4SchemaHot;
 import tech.pegasys.teku.storage.server.kvstore.schema.V6SnapshotSchemaFinalized;
 import tech.pegasys.teku.storage.server.kvstore.schema.V6TreeSchemaFinalized;
+import tech.pegasys.teku.storage.server.segments.BlockSegmentStore;
 
 public class LevelDbDatabaseFactory {
 
@@ -69,6 +71,7 @@ public class LevelDbDatabaseFactory {
       final long stateStorageFrequency,
       final boolean storeNonCanonicalBlocks,
       final boolean storeVotesEquivocation,
+      final Optional<BlockSegmentStore> finalizedBlockSegmentStore,
       final Spec spec) {
 
     final V4SchemaHot schemaHot = new V4SchemaHot(spec, storeVotesEquivocation);
@@ -86,6 +89,7 @@ public class LevelDbDatabaseFactory {
         stateStorageMode,
         stateStorageFrequency,
         storeNonCanonicalBlocks,
+        finalizedBlockSegmentStore,
         spec);
   }
 
@@ -96,6 +100,7 @@ public class LevelDbDatabaseFactory {
       final boolean storeNonCanonicalBlocks,
       final int maxKnownNodeCacheSize,
       final boolean storeVotesEquivocation,
+      final Optional<BlockSegmentStore> finalizedBlockSegmentStore,
       final Spec spec) {
 
     final V4SchemaHot schemaHot = new V4SchemaHot(spec, storeVotesEquivocation);
@@ -113,6 +118,7 @@ public class LevelDbDatabaseFactory {
         stateStorageMode,
         storeNonCanonicalBlocks,
         maxKnownNodeCacheSize,
+        finalizedBlockSegmentStore,
         spec);
   }
 }
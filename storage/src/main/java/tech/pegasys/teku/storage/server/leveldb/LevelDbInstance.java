@@ -25,6 +25,7 @@ import com.google.errorprone.annotations.MustBeClosed;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -105,9 +106,14 @@ public class LevelDbInstance implements KvStoreAccessor {
 
   @Override
   public <K, V> Optional<V> get(final KvStoreColumn<K, V> column, final K key) {
+    return getRaw(column, key)
+        .map(value -> column.getValueSerializer().deserialize(value.toArrayUnsafe()));
+  }
+
+  @Override
+  public <K, V> Optional<Bytes> getRaw(final KvStoreColumn<K, V> column, final K key) {
     assertOpen();
-    return Optional.ofNullable(db.get(getColumnKey(column, key)))
-        .map(column.getValueSerializer()::deserialize);
+    return Optional.ofNullable(db.get(getColumnKey(column, key))).map(Bytes::wrap);
   }
 
   @Override
@@ -129,6 +135,16 @@ public class LevelDbInstance implements KvStoreAccessor {
         });
   }
 
+  @Override
+  public <K, V> Map<K, V> getAll(final KvStoreColumn<K, V> column, final Collection<K> keys) {
+    // LevelDB has no batched read so fall back to individual lookups
+    final Map<K, V> values = new HashMap<>();
+    for (K key : keys) {
+      get(column, key).ifPresent(value -> values.put(key, value));
+    }
+    return values;
+  }
+
   @Override
   public <K, V> Optional<ColumnEntry<K, V>> getFloorEntry(
       final KvStoreColumn<K, V> column, final K key) {
@@ -21,6 +21,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Stream;
+import org.apache.tuweni.bytes.Bytes;
 import org.apache.tuweni.bytes.Bytes32;
 import tech.pegasys.teku.ethereum.pow.api.DepositsFromBlockEvent;
 import tech.pegasys.teku.ethereum.pow.api.MinGenesisTimeBlockEvent;
@@ -47,9 +48,16 @@ public class NoOpDatabase implements Database {
     return new UpdateResult(Optional.empty());
   }
 
+  @Override
+  public void updateHotData(
+      final List<StorageUpdate> updates, final Map<UInt64, VoteTracker> votes) {}
+
   @Override
   public void storeFinalizedBlocks(final Collection<SignedBeaconBlock> blocks) {}
 
+  @Override
+  public void storeReconstructedFinalizedStates(final List<BeaconState> states) {}
+
   @Override
   public void updateWeakSubjectivityState(WeakSubjectivityUpdate weakSubjectivityUpdate) {}
 
@@ -83,6 +91,11 @@ public class NoOpDatabase implements Database {
     return Optional.empty();
   }
 
+  @Override
+  public Optional<Bytes> getFinalizedBlockBytesAtSlot(final UInt64 slot) {
+    return Optional.empty();
+  }
+
   @Override
   public Optional<UInt64> getEarliestAvailableBlockSlot() {
     return Optional.empty();
@@ -170,6 +183,9 @@ public class NoOpDatabase implements Database {
   @Override
   public void storeVotes(final Map<UInt64, VoteTracker> votes) {}
 
+  @Override
+  public void collectGarbage() {}
+
   @Override
   public void close() {}
 }
@@ -19,6 +19,7 @@ import static tech.pegasys.teku.infrastructure.metrics.TekuMetricCategory.STORAG
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import org.hyperledger.besu.plugin.services.MetricsSystem;
 import tech.pegasys.teku.spec.Spec;
 import tech.pegasys.teku.storage.server.Database;
@@ -31,6 +32,7 @@ import tech.pegasys.teku.storage.server.kvstore.schema.SchemaFinalizedSnapshotSt
 import tech.pegasys.teku.storage.server.kvstore.schema.SchemaHot;
 import tech.pegasys.teku.storage.server.kvstore.schema.V4SchemaFinalized;
 import tech.pegasys.teku.storage.server.kvstore.schema.V4SchemaHot;
+import tech.pegasys.teku.storage.server.segments.BlockSegmentStore;
 
 public class RocksDbDatabaseFactory {
 
@@ -73,6 +75,7 @@ public class RocksDbDatabaseFactory {
       final StateStorageMode stateStorageMode,
       final long stateStorageFrequency,
       final boolean storeNonCanonicalBlocks,
+      final Optional<BlockSegmentStore> finalizedBlockSegmentStore,
       final Spec spec) {
 
     final List<KvStoreColumn<?, ?>> allColumns = new ArrayList<>(schemaHot.getAllColumns());
@@ -88,6 +91,7 @@ public class RocksDbDatabaseFactory {
         stateStorageMode,
         stateStorageFrequency,
         storeNonCanonicalBlocks,
+        finalizedBlockSegmentStore,
         spec);
   }
 }
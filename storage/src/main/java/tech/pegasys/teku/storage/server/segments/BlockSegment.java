@@ -0,0 +1,215 @@
+/*
+ * Copyright 2022 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package tech.pegasys.teku.storage.server.segments;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Optional;
+import org.apache.tuweni.bytes.Bytes;
+
+/**
+ * A fixed range of slots stored as an append-only data file and a memory-mapped index file.
+ *
+ * <p>The index holds an offset and length in the data file for each slot in the segment, with a
+ * length of zero meaning there is no value for that slot. Values are only ever appended to the data
+ * file so previously returned values remain valid while the index is updated.
+ */
+class BlockSegment implements AutoCloseable {
+  private static final int INDEX_ENTRY_SIZE = Long.BYTES + Integer.BYTES;
+
+  private final long firstSlot;
+  private final int slotCount;
+  private final FileChannel dataChannel;
+  private final FileChannel indexChannel;
+  private final MappedByteBuffer index;
+  private ByteBuffer mappedData = ByteBuffer.allocate(0);
+  private long dataSize;
+
+  private BlockSegment(
+      final long firstSlot,
+      final int slotCount,
+      final FileChannel dataChannel,
+      final FileChannel indexChannel,
+      final MappedByteBuffer index,
+      final long dataSize) {
+    this.firstSlot = firstSlot;
+    this.slotCount = slotCount;
+    this.dataChannel = dataChannel;
+    this.indexChannel = indexChannel;
+    this.index = index;
+    this.dataSize = dataSize;
+  }
+
+  static BlockSegment open(
+      final Path dataFile, final Path indexFile, final long firstSlot, final int slotCount)
+      throws IOException {
+    final FileChannel dataChannel =
+        FileChannel.open(
+            dataFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    try {
+      final FileChannel indexChannel =
+          FileChannel.open(
+              indexFile,
+              StandardOpenOption.CREATE,
+              StandardOpenOption.READ,
+              StandardOpenOption.WRITE);
+      try {
+        final MappedByteBuffer index =
+            indexChannel.map(MapMode.READ_WRITE, 0, (long) slotCount * INDEX_ENTRY_SIZE);
+        final long dataSize = getIndexedDataSize(index, slotCount);
+        // Drop any data written after the last value that was added to the index
+        dataChannel.truncate(dataSize);
+        return new BlockSegment(firstSlot, slotCount, dataChannel, indexChannel, index, dataSize);
+      } catch (final IOException | RuntimeException e) {
+        indexChannel.close();
+        throw e;
+      }
+    } catch (final IOException | RuntimeException e) {
+      dataChannel.close();
+      throw e;
+    }
+  }
+
+  private static long getIndexedDataSize(final MappedByteBuffer index, final int slotCount) {
+    long dataSize = 0;
+    for (int i = 0; i < slotCount; i++) {
+      final int entryPosition = i * INDEX_ENTRY_SIZE;
+      final int length = index.getInt(entryPosition + Long.BYTES);
+      if (length > 0) {
+        dataSize = Math.max(dataSize, index.getLong(entryPosition) + length);
+      }
+    }
+    return dataSize;
+  }
+
+  long getFirstSlot() {
+    return firstSlot;
+  }
+
+  synchronized Optional<Bytes> get(final long slot) {
+    final int entryPosition = getEntryPosition(slot);
+    final int length = index.getInt(entryPosition + Long.BYTES);
+    if (length == 0) {
+      return Optional.empty();
+    }
+    final long offset = index.getLong(entryPosition);
+    if (offset + length > Integer.MAX_VALUE) {
+      // Beyond the range that can be memory-mapped in a single buffer
+      return Optional.of(Bytes.wrap(readData(offset, length)));
+    }
+    if (offset + length > mappedData.capacity()) {
+      mappedData = mapData();
+    }
+    final ByteBuffer value = mappedData.duplicate();
+    value.position(Math.toIntExact(offset)).limit(Math.toIntExact(offset + length));
+    return Optional.of(Bytes.wrapByteBuffer(value.slice()));
+  }
+
+  /** Returns the first slot at or after {@code fromSlot} which has a value. */
+  synchronized Optional<Long> getFirstSlotWithValue(final long fromSlot) {
+    for (long slot = Math.max(fromSlot, firstSlot); slot < firstSlot + slotCount; slot++) {
+      if (hasValue(slot)) {
+        return Optional.of(slot);
+      }
+    }
+    return Optional.empty();
+  }
+
+  /** Returns the last slot at or before {@code toSlot} which has a value. */
+  synchronized Optional<Long> getLastSlotWithValue(final long toSlot) {
+    for (long slot = Math.min(toSlot, firstSlot + slotCount - 1); slot >= firstSlot; slot--) {
+      if (hasValue(slot)) {
+        return Optional.of(slot);
+      }
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Appends the values to the data file and only adds them to the index once the data has been
+   * written to disk, so the index never refers to data which may not have been persisted.
+   */
+  synchronized void putAll(final Map<Long, Bytes> values) throws IOException {
+    final long[] offsets = new long[values.size()];
+    int i = 0;
+    for (Bytes value : values.values()) {
+      offsets[i++] = dataSize;
+      final ByteBuffer buffer = ByteBuffer.wrap(value.toArrayUnsafe());
+      while (buffer.hasRemaining()) {
+        dataSize += dataChannel.write(buffer, dataSize);
+      }
+    }
+    dataChannel.force(false);
+
+    i = 0;
+    for (Map.Entry<Long, Bytes> entry : values.entrySet()) {
+      final int entryPosition = getEntryPosition(entry.getKey());
+      index.putLong(entryPosition, offsets[i++]);
+      index.putInt(entryPosition + Long.BYTES, entry.getValue().size());
+    }
+    index.force();
+  }
+
+  private boolean hasValue(final long slot) {
+    return index.getInt(getEntryPosition(slot) + Long.BYTES) != 0;
+  }
+
+  private int getEntryPosition(final long slot) {
+    final long slotIndex = slot - firstSlot;
+    if (slotIndex < 0 || slotIndex >= slotCount) {
+      throw new IllegalArgumentException(
+          "Slot " + slot + " is not in segment starting at " + firstSlot);
+    }
+    return Math.toIntExact(slotIndex * INDEX_ENTRY_SIZE);
+  }
+
+  private ByteBuffer mapData() {
+    try {
+      return dataChannel.map(MapMode.READ_ONLY, 0, Math.min(dataSize, Integer.MAX_VALUE));
+    } catch (final IOException e) {
+      throw new UncheckedIOException("Failed to map block segment data", e);
+    }
+  }
+
+  private byte[] readData(final long offset, final int length) {
+    final ByteBuffer buffer = ByteBuffer.allocate(length);
+    try {
+      while (buffer.hasRemaining()) {
+        if (dataChannel.read(buffer, offset + buffer.position()) < 0) {
+          throw new IOException("Unexpected end of block segment data");
+        }
+      }
+    } catch (final IOException e) {
+      throw new UncheckedIOException("Failed to read block segment data", e);
+    }
+    return buffer.array();
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    try {
+      index.force();
+    } finally {
+      indexChannel.close();
+      dataChannel.close();
+    }
+  }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2022 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package tech.pegasys.teku.storage.server.segments;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import org.apache.tuweni.bytes.Bytes;
+import tech.pegasys.teku.infrastructure.unsigned.UInt64;
+import tech.pegasys.teku.storage.server.DatabaseStorageException;
+
+/**
+ * Stores immutable values by slot in append-only segment files, each covering a fixed range of
+ * slots.
+ *
+ * <p>Intended for finalized blocks which are written once and then only read, typically in slot
+ * ranges. Unlike a key-value database, there is no compaction so each value is written to disk
+ * exactly once, and reads come directly from memory-mapped files without going through a block
+ * cache.
+ */
+public class BlockSegmentStore implements AutoCloseable {
+  static final int SLOTS_PER_SEGMENT = 8192;
+  private static final String DATA_FILE_SUFFIX = ".dat";
+  private static final String INDEX_FILE_SUFFIX = ".idx";
+  private static final Pattern INDEX_FILE_PATTERN =
+      Pattern.compile("blocks-(\\d+)" + Pattern.quote(INDEX_FILE_SUFFIX));
+
+  private final Path directory;
+  private final NavigableMap<Long, BlockSegment> segments;
+
+  private BlockSegmentStore(final Path directory, final NavigableMap<Long, BlockSegment> segments) {
+    this.directory = directory;
+    this.segments = segments;
+  }
+
+  public static BlockSegmentStore open(final Path directory) {
+    final NavigableMap<Long, BlockSegment> segments = new ConcurrentSkipListMap<>();
+    try {
+      Files.createDirectories(directory);
+      try (final Stream<Path> files = Files.list(directory)) {
+        for (Path file : (Iterable<Path>) files::iterator) {
+          final Matcher matcher = INDEX_FILE_PATTERN.matcher(file.getFileName().toString());
+          if (matcher.matches()) {
+            final long segmentNumber = Long.parseLong(matcher.group(1));
+            segments.put(segmentNumber, openSegment(directory, segmentNumber));
+          }
+        }
+      }
+    } catch (final IOException e) {
+      segments.values().forEach(BlockSegmentStore::closeQuietly);
+      throw DatabaseStorageException.unrecoverable(
+          "Failed to open block segments in " + directory, e);
+    }
+    return new BlockSegmentStore(directory, segments);
+  }
+
+  public Optional<Bytes> get(final UInt64 slot) {
+    final BlockSegment segment = segments.get(getSegmentNumber(slot.longValue()));
+    return segment == null ? Optional.empty() : segment.get(slot.longValue());
+  }
+
+  /** Returns the lowest slot with a stored value. */
+  public Optional<UInt64> getFirstSlot() {
+    for (BlockSegment segment : segments.values()) {
+      final Optional<Long> slot = segment.getFirstSlotWithValue(segment.getFirstSlot());
+      if (slot.isPresent()) {
+        return slot.map(UInt64::valueOf);
+      }
+    }
+    return Optional.empty();
+  }
+
+  /** Returns the highest slot less than or equal to {@code maxSlot} with a stored value. */
+  public Optional<UInt64> getFloorSlot(final UInt64 maxSlot) {
+    final long maxSlotValue =
+        maxSlot.isGreaterThan(Long.MAX_VALUE) ? Long.MAX_VALUE : maxSlot.longValue();
+    for (BlockSegment segment :
+        segments.headMap(getSegmentNumber(maxSlotValue), true).descendingMap().values()) {
+      final Optional<Long> slot = segment.getLastSlotWithValue(maxSlotValue);
+      if (slot.isPresent()) {
+        return slot.map(UInt64::valueOf);
+      }
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Streams the stored values with slots from {@code startSlot} to {@code endSlot} inclusive in
+   * slot order.
+   */
+  public Stream<Bytes> stream(final UInt64 startSlot, final UInt64 endSlot) {
+    final Optional<UInt64> lastSlot = getFloorSlot(endSlot);
+    if (lastSlot.isEmpty() || lastSlot.get().isLessThan(startSlot)) {
+      return Stream.empty();
+    }
+    return LongStream.rangeClosed(startSlot.longValue(), lastSlot.get().longValue())
+        .mapToObj(slot -> get(UInt64.valueOf(slot)))
+        .flatMap(Optional::stream);
+  }
+
+  /**
+   * Stores values by slot. Values are written to disk before this method returns, so the store
+   * can be updated before a database transaction which refers to the values is committed.
+   */
+  public void putAll(final Map<UInt64, Bytes> values) {
+    final Map<Long, Map<Long, Bytes>> valuesBySegment = new TreeMap<>();
+    values.forEach(
+        (slot, value) ->
+            valuesBySegment
+                .computeIfAbsent(getSegmentNumber(slot.longValue()), __ -> new TreeMap<>())
+                .put(slot.longValue(), value));
+    try {
+      for (Map.Entry<Long, Map<Long, Bytes>> entry : valuesBySegment.entrySet()) {
+        getOrCreateSegment(entry.getKey()).putAll(entry.getValue());
+      }
+    } catch (final IOException | UncheckedIOException e) {
+      throw DatabaseStorageException.unrecoverable("Failed to write block segments", e);
+    }
+  }
+
+  private synchronized BlockSegment getOrCreateSegment(final long segmentNumber)
+      throws IOException {
+    BlockSegment segment = segments.get(segmentNumber);
+    if (segment == null) {
+      segment = openSegment(directory, segmentNumber);
+      segments.put(segmentNumber, segment);
+    }
+    return segment;
+  }
+
+  private static BlockSegment openSegment(final Path directory, final long segmentNumber)
+      throws IOException {
+    final String name = String.format("blocks-%012d", segmentNumber);
+    return BlockSegment.open(
+        directory.resolve(name + DATA_FILE_SUFFIX),
+        directory.resolve(name + INDEX_FILE_SUFFIX),
+        segmentNumber * SLOTS_PER_SEGMENT,
+        SLOTS_PER_SEGMENT);
+  }
+
+  private static long getSegmentNumber(final long slot) {
+    return slot / SLOTS_PER_SEGMENT;
+  }
+
+  private static void closeQuietly(final BlockSegment segment) {
+    try {
+      segment.close();
+    } catch (final IOException e) {
+      // Already failing so ignore
+    }
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    IOException error = null;
+    for (BlockSegment segment : segments.values()) {
+      try {
+        segment.close();
+      } catch (final IOException e) {
+        error = e;
+      }
+    }
+    segments.clear();
+    if (error != null) {
+      throw error;
+    }
+  }
+}
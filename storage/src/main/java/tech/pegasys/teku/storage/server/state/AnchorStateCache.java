@@ -0,0 +1,201 @@
+/*
+ * Copyright 2022 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package tech.pegasys.teku.storage.server.state;
+
+import java.lang.ref.SoftReference;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import tech.pegasys.teku.infrastructure.ssz.tree.TreeMemoryEstimator;
+import tech.pegasys.teku.infrastructure.unsigned.UInt64;
+import tech.pegasys.teku.spec.datastructures.state.beaconstate.BeaconState;
+
+/**
+ * Retains the anchor states of {@link FinalizedStateCache} within a single byte budget.
+ *
+ * <p>Anchors are derived from one another while replaying blocks, so an anchor derived from a
+ * retained anchor is only charged the nodes it adds over that anchor, which only requires walking
+ * the modified paths. Other anchors are charged their full estimated size, and are not retained at
+ * all once a full state was found not to fit in the budget. When an anchor is removed, the anchors
+ * charged against it are re-weighed against the anchor it was itself charged against, so charges
+ * remain an upper bound of the retained memory. The least recently used anchors are evicted first.
+ */
+class AnchorStateCache {
+  private final NavigableMap<UInt64, Anchor> anchors = new TreeMap<>();
+  private final long maximumBytes;
+  private final boolean useSoftReferences;
+  private long retainedBytes = 0;
+  private long accessCounter = 0;
+  private volatile boolean fullStateExceedsBudget = false;
+
+  AnchorStateCache(final long maximumBytes, final boolean useSoftReferences) {
+    this.maximumBytes = maximumBytes;
+    this.useSoftReferences = useSoftReferences;
+  }
+
+  /** Returns the retained anchor with the greatest slot less than or equal to the given slot */
+  synchronized Optional<BeaconState> getLatest(final UInt64 slot) {
+    removeClearedAnchors();
+    return Optional.ofNullable(anchors.floorEntry(slot))
+        .map(Map.Entry::getValue)
+        .map(
+            anchor -> {
+              anchor.lastAccess = ++accessCounter;
+              return anchor.getState();
+            });
+  }
+
+  /**
+   * Retains the state as an anchor if it fits in the budget, evicting other anchors if required.
+   *
+   * @param state the state to retain
+   * @param derivedFrom the state {@code state} was regenerated from
+   */
+  void add(final BeaconState state, final BeaconState derivedFrom) {
+    final Optional<Anchor> reference = getRetainedAnchor(derivedFrom);
+    final long fullBytes;
+    if (reference.isPresent()) {
+      fullBytes = -1;
+    } else if (fullStateExceedsBudget) {
+      return;
+    } else {
+      // Estimate outside the lock as it walks the whole state
+      fullBytes = TreeMemoryEstimator.estimateRetainedSize(state.getBackingNode(), maximumBytes);
+      if (fullBytes > maximumBytes) {
+        fullStateExceedsBudget = true;
+        return;
+      }
+    }
+    addAnchor(state, reference, fullBytes);
+  }
+
+  synchronized int size() {
+    return anchors.size();
+  }
+
+  synchronized long getRetainedBytes() {
+    return retainedBytes;
+  }
+
+  private synchronized Optional<Anchor> getRetainedAnchor(final BeaconState state) {
+    return Optional.ofNullable(anchors.get(state.getSlot()))
+        .filter(anchor -> anchor.getState() == state);
+  }
+
+  private synchronized void addAnchor(
+      final BeaconState state, final Optional<Anchor> reference, final long fullBytes) {
+    removeClearedAnchors();
+    if (anchors.containsKey(state.getSlot())) {
+      return;
+    }
+    final Optional<BeaconState> referenceState =
+        reference
+            .filter(anchors::containsValue)
+            .flatMap(referenceAnchor -> Optional.ofNullable(referenceAnchor.getState()));
+    final Anchor anchor;
+    if (referenceState.isPresent()) {
+      final long bytes =
+          TreeMemoryEstimator.estimateRetainedSize(
+              state.getBackingNode(), referenceState.get().getBackingNode(), maximumBytes);
+      if (bytes > maximumBytes) {
+        return;
+      }
+      anchor = new Anchor(state, reference, bytes);
+    } else if (fullBytes >= 0) {
+      anchor = new Anchor(state, Optional.empty(), fullBytes);
+    } else {
+      // The reference was evicted while weighing, give up rather than walking the whole state
+      return;
+    }
+    anchor.lastAccess = ++accessCounter;
+    anchors.put(state.getSlot(), anchor);
+    retainedBytes += anchor.bytes;
+    while (retainedBytes > maximumBytes && !anchors.isEmpty()) {
+      anchors.values().stream()
+          .min(Comparator.comparingLong(candidate -> candidate.lastAccess))
+          .ifPresent(this::remove);
+    }
+  }
+
+  private void removeClearedAnchors() {
+    if (!useSoftReferences) {
+      return;
+    }
+    final List<Anchor> clearedAnchors =
+        anchors.values().stream()
+            .filter(anchor -> anchor.getState() == null)
+            .collect(Collectors.toList());
+    clearedAnchors.forEach(this::remove);
+  }
+
+  private void remove(final Anchor removed) {
+    anchors.remove(removed.slot);
+    retainedBytes -= removed.bytes;
+    for (Anchor anchor : anchors.values()) {
+      if (anchor.reference.filter(reference -> reference == removed).isEmpty()) {
+        continue;
+      }
+      retainedBytes -= anchor.bytes;
+      // The nodes of the anchor are either added by it, by the removed anchor or retained by the
+      // anchor the removed one was charged against, so the sum of both charges is an upper bound
+      final long upperBound = anchor.bytes + removed.bytes;
+      final Optional<BeaconState> anchorState = Optional.ofNullable(anchor.getState());
+      final Optional<BeaconState> referenceState =
+          removed.reference.flatMap(reference -> Optional.ofNullable(reference.getState()));
+      if (anchorState.isPresent() && referenceState.isPresent()) {
+        anchor.bytes =
+            Math.min(
+                upperBound,
+                TreeMemoryEstimator.estimateRetainedSize(
+                    anchorState.get().getBackingNode(),
+                    referenceState.get().getBackingNode(),
+                    upperBound));
+        anchor.reference = removed.reference;
+      } else {
+        anchor.bytes = upperBound;
+        anchor.reference = Optional.empty();
+      }
+      retainedBytes += anchor.bytes;
+    }
+  }
+
+  private class Anchor {
+    private final UInt64 slot;
+    private final Supplier<BeaconState> state;
+    private Optional<Anchor> reference;
+    private long bytes;
+    private long lastAccess;
+
+    private Anchor(final BeaconState state, final Optional<Anchor> reference, final long bytes) {
+      this.slot = state.getSlot();
+      if (useSoftReferences) {
+        this.state = new SoftReference<>(state)::get;
+      } else {
+        this.state = () -> state;
+      }
+      this.reference = reference;
+      this.bytes = bytes;
+    }
+
+    /** Returns the state, or null if it was garbage collected */
+    private BeaconState getState() {
+      return state.get();
+    }
+  }
+}
@@ -22,18 +22,38 @@ import com.google.common.cache.LoadingCache;
 import com.google.common.cache.RemovalCause;
 import com.google.common.cache.RemovalNotification;
 import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.util.List;
 import java.util.NavigableSet;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.stream.Stream;
+import org.hyperledger.besu.metrics.noop.NoOpMetricsSystem;
+import org.hyperledger.besu.plugin.services.MetricsSystem;
+import org.hyperledger.besu.plugin.services.metrics.Counter;
+import org.hyperledger.besu.plugin.services.metrics.LabelledMetric;
 import tech.pegasys.teku.dataproviders.generators.StreamingStateRegenerator;
+import tech.pegasys.teku.infrastructure.metrics.MetricsHistogram;
+import tech.pegasys.teku.infrastructure.metrics.TekuMetricCategory;
 import tech.pegasys.teku.infrastructure.unsigned.UInt64;
 import tech.pegasys.teku.spec.Spec;
+import tech.pegasys.teku.spec.config.SpecConfig;
 import tech.pegasys.teku.spec.datastructures.blocks.SignedBeaconBlock;
 import tech.pegasys.teku.spec.datastructures.state.beaconstate.BeaconState;
 import tech.pegasys.teku.storage.server.Database;
 
+/**
+ * Caches finalized states regenerated from the closest earlier state by replaying blocks.
+ *
+ * <p>Requested states are kept in a small cache limited by count. In addition, epoch boundary
+ * states passed while replaying are retained as anchors in an {@link AnchorStateCache} limited by
+ * their estimated heap size, when the {@link StateRegenerationPlanner} considers that the replay
+ * to them is long enough for the recent query density around their slot. Later regenerations
+ * start from the closest earlier state in either cache, or from the closest state stored in the
+ * database.
+ */
 public class FinalizedStateCache {
+  public static final long DEFAULT_MAXIMUM_ANCHOR_BYTES = 256L * 1024 * 1024;
+
   /**
    * Note this is a best effort basis to track what states are cached. Slots are added here slightly
    * before the stateCache is actually updated and removed slightly after they are evicted from the
@@ -42,16 +62,37 @@ public class FinalizedStateCache {
   private final NavigableSet<UInt64> availableSlots = new ConcurrentSkipListSet<>();
 
   private final LoadingCache<UInt64, BeaconState> stateCache;
+  private final AnchorStateCache anchorCache;
+  private final StateRegenerationPlanner planner;
   private final Spec spec;
   private final Database database;
+  private final LabelledMetric<Counter> requestCounter;
+  private final MetricsHistogram replayedBlocksHistogram;
 
   public FinalizedStateCache(
       final Spec spec,
       final Database database,
       final int maximumCacheSize,
       final boolean useSoftReferences) {
+    this(
+        spec,
+        database,
+        new NoOpMetricsSystem(),
+        maximumCacheSize,
+        DEFAULT_MAXIMUM_ANCHOR_BYTES,
+        useSoftReferences);
+  }
+
+  public FinalizedStateCache(
+      final Spec spec,
+      final Database database,
+      final MetricsSystem metricsSystem,
+      final int maximumCacheSize,
+      final long maximumAnchorBytes,
+      final boolean useSoftReferences) {
     this.spec = spec;
     this.database = database;
+    this.planner = new StateRegenerationPlanner(spec.getSlotsPerEpoch(SpecConfig.GENESIS_EPOCH));
     final CacheBuilder<UInt64, BeaconState> cacheBuilder =
         CacheBuilder.newBuilder()
             .maximumSize(maximumCacheSize)
@@ -60,6 +101,32 @@ public class FinalizedStateCache {
       cacheBuilder.softValues();
     }
     this.stateCache = cacheBuilder.build(new StateCacheLoader());
+    this.anchorCache = new AnchorStateCache(maximumAnchorBytes, useSoftReferences);
+
+    this.requestCounter =
+        metricsSystem.createLabelledCounter(
+            TekuMetricCategory.STORAGE,
+            "finalized_state_requests_total",
+            "Number of finalized state requests by how the state was obtained",
+            "result");
+    this.replayedBlocksHistogram =
+        MetricsHistogram.create(
+            TekuMetricCategory.STORAGE,
+            metricsSystem,
+            "finalized_state_replayed_blocks",
+            "Number of blocks replayed to regenerate a finalized state",
+            1,
+            List.of("source"));
+    metricsSystem.createGauge(
+        TekuMetricCategory.STORAGE,
+        "finalized_state_anchors",
+        "Number of intermediate states retained to regenerate finalized states",
+        anchorCache::size);
+    metricsSystem.createGauge(
+        TekuMetricCategory.STORAGE,
+        "finalized_state_anchors_bytes",
+        "Estimated heap size of intermediate states retained to regenerate finalized states",
+        anchorCache::getRetainedBytes);
   }
 
   private void onRemovedFromCache(
@@ -70,10 +137,17 @@ public class FinalizedStateCache {
   }
 
   public Optional<BeaconState> getFinalizedState(final UInt64 slot) {
+    planner.onQuery(slot);
+    final BeaconState cachedState = stateCache.getIfPresent(slot);
+    if (cachedState != null) {
+      requestCounter.labels("cache_hit").inc();
+      return Optional.of(cachedState);
+    }
     try {
       return Optional.of(stateCache.getUnchecked(slot));
     } catch (final UncheckedExecutionException e) {
       if (Throwables.getRootCause(e) instanceof StateUnavailableException) {
+        requestCounter.labels("unavailable").inc();
         return Optional.empty();
       }
       throw new RuntimeException("Error while regenerating state", e);
@@ -81,7 +155,18 @@ public class FinalizedStateCache {
   }
 
   private Optional<BeaconState> getLatestStateFromCache(final UInt64 slot) {
-    return Optional.ofNullable(availableSlots.floor(slot)).map(stateCache::getIfPresent);
+    final Optional<BeaconState> cachedState =
+        Optional.ofNullable(availableSlots.floor(slot)).map(stateCache::getIfPresent);
+    final Optional<BeaconState> anchorState = anchorCache.getLatest(slot);
+    if (cachedState.isEmpty()) {
+      return anchorState;
+    }
+    if (anchorState.isEmpty()) {
+      return cachedState;
+    }
+    return anchorState.get().getSlot().isGreaterThan(cachedState.get().getSlot())
+        ? anchorState
+        : cachedState;
   }
 
   private class StateCacheLoader extends CacheLoader<UInt64, BeaconState> {
@@ -99,24 +184,57 @@ public class FinalizedStateCache {
 
     private BeaconState regenerateState(final UInt64 slot, final BeaconState stateFromDisk) {
       final Optional<BeaconState> latestStateFromCache = getLatestStateFromCache(slot);
-      final BeaconState preState =
+      final boolean fromCache =
           latestStateFromCache
-              .filter(
+              .map(
                   stateFromCache ->
-                      stateFromCache.getSlot().compareTo(stateFromDisk.getSlot()) >= 0)
-              .orElse(stateFromDisk);
+                      stateFromCache.getSlot().isGreaterThanOrEqualTo(stateFromDisk.getSlot()))
+              .orElse(false);
+      final BeaconState preState = fromCache ? latestStateFromCache.get() : stateFromDisk;
+      final String source = fromCache ? "cache" : "disk";
+      requestCounter.labels("regenerated_from_" + source).inc();
       if (preState.getSlot().equals(slot)) {
+        replayedBlocksHistogram.recordValue(0, source);
         return preState;
       }
       try (final Stream<SignedBeaconBlock> blocks =
           database.streamFinalizedBlocks(preState.getSlot().plus(ONE), slot)) {
-        final BeaconState state = StreamingStateRegenerator.regenerate(spec, preState, blocks);
+        final AnchorSelector anchorSelector = new AnchorSelector(preState);
+        final BeaconState state =
+            StreamingStateRegenerator.regenerate(spec, preState, blocks, anchorSelector::onState);
+        replayedBlocksHistogram.recordValue(anchorSelector.replayedBlocks, source);
         availableSlots.add(state.getSlot());
         return state;
       }
     }
   }
 
+  /** Follows a replay and retains the epoch boundary states selected by the planner as anchors. */
+  private class AnchorSelector {
+    private BeaconState previousAnchor;
+    private UInt64 previousEpoch;
+    private int replayedBlocks = 0;
+
+    private AnchorSelector(final BeaconState preState) {
+      this.previousAnchor = preState;
+      this.previousEpoch = spec.computeEpochAtSlot(preState.getSlot());
+    }
+
+    private void onState(final BeaconState state) {
+      replayedBlocks++;
+      final UInt64 epoch = spec.computeEpochAtSlot(state.getSlot());
+      if (epoch.equals(previousEpoch)) {
+        return;
+      }
+      previousEpoch = epoch;
+      if (!planner.shouldRetainAnchor(previousAnchor.getSlot(), state.getSlot())) {
+        return;
+      }
+      anchorCache.add(state, previousAnchor);
+      previousAnchor = state;
+    }
+  }
+
   /**
    * Cache doesn't allow returning null but we may not be able to regenerate a state so throw this
    * exception and catch it in {@link #getFinalizedState(UInt64)}
@@ -0,0 +1,288 @@
+/*
+ * Copyright 2022 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package tech.pegasys.teku.storage.server.state;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.stream.Stream;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import tech.pegasys.teku.infrastructure.unsigned.UInt64;
+import tech.pegasys.teku.spec.Spec;
+import tech.pegasys.teku.spec.datastructures.blocks.SignedBeaconBlock;
+import tech.pegasys.teku.spec.datastructures.state.beaconstate.BeaconState;
+import tech.pegasys.teku.spec.logic.common.statetransition.exceptions.StateTransitionException;
+import tech.pegasys.teku.storage.server.Database;
+
+/**
+ * Regenerates finalized states from the finalized blocks already in the database and stores them,
+ * for example when converting a pruned database to archive mode.
+ *
+ * <p>Work is split into pipeline stages connected by bounded queues: one thread reads blocks, one
+ * thread replays them, a pool of threads calculates and checks the root of each state to be stored
+ * and the calling thread writes states in batches. After each batch is committed the last stored
+ * slot is written to the progress file so an interrupted run resumes from that point.
+ */
+public class FinalizedStateReconstructor {
+  private static final Logger LOG = LogManager.getLogger();
+  private static final int BLOCK_QUEUE_CAPACITY = 1024;
+
+  private final Spec spec;
+  private final Database database;
+  private final UInt64 stateStorageFrequency;
+  private final int hashingThreads;
+  private final int statesPerCommit;
+  private final Path progressFile;
+
+  public FinalizedStateReconstructor(
+      final Spec spec,
+      final Database database,
+      final long stateStorageFrequency,
+      final int hashingThreads,
+      final int statesPerCommit,
+      final Path progressFile) {
+    checkArgument(stateStorageFrequency > 0, "State storage frequency must be positive");
+    checkArgument(hashingThreads > 0, "Hashing threads must be positive");
+    checkArgument(statesPerCommit > 0, "States per commit must be positive");
+    this.spec = spec;
+    this.database = database;
+    this.stateStorageFrequency = UInt64.valueOf(stateStorageFrequency);
+    this.hashingThreads = hashingThreads;
+    this.statesPerCommit = statesPerCommit;
+    this.progressFile = progressFile;
+  }
+
+  /**
+   * Regenerates and stores states from the closest available state at or before the start slot, or
+   * the slot recorded in the progress file if it is later, up to the end slot.
+   *
+   * @param startSlot the slot to start from if there is no recorded progress
+   * @param endSlot the last slot to regenerate states for
+   * @return the number of states stored
+   */
+  public long reconstruct(final UInt64 startSlot, final UInt64 endSlot)
+      throws InterruptedException {
+    final UInt64 fromSlot = loadProgress().map(slot -> slot.max(startSlot)).orElse(startSlot);
+    final BeaconState baseState =
+        database
+            .getLatestAvailableFinalizedState(fromSlot)
+            .orElseThrow(
+                () ->
+                    new IllegalStateException(
+                        "No finalized state available at or before slot " + fromSlot));
+    if (baseState.getSlot().isGreaterThanOrEqualTo(endSlot)) {
+      LOG.info("States are already available up to slot {}", endSlot);
+      return 0;
+    }
+    LOG.info("Regenerating finalized states from slot {} to {}", baseState.getSlot(), endSlot);
+
+    final BlockingQueue<Optional<SignedBeaconBlock>> blocks =
+        new ArrayBlockingQueue<>(BLOCK_QUEUE_CAPACITY);
+    final BlockingQueue<Optional<CompletableFuture<BeaconState>>> states =
+        new ArrayBlockingQueue<>(statesPerCommit * 2);
+    final ExecutorService pipelineExecutor =
+        Executors.newFixedThreadPool(2, threadFactory("pipeline"));
+    final ExecutorService hashingExecutor =
+        Executors.newFixedThreadPool(hashingThreads, threadFactory("hash"));
+    try {
+      final CompletableFuture<Void> readResult =
+          CompletableFuture.runAsync(
+              () -> readBlocks(baseState.getSlot().plus(1), endSlot, blocks), pipelineExecutor);
+      CompletableFuture.runAsync(
+          () -> replayBlocks(baseState, blocks, readResult, states, hashingExecutor),
+          pipelineExecutor);
+      return writeStates(baseState.getSlot(), states);
+    } finally {
+      pipelineExecutor.shutdownNow();
+      hashingExecutor.shutdownNow();
+    }
+  }
+
+  private void readBlocks(
+      final UInt64 startSlot,
+      final UInt64 endSlot,
+      final BlockingQueue<Optional<SignedBeaconBlock>> blocks) {
+    try (final Stream<SignedBeaconBlock> stream =
+        database.streamFinalizedBlocks(startSlot, endSlot)) {
+      stream.forEach(block -> put(blocks, Optional.of(block)));
+    } finally {
+      // Always mark the end of the blocks so the replay stage can finish and check for errors
+      put(blocks, Optional.empty());
+    }
+  }
+
+  private void replayBlocks(
+      final BeaconState baseState,
+      final BlockingQueue<Optional<SignedBeaconBlock>> blocks,
+      final CompletableFuture<Void> readResult,
+      final BlockingQueue<Optional<CompletableFuture<BeaconState>>> states,
+      final ExecutorService hashingExecutor) {
+    try {
+      BeaconState state = baseState;
+      UInt64 lastSelectedSlot = baseState.getSlot();
+      Optional<SignedBeaconBlock> maybeBlock = blocks.take();
+      while (maybeBlock.isPresent()) {
+        final SignedBeaconBlock block = maybeBlock.get();
+        state = replayBlock(state, block);
+        if (block.getSlot().isGreaterThanOrEqualTo(lastSelectedSlot.plus(stateStorageFrequency))) {
+          final BeaconState selectedState = state;
+          states.put(
+              Optional.of(
+                  CompletableFuture.supplyAsync(
+                      () -> verifyStateRoot(selectedState, block), hashingExecutor)));
+          lastSelectedSlot = block.getSlot();
+        }
+        maybeBlock = blocks.take();
+      }
+      // Surface any failure reading blocks rather than treating it as the end of the chain
+      readResult.join();
+      states.put(Optional.empty());
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (final Throwable t) {
+      put(states, Optional.of(CompletableFuture.failedFuture(t)));
+    }
+  }
+
+  private BeaconState replayBlock(final BeaconState state, final SignedBeaconBlock block) {
+    try {
+      return spec.replayValidatedBlock(state, block);
+    } catch (final StateTransitionException e) {
+      throw new IllegalStateException(
+          "Failed to regenerate state for block at slot " + block.getSlot(), e);
+    }
+  }
+
+  private static BeaconState verifyStateRoot(
+      final BeaconState state, final SignedBeaconBlock block) {
+    if (!state.hashTreeRoot().equals(block.getMessage().getStateRoot())) {
+      throw new IllegalStateException(
+          "Regenerated state at slot "
+              + block.getSlot()
+              + " does not match the state root of block "
+              + block.getRoot());
+    }
+    return state;
+  }
+
+  private long writeStates(
+      final UInt64 baseSlot,
+      final BlockingQueue<Optional<CompletableFuture<BeaconState>>> states)
+      throws InterruptedException {
+    final long startTimeNanos = System.nanoTime();
+    final List<BeaconState> batch = new ArrayList<>(statesPerCommit);
+    long storedStates = 0;
+    Optional<CompletableFuture<BeaconState>> next = states.take();
+    while (next.isPresent()) {
+      batch.add(getState(next.get()));
+      if (batch.size() >= statesPerCommit) {
+        storedStates += commit(batch, baseSlot, startTimeNanos);
+      }
+      next = states.take();
+    }
+    storedStates += commit(batch, baseSlot, startTimeNanos);
+    clearProgress();
+    return storedStates;
+  }
+
+  private int commit(
+      final List<BeaconState> batch, final UInt64 baseSlot, final long startTimeNanos) {
+    if (batch.isEmpty()) {
+      return 0;
+    }
+    final int count = batch.size();
+    final UInt64 lastSlot = batch.get(count - 1).getSlot();
+    database.storeReconstructedFinalizedStates(batch);
+    saveProgress(lastSlot);
+    batch.clear();
+
+    final double elapsedSeconds = (System.nanoTime() - startTimeNanos) / 1_000_000_000d;
+    LOG.info(
+        "Stored regenerated states up to slot {} ({} slots/s)",
+        lastSlot,
+        String.format("%.1f", lastSlot.minus(baseSlot).doubleValue() / elapsedSeconds));
+    return count;
+  }
+
+  private BeaconState getState(final CompletableFuture<BeaconState> future) {
+    try {
+      return future.join();
+    } catch (final CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  private Optional<UInt64> loadProgress() {
+    if (!Files.exists(progressFile)) {
+      return Optional.empty();
+    }
+    try {
+      return Optional.of(
+          UInt64.valueOf(Files.readString(progressFile, StandardCharsets.UTF_8).trim()));
+    } catch (final IOException e) {
+      throw new UncheckedIOException("Failed to read progress from " + progressFile, e);
+    }
+  }
+
+  private void saveProgress(final UInt64 slot) {
+    try {
+      Files.writeString(progressFile, slot.toString(), StandardCharsets.UTF_8);
+    } catch (final IOException e) {
+      throw new UncheckedIOException("Failed to write progress to " + progressFile, e);
+    }
+  }
+
+  private void clearProgress() {
+    try {
+      Files.deleteIfExists(progressFile);
+    } catch (final IOException e) {
+      throw new UncheckedIOException("Failed to delete progress file " + progressFile, e);
+    }
+  }
+
+  private static <T> void put(final BlockingQueue<T> queue, final T item) {
+    try {
+      queue.put(item);
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while regenerating states", e);
+    }
+  }
+
+  private static ThreadFactory threadFactory(final String stage) {
+    return new ThreadFactoryBuilder()
+        .setNameFormat("reconstruct-" + stage + "-%d")
+        .setDaemon(true)
+        .build();
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2022 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package tech.pegasys.teku.storage.server.state;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import tech.pegasys.teku.infrastructure.unsigned.UInt64;
+
+/**
+ * Decides which intermediate states produced while regenerating finalized states are worth keeping
+ * as anchors for later regenerations.
+ *
+ * <p>Queries are counted per region of {@link #REGION_EPOCHS} epochs and all counts are halved
+ * every {@link #DECAY_INTERVAL} queries, so the counts follow the recent query pattern. The more
+ * queries hit a region, the shorter the replay accepted from an anchor in it: an epoch boundary
+ * state is retained when the estimated cost of replaying to it from the previous anchor reaches the
+ * target cost of its region. Anchors are therefore spaced densely where states are requested often
+ * and sparsely (or not at all) elsewhere.
+ */
+class StateRegenerationPlanner {
+  static final int REGION_EPOCHS = 32;
+  static final int DECAY_INTERVAL = 1024;
+  /** Estimated cost of an epoch transition relative to processing a single slot */
+  static final int EPOCH_TRANSITION_COST = 8;
+  /** Target cost for regions without queries, as a number of epochs to replay */
+  static final int MAX_TARGET_EPOCHS = 64;
+
+  private final int slotsPerEpoch;
+  private final long maxTargetCost;
+  private final long minTargetCost;
+  private final Map<Long, Long> queryCountsByRegion = new HashMap<>();
+  private int queriesSinceDecay = 0;
+
+  StateRegenerationPlanner(final int slotsPerEpoch) {
+    this.slotsPerEpoch = slotsPerEpoch;
+    final long epochCost = slotsPerEpoch + EPOCH_TRANSITION_COST;
+    this.maxTargetCost = MAX_TARGET_EPOCHS * epochCost;
+    this.minTargetCost = epochCost;
+  }
+
+  synchronized void onQuery(final UInt64 slot) {
+    queryCountsByRegion.merge(getRegion(slot), 1L, Long::sum);
+    queriesSinceDecay++;
+    if (queriesSinceDecay >= DECAY_INTERVAL) {
+      queriesSinceDecay = 0;
+      final Iterator<Map.Entry<Long, Long>> iterator = queryCountsByRegion.entrySet().iterator();
+      while (iterator.hasNext()) {
+        final Map.Entry<Long, Long> entry = iterator.next();
+        if (entry.getValue() <= 1) {
+          iterator.remove();
+        } else {
+          entry.setValue(entry.getValue() / 2);
+        }
+      }
+    }
+  }
+
+  synchronized long getQueryCount(final UInt64 slot) {
+    return queryCountsByRegion.getOrDefault(getRegion(slot), 0L);
+  }
+
+  /** Estimates the cost of regenerating the state at {@code toSlot} from {@code fromSlot} */
+  long estimateReplayCost(final UInt64 fromSlot, final UInt64 toSlot) {
+    if (toSlot.isLessThanOrEqualTo(fromSlot)) {
+      return 0;
+    }
+    final long slots = toSlot.minus(fromSlot).longValue();
+    final long epochTransitions =
+        toSlot.dividedBy(slotsPerEpoch).minus(fromSlot.dividedBy(slotsPerEpoch)).longValue();
+    return slots + epochTransitions * EPOCH_TRANSITION_COST;
+  }
+
+  long getTargetReplayCost(final UInt64 slot) {
+    return Math.max(minTargetCost, maxTargetCost / (1 + getQueryCount(slot)));
+  }
+
+  /**
+   * Returns true if the state at {@code slot} should be kept as an anchor given that the closest
+   * earlier anchor is at {@code previousAnchorSlot}
+   */
+  boolean shouldRetainAnchor(final UInt64 previousAnchorSlot, final UInt64 slot) {
+    return estimateReplayCost(previousAnchorSlot, slot) >= getTargetReplayCost(slot);
+  }
+
+  private long getRegion(final UInt64 slot) {
+    return slot.dividedBy(slotsPerEpoch).dividedBy(REGION_EPOCHS).longValue();
+  }
+}
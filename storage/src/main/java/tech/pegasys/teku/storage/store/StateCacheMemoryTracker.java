@@ -0,0 +1,154 @@
+/*
+ * Copyright 2022 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package tech.pegasys.teku.storage.store;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hyperledger.besu.plugin.services.MetricsSystem;
+import org.hyperledger.besu.plugin.services.metrics.LabelledGauge;
+import tech.pegasys.teku.infrastructure.async.AsyncRunner;
+import tech.pegasys.teku.infrastructure.async.SafeFuture;
+import tech.pegasys.teku.infrastructure.metrics.TekuMetricCategory;
+import tech.pegasys.teku.infrastructure.ssz.tree.TreeMemoryEstimator;
+import tech.pegasys.teku.infrastructure.ssz.tree.TreeNode;
+
+/**
+ * Estimates the heap retained by the states held in the in-memory caches.
+ *
+ * <p>States share most of their backing tree nodes, so the size of a cache can't be derived from
+ * the number of entries. For every cache the following values are reported:
+ *
+ * <ul>
+ *   <li><code>retained</code> - bytes retained by the cache, with every node counted once
+ *   <li><code>unique</code> - bytes which would be freed if the cache was cleared, i.e. the nodes
+ *       which are not referenced by any other cache
+ *   <li><code>shared</code> - bytes of the nodes also referenced by other caches
+ * </ul>
+ *
+ * <p>The total for all the caches is reported with the <code>all</code> cache label. Walking the
+ * trees is relatively expensive, so the estimates are recalculated by a background task every
+ * {@link #UPDATE_INTERVAL_SECONDS} and the metrics report the latest results. All the values are
+ * derived from a single walk which records the caches referencing every node.
+ */
+class StateCacheMemoryTracker {
+  private static final Logger LOG = LogManager.getLogger();
+
+  static final long UPDATE_INTERVAL_SECONDS = 60;
+  static final String ALL_CACHES_LABEL = "all";
+  static final String RETAINED = "retained";
+  static final String UNIQUE = "unique";
+  static final String SHARED = "shared";
+  // Caches are tracked as bits of an int mask
+  private static final int MAX_CACHES = Integer.SIZE - 1;
+
+  private final AsyncRunner asyncRunner;
+  private final Map<String, Supplier<List<TreeNode>>> caches = new LinkedHashMap<>();
+  private volatile Map<List<String>, Long> memoryUsage = Map.of();
+
+  StateCacheMemoryTracker(final AsyncRunner asyncRunner) {
+    this.asyncRunner = asyncRunner;
+  }
+
+  void addCache(final String name, final Supplier<List<TreeNode>> cachedStateRoots) {
+    if (caches.size() >= MAX_CACHES) {
+      throw new IllegalStateException("Too many caches tracked");
+    }
+    caches.put(name, cachedStateRoots);
+  }
+
+  void startMetrics(final MetricsSystem metricsSystem) {
+    final LabelledGauge gauge =
+        metricsSystem.createLabelledGauge(
+            TekuMetricCategory.STORAGE,
+            "memory_state_cache_bytes",
+            "Estimated heap retained by the states held in the in-memory caches",
+            "cache",
+            "type");
+    gauge.labels(() -> getBytes(ALL_CACHES_LABEL, RETAINED), ALL_CACHES_LABEL, RETAINED);
+    for (String cacheName : caches.keySet()) {
+      for (String type : List.of(RETAINED, UNIQUE, SHARED)) {
+        gauge.labels(() -> getBytes(cacheName, type), cacheName, type);
+      }
+    }
+    asyncRunner.runWithFixedDelay(
+        () -> SafeFuture.fromRunnable(this::update),
+        Duration.ZERO,
+        Duration.ofSeconds(UPDATE_INTERVAL_SECONDS),
+        error -> LOG.debug("Failed to estimate the memory retained by state caches", error));
+  }
+
+  long getBytes(final String cacheName, final String type) {
+    return memoryUsage.getOrDefault(List.of(cacheName, type), 0L);
+  }
+
+  void update() {
+    memoryUsage = calculate();
+  }
+
+  Map<List<String>, Long> calculate() {
+    final List<String> cacheNames = new ArrayList<>(caches.keySet());
+    final Map<TreeNode, Integer> cachesByNode = new IdentityHashMap<>();
+    for (int i = 0; i < cacheNames.size(); i++) {
+      final int cacheBit = 1 << i;
+      for (TreeNode root : caches.get(cacheNames.get(i)).get()) {
+        TreeMemoryEstimator.visitNodes(
+            root,
+            node -> {
+              final int cacheMask = cachesByNode.getOrDefault(node, 0);
+              if ((cacheMask & cacheBit) != 0) {
+                // all the subtree of a marked node is marked as well
+                return false;
+              }
+              cachesByNode.put(node, cacheMask | cacheBit);
+              return true;
+            });
+      }
+    }
+
+    final long[] retainedBytes = new long[cacheNames.size()];
+    final long[] uniqueBytes = new long[cacheNames.size()];
+    long totalBytes = 0;
+    for (Map.Entry<TreeNode, Integer> entry : cachesByNode.entrySet()) {
+      final long nodeBytes = TreeMemoryEstimator.estimateNodeSize(entry.getKey());
+      final int cacheMask = entry.getValue();
+      totalBytes += nodeBytes;
+      for (int i = 0; i < cacheNames.size(); i++) {
+        if ((cacheMask & (1 << i)) != 0) {
+          retainedBytes[i] += nodeBytes;
+        }
+      }
+      if (Integer.bitCount(cacheMask) == 1) {
+        uniqueBytes[Integer.numberOfTrailingZeros(cacheMask)] += nodeBytes;
+      }
+    }
+
+    final Map<List<String>, Long> result = new HashMap<>();
+    result.put(List.of(ALL_CACHES_LABEL, RETAINED), totalBytes);
+    for (int i = 0; i < cacheNames.size(); i++) {
+      final String cacheName = cacheNames.get(i);
+      result.put(List.of(cacheName, RETAINED), retainedBytes[i]);
+      result.put(List.of(cacheName, UNIQUE), uniqueBytes[i]);
+      result.put(List.of(cacheName, SHARED), retainedBytes[i] - uniqueBytes[i]);
+    }
+    return result;
+  }
+}
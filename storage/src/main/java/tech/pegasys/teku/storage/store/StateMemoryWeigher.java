@@ -0,0 +1,92 @@
+/*
+ * Copyright 2022 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package tech.pegasys.teku.storage.store;
+
+import com.google.common.cache.Weigher;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.apache.tuweni.bytes.Bytes32;
+import tech.pegasys.teku.infrastructure.ssz.tree.TreeMemoryEstimator;
+import tech.pegasys.teku.infrastructure.ssz.tree.TreeNode;
+import tech.pegasys.teku.spec.datastructures.blocks.StateAndBlockSummary;
+import tech.pegasys.teku.spec.datastructures.state.beaconstate.BeaconState;
+
+/**
+ * Weighs cached states by the estimated heap they add on top of a cached reference state (e.g. the
+ * parent block state), so that a byte budget can be applied to caches of states which share most
+ * of their backing tree nodes.
+ *
+ * <p>The block root of the reference each state was weighed against is recorded, so the states
+ * weighed against a reference which is then evicted can be weighed again against another cached
+ * state. Only states without any cached reference state are weighed by their full size. Weights
+ * are expressed in units of {@link #BYTES_PER_WEIGHT_UNIT} bytes.
+ */
+class StateMemoryWeigher<K, V> implements Weigher<K, V> {
+  static final long BYTES_PER_WEIGHT_UNIT = 1024;
+
+  private final Function<V, BeaconState> stateExtractor;
+  private final BiFunction<K, V, Optional<StateAndBlockSummary>> referenceStateProvider;
+  private final Map<K, Bytes32> referenceRoots = new ConcurrentHashMap<>();
+
+  StateMemoryWeigher(
+      final Function<V, BeaconState> stateExtractor,
+      final BiFunction<K, V, Optional<StateAndBlockSummary>> referenceStateProvider) {
+    this.stateExtractor = stateExtractor;
+    this.referenceStateProvider = referenceStateProvider;
+  }
+
+  static long toMaxWeight(final long maxBytes) {
+    return Math.max(1, maxBytes / BYTES_PER_WEIGHT_UNIT);
+  }
+
+  static int toWeight(final long bytes) {
+    final long weight = (bytes + BYTES_PER_WEIGHT_UNIT - 1) / BYTES_PER_WEIGHT_UNIT;
+    return (int) Math.min(Integer.MAX_VALUE, Math.max(1, weight));
+  }
+
+  @Override
+  public int weigh(final K key, final V value) {
+    final TreeNode root = stateExtractor.apply(value).getBackingNode();
+    final Optional<StateAndBlockSummary> reference = referenceStateProvider.apply(key, value);
+    final long bytes;
+    if (reference.isPresent()) {
+      referenceRoots.put(key, reference.get().getRoot());
+      bytes =
+          TreeMemoryEstimator.estimateRetainedSize(
+              root, reference.get().getState().getBackingNode());
+    } else {
+      referenceRoots.remove(key);
+      bytes = TreeMemoryEstimator.estimateRetainedSize(root);
+    }
+    return toWeight(bytes);
+  }
+
+  /** Forgets the reference of a state removed from the cache */
+  void onRemoved(final K key) {
+    referenceRoots.remove(key);
+  }
+
+  /** Returns the keys of the states weighed against the state of the specified block */
+  List<K> getKeysWeighedAgainst(final Bytes32 referenceRoot) {
+    return referenceRoots.entrySet().stream()
+        .filter(entry -> entry.getValue().equals(referenceRoot))
+        .map(Map.Entry::getKey)
+        .collect(Collectors.toList());
+  }
+}
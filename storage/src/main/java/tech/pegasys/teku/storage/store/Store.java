@@ -30,6 +30,7 @@ import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.tuweni.bytes.Bytes32;
@@ -94,6 +95,7 @@ class Store implements UpdatableStore {
   final CachingTaskQueue<Bytes32, StateAndBlockSummary> states;
   final Map<Bytes32, SignedBeaconBlock> blocks;
   final CachingTaskQueue<SlotAndBlockRoot, BeaconState> checkpointStates;
+  private final Optional<StateCacheMemoryTracker> stateCacheMemoryTracker;
   VoteTracker[] votes;
   UInt64 highestVotedValidatorIndex;
 
@@ -114,7 +116,8 @@ class Store implements UpdatableStore {
       final ForkChoiceStrategy forkChoiceStrategy,
       final Map<UInt64, VoteTracker> votes,
       final Map<Bytes32, SignedBeaconBlock> blocks,
-      final CachingTaskQueue<SlotAndBlockRoot, BeaconState> checkpointStates) {
+      final CachingTaskQueue<SlotAndBlockRoot, BeaconState> checkpointStates,
+      final Optional<StateCacheMemoryTracker> stateCacheMemoryTracker) {
     checkArgument(
         time.isGreaterThanOrEqualTo(genesisTime),
         "Time must be greater than or equal to genesisTime");
@@ -129,6 +132,7 @@ class Store implements UpdatableStore {
     this.spec = spec;
     this.states = states;
     this.checkpointStates = checkpointStates;
+    this.stateCacheMemoryTracker = stateCacheMemoryTracker;
 
     // Store instance variables
     this.initialCheckpoint = initialCheckpoint;
@@ -182,21 +186,23 @@ class Store implements UpdatableStore {
     // Create limited collections for non-final data
     final Map<Bytes32, SignedBeaconBlock> blocks =
         LimitedMap.createSynchronized(config.getBlockCacheSize());
-    final CachingTaskQueue<SlotAndBlockRoot, BeaconState> checkpointStateTaskQueue =
-        CachingTaskQueue.create(
-            asyncRunner,
-            metricsSystem,
-            "memory_checkpoint_states",
-            config.getCheckpointStateCacheSize());
     final CachingTaskQueue<Bytes32, StateAndBlockSummary> stateTaskQueue =
-        CachingTaskQueue.create(
-            asyncRunner, metricsSystem, "memory_states", config.getStateCacheSize());
+        createStateTaskQueue(asyncRunner, metricsSystem, config);
+    final CachingTaskQueue<SlotAndBlockRoot, BeaconState> checkpointStateTaskQueue =
+        createCheckpointStateTaskQueue(asyncRunner, metricsSystem, config, stateTaskQueue);
+    final Optional<StateCacheMemoryTracker> stateCacheMemoryTracker =
+        config.isStateCacheMemoryMetricsEnabled()
+            ? Optional.of(
+                createStateCacheMemoryTracker(
+                    asyncRunner, stateTaskQueue, checkpointStateTaskQueue))
+            : Optional.empty();
 
     final ForkChoiceStrategy forkChoiceStrategy =
         ForkChoiceStrategy.initialize(
             spec,
             buildProtoArray(
-                spec, blockInfoByRoot, initialCheckpoint, justifiedCheckpoint, finalizedAnchor));
+                spec, blockInfoByRoot, initialCheckpoint, justifiedCheckpoint, finalizedAnchor),
+            votes);
 
     return new Store(
         metricsSystem,
@@ -215,7 +221,107 @@ class Store implements UpdatableStore {
         forkChoiceStrategy,
         votes,
         blocks,
-        checkpointStateTaskQueue);
+        checkpointStateTaskQueue,
+        stateCacheMemoryTracker);
+  }
+
+  private static CachingTaskQueue<Bytes32, StateAndBlockSummary> createStateTaskQueue(
+      final AsyncRunner asyncRunner, final MetricsSystem metricsSystem, final StoreConfig config) {
+    if (config.getStateCacheMaxBytes() <= 0) {
+      return CachingTaskQueue.create(
+          asyncRunner, metricsSystem, "memory_states", config.getStateCacheSize());
+    }
+    // States are weighed against their parent state which is looked up in the same queue, or
+    // against the latest cached state before it once the parent state is no longer cached
+    final AtomicReference<CachingTaskQueue<Bytes32, StateAndBlockSummary>> queue =
+        new AtomicReference<>();
+    final StateMemoryWeigher<Bytes32, StateAndBlockSummary> weigher =
+        new StateMemoryWeigher<>(
+            StateAndBlockSummary::getState,
+            (blockRoot, stateAndBlock) ->
+                queue
+                    .get()
+                    .getIfAvailable(stateAndBlock.getParentRoot())
+                    .or(() -> getLatestCachedStateBefore(queue.get(), stateAndBlock.getSlot())));
+    queue.set(
+        CachingTaskQueue.createWeighted(
+            asyncRunner,
+            metricsSystem,
+            "memory_states",
+            StateMemoryWeigher.toMaxWeight(config.getStateCacheMaxBytes()),
+            weigher));
+    queue
+        .get()
+        .subscribeRemovals(
+            blockRoot -> {
+              weigher.onRemoved(blockRoot);
+              weigher.getKeysWeighedAgainst(blockRoot).forEach(queue.get()::reweigh);
+            });
+    return queue.get();
+  }
+
+  private static CachingTaskQueue<SlotAndBlockRoot, BeaconState> createCheckpointStateTaskQueue(
+      final AsyncRunner asyncRunner,
+      final MetricsSystem metricsSystem,
+      final StoreConfig config,
+      final CachingTaskQueue<Bytes32, StateAndBlockSummary> stateTaskQueue) {
+    if (config.getCheckpointStateCacheMaxBytes() <= 0) {
+      return CachingTaskQueue.create(
+          asyncRunner,
+          metricsSystem,
+          "memory_checkpoint_states",
+          config.getCheckpointStateCacheSize());
+    }
+    // Checkpoint states are weighed against the state of the checkpoint block, or against the
+    // latest cached block state up to its slot once it is no longer cached
+    final StateMemoryWeigher<SlotAndBlockRoot, BeaconState> weigher =
+        new StateMemoryWeigher<>(
+            state -> state,
+            (slotAndBlockRoot, state) ->
+                stateTaskQueue
+                    .getIfAvailable(slotAndBlockRoot.getBlockRoot())
+                    .or(
+                        () ->
+                            getLatestCachedStateBefore(
+                                stateTaskQueue, slotAndBlockRoot.getSlot().plus(1))));
+    final CachingTaskQueue<SlotAndBlockRoot, BeaconState> queue =
+        CachingTaskQueue.createWeighted(
+            asyncRunner,
+            metricsSystem,
+            "memory_checkpoint_states",
+            StateMemoryWeigher.toMaxWeight(config.getCheckpointStateCacheMaxBytes()),
+            weigher);
+    queue.subscribeRemovals(weigher::onRemoved);
+    stateTaskQueue.subscribeRemovals(
+        blockRoot -> weigher.getKeysWeighedAgainst(blockRoot).forEach(queue::reweigh));
+    return queue;
+  }
+
+  private static Optional<StateAndBlockSummary> getLatestCachedStateBefore(
+      final CachingTaskQueue<Bytes32, StateAndBlockSummary> stateTaskQueue, final UInt64 slot) {
+    return stateTaskQueue.getCachedValues().stream()
+        .filter(stateAndBlock -> stateAndBlock.getSlot().isLessThan(slot))
+        .max(Comparator.comparing(StateAndBlockSummary::getSlot));
+  }
+
+  private static StateCacheMemoryTracker createStateCacheMemoryTracker(
+      final AsyncRunner asyncRunner,
+      final CachingTaskQueue<Bytes32, StateAndBlockSummary> states,
+      final CachingTaskQueue<SlotAndBlockRoot, BeaconState> checkpointStates) {
+    final StateCacheMemoryTracker memoryTracker = new StateCacheMemoryTracker(asyncRunner);
+    memoryTracker.addCache(
+        "states",
+        () ->
+            states.getCachedValues().stream()
+                .map(stateAndBlock -> stateAndBlock.getState().getBackingNode())
+                .collect(Collectors.toList()));
+    memoryTracker.addCache(
+        "checkpoint_states",
+        () ->
+            checkpointStates.getCachedValues().stream()
+                .map(BeaconState::getBackingNode)
+                .collect(Collectors.toList()));
+    return memoryTracker;
   }
 
   private static ProtoArray buildProtoArray(
@@ -269,6 +375,7 @@ class Store implements UpdatableStore {
                   "Number of beacon blocks held in the in-memory store"));
       states.startMetrics();
       checkpointStates.startMetrics();
+      stateCacheMemoryTracker.ifPresent(tracker -> tracker.startMetrics(metricsSystem));
     } finally {
       lock.writeLock().unlock();
     }
@@ -26,21 +26,34 @@ public class StoreConfig {
   public static final int DEFAULT_BLOCK_CACHE_SIZE = DEFAULT_STATE_CACHE_SIZE * 2;
   public static final int DEFAULT_CHECKPOINT_STATE_CACHE_SIZE = 20;
   public static final int DEFAULT_HOT_STATE_PERSISTENCE_FREQUENCY_IN_EPOCHS = 2;
+  // Zero means caches are limited by the number of entries only
+  public static final long DEFAULT_STATE_CACHE_MAX_BYTES = 0;
+  public static final long DEFAULT_CHECKPOINT_STATE_CACHE_MAX_BYTES = 0;
+  public static final boolean DEFAULT_STATE_CACHE_MEMORY_METRICS_ENABLED = false;
 
   private final int stateCacheSize;
   private final int blockCacheSize;
   private final int checkpointStateCacheSize;
   private final int hotStatePersistenceFrequencyInEpochs;
+  private final long stateCacheMaxBytes;
+  private final long checkpointStateCacheMaxBytes;
+  private final boolean stateCacheMemoryMetricsEnabled;
 
   private StoreConfig(
       final int stateCacheSize,
       final int blockCacheSize,
       final int checkpointStateCacheSize,
-      final int hotStatePersistenceFrequencyInEpochs) {
+      final int hotStatePersistenceFrequencyInEpochs,
+      final long stateCacheMaxBytes,
+      final long checkpointStateCacheMaxBytes,
+      final boolean stateCacheMemoryMetricsEnabled) {
     this.stateCacheSize = stateCacheSize;
     this.blockCacheSize = blockCacheSize;
     this.checkpointStateCacheSize = checkpointStateCacheSize;
     this.hotStatePersistenceFrequencyInEpochs = hotStatePersistenceFrequencyInEpochs;
+    this.stateCacheMaxBytes = stateCacheMaxBytes;
+    this.checkpointStateCacheMaxBytes = checkpointStateCacheMaxBytes;
+    this.stateCacheMemoryMetricsEnabled = stateCacheMemoryMetricsEnabled;
   }
 
   public static Builder builder() {
@@ -67,6 +80,30 @@ public class StoreConfig {
     return hotStatePersistenceFrequencyInEpochs;
   }
 
+  /**
+   * The estimated heap limit for the states cache taking into account the nodes shared between
+   * states. When positive it replaces the limit by the number of states.
+   */
+  public long getStateCacheMaxBytes() {
+    return stateCacheMaxBytes;
+  }
+
+  /**
+   * The estimated heap limit for the checkpoint states cache taking into account the nodes shared
+   * with the regular states. When positive it replaces the limit by the number of states.
+   */
+  public long getCheckpointStateCacheMaxBytes() {
+    return checkpointStateCacheMaxBytes;
+  }
+
+  /**
+   * Whether the heap retained by the state caches is estimated and reported as metrics. Estimating
+   * walks all the cached state trees periodically, so it is disabled by default.
+   */
+  public boolean isStateCacheMemoryMetricsEnabled() {
+    return stateCacheMemoryMetricsEnabled;
+  }
+
   @Override
   public boolean equals(final Object o) {
     if (this == o) {
@@ -79,7 +116,10 @@ public class StoreConfig {
     return stateCacheSize == that.stateCacheSize
         && blockCacheSize == that.blockCacheSize
         && checkpointStateCacheSize == that.checkpointStateCacheSize
-        && hotStatePersistenceFrequencyInEpochs == that.hotStatePersistenceFrequencyInEpochs;
+        && hotStatePersistenceFrequencyInEpochs == that.hotStatePersistenceFrequencyInEpochs
+        && stateCacheMaxBytes == that.stateCacheMaxBytes
+        && checkpointStateCacheMaxBytes == that.checkpointStateCacheMaxBytes
+        && stateCacheMemoryMetricsEnabled == that.stateCacheMemoryMetricsEnabled;
   }
 
   @Override
@@ -88,7 +128,10 @@ public class StoreConfig {
         stateCacheSize,
         blockCacheSize,
         checkpointStateCacheSize,
-        hotStatePersistenceFrequencyInEpochs);
+        hotStatePersistenceFrequencyInEpochs,
+        stateCacheMaxBytes,
+        checkpointStateCacheMaxBytes,
+        stateCacheMemoryMetricsEnabled);
   }
 
   public static class Builder {
@@ -97,6 +140,9 @@ public class StoreConfig {
     private int checkpointStateCacheSize = DEFAULT_CHECKPOINT_STATE_CACHE_SIZE;
     private int hotStatePersistenceFrequencyInEpochs =
         DEFAULT_HOT_STATE_PERSISTENCE_FREQUENCY_IN_EPOCHS;
+    private long stateCacheMaxBytes = DEFAULT_STATE_CACHE_MAX_BYTES;
+    private long checkpointStateCacheMaxBytes = DEFAULT_CHECKPOINT_STATE_CACHE_MAX_BYTES;
+    private boolean stateCacheMemoryMetricsEnabled = DEFAULT_STATE_CACHE_MEMORY_METRICS_ENABLED;
 
     private Builder() {}
 
@@ -105,7 +151,10 @@ public class StoreConfig {
           stateCacheSize,
           blockCacheSize,
           checkpointStateCacheSize,
-          hotStatePersistenceFrequencyInEpochs);
+          hotStatePersistenceFrequencyInEpochs,
+          stateCacheMaxBytes,
+          checkpointStateCacheMaxBytes,
+          stateCacheMemoryMetricsEnabled);
     }
 
     public Builder stateCacheSize(final int stateCacheSize) {
@@ -138,6 +187,23 @@ public class StoreConfig {
       return this;
     }
 
+    public Builder stateCacheMaxBytes(final long stateCacheMaxBytes) {
+      checkArgument(stateCacheMaxBytes >= 0, "Cache memory limit cannot be negative");
+      this.stateCacheMaxBytes = stateCacheMaxBytes;
+      return this;
+    }
+
+    public Builder checkpointStateCacheMaxBytes(final long checkpointStateCacheMaxBytes) {
+      checkArgument(checkpointStateCacheMaxBytes >= 0, "Cache memory limit cannot be negative");
+      this.checkpointStateCacheMaxBytes = checkpointStateCacheMaxBytes;
+      return this;
+    }
+
+    public Builder stateCacheMemoryMetricsEnabled(final boolean stateCacheMemoryMetricsEnabled) {
+      this.stateCacheMemoryMetricsEnabled = stateCacheMemoryMetricsEnabled;
+      return this;
+    }
+
     private void validateCacheSize(final int cacheSize) {
       checkArgument(cacheSize >= 0, "Cache size cannot be negative");
       checkArgument(
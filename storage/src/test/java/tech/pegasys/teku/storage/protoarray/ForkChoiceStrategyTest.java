@@ -42,7 +42,6 @@ import tech.pegasys.teku.spec.datastructures.forkchoice.ProtoNodeData;
 import tech.pegasys.teku.spec.datastructures.forkchoice.ReadOnlyForkChoiceStrategy;
 import tech.pegasys.teku.spec.datastructures.forkchoice.TestStoreFactory;
 import tech.pegasys.teku.spec.datastructures.forkchoice.TestStoreImpl;
-import tech.pegasys.teku.spec.datastructures.forkchoice.VoteTracker;
 import tech.pegasys.teku.spec.datastructures.forkchoice.VoteUpdater;
 import tech.pegasys.teku.spec.datastructures.state.AnchorPoint;
 import tech.pegasys.teku.spec.datastructures.state.Checkpoint;
@@ -399,8 +398,7 @@ public class ForkChoiceStrategyTest extends AbstractBlockMetadataStoreTest {
 
     // Mark our Validator as going to be equivocated like when AttesterSlashing received
     final VoteUpdater transaction2 = storageSystem.recentChainData().startVoteUpdate();
-    VoteTracker voteTracker = transaction2.getVote(ZERO);
-    transaction2.putVote(ZERO, voteTracker.createNextEquivocating());
+    strategy.applyEquivocatingIndices(transaction2, List.of(ZERO));
     transaction2.commit();
 
     final SignedBlockAndState block2 = storageSystem.chainUpdater().addNewBestBlock();
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2022 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package tech.pegasys.teku.storage.protoarray;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static tech.pegasys.teku.storage.protoarray.ProtoArrayNodes.NO_NODE;
+
+import java.util.Optional;
+import org.apache.tuweni.bytes.Bytes32;
+import org.junit.jupiter.api.Test;
+import tech.pegasys.teku.infrastructure.unsigned.UInt64;
+import tech.pegasys.teku.spec.Spec;
+import tech.pegasys.teku.spec.TestSpecFactory;
+import tech.pegasys.teku.spec.util.DataStructureUtil;
+
+public class ProtoArrayNodesTest {
+  private final Spec spec = TestSpecFactory.createMinimalPhase0();
+  private final DataStructureUtil dataStructureUtil = new DataStructureUtil(spec);
+  private final ProtoArrayNodes nodes = new ProtoArrayNodes();
+
+  @Test
+  void add_shouldStoreNodeFields() {
+    final Bytes32 stateRoot = dataStructureUtil.randomBytes32();
+    final Bytes32 blockRoot = dataStructureUtil.randomBytes32();
+    final Bytes32 parentRoot = dataStructureUtil.randomBytes32();
+    final Bytes32 executionBlockHash = dataStructureUtil.randomBytes32();
+    final int index =
+        nodes.add(
+            UInt64.valueOf(5),
+            stateRoot,
+            blockRoot,
+            parentRoot,
+            NO_NODE,
+            UInt64.valueOf(1),
+            UInt64.valueOf(2),
+            executionBlockHash,
+            ProtoNodeValidationStatus.OPTIMISTIC);
+    nodes.adjustWeight(index, 10);
+
+    assertThat(nodes.toProtoNode(index))
+        .isEqualTo(
+            new ProtoNode(
+                UInt64.valueOf(5),
+                stateRoot,
+                blockRoot,
+                parentRoot,
+                Optional.empty(),
+                UInt64.valueOf(1),
+                UInt64.valueOf(2),
+                executionBlockHash,
+                UInt64.valueOf(10),
+                Optional.empty(),
+                Optional.empty(),
+                ProtoNodeValidationStatus.OPTIMISTIC));
+    assertThat(nodes.hasExecutionBlockHash(index, executionBlockHash)).isTrue();
+    assertThat(nodes.hasZeroExecutionBlockHash(index)).isFalse();
+  }
+
+  @Test
+  void adjustWeight_shouldRejectRemovingMoreThanWeight() {
+    final int index = addNode(Bytes32.ZERO, NO_NODE);
+    nodes.adjustWeight(index, 10);
+
+    assertThatThrownBy(() -> nodes.adjustWeight(index, -11))
+        .isInstanceOf(RuntimeException.class)
+        .hasMessageContaining("Delta to be subtracted is greater than node weight");
+    assertThat(nodes.getWeight(index)).isEqualTo(10);
+  }
+
+  @Test
+  void compareBlockRoots_shouldMatchHexStringOrder() {
+    final Bytes32 root1 = Bytes32.fromHexString("0x7f" + "00".repeat(31));
+    final Bytes32 root2 = Bytes32.fromHexString("0x80" + "00".repeat(31));
+    final int index1 = addNode(root1, NO_NODE);
+    final int index2 = addNode(root2, NO_NODE);
+
+    assertThat(Integer.signum(nodes.compareBlockRoots(index1, index2)))
+        .isEqualTo(Integer.signum(root1.toHexString().compareTo(root2.toHexString())));
+    assertThat(nodes.compareBlockRoots(index2, index2)).isZero();
+  }
+
+  @Test
+  void removeFirst_shouldOffsetIndicesOfRemainingNodes() {
+    final int index0 = addNode(dataStructureUtil.randomBytes32(), NO_NODE);
+    final int index1 = addNode(dataStructureUtil.randomBytes32(), index0);
+    final Bytes32 root2 = dataStructureUtil.randomBytes32();
+    final int index2 = addNode(root2, index1);
+    final int index3 = addNode(dataStructureUtil.randomBytes32(), index2);
+    nodes.setBestChildAndDescendant(index2, index3, index3);
+
+    nodes.removeFirst(2);
+
+    assertThat(nodes.size()).isEqualTo(2);
+    assertThat(nodes.getBlockRoot(0)).isEqualTo(root2);
+    assertThat(nodes.getParentIndex(0)).isEqualTo(NO_NODE);
+    assertThat(nodes.getParentIndex(1)).isEqualTo(0);
+    assertThat(nodes.getBestChildIndex(0)).isEqualTo(1);
+    assertThat(nodes.getBestDescendantIndex(0)).isEqualTo(1);
+  }
+
+  private int addNode(final Bytes32 blockRoot, final int parentIndex) {
+    return nodes.add(
+        UInt64.ONE,
+        Bytes32.ZERO,
+        blockRoot,
+        Bytes32.ZERO,
+        parentIndex,
+        UInt64.ZERO,
+        UInt64.ZERO,
+        Bytes32.ZERO,
+        ProtoNodeValidationStatus.VALID);
+  }
+}
@@ -15,10 +15,11 @@ package tech.pegasys.teku.storage.protoarray;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static tech.pegasys.teku.infrastructure.unsigned.UInt64.ZERO;
-import static tech.pegasys.teku.storage.protoarray.ProtoArrayScoreCalculator.computeDeltas;
+import static tech.pegasys.teku.storage.protoarray.ProtoArrayTestUtil.computeDeltas;
 import static tech.pegasys.teku.storage.protoarray.ProtoArrayTestUtil.createStoreToManipulateVotes;
 import static tech.pegasys.teku.storage.protoarray.ProtoArrayTestUtil.getHash;
 
+import it.unimi.dsi.fastutil.longs.LongList;
 import it.unimi.dsi.fastutil.objects.Object2IntMap;
 import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 import java.util.ArrayList;
@@ -581,6 +582,54 @@ public class ProtoArrayScoreCalculatorTest {
     }
   }
 
+  @Test
+  void computeDeltas_shouldCombineDeltasComputedInParallel() {
+    final int validatorCount = ProtoArrayScoreCalculator.PARALLEL_THRESHOLD + 1;
+    final int nodeCount = 4;
+    final ProtoArrayVotes votes = new ProtoArrayVotes();
+    final long[] balances = new long[validatorCount];
+    final long[] expectedDeltas = new long[nodeCount];
+    for (int i = 0; i < validatorCount; i++) {
+      final int nodeIndex = i % nodeCount;
+      final Bytes32 root = getHash(nodeIndex);
+      votes.setVote(
+          i,
+          new VoteTracker(Bytes32.ZERO, root, ZERO),
+          voteRoot -> voteRoot.equals(root) ? nodeIndex : ProtoArrayVotes.NO_NODE);
+      balances[i] = i;
+      expectedDeltas[nodeIndex] += i;
+    }
+
+    final LongList deltas =
+        ProtoArrayScoreCalculator.computeDeltas(
+            votes,
+            store,
+            nodeCount,
+            this::getIndex,
+            new long[0],
+            balances,
+            oldProposerBoostRoot,
+            newProposerBoostRoot,
+            oldProposerBoostAmount,
+            newProposerBoostAmount);
+    assertThat(deltas.toLongArray()).containsExactly(expectedDeltas);
+
+    // Votes have been applied so nothing changes if balances stay the same
+    final LongList secondDeltas =
+        ProtoArrayScoreCalculator.computeDeltas(
+            votes,
+            store,
+            nodeCount,
+            this::getIndex,
+            balances,
+            balances,
+            oldProposerBoostRoot,
+            newProposerBoostRoot,
+            oldProposerBoostAmount,
+            newProposerBoostAmount);
+    assertThat(secondDeltas.toLongArray()).containsOnly(0L);
+  }
+
   private void votesShouldBeUpdated(VoteUpdater store) {
     UInt64.rangeClosed(ZERO, store.getHighestVotedValidatorIndex())
         .forEach(
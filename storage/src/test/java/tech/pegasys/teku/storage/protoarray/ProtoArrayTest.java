@@ -502,7 +502,7 @@ class ProtoArrayTest {
   private LongList computeDeltas() {
     final List<UInt64> balances =
         Collections.nCopies(voteUpdater.getHighestVotedValidatorIndex().intValue(), UInt64.ONE);
-    return ProtoArrayScoreCalculator.computeDeltas(
+    return ProtoArrayTestUtil.computeDeltas(
         voteUpdater,
         protoArray.getTotalTrackedNodeCount(),
         protoArray::getIndexByRoot,
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2022 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package tech.pegasys.teku.storage.pubkeys;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tech.pegasys.teku.bls.BLSPublicKey;
+import tech.pegasys.teku.bls.BLSTestUtil;
+import tech.pegasys.teku.spec.datastructures.state.beaconstate.common.KnownValidatorPublicKeys;
+
+public class ValidatorPublicKeyFileTest {
+
+  private final List<BLSPublicKey> publicKeys =
+      IntStream.range(0, 5).mapToObj(BLSTestUtil::randomPublicKey).collect(Collectors.toList());
+
+  @TempDir Path tempDir;
+
+  @Test
+  void shouldReadAppendedKeysAfterReopening() throws IOException {
+    final Path path = tempDir.resolve("pubkeys.dat");
+    try (ValidatorPublicKeyFile file = ValidatorPublicKeyFile.open(path)) {
+      assertThat(file.getRecordCount()).isZero();
+      file.append(0, publicKeys.subList(0, 3));
+      file.append(3, publicKeys.subList(3, 5));
+    }
+
+    try (ValidatorPublicKeyFile file = ValidatorPublicKeyFile.open(path)) {
+      assertThat(file.getRecordCount()).isEqualTo(publicKeys.size());
+      for (int i = 0; i < publicKeys.size(); i++) {
+        final BLSPublicKey publicKey = file.get(i);
+        assertThat(publicKey).isEqualTo(publicKeys.get(i));
+        assertThat(publicKey.toBytesUncompressed())
+            .isEqualTo(publicKeys.get(i).toBytesUncompressed());
+      }
+    }
+  }
+
+  @Test
+  void shouldDiscardPartialRecord() throws IOException {
+    final Path path = tempDir.resolve("pubkeys.dat");
+    try (ValidatorPublicKeyFile file = ValidatorPublicKeyFile.open(path)) {
+      file.append(0, publicKeys.subList(0, 2));
+    }
+    Files.write(path, new byte[] {1, 2, 3}, StandardOpenOption.APPEND);
+
+    try (ValidatorPublicKeyFile file = ValidatorPublicKeyFile.open(path)) {
+      assertThat(file.getRecordCount()).isEqualTo(2);
+      file.append(2, publicKeys.subList(2, 3));
+      assertThat(file.get(2)).isEqualTo(publicKeys.get(2));
+    }
+  }
+
+  @Test
+  void shouldRejectNonConsecutiveAppend() throws IOException {
+    try (ValidatorPublicKeyFile file = ValidatorPublicKeyFile.open(tempDir.resolve("a.dat"))) {
+      assertThatThrownBy(() -> file.append(1, publicKeys))
+          .isInstanceOf(IllegalArgumentException.class);
+    }
+  }
+
+  @Test
+  void shouldRejectUnknownFileFormat() throws IOException {
+    final Path path = tempDir.resolve("pubkeys.dat");
+    Files.write(path, new byte[ValidatorPublicKeyFile.HEADER_SIZE]);
+
+    assertThatThrownBy(() -> ValidatorPublicKeyFile.open(path)).isInstanceOf(IOException.class);
+  }
+
+  @Test
+  void shouldDiscardRecordsFromInvalidChecksumWhenLoading() throws IOException {
+    final Path path = tempDir.resolve("pubkeys.dat");
+    try (ValidatorPublicKeyFile file = ValidatorPublicKeyFile.open(path)) {
+      file.append(0, publicKeys);
+    }
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+      final long position =
+          ValidatorPublicKeyFile.HEADER_SIZE + 3L * ValidatorPublicKeyFile.RECORD_SIZE + 60;
+      channel.write(ByteBuffer.wrap(new byte[] {1, 2, 3}), position);
+    }
+
+    try (ValidatorPublicKeyFile file = ValidatorPublicKeyFile.open(path)) {
+      assertThatThrownBy(() -> file.get(3)).isInstanceOf(IllegalStateException.class);
+
+      final KnownValidatorPublicKeys knownPublicKeys = new KnownValidatorPublicKeys();
+      assertThat(file.loadInto(knownPublicKeys)).isEqualTo(3);
+      assertThat(knownPublicKeys.size()).isEqualTo(3);
+      assertThat(file.getRecordCount()).isEqualTo(3);
+      file.append(3, publicKeys.subList(3, 5));
+    }
+
+    try (ValidatorPublicKeyFile file = ValidatorPublicKeyFile.open(path)) {
+      final KnownValidatorPublicKeys knownPublicKeys = new KnownValidatorPublicKeys();
+      assertThat(file.loadInto(knownPublicKeys)).isEqualTo(publicKeys.size());
+      assertThat(file.get(4)).isEqualTo(publicKeys.get(4));
+    }
+  }
+
+  @Test
+  void shouldResetFileWithUnsupportedVersion() throws IOException {
+    final Path path = tempDir.resolve("pubkeys.dat");
+    final ByteBuffer content = ByteBuffer.allocate(ValidatorPublicKeyFile.HEADER_SIZE + 200);
+    content.putInt(ValidatorPublicKeyFile.MAGIC).putInt(ValidatorPublicKeyFile.VERSION - 1);
+    Files.write(path, content.array());
+
+    try (ValidatorPublicKeyFile file = ValidatorPublicKeyFile.open(path)) {
+      assertThat(file.getRecordCount()).isZero();
+      file.append(0, publicKeys);
+    }
+  }
+}
@@ -16,27 +16,40 @@ package tech.pegasys.teku.storage.server;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static tech.pegasys.teku.infrastructure.async.SafeFutureAssert.assertThatSafeFuture;
+import static tech.pegasys.teku.infrastructure.async.SyncAsyncRunner.SYNC_RUNNER;
 import static tech.pegasys.teku.infrastructure.unsigned.UInt64.ZERO;
 
 import com.google.common.collect.Lists;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import org.apache.tuweni.bytes.Bytes32;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ArgumentsSource;
 import tech.pegasys.teku.core.ChainBuilder;
 import tech.pegasys.teku.infrastructure.async.SafeFuture;
+import tech.pegasys.teku.infrastructure.async.StubAsyncRunner;
+import tech.pegasys.teku.infrastructure.metrics.StubMetricsSystem;
+import tech.pegasys.teku.infrastructure.unsigned.UInt64;
 import tech.pegasys.teku.spec.Spec;
 import tech.pegasys.teku.spec.TestSpecFactory;
 import tech.pegasys.teku.spec.datastructures.blocks.SignedBeaconBlock;
 import tech.pegasys.teku.spec.datastructures.blocks.SignedBlockAndState;
+import tech.pegasys.teku.spec.datastructures.forkchoice.VoteTracker;
 import tech.pegasys.teku.spec.datastructures.state.AnchorPoint;
 import tech.pegasys.teku.spec.datastructures.state.Checkpoint;
+import tech.pegasys.teku.storage.api.StubFinalizedCheckpointChannel;
+import tech.pegasys.teku.storage.api.TrackingChainHeadChannel;
+import tech.pegasys.teku.storage.client.RecentChainData;
+import tech.pegasys.teku.storage.client.StorageBackedRecentChainData;
 import tech.pegasys.teku.storage.storageSystem.StorageSystem;
 import tech.pegasys.teku.storage.storageSystem.StorageSystemArgumentsProvider;
+import tech.pegasys.teku.storage.store.StoreConfig;
+import tech.pegasys.teku.storage.store.UpdatableStore.StoreTransaction;
 
 public class ChainStorageTest {
   @TempDir Path dataDirectory;
@@ -87,6 +100,49 @@ public class ChainStorageTest {
     testOnFinalizedBlocks(storageSystemSupplier, true, true);
   }
 
+  @ParameterizedTest(name = "{0}")
+  @ArgumentsSource(StorageSystemArgumentsProvider.class)
+  public void createWithGroupCommit_shouldCommitQueuedUpdatesWhenFlushed(
+      final String storageType,
+      final StorageSystemArgumentsProvider.StorageSystemSupplier storageSystemSupplier) {
+    setup(storageSystemSupplier);
+    storageSystem.recentChainData().initializeFromGenesis(chainBuilder.getStateAtSlot(0), ZERO);
+    final StubAsyncRunner updateRunner = new StubAsyncRunner();
+    final ChainStorage groupCommitStorage =
+        ChainStorage.createWithGroupCommit(
+            storageSystem.database(), spec, new StubMetricsSystem(), updateRunner);
+    final RecentChainData recentChainData =
+        StorageBackedRecentChainData.createImmediately(
+            SYNC_RUNNER,
+            new StubMetricsSystem(),
+            StoreConfig.createDefault(),
+            groupCommitStorage,
+            groupCommitStorage,
+            groupCommitStorage,
+            new StubFinalizedCheckpointChannel(),
+            new TrackingChainHeadChannel(),
+            spec);
+
+    final SignedBlockAndState block = chainBuilder.generateBlockAtSlot(1);
+    final StoreTransaction transaction = recentChainData.startStoreTransaction();
+    transaction.putBlockAndState(block);
+    final SafeFuture<Void> committed = transaction.commit();
+    final Map<UInt64, VoteTracker> votes =
+        Map.of(UInt64.ONE, new VoteTracker(Bytes32.ZERO, block.getRoot(), UInt64.ONE));
+    groupCommitStorage.onVotesUpdated(votes);
+
+    final SafeFuture<Void> flushed = groupCommitStorage.flush();
+    assertThat(flushed).isNotDone();
+    assertThat(storageSystem.database().getHotBlock(block.getRoot())).isEmpty();
+
+    updateRunner.executeQueuedActions();
+
+    assertThatSafeFuture(flushed).isCompleted();
+    assertThatSafeFuture(committed).isCompleted();
+    assertThat(storageSystem.database().getHotBlock(block.getRoot())).contains(block.getBlock());
+    assertThat(storageSystem.database().getVotes()).containsAllEntriesOf(votes);
+  }
+
   public void testOnFinalizedBlocks(
       final StorageSystemArgumentsProvider.StorageSystemSupplier storageSystemSupplier,
       final boolean initializeWithAnchorStateAlone,
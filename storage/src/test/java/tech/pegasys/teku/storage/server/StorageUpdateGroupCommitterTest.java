@@ -0,0 +1,196 @@
+/*
+ * Copyright 2022 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package tech.pegasys.teku.storage.server;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+import static tech.pegasys.teku.infrastructure.async.SafeFutureAssert.assertThatSafeFuture;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import tech.pegasys.teku.infrastructure.async.SafeFuture;
+import tech.pegasys.teku.infrastructure.async.StubAsyncRunner;
+import tech.pegasys.teku.infrastructure.metrics.StubMetricsSystem;
+import tech.pegasys.teku.infrastructure.unsigned.UInt64;
+import tech.pegasys.teku.spec.datastructures.forkchoice.VoteTracker;
+import tech.pegasys.teku.storage.api.StorageUpdate;
+import tech.pegasys.teku.storage.api.UpdateResult;
+
+class StorageUpdateGroupCommitterTest {
+
+  private final Database database = mock(Database.class);
+  private final StubAsyncRunner asyncRunner = new StubAsyncRunner();
+
+  private final StorageUpdateGroupCommitter committer =
+      new StorageUpdateGroupCommitter(
+          database, asyncRunner, new StubMetricsSystem(), 3, Duration.ZERO);
+
+  @Test
+  void shouldCommitQueuedHotUpdatesTogether() {
+    final StorageUpdate update1 = hotUpdate();
+    final StorageUpdate update2 = hotUpdate();
+    final SafeFuture<UpdateResult> result1 = committer.update(update1);
+    final SafeFuture<UpdateResult> result2 = committer.update(update2);
+    verifyNoInteractions(database);
+    assertThat(result1).isNotDone();
+
+    asyncRunner.executeQueuedActions();
+
+    verify(database).updateHotData(List.of(update1, update2), Map.of());
+    verifyNoMoreInteractions(database);
+    assertThatSafeFuture(result1).isCompletedWithValue(UpdateResult.EMPTY);
+    assertThatSafeFuture(result2).isCompletedWithValue(UpdateResult.EMPTY);
+  }
+
+  @Test
+  void shouldLimitNumberOfUpdatesPerCommit() {
+    final StorageUpdate update1 = hotUpdate();
+    final StorageUpdate update2 = hotUpdate();
+    final StorageUpdate update3 = hotUpdate();
+    final StorageUpdate update4 = hotUpdate();
+    final StorageUpdate update5 = hotUpdate();
+    List.of(update1, update2, update3, update4, update5).forEach(committer::update);
+
+    asyncRunner.executeQueuedActions();
+
+    final InOrder inOrder = inOrder(database);
+    inOrder.verify(database).updateHotData(List.of(update1, update2, update3), Map.of());
+    inOrder.verify(database).updateHotData(List.of(update4, update5), Map.of());
+    inOrder.verifyNoMoreInteractions();
+  }
+
+  @Test
+  void shouldApplySingleUpdateDirectly() {
+    final StorageUpdate update = hotUpdate();
+    final UpdateResult expectedResult = new UpdateResult(Optional.empty());
+    when(database.update(update)).thenReturn(expectedResult);
+
+    final SafeFuture<UpdateResult> result = committer.update(update);
+    asyncRunner.executeQueuedActions();
+
+    assertThatSafeFuture(result).isCompletedWithValue(expectedResult);
+  }
+
+  @Test
+  void shouldCommitFinalizingUpdatesOnTheirOwnInOrder() {
+    final StorageUpdate update1 = hotUpdate();
+    final StorageUpdate update2 = hotUpdate();
+    final StorageUpdate finalizingUpdate = mock(StorageUpdate.class);
+    final StorageUpdate update3 = hotUpdate();
+    final UpdateResult finalizedResult = new UpdateResult(Optional.empty());
+    when(database.update(finalizingUpdate)).thenReturn(finalizedResult);
+
+    committer.update(update1);
+    committer.update(update2);
+    final SafeFuture<UpdateResult> result = committer.update(finalizingUpdate);
+    committer.update(update3);
+    asyncRunner.executeQueuedActions();
+
+    final InOrder inOrder = inOrder(database);
+    inOrder.verify(database).updateHotData(List.of(update1, update2), Map.of());
+    inOrder.verify(database).update(finalizingUpdate);
+    inOrder.verify(database).update(update3);
+    inOrder.verifyNoMoreInteractions();
+    assertThatSafeFuture(result).isCompletedWithValue(finalizedResult);
+  }
+
+  @Test
+  void shouldCommitVotesWithHotUpdates() {
+    final StorageUpdate update = hotUpdate();
+    final Map<UInt64, VoteTracker> votes = Map.of(UInt64.ZERO, VoteTracker.DEFAULT);
+    committer.storeVotes(votes);
+    committer.update(update);
+
+    asyncRunner.executeQueuedActions();
+
+    verify(database).updateHotData(List.of(update), votes);
+    verifyNoMoreInteractions(database);
+  }
+
+  @Test
+  void shouldRetryUpdatesIndividuallyWhenGroupCommitFails() {
+    final StorageUpdate update1 = hotUpdate();
+    final StorageUpdate update2 = hotUpdate();
+    final RuntimeException error = new RuntimeException("Nope");
+    doThrow(error).when(database).updateHotData(List.of(update1, update2), Map.of());
+    doThrow(error).when(database).updateHotData(List.of(update2), Map.of());
+
+    final SafeFuture<UpdateResult> result1 = committer.update(update1);
+    final SafeFuture<UpdateResult> result2 = committer.update(update2);
+    asyncRunner.executeQueuedActions();
+
+    verify(database).updateHotData(List.of(update1), Map.of());
+    assertThatSafeFuture(result1).isCompletedWithValue(UpdateResult.EMPTY);
+    assertThatSafeFuture(result2).isCompletedExceptionallyWith(error);
+  }
+
+  @Test
+  void shouldDelayCommitToCoalesceUpdates() {
+    final StorageUpdateGroupCommitter delayedCommitter =
+        new StorageUpdateGroupCommitter(
+            database, asyncRunner, new StubMetricsSystem(), 3, Duration.ofMillis(5));
+    final StorageUpdate update = hotUpdate();
+    delayedCommitter.update(update);
+
+    asyncRunner.executeDueActions();
+    verifyNoInteractions(database);
+
+    asyncRunner.executeQueuedActions();
+    verify(database).update(update);
+  }
+
+  @Test
+  void shouldCompleteFlushOnceQueuedUpdatesAreCommitted() {
+    final StorageUpdateGroupCommitter delayedCommitter =
+        new StorageUpdateGroupCommitter(
+            database, asyncRunner, new StubMetricsSystem(), 3, Duration.ofMillis(5));
+    final StorageUpdate update = hotUpdate();
+    final Map<UInt64, VoteTracker> votes = Map.of(UInt64.ZERO, VoteTracker.DEFAULT);
+    delayedCommitter.update(update);
+    delayedCommitter.storeVotes(votes);
+
+    final SafeFuture<Void> flushed = delayedCommitter.flush();
+    assertThat(flushed).isNotDone();
+
+    asyncRunner.executeQueuedActions();
+    verify(database).updateHotData(List.of(update), votes);
+    assertThat(flushed).isCompleted();
+  }
+
+  @Test
+  void shouldCompleteFlushWhenNothingIsQueued() {
+    final SafeFuture<Void> flushed = committer.flush();
+
+    asyncRunner.executeQueuedActions();
+
+    assertThat(flushed).isCompleted();
+    verifyNoInteractions(database);
+  }
+
+  private StorageUpdate hotUpdate() {
+    final StorageUpdate update = mock(StorageUpdate.class);
+    when(update.isHotOnly()).thenReturn(true);
+    return update;
+  }
+}
@@ -255,6 +255,24 @@ public abstract class AbstractKvStoreDatabaseTest extends AbstractStorageBackedD
     }
   }
 
+  @Test
+  public void storeReconstructedFinalizedStates_shouldIndexStateRoots(@TempDir final Path tempDir) {
+    createStorage(tempDir.toFile(), StateStorageMode.ARCHIVE);
+    initGenesis();
+    chainBuilder.generateBlocksUpToSlot(6);
+
+    database.storeReconstructedFinalizedStates(
+        List.of(chainBuilder.getStateAtSlot(3), chainBuilder.getStateAtSlot(6)));
+
+    for (int slot = 1; slot <= 6; slot++) {
+      final BeaconState state = chainBuilder.getStateAtSlot(slot);
+      assertThat(database.getSlotForFinalizedStateRoot(state.hashTreeRoot()))
+          .contains(UInt64.valueOf(slot));
+    }
+    assertThat(database.getLatestAvailableFinalizedState(UInt64.valueOf(6)))
+        .contains(chainBuilder.getStateAtSlot(6));
+  }
+
   @Test
   public void shouldPruneHotBlocksOlderThanFinalizedSlotAfterRestart__archive(
       @TempDir final Path tempDir) {
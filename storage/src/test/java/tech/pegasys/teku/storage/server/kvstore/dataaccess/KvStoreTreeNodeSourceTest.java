@@ -19,6 +19,7 @@ import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import org.apache.tuweni.bytes.Bytes;
 import org.apache.tuweni.bytes.Bytes32;
 import org.junit.jupiter.api.Test;
+import tech.pegasys.teku.infrastructure.ssz.tree.LeafNode;
 import tech.pegasys.teku.infrastructure.ssz.tree.TreeNodeSource.CompressedBranchInfo;
 import tech.pegasys.teku.spec.Spec;
 import tech.pegasys.teku.spec.TestSpecFactory;
@@ -86,6 +87,88 @@ class KvStoreTreeNodeSourceTest {
     assertThat(nodeSource.loadLeafNode(root, 23)).isEqualTo(root);
   }
 
+  @Test
+  void prefetch_shouldLoadNodesWithoutFurtherDatabaseAccess() {
+    final Bytes32 leafRoot = dataStructureUtil.randomBytes32();
+    final Bytes leafData = dataStructureUtil.randomBytes(78);
+    final Bytes32 inlineLeafRoot = dataStructureUtil.randomBytes32();
+    final Bytes32 childRoot = dataStructureUtil.randomBytes32();
+    final Bytes32 root = dataStructureUtil.randomBytes32();
+    storeLeaf(leafRoot, leafData);
+    final CompressedBranchInfo childBranch = storeBranch(childRoot, 1, leafRoot, inlineLeafRoot);
+    final CompressedBranchInfo rootBranch = storeBranch(root, 1, childRoot, Bytes32.ZERO);
+
+    nodeSource.prefetch(root, Integer.MAX_VALUE);
+    try (final KvStoreTransaction transaction = accessor.startTransaction()) {
+      transaction.delete(schema.getColumnFinalizedStateMerkleTreeBranches(), root);
+      transaction.delete(schema.getColumnFinalizedStateMerkleTreeBranches(), childRoot);
+      transaction.delete(schema.getColumnFinalizedStateMerkleTreeLeaves(), leafRoot);
+      transaction.commit();
+    }
+
+    assertThat(nodeSource.loadBranchNode(root, 1)).isEqualTo(rootBranch);
+    assertThat(nodeSource.loadBranchNode(childRoot, 2)).isEqualTo(childBranch);
+    assertThat(nodeSource.loadLeafNode(leafRoot, 4)).isEqualTo(leafData);
+    assertThat(nodeSource.loadLeafNode(inlineLeafRoot, 5)).isEqualTo(inlineLeafRoot);
+  }
+
+  @Test
+  void prefetch_shouldFallBackToDatabaseWhenNodeLoadedAgain() {
+    final Bytes32 leafRoot = dataStructureUtil.randomBytes32();
+    final Bytes leafData = dataStructureUtil.randomBytes(78);
+    final Bytes32 root = dataStructureUtil.randomBytes32();
+    storeLeaf(leafRoot, leafData);
+    storeBranch(root, 1, leafRoot, leafRoot);
+
+    nodeSource.prefetch(root, Integer.MAX_VALUE);
+
+    assertThat(nodeSource.loadLeafNode(leafRoot, 2)).isEqualTo(leafData);
+    assertThat(nodeSource.loadLeafNode(leafRoot, 3)).isEqualTo(leafData);
+  }
+
+  @Test
+  void prefetch_shouldStopAfterDepthWhichReachesMaxNodes() {
+    final Bytes32 leafRoot = dataStructureUtil.randomBytes32();
+    final Bytes32 childRoot = dataStructureUtil.randomBytes32();
+    final Bytes32 root = dataStructureUtil.randomBytes32();
+    storeLeaf(leafRoot, dataStructureUtil.randomBytes(78));
+    storeBranch(childRoot, 1, leafRoot, leafRoot);
+    final CompressedBranchInfo rootBranch = storeBranch(root, 1, childRoot, Bytes32.ZERO);
+
+    nodeSource.prefetch(root, 1);
+    deleteBranches(root, childRoot);
+
+    assertThat(nodeSource.loadBranchNode(root, 1)).isEqualTo(rootBranch);
+    assertThatThrownBy(() -> nodeSource.loadBranchNode(childRoot, 2))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void expandPrefetched_shouldReleaseUnusedPrefetchedNodes() {
+    final Bytes32 childRoot = dataStructureUtil.randomBytes32();
+    final Bytes32 root = dataStructureUtil.randomBytes32();
+    storeBranch(childRoot, 1, dataStructureUtil.randomBytes32(), Bytes32.ZERO);
+    storeBranch(root, 1, childRoot, Bytes32.ZERO);
+
+    nodeSource.prefetch(root, Integer.MAX_VALUE);
+    nodeSource.expandPrefetched(LeafNode.EMPTY_LEAF);
+    deleteBranches(root, childRoot);
+
+    assertThatThrownBy(() -> nodeSource.loadBranchNode(root, 1))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> nodeSource.loadBranchNode(childRoot, 2))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private void deleteBranches(final Bytes32... roots) {
+    try (final KvStoreTransaction transaction = accessor.startTransaction()) {
+      for (Bytes32 root : roots) {
+        transaction.delete(schema.getColumnFinalizedStateMerkleTreeBranches(), root);
+      }
+      transaction.commit();
+    }
+  }
+
   private void storeLeaf(final Bytes32 root, final Bytes value) {
     try (final KvStoreTransaction transaction = accessor.startTransaction()) {
       transaction.put(schema.getColumnFinalizedStateMerkleTreeLeaves(), root, value);
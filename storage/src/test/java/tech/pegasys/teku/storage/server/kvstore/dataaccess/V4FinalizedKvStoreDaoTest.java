@@ -0,0 +1,78 @@
+/*
+ * Copyright 2022 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package tech.pegasys.teku.storage.server.kvstore.dataaccess;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tech.pegasys.teku.infrastructure.unsigned.UInt64;
+import tech.pegasys.teku.spec.Spec;
+import tech.pegasys.teku.spec.TestSpecFactory;
+import tech.pegasys.teku.spec.datastructures.blocks.SignedBeaconBlock;
+import tech.pegasys.teku.spec.util.DataStructureUtil;
+import tech.pegasys.teku.storage.server.kvstore.MockKvStoreInstance;
+import tech.pegasys.teku.storage.server.kvstore.dataaccess.KvStoreFinalizedDao.FinalizedUpdater;
+import tech.pegasys.teku.storage.server.kvstore.schema.SchemaFinalizedSnapshotState;
+import tech.pegasys.teku.storage.server.kvstore.schema.V6SnapshotSchemaFinalized;
+import tech.pegasys.teku.storage.server.segments.BlockSegmentStore;
+
+class V4FinalizedKvStoreDaoTest {
+  private final Spec spec = TestSpecFactory.createDefault();
+  private final DataStructureUtil dataStructureUtil = new DataStructureUtil(spec);
+  private final SchemaFinalizedSnapshotState schema = new V6SnapshotSchemaFinalized(spec);
+
+  @TempDir Path tempDir;
+
+  @Test
+  void ingest_shouldCopyBlocksStoredInSegments() throws Exception {
+    final List<SignedBeaconBlock> blocks =
+        List.of(
+            dataStructureUtil.randomSignedBeaconBlock(1),
+            dataStructureUtil.randomSignedBeaconBlock(2),
+            dataStructureUtil.randomSignedBeaconBlock(5));
+    final V4FinalizedKvStoreDao<SchemaFinalizedSnapshotState> target = createDao();
+    try (final BlockSegmentStore segmentStore = BlockSegmentStore.open(tempDir)) {
+      final V4FinalizedKvStoreDao<SchemaFinalizedSnapshotState> source =
+          new V4FinalizedKvStoreDao<>(
+              createDb(),
+              schema,
+              new V4FinalizedStateSnapshotStorageLogic(1),
+              new V4FinalizedBlockSegmentStorageLogic<>(segmentStore));
+      try (final FinalizedUpdater updater = source.finalizedUpdater()) {
+        blocks.forEach(updater::addFinalizedBlock);
+        updater.commit();
+      }
+
+      target.ingest(source, 2, __ -> {});
+    }
+
+    for (SignedBeaconBlock block : blocks) {
+      assertThat(target.getFinalizedBlockAtSlot(block.getSlot())).contains(block);
+      assertThat(target.getSlotForFinalizedBlockRoot(block.getRoot())).contains(block.getSlot());
+    }
+    assertThat(target.getFinalizedBlockAtSlot(UInt64.valueOf(3))).isEmpty();
+  }
+
+  private V4FinalizedKvStoreDao<SchemaFinalizedSnapshotState> createDao() {
+    return new V4FinalizedKvStoreDao<>(
+        createDb(), schema, new V4FinalizedStateSnapshotStorageLogic(1));
+  }
+
+  private MockKvStoreInstance createDb() {
+    return MockKvStoreInstance.createEmpty(schema.getAllColumns(), schema.getAllVariables());
+  }
+}
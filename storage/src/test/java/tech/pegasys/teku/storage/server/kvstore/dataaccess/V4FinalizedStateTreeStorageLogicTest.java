@@ -16,6 +16,8 @@ package tech.pegasys.teku.storage.server.kvstore.dataaccess;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.util.Optional;
+import java.util.stream.Stream;
+import org.apache.tuweni.bytes.Bytes;
 import org.hyperledger.besu.metrics.noop.NoOpMetricsSystem;
 import org.junit.jupiter.api.Test;
 import tech.pegasys.teku.infrastructure.unsigned.UInt64;
@@ -23,10 +25,12 @@ import tech.pegasys.teku.spec.Spec;
 import tech.pegasys.teku.spec.TestSpecFactory;
 import tech.pegasys.teku.spec.datastructures.state.beaconstate.BeaconState;
 import tech.pegasys.teku.spec.util.DataStructureUtil;
+import tech.pegasys.teku.storage.server.kvstore.ColumnEntry;
 import tech.pegasys.teku.storage.server.kvstore.KvStoreAccessor;
 import tech.pegasys.teku.storage.server.kvstore.KvStoreAccessor.KvStoreTransaction;
 import tech.pegasys.teku.storage.server.kvstore.MockKvStoreInstance;
 import tech.pegasys.teku.storage.server.kvstore.dataaccess.V4FinalizedStateStorageLogic.FinalizedStateUpdater;
+import tech.pegasys.teku.storage.server.kvstore.schema.KvStoreColumn;
 import tech.pegasys.teku.storage.server.kvstore.schema.SchemaFinalizedTreeState;
 import tech.pegasys.teku.storage.server.kvstore.schema.V6TreeSchemaFinalized;
 
@@ -70,6 +74,8 @@ class V4FinalizedStateTreeStorageLogicTest {
       updater.addFinalizedState(db, transaction, schema, state3);
       updater.addFinalizedState(db, transaction, schema, state4);
       transaction.commit();
+      updater.commit();
+      updater.close();
     }
 
     assertStateReloads(state1);
@@ -78,6 +84,79 @@ class V4FinalizedStateTreeStorageLogicTest {
     assertStateReloads(state4);
   }
 
+  @Test
+  void collectGarbage_shouldRemoveNodesOnlyReferencedByReplacedState() {
+    final BeaconState replacedState = dataStructureUtil.randomBeaconState(UInt64.valueOf(5));
+    final BeaconState state = dataStructureUtil.randomBeaconState(UInt64.valueOf(5));
+    final BeaconState otherState = dataStructureUtil.randomBeaconState(UInt64.valueOf(7));
+    storeState(replacedState);
+    storeState(otherState);
+    // Replaces the state root stored for slot 5, leaving the old tree unreferenced
+    storeState(state);
+    assertThat(
+            db.get(
+                schema.getColumnFinalizedStateMerkleTreeBranches(), replacedState.hashTreeRoot()))
+        .isPresent();
+
+    logic.collectGarbage(db, schema);
+
+    assertThat(
+            db.get(
+                schema.getColumnFinalizedStateMerkleTreeBranches(), replacedState.hashTreeRoot()))
+        .isEmpty();
+    assertThat(countEntries(schema.getColumnFinalizedStateMerkleTreeMarkedNodes())).isZero();
+    assertStateReloads(state);
+    assertStateReloads(otherState);
+  }
+
+  @Test
+  void collectGarbage_shouldRetainAllNodesWhenNoStateReplaced() {
+    final BeaconState state1 = dataStructureUtil.randomBeaconState(UInt64.valueOf(3));
+    final BeaconState state2 = dataStructureUtil.randomBeaconState(UInt64.valueOf(5));
+    storeState(state1);
+    storeState(state2);
+    final long branchCount = countEntries(schema.getColumnFinalizedStateMerkleTreeBranches());
+    final long leafCount = countEntries(schema.getColumnFinalizedStateMerkleTreeLeaves());
+
+    logic.collectGarbage(db, schema);
+
+    assertThat(countEntries(schema.getColumnFinalizedStateMerkleTreeBranches()))
+        .isEqualTo(branchCount);
+    assertThat(countEntries(schema.getColumnFinalizedStateMerkleTreeLeaves())).isEqualTo(leafCount);
+    assertStateReloads(state1);
+    assertStateReloads(state2);
+  }
+
+  @Test
+  void collectGarbage_shouldIgnoreMarksLeftByInterruptedCollection() {
+    final BeaconState replacedState = dataStructureUtil.randomBeaconState(UInt64.valueOf(5));
+    final BeaconState state = dataStructureUtil.randomBeaconState(UInt64.valueOf(5));
+    storeState(replacedState);
+    storeState(state);
+    try (final KvStoreTransaction transaction = db.startTransaction()) {
+      transaction.put(
+          schema.getColumnFinalizedStateMerkleTreeMarkedNodes(),
+          replacedState.hashTreeRoot(),
+          Bytes.EMPTY);
+      transaction.commit();
+    }
+
+    logic.collectGarbage(db, schema);
+
+    assertThat(
+            db.get(
+                schema.getColumnFinalizedStateMerkleTreeBranches(), replacedState.hashTreeRoot()))
+        .isEmpty();
+    assertThat(countEntries(schema.getColumnFinalizedStateMerkleTreeMarkedNodes())).isZero();
+    assertStateReloads(state);
+  }
+
+  private long countEntries(final KvStoreColumn<?, ?> column) {
+    try (final Stream<ColumnEntry<Bytes, Bytes>> entries = db.streamRaw(column)) {
+      return entries.count();
+    }
+  }
+
   private void assertStateReloads(final BeaconState state) {
     assertStateReloads(state, state.getSlot());
   }
@@ -90,8 +169,11 @@ class V4FinalizedStateTreeStorageLogicTest {
 
   private void storeState(final BeaconState state) {
     try (final KvStoreTransaction transaction = db.startTransaction()) {
-      logic.updater().addFinalizedState(db, transaction, schema, state);
+      final FinalizedStateUpdater<SchemaFinalizedTreeState> updater = logic.updater();
+      updater.addFinalizedState(db, transaction, schema, state);
       transaction.commit();
+      updater.commit();
+      updater.close();
     }
   }
 }
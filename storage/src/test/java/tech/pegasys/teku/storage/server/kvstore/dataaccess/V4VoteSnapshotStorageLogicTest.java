@@ -0,0 +1,163 @@
+/*
+ * Copyright 2022 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package tech.pegasys.teku.storage.server.kvstore.dataaccess;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static tech.pegasys.teku.storage.server.kvstore.dataaccess.V4VoteSnapshotStorageLogic.VALIDATORS_PER_CHUNK;
+
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import tech.pegasys.teku.infrastructure.unsigned.UInt64;
+import tech.pegasys.teku.spec.Spec;
+import tech.pegasys.teku.spec.TestSpecFactory;
+import tech.pegasys.teku.spec.datastructures.forkchoice.VoteTracker;
+import tech.pegasys.teku.spec.util.DataStructureUtil;
+import tech.pegasys.teku.storage.server.kvstore.KvStoreAccessor.KvStoreTransaction;
+import tech.pegasys.teku.storage.server.kvstore.MockKvStoreInstance;
+import tech.pegasys.teku.storage.server.kvstore.dataaccess.V4VoteSnapshotStorageLogic.PendingVoteUpdate;
+import tech.pegasys.teku.storage.server.kvstore.schema.SchemaHot;
+import tech.pegasys.teku.storage.server.kvstore.schema.V4SchemaHot;
+
+class V4VoteSnapshotStorageLogicTest {
+  private static final UInt64 VALIDATOR_1 = UInt64.valueOf(1);
+  private static final UInt64 VALIDATOR_2 = UInt64.valueOf(VALIDATORS_PER_CHUNK + 3);
+  private static final UInt64 VALIDATOR_3 = UInt64.valueOf(VALIDATORS_PER_CHUNK * 4L);
+
+  private final Spec spec = TestSpecFactory.createDefault();
+  private final DataStructureUtil dataStructureUtil = new DataStructureUtil(spec);
+  private final SchemaHot schema = new V4SchemaHot(spec, true);
+  private final MockKvStoreInstance db =
+      MockKvStoreInstance.createEmpty(schema.getAllColumns(), schema.getAllVariables());
+
+  private final V4VoteSnapshotStorageLogic logic = new V4VoteSnapshotStorageLogic(schema, 2, 100);
+
+  @Test
+  void shouldLoadVotesFromDeltas() {
+    final VoteTracker vote1 = dataStructureUtil.randomVoteTracker();
+    final VoteTracker vote2 = dataStructureUtil.randomVoteTracker();
+    final VoteTracker vote3 = dataStructureUtil.randomVoteTracker();
+    addVotes(logic, Map.of(VALIDATOR_1, vote1, VALIDATOR_2, vote2));
+    addVotes(logic, Map.of(VALIDATOR_1, vote3));
+
+    assertThat(db.getAll(schema.getColumnVoteDeltas())).hasSize(2);
+    assertThat(logic.getVotes(db)).isEqualTo(Map.of(VALIDATOR_1, vote3, VALIDATOR_2, vote2));
+  }
+
+  @Test
+  void shouldMergeDeltasIntoSnapshotChunksWhenLimitReached() {
+    final VoteTracker vote1 = dataStructureUtil.randomVoteTracker();
+    final VoteTracker vote2 = dataStructureUtil.randomVoteTracker();
+    final VoteTracker vote3 = dataStructureUtil.randomVoteTracker();
+    final VoteTracker vote4 = dataStructureUtil.randomVoteTracker();
+    addVotes(logic, Map.of(VALIDATOR_1, vote1, VALIDATOR_2, vote2));
+    addVotes(logic, Map.of(VALIDATOR_1, vote3));
+    addVotes(logic, Map.of(VALIDATOR_3, vote4));
+
+    assertThat(db.getAll(schema.getColumnVoteDeltas())).isEmpty();
+    assertThat(db.getAll(schema.getColumnVoteSnapshotChunks())).hasSize(3);
+    assertThat(logic.getVotes(db))
+        .isEqualTo(Map.of(VALIDATOR_1, vote3, VALIDATOR_2, vote2, VALIDATOR_3, vote4));
+
+    final VoteTracker vote5 = dataStructureUtil.randomVoteTracker();
+    addVotes(logic, Map.of(VALIDATOR_2, vote5));
+    assertThat(logic.getVotes(db))
+        .isEqualTo(Map.of(VALIDATOR_1, vote3, VALIDATOR_2, vote5, VALIDATOR_3, vote4));
+  }
+
+  @Test
+  void shouldContinueDeltaLogAfterRestart() {
+    final VoteTracker vote1 = dataStructureUtil.randomVoteTracker();
+    final VoteTracker vote2 = dataStructureUtil.randomVoteTracker();
+    addVotes(logic, Map.of(VALIDATOR_1, vote1));
+
+    final V4VoteSnapshotStorageLogic restartedLogic =
+        new V4VoteSnapshotStorageLogic(schema, 10, 100);
+    addVotes(restartedLogic, Map.of(VALIDATOR_2, vote2));
+
+    assertThat(db.getAll(schema.getColumnVoteDeltas())).hasSize(2);
+    assertThat(restartedLogic.getVotes(db))
+        .isEqualTo(Map.of(VALIDATOR_1, vote1, VALIDATOR_2, vote2));
+  }
+
+  @Test
+  void shouldMoveVotesStoredPerValidatorIntoSnapshotChunks() {
+    final VoteTracker legacyVote1 = dataStructureUtil.randomVoteTracker();
+    final VoteTracker legacyVote2 = dataStructureUtil.randomVoteTracker();
+    final VoteTracker vote = dataStructureUtil.randomVoteTracker();
+    try (final KvStoreTransaction transaction = db.startTransaction()) {
+      transaction.put(schema.getColumnVotes(), VALIDATOR_1, legacyVote1);
+      transaction.put(schema.getColumnVotes(), VALIDATOR_2, legacyVote2);
+      transaction.commit();
+    }
+    assertThat(logic.getVotes(db))
+        .isEqualTo(Map.of(VALIDATOR_1, legacyVote1, VALIDATOR_2, legacyVote2));
+
+    addVotes(logic, Map.of(VALIDATOR_1, vote));
+    addVotes(logic, Map.of(VALIDATOR_1, vote));
+    addVotes(logic, Map.of(VALIDATOR_1, vote));
+
+    assertThat(db.getAll(schema.getColumnVotes())).isEmpty();
+    assertThat(logic.getVotes(db)).isEqualTo(Map.of(VALIDATOR_1, vote, VALIDATOR_2, legacyVote2));
+  }
+
+  @Test
+  void shouldNotCountDeltasFromTransactionsWhichDidNotCommit() {
+    final VoteTracker vote1 = dataStructureUtil.randomVoteTracker();
+    final VoteTracker vote2 = dataStructureUtil.randomVoteTracker();
+    final VoteTracker vote3 = dataStructureUtil.randomVoteTracker();
+    try (final KvStoreTransaction transaction = db.startTransaction()) {
+      final PendingVoteUpdate update = logic.addVotes(db, transaction, Map.of(VALIDATOR_1, vote1));
+      transaction.rollback();
+      logic.onRolledBack(update);
+    }
+    addVotes(logic, Map.of(VALIDATOR_2, vote2));
+    addVotes(logic, Map.of(VALIDATOR_3, vote3));
+
+    // The limit of two entries hasn't been reached so nothing is merged yet
+    assertThat(db.getAll(schema.getColumnVoteDeltas()))
+        .isEqualTo(
+            Map.of(
+                UInt64.ZERO, Map.of(VALIDATOR_2, vote2), UInt64.ONE, Map.of(VALIDATOR_3, vote3)));
+    assertThat(logic.getVotes(db)).isEqualTo(Map.of(VALIDATOR_2, vote2, VALIDATOR_3, vote3));
+  }
+
+  @Test
+  void shouldNotReuseDeltaKeyOfUncommittedTransaction() {
+    final VoteTracker vote1 = dataStructureUtil.randomVoteTracker();
+    final VoteTracker vote2 = dataStructureUtil.randomVoteTracker();
+    try (final KvStoreTransaction transaction1 = db.startTransaction();
+        final KvStoreTransaction transaction2 = db.startTransaction()) {
+      final PendingVoteUpdate update1 =
+          logic.addVotes(db, transaction1, Map.of(VALIDATOR_1, vote1));
+      final PendingVoteUpdate update2 =
+          logic.addVotes(db, transaction2, Map.of(VALIDATOR_2, vote2));
+      transaction2.commit();
+      logic.onCommitted(update2);
+      transaction1.commit();
+      logic.onCommitted(update1);
+    }
+
+    assertThat(db.getAll(schema.getColumnVoteDeltas())).hasSize(2);
+    assertThat(logic.getVotes(db)).isEqualTo(Map.of(VALIDATOR_1, vote1, VALIDATOR_2, vote2));
+  }
+
+  private void addVotes(
+      final V4VoteSnapshotStorageLogic logic, final Map<UInt64, VoteTracker> votes) {
+    try (final KvStoreTransaction transaction = db.startTransaction()) {
+      final PendingVoteUpdate update = logic.addVotes(db, transaction, votes);
+      transaction.commit();
+      logic.onCommitted(update);
+    }
+  }
+}
@@ -21,6 +21,7 @@ import static tech.pegasys.teku.storage.server.kvstore.serialization.KvStoreSeri
 import com.google.common.primitives.Ints;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Consumer;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
@@ -264,6 +265,18 @@ class LevelDbInstanceTest {
     }
   }
 
+  @Test
+  void getAll_shouldGetValuesForKeysInColumn() {
+    update(
+        tx -> {
+          tx.put(COLUMN_1, 1, 10);
+          tx.put(COLUMN_1, 3, 30);
+          tx.put(COLUMN_2, 2, 20);
+        });
+
+    assertThat(instance.getAll(COLUMN_1, List.of(1, 2, 3, 4))).isEqualTo(Map.of(1, 10, 3, 30));
+  }
+
   @Test
   void getFloorEntry_shouldGetMatchingEntryWhenKeyExists() {
     update(
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2022 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package tech.pegasys.teku.storage.server.segments;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static tech.pegasys.teku.storage.server.segments.BlockSegmentStore.SLOTS_PER_SEGMENT;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.apache.tuweni.bytes.Bytes;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tech.pegasys.teku.infrastructure.unsigned.UInt64;
+
+public class BlockSegmentStoreTest {
+  private static final UInt64 SLOT_1 = UInt64.valueOf(10);
+  private static final UInt64 SLOT_2 = UInt64.valueOf(SLOTS_PER_SEGMENT + 5);
+  private static final UInt64 SLOT_3 = UInt64.valueOf(SLOTS_PER_SEGMENT * 3L + 1);
+  private static final Bytes VALUE_1 = Bytes.fromHexString("0x0102");
+  private static final Bytes VALUE_2 = Bytes.fromHexString("0x030405");
+  private static final Bytes VALUE_3 = Bytes.fromHexString("0x06");
+
+  @TempDir Path tempDir;
+
+  @Test
+  void get_shouldReturnStoredValues() throws Exception {
+    try (final BlockSegmentStore store = BlockSegmentStore.open(tempDir)) {
+      store.putAll(Map.of(SLOT_1, VALUE_1, SLOT_2, VALUE_2));
+
+      assertThat(store.get(SLOT_1)).contains(VALUE_1);
+      assertThat(store.get(SLOT_2)).contains(VALUE_2);
+      assertThat(store.get(SLOT_1.plus(1))).isEmpty();
+      assertThat(store.get(SLOT_3)).isEmpty();
+    }
+  }
+
+  @Test
+  void get_shouldReturnValuesStoredBeforeReopening() throws Exception {
+    try (final BlockSegmentStore store = BlockSegmentStore.open(tempDir)) {
+      store.putAll(Map.of(SLOT_1, VALUE_1, SLOT_2, VALUE_2));
+    }
+    try (final BlockSegmentStore store = BlockSegmentStore.open(tempDir)) {
+      store.putAll(Map.of(SLOT_3, VALUE_3));
+
+      assertThat(store.get(SLOT_1)).contains(VALUE_1);
+      assertThat(store.get(SLOT_2)).contains(VALUE_2);
+      assertThat(store.get(SLOT_3)).contains(VALUE_3);
+    }
+  }
+
+  @Test
+  void getFirstSlot_shouldReturnLowestStoredSlot() throws Exception {
+    try (final BlockSegmentStore store = BlockSegmentStore.open(tempDir)) {
+      assertThat(store.getFirstSlot()).isEmpty();
+
+      store.putAll(Map.of(SLOT_3, VALUE_3, SLOT_2, VALUE_2));
+
+      assertThat(store.getFirstSlot()).contains(SLOT_2);
+    }
+  }
+
+  @Test
+  void getFloorSlot_shouldReturnHighestStoredSlotAtOrBefore() throws Exception {
+    try (final BlockSegmentStore store = BlockSegmentStore.open(tempDir)) {
+      store.putAll(Map.of(SLOT_1, VALUE_1, SLOT_2, VALUE_2));
+
+      assertThat(store.getFloorSlot(SLOT_1.minus(1))).isEmpty();
+      assertThat(store.getFloorSlot(SLOT_1)).contains(SLOT_1);
+      assertThat(store.getFloorSlot(SLOT_2.minus(1))).contains(SLOT_1);
+      assertThat(store.getFloorSlot(SLOT_3)).contains(SLOT_2);
+      assertThat(store.getFloorSlot(UInt64.MAX_VALUE)).contains(SLOT_2);
+    }
+  }
+
+  @Test
+  void stream_shouldReturnValuesInRangeInSlotOrder() throws Exception {
+    try (final BlockSegmentStore store = BlockSegmentStore.open(tempDir)) {
+      store.putAll(Map.of(SLOT_1, VALUE_1, SLOT_2, VALUE_2, SLOT_3, VALUE_3));
+
+      assertThat(collect(store.stream(UInt64.ZERO, UInt64.MAX_VALUE)))
+          .containsExactly(VALUE_1, VALUE_2, VALUE_3);
+      assertThat(collect(store.stream(SLOT_1.plus(1), SLOT_3))).containsExactly(VALUE_2, VALUE_3);
+      assertThat(collect(store.stream(SLOT_1.plus(1), SLOT_2.minus(1)))).isEmpty();
+    }
+  }
+
+  private static List<Bytes> collect(final Stream<Bytes> stream) {
+    return stream.collect(Collectors.toList());
+  }
+}
@@ -24,11 +24,17 @@ import static tech.pegasys.teku.infrastructure.unsigned.UInt64.ONE;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import tech.pegasys.teku.bls.BLSKeyGenerator;
 import tech.pegasys.teku.bls.BLSKeyPair;
 import tech.pegasys.teku.core.ChainBuilder;
+import tech.pegasys.teku.infrastructure.metrics.StubCounter;
+import tech.pegasys.teku.infrastructure.metrics.StubGauge;
+import tech.pegasys.teku.infrastructure.metrics.StubMetricsSystem;
+import tech.pegasys.teku.infrastructure.metrics.TekuMetricCategory;
+import tech.pegasys.teku.infrastructure.ssz.tree.TreeMemoryEstimator;
 import tech.pegasys.teku.infrastructure.unsigned.UInt64;
 import tech.pegasys.teku.spec.Spec;
 import tech.pegasys.teku.spec.TestSpecFactory;
@@ -105,6 +111,100 @@ class FinalizedStateCacheTest {
     verify(database, times(2)).streamFinalizedBlocks(ONE, ONE);
   }
 
+  @Test
+  void shouldRegenerateFromAnchorRetainedInFrequentlyQueriedRegion() throws Exception {
+    final StubMetricsSystem metricsSystem = new StubMetricsSystem();
+    final FinalizedStateCache cache =
+        new FinalizedStateCache(
+            spec,
+            database,
+            metricsSystem,
+            MAXIMUM_CACHE_SIZE,
+            FinalizedStateCache.DEFAULT_MAXIMUM_ANCHOR_BYTES,
+            false);
+    chainBuilder.generateBlocksUpToSlot(20);
+    when(database.getLatestAvailableFinalizedState(any()))
+        .thenReturn(Optional.of(chainBuilder.getGenesis().getState()));
+    allowStreamingBlocks();
+
+    // Frequent queries make the planner accept only short replays in this region
+    for (int i = 0; i < 64; i++) {
+      cache.getFinalizedState(ONE);
+    }
+    assertThat(cache.getFinalizedState(UInt64.valueOf(20)))
+        .contains(chainBuilder.getStateAtSlot(20));
+    verify(database).streamFinalizedBlocks(UInt64.valueOf(2), UInt64.valueOf(20));
+
+    // The first state of epoch 2 was retained while replaying
+    assertThat(cache.getFinalizedState(UInt64.valueOf(18)))
+        .contains(chainBuilder.getStateAtSlot(18));
+    verify(database).streamFinalizedBlocks(UInt64.valueOf(17), UInt64.valueOf(18));
+
+    final StubCounter requests =
+        metricsSystem.getCounter(TekuMetricCategory.STORAGE, "finalized_state_requests_total");
+    assertThat(requests.getValue("cache_hit")).isEqualTo(63);
+    assertThat(requests.getValue("regenerated_from_disk")).isEqualTo(1);
+    assertThat(requests.getValue("regenerated_from_cache")).isEqualTo(2);
+    assertThat(metricsSystem.getGauge(TekuMetricCategory.STORAGE, "finalized_state_anchors"))
+        .extracting(StubGauge::getValue)
+        .isEqualTo(1.0);
+  }
+
+  @Test
+  void shouldChargeAnchorsOnlyForNodesAddedOverPreviousAnchor() throws Exception {
+    final StubMetricsSystem metricsSystem = new StubMetricsSystem();
+    final FinalizedStateCache cache =
+        new FinalizedStateCache(
+            spec,
+            database,
+            metricsSystem,
+            MAXIMUM_CACHE_SIZE,
+            FinalizedStateCache.DEFAULT_MAXIMUM_ANCHOR_BYTES,
+            false);
+    chainBuilder.generateBlocksUpToSlot(40);
+    when(database.getLatestAvailableFinalizedState(any()))
+        .thenReturn(Optional.of(chainBuilder.getGenesis().getState()));
+    allowStreamingBlocks();
+
+    for (int i = 0; i < 64; i++) {
+      cache.getFinalizedState(ONE);
+    }
+    cache.getFinalizedState(UInt64.valueOf(40));
+
+    // The first states of epochs 2 to 5 are retained, each derived from the previous one
+    assertThat(metricsSystem.getGauge(TekuMetricCategory.STORAGE, "finalized_state_anchors"))
+        .extracting(StubGauge::getValue)
+        .isEqualTo(4.0);
+    final double fullSizes =
+        Stream.of(16, 24, 32, 40)
+            .map(chainBuilder::getStateAtSlot)
+            .mapToLong(state -> TreeMemoryEstimator.estimateRetainedSize(state.getBackingNode()))
+            .sum();
+    final StubGauge anchorBytes =
+        metricsSystem.getGauge(TekuMetricCategory.STORAGE, "finalized_state_anchors_bytes");
+    assertThat(anchorBytes.getValue()).isLessThan(fullSizes);
+  }
+
+  @Test
+  void shouldNotRetainAnchorsBeyondByteBudget() throws Exception {
+    final FinalizedStateCache cache =
+        new FinalizedStateCache(
+            spec, database, new StubMetricsSystem(), MAXIMUM_CACHE_SIZE, 1, false);
+    chainBuilder.generateBlocksUpToSlot(20);
+    when(database.getLatestAvailableFinalizedState(any()))
+        .thenReturn(Optional.of(chainBuilder.getGenesis().getState()));
+    allowStreamingBlocks();
+
+    for (int i = 0; i < 64; i++) {
+      cache.getFinalizedState(ONE);
+    }
+    cache.getFinalizedState(UInt64.valueOf(20));
+
+    assertThat(cache.getFinalizedState(UInt64.valueOf(18)))
+        .contains(chainBuilder.getStateAtSlot(18));
+    verify(database).streamFinalizedBlocks(UInt64.valueOf(2), UInt64.valueOf(18));
+  }
+
   @Test
   void shouldReturnEmptyWhenStateIsNotAvailable() {
     when(database.getLatestAvailableFinalizedState(any())).thenReturn(Optional.empty());
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2022 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package tech.pegasys.teku.storage.server.state;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentMatchers;
+import org.mockito.InOrder;
+import tech.pegasys.teku.bls.BLSKeyGenerator;
+import tech.pegasys.teku.core.ChainBuilder;
+import tech.pegasys.teku.infrastructure.unsigned.UInt64;
+import tech.pegasys.teku.spec.Spec;
+import tech.pegasys.teku.spec.TestSpecFactory;
+import tech.pegasys.teku.spec.datastructures.blocks.SignedBlockAndState;
+import tech.pegasys.teku.storage.server.Database;
+
+class FinalizedStateReconstructorTest {
+  private final Spec spec = TestSpecFactory.createMinimalPhase0();
+  private final ChainBuilder chainBuilder =
+      ChainBuilder.create(spec, BLSKeyGenerator.generateKeyPairs(3));
+  private final Database database = mock(Database.class);
+
+  @TempDir Path tempDir;
+  private Path progressFile;
+
+  @BeforeEach
+  void setUp() {
+    chainBuilder.generateGenesis();
+    chainBuilder.generateBlocksUpToSlot(6);
+    progressFile = tempDir.resolve("progress");
+  }
+
+  @Test
+  void shouldStoreStatesAtStorageFrequencyInBatches() throws Exception {
+    withBaseStateAt(0, 0);
+    withBlocks(1, 1, 6);
+
+    final long storedStates = createReconstructor().reconstruct(UInt64.ZERO, UInt64.valueOf(6));
+
+    assertThat(storedStates).isEqualTo(3);
+    final InOrder inOrder = inOrder(database);
+    inOrder
+        .verify(database)
+        .storeReconstructedFinalizedStates(
+            List.of(chainBuilder.getStateAtSlot(2), chainBuilder.getStateAtSlot(4)));
+    inOrder
+        .verify(database)
+        .storeReconstructedFinalizedStates(List.of(chainBuilder.getStateAtSlot(6)));
+    assertThat(progressFile).doesNotExist();
+  }
+
+  @Test
+  void shouldResumeFromRecordedProgress() throws Exception {
+    Files.writeString(progressFile, "4");
+    withBaseStateAt(4, 4);
+    withBlocks(5, 5, 6);
+
+    final long storedStates = createReconstructor().reconstruct(UInt64.ZERO, UInt64.valueOf(6));
+
+    assertThat(storedStates).isEqualTo(1);
+    verify(database).storeReconstructedFinalizedStates(List.of(chainBuilder.getStateAtSlot(6)));
+  }
+
+  @Test
+  void shouldFailWhenRegeneratedStateDoesNotMatchBlock() {
+    withBaseStateAt(0, 0);
+    // Skipping the block at slot 1 produces states which don't match the later blocks
+    withBlocks(1, 2, 6);
+
+    assertThatThrownBy(() -> createReconstructor().reconstruct(UInt64.ZERO, UInt64.valueOf(6)))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("does not match the state root");
+    verify(database, never()).storeReconstructedFinalizedStates(ArgumentMatchers.any());
+    assertThat(progressFile).doesNotExist();
+  }
+
+  private FinalizedStateReconstructor createReconstructor() {
+    return new FinalizedStateReconstructor(spec, database, 2, 2, 2, progressFile);
+  }
+
+  private void withBaseStateAt(final long requestedSlot, final long stateSlot) {
+    when(database.getLatestAvailableFinalizedState(UInt64.valueOf(requestedSlot)))
+        .thenReturn(Optional.of(chainBuilder.getStateAtSlot(stateSlot)));
+  }
+
+  private void withBlocks(final long requestedSlot, final long startSlot, final long endSlot) {
+    final List<SignedBlockAndState> blocks =
+        chainBuilder.streamBlocksAndStates(startSlot, endSlot).collect(Collectors.toList());
+    when(database.streamFinalizedBlocks(UInt64.valueOf(requestedSlot), UInt64.valueOf(endSlot)))
+        .thenAnswer(__ -> blocks.stream().map(SignedBlockAndState::getBlock));
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2022 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package tech.pegasys.teku.storage.server.state;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static tech.pegasys.teku.storage.server.state.StateRegenerationPlanner.DECAY_INTERVAL;
+import static tech.pegasys.teku.storage.server.state.StateRegenerationPlanner.EPOCH_TRANSITION_COST;
+import static tech.pegasys.teku.storage.server.state.StateRegenerationPlanner.MAX_TARGET_EPOCHS;
+import static tech.pegasys.teku.storage.server.state.StateRegenerationPlanner.REGION_EPOCHS;
+
+import org.junit.jupiter.api.Test;
+import tech.pegasys.teku.infrastructure.unsigned.UInt64;
+
+class StateRegenerationPlannerTest {
+  private static final int SLOTS_PER_EPOCH = 8;
+  private static final long EPOCH_COST = SLOTS_PER_EPOCH + EPOCH_TRANSITION_COST;
+  private static final long MAX_TARGET_COST = MAX_TARGET_EPOCHS * EPOCH_COST;
+  private static final UInt64 NEXT_REGION_SLOT = UInt64.valueOf(SLOTS_PER_EPOCH * REGION_EPOCHS);
+
+  private final StateRegenerationPlanner planner = new StateRegenerationPlanner(SLOTS_PER_EPOCH);
+
+  @Test
+  void estimateReplayCost_shouldCountSlotsAndEpochTransitions() {
+    assertThat(planner.estimateReplayCost(UInt64.valueOf(2), UInt64.valueOf(5))).isEqualTo(3);
+    assertThat(planner.estimateReplayCost(UInt64.valueOf(6), UInt64.valueOf(9)))
+        .isEqualTo(3 + EPOCH_TRANSITION_COST);
+    assertThat(planner.estimateReplayCost(UInt64.ZERO, UInt64.valueOf(SLOTS_PER_EPOCH * 2)))
+        .isEqualTo(EPOCH_COST * 2);
+  }
+
+  @Test
+  void estimateReplayCost_shouldBeZeroWhenNoReplayRequired() {
+    assertThat(planner.estimateReplayCost(UInt64.valueOf(5), UInt64.valueOf(5))).isZero();
+    assertThat(planner.estimateReplayCost(UInt64.valueOf(9), UInt64.valueOf(5))).isZero();
+  }
+
+  @Test
+  void getTargetReplayCost_shouldUseMaximumForRegionsWithoutQueries() {
+    planner.onQuery(NEXT_REGION_SLOT);
+
+    assertThat(planner.getTargetReplayCost(UInt64.ONE)).isEqualTo(MAX_TARGET_COST);
+  }
+
+  @Test
+  void getTargetReplayCost_shouldDecreaseWithQueriesInRegion() {
+    planner.onQuery(UInt64.valueOf(3));
+    assertThat(planner.getTargetReplayCost(UInt64.ONE)).isEqualTo(MAX_TARGET_COST / 2);
+
+    planner.onQuery(UInt64.valueOf(200));
+    assertThat(planner.getTargetReplayCost(UInt64.ONE)).isEqualTo(MAX_TARGET_COST / 3);
+  }
+
+  @Test
+  void getTargetReplayCost_shouldNotGoBelowSingleEpoch() {
+    for (int i = 0; i < MAX_TARGET_EPOCHS * 2; i++) {
+      planner.onQuery(UInt64.ONE);
+    }
+
+    assertThat(planner.getTargetReplayCost(UInt64.ONE)).isEqualTo(EPOCH_COST);
+  }
+
+  @Test
+  void onQuery_shouldHalveCountsAndDropSingleQueriesAfterDecayInterval() {
+    for (int i = 0; i < DECAY_INTERVAL - 1; i++) {
+      planner.onQuery(UInt64.ONE);
+    }
+    assertThat(planner.getQueryCount(UInt64.ONE)).isEqualTo(DECAY_INTERVAL - 1);
+
+    planner.onQuery(NEXT_REGION_SLOT);
+
+    assertThat(planner.getQueryCount(UInt64.ONE)).isEqualTo((DECAY_INTERVAL - 1) / 2);
+    assertThat(planner.getQueryCount(NEXT_REGION_SLOT)).isZero();
+  }
+
+  @Test
+  void shouldRetainAnchor_shouldRequireLongReplayWithoutQueries() {
+    final UInt64 maxTargetSlot = UInt64.valueOf(SLOTS_PER_EPOCH * MAX_TARGET_EPOCHS);
+
+    assertThat(planner.shouldRetainAnchor(UInt64.ZERO, UInt64.valueOf(SLOTS_PER_EPOCH))).isFalse();
+    assertThat(planner.shouldRetainAnchor(UInt64.ZERO, maxTargetSlot.minus(1))).isFalse();
+    assertThat(planner.shouldRetainAnchor(UInt64.ZERO, maxTargetSlot)).isTrue();
+  }
+
+  @Test
+  void shouldRetainAnchor_shouldAcceptShortReplayInFrequentlyQueriedRegion() {
+    for (int i = 0; i < MAX_TARGET_EPOCHS; i++) {
+      planner.onQuery(UInt64.ONE);
+    }
+
+    assertThat(planner.shouldRetainAnchor(UInt64.ZERO, UInt64.valueOf(SLOTS_PER_EPOCH))).isTrue();
+    assertThat(planner.shouldRetainAnchor(UInt64.ZERO, UInt64.valueOf(SLOTS_PER_EPOCH - 1)))
+        .isFalse();
+  }
+}
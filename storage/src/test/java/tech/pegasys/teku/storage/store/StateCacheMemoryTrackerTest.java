@@ -0,0 +1,101 @@
+/*
+ * Copyright 2019 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package tech.pegasys.teku.storage.store;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static tech.pegasys.teku.storage.store.StateCacheMemoryTracker.ALL_CACHES_LABEL;
+import static tech.pegasys.teku.storage.store.StateCacheMemoryTracker.RETAINED;
+import static tech.pegasys.teku.storage.store.StateCacheMemoryTracker.SHARED;
+import static tech.pegasys.teku.storage.store.StateCacheMemoryTracker.UNIQUE;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.apache.tuweni.bytes.Bytes;
+import org.apache.tuweni.bytes.Bytes32;
+import org.junit.jupiter.api.Test;
+import tech.pegasys.teku.infrastructure.async.StubAsyncRunner;
+import tech.pegasys.teku.infrastructure.metrics.StubMetricsSystem;
+import tech.pegasys.teku.infrastructure.ssz.tree.LeafNode;
+import tech.pegasys.teku.infrastructure.ssz.tree.TreeMemoryEstimator;
+import tech.pegasys.teku.infrastructure.ssz.tree.TreeNode;
+import tech.pegasys.teku.infrastructure.ssz.tree.TreeUtil;
+
+class StateCacheMemoryTrackerTest {
+
+  private final TreeNode tree =
+      TreeUtil.createTree(
+          IntStream.range(0, 64)
+              .mapToObj(i -> LeafNode.create(Bytes32.leftPad(Bytes.ofUnsignedInt(i))))
+              .collect(Collectors.toList()));
+  private final TreeNode childTree = tree.updated(64, LeafNode.create(Bytes32.random()));
+  private final TreeNode unrelatedTree = tree.updated(64, LeafNode.create(Bytes32.random()));
+
+  private final StubAsyncRunner asyncRunner = new StubAsyncRunner();
+  private final StateCacheMemoryTracker tracker = new StateCacheMemoryTracker(asyncRunner);
+
+  @Test
+  void calculate_shouldSplitSharedAndUniqueBytesBetweenCaches() {
+    tracker.addCache("states", () -> List.of(tree, childTree));
+    tracker.addCache("checkpoint_states", () -> List.of(unrelatedTree));
+
+    final Map<List<String>, Long> result = tracker.calculate();
+
+    final TreeMemoryEstimator allEstimator = new TreeMemoryEstimator();
+    List.of(tree, childTree, unrelatedTree).forEach(allEstimator::add);
+    final TreeMemoryEstimator statesEstimator = new TreeMemoryEstimator();
+    List.of(tree, childTree).forEach(statesEstimator::add);
+    final long unrelatedTreeUniqueBytes =
+        TreeMemoryEstimator.estimateRetainedSize(unrelatedTree, tree);
+
+    assertThat(result.get(List.of(ALL_CACHES_LABEL, RETAINED)))
+        .isEqualTo(allEstimator.getRetainedBytes());
+    assertThat(result.get(List.of("states", RETAINED)))
+        .isEqualTo(statesEstimator.getRetainedBytes());
+    assertThat(result.get(List.of("checkpoint_states", RETAINED)))
+        .isEqualTo(TreeMemoryEstimator.estimateRetainedSize(unrelatedTree));
+    assertThat(result.get(List.of("checkpoint_states", UNIQUE)))
+        .isEqualTo(unrelatedTreeUniqueBytes);
+    assertThat(result.get(List.of("checkpoint_states", SHARED)))
+        .isEqualTo(
+            TreeMemoryEstimator.estimateRetainedSize(unrelatedTree) - unrelatedTreeUniqueBytes);
+    assertThat(result.get(List.of("states", UNIQUE)) + result.get(List.of("states", SHARED)))
+        .isEqualTo(result.get(List.of("states", RETAINED)));
+  }
+
+  @Test
+  void getBytes_shouldReportLatestEstimatesFromBackgroundTask() {
+    tracker.addCache("states", () -> List.of(tree));
+    tracker.startMetrics(new StubMetricsSystem());
+
+    assertThat(tracker.getBytes("states", RETAINED)).isZero();
+
+    asyncRunner.executeQueuedActions();
+
+    assertThat(tracker.getBytes("states", RETAINED))
+        .isEqualTo(TreeMemoryEstimator.estimateRetainedSize(tree));
+  }
+
+  @Test
+  void calculate_shouldReportZeroForEmptyCaches() {
+    tracker.addCache("states", List::of);
+
+    final Map<List<String>, Long> result = tracker.calculate();
+
+    assertThat(result.get(List.of("states", RETAINED))).isZero();
+    assertThat(result.get(List.of("states", UNIQUE))).isZero();
+    assertThat(result.get(List.of("states", SHARED))).isZero();
+  }
+}
@@ -19,6 +19,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import org.apache.tuweni.bytes.Bytes;
 import org.apache.tuweni.bytes.Bytes32;
 import tech.pegasys.teku.infrastructure.async.SafeFuture;
 import tech.pegasys.teku.infrastructure.unsigned.UInt64;
@@ -55,6 +56,11 @@ public class StubStorageQueryChannel implements StorageQueryChannel {
     return SafeFuture.completedFuture(Optional.empty());
   }
 
+  @Override
+  public SafeFuture<Optional<Bytes>> getFinalizedBlockBytesAtSlot(final UInt64 slot) {
+    return SafeFuture.completedFuture(Optional.empty());
+  }
+
   @Override
   public SafeFuture<Optional<SignedBeaconBlock>> getLatestFinalizedBlockAtSlot(UInt64 slot) {
     return SafeFuture.completedFuture(Optional.empty());
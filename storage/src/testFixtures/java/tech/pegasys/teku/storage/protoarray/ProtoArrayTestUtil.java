@@ -15,6 +15,10 @@ package tech.pegasys.teku.storage.protoarray;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import it.unimi.dsi.fastutil.longs.LongList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
 import org.apache.tuweni.bytes.Bytes32;
 import tech.pegasys.teku.infrastructure.unsigned.UInt64;
 import tech.pegasys.teku.spec.Spec;
@@ -61,6 +65,42 @@ public class ProtoArrayTestUtil {
     return new TestStoreFactory().createGenesisStore();
   }
 
+  /** Computes deltas with the votes currently in {@code store}, like the fork choice strategy. */
+  static LongList computeDeltas(
+      final VoteUpdater store,
+      final int protoArraySize,
+      final Function<Bytes32, Optional<Integer>> getIndexByRoot,
+      final List<UInt64> oldBalances,
+      final List<UInt64> newBalances,
+      final Optional<Bytes32> previousProposerBoostRoot,
+      final Optional<Bytes32> newProposerBoostRoot,
+      final UInt64 previousBoostAmount,
+      final UInt64 newBoostAmount) {
+    final ProtoArrayVotes votes = new ProtoArrayVotes();
+    UInt64.rangeClosed(UInt64.ZERO, store.getHighestVotedValidatorIndex())
+        .forEach(
+            validatorIndex ->
+                votes.setVote(
+                    validatorIndex.intValue(),
+                    store.getVote(validatorIndex),
+                    root -> getIndexByRoot.apply(root).orElse(ProtoArrayVotes.NO_NODE)));
+    return ProtoArrayScoreCalculator.computeDeltas(
+        votes,
+        store,
+        protoArraySize,
+        getIndexByRoot,
+        toLongArray(oldBalances),
+        toLongArray(newBalances),
+        previousProposerBoostRoot,
+        newProposerBoostRoot,
+        previousBoostAmount,
+        newBoostAmount);
+  }
+
+  static long[] toLongArray(final List<UInt64> balances) {
+    return balances.stream().mapToLong(UInt64::longValue).toArray();
+  }
+
   public static void assertThatBlockInformationMatches(ProtoNode node1, ProtoNode node2) {
     assertThat(node1.getBlockSlot()).isEqualTo(node2.getBlockSlot());
     assertThat(node1.getStateRoot()).isEqualTo(node2.getStateRoot());
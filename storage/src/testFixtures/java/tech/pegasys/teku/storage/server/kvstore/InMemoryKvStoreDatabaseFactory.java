@@ -13,6 +13,7 @@
 
 package tech.pegasys.teku.storage.server.kvstore;
 
+import java.util.Optional;
 import tech.pegasys.teku.infrastructure.metrics.StubMetricsSystem;
 import tech.pegasys.teku.spec.Spec;
 import tech.pegasys.teku.storage.server.Database;
@@ -56,6 +57,7 @@ public class InMemoryKvStoreDatabaseFactory {
         storageMode,
         stateStorageFrequency,
         storeNonCanonicalBlocks,
+        Optional.empty(),
         spec);
   }
 
@@ -74,6 +76,7 @@ public class InMemoryKvStoreDatabaseFactory {
         storageMode,
         storeNonCanonicalBlocks,
         1000,
+        Optional.empty(),
         spec);
   }
 }
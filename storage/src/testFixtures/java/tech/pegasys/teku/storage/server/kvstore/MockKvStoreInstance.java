@@ -93,6 +93,13 @@ public class MockKvStoreInstance implements KvStoreAccessor {
     return columnValue(column, valueBytes);
   }
 
+  @Override
+  public <K, V> Optional<Bytes> getRaw(final KvStoreColumn<K, V> column, final K key) {
+    assertOpen();
+    assertValidColumn(column);
+    return Optional.ofNullable(columnData.get(column).get(keyToBytes(column, key)));
+  }
+
   @Override
   public <K, V> Map<K, V> getAll(final KvStoreColumn<K, V> column) {
     assertOpen();
@@ -100,6 +107,15 @@ public class MockKvStoreInstance implements KvStoreAccessor {
     return stream(column).collect(Collectors.toMap(ColumnEntry::getKey, ColumnEntry::getValue));
   }
 
+  @Override
+  public <K, V> Map<K, V> getAll(final KvStoreColumn<K, V> column, final Collection<K> keys) {
+    final Map<K, V> values = new HashMap<>();
+    for (K key : keys) {
+      get(column, key).ifPresent(value -> values.put(key, value));
+    }
+    return values;
+  }
+
   @Override
   public <K, V> Optional<ColumnEntry<K, V>> getFloorEntry(
       final KvStoreColumn<K, V> column, final K key) {
@@ -17,6 +17,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 
 import java.nio.file.Path;
+import java.util.Optional;
 import tech.pegasys.teku.core.ChainBuilder;
 import tech.pegasys.teku.infrastructure.metrics.StubMetricsSystem;
 import tech.pegasys.teku.spec.Spec;
@@ -170,6 +171,7 @@ public class FileBackedStorageSystemBuilder {
         storageMode,
         stateStorageFrequency,
         storeNonCanonicalBlocks,
+        Optional.empty(),
         spec);
   }
 
@@ -182,6 +184,7 @@ public class FileBackedStorageSystemBuilder {
         stateStorageFrequency,
         storeNonCanonicalBlocks,
         storeVotesEquivocation,
+        Optional.empty(),
         spec);
   }
 
@@ -194,6 +197,7 @@ public class FileBackedStorageSystemBuilder {
         storeNonCanonicalBlocks,
         10_000,
         storeVotesEquivocation,
+        Optional.empty(),
         spec);
   }
 
@@ -85,6 +85,30 @@ public class BeaconNodeDataOptions extends ValidatorClientDataOptions {
       hidden = true)
   private int maxKnownNodeCacheSize = StorageConfiguration.DEFAULT_MAX_KNOWN_NODE_CACHE_SIZE;
 
+  @CommandLine.Option(
+      names = {"--Xdata-storage-finalized-block-segments-enabled"},
+      paramLabel = "<BOOLEAN>",
+      description =
+          "Store finalized blocks in append-only segment files instead of the database. "
+              + "Only applies when creating a new database.",
+      fallbackValue = "true",
+      arity = "0..1",
+      hidden = true)
+  private boolean finalizedBlockSegmentsEnabled =
+      StorageConfiguration.DEFAULT_FINALIZED_BLOCK_SEGMENTS_ENABLED;
+
+  @CommandLine.Option(
+      names = {"--Xdata-storage-state-tree-garbage-collection-enabled"},
+      paramLabel = "<BOOLEAN>",
+      description =
+          "Periodically remove finalized state tree nodes which are no longer referenced by any "
+              + "stored state. Only applies to tree based databases.",
+      fallbackValue = "true",
+      arity = "0..1",
+      hidden = true)
+  private boolean stateTreeGarbageCollectionEnabled =
+      StorageConfiguration.DEFAULT_STATE_TREE_GARBAGE_COLLECTION_ENABLED;
+
   public StateStorageMode getDataStorageMode() {
     return dataStorageMode;
   }
@@ -103,7 +127,9 @@ public class BeaconNodeDataOptions extends ValidatorClientDataOptions {
                 .dataStorageFrequency(dataStorageFrequency)
                 .dataStorageCreateDbVersion(parseDatabaseVersion())
                 .storeNonCanonicalBlocks(storeNonCanonicalBlocksEnabled)
-                .maxKnownNodeCacheSize(maxKnownNodeCacheSize));
+                .maxKnownNodeCacheSize(maxKnownNodeCacheSize)
+                .finalizedBlockSegmentsEnabled(finalizedBlockSegmentsEnabled)
+                .stateTreeGarbageCollectionEnabled(stateTreeGarbageCollectionEnabled));
   }
 
   private DatabaseVersion parseDatabaseVersion() {
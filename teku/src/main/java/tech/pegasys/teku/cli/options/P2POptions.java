@@ -159,6 +159,17 @@ public class P2POptions {
       arity = "1")
   private boolean multiPeerSyncEnabled = SyncConfig.DEFAULT_MULTI_PEER_SYNC_ENABLED;
 
+  @Option(
+      names = {"--Xp2p-historical-sync-concurrent-requests"},
+      paramLabel = "<INTEGER>",
+      showDefaultValue = Visibility.ALWAYS,
+      description =
+          "Number of historical block ranges to request from different peers concurrently",
+      hidden = true,
+      arity = "1")
+  private int historicalSyncConcurrentRequests =
+      SyncConfig.DEFAULT_HISTORICAL_SYNC_CONCURRENT_REQUESTS;
+
   @Option(
       names = {"--p2p-subscribe-all-subnets-enabled"},
       paramLabel = "<BOOLEAN>",
@@ -307,7 +318,10 @@ public class P2POptions {
                   .listenPort(p2pPort)
                   .advertisedIp(Optional.ofNullable(p2pAdvertisedIp));
             })
-        .sync(s -> s.isMultiPeerSyncEnabled(multiPeerSyncEnabled));
+        .sync(
+            s ->
+                s.isMultiPeerSyncEnabled(multiPeerSyncEnabled)
+                    .historicalSyncConcurrentRequests(historicalSyncConcurrentRequests));
     natOptions.configure(builder);
   }
 }
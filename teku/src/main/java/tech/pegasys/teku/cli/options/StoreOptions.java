@@ -18,6 +18,8 @@ import tech.pegasys.teku.config.TekuConfiguration;
 import tech.pegasys.teku.storage.store.StoreConfig;
 
 public class StoreOptions {
+  private static final long BYTES_IN_MB = 1024 * 1024;
+
   @Option(
       hidden = true,
       names = {"--Xhot-state-persistence-frequency"},
@@ -52,12 +54,44 @@ public class StoreOptions {
       arity = "1")
   private int checkpointStateCacheSize = StoreConfig.DEFAULT_CHECKPOINT_STATE_CACHE_SIZE;
 
+  @Option(
+      hidden = true,
+      names = {"--Xstore-state-cache-max-memory"},
+      paramLabel = "<INTEGER>",
+      description =
+          "Estimated heap in megabytes the state cache may retain. Overrides the state cache size when greater than zero",
+      arity = "1")
+  private long stateCacheMaxMemoryMb = StoreConfig.DEFAULT_STATE_CACHE_MAX_BYTES / BYTES_IN_MB;
+
+  @Option(
+      hidden = true,
+      names = {"--Xstore-checkpoint-state-cache-max-memory"},
+      paramLabel = "<INTEGER>",
+      description =
+          "Estimated heap in megabytes the checkpoint state cache may retain. Overrides the checkpoint state cache size when greater than zero",
+      arity = "1")
+  private long checkpointStateCacheMaxMemoryMb =
+      StoreConfig.DEFAULT_CHECKPOINT_STATE_CACHE_MAX_BYTES / BYTES_IN_MB;
+
+  @Option(
+      hidden = true,
+      names = {"--Xstore-state-cache-memory-metrics-enabled"},
+      paramLabel = "<BOOLEAN>",
+      description = "Periodically estimate the heap retained by the state caches and report it",
+      arity = "0..1",
+      fallbackValue = "true")
+  private boolean stateCacheMemoryMetricsEnabled =
+      StoreConfig.DEFAULT_STATE_CACHE_MEMORY_METRICS_ENABLED;
+
   public void configure(final TekuConfiguration.Builder builder) {
     builder.store(
         b ->
             b.hotStatePersistenceFrequencyInEpochs(hotStatePersistenceFrequencyInEpochs)
                 .blockCacheSize(blockCacheSize)
                 .stateCacheSize(stateCacheSize)
-                .checkpointStateCacheSize(checkpointStateCacheSize));
+                .checkpointStateCacheSize(checkpointStateCacheSize)
+                .stateCacheMaxBytes(stateCacheMaxMemoryMb * BYTES_IN_MB)
+                .checkpointStateCacheMaxBytes(checkpointStateCacheMaxMemoryMb * BYTES_IN_MB)
+                .stateCacheMemoryMetricsEnabled(stateCacheMemoryMetricsEnabled));
   }
 }
@@ -39,6 +39,7 @@ import tech.pegasys.teku.spec.datastructures.state.beaconstate.BeaconState;
 import tech.pegasys.teku.storage.server.Database;
 import tech.pegasys.teku.storage.server.DepositStorage;
 import tech.pegasys.teku.storage.server.VersionedDatabaseFactory;
+import tech.pegasys.teku.storage.server.state.FinalizedStateReconstructor;
 import tech.pegasys.teku.storage.store.StoreBuilder;
 import tech.pegasys.teku.storage.store.UpdatableStore;
 
@@ -55,6 +56,8 @@ import tech.pegasys.teku.storage.store.UpdatableStore;
     footerHeading = "%n",
     footer = "Teku is licensed under the Apache License 2.0")
 public class DebugDbCommand implements Runnable {
+  private static final String RECONSTRUCT_PROGRESS_FILE = "reconstruct-finalized-states.progress";
+
   @Override
   public void run() {
     CommandLine.usage(this, System.out);
@@ -172,6 +175,77 @@ public class DebugDbCommand implements Runnable {
     }
   }
 
+  @Command(
+      name = "reconstruct-finalized-states",
+      description =
+          "Regenerate finalized states from the finalized blocks in the database, "
+              + "resuming from the last stored batch if previously interrupted",
+      mixinStandardHelpOptions = true,
+      showDefaultValues = true,
+      abbreviateSynopsis = true,
+      versionProvider = PicoCliVersionProvider.class,
+      synopsisHeading = "%n",
+      descriptionHeading = "%nDescription:%n%n",
+      optionListHeading = "%nOptions:%n",
+      footerHeading = "%n",
+      footer = "Teku is licensed under the Apache License 2.0")
+  public int reconstructFinalizedStates(
+      @Mixin final BeaconNodeDataOptions beaconNodeDataOptions,
+      @Mixin final Eth2NetworkOptions eth2NetworkOptions,
+      @Option(
+              names = {"--from-slot"},
+              defaultValue = "0",
+              description =
+                  "Slot to start from. Regeneration starts from the closest stored state at or before this slot")
+          final long fromSlot,
+      @Option(
+              names = {"--to-slot"},
+              description = "Last slot to regenerate. Defaults to the latest finalized block")
+          final Long toSlot,
+      @Option(
+              names = {"--state-frequency"},
+              defaultValue = "2048",
+              description = "Minimum number of slots between stored states, 1 stores every state")
+          final long stateFrequency,
+      @Option(
+              names = {"--hashing-threads"},
+              defaultValue = "4",
+              description = "Number of threads used to calculate state roots")
+          final int hashingThreads,
+      @Option(
+              names = {"--batch-size"},
+              defaultValue = "16",
+              description = "Number of states to store in each database commit")
+          final int batchSize)
+      throws Exception {
+    final Spec spec = eth2NetworkOptions.getNetworkConfiguration().getSpec();
+    final Path progressFile =
+        DataDirLayout.createFrom(beaconNodeDataOptions.getDataConfig())
+            .getBeaconDataDirectory()
+            .resolve(RECONSTRUCT_PROGRESS_FILE);
+    try (final Database database = createDatabase(beaconNodeDataOptions, eth2NetworkOptions)) {
+      final Optional<UInt64> endSlot =
+          toSlot != null
+              ? Optional.of(UInt64.valueOf(toSlot))
+              : database
+                  .getLatestFinalizedBlockAtSlot(UInt64.MAX_VALUE)
+                  .map(SignedBeaconBlock::getSlot);
+      if (endSlot.isEmpty()) {
+        System.err.println("No finalized blocks available.");
+        return 2;
+      }
+      final long startTime = System.currentTimeMillis();
+      final long storedStates =
+          new FinalizedStateReconstructor(
+                  spec, database, stateFrequency, hashingThreads, batchSize, progressFile)
+              .reconstruct(UInt64.valueOf(fromSlot), endSlot.get());
+      System.out.printf(
+          "Stored %d regenerated states up to slot %s in %d seconds%n",
+          storedStates, endSlot.get(), (System.currentTimeMillis() - startTime) / 1000);
+      return 0;
+    }
+  }
+
   private Database createDatabase(
       final BeaconNodeDataOptions beaconNodeDataOptions,
       final Eth2NetworkOptions eth2NetworkOptions) {
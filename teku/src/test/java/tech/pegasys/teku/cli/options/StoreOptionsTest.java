@@ -43,6 +43,42 @@ public class StoreOptionsTest extends AbstractBeaconNodeCommandTest {
     assertThat(globalConfiguration.getHotStatePersistenceFrequencyInEpochs()).isEqualTo(2);
   }
 
+  @Test
+  public void stateCacheMaxMemory_shouldRespectCLIArg() {
+    final String[] args = {
+      "--Xstore-state-cache-max-memory", "2048",
+      "--Xstore-checkpoint-state-cache-max-memory", "512"
+    };
+    final StoreConfig storeConfig =
+        getTekuConfigurationFromArguments(args).beaconChain().storeConfig();
+    assertThat(storeConfig.getStateCacheMaxBytes()).isEqualTo(2048L * 1024 * 1024);
+    assertThat(storeConfig.getCheckpointStateCacheMaxBytes()).isEqualTo(512L * 1024 * 1024);
+  }
+
+  @Test
+  public void stateCacheMaxMemory_shouldBeDisabledByDefault() {
+    final StoreConfig storeConfig =
+        getTekuConfigurationFromArguments().beaconChain().storeConfig();
+    assertThat(storeConfig.getStateCacheMaxBytes()).isZero();
+    assertThat(storeConfig.getCheckpointStateCacheMaxBytes()).isZero();
+  }
+
+  @Test
+  public void stateCacheMemoryMetricsEnabled_shouldRespectCLIArg() {
+    final StoreConfig storeConfig =
+        getTekuConfigurationFromArguments("--Xstore-state-cache-memory-metrics-enabled")
+            .beaconChain()
+            .storeConfig();
+    assertThat(storeConfig.isStateCacheMemoryMetricsEnabled()).isTrue();
+  }
+
+  @Test
+  public void stateCacheMemoryMetricsEnabled_shouldBeDisabledByDefault() {
+    final StoreConfig storeConfig =
+        getTekuConfigurationFromArguments().beaconChain().storeConfig();
+    assertThat(storeConfig.isStateCacheMemoryMetricsEnabled()).isFalse();
+  }
+
   @Test
   public void hotStatePersistenceFrequency_invalidNumber() {
     final String[] args = {